@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.linear.BlockCholeskyDecomposition;
+import org.apache.commons.math3.linear.BlockLUDecomposition;
+import org.apache.commons.math3.linear.BlockQRDecomposition;
+import org.apache.commons.math3.linear.BlockRealMatrix;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.QRDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the LU, QR and Cholesky decompositions of dense square
+ * matrices, followed by the solution of a system with one right hand side.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class DecompositionBenchmark {
+    /** Implementation of the decompositions. */
+    public enum Algorithm {
+        /** {@link LUDecomposition}, {@link QRDecomposition} and {@link CholeskyDecomposition}. */
+        UNBLOCKED,
+        /** Blocked decompositions, in the calling thread. */
+        BLOCKED,
+        /** Blocked decompositions, with one thread per available processor. */
+        PARALLEL
+    }
+
+    /** Implementation of the decompositions. */
+    @Param({ "UNBLOCKED", "BLOCKED", "PARALLEL" })
+    public Algorithm algorithm;
+
+    /** Number of rows and columns of the matrices. */
+    @Param({ "64", "256", "1024", "2048" })
+    public int size;
+
+    /** General matrix. */
+    private RealMatrix general;
+    /** Symmetric positive definite matrix. */
+    private RealMatrix spd;
+    /** Right hand side. */
+    private RealMatrix b;
+    /** Executor of the parallel updates. */
+    private ExecutorService executor;
+
+    /**
+     * Generates the matrices.
+     */
+    @Setup
+    public void setup() {
+        final RandomGenerator random = new MersenneTwister(1234l);
+        final double[][] data = new double[size][size];
+        final double[][] rhs = new double[size][1];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                data[i][j] = random.nextDouble();
+            }
+            rhs[i][0] = random.nextDouble();
+        }
+        general = new BlockRealMatrix(data);
+        spd = general.transpose().multiply(general);
+        for (int i = 0; i < size; i++) {
+            spd.addToEntry(i, i, size);
+        }
+        b = new BlockRealMatrix(rhs);
+
+        if (algorithm == Algorithm.PARALLEL) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Releases the threads of the parallel updates.
+     */
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Solves the general system with an LU decomposition.
+     *
+     * @return the solution.
+     */
+    @Benchmark
+    public RealMatrix lu() {
+        final DecompositionSolver solver = algorithm == Algorithm.UNBLOCKED ?
+                                           new LUDecomposition(general).getSolver() :
+                                           new BlockLUDecomposition(general, executor).getSolver();
+        return solver.solve(b);
+    }
+
+    /**
+     * Solves the general system with a QR decomposition.
+     *
+     * @return the solution.
+     */
+    @Benchmark
+    public RealMatrix qr() {
+        final DecompositionSolver solver = algorithm == Algorithm.UNBLOCKED ?
+                                           new QRDecomposition(general).getSolver() :
+                                           new BlockQRDecomposition(general, 0, executor).getSolver();
+        return solver.solve(b);
+    }
+
+    /**
+     * Solves the symmetric positive definite system with a Cholesky
+     * decomposition.
+     *
+     * @return the solution.
+     */
+    @Benchmark
+    public RealMatrix cholesky() {
+        final DecompositionSolver solver = algorithm == Algorithm.UNBLOCKED ?
+                                           new CholeskyDecomposition(spd).getSolver() :
+                                           new BlockCholeskyDecomposition(spd, executor).getSolver();
+        return solver.solve(b);
+    }
+}
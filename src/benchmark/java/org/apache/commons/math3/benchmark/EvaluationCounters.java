@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary results of the optimizer benchmarks.
+ * <br/>
+ * The counters are reported in the same unit as the primary (throughput)
+ * result: dividing the {@code evaluations} rate by the primary rate gives
+ * the number of function evaluations needed by one optimization, i.e.
+ * the evaluations to converge; likewise for {@code gradients} (the
+ * evaluations of the gradient, for gradient-based optimizers) and
+ * {@code iterations}.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class EvaluationCounters {
+    /** Number of function evaluations. */
+    public long evaluations;
+    /** Number of gradient evaluations. */
+    public long gradients;
+    /** Number of iterations. */
+    public long iterations;
+
+    /**
+     * Resets the counters at the start of each measurement iteration.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        evaluations = 0;
+        gradients = 0;
+        iterations = 0;
+    }
+
+    /**
+     * Records the cost of one optimization.
+     *
+     * @param evaluationCount Number of function evaluations.
+     * @param iterationCount Number of iterations.
+     */
+    public void add(int evaluationCount, int iterationCount) {
+        evaluations += evaluationCount;
+        iterations += iterationCount;
+    }
+
+    /**
+     * Records the gradient evaluations of one optimization.
+     *
+     * @param gradientCount Number of gradient evaluations.
+     */
+    public void addGradients(int gradientCount) {
+        gradients += gradientCount;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearConstraintSet;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.LinearOptimizer;
+import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
+import org.apache.commons.math3.optim.linear.ParallelPivoting;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.linear.RevisedSimplexSolver;
+import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the linear optimizers: one operation is the solution of
+ * a random linear program
+ * <math>max c<sup>T</sup>x, Ax &le; b, x &ge; 0</math>
+ * with positive coefficients (hence feasible and bounded).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinearOptimizerBenchmark {
+    /** Optimizers. */
+    public enum Optimizer {
+        /** Dense tableau simplex. */
+        SIMPLEX,
+        /**
+         * Dense tableau simplex, with the row operations of large pivots
+         * spread over all available processors.
+         */
+        PARALLEL_SIMPLEX,
+        /** Sparse revised simplex. */
+        REVISED_SIMPLEX
+    }
+
+    /** Optimizer. */
+    @Param({ "SIMPLEX", "PARALLEL_SIMPLEX", "REVISED_SIMPLEX" })
+    public Optimizer optimizer;
+
+    /** Number of variables. */
+    @Param({ "10", "50", "100", "400" })
+    public int variables;
+
+    /** Number of constraints, relative to the number of variables. */
+    @Param({ "0.5", "1", "2" })
+    public double constraintRatio;
+
+    /** Fraction of non-zero coefficients in the constraints. */
+    @Param({ "1", "0.05" })
+    public double density;
+
+    /** Objective function. */
+    private LinearObjectiveFunction objective;
+    /** Constraints. */
+    private LinearConstraintSet constraints;
+    /** Executor for the parallel pivots. */
+    private ExecutorService executor;
+
+    /**
+     * Generates the problem.
+     */
+    @Setup
+    public void setup() {
+        final RandomGenerator random = new MersenneTwister(1234l);
+        final int m = Math.max(1, (int) (constraintRatio * variables));
+
+        final double[] c = new double[variables];
+        for (int j = 0; j < variables; j++) {
+            c[j] = 1 + random.nextDouble();
+        }
+        objective = new LinearObjectiveFunction(c, 0);
+
+        final List<LinearConstraint> list = new ArrayList<LinearConstraint>(m);
+        for (int i = 0; i < m; i++) {
+            final double[] a = new double[variables];
+            for (int j = 0; j < variables; j++) {
+                // every variable appears in at least one constraint
+                if (j % m == i || random.nextDouble() < density) {
+                    a[j] = 0.1 + random.nextDouble();
+                }
+            }
+            list.add(new LinearConstraint(a, Relationship.LEQ, variables * (1 + random.nextDouble())));
+        }
+        constraints = new LinearConstraintSet(list);
+
+        if (optimizer == Optimizer.PARALLEL_SIMPLEX) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Releases the threads of the parallel pivots.
+     */
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Solves the linear program.
+     *
+     * @param counters Evaluation counters (iterations of the solver).
+     * @return the solution.
+     */
+    @Benchmark
+    public PointValuePair optimize(EvaluationCounters counters) {
+        final LinearOptimizer solver = optimizer == Optimizer.REVISED_SIMPLEX ?
+                                       new RevisedSimplexSolver() :
+                                       new SimplexSolver();
+        final PointValuePair solution;
+        if (executor == null) {
+            solution = solver.optimize(new MaxIter(100000),
+                                       objective,
+                                       constraints,
+                                       GoalType.MAXIMIZE,
+                                       new NonNegativeConstraint(true));
+        } else {
+            solution = solver.optimize(new MaxIter(100000),
+                                       objective,
+                                       constraints,
+                                       GoalType.MAXIMIZE,
+                                       new NonNegativeConstraint(true),
+                                       new ParallelPivoting(executor));
+        }
+        counters.add(solver.getEvaluations(), solver.getIterations());
+        return solution;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.BlockRealMatrix;
+import org.apache.commons.math3.linear.ParallelMatrixMultiplier;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the products of dense square matrices, and of dense square
+ * matrices by vectors.
+ * <p>
+ * The largest matrices need a large heap (three 8192x8192 matrices use
+ * 1.5 GB), and a single sequential product of this size takes minutes:
+ * select the sizes with e.g. {@code -p size=64,256,1024}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MatrixMultiplicationBenchmark {
+    /** Storage of the matrices. */
+    public enum Layout {
+        /** {@link BlockRealMatrix}. */
+        BLOCK,
+        /** {@link Array2DRowRealMatrix}. */
+        ARRAY
+    }
+
+    /** Execution of the products. */
+    public enum Execution {
+        /** Methods of the matrices, in the calling thread. */
+        SEQUENTIAL,
+        /**
+         * {@link ParallelMatrixMultiplier}, with one task per available
+         * processor.
+         */
+        PARALLEL
+    }
+
+    /** Storage of the matrices. */
+    @Param({ "BLOCK", "ARRAY" })
+    public Layout layout;
+
+    /** Execution of the products. */
+    @Param({ "SEQUENTIAL", "PARALLEL" })
+    public Execution execution;
+
+    /** Number of rows and columns of the matrices. */
+    @Param({ "64", "256", "1024", "4096", "8192" })
+    public int size;
+
+    /** Left matrix. */
+    private RealMatrix a;
+    /** Right matrix. */
+    private RealMatrix b;
+    /** Vector. */
+    private double[] v;
+    /** Executor of the parallel products. */
+    private ExecutorService executor;
+    /** Parallel multiplier. */
+    private ParallelMatrixMultiplier multiplier;
+
+    /**
+     * Generates the matrices.
+     */
+    @Setup
+    public void setup() {
+        final RandomGenerator random = new MersenneTwister(1234l);
+        final double[][] aData = new double[size][size];
+        final double[][] bData = new double[size][size];
+        v = new double[size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                aData[i][j] = random.nextDouble();
+                bData[i][j] = random.nextDouble();
+            }
+            v[i] = random.nextDouble();
+        }
+        if (layout == Layout.BLOCK) {
+            a = new BlockRealMatrix(aData);
+            b = new BlockRealMatrix(bData);
+        } else {
+            a = new Array2DRowRealMatrix(aData, false);
+            b = new Array2DRowRealMatrix(bData, false);
+        }
+
+        if (execution == Execution.PARALLEL) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            multiplier = new ParallelMatrixMultiplier(executor);
+        }
+    }
+
+    /**
+     * Releases the threads of the parallel products.
+     */
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Multiplies the matrices.
+     *
+     * @return the product.
+     */
+    @Benchmark
+    public RealMatrix multiply() {
+        return multiplier == null ? a.multiply(b) : multiplier.multiply(a, b);
+    }
+
+    /**
+     * Multiplies the left matrix by the vector.
+     *
+     * @return the product.
+     */
+    @Benchmark
+    public double[] operate() {
+        return multiplier == null ? a.operate(v) : multiplier.operate(a, v);
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.SimpleValueChecker;
+import org.apache.commons.math3.optim.nonlinear.scalar.ArmijoLineSearch;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.HagerZhangLineSearch;
+import org.apache.commons.math3.optim.nonlinear.scalar.MoreThuenteLineSearch;
+import org.apache.commons.math3.optim.nonlinear.scalar.MultivariateOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunctionGradient;
+import org.apache.commons.math3.optim.nonlinear.scalar.gradient.LBFGSOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.gradient.NonLinearConjugateGradientOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.BOBYQAOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.CMAESOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.MultiDirectionalSimplex;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.NelderMeadSimplex;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.PowellOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.SimplexOptimizer;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the scalar optimizers of the {@code optim} package:
+ * one operation is a complete optimization of a {@link TestFunctions
+ * test function}, from its standard start point.
+ * <br/>
+ * Runs that exhaust the evaluation budget are not errors: they are
+ * measured as well, and show up in the evaluation counter.
+ * <br/>
+ * The optimizers using line searches appear twice: with their default
+ * line search (exact for the conjugate gradient and Powell methods), and
+ * with an inexact {@link org.apache.commons.math3.optim.nonlinear.scalar.LineSearch
+ * line search}; the evaluation counters compared with the iteration
+ * counter give the cost of each line search.
+ * <br/>
+ * The CMA-ES variants (lazy eigendecomposition, separable covariance)
+ * mostly differ for large dimensions, e.g. with
+ * {@code -p function=ELLIPSOID -p dimension=10,50,100,200,400 CMAES}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalarOptimizerBenchmark {
+    /** Maximal number of evaluations of a single run. */
+    private static final int MAX_EVAL = 100000;
+
+    /** Optimizers. */
+    public enum Optimizer {
+        /** Nelder-Mead simplex. */
+        NELDER_MEAD,
+        /** Multi-directional simplex. */
+        MULTI_DIRECTIONAL,
+        /** BOBYQA. */
+        BOBYQA,
+        /** CMA-ES. */
+        CMAES,
+        /** CMA-ES, with lazy eigendecomposition of the covariance matrix. */
+        CMAES_LAZY,
+        /** Separable CMA-ES (diagonal covariance matrix). */
+        CMAES_SEPARABLE,
+        /** Powell. */
+        POWELL,
+        /** Powell, with derivative-free Armijo line search. */
+        POWELL_ARMIJO,
+        /** Non-linear conjugate gradient (Polak-Ribiere). */
+        CONJUGATE_GRADIENT,
+        /** Non-linear conjugate gradient, with More-Thuente line search. */
+        CONJUGATE_GRADIENT_MORE_THUENTE,
+        /** Non-linear conjugate gradient, with Hager-Zhang line search. */
+        CONJUGATE_GRADIENT_HAGER_ZHANG,
+        /** L-BFGS (with More-Thuente line search). */
+        LBFGS
+    }
+
+    /** Optimizer. */
+    @Param({ "NELDER_MEAD", "MULTI_DIRECTIONAL", "BOBYQA",
+             "CMAES", "CMAES_LAZY", "CMAES_SEPARABLE",
+             "POWELL", "POWELL_ARMIJO",
+             "CONJUGATE_GRADIENT", "CONJUGATE_GRADIENT_MORE_THUENTE",
+             "CONJUGATE_GRADIENT_HAGER_ZHANG", "LBFGS" })
+    public Optimizer optimizer;
+
+    /** Function to optimize. */
+    @Param({ "ROSENBROCK", "RASTRIGIN", "ELLIPSOID" })
+    public TestFunctions function;
+
+    /** Dimension. */
+    @Param({ "2", "5", "10", "20" })
+    public int dimension;
+
+    /** Start point. */
+    private double[] start;
+
+    /**
+     * Sets up the problem.
+     */
+    @Setup
+    public void setup() {
+        start = function.startPoint(dimension);
+    }
+
+    /**
+     * Runs a complete optimization.
+     *
+     * @param counters Evaluation counters.
+     * @return the optimum (or {@code null} if the budget was exhausted).
+     */
+    @Benchmark
+    public PointValuePair optimize(EvaluationCounters counters) {
+        final MultivariateOptimizer opt = create();
+        final CountingGradient gradient = new CountingGradient(function.gradient());
+        PointValuePair result = null;
+        try {
+            result = opt.optimize(data(gradient));
+        } catch (TooManyEvaluationsException e) {
+            // budget exhausted: the cost is still recorded
+        }
+        counters.add(opt.getEvaluations(), opt.getIterations());
+        counters.addGradients(gradient.count);
+        return result;
+    }
+
+    /**
+     * @return a new optimizer.
+     */
+    private MultivariateOptimizer create() {
+        switch (optimizer) {
+        case NELDER_MEAD:
+        case MULTI_DIRECTIONAL:
+            return new SimplexOptimizer(1e-10, 1e-30);
+        case BOBYQA:
+            return new BOBYQAOptimizer(2 * dimension + 1);
+        case CMAES:
+            return new CMAESOptimizer(30000, 0, true, 0, 0, new MersenneTwister(1234l),
+                                      false, new SimpleValueChecker(1e-10, 1e-30));
+        case CMAES_LAZY:
+            return new CMAESOptimizer(30000, 0, true, 0, 0, new MersenneTwister(1234l),
+                                      false, new SimpleValueChecker(1e-10, 1e-30),
+                                      false, true);
+        case CMAES_SEPARABLE:
+            return new CMAESOptimizer(30000, 0, true, 1, 0, new MersenneTwister(1234l),
+                                      false, new SimpleValueChecker(1e-10, 1e-30));
+        case POWELL:
+            return new PowellOptimizer(1e-10, 1e-30);
+        case POWELL_ARMIJO:
+            return new PowellOptimizer(1e-10, 1e-30, null, new ArmijoLineSearch());
+        case CONJUGATE_GRADIENT:
+            return new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                           new SimpleValueChecker(1e-10, 1e-30));
+        case CONJUGATE_GRADIENT_MORE_THUENTE:
+            return new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                           new SimpleValueChecker(1e-10, 1e-30),
+                                                           new MoreThuenteLineSearch(1e-4, 0.1,
+                                                                                     MoreThuenteLineSearch.DEFAULT_MAX_TRIALS),
+                                                           new NonLinearConjugateGradientOptimizer.IdentityPreconditioner());
+        case CONJUGATE_GRADIENT_HAGER_ZHANG:
+            return new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                           new SimpleValueChecker(1e-10, 1e-30),
+                                                           new HagerZhangLineSearch(),
+                                                           new NonLinearConjugateGradientOptimizer.IdentityPreconditioner());
+        case LBFGS:
+            return new LBFGSOptimizer(new SimpleValueChecker(1e-10, 1e-30));
+        default:
+            throw new IllegalStateException(optimizer.toString());
+        }
+    }
+
+    /**
+     * @param gradient Gradient of the function.
+     * @return the optimization data of the selected optimizer.
+     */
+    private OptimizationData[] data(final MultivariateVectorFunction gradient) {
+        final MaxEval maxEval = new MaxEval(MAX_EVAL);
+        final ObjectiveFunction objective = new ObjectiveFunction(function.function());
+        final InitialGuess guess = new InitialGuess(start);
+        switch (optimizer) {
+        case NELDER_MEAD:
+            return new OptimizationData[] {
+                maxEval, objective, GoalType.MINIMIZE, guess,
+                new NelderMeadSimplex(dimension)
+            };
+        case MULTI_DIRECTIONAL:
+            return new OptimizationData[] {
+                maxEval, objective, GoalType.MINIMIZE, guess,
+                new MultiDirectionalSimplex(dimension)
+            };
+        case BOBYQA:
+            return new OptimizationData[] {
+                maxEval, objective, GoalType.MINIMIZE, guess,
+                SimpleBounds.unbounded(dimension)
+            };
+        case CMAES:
+        case CMAES_LAZY:
+        case CMAES_SEPARABLE:
+            final double[] sigma = new double[dimension];
+            Arrays.fill(sigma, 0.5);
+            return new OptimizationData[] {
+                maxEval, objective, GoalType.MINIMIZE, guess,
+                SimpleBounds.unbounded(dimension),
+                new CMAESOptimizer.Sigma(sigma),
+                new CMAESOptimizer.PopulationSize(4 + (int) (3 * Math.log(dimension)))
+            };
+        case POWELL:
+        case POWELL_ARMIJO:
+            return new OptimizationData[] {
+                maxEval, objective, GoalType.MINIMIZE, guess
+            };
+        case CONJUGATE_GRADIENT:
+        case CONJUGATE_GRADIENT_MORE_THUENTE:
+        case CONJUGATE_GRADIENT_HAGER_ZHANG:
+        case LBFGS:
+            return new OptimizationData[] {
+                maxEval, objective, GoalType.MINIMIZE, guess,
+                new ObjectiveFunctionGradient(gradient)
+            };
+        default:
+            throw new IllegalStateException(optimizer.toString());
+        }
+    }
+
+    /** Gradient counting its evaluations. */
+    private static class CountingGradient implements MultivariateVectorFunction {
+        /** Gradient. */
+        private final MultivariateVectorFunction gradient;
+        /** Number of evaluations. */
+        private int count;
+
+        /**
+         * @param gradient Gradient.
+         */
+        CountingGradient(MultivariateVectorFunction gradient) {
+            this.gradient = gradient;
+        }
+
+        /** {@inheritDoc} */
+        public double[] value(double[] point) {
+            ++count;
+            return gradient.value(point);
+        }
+    }
+}
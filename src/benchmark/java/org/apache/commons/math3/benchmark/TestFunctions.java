@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.benchmark;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Standard scalar test functions, with their gradients.
+ */
+public enum TestFunctions {
+    /** Generalized Rosenbrock function; minimum 0 at (1, ..., 1). */
+    ROSENBROCK {
+        /** {@inheritDoc} */
+        @Override
+        public double value(double[] x) {
+            double f = 0;
+            for (int i = 0; i < x.length - 1; i++) {
+                final double a = x[i + 1] - x[i] * x[i];
+                final double b = 1 - x[i];
+                f += 100 * a * a + b * b;
+            }
+            return f;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double[] gradient(double[] x) {
+            final double[] g = new double[x.length];
+            for (int i = 0; i < x.length - 1; i++) {
+                final double a = x[i + 1] - x[i] * x[i];
+                g[i] += -400 * x[i] * a - 2 * (1 - x[i]);
+                g[i + 1] += 200 * a;
+            }
+            return g;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double[] startPoint(int dimension) {
+            final double[] start = new double[dimension];
+            Arrays.fill(start, -1.2);
+            return start;
+        }
+    },
+
+    /** Rastrigin function; global minimum 0 at the origin. */
+    RASTRIGIN {
+        /** {@inheritDoc} */
+        @Override
+        public double value(double[] x) {
+            double f = 10 * x.length;
+            for (int i = 0; i < x.length; i++) {
+                f += x[i] * x[i] - 10 * FastMath.cos(2 * FastMath.PI * x[i]);
+            }
+            return f;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double[] gradient(double[] x) {
+            final double[] g = new double[x.length];
+            for (int i = 0; i < x.length; i++) {
+                g[i] = 2 * x[i] + 20 * FastMath.PI * FastMath.sin(2 * FastMath.PI * x[i]);
+            }
+            return g;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double[] startPoint(int dimension) {
+            final double[] start = new double[dimension];
+            Arrays.fill(start, 2.5);
+            return start;
+        }
+    },
+
+    /**
+     * Ill-conditioned ellipsoid (condition number 10<sup>6</sup>), with
+     * coupled consecutive variables; minimum 0 at the origin.
+     */
+    ELLIPSOID {
+        /** {@inheritDoc} */
+        @Override
+        public double value(double[] x) {
+            double f = 0;
+            for (int i = 0; i < x.length; i++) {
+                final double y = coupled(x, i);
+                f += weight(i, x.length) * y * y;
+            }
+            return f;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double[] gradient(double[] x) {
+            final double[] g = new double[x.length];
+            for (int i = 0; i < x.length; i++) {
+                final double d = 2 * weight(i, x.length) * coupled(x, i);
+                g[i] += d;
+                if (i + 1 < x.length) {
+                    g[i + 1] += d;
+                }
+            }
+            return g;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double[] startPoint(int dimension) {
+            final double[] start = new double[dimension];
+            Arrays.fill(start, 1.0);
+            return start;
+        }
+
+        /**
+         * @param x Point.
+         * @param i Index of the term.
+         * @return the coupled variable of the {@code i}-th term.
+         */
+        private double coupled(double[] x, int i) {
+            return i + 1 < x.length ? x[i] + x[i + 1] : x[i];
+        }
+
+        /**
+         * @param i Index of the term.
+         * @param n Dimension.
+         * @return the weight of the {@code i}-th term.
+         */
+        private double weight(int i, int n) {
+            return n == 1 ? 1 : FastMath.pow(1e3, i / (n - 1.0));
+        }
+    };
+
+    /**
+     * @param x Point.
+     * @return the function value at {@code x}.
+     */
+    public abstract double value(double[] x);
+
+    /**
+     * @param x Point.
+     * @return the gradient at {@code x}.
+     */
+    public abstract double[] gradient(double[] x);
+
+    /**
+     * @param dimension Dimension.
+     * @return the standard start point.
+     */
+    public abstract double[] startPoint(int dimension);
+
+    /**
+     * @return the function.
+     */
+    public MultivariateFunction function() {
+        return new MultivariateFunction() {
+            public double value(double[] x) {
+                return TestFunctions.this.value(x);
+            }
+        };
+    }
+
+    /**
+     * @return the gradient of the function.
+     */
+    public MultivariateVectorFunction gradient() {
+        return new MultivariateVectorFunction() {
+            public double[] value(double[] x) {
+                return gradient(x);
+            }
+        };
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.benchmark.EvaluationCounters;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresOptimizer.Optimum;
+import org.apache.commons.math3.fitting.leastsquares.MinpackTest.BrownAlmostLinearFunction;
+import org.apache.commons.math3.fitting.leastsquares.MinpackTest.HelicalValleyFunction;
+import org.apache.commons.math3.fitting.leastsquares.MinpackTest.LinearFullRankFunction;
+import org.apache.commons.math3.fitting.leastsquares.MinpackTest.MinpackFunction;
+import org.apache.commons.math3.fitting.leastsquares.MinpackTest.PowellSingularFunction;
+import org.apache.commons.math3.fitting.leastsquares.MinpackTest.RosenbrockFunction;
+import org.apache.commons.math3.linear.DiagonalMatrix;
+import org.apache.commons.math3.optim.SimpleVectorValueChecker;
+import org.apache.commons.math3.util.FastMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@code fitting.leastsquares} optimizers: one
+ * operation is a complete optimization of one of the Minpack problems
+ * of {@link MinpackTest}, from its standard start point.
+ * <br/>
+ * The benchmark lives in the package of the tests, so that it can use
+ * their problem classes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeastSquaresOptimizerBenchmark {
+    /** Optimizers. */
+    public enum Optimizer {
+        /** Gauss-Newton, with LU decomposition of the normal equations. */
+        GAUSS_NEWTON,
+        /** Levenberg-Marquardt. */
+        LEVENBERG_MARQUARDT
+    }
+
+    /** Problems. */
+    public enum Problem {
+        /** Linear function, full rank (2n observations). */
+        LINEAR_FULL_RANK {
+            /** {@inheritDoc} */
+            @Override
+            public MinpackFunction create(int n) {
+                return new LinearFullRankFunction(2 * n, n, 1.0,
+                                                  FastMath.sqrt(5.0 * n), FastMath.sqrt(n));
+            }
+        },
+
+        /** Rosenbrock function (2 parameters). */
+        ROSENBROCK {
+            /** {@inheritDoc} */
+            @Override
+            public MinpackFunction create(int n) {
+                return new RosenbrockFunction(new double[] { -1.2, 1.0 }, FastMath.sqrt(24.2));
+            }
+        },
+
+        /** Helical valley function (3 parameters). */
+        HELICAL_VALLEY {
+            /** {@inheritDoc} */
+            @Override
+            public MinpackFunction create(int n) {
+                return new HelicalValleyFunction(new double[] { -10.0, 0.0, 0.0 },
+                                                 102.95630140987);
+            }
+        },
+
+        /** Powell singular function (4 parameters). */
+        POWELL_SINGULAR {
+            /** {@inheritDoc} */
+            @Override
+            public MinpackFunction create(int n) {
+                return new PowellSingularFunction(new double[] { 3.0, -1.0, 0.0, 1.0 },
+                                                  14.6628782986152);
+            }
+        },
+
+        /** Brown almost linear function (n observations). */
+        BROWN_ALMOST_LINEAR {
+            /** {@inheritDoc} */
+            @Override
+            public MinpackFunction create(int n) {
+                final double last = FastMath.pow(0.5, n) - 1;
+                final double startCost = FastMath.sqrt(0.25 * (n - 1) * (n + 1) * (n + 1) + last * last);
+                return new BrownAlmostLinearFunction(n, 0.5, startCost, 0.0, null);
+            }
+        };
+
+        /**
+         * @param n Number of parameters (ignored by the fixed-size problems).
+         * @return the problem, from its standard start point.
+         */
+        public abstract MinpackFunction create(int n);
+    }
+
+    /** Optimizer. */
+    @Param({ "GAUSS_NEWTON", "LEVENBERG_MARQUARDT" })
+    public Optimizer optimizer;
+
+    /**
+     * Problem, optionally followed by a colon and the number of parameters
+     * (for the scalable problems).
+     * The Brown almost linear problem is not in the default list, because
+     * the Gauss-Newton optimizer fails on it (singular normal equations);
+     * it can be selected with e.g. {@code -p problem=BROWN_ALMOST_LINEAR:10}.
+     */
+    @Param({ "ROSENBROCK", "HELICAL_VALLEY", "POWELL_SINGULAR",
+             "LINEAR_FULL_RANK:10", "LINEAR_FULL_RANK:50", "LINEAR_FULL_RANK:100" })
+    public String problem;
+
+    /** Least squares optimizer. */
+    private LeastSquaresOptimizer lsOptimizer;
+    /** Problem definition. */
+    private LeastSquaresProblem lsProblem;
+
+    /**
+     * Sets up the optimizer and the problem.
+     */
+    @Setup
+    public void setup() {
+        final int colon = problem.indexOf(':');
+        final MinpackFunction p =
+            Problem.valueOf(colon < 0 ? problem : problem.substring(0, colon))
+                   .create(colon < 0 ? 0 : Integer.parseInt(problem.substring(colon + 1)));
+
+        switch (optimizer) {
+        case GAUSS_NEWTON:
+            lsOptimizer = new GaussNewtonOptimizer();
+            break;
+        case LEVENBERG_MARQUARDT:
+            lsOptimizer = new LevenbergMarquardtOptimizer();
+            break;
+        default:
+            throw new IllegalStateException(optimizer.toString());
+        }
+
+        lsProblem = new LeastSquaresBuilder()
+            .maxEvaluations(100000)
+            .maxIterations(10000)
+            .checkerPair(new SimpleVectorValueChecker(1e-10, 1e-10))
+            .model(p.getModelFunction(), p.getModelFunctionJacobian())
+            .target(p.getTarget())
+            .weight(new DiagonalMatrix(p.getWeight()))
+            .start(p.getStartPoint())
+            .build();
+    }
+
+    /**
+     * Runs a complete optimization.
+     *
+     * @param counters Evaluation counters.
+     * @return the optimum.
+     */
+    @Benchmark
+    public Optimum optimize(EvaluationCounters counters) {
+        final Optimum optimum = lsOptimizer.optimize(lsProblem);
+        counters.add(optimum.getEvaluations(), optimum.getIterations());
+        return optimum;
+    }
+}
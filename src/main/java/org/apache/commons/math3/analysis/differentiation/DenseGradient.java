@@ -0,0 +1,540 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+
+/** Class holding the value and the first order partial derivatives of a function.
+ * <p>This class is a specialization of {@link DerivativeStructure} for first
+ * order derivatives. Its data use the layout of a first order {@link DSCompiler}
+ * (the value followed by the partial derivatives with respect to each free
+ * parameter), but they are updated in place: all the arithmetic operations
+ * and mathematical functions modify the instance they are called on and
+ * return it, so that expressions can be evaluated without allocating any
+ * array. The {@link #addProduct(DenseGradient, DenseGradient) addProduct}
+ * and {@link #addScaled(double, DenseGradient) addScaled} methods accumulate
+ * sums of terms.</p>
+ * <p>Instances are typically provided by a {@link GradientWorkspace}, which
+ * stores the data of many instances in a few shared arrays and recycles them
+ * from one evaluation to the next.</p>
+ * <p>Instances of this class are mutable and not thread-safe.</p>
+ * @see GradientWorkspace
+ * @see MultivariateGradientFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public class DenseGradient {
+
+    /** Number of free parameters. */
+    private final int parameters;
+
+    /** Array holding the value and the partial derivatives. */
+    private final double[] data;
+
+    /** Index of the value in {@link #data}, the derivatives follow it. */
+    private final int offset;
+
+    /** Build a constant instance.
+     * @param parameters number of free parameters
+     * @param value value of the constant
+     * @exception NotPositiveException if {@code parameters} is negative
+     */
+    public DenseGradient(final int parameters, final double value)
+        throws NotPositiveException {
+        this(parameters, allocate(parameters), 0);
+        data[0] = value;
+    }
+
+    /** Build an instance representing a variable.
+     * @param parameters number of free parameters
+     * @param index index of the variable (from 0 to {@code parameters - 1})
+     * @param value value of the variable
+     * @exception NotPositiveException if {@code parameters} is negative
+     * @exception OutOfRangeException if index is not a valid parameter index
+     */
+    public DenseGradient(final int parameters, final int index, final double value)
+        throws NotPositiveException, OutOfRangeException {
+        this(parameters, value);
+        setVariable(index, value);
+    }
+
+    /** Build an instance from the first order part of a derivative structure.
+     * @param ds derivative structure, whose derivation order may be 0 (in
+     * which case all partial derivatives are 0)
+     */
+    public DenseGradient(final DerivativeStructure ds) {
+        this(ds.getFreeParameters(), ds.getValue());
+        if (ds.getOrder() > 0) {
+            final int[] orders = new int[parameters];
+            for (int i = 0; i < parameters; ++i) {
+                orders[i] = 1;
+                data[1 + i] = ds.getPartialDerivative(orders);
+                orders[i] = 0;
+            }
+        }
+    }
+
+    /** Build an instance viewing a slice of a shared array.
+     * @param parameters number of free parameters
+     * @param data array holding the value and partial derivatives
+     * @param offset index of the value in {@code data}
+     */
+    DenseGradient(final int parameters, final double[] data, final int offset) {
+        this.parameters = parameters;
+        this.data       = data;
+        this.offset     = offset;
+    }
+
+    /** Allocate an array for one instance.
+     * @param parameters number of free parameters
+     * @return a new array
+     * @exception NotPositiveException if {@code parameters} is negative
+     */
+    private static double[] allocate(final int parameters) throws NotPositiveException {
+        if (parameters < 0) {
+            throw new NotPositiveException(parameters);
+        }
+        return new double[parameters + 1];
+    }
+
+    /** Get the number of free parameters.
+     * @return number of free parameters
+     */
+    public int getFreeParameters() {
+        return parameters;
+    }
+
+    /** Get the value part of the function.
+     * @return value part of the function
+     */
+    public double getValue() {
+        return data[offset];
+    }
+
+    /** Get a first order partial derivative.
+     * @param index index of the free parameter
+     * @return partial derivative with respect to parameter {@code index}
+     * @exception OutOfRangeException if index is not a valid parameter index
+     */
+    public double getPartialDerivative(final int index) throws OutOfRangeException {
+        checkIndex(index);
+        return data[offset + 1 + index];
+    }
+
+    /** Get all the first order partial derivatives.
+     * @return a new array holding the gradient
+     */
+    public double[] getGradient() {
+        final double[] gradient = new double[parameters];
+        System.arraycopy(data, offset + 1, gradient, 0, parameters);
+        return gradient;
+    }
+
+    /** Convert the instance to a first order derivative structure.
+     * @return a new derivative structure with the same value and derivatives
+     */
+    public DerivativeStructure toDerivativeStructure() {
+        final DSCompiler compiler = DSCompiler.getCompiler(parameters, 1);
+        final double[] all = new double[compiler.getSize()];
+        System.arraycopy(data, offset, all, 0, parameters + 1);
+        return new DerivativeStructure(parameters, 1, all);
+    }
+
+    /** Create a new independent instance with the same value and derivatives.
+     * @return a copy of the instance
+     */
+    public DenseGradient copy() {
+        final DenseGradient copy = new DenseGradient(parameters, 0.0);
+        return copy.set(this);
+    }
+
+    /** Set the instance to a constant.
+     * @param value value of the constant
+     * @return this
+     */
+    public DenseGradient setConstant(final double value) {
+        data[offset] = value;
+        for (int i = 1; i <= parameters; ++i) {
+            data[offset + i] = 0;
+        }
+        return this;
+    }
+
+    /** Set the instance to a variable.
+     * @param index index of the variable (from 0 to {@code parameters - 1})
+     * @param value value of the variable
+     * @return this
+     * @exception OutOfRangeException if index is not a valid parameter index
+     */
+    public DenseGradient setVariable(final int index, final double value)
+        throws OutOfRangeException {
+        checkIndex(index);
+        setConstant(value);
+        data[offset + 1 + index] = 1;
+        return this;
+    }
+
+    /** Copy the value and derivatives of another instance.
+     * @param a instance to copy
+     * @return this
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient set(final DenseGradient a) throws DimensionMismatchException {
+        checkCompatibility(a);
+        System.arraycopy(a.data, a.offset, data, offset, parameters + 1);
+        return this;
+    }
+
+    /** Add a constant to the instance.
+     * @param a constant to add
+     * @return this
+     */
+    public DenseGradient add(final double a) {
+        data[offset] += a;
+        return this;
+    }
+
+    /** Add another instance to the instance.
+     * @param a instance to add
+     * @return this
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient add(final DenseGradient a) throws DimensionMismatchException {
+        return addScaled(1.0, a);
+    }
+
+    /** Subtract a constant from the instance.
+     * @param a constant to subtract
+     * @return this
+     */
+    public DenseGradient subtract(final double a) {
+        data[offset] -= a;
+        return this;
+    }
+
+    /** Subtract another instance from the instance.
+     * @param a instance to subtract
+     * @return this
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient subtract(final DenseGradient a) throws DimensionMismatchException {
+        return addScaled(-1.0, a);
+    }
+
+    /** Multiply the instance by a constant.
+     * @param a factor
+     * @return this
+     */
+    public DenseGradient multiply(final double a) {
+        for (int i = 0; i <= parameters; ++i) {
+            data[offset + i] *= a;
+        }
+        return this;
+    }
+
+    /** Multiply the instance by another instance.
+     * @param a factor, which may be the instance itself
+     * @return this
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient multiply(final DenseGradient a) throws DimensionMismatchException {
+        checkCompatibility(a);
+        final double u = data[offset];
+        final double v = a.data[a.offset];
+        for (int i = 1; i <= parameters; ++i) {
+            data[offset + i] = data[offset + i] * v + u * a.data[a.offset + i];
+        }
+        data[offset] = u * v;
+        return this;
+    }
+
+    /** Divide the instance by a constant.
+     * @param a divisor
+     * @return this
+     */
+    public DenseGradient divide(final double a) {
+        return multiply(1.0 / a);
+    }
+
+    /** Divide the instance by another instance.
+     * @param a divisor, which may be the instance itself
+     * @return this
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient divide(final DenseGradient a) throws DimensionMismatchException {
+        checkCompatibility(a);
+        final double v = a.data[a.offset];
+        final double q = data[offset] / v;
+        for (int i = 1; i <= parameters; ++i) {
+            data[offset + i] = (data[offset + i] - q * a.data[a.offset + i]) / v;
+        }
+        data[offset] = q;
+        return this;
+    }
+
+    /** Add the product of two instances to the instance.
+     * <p>This is equivalent to {@code add(a.copy().multiply(b))}, without
+     * the temporary copy.</p>
+     * @param a first factor, which may be the instance itself
+     * @param b second factor, which may be the instance itself
+     * @return this
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient addProduct(final DenseGradient a, final DenseGradient b)
+        throws DimensionMismatchException {
+        checkCompatibility(a);
+        checkCompatibility(b);
+        final double u = a.data[a.offset];
+        final double v = b.data[b.offset];
+        for (int i = 1; i <= parameters; ++i) {
+            data[offset + i] += a.data[a.offset + i] * v + u * b.data[b.offset + i];
+        }
+        data[offset] += u * v;
+        return this;
+    }
+
+    /** Add a multiple of another instance to the instance.
+     * @param factor factor to apply to {@code a}
+     * @param a instance to add, which may be the instance itself
+     * @return this
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient addScaled(final double factor, final DenseGradient a)
+        throws DimensionMismatchException {
+        checkCompatibility(a);
+        for (int i = 0; i <= parameters; ++i) {
+            data[offset + i] += factor * a.data[a.offset + i];
+        }
+        return this;
+    }
+
+    /** Negate the instance.
+     * @return this
+     */
+    public DenseGradient negate() {
+        return multiply(-1.0);
+    }
+
+    /** Replace the instance by its reciprocal.
+     * @return this
+     */
+    public DenseGradient reciprocal() {
+        final double inv = 1.0 / data[offset];
+        return chain(inv, -inv * inv);
+    }
+
+    /** Replace the instance by its absolute value.
+     * <p>The derivatives at 0 are those of the identity.</p>
+     * @return this
+     */
+    public DenseGradient abs() {
+        if (Double.doubleToLongBits(data[offset]) < 0) {
+            // we use the bits representation to also handle -0.0
+            return negate();
+        }
+        return this;
+    }
+
+    /** Replace the instance by its square root.
+     * @return this
+     */
+    public DenseGradient sqrt() {
+        final double s = FastMath.sqrt(data[offset]);
+        return chain(s, 0.5 / s);
+    }
+
+    /** Raise the instance to a power.
+     * @param p power to apply
+     * @return this
+     */
+    public DenseGradient pow(final double p) {
+        final double x = data[offset];
+        return chain(FastMath.pow(x, p), p * FastMath.pow(x, p - 1));
+    }
+
+    /** Raise the instance to an integer power.
+     * @param n power to apply
+     * @return this
+     */
+    public DenseGradient pow(final int n) {
+        if (n == 0) {
+            return setConstant(1.0);
+        }
+        final double x = data[offset];
+        return chain(FastMath.pow(x, n), n * FastMath.pow(x, n - 1));
+    }
+
+    /** Raise the instance to the power of another instance.
+     * @param e exponent, which may be the instance itself
+     * @return this
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient pow(final DenseGradient e) throws DimensionMismatchException {
+        checkCompatibility(e);
+        final double x = data[offset];
+        final double y = e.data[e.offset];
+        final double value = FastMath.pow(x, y);
+        final double dx = y * FastMath.pow(x, y - 1);
+        final double dy = value * FastMath.log(x);
+        for (int i = 1; i <= parameters; ++i) {
+            data[offset + i] = dx * data[offset + i] + dy * e.data[e.offset + i];
+        }
+        data[offset] = value;
+        return this;
+    }
+
+    /** Replace the instance by its exponential.
+     * @return this
+     */
+    public DenseGradient exp() {
+        final double e = FastMath.exp(data[offset]);
+        return chain(e, e);
+    }
+
+    /** Replace the instance by its exponential minus one.
+     * @return this
+     */
+    public DenseGradient expm1() {
+        final double x = data[offset];
+        return chain(FastMath.expm1(x), FastMath.exp(x));
+    }
+
+    /** Replace the instance by its natural logarithm.
+     * @return this
+     */
+    public DenseGradient log() {
+        final double x = data[offset];
+        return chain(FastMath.log(x), 1.0 / x);
+    }
+
+    /** Replace the instance by the natural logarithm of one plus the instance.
+     * @return this
+     */
+    public DenseGradient log1p() {
+        final double x = data[offset];
+        return chain(FastMath.log1p(x), 1.0 / (1.0 + x));
+    }
+
+    /** Replace the instance by its cosine.
+     * @return this
+     */
+    public DenseGradient cos() {
+        final double x = data[offset];
+        return chain(FastMath.cos(x), -FastMath.sin(x));
+    }
+
+    /** Replace the instance by its sine.
+     * @return this
+     */
+    public DenseGradient sin() {
+        final double x = data[offset];
+        return chain(FastMath.sin(x), FastMath.cos(x));
+    }
+
+    /** Replace the instance by its tangent.
+     * @return this
+     */
+    public DenseGradient tan() {
+        final double t = FastMath.tan(data[offset]);
+        return chain(t, 1 + t * t);
+    }
+
+    /** Replace the instance by its arc cosine.
+     * @return this
+     */
+    public DenseGradient acos() {
+        final double x = data[offset];
+        return chain(FastMath.acos(x), -1.0 / FastMath.sqrt(1 - x * x));
+    }
+
+    /** Replace the instance by its arc sine.
+     * @return this
+     */
+    public DenseGradient asin() {
+        final double x = data[offset];
+        return chain(FastMath.asin(x), 1.0 / FastMath.sqrt(1 - x * x));
+    }
+
+    /** Replace the instance by its arc tangent.
+     * @return this
+     */
+    public DenseGradient atan() {
+        final double x = data[offset];
+        return chain(FastMath.atan(x), 1.0 / (1 + x * x));
+    }
+
+    /** Replace the instance by its hyperbolic cosine.
+     * @return this
+     */
+    public DenseGradient cosh() {
+        final double x = data[offset];
+        return chain(FastMath.cosh(x), FastMath.sinh(x));
+    }
+
+    /** Replace the instance by its hyperbolic sine.
+     * @return this
+     */
+    public DenseGradient sinh() {
+        final double x = data[offset];
+        return chain(FastMath.sinh(x), FastMath.cosh(x));
+    }
+
+    /** Replace the instance by its hyperbolic tangent.
+     * @return this
+     */
+    public DenseGradient tanh() {
+        final double t = FastMath.tanh(data[offset]);
+        return chain(t, 1 - t * t);
+    }
+
+    /** Apply a univariate function using the chain rule.
+     * @param f0 value of the function at the current value
+     * @param f1 derivative of the function at the current value
+     * @return this
+     */
+    private DenseGradient chain(final double f0, final double f1) {
+        data[offset] = f0;
+        for (int i = 1; i <= parameters; ++i) {
+            data[offset + i] *= f1;
+        }
+        return this;
+    }
+
+    /** Check a parameter index.
+     * @param index index to check
+     * @exception OutOfRangeException if index is not a valid parameter index
+     */
+    private void checkIndex(final int index) throws OutOfRangeException {
+        if (index < 0 || index >= parameters) {
+            throw new OutOfRangeException(index, 0, parameters - 1);
+        }
+    }
+
+    /** Check rules compatibility.
+     * @param a instance to check against the instance
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    private void checkCompatibility(final DenseGradient a) throws DimensionMismatchException {
+        if (a.parameters != parameters) {
+            throw new DimensionMismatchException(a.parameters, parameters);
+        }
+    }
+
+}
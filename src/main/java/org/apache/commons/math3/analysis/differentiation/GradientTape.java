@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+
+/** Tape recording the operations performed on {@link TapeVariable} instances,
+ * for reverse mode automatic differentiation.
+ * <p>Each operation is recorded as a node holding its value, the indices of
+ * its (at most two) arguments and the local partial derivatives with respect
+ * to them. The nodes are stored in an arena of primitive arrays which grows
+ * as needed and is reused after {@link #variables(double[])} starts a new
+ * recording. The gradient of a scalar result with respect to all the free
+ * parameters is then computed by a single backward sweep over the nodes,
+ * whose cost does not depend on the number of parameters, whereas the cost
+ * of forward mode differentiation with {@link DerivativeStructure} grows
+ * linearly with it.</p>
+ * <p>Tapes are not thread-safe: each thread should use its own.</p>
+ * @see TapeVariable
+ * @see TapeGradientFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public class GradientTape {
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /** Marker for missing arguments. */
+    private static final int NONE = -1;
+
+    /** Values of the nodes. */
+    private double[] values;
+
+    /** Index of the first argument of the nodes. */
+    private int[] first;
+
+    /** Partial derivative with respect to the first argument of the nodes. */
+    private double[] firstDerivative;
+
+    /** Index of the second argument of the nodes. */
+    private int[] second;
+
+    /** Partial derivative with respect to the second argument of the nodes. */
+    private double[] secondDerivative;
+
+    /** Adjoints used by the backward sweep. */
+    private double[] adjoints;
+
+    /** Number of recorded nodes. */
+    private int size;
+
+    /** Number of free parameters of the current recording. */
+    private int parameters;
+
+    /** Counter identifying the current recording. */
+    private int recording;
+
+    /** Build an empty tape with a default capacity.
+     */
+    public GradientTape() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** Build an empty tape.
+     * @param capacity initial number of nodes the tape can hold without growing
+     * @exception NotStrictlyPositiveException if {@code capacity} is not strictly positive
+     */
+    public GradientTape(final int capacity) throws NotStrictlyPositiveException {
+        if (capacity <= 0) {
+            throw new NotStrictlyPositiveException(capacity);
+        }
+        values           = new double[capacity];
+        first            = new int[capacity];
+        firstDerivative  = new double[capacity];
+        second           = new int[capacity];
+        secondDerivative = new double[capacity];
+        adjoints         = new double[capacity];
+        size             = 0;
+        parameters       = 0;
+        recording        = 0;
+    }
+
+    /** Start a new recording.
+     * <p>All the variables created by previous recordings become invalid.</p>
+     * @param point values of the free parameters
+     * @return the free parameters, as variables recorded on the tape
+     */
+    public TapeVariable[] variables(final double[] point) {
+        ++recording;
+        size       = 0;
+        parameters = point.length;
+        final TapeVariable[] variables = new TapeVariable[point.length];
+        for (int i = 0; i < point.length; ++i) {
+            variables[i] = record(point[i], NONE, 0, NONE, 0);
+        }
+        return variables;
+    }
+
+    /** Record a constant.
+     * @param value value of the constant
+     * @return a variable whose derivatives are all 0
+     */
+    public TapeVariable constant(final double value) {
+        return record(value, NONE, 0, NONE, 0);
+    }
+
+    /** Get the number of free parameters of the current recording.
+     * @return number of free parameters
+     */
+    public int getFreeParameters() {
+        return parameters;
+    }
+
+    /** Get the number of nodes of the current recording.
+     * @return number of nodes, including the free parameters
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /** Get the number of nodes the tape can hold without growing.
+     * @return capacity of the tape
+     */
+    public int getCapacity() {
+        return values.length;
+    }
+
+    /** Compute the gradient of a variable with respect to the free parameters.
+     * <p>This performs a single backward sweep over the nodes recorded before
+     * {@code output}. The tape can still be used afterwards.</p>
+     * @param output variable to differentiate
+     * @return partial derivatives of {@code output} with respect to the free parameters
+     * @exception MathIllegalStateException if {@code output} does not belong
+     * to the current recording of this tape
+     */
+    public double[] gradient(final TapeVariable output) throws MathIllegalStateException {
+        check(output);
+        final int last = output.getIndex();
+        for (int i = 0; i <= last; ++i) {
+            adjoints[i] = 0;
+        }
+        adjoints[last] = 1;
+        for (int i = last; i >= parameters; --i) {
+            final double a = adjoints[i];
+            if (a != 0) {
+                final int f = first[i];
+                if (f != NONE) {
+                    adjoints[f] += a * firstDerivative[i];
+                    final int s = second[i];
+                    if (s != NONE) {
+                        adjoints[s] += a * secondDerivative[i];
+                    }
+                }
+            }
+        }
+        final double[] gradient = new double[parameters];
+        System.arraycopy(adjoints, 0, gradient, 0, FastMath.min(parameters, last + 1));
+        return gradient;
+    }
+
+    /** Check a variable belongs to the current recording of this tape.
+     * @param variable variable to check
+     * @exception MathIllegalStateException if {@code variable} does not belong
+     * to the current recording of this tape
+     */
+    void check(final TapeVariable variable) throws MathIllegalStateException {
+        if (variable.getTape() != this || variable.getRecording() != recording) {
+            throw new MathIllegalStateException(LocalizedFormats.ILLEGAL_STATE);
+        }
+    }
+
+    /** Record a node.
+     * @param value value of the node
+     * @param a index of the first argument, or -1
+     * @param da partial derivative with respect to the first argument
+     * @param b index of the second argument, or -1
+     * @param db partial derivative with respect to the second argument
+     * @return a variable representing the node
+     */
+    TapeVariable record(final double value,
+                        final int a, final double da,
+                        final int b, final double db) {
+        if (size == values.length) {
+            final int capacity = 2 * size;
+            values           = MathArrays.copyOf(values, capacity);
+            first            = MathArrays.copyOf(first, capacity);
+            firstDerivative  = MathArrays.copyOf(firstDerivative, capacity);
+            second           = MathArrays.copyOf(second, capacity);
+            secondDerivative = MathArrays.copyOf(secondDerivative, capacity);
+            adjoints         = new double[capacity];
+        }
+        values[size]           = value;
+        first[size]            = a;
+        firstDerivative[size]  = da;
+        second[size]           = b;
+        secondDerivative[size] = db;
+        return new TapeVariable(this, size++, recording, value);
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+
+/** Pool of {@link DenseGradient} instances sharing the same number of free parameters.
+ * <p>The instances provided by a workspace store their data in blocks of
+ * contiguous memory, each slot holding the value and the partial
+ * derivatives with respect to all the free parameters. Calling {@link #reset()} makes all the instances available
+ * again, so that evaluating the same expression many times only allocates
+ * memory during the first evaluation.</p>
+ * <p>The instances must not be used after the workspace has been reset.
+ * Workspaces are not thread-safe: each thread should use its own.</p>
+ * @see PooledGradientFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public class GradientWorkspace {
+
+    /** Default number of instances allocated at once. */
+    private static final int DEFAULT_BLOCK_SIZE = 64;
+
+    /** Number of free parameters. */
+    private final int parameters;
+
+    /** Number of instances allocated at once. */
+    private final int blockSize;
+
+    /** All the instances allocated so far. */
+    private final List<DenseGradient> pool;
+
+    /** Number of instances currently in use. */
+    private int used;
+
+    /** Instances representing the free parameters. */
+    private final DenseGradient[] variables;
+
+    /** Simple constructor.
+     * @param parameters number of free parameters
+     * @exception NotPositiveException if {@code parameters} is negative
+     */
+    public GradientWorkspace(final int parameters) throws NotPositiveException {
+        this(parameters, DEFAULT_BLOCK_SIZE);
+    }
+
+    /** Simple constructor.
+     * @param parameters number of free parameters
+     * @param blockSize number of instances allocated at once when the
+     * workspace needs more instances
+     * @exception NotPositiveException if {@code parameters} is negative
+     * @exception NotStrictlyPositiveException if {@code blockSize} is not
+     * strictly positive
+     */
+    public GradientWorkspace(final int parameters, final int blockSize)
+        throws NotPositiveException, NotStrictlyPositiveException {
+        if (parameters < 0) {
+            throw new NotPositiveException(parameters);
+        }
+        if (blockSize <= 0) {
+            throw new NotStrictlyPositiveException(blockSize);
+        }
+        this.parameters = parameters;
+        this.blockSize  = blockSize;
+        this.pool       = new ArrayList<DenseGradient>();
+        this.used       = 0;
+
+        // the variables live in their own block, which is never recycled
+        final int size = parameters + 1;
+        final double[] block = new double[parameters * size];
+        this.variables = new DenseGradient[parameters];
+        for (int i = 0; i < parameters; ++i) {
+            variables[i] = new DenseGradient(parameters, block, i * size);
+        }
+    }
+
+    /** Get the number of free parameters.
+     * @return number of free parameters
+     */
+    public int getFreeParameters() {
+        return parameters;
+    }
+
+    /** Get the number of instances allocated so far.
+     * @return number of instances allocated, including the available ones
+     */
+    public int getAllocated() {
+        return pool.size();
+    }
+
+    /** Get the number of instances in use since the last {@link #reset()}.
+     * @return number of instances in use
+     */
+    public int getUsed() {
+        return used;
+    }
+
+    /** Make all the instances available again.
+     * <p>The variables returned by {@link #variables(double[])} are not affected.</p>
+     */
+    public void reset() {
+        used = 0;
+    }
+
+    /** Set the free parameters to a point.
+     * <p>The returned array and its elements belong to the workspace: they
+     * are updated by the next call to this method.</p>
+     * @param point values of the free parameters
+     * @return the free parameters, as variables
+     * @exception DimensionMismatchException if the point dimension is not
+     * the number of free parameters
+     */
+    public DenseGradient[] variables(final double[] point) throws DimensionMismatchException {
+        if (point.length != parameters) {
+            throw new DimensionMismatchException(point.length, parameters);
+        }
+        for (int i = 0; i < parameters; ++i) {
+            variables[i].setVariable(i, point[i]);
+        }
+        return variables;
+    }
+
+    /** Get an instance representing a constant.
+     * @param value value of the constant
+     * @return an instance from the pool
+     */
+    public DenseGradient constant(final double value) {
+        return acquire().setConstant(value);
+    }
+
+    /** Get an instance representing a variable.
+     * @param index index of the variable (from 0 to {@code parameters - 1})
+     * @param value value of the variable
+     * @return an instance from the pool
+     * @exception OutOfRangeException if index is not a valid parameter index
+     */
+    public DenseGradient variable(final int index, final double value)
+        throws OutOfRangeException {
+        return acquire().setVariable(index, value);
+    }
+
+    /** Get an instance holding a copy of another one.
+     * <p>This is the way to keep an intermediate result before applying
+     * in-place operations to it.</p>
+     * @param a instance to copy
+     * @return an instance from the pool
+     * @exception DimensionMismatchException if number of free parameters is inconsistent
+     */
+    public DenseGradient copy(final DenseGradient a) throws DimensionMismatchException {
+        return acquire().set(a);
+    }
+
+    /** Get an available instance, allocating a new block if needed.
+     * @return an instance from the pool, with unspecified content
+     */
+    private DenseGradient acquire() {
+        if (used == pool.size()) {
+            final int size = parameters + 1;
+            final double[] block = new double[blockSize * size];
+            for (int i = 0; i < blockSize; ++i) {
+                pool.add(new DenseGradient(parameters, block, i * size));
+            }
+        }
+        return pool.get(used++);
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+
+/** Interface for multivariate functions computing their first order derivatives
+ * with {@link DenseGradient} instances.
+ * <p>This is the first order counterpart of {@link
+ * MultivariateDifferentiableFunction}: the function is written once, using the
+ * in-place operations of {@link DenseGradient} and temporaries taken from the
+ * provided {@link GradientWorkspace}, and is evaluated without allocating
+ * memory once the workspace has grown to its working size.</p>
+ * @see PooledGradientFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public interface MultivariateGradientFunction {
+
+    /** Compute the value and the gradient of the function.
+     * <p>The variables must not be modified; they can be {@link
+     * GradientWorkspace#copy(DenseGradient) copied} to intermediate results.</p>
+     * @param point point at which the function must be evaluated, as variables
+     * @param workspace workspace providing the intermediate results
+     * @return the function value and gradient, which may be an instance of the
+     * workspace
+     * @exception MathIllegalArgumentException if {@code point} does not
+     * satisfy the function's constraints (wrong dimension, argument out of
+     * bound, or unsupported derivative order for example)
+     */
+    DenseGradient value(DenseGradient[] point, GradientWorkspace workspace)
+        throws MathIllegalArgumentException;
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+
+/** Interface for multivariate functions differentiable in reverse mode.
+ * <p>This is the reverse mode counterpart of {@link
+ * MultivariateDifferentiableFunction}: the function is written once with the
+ * operations of {@link TapeVariable}, which record it on a {@link GradientTape},
+ * and its gradient is computed by a single backward sweep over the tape.</p>
+ * @see TapeGradientFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public interface MultivariateTapeFunction {
+
+    /** Compute the value of the function, recording it on the tape.
+     * @param point point at which the function must be evaluated, as variables
+     * recorded on the same tape
+     * @return the function value, recorded on the same tape as {@code point}
+     * @exception MathIllegalArgumentException if {@code point} does not
+     * satisfy the function's constraints (wrong dimension, argument out of
+     * bound, or unsupported derivative order for example)
+     */
+    TapeVariable value(TapeVariable[] point) throws MathIllegalArgumentException;
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+
+/** Class representing the gradient of a {@link MultivariateGradientFunction}.
+ * <p>
+ * The vectorial components of the function represent the derivatives
+ * with respect to each function parameters. Each thread evaluating the
+ * gradient reuses its own {@link GradientWorkspace}, so that repeated
+ * evaluations only allocate the returned array.
+ * </p>
+ * @see GradientFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public class PooledGradientFunction implements MultivariateVectorFunction {
+
+    /** Underlying real-valued function. */
+    private final MultivariateGradientFunction f;
+
+    /** Workspace of each thread. */
+    private final ThreadLocal<GradientWorkspace> workspaces;
+
+    /** Simple constructor.
+     * @param f underlying real-valued function
+     */
+    public PooledGradientFunction(final MultivariateGradientFunction f) {
+        this.f          = f;
+        this.workspaces = new ThreadLocal<GradientWorkspace>();
+    }
+
+    /** {@inheritDoc} */
+    public double[] value(double[] point) {
+
+        // set up parameters
+        GradientWorkspace workspace = workspaces.get();
+        if (workspace == null || workspace.getFreeParameters() != point.length) {
+            workspace = new GradientWorkspace(point.length);
+            workspaces.set(workspace);
+        }
+        workspace.reset();
+
+        // compute the derivatives
+        return f.value(workspace.variables(point), workspace).getGradient();
+
+    }
+
+}
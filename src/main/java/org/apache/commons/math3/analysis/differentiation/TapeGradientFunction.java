@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+
+/** Class representing the gradient of a {@link MultivariateTapeFunction}.
+ * <p>
+ * The vectorial components of the function represent the derivatives
+ * with respect to each function parameters. They are all computed by a
+ * single backward sweep over a {@link GradientTape}; each thread evaluating
+ * the gradient reuses its own tape.
+ * </p>
+ * @see GradientFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public class TapeGradientFunction implements MultivariateVectorFunction {
+
+    /** Underlying real-valued function. */
+    private final MultivariateTapeFunction f;
+
+    /** Tape of each thread. */
+    private final ThreadLocal<GradientTape> tapes;
+
+    /** Simple constructor.
+     * @param f underlying real-valued function
+     */
+    public TapeGradientFunction(final MultivariateTapeFunction f) {
+        this.f     = f;
+        this.tapes = new ThreadLocal<GradientTape>() {
+            /** {@inheritDoc} */
+            @Override
+            protected GradientTape initialValue() {
+                return new GradientTape();
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    public double[] value(double[] point) {
+        final GradientTape tape = tapes.get();
+        return tape.gradient(f.value(tape.variables(point)));
+    }
+
+}
@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.util.FastMath;
+
+/** Variable recorded on a {@link GradientTape}, for reverse mode automatic
+ * differentiation.
+ * <p>This class provides the same mathematical functions as {@link
+ * DerivativeStructure}. Instances are immutable: each operation computes its
+ * value and its local partial derivatives, records them as a new node on the
+ * tape and returns a new variable referencing that node. The derivatives
+ * themselves are only computed by {@link GradientTape#gradient(TapeVariable)}.</p>
+ * <p>All the variables combined in an expression must belong to the same
+ * recording of the same tape, otherwise a {@link MathIllegalStateException}
+ * is thrown.</p>
+ * @see GradientTape
+ * @see MultivariateTapeFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public class TapeVariable {
+
+    /** Tape holding the variable. */
+    private final GradientTape tape;
+
+    /** Index of the node in the tape. */
+    private final int index;
+
+    /** Recording to which the variable belongs. */
+    private final int recording;
+
+    /** Value of the variable. */
+    private final double value;
+
+    /** Simple constructor.
+     * @param tape tape holding the variable
+     * @param index index of the node in the tape
+     * @param recording recording to which the variable belongs
+     * @param value value of the variable
+     */
+    TapeVariable(final GradientTape tape, final int index,
+                 final int recording, final double value) {
+        this.tape      = tape;
+        this.index     = index;
+        this.recording = recording;
+        this.value     = value;
+    }
+
+    /** Get the tape holding the variable.
+     * @return tape holding the variable
+     */
+    public GradientTape getTape() {
+        return tape;
+    }
+
+    /** Get the value of the variable.
+     * @return value of the variable
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /** Get the index of the node in the tape.
+     * @return index of the node in the tape
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /** Get the recording to which the variable belongs.
+     * @return recording to which the variable belongs
+     */
+    int getRecording() {
+        return recording;
+    }
+
+    /** '+' operator.
+     * @param a right hand side parameter of the operator
+     * @return this+a
+     */
+    public TapeVariable add(final double a) {
+        return unary(value + a, 1.0);
+    }
+
+    /** '+' operator.
+     * @param a right hand side parameter of the operator
+     * @return this+a
+     * @exception MathIllegalStateException if the variables do not belong to
+     * the same recording
+     */
+    public TapeVariable add(final TapeVariable a) throws MathIllegalStateException {
+        return binary(a, value + a.value, 1.0, 1.0);
+    }
+
+    /** '-' operator.
+     * @param a right hand side parameter of the operator
+     * @return this-a
+     */
+    public TapeVariable subtract(final double a) {
+        return unary(value - a, 1.0);
+    }
+
+    /** '-' operator.
+     * @param a right hand side parameter of the operator
+     * @return this-a
+     * @exception MathIllegalStateException if the variables do not belong to
+     * the same recording
+     */
+    public TapeVariable subtract(final TapeVariable a) throws MathIllegalStateException {
+        return binary(a, value - a.value, 1.0, -1.0);
+    }
+
+    /** '&times;' operator.
+     * @param a right hand side parameter of the operator
+     * @return this&times;a
+     */
+    public TapeVariable multiply(final double a) {
+        return unary(value * a, a);
+    }
+
+    /** '&times;' operator.
+     * @param a right hand side parameter of the operator
+     * @return this&times;a
+     * @exception MathIllegalStateException if the variables do not belong to
+     * the same recording
+     */
+    public TapeVariable multiply(final TapeVariable a) throws MathIllegalStateException {
+        return binary(a, value * a.value, a.value, value);
+    }
+
+    /** '&divide;' operator.
+     * @param a right hand side parameter of the operator
+     * @return this&divide;a
+     */
+    public TapeVariable divide(final double a) {
+        return unary(value / a, 1.0 / a);
+    }
+
+    /** '&divide;' operator.
+     * @param a right hand side parameter of the operator
+     * @return this&divide;a
+     * @exception MathIllegalStateException if the variables do not belong to
+     * the same recording
+     */
+    public TapeVariable divide(final TapeVariable a) throws MathIllegalStateException {
+        final double inv = 1.0 / a.value;
+        final double q   = value * inv;
+        return binary(a, q, inv, -q * inv);
+    }
+
+    /** Unary '-' operator.
+     * @return -this
+     */
+    public TapeVariable negate() {
+        return unary(-value, -1.0);
+    }
+
+    /** absolute value.
+     * <p>The derivative at 0 is that of the identity.</p>
+     * @return abs(this)
+     */
+    public TapeVariable abs() {
+        // we use the bits representation to also handle -0.0
+        return (Double.doubleToLongBits(value) < 0) ? negate() : unary(value, 1.0);
+    }
+
+    /** Returns the hypotenuse of a triangle with sides {@code this} and {@code y}
+     * - sqrt(<i>this</i><sup>2</sup>&nbsp;+<i>y</i><sup>2</sup>)<br/>
+     * avoiding intermediate overflow or underflow.
+     * @param y a value
+     * @return sqrt(<i>this</i><sup>2</sup>&nbsp;+<i>y</i><sup>2</sup>)
+     * @exception MathIllegalStateException if the variables do not belong to
+     * the same recording
+     */
+    public TapeVariable hypot(final TapeVariable y) throws MathIllegalStateException {
+        final double h = FastMath.hypot(value, y.value);
+        return binary(y, h, value / h, y.value / h);
+    }
+
+    /** '1 &divide; this' operator.
+     * @return 1 &divide; this
+     */
+    public TapeVariable reciprocal() {
+        final double inv = 1.0 / value;
+        return unary(inv, -inv * inv);
+    }
+
+    /** Square root.
+     * @return square root of the instance
+     */
+    public TapeVariable sqrt() {
+        final double s = FastMath.sqrt(value);
+        return unary(s, 0.5 / s);
+    }
+
+    /** Cubic root.
+     * @return cubic root of the instance
+     */
+    public TapeVariable cbrt() {
+        final double c = FastMath.cbrt(value);
+        return unary(c, 1.0 / (3 * c * c));
+    }
+
+    /** Power operation.
+     * @param p power to apply
+     * @return this<sup>p</sup>
+     */
+    public TapeVariable pow(final double p) {
+        return unary(FastMath.pow(value, p), p * FastMath.pow(value, p - 1));
+    }
+
+    /** Integer power operation.
+     * @param n power to apply
+     * @return this<sup>n</sup>
+     */
+    public TapeVariable pow(final int n) {
+        if (n == 0) {
+            return unary(1.0, 0.0);
+        }
+        return unary(FastMath.pow(value, n), n * FastMath.pow(value, n - 1));
+    }
+
+    /** Power operation.
+     * @param e exponent
+     * @return this<sup>e</sup>
+     * @exception MathIllegalStateException if the variables do not belong to
+     * the same recording
+     */
+    public TapeVariable pow(final TapeVariable e) throws MathIllegalStateException {
+        final double p = FastMath.pow(value, e.value);
+        return binary(e, p, e.value * FastMath.pow(value, e.value - 1), p * FastMath.log(value));
+    }
+
+    /** Exponential.
+     * @return exponential of the instance
+     */
+    public TapeVariable exp() {
+        final double e = FastMath.exp(value);
+        return unary(e, e);
+    }
+
+    /** Exponential minus 1.
+     * @return exponential of the instance minus one
+     */
+    public TapeVariable expm1() {
+        return unary(FastMath.expm1(value), FastMath.exp(value));
+    }
+
+    /** Natural logarithm.
+     * @return logarithm of the instance
+     */
+    public TapeVariable log() {
+        return unary(FastMath.log(value), 1.0 / value);
+    }
+
+    /** Shifted natural logarithm.
+     * @return logarithm of one plus the instance
+     */
+    public TapeVariable log1p() {
+        return unary(FastMath.log1p(value), 1.0 / (1.0 + value));
+    }
+
+    /** Base 10 logarithm.
+     * @return base 10 logarithm of the instance
+     */
+    public TapeVariable log10() {
+        return unary(FastMath.log10(value), 1.0 / (value * FastMath.log(10.0)));
+    }
+
+    /** Cosine operation.
+     * @return cos(this)
+     */
+    public TapeVariable cos() {
+        return unary(FastMath.cos(value), -FastMath.sin(value));
+    }
+
+    /** Sine operation.
+     * @return sin(this)
+     */
+    public TapeVariable sin() {
+        return unary(FastMath.sin(value), FastMath.cos(value));
+    }
+
+    /** Tangent operation.
+     * @return tan(this)
+     */
+    public TapeVariable tan() {
+        final double t = FastMath.tan(value);
+        return unary(t, 1 + t * t);
+    }
+
+    /** Arc cosine operation.
+     * @return acos(this)
+     */
+    public TapeVariable acos() {
+        return unary(FastMath.acos(value), -1.0 / FastMath.sqrt(1 - value * value));
+    }
+
+    /** Arc sine operation.
+     * @return asin(this)
+     */
+    public TapeVariable asin() {
+        return unary(FastMath.asin(value), 1.0 / FastMath.sqrt(1 - value * value));
+    }
+
+    /** Arc tangent operation.
+     * @return atan(this)
+     */
+    public TapeVariable atan() {
+        return unary(FastMath.atan(value), 1.0 / (1 + value * value));
+    }
+
+    /** Two arguments arc tangent operation.
+     * @param x second argument of the arc tangent
+     * @return atan2(this, x)
+     * @exception MathIllegalStateException if the variables do not belong to
+     * the same recording
+     */
+    public TapeVariable atan2(final TapeVariable x) throws MathIllegalStateException {
+        final double r2 = value * value + x.value * x.value;
+        return binary(x, FastMath.atan2(value, x.value), x.value / r2, -value / r2);
+    }
+
+    /** Hyperbolic cosine operation.
+     * @return cosh(this)
+     */
+    public TapeVariable cosh() {
+        return unary(FastMath.cosh(value), FastMath.sinh(value));
+    }
+
+    /** Hyperbolic sine operation.
+     * @return sinh(this)
+     */
+    public TapeVariable sinh() {
+        return unary(FastMath.sinh(value), FastMath.cosh(value));
+    }
+
+    /** Hyperbolic tangent operation.
+     * @return tanh(this)
+     */
+    public TapeVariable tanh() {
+        final double t = FastMath.tanh(value);
+        return unary(t, 1 - t * t);
+    }
+
+    /** Inverse hyperbolic cosine operation.
+     * @return acosh(this)
+     */
+    public TapeVariable acosh() {
+        return unary(FastMath.acosh(value), 1.0 / FastMath.sqrt(value * value - 1));
+    }
+
+    /** Inverse hyperbolic sine operation.
+     * @return asinh(this)
+     */
+    public TapeVariable asinh() {
+        return unary(FastMath.asinh(value), 1.0 / FastMath.sqrt(value * value + 1));
+    }
+
+    /** Inverse hyperbolic tangent operation.
+     * @return atanh(this)
+     */
+    public TapeVariable atanh() {
+        return unary(FastMath.atanh(value), 1.0 / (1 - value * value));
+    }
+
+    /** Record a function of the instance.
+     * @param f value of the function
+     * @param df derivative of the function with respect to the instance
+     * @return a new variable
+     * @exception MathIllegalStateException if the instance does not belong
+     * to the current recording of its tape
+     */
+    private TapeVariable unary(final double f, final double df)
+        throws MathIllegalStateException {
+        tape.check(this);
+        return tape.record(f, index, df, -1, 0.0);
+    }
+
+    /** Record a function of the instance and another variable.
+     * @param a other variable
+     * @param f value of the function
+     * @param dThis derivative of the function with respect to the instance
+     * @param dA derivative of the function with respect to {@code a}
+     * @return a new variable
+     * @exception MathIllegalStateException if the variables do not belong to
+     * the current recording of the tape
+     */
+    private TapeVariable binary(final TapeVariable a, final double f,
+                                final double dThis, final double dA)
+        throws MathIllegalStateException {
+        tape.check(this);
+        tape.check(a);
+        return tape.record(f, index, dThis, a.index, dA);
+    }
+
+}
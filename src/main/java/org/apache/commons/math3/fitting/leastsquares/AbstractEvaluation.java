@@ -1,7 +1,9 @@
 package org.apache.commons.math3.fitting.leastsquares;
 
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CompressedRowRealMatrix;
 import org.apache.commons.math3.linear.DecompositionSolver;
 import org.apache.commons.math3.linear.QRDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
@@ -12,7 +14,12 @@ import org.apache.commons.math3.util.FastMath;
  * An implementation of {@link Evaluation} that is designed for extension. All of the
  * methods implemented here use the methods that are left unimplemented.
  * <p/>
- * TODO cache results?
+ * The cost and the normal matrix J<sup>T</sup>J are computed on first use and then
+ * reused. Subclasses are expected to memoize their residuals and Jacobian in the same
+ * way, as an evaluation is queried several times by the optimizers and convergence
+ * checkers. The memoized quantities are computed while holding the lock of the
+ * evaluation, so that an evaluation can be shared between threads (see
+ * {@link LeastSquaresFactory#cache(LeastSquaresProblem, int)}).
  *
  * @version $Id$
  */
@@ -20,6 +27,10 @@ abstract class AbstractEvaluation implements Evaluation {
 
     /** number of observations */
     private final int observationSize;
+    /** transpose(J)J, computed on first use */
+    private RealMatrix normalMatrix;
+    /** the cost, computed on first use (NaN until then) */
+    private double cost = Double.NaN;
 
     /**
      * Constructor.
@@ -33,18 +44,58 @@ abstract class AbstractEvaluation implements Evaluation {
 
     /** {@inheritDoc} */
     public RealMatrix computeCovariances(double threshold) {
-        // Set up the Jacobian.
-        final RealMatrix j = this.computeJacobian();
-
-        // Compute transpose(J)J.
-        final RealMatrix jTj = j.transpose().multiply(j);
-
         // Compute the covariances matrix.
         final DecompositionSolver solver
-                = new QRDecomposition(jTj, threshold).getSolver();
+                = new QRDecomposition(getNormalMatrix(), threshold).getSolver();
         return solver.getInverse();
     }
 
+    /**
+     * Get transpose(J)J, computing it on first use.
+     *
+     * @return transpose(J)J.
+     */
+    private synchronized RealMatrix getNormalMatrix() {
+        if (normalMatrix == null) {
+            // Set up the Jacobian.
+            final RealMatrix j = this.computeJacobian();
+
+            // Compute transpose(J)J.
+            if (j instanceof CompressedRowRealMatrix) {
+                normalMatrix = sparseNormalMatrix((CompressedRowRealMatrix) j);
+            } else {
+                normalMatrix = j.transpose().multiply(j);
+            }
+        }
+        return normalMatrix;
+    }
+
+    /**
+     * Computes transpose(J)J from the stored entries of a sparse Jacobian,
+     * in time proportional to the sum of the squared number of entries of
+     * each row.
+     *
+     * @param j the sparse Jacobian.
+     * @return transpose(J)J.
+     */
+    private static RealMatrix sparseNormalMatrix(final CompressedRowRealMatrix j) {
+        final int[] rowStart = j.getRowStartRef();
+        final int[] columnIndex = j.getColumnIndexRef();
+        final double[] values = j.getValuesRef();
+        final int nC = j.getColumnDimension();
+        final double[][] jTj = new double[nC][nC];
+        for (int i = 0; i < j.getRowDimension(); i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                final double[] row = jTj[columnIndex[k]];
+                final double v = values[k];
+                for (int l = rowStart[i]; l < rowStart[i + 1]; l++) {
+                    row[columnIndex[l]] += v * values[l];
+                }
+            }
+        }
+        return new Array2DRowRealMatrix(jTj, false);
+    }
+
     /** {@inheritDoc} */
     public RealVector computeSigma(double covarianceSingularityThreshold) {
         final RealMatrix cov = this.computeCovariances(covarianceSingularityThreshold);
@@ -63,9 +114,12 @@ abstract class AbstractEvaluation implements Evaluation {
     }
 
     /** {@inheritDoc} */
-    public double computeCost() {
-        final ArrayRealVector r = new ArrayRealVector(this.computeResiduals());
-        return FastMath.sqrt(r.dotProduct(r));
+    public synchronized double computeCost() {
+        if (Double.isNaN(cost)) {
+            final RealVector r = this.computeResiduals();
+            cost = FastMath.sqrt(r.dotProduct(r));
+        }
+        return cost;
     }
 
 }
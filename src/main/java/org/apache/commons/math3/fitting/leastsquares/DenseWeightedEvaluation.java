@@ -15,6 +15,10 @@ class DenseWeightedEvaluation extends AbstractEvaluation {
     private final Evaluation unweighted;
     /** reference to the weight square root matrix */
     private final RealMatrix weightSqrt;
+    /** weighted Jacobian, computed on first use */
+    private RealMatrix jacobian;
+    /** weighted residuals, computed on first use */
+    private RealVector residuals;
 
     /**
      * Create a weighted evaluation from an unweighted one.
@@ -33,13 +37,19 @@ class DenseWeightedEvaluation extends AbstractEvaluation {
     /* apply weights */
 
     /** {@inheritDoc} */
-    public RealMatrix computeJacobian() {
-        return weightSqrt.multiply(this.unweighted.computeJacobian());
+    public synchronized RealMatrix computeJacobian() {
+        if (jacobian == null) {
+            jacobian = weightSqrt.multiply(this.unweighted.computeJacobian());
+        }
+        return jacobian;
     }
 
     /** {@inheritDoc} */
-    public RealVector computeResiduals() {
-        return this.weightSqrt.operate(this.unweighted.computeResiduals());
+    public synchronized RealVector computeResiduals() {
+        if (residuals == null) {
+            residuals = this.weightSqrt.operate(this.unweighted.computeResiduals());
+        }
+        return residuals;
     }
 
     /* delegate */
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CompressedRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+/**
+ * Applies a diagonal weight matrix to an evaluation. The rows of the
+ * Jacobian are scaled without forming the product with the weight matrix,
+ * and a {@link CompressedRowRealMatrix sparse} Jacobian stays sparse.
+ *
+ * @version $Id$
+ */
+class DiagonalWeightedEvaluation extends AbstractEvaluation {
+
+    /** the unweighted evaluation */
+    private final Evaluation unweighted;
+    /** square root of the weights */
+    private final double[] weightSqrt;
+    /** weighted Jacobian, computed on first use */
+    private RealMatrix jacobian;
+    /** weighted residuals, computed on first use */
+    private RealVector residuals;
+
+    /**
+     * Create a weighted evaluation from an unweighted one.
+     *
+     * @param unweighted the evalutation before weights are applied
+     * @param weightSqrt the square root of the diagonal of the weight matrix
+     */
+    DiagonalWeightedEvaluation(final Evaluation unweighted,
+                               final double[] weightSqrt) {
+        super(weightSqrt.length);
+        this.unweighted = unweighted;
+        this.weightSqrt = weightSqrt;
+    }
+
+    /* apply weights */
+
+    /** {@inheritDoc} */
+    public synchronized RealMatrix computeJacobian() {
+        if (jacobian == null) {
+            jacobian = weight(unweighted.computeJacobian());
+        }
+        return jacobian;
+    }
+
+    /**
+     * Apply the weights to the rows of a Jacobian.
+     *
+     * @param jacobian the unweighted Jacobian
+     * @return the weighted Jacobian
+     */
+    private RealMatrix weight(final RealMatrix jacobian) {
+        if (jacobian.getRowDimension() != weightSqrt.length) {
+            throw new DimensionMismatchException(jacobian.getRowDimension(), weightSqrt.length);
+        }
+        if (jacobian instanceof CompressedRowRealMatrix) {
+            return ((CompressedRowRealMatrix) jacobian).scaleRows(weightSqrt);
+        }
+        // scale a single copy of the rows, and wrap it without copying again
+        final double[][] weighted = jacobian.getData();
+        for (int i = 0; i < weightSqrt.length; i++) {
+            final double w = weightSqrt[i];
+            final double[] row = weighted[i];
+            for (int j = 0; j < row.length; j++) {
+                row[j] *= w;
+            }
+        }
+        return new Array2DRowRealMatrix(weighted, false);
+    }
+
+    /** {@inheritDoc} */
+    public synchronized RealVector computeResiduals() {
+        if (residuals == null) {
+            final RealVector r = unweighted.computeResiduals();
+            if (r.getDimension() != weightSqrt.length) {
+                throw new DimensionMismatchException(r.getDimension(), weightSqrt.length);
+            }
+            final double[] weighted = new double[weightSqrt.length];
+            for (int i = 0; i < weighted.length; i++) {
+                weighted[i] = weightSqrt[i] * r.getEntry(i);
+            }
+            residuals = new ArrayRealVector(weighted, false);
+        }
+        return residuals;
+    }
+
+    /* delegate */
+
+    /** {@inheritDoc} */
+    public RealVector getPoint() {
+        return unweighted.getPoint();
+    }
+
+    /** {@inheritDoc} */
+    public RealVector computeValue() {
+        return unweighted.computeValue();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+/**
+ * Schemes used to approximate a Jacobian by finite differences.
+ *
+ * @version $Id$
+ * @see LeastSquaresFactory#finiteDifferencesModel(org.apache.commons.math3.analysis.MultivariateVectorFunction,
+ * FiniteDifferenceScheme)
+ * @since 3.3
+ */
+public enum FiniteDifferenceScheme {
+
+    /**
+     * Forward differences {@code (f(x + h) - f(x)) / h}, with an error in
+     * {@code O(h)}. The value at the point itself is shared with the model
+     * evaluation, so each column only costs one evaluation.
+     */
+    FORWARD(1, 0.5),
+
+    /**
+     * Central differences {@code (f(x + h) - f(x - h)) / 2h}, with an error
+     * in {@code O(h^2)}. Each column costs two evaluations.
+     */
+    CENTRAL(2, 1.0 / 3.0),
+
+    /**
+     * Richardson extrapolation of the central differences with steps {@code h}
+     * and {@code h/2}, with an error in {@code O(h^4)}. Each column costs four
+     * evaluations.
+     */
+    RICHARDSON(4, 0.2);
+
+    /** Number of evaluations per column. */
+    private final int evaluations;
+    /** Exponent of the machine epsilon giving the relative step size. */
+    private final double stepExponent;
+
+    /**
+     * @param evaluations number of evaluations per column
+     * @param stepExponent exponent of the machine epsilon giving the relative step size
+     */
+    private FiniteDifferenceScheme(final int evaluations, final double stepExponent) {
+        this.evaluations = evaluations;
+        this.stepExponent = stepExponent;
+    }
+
+    /**
+     * Get the number of evaluations of the model needed for each column of the
+     * Jacobian.
+     *
+     * @return the number of evaluations per column
+     */
+    public int getEvaluationsPerColumn() {
+        return evaluations;
+    }
+
+    /**
+     * Get the exponent of the machine epsilon giving the relative step size,
+     * which balances the truncation and rounding errors of the scheme.
+     *
+     * @return the step exponent
+     */
+    double getStepExponent() {
+        return stepExponent;
+    }
+
+}
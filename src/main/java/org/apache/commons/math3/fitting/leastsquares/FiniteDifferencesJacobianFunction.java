@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.util.ConcurrentUtils;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Pair;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * A model whose Jacobian is approximated by finite differences of its values.
+ * <p/>
+ * The step of each parameter is chosen from its magnitude and the order of the
+ * scheme, and adjusted so that it is exactly representable. The columns of the
+ * Jacobian may be evaluated concurrently by an executor. The value at the last
+ * point is kept, so that a forward difference Jacobian computed at the point
+ * where the value was just computed only needs one evaluation per column.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class FiniteDifferencesJacobianFunction implements ValueAndJacobianFunction {
+
+    /** Model values. */
+    private final MultivariateVectorFunction value;
+    /** Finite differences scheme. */
+    private final FiniteDifferenceScheme scheme;
+    /** Executor evaluating the columns, may be null. */
+    private final ExecutorService executor;
+    /** Last point where the model was evaluated. */
+    private double[] lastPoint;
+    /** Model value at {@link #lastPoint}. */
+    private double[] lastValue;
+
+    /**
+     * @param value    model values
+     * @param scheme   finite differences scheme
+     * @param executor executor evaluating the columns, or {@code null} to
+     *                 evaluate them in the calling thread
+     */
+    FiniteDifferencesJacobianFunction(final MultivariateVectorFunction value,
+                                      final FiniteDifferenceScheme scheme,
+                                      final ExecutorService executor) {
+        this.value = value;
+        this.scheme = scheme;
+        this.executor = executor;
+    }
+
+    /** {@inheritDoc} */
+    public Pair<RealVector, RealMatrix> value(final RealVector point) {
+        final double[] pointArray = point.toArray();
+        return new Pair<RealVector, RealMatrix>(computeValue(pointArray),
+                                                computeJacobian(pointArray));
+    }
+
+    /** {@inheritDoc} */
+    public RealVector computeValue(final double[] params) {
+        return new ArrayRealVector(baseValue(params), true);
+    }
+
+    /** {@inheritDoc} */
+    public RealMatrix computeJacobian(final double[] params) {
+        final int n = params.length;
+        final double[] base = scheme == FiniteDifferenceScheme.FORWARD ? baseValue(params) : null;
+        final double[][] columns = new double[n][];
+
+        if (executor == null || n == 1) {
+            for (int j = 0; j < n; ++j) {
+                columns[j] = column(params, base, j);
+            }
+        } else {
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(n);
+            for (int j = 0; j < n; ++j) {
+                final int column = j;
+                tasks.add(new Callable<Void>() {
+                    public Void call() {
+                        columns[column] = column(params, base, column);
+                        return null;
+                    }
+                });
+            }
+            ConcurrentUtils.invokeAll(executor, tasks);
+        }
+
+        final int m = columns[0].length;
+        final double[][] jacobian = new double[m][n];
+        for (int j = 0; j < n; ++j) {
+            final double[] column = columns[j];
+            for (int i = 0; i < m; ++i) {
+                jacobian[i][j] = column[i];
+            }
+        }
+        return new Array2DRowRealMatrix(jacobian, false);
+    }
+
+    /**
+     * Get the model value at a point, reusing the last value if the point
+     * did not change.
+     *
+     * @param params the point
+     * @return the model value, which must not be modified
+     */
+    private double[] baseValue(final double[] params) {
+        synchronized (this) {
+            if (lastPoint != null && Arrays.equals(lastPoint, params)) {
+                return lastValue;
+            }
+        }
+        final double[] v = value.value(params.clone());
+        synchronized (this) {
+            lastPoint = params.clone();
+            lastValue = v;
+        }
+        return v;
+    }
+
+    /**
+     * Compute one column of the Jacobian.
+     *
+     * @param params the point
+     * @param base model value at the point, only used by forward differences
+     * @param j index of the column
+     * @return the derivatives of the model values with respect to parameter {@code j}
+     */
+    private double[] column(final double[] params, final double[] base, final int j) {
+        final double h = step(params[j]);
+        switch (scheme) {
+        case FORWARD: {
+            final double[] plus = evaluate(params, j, h);
+            checkDimension(base, plus);
+            for (int i = 0; i < plus.length; ++i) {
+                plus[i] = (plus[i] - base[i]) / h;
+            }
+            return plus;
+        }
+        case CENTRAL:
+            return central(params, j, h);
+        default: {
+            // RICHARDSON: cancel the h^2 term of the central differences error
+            final double[] coarse = central(params, j, h);
+            final double[] fine = central(params, j, 0.5 * h);
+            checkDimension(coarse, fine);
+            for (int i = 0; i < fine.length; ++i) {
+                fine[i] = (4 * fine[i] - coarse[i]) / 3;
+            }
+            return fine;
+        }
+        }
+    }
+
+    /**
+     * Compute central differences for one column.
+     *
+     * @param params the point
+     * @param j index of the column
+     * @param h step
+     * @return the central differences
+     */
+    private double[] central(final double[] params, final int j, final double h) {
+        final double[] plus = evaluate(params, j, h);
+        final double[] minus = evaluate(params, j, -h);
+        checkDimension(plus, minus);
+        for (int i = 0; i < plus.length; ++i) {
+            plus[i] = (plus[i] - minus[i]) / (2 * h);
+        }
+        return plus;
+    }
+
+    /**
+     * Evaluate the model at a point with one shifted parameter.
+     *
+     * @param params the point, which is not modified
+     * @param j index of the shifted parameter
+     * @param h shift
+     * @return a copy of the model value
+     */
+    private double[] evaluate(final double[] params, final int j, final double h) {
+        final double[] shifted = params.clone();
+        shifted[j] += h;
+        return value.value(shifted).clone();
+    }
+
+    /**
+     * Choose the step of a parameter. The step is proportional to the
+     * magnitude of the parameter (or to 1 if it is zero) and rounded so that
+     * {@code x + h - x == h}.
+     *
+     * @param x the parameter
+     * @return the step
+     */
+    private double step(final double x) {
+        final double relative = FastMath.pow(Precision.EPSILON, scheme.getStepExponent());
+        final double h = relative * (x == 0 ? 1 : FastMath.abs(x));
+        final double shifted = x + h;
+        return shifted - x;
+    }
+
+    /**
+     * @param expected array with the expected dimension
+     * @param actual array to check
+     * @throws DimensionMismatchException if the lengths differ
+     */
+    private static void checkDimension(final double[] expected, final double[] actual) {
+        if (actual.length != expected.length) {
+            throw new DimensionMismatchException(actual.length, expected.length);
+        }
+    }
+
+}
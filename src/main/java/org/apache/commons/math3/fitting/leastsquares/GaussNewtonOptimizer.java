@@ -20,22 +20,38 @@ import org.apache.commons.math3.exception.ConvergenceException;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.BlockRealMatrix;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.CompressedRowRealMatrix;
 import org.apache.commons.math3.linear.DecompositionSolver;
 import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
 import org.apache.commons.math3.linear.QRDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.linear.SingularMatrixException;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
 import org.apache.commons.math3.optim.ConvergenceChecker;
 import org.apache.commons.math3.util.Incrementor;
 
 /**
  * Gauss-Newton least-squares solver. <p/> <p> This class solve a least-square problem by
- * solving the normal equations of the linearized problem at each iteration. Either LU
- * decomposition or QR decomposition can be used to solve the normal equations. LU
- * decomposition is faster but QR decomposition is more robust for difficult problems.
+ * solving the normal equations of the linearized problem at each iteration. LU
+ * decomposition, QR decomposition, Cholesky decomposition or singular value
+ * decomposition can be used to solve the normal equations. LU decomposition is faster
+ * but QR decomposition is more robust for difficult problems. Cholesky decomposition
+ * is the fastest, as it takes advantage of the symmetry of the normal matrix, and singular
+ * value decomposition also handles rank-deficient problems, for which it provides the
+ * minimum norm step.
+ * </p>
+ * <p> The normal equations are accumulated in a single pass over the rows of the
+ * Jacobian, so that only the n&times;n normal matrix and the right-hand side are
+ * allocated, whatever the number of observations.
+ * </p>
+ * <p> When the Jacobian is a {@link CompressedRowRealMatrix}, the normal equations are
+ * built from its stored entries only. The normal matrix itself is dense: for problems
+ * with many parameters, {@link SparseLevenbergMarquardtOptimizer} never forms it.
  * </p>
  *
  * @version $Id$
@@ -59,6 +75,36 @@ public class GaussNewtonOptimizer implements LeastSquaresOptimizer {
             protected DecompositionSolver getSolver(final RealMatrix matrix) {
                 return new QRDecomposition(matrix, SINGULARITY_THRESHOLD).getSolver();
             }
+        },
+        /**
+         * Use {@link CholeskyDecomposition}. The normal matrix must be positive
+         * definite.
+         * @since 3.3
+         */
+        CHOLESKY {
+            @Override
+            protected DecompositionSolver getSolver(final RealMatrix matrix) {
+                try {
+                    return new CholeskyDecomposition(
+                            matrix,
+                            CholeskyDecomposition.DEFAULT_RELATIVE_SYMMETRY_THRESHOLD,
+                            SINGULARITY_THRESHOLD).getSolver();
+                } catch (NonPositiveDefiniteMatrixException e) {
+                    throw new ConvergenceException(LocalizedFormats.UNABLE_TO_SOLVE_SINGULAR_PROBLEM);
+                }
+            }
+        },
+        /**
+         * Use {@link SingularValueDecomposition}. Singular values below the
+         * solver threshold are ignored, so a rank-deficient problem is solved
+         * in the least-squares sense.
+         * @since 3.3
+         */
+        SVD {
+            @Override
+            protected DecompositionSolver getSolver(final RealMatrix matrix) {
+                return new SingularValueDecomposition(matrix).getSolver();
+            }
         };
 
         /**
@@ -160,33 +206,68 @@ public class GaussNewtonOptimizer implements LeastSquaresOptimizer {
                 }
             }
 
-            // build the linear problem
+            // build the linear problem: the normal matrix is symmetric,
+            // so only its lower triangle is accumulated
             final double[] b = new double[nC];
             final double[][] a = new double[nC][nC];
-            for (int i = 0; i < nR; ++i) {
+            if (weightedJacobian instanceof CompressedRowRealMatrix) {
+                // only the stored entries contribute
+                final CompressedRowRealMatrix sparse = (CompressedRowRealMatrix) weightedJacobian;
+                final int[] rowStart = sparse.getRowStartRef();
+                final int[] columnIndex = sparse.getColumnIndexRef();
+                final double[] values = sparse.getValuesRef();
+                for (int i = 0; i < nR; ++i) {
+                    final double residual = currentResiduals.getEntry(i);
+                    for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                        final int ck = columnIndex[k];
+                        final double gk = values[k];
+                        b[ck] += residual * gk;
+                        final double[] ak = a[ck];
+                        for (int l = rowStart[i]; l <= k; ++l) {
+                            ak[columnIndex[l]] += gk * values[l];
+                        }
+                    }
+                }
+            } else {
+                // read the rows in place when they are directly available
+                final double[][] rows = weightedJacobian instanceof Array2DRowRealMatrix ?
+                                        ((Array2DRowRealMatrix) weightedJacobian).getDataRef() :
+                                        null;
+                for (int i = 0; i < nR; ++i) {
 
-                final double[] grad = weightedJacobian.getRow(i);
-                final double residual = currentResiduals.getEntry(i);
+                    final double[] grad = rows == null ? weightedJacobian.getRow(i) : rows[i];
+                    final double residual = currentResiduals.getEntry(i);
 
-                // compute the normal equation
-                //residual is already weighted
-                for (int j = 0; j < nC; ++j) {
-                    b[j] += residual * grad[j];
-                }
+                    // compute the normal equation
+                    //residual is already weighted
+                    for (int j = 0; j < nC; ++j) {
+                        b[j] += residual * grad[j];
+                    }
 
-                // build the contribution matrix for measurement i
-                for (int k = 0; k < nC; ++k) {
-                    double[] ak = a[k];
-                    //Jacobian/gradient is already weighted
-                    for (int l = 0; l < nC; ++l) {
-                        ak[l] += grad[k] * grad[l];
+                    // build the contribution matrix for measurement i
+                    for (int k = 0; k < nC; ++k) {
+                        final double gk = grad[k];
+                        if (gk == 0) {
+                            // the whole row of the contribution is zero
+                            continue;
+                        }
+                        double[] ak = a[k];
+                        //Jacobian/gradient is already weighted
+                        for (int l = 0; l <= k; ++l) {
+                            ak[l] += gk * grad[l];
+                        }
                     }
                 }
             }
+            for (int k = 0; k < nC; ++k) {
+                for (int l = k + 1; l < nC; ++l) {
+                    a[k][l] = a[l][k];
+                }
+            }
 
             try {
                 // solve the linearized least squares problem
-                RealMatrix mA = new BlockRealMatrix(a);
+                RealMatrix mA = new Array2DRowRealMatrix(a, false);
                 DecompositionSolver solver = this.decomposition.getSolver(mA);
                 final RealVector dX = solver.solve(new ArrayRealVector(b, false));
                 // update the estimated parameters
@@ -1,5 +1,7 @@
 package org.apache.commons.math3.fitting.leastsquares;
 
+import java.util.concurrent.ExecutorService;
+
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
@@ -99,6 +101,37 @@ public class LeastSquaresBuilder {
         return model(LeastSquaresFactory.model(value, jacobian));
     }
 
+    /**
+     * Configure the model function, with a Jacobian approximated by finite
+     * differences.
+     *
+     * @param value the model function value
+     * @param scheme the finite differences scheme
+     * @return this
+     * @see LeastSquaresFactory#finiteDifferencesModel(MultivariateVectorFunction, FiniteDifferenceScheme)
+     */
+    public LeastSquaresBuilder model(final MultivariateVectorFunction value,
+                                     final FiniteDifferenceScheme scheme) {
+        return model(LeastSquaresFactory.finiteDifferencesModel(value, scheme));
+    }
+
+    /**
+     * Configure the model function, with a Jacobian approximated by finite
+     * differences whose columns are evaluated in parallel.
+     *
+     * @param value the model function value, which must be thread-safe
+     * @param scheme the finite differences scheme
+     * @param executor executor evaluating the columns
+     * @return this
+     * @see LeastSquaresFactory#finiteDifferencesModel(MultivariateVectorFunction,
+     * FiniteDifferenceScheme, ExecutorService)
+     */
+    public LeastSquaresBuilder model(final MultivariateVectorFunction value,
+                                     final FiniteDifferenceScheme scheme,
+                                     final ExecutorService executor) {
+        return model(LeastSquaresFactory.finiteDifferencesModel(value, scheme, executor));
+    }
+
     /**
      * Configure the model function.
      *
@@ -1,18 +1,34 @@
 package org.apache.commons.math3.fitting.leastsquares;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.analysis.ParametricUnivariateFunction;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CompressedRowRealMatrix;
 import org.apache.commons.math3.linear.DiagonalMatrix;
 import org.apache.commons.math3.linear.EigenDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.optim.ConvergenceChecker;
+import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.PointVectorValuePair;
+import org.apache.commons.math3.util.ConcurrentUtils;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.Incrementor;
+import org.apache.commons.math3.util.MathUtils;
 import org.apache.commons.math3.util.Pair;
 
 /**
@@ -125,7 +141,47 @@ public class LeastSquaresFactory {
     }
 
     /**
-     * Apply a dense weight matrix to the {@link LeastSquaresProblem}.
+     * Create a {@link StreamingLeastSquaresProblem} that reads its observations
+     * from a source, one block of records at a time. At most {@code blockSize}
+     * records and rows of the Jacobian are held in memory at any time.
+     *
+     * @param source         the source of the observations
+     * @param model          the model computing the residual of each record
+     * @param start          the initial guess
+     * @param blockSize      the maximal number of rows in a block
+     * @param checker        convergence checker
+     * @param maxEvaluations the maximum number of times to evaluate the model
+     * @param maxIterations  the maximum number to times to iterate in the algorithm
+     * @return the specified streaming problem
+     * @throws NullArgumentException if {@code source}, {@code model} or {@code
+     * start} is {@code null}
+     * @throws NotStrictlyPositiveException if {@code blockSize} is not strictly
+     * positive
+     * @since 3.3
+     */
+    public static StreamingLeastSquaresProblem createStreaming(
+            final ObservationSource source,
+            final StreamingModel model,
+            final RealVector start,
+            final int blockSize,
+            final ConvergenceChecker<PointValuePair> checker,
+            final int maxEvaluations,
+            final int maxIterations
+    ) {
+        MathUtils.checkNotNull(source);
+        MathUtils.checkNotNull(model);
+        MathUtils.checkNotNull(start);
+        if (blockSize <= 0) {
+            throw new NotStrictlyPositiveException(blockSize);
+        }
+        return new StreamingLeastSquaresProblemImpl(source, model, start, blockSize,
+                                                    checker, maxEvaluations, maxIterations);
+    }
+
+    /**
+     * Apply a dense weight matrix to the {@link LeastSquaresProblem}. A {@link
+     * DiagonalMatrix} is applied as by {@link #weightDiagonal(LeastSquaresProblem,
+     * RealVector)}.
      *
      * @param problem the unweighted problem
      * @param weights the matrix of weights
@@ -134,6 +190,10 @@ public class LeastSquaresFactory {
      */
     public static LeastSquaresProblem weightMatrix(final LeastSquaresProblem problem,
                                                    final RealMatrix weights) {
+        if (weights instanceof DiagonalMatrix) {
+            return weightDiagonal(problem,
+                                  new ArrayRealVector(((DiagonalMatrix) weights).getDataRef(), false));
+        }
         final RealMatrix weightSquareRoot = squareRoot(weights);
         return new LeastSquaresAdapter(problem) {
             @Override
@@ -145,6 +205,10 @@ public class LeastSquaresFactory {
 
     /**
      * Apply a diagonal weight matrix to the {@link LeastSquaresProblem}.
+     * <p/>
+     * The rows of the Jacobian are scaled in place of a matrix product, so that
+     * the weighted Jacobian of a problem whose model returns a {@link
+     * CompressedRowRealMatrix} is also sparse.
      *
      * @param problem the unweighted problem
      * @param weights the diagonal of the weight matrix
@@ -153,8 +217,16 @@ public class LeastSquaresFactory {
      */
     public static LeastSquaresProblem weightDiagonal(final LeastSquaresProblem problem,
                                                      final RealVector weights) {
-        //TODO more efficient implementation
-        return weightMatrix(problem, new DiagonalMatrix(weights.toArray()));
+        final double[] weightSquareRoot = new double[weights.getDimension()];
+        for (int i = 0; i < weightSquareRoot.length; i++) {
+            weightSquareRoot[i] = FastMath.sqrt(weights.getEntry(i));
+        }
+        return new LeastSquaresAdapter(problem) {
+            @Override
+            public Evaluation evaluate(final RealVector point) {
+                return new DiagonalWeightedEvaluation(super.evaluate(point), weightSquareRoot);
+            }
+        };
     }
 
     /**
@@ -180,6 +252,122 @@ public class LeastSquaresFactory {
         };
     }
 
+    /**
+     * Cache the most recent evaluations of a problem, so that the model is not
+     * evaluated again at a point where it has already been evaluated recently.
+     *
+     * @param problem  the problem whose evaluations should be cached.
+     * @param capacity the maximal number of cached evaluations.
+     * @return a least squares problem that caches its evaluations.
+     * @throws NotStrictlyPositiveException if {@code capacity} is not strictly positive.
+     * @see #cache(LeastSquaresProblem, int, Incrementor, Incrementor)
+     * @since 3.3
+     */
+    public static LeastSquaresProblem cache(final LeastSquaresProblem problem,
+                                            final int capacity) {
+        return cache(problem, capacity,
+                     new Incrementor(Integer.MAX_VALUE), new Incrementor(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Cache the most recent evaluations of a problem, so that the model is not
+     * evaluated again at a point where it has already been evaluated recently.
+     * <p/>
+     * The evaluations are looked up by the exact values of the coordinates of the
+     * point. When the cache is full, the least recently used evaluation is dropped.
+     * As evaluations compute their derived quantities on first use, a cached
+     * evaluation also saves the computation of its residuals, cost and weighted
+     * Jacobian.
+     * <p/>
+     * The returned problem can be used by several threads at the same time. The
+     * model is evaluated only once at a given point while its evaluation stays in
+     * the cache: threads requesting a point whose evaluation is in progress wait
+     * for it and count as hits. If the evaluation fails, the waiting threads get
+     * the same exception, and the point is dropped from the cache.
+     *
+     * @param problem  the problem whose evaluations should be cached.
+     * @param capacity the maximal number of cached evaluations.
+     * @param hits     the counter to increment when an evaluation is found in the cache.
+     * @param misses   the counter to increment when the evaluation is delegated to
+     *                 {@code problem}.
+     * @return a least squares problem that caches its evaluations.
+     * @throws NotStrictlyPositiveException if {@code capacity} is not strictly positive.
+     * @throws NullArgumentException if a counter is {@code null}.
+     * @since 3.3
+     */
+    public static LeastSquaresProblem cache(final LeastSquaresProblem problem,
+                                            final int capacity,
+                                            final Incrementor hits,
+                                            final Incrementor misses) {
+        if (capacity <= 0) {
+            throw new NotStrictlyPositiveException(capacity);
+        }
+        MathUtils.checkNotNull(hits);
+        MathUtils.checkNotNull(misses);
+
+        // access-ordered map, dropping the least recently used evaluation;
+        // an evaluation in progress is stored as soon as it is requested, so
+        // that concurrent requests for the same point wait for it
+        final Map<PointKey, FutureTask<Evaluation>> cache =
+            new LinkedHashMap<PointKey, FutureTask<Evaluation>>(16, 0.75f, true) {
+                /** Serializable version identifier. */
+                private static final long serialVersionUID = 20140422L;
+
+                /** {@inheritDoc} */
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<PointKey, FutureTask<Evaluation>> eldest) {
+                    return size() > capacity;
+                }
+            };
+
+        return new LeastSquaresAdapter(problem) {
+
+            public Evaluation evaluate(final RealVector point) {
+                final PointKey key = new PointKey(point.toArray());
+                FutureTask<Evaluation> evaluation;
+                boolean pending = false;
+                synchronized (cache) {
+                    evaluation = cache.get(key);
+                    if (evaluation == null) {
+                        misses.incrementCount();
+                        evaluation = new FutureTask<Evaluation>(new Callable<Evaluation>() {
+                                public Evaluation call() {
+                                    return problem.evaluate(point);
+                                }
+                            });
+                        cache.put(key, evaluation);
+                        pending = true;
+                    } else {
+                        hits.incrementCount();
+                    }
+                }
+
+                if (pending) {
+                    // the model is evaluated outside of the lock
+                    evaluation.run();
+                }
+                boolean failed = true;
+                try {
+                    final Evaluation result = ConcurrentUtils.get(evaluation);
+                    failed = false;
+                    return result;
+                } finally {
+                    if (failed && pending) {
+                        // do not keep the failure, the next request will try again
+                        synchronized (cache) {
+                            if (cache.get(key) == evaluation) {
+                                cache.remove(key);
+                            }
+                        }
+                    }
+                }
+            }
+
+            /* delegate the rest */
+
+        };
+    }
+
     /**
      * View a convergence checker specified for a {@link PointVectorValuePair} as one
      * specified for an {@link Evaluation}.
@@ -216,41 +404,246 @@ public class LeastSquaresFactory {
      * @return the square-root of the weight matrix.
      */
     private static RealMatrix squareRoot(final RealMatrix m) {
-        if (m instanceof DiagonalMatrix) {
-            final int dim = m.getRowDimension();
-            final RealMatrix sqrtM = new DiagonalMatrix(dim);
-            for (int i = 0; i < dim; i++) {
-                sqrtM.setEntry(i, i, FastMath.sqrt(m.getEntry(i, i)));
-            }
-            return sqrtM;
-        } else {
-            final EigenDecomposition dec = new EigenDecomposition(m);
-            return dec.getSquareRoot();
-        }
+        final EigenDecomposition dec = new EigenDecomposition(m);
+        return dec.getSquareRoot();
     }
 
     /**
      * Combine a {@link MultivariateVectorFunction} with a {@link
      * MultivariateMatrixFunction} to produce a {@link MultivariateJacobianFunction}.
+     * <p/>
+     * The returned function also computes the values and the Jacobian separately,
+     * so that the evaluations of a problem using it are lazy: {@code jacobian} is
+     * only called when the Jacobian is actually used.
      *
      * @param value    the vector value function
      * @param jacobian the Jacobian function
      * @return a function that computes both at the same time
      */
-    public static MultivariateJacobianFunction model(
+    public static ValueAndJacobianFunction model(
             final MultivariateVectorFunction value,
             final MultivariateMatrixFunction jacobian
     ) {
-        return new MultivariateJacobianFunction() {
+        return new ValueAndJacobianFunction() {
             public Pair<RealVector, RealMatrix> value(final RealVector point) {
                 //TODO get array from RealVector without copying?
                 final double[] pointArray = point.toArray();
                 //evaluate and return data without copying
                 return new Pair<RealVector, RealMatrix>(
-                        new ArrayRealVector(value.value(pointArray), false),
-                        new Array2DRowRealMatrix(jacobian.value(pointArray), false));
+                        computeValue(pointArray),
+                        computeJacobian(pointArray));
+            }
+
+            public RealVector computeValue(final double[] params) {
+                return new ArrayRealVector(value.value(params), false);
+            }
+
+            public RealMatrix computeJacobian(final double[] params) {
+                return new Array2DRowRealMatrix(jacobian.value(params), false);
             }
         };
     }
-}
 
+    /**
+     * Combine a {@link MultivariateVectorFunction} with a Jacobian approximated
+     * by finite differences to produce a {@link MultivariateJacobianFunction}.
+     * <p/>
+     * The step of each parameter is chosen automatically from its magnitude
+     * and the order of the scheme. The value at the point of evaluation is
+     * shared with the {@link FiniteDifferenceScheme#FORWARD forward} differences.
+     *
+     * @param value  the vector value function
+     * @param scheme the finite differences scheme
+     * @return a function that computes the values and their approximate Jacobian
+     * @throws NullArgumentException if {@code value} or {@code scheme} is {@code null}
+     * @since 3.3
+     */
+    public static ValueAndJacobianFunction finiteDifferencesModel(
+            final MultivariateVectorFunction value,
+            final FiniteDifferenceScheme scheme
+    ) {
+        MathUtils.checkNotNull(value);
+        MathUtils.checkNotNull(scheme);
+        return new FiniteDifferencesJacobianFunction(value, scheme, null);
+    }
+
+    /**
+     * Combine a {@link MultivariateVectorFunction} with a Jacobian approximated
+     * by finite differences, whose columns are evaluated in parallel.
+     * <p/>
+     * Each column of the Jacobian is a task submitted to {@code executor}.
+     *
+     * @param value    the vector value function, which must be thread-safe
+     * @param scheme   the finite differences scheme
+     * @param executor executor evaluating the columns
+     * @return a function that computes the values and their approximate Jacobian
+     * @throws NullArgumentException if an argument is {@code null}
+     * @see #finiteDifferencesModel(MultivariateVectorFunction, FiniteDifferenceScheme)
+     * @since 3.3
+     */
+    public static ValueAndJacobianFunction finiteDifferencesModel(
+            final MultivariateVectorFunction value,
+            final FiniteDifferenceScheme scheme,
+            final ExecutorService executor
+    ) {
+        MathUtils.checkNotNull(value);
+        MathUtils.checkNotNull(scheme);
+        MathUtils.checkNotNull(executor);
+        return new FiniteDifferencesJacobianFunction(value, scheme, executor);
+    }
+
+    /**
+     * Evaluate a model one chunk of observations at a time, in parallel.
+     * <p/>
+     * The observations are split into consecutive chunks of at most {@code
+     * chunkSize} observations, each of which is submitted to {@code executor}.
+     * All chunks write their values and Jacobian rows into arrays allocated once
+     * per evaluation, which are then wrapped without copying.
+     *
+     * @param model     the model, which must be thread-safe
+     * @param observations number of observations
+     * @param chunkSize maximal number of observations evaluated by a single task
+     * @param executor  executor running the tasks
+     * @return a function that evaluates {@code model} in parallel
+     * @throws NullArgumentException if {@code model} or {@code executor} is
+     * {@code null}
+     * @throws NotStrictlyPositiveException if {@code observations} or {@code
+     * chunkSize} is not strictly positive
+     * @since 3.3
+     */
+    public static MultivariateJacobianFunction parallelModel(
+            final ObservationFunction model,
+            final int observations,
+            final int chunkSize,
+            final ExecutorService executor
+    ) {
+        MathUtils.checkNotNull(model);
+        MathUtils.checkNotNull(executor);
+        if (observations <= 0) {
+            throw new NotStrictlyPositiveException(observations);
+        }
+        if (chunkSize <= 0) {
+            throw new NotStrictlyPositiveException(chunkSize);
+        }
+
+        return new MultivariateJacobianFunction() {
+            public Pair<RealVector, RealMatrix> value(final RealVector point) {
+                final double[] pointArray = point.toArray();
+                final double[] values = new double[observations];
+                final double[][] jacobian = new double[observations][pointArray.length];
+
+                if (observations <= chunkSize) {
+                    // a single chunk: no need to involve the executor
+                    evaluateChunk(model, pointArray, 0, observations, values, jacobian);
+                } else {
+                    final List<Callable<Void>> chunks = new ArrayList<Callable<Void>>();
+                    for (int start = 0; start < observations; start += chunkSize) {
+                        final int from = start;
+                        final int to = FastMath.min(observations, start + chunkSize);
+                        chunks.add(new Callable<Void>() {
+                                public Void call() {
+                                    evaluateChunk(model, pointArray, from, to, values, jacobian);
+                                    return null;
+                                }
+                            });
+                    }
+                    ConcurrentUtils.invokeAll(executor, chunks);
+                }
+
+                return new Pair<RealVector, RealMatrix>(
+                        new ArrayRealVector(values, false),
+                        new Array2DRowRealMatrix(jacobian, false));
+            }
+        };
+    }
+
+    /**
+     * Evaluate a parametric curve at many abscissae, in parallel.
+     * <p/>
+     * This is the parallel counterpart of the theoretical values computed when
+     * fitting a curve: value {@code i} of the returned function is {@code
+     * f.value(x[i], point)}, and row {@code i} of its Jacobian is {@code
+     * f.gradient(x[i], point)}.
+     *
+     * @param f         the parametric curve, which must be thread-safe
+     * @param x         abscissae of the observations
+     * @param chunkSize maximal number of observations evaluated by a single task
+     * @param executor  executor running the tasks
+     * @return a function that evaluates {@code f} in parallel
+     * @throws NullArgumentException if an argument is {@code null}
+     * @throws NotStrictlyPositiveException if {@code x} is empty or {@code
+     * chunkSize} is not strictly positive
+     * @see #parallelModel(ObservationFunction, int, int, ExecutorService)
+     * @since 3.3
+     */
+    public static MultivariateJacobianFunction parallelModel(
+            final ParametricUnivariateFunction f,
+            final double[] x,
+            final int chunkSize,
+            final ExecutorService executor
+    ) {
+        MathUtils.checkNotNull(f);
+        MathUtils.checkNotNull(x);
+        final double[] abscissae = x.clone();
+        return parallelModel(new ObservationFunction() {
+                public double value(final int observation,
+                                    final double[] point,
+                                    final double[] gradient) {
+                    final double[] g = f.gradient(abscissae[observation], point);
+                    System.arraycopy(g, 0, gradient, 0, gradient.length);
+                    return f.value(abscissae[observation], point);
+                }
+            }, abscissae.length, chunkSize, executor);
+    }
+
+    /**
+     * Evaluate a chunk of observations of a model.
+     *
+     * @param model    the model
+     * @param point    the parameters
+     * @param from     index of the first observation of the chunk
+     * @param to       index following the last observation of the chunk
+     * @param values   array where the values are stored
+     * @param jacobian array where the rows of the Jacobian are stored
+     */
+    private static void evaluateChunk(final ObservationFunction model,
+                                      final double[] point,
+                                      final int from, final int to,
+                                      final double[] values,
+                                      final double[][] jacobian) {
+        for (int i = from; i < to; ++i) {
+            values[i] = model.value(i, point, jacobian[i]);
+        }
+    }
+
+    /** Key of the evaluation cache, comparing points by value. */
+    private static class PointKey {
+
+        /** Coordinates of the point. */
+        private final double[] coordinates;
+        /** Hash code of the coordinates. */
+        private final int hash;
+
+        /**
+         * @param coordinates coordinates of the point, which are not copied
+         */
+        PointKey(final double[] coordinates) {
+            this.coordinates = coordinates;
+            this.hash = Arrays.hashCode(coordinates);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof PointKey &&
+                   Arrays.equals(coordinates, ((PointKey) other).coordinates);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+}
@@ -51,6 +51,9 @@ public interface LeastSquaresProblem extends OptimizationProblem<Evaluation> {
     /**
      * An evaluation of a {@link LeastSquaresProblem} at a particular point. This class
      * also computes several quantities derived from the value and its Jacobian.
+     * <p/>
+     * Implementations may compute these quantities once and return the same objects
+     * on later calls: the returned vectors and matrices must not be modified.
      */
     public interface Evaluation {
 
@@ -101,6 +104,10 @@ public interface LeastSquaresProblem extends OptimizationProblem<Evaluation> {
 
         /**
          * Computes the weighted Jacobian matrix.
+         * <p/>
+         * The type of the matrix depends on the model: a sparse Jacobian returned by
+         * a {@link MultivariateJacobianFunction} stays sparse when diagonal weights are
+         * applied.
          *
          * @return the weighted Jacobian: W<sup>1/2</sup> J.
          * @throws DimensionMismatchException if the Jacobian dimension does not match
@@ -80,19 +80,27 @@ class LeastSquaresProblemImpl
 
     /** {@inheritDoc} */
     public Evaluation evaluate(final RealVector point) {
+        if (model instanceof ValueAndJacobianFunction) {
+            // evaluate value and jacobian separately, when first needed
+            return new LazyUnweightedEvaluation(
+                    (ValueAndJacobianFunction) model,
+                    this.target,
+                    point.copy());
+        }
+
         //evaluate value and jacobian in one function call
         final Pair<RealVector, RealMatrix> value = this.model.value(point);
+        // the caller may modify the point after the evaluation
         return new UnweightedEvaluation(
                 value.getFirst(),
                 value.getSecond(),
                 this.target,
-                point);
+                point.copy());
     }
 
     /**
-     * Container with the model evaluation at a particular point.
-     * <p/>
-     * TODO revisit lazy evaluation
+     * Container with the model evaluation at a particular point. The residuals
+     * are computed on first use.
      */
     private static class UnweightedEvaluation extends AbstractEvaluation {
 
@@ -104,6 +112,8 @@ class LeastSquaresProblemImpl
         private final RealMatrix jacobian;
         /** reference to the observed values */
         private final RealVector target;
+        /** residuals, computed on first use */
+        private RealVector residuals;
 
         /**
          * Create an {@link Evaluation} with no weights.
@@ -140,8 +150,77 @@ class LeastSquaresProblemImpl
         }
 
         /** {@inheritDoc} */
-        public RealVector computeResiduals() {
-            return target.subtract(this.computeValue());
+        public synchronized RealVector computeResiduals() {
+            if (residuals == null) {
+                residuals = target.subtract(this.computeValue());
+            }
+            return residuals;
+        }
+
+    }
+
+    /**
+     * Container with the model evaluation at a particular point, where the values
+     * and the Jacobian are computed on first use.
+     */
+    private static class LazyUnweightedEvaluation extends AbstractEvaluation {
+
+        /** the point of evaluation */
+        private final RealVector point;
+        /** model that computes the values and the Jacobian */
+        private final ValueAndJacobianFunction model;
+        /** reference to the observed values */
+        private final RealVector target;
+        /** value at point, computed on first use */
+        private RealVector values;
+        /** derivative at point, computed on first use */
+        private RealMatrix jacobian;
+        /** residuals, computed on first use */
+        private RealVector residuals;
+
+        /**
+         * Create an {@link Evaluation} with no weights.
+         *
+         * @param model  the model function
+         * @param target the observed values
+         * @param point  the abscissa
+         */
+        private LazyUnweightedEvaluation(final ValueAndJacobianFunction model,
+                                         final RealVector target,
+                                         final RealVector point) {
+            super(target.getDimension());
+            this.model = model;
+            this.target = target;
+            this.point = point;
+        }
+
+        /** {@inheritDoc} */
+        public synchronized RealVector computeValue() {
+            if (values == null) {
+                values = model.computeValue(point.toArray());
+            }
+            return values;
+        }
+
+        /** {@inheritDoc} */
+        public synchronized RealMatrix computeJacobian() {
+            if (jacobian == null) {
+                jacobian = model.computeJacobian(point.toArray());
+            }
+            return jacobian;
+        }
+
+        /** {@inheritDoc} */
+        public RealVector getPoint() {
+            return this.point;
+        }
+
+        /** {@inheritDoc} */
+        public synchronized RealVector computeResiduals() {
+            if (residuals == null) {
+                residuals = target.subtract(this.computeValue());
+            }
+            return residuals;
         }
 
     }
@@ -19,8 +19,12 @@ package org.apache.commons.math3.fitting.leastsquares;
 import java.util.Arrays;
 
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
 import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.exception.NotPositiveException;
 import org.apache.commons.math3.exception.ConvergenceException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.optim.ConvergenceChecker;
@@ -105,6 +109,26 @@ import org.apache.commons.math3.util.FastMath;
  * <ol></td></tr>
  * </table>
  *
+ * <p>Two extensions of the original algorithm can be enabled, both of which are
+ * disabled by default:
+ * <ul>
+ *  <li>{@link #withBroydenUpdates(int) Broyden updates}: after a successful
+ *  step, the Jacobian is not evaluated again but updated with a rank-one
+ *  Broyden correction built from the change of the residuals. The Jacobian is
+ *  evaluated again after a configurable number of updates, when a step with
+ *  the approximate Jacobian fails, and before convergence is declared by the
+ *  tolerances of this class.</li>
+ *  <li>{@link #withGeodesicAcceleration(boolean) Geodesic acceleration}: the
+ *  step is corrected with a second order term computed from the directional
+ *  second derivative of the model along the step, which is estimated by finite
+ *  differences from one additional evaluation of the residuals (see M. K.
+ *  Transtrum and J. P. Sethna, <i>Improvements to the Levenberg-Marquardt
+ *  algorithm for nonlinear least-squares minimization</i>, 2012).</li>
+ * </ul>
+ * The evaluations of the model are only saved if the model does not compute
+ * the Jacobian along with the values, i.e. if it is a
+ * {@link ValueAndJacobianFunction}.</p>
+ *
  * @version $Id$
  * @since 2.0
  */
@@ -112,6 +136,10 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
 
     /** Twice the "epsilon machine". */
     private static final double TWO_EPS = 2 * Precision.EPSILON;
+    /** Relative size of the finite difference step used by geodesic acceleration. */
+    private static final double GEODESIC_STEP = 0.1;
+    /** Maximal ratio between the acceleration and velocity norms of an accepted correction. */
+    private static final double GEODESIC_MAX_RATIO = 0.75;
 
     /* configuration parameters */
     /** Positive input variable used in determining the initial step bound. */
@@ -125,6 +153,10 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
     private final double orthoTolerance;
     /** Threshold for QR ranking. */
     private final double qrRankingThreshold;
+    /** Maximal number of Broyden updates between two Jacobian evaluations. */
+    private final int maxBroydenUpdates;
+    /** Whether geodesic acceleration is used. */
+    private final boolean geodesicAcceleration;
 
     /** Default constructor.
      * <p>
@@ -135,6 +167,8 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
      *  <li>Parameters relative tolerance: 1e-10</li>
      *  <li>Orthogonality tolerance: 1e-10</li>
      *  <li>QR ranking threshold: {@link Precision#SAFE_MIN}</li>
+     *  <li>Broyden updates: 0 (the Jacobian is evaluated at each iteration)</li>
+     *  <li>Geodesic acceleration: disabled</li>
      * </ul>
      **/
     public LevenbergMarquardtOptimizer() {
@@ -158,11 +192,37 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
             final double parRelativeTolerance,
             final double orthoTolerance,
             final double qrRankingThreshold) {
+        this(initialStepBoundFactor, costRelativeTolerance, parRelativeTolerance,
+             orthoTolerance, qrRankingThreshold, 0, false);
+    }
+
+    /**
+     * Construct an instance with all parameters specified.
+     *
+     * @param initialStepBoundFactor initial step bound factor
+     * @param costRelativeTolerance  cost relative tolerance
+     * @param parRelativeTolerance   parameters relative tolerance
+     * @param orthoTolerance         orthogonality tolerance
+     * @param qrRankingThreshold     threshold in the QR decomposition
+     * @param maxBroydenUpdates      maximal number of Broyden updates between two
+     *                               Jacobian evaluations
+     * @param geodesicAcceleration   whether geodesic acceleration is used
+     */
+    private LevenbergMarquardtOptimizer(
+            final double initialStepBoundFactor,
+            final double costRelativeTolerance,
+            final double parRelativeTolerance,
+            final double orthoTolerance,
+            final double qrRankingThreshold,
+            final int maxBroydenUpdates,
+            final boolean geodesicAcceleration) {
         this.initialStepBoundFactor = initialStepBoundFactor;
         this.costRelativeTolerance = costRelativeTolerance;
         this.parRelativeTolerance = parRelativeTolerance;
         this.orthoTolerance = orthoTolerance;
         this.qrRankingThreshold = qrRankingThreshold;
+        this.maxBroydenUpdates = maxBroydenUpdates;
+        this.geodesicAcceleration = geodesicAcceleration;
     }
 
     /**
@@ -181,7 +241,9 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                 costRelativeTolerance,
                 parRelativeTolerance,
                 orthoTolerance,
-                qrRankingThreshold);
+                qrRankingThreshold,
+                maxBroydenUpdates,
+                geodesicAcceleration);
     }
 
     /**
@@ -194,7 +256,9 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                 costRelativeTolerance,
                 parRelativeTolerance,
                 orthoTolerance,
-                qrRankingThreshold);
+                qrRankingThreshold,
+                maxBroydenUpdates,
+                geodesicAcceleration);
     }
 
     /**
@@ -208,7 +272,9 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                 costRelativeTolerance,
                 parRelativeTolerance,
                 orthoTolerance,
-                qrRankingThreshold);
+                qrRankingThreshold,
+                maxBroydenUpdates,
+                geodesicAcceleration);
     }
 
     /**
@@ -222,7 +288,9 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                 costRelativeTolerance,
                 parRelativeTolerance,
                 orthoTolerance,
-                qrRankingThreshold);
+                qrRankingThreshold,
+                maxBroydenUpdates,
+                geodesicAcceleration);
     }
 
     /**
@@ -238,7 +306,47 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                 costRelativeTolerance,
                 parRelativeTolerance,
                 orthoTolerance,
-                qrRankingThreshold);
+                qrRankingThreshold,
+                maxBroydenUpdates,
+                geodesicAcceleration);
+    }
+
+    /**
+     * @param maxBroydenUpdates Maximal number of rank-one Broyden updates of
+     * the Jacobian between two evaluations of the Jacobian. {@code 0} means
+     * that the Jacobian is evaluated at each iteration.
+     * @return a new instance.
+     * @throws NotPositiveException if {@code maxBroydenUpdates < 0}.
+     */
+    public LevenbergMarquardtOptimizer withBroydenUpdates(int maxBroydenUpdates) {
+        if (maxBroydenUpdates < 0) {
+            throw new NotPositiveException(maxBroydenUpdates);
+        }
+        return new LevenbergMarquardtOptimizer(
+                initialStepBoundFactor,
+                costRelativeTolerance,
+                parRelativeTolerance,
+                orthoTolerance,
+                qrRankingThreshold,
+                maxBroydenUpdates,
+                geodesicAcceleration);
+    }
+
+    /**
+     * @param geodesicAcceleration Whether the steps are corrected with the
+     * geodesic acceleration. Each correction costs one evaluation of the
+     * residuals.
+     * @return a new instance.
+     */
+    public LevenbergMarquardtOptimizer withGeodesicAcceleration(boolean geodesicAcceleration) {
+        return new LevenbergMarquardtOptimizer(
+                initialStepBoundFactor,
+                costRelativeTolerance,
+                parRelativeTolerance,
+                orthoTolerance,
+                qrRankingThreshold,
+                maxBroydenUpdates,
+                geodesicAcceleration);
     }
 
     /**
@@ -291,6 +399,26 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
         return qrRankingThreshold;
     }
 
+    /**
+     * Gets the value of a tuning parameter.
+     * @see #withBroydenUpdates(int)
+     *
+     * @return the parameter's value.
+     */
+    public int getBroydenUpdates() {
+        return maxBroydenUpdates;
+    }
+
+    /**
+     * Gets the value of a tuning parameter.
+     * @see #withGeodesicAcceleration(boolean)
+     *
+     * @return the parameter's value.
+     */
+    public boolean isGeodesicAcceleration() {
+        return geodesicAcceleration;
+    }
+
     /** {@inheritDoc} */
     public Optimum optimize(final LeastSquaresProblem problem) {
         //pull in relevant data from the problem as locals
@@ -321,6 +449,10 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
         double[] work1   = new double[nC];
         double[] work2   = new double[nC];
         double[] work3   = new double[nC];
+        // weighted model Jacobian, kept only if it is updated or reused
+        final boolean keepJacobian = maxBroydenUpdates > 0 || geodesicAcceleration;
+        double[][] jacobian = null;
+        int broydenUpdates = 0;
 
 
         // Evaluate the function at the starting point and calculate its norm.
@@ -332,14 +464,25 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
 
         // Outer loop.
         boolean firstIteration = true;
+        outer:
         while (true) {
             iterationCounter.incrementCount();
 
             final Evaluation previous = current;
 
             // QR decomposition of the jacobian matrix
-            final InternalData internalData
-                    = qrDecomposition(current.computeJacobian(), solvedCols);
+            final InternalData internalData;
+            if (keepJacobian) {
+                if (jacobian == null) {
+                    jacobian = current.computeJacobian().getData();
+                    broydenUpdates = 0;
+                }
+                internalData = qrDecomposition(new Array2DRowRealMatrix(jacobian, false), solvedCols);
+            } else {
+                internalData = qrDecomposition(current.computeJacobian(), solvedCols);
+            }
+            // whether the Jacobian is a Broyden approximation
+            final boolean approximate = broydenUpdates > 0;
             final double[][] weightedJacobian = internalData.weightedJacobian;
             final int[] permutation = internalData.permutation;
             final double[] diagR = internalData.diagR;
@@ -396,6 +539,11 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                 }
             }
             if (maxCosine <= orthoTolerance) {
+                if (approximate) {
+                    // check convergence again with the actual Jacobian
+                    jacobian = null;
+                    continue;
+                }
                 // Convergence has been reached.
                 return new OptimumImpl(
                         current,
@@ -417,6 +565,7 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                     oldX[pj] = currentPoint[pj];
                 }
                 final double previousCost = currentCost;
+                final double previousDelta = delta;
                 double[] tmpVec = weightedResidual;
                 weightedResidual = oldRes;
                 oldRes    = tmpVec;
@@ -436,12 +585,22 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                     lmNorm  += s * s;
                 }
                 lmNorm = FastMath.sqrt(lmNorm);
+
+                if (geodesicAcceleration && solvedCols == nC) {
+                    // the step bound and the predicted reduction still
+                    // refer to the uncorrected step
+                    accelerate(problem, evaluationCounter, jacobian,
+                               currentResiduals, oldX, lmDir, diag,
+                               lmPar, lmNorm, currentPoint);
+                }
+
                 // on the first iteration, adjust the initial step bound.
                 if (firstIteration) {
                     delta = FastMath.min(delta, lmNorm);
                 }
 
                 // Evaluate the function at x + p and calculate its norm.
+                final double[] previousResiduals = currentResiduals;
                 evaluationCounter.incrementCount();
                 current = problem.evaluate(new ArrayRealVector(currentPoint,false));
                 currentResiduals = current.computeResiduals().toArray();
@@ -504,11 +663,26 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
 
                     // tests for convergence.
                     if (checker != null && checker.converged(iterationCounter.getCount(), previous, current)) {
-                        return new OptimumImpl(current, iterationCounter.getCount(), evaluationCounter.getCount());
+                        if (!approximate) {
+                            return new OptimumImpl(current, iterationCounter.getCount(), evaluationCounter.getCount());
+                        }
+                        // check convergence again with the actual Jacobian
+                        jacobian = null;
+                    } else if (maxBroydenUpdates > 0 && solvedCols == nC) {
+                        if (broydenUpdates < maxBroydenUpdates) {
+                            broydenUpdate(jacobian, oldX, currentPoint,
+                                          previousResiduals, currentResiduals);
+                            ++broydenUpdates;
+                        } else {
+                            jacobian = null;
+                        }
+                    } else {
+                        jacobian = null;
                     }
                 } else {
                     // failed iteration, reset the previous values
                     currentCost = previousCost;
+                    currentResiduals = previousResiduals;
                     for (int j = 0; j < solvedCols; ++j) {
                         int pj = permutation[j];
                         currentPoint[pj] = oldX[pj];
@@ -520,6 +694,16 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
                     current = previous;
                 }
 
+                if (approximate) {
+                    // the tolerances below are only checked with the actual
+                    // Jacobian, which is also evaluated again if the step failed
+                    if (ratio < 1.0e-4) {
+                        jacobian = null;
+                        delta = previousDelta;
+                    }
+                    continue outer;
+                }
+
                 // Default convergence criteria.
                 if ((FastMath.abs(actRed) <= costRelativeTolerance &&
                      preRed <= costRelativeTolerance &&
@@ -545,6 +729,152 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
         }
     }
 
+    /**
+     * Apply a rank-one Broyden update to the Jacobian after a step.
+     * The update is {@code J += (df - J s) s^T / (s^T s)} where {@code s} is
+     * the step and {@code df} the change of the weighted model values.
+     *
+     * @param jacobian weighted model Jacobian, updated in place
+     * @param oldX point before the step
+     * @param newX point after the step
+     * @param oldResiduals weighted residuals before the step
+     * @param newResiduals weighted residuals after the step
+     */
+    private static void broydenUpdate(final double[][] jacobian,
+                                      final double[] oldX, final double[] newX,
+                                      final double[] oldResiduals,
+                                      final double[] newResiduals) {
+        final int nC = oldX.length;
+        final double[] step = new double[nC];
+        double step2 = 0;
+        for (int j = 0; j < nC; ++j) {
+            step[j] = newX[j] - oldX[j];
+            step2 += step[j] * step[j];
+        }
+        if (step2 == 0) {
+            return;
+        }
+        for (int i = 0; i < jacobian.length; ++i) {
+            final double[] row = jacobian[i];
+            // the residuals are target - model, so the model changed by old - new
+            double delta = oldResiduals[i] - newResiduals[i];
+            for (int j = 0; j < nC; ++j) {
+                delta -= row[j] * step[j];
+            }
+            final double factor = delta / step2;
+            for (int j = 0; j < nC; ++j) {
+                row[j] += factor * step[j];
+            }
+        }
+    }
+
+    /**
+     * Correct a step with the geodesic acceleration. The directional second
+     * derivative of the model along the step {@code v} is estimated by finite
+     * differences, the acceleration {@code a} is the solution of
+     * {@code (J^T J + lmPar D^2) a = -J^T f_vv}, and the end of the step is
+     * moved by {@code a / 2} if {@code 2 |D a| / |D v|} is small enough.
+     *
+     * @param problem the problem to evaluate
+     * @param evaluationCounter counter of the evaluations
+     * @param jacobian weighted model Jacobian at the start of the step
+     * @param residuals weighted residuals at the start of the step
+     * @param oldX start of the step
+     * @param lmDir step
+     * @param diag scaling of the parameters
+     * @param lmPar Levenberg-Marquardt parameter
+     * @param lmNorm scaled norm of the step
+     * @param currentPoint end of the step, updated in place if the correction
+     * is accepted
+     */
+    private static void accelerate(final LeastSquaresProblem problem,
+                                     final Incrementor evaluationCounter,
+                                     final double[][] jacobian,
+                                     final double[] residuals,
+                                     final double[] oldX,
+                                     final double[] lmDir,
+                                     final double[] diag,
+                                     final double lmPar,
+                                     final double lmNorm,
+                                     final double[] currentPoint) {
+        final int nR = jacobian.length;
+        final int nC = oldX.length;
+        if (lmNorm == 0) {
+            return;
+        }
+
+        // residuals at x + h v
+        final double h = GEODESIC_STEP;
+        final double[] probe = new double[nC];
+        for (int j = 0; j < nC; ++j) {
+            probe[j] = oldX[j] + h * lmDir[j];
+        }
+        evaluationCounter.incrementCount();
+        final double[] probeResiduals
+                = problem.evaluate(new ArrayRealVector(probe, false)).computeResiduals().toArray();
+
+        // g = -J^T f_vv, with f_vv = 2 / h ((f(x + h v) - f(x)) / h - J v)
+        final double[] g = new double[nC];
+        for (int i = 0; i < nR; ++i) {
+            final double[] row = jacobian[i];
+            double jv = 0;
+            for (int j = 0; j < nC; ++j) {
+                jv += row[j] * lmDir[j];
+            }
+            final double fvv = 2 / h * ((residuals[i] - probeResiduals[i]) / h - jv);
+            for (int j = 0; j < nC; ++j) {
+                g[j] -= row[j] * fvv;
+            }
+        }
+
+        // J^T J + lmPar D^2
+        final double[][] normal = new double[nC][nC];
+        for (int i = 0; i < nR; ++i) {
+            final double[] row = jacobian[i];
+            for (int k = 0; k < nC; ++k) {
+                final double rk = row[k];
+                if (rk != 0) {
+                    final double[] normalK = normal[k];
+                    for (int l = 0; l <= k; ++l) {
+                        normalK[l] += rk * row[l];
+                    }
+                }
+            }
+        }
+        for (int k = 0; k < nC; ++k) {
+            normal[k][k] += lmPar * diag[k] * diag[k];
+            for (int l = 0; l < k; ++l) {
+                normal[l][k] = normal[k][l];
+            }
+        }
+
+        final double[] a;
+        try {
+            a = new CholeskyDecomposition(new Array2DRowRealMatrix(normal, false),
+                                          CholeskyDecomposition.DEFAULT_RELATIVE_SYMMETRY_THRESHOLD,
+                                          CholeskyDecomposition.DEFAULT_ABSOLUTE_POSITIVITY_THRESHOLD)
+                    .getSolver().solve(new ArrayRealVector(g, false)).toArray();
+        } catch (NonPositiveDefiniteMatrixException e) {
+            // singular normal equations, keep the uncorrected step
+            return;
+        }
+
+        double aNorm = 0;
+        for (int j = 0; j < nC; ++j) {
+            final double s = diag[j] * a[j];
+            aNorm += s * s;
+        }
+        aNorm = FastMath.sqrt(aNorm);
+        if (!(2 * aNorm <= GEODESIC_MAX_RATIO * lmNorm)) {
+            // the second order term is too large for the expansion to be trusted
+            return;
+        }
+
+        for (int j = 0; j < nC; ++j) {
+            currentPoint[j] = oldX[j] + lmDir[j] + 0.5 * a[j];
+        }
+    }
+
     /**
      * Holds internal data.
      * This structure was created so that all optimizer fields can be "final".
@@ -935,8 +1265,14 @@ public class LevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
     private InternalData qrDecomposition(RealMatrix jacobian,
                                          int solvedCols) throws ConvergenceException {
         // Code in this class assumes that the weighted Jacobian is -(W^(1/2) J),
-        // hence the multiplication by -1.
-        final double[][] weightedJacobian = jacobian.scalarMultiply(-1).getData();
+        // hence the multiplication by -1. The decomposition is performed in
+        // place, so the negated copy is the only one made.
+        final double[][] weightedJacobian = jacobian.getData();
+        for (final double[] row : weightedJacobian) {
+            for (int j = 0; j < row.length; ++j) {
+                row[j] = -row[j];
+            }
+        }
 
         final int nR = weightedJacobian.length;
         final int nC = weightedJacobian[0].length;
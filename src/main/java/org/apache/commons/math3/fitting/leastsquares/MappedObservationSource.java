@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Observations stored in a binary file of doubles, which is mapped in memory.
+ * <p/>
+ * The file contains the records one after the other, each record being
+ * {@link #getRecordLength()} doubles in the IEEE 754 format, as written by
+ * {@link java.io.DataOutputStream#writeDouble(double)} for the default big
+ * endian byte order. The file is mapped in read-only windows of at most 2 GB,
+ * so that its contents is paged in and out by the operating system instead
+ * of being held in the heap: files much larger than the heap can be used.
+ * <p/>
+ * Instances are thread-safe, as long as the file is not modified.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class MappedObservationSource implements ObservationSource {
+
+    /** Number of bytes in a double. */
+    private static final int DOUBLE_SIZE = 8;
+
+    /** Maximal size of a mapped window, in bytes. */
+    private static final long MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    /** Number of doubles in each record. */
+    private final int recordLength;
+
+    /** Number of records. */
+    private final long size;
+
+    /** Number of records in each window (except the last one). */
+    private final int windowRecords;
+
+    /** Mapped windows. */
+    private final DoubleBuffer[] windows;
+
+    /**
+     * Map a file of big endian doubles.
+     *
+     * @param file the file to map
+     * @param recordLength number of doubles in each record
+     * @throws IOException if the file cannot be mapped
+     * @throws NotStrictlyPositiveException if {@code recordLength} is not
+     * strictly positive
+     * @throws DimensionMismatchException if the file length is not a multiple
+     * of the record size
+     */
+    public MappedObservationSource(final File file, final int recordLength)
+        throws IOException {
+        this(file, recordLength, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Map a file of doubles.
+     *
+     * @param file the file to map
+     * @param recordLength number of doubles in each record
+     * @param order byte order of the doubles in the file
+     * @throws IOException if the file cannot be mapped
+     * @throws NotStrictlyPositiveException if {@code recordLength} is not
+     * strictly positive
+     * @throws DimensionMismatchException if the file length is not a multiple
+     * of the record size
+     */
+    public MappedObservationSource(final File file, final int recordLength,
+                                   final ByteOrder order)
+        throws IOException {
+        this(file, recordLength, order, MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * Map a file of doubles with windows of a given size.
+     *
+     * @param file the file to map
+     * @param recordLength number of doubles in each record
+     * @param order byte order of the doubles in the file
+     * @param maxWindowSize maximal size of the windows, in bytes
+     * @throws IOException if the file cannot be mapped
+     * @throws NotStrictlyPositiveException if {@code recordLength} is not
+     * strictly positive, or if a window cannot hold a record
+     * @throws DimensionMismatchException if the file length is not a multiple
+     * of the record size
+     */
+    MappedObservationSource(final File file, final int recordLength,
+                            final ByteOrder order, final long maxWindowSize)
+        throws IOException {
+        MathUtils.checkNotNull(file);
+        MathUtils.checkNotNull(order);
+        if (recordLength <= 0) {
+            throw new NotStrictlyPositiveException(recordLength);
+        }
+        final long recordSize = (long) recordLength * DOUBLE_SIZE;
+        windowRecords = (int) (maxWindowSize / recordSize);
+        if (windowRecords <= 0) {
+            throw new NotStrictlyPositiveException(windowRecords);
+        }
+        final long length = file.length();
+        if (length % recordSize != 0) {
+            // the record size fits in an int, as a window can hold a record
+            throw new DimensionMismatchException(LocalizedFormats.INCOMPLETE_LAST_RECORD,
+                                                 (int) (length % recordSize), (int) recordSize);
+        }
+
+        this.recordLength = recordLength;
+        this.size = length / recordSize;
+        this.windows = new DoubleBuffer[(int) ((size + windowRecords - 1) / windowRecords)];
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // the mappings remain valid once the channel is closed
+            final FileChannel channel = raf.getChannel();
+            for (int w = 0; w < windows.length; ++w) {
+                final long first = (long) w * windowRecords;
+                final long records = FastMath.min(windowRecords, size - first);
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                         first * recordSize,
+                                         records * recordSize).order(order).asDoubleBuffer();
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    /** {@inheritDoc} */
+    public long getObservationSize() {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    public void read(final long first, final int count, final double[] buffer) {
+        if (first < 0 || first > size) {
+            throw new OutOfRangeException(first, 0, size);
+        }
+        if (count < 0 || count > size - first) {
+            throw new OutOfRangeException(first + count, 0, size);
+        }
+        if (buffer.length < count * recordLength) {
+            throw new DimensionMismatchException(buffer.length, count * recordLength);
+        }
+
+        long record = first;
+        int offset = 0;
+        int remaining = count;
+        while (remaining > 0) {
+            // the windows share their content but not their positions
+            final DoubleBuffer window = windows[(int) (record / windowRecords)].duplicate();
+            final int start = (int) (record % windowRecords);
+            final int n = FastMath.min(remaining, windowRecords - start);
+            window.position(start * recordLength);
+            window.get(buffer, offset, n * recordLength);
+            record += n;
+            offset += n * recordLength;
+            remaining -= n;
+        }
+    }
+
+}
@@ -14,6 +14,12 @@ public interface MultivariateJacobianFunction {
 
     /**
      * Compute the function value and its Jacobian.
+     * <p/>
+     * The Jacobian of a model where each value only depends on a few parameters
+     * can be returned as a {@link org.apache.commons.math3.linear.CompressedRowRealMatrix
+     * CompressedRowRealMatrix}: the memory used then scales with the number of
+     * non-zero derivatives, and {@link SparseLevenbergMarquardtOptimizer} never
+     * builds a dense copy of it.
      *
      * @param point the abscissae
      * @return the values and their Jacobian of this vector valued function.
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+/**
+ * A model whose values can be computed one observation at a time, together
+ * with the corresponding row of the Jacobian.
+ * <p/>
+ * Observations being independent of each other, such a model can be
+ * evaluated by several threads at the same time, see {@link
+ * LeastSquaresFactory#parallelModel(ObservationFunction, int, int,
+ * java.util.concurrent.ExecutorService)}. Implementations must therefore be
+ * thread-safe.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public interface ObservationFunction {
+
+    /**
+     * Compute the model value of one observation and its gradient.
+     *
+     * @param observation index of the observation
+     * @param point the parameters, which must not be modified
+     * @param gradient array where the partial derivatives of the value with
+     * respect to each parameter must be stored, of the same length as
+     * {@code point}
+     * @return the model value of the observation
+     */
+    double value(int observation, double[] point, double[] gradient);
+
+}
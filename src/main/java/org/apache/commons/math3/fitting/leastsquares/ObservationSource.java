@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+/**
+ * Random access to a sequence of observations that may not fit in memory.
+ * <p/>
+ * Each observation is a record of {@link #getRecordLength()} doubles, whose
+ * meaning is left to the {@link StreamingModel model} that reads it: typically
+ * the abscissae of the observation followed by the observed value.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public interface ObservationSource {
+
+    /**
+     * Get the number of doubles in each record.
+     *
+     * @return the length of the records.
+     */
+    int getRecordLength();
+
+    /**
+     * Get the number of observations.
+     *
+     * @return the number of records.
+     */
+    long getObservationSize();
+
+    /**
+     * Copy consecutive records into a buffer.
+     *
+     * @param first  index of the first record to copy
+     * @param count  number of records to copy
+     * @param buffer array where the records are stored one after the other,
+     *               starting at index 0
+     * @throws org.apache.commons.math3.exception.OutOfRangeException if the
+     * records are not all in the source
+     * @throws org.apache.commons.math3.exception.DimensionMismatchException if
+     * the buffer is too small
+     */
+    void read(long first, int count, double[] buffer);
+
+}
@@ -0,0 +1,490 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CompressedRowRealMatrix;
+import org.apache.commons.math3.linear.DefaultRealMatrixPreservingVisitor;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.optim.ConvergenceChecker;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Incrementor;
+
+/**
+ * Levenberg-Marquardt least-squares solver for problems with a large, sparse
+ * Jacobian.
+ * <p>
+ * At each iteration, the damped linear least-squares problem
+ * <pre>
+ *   min ||J dx - r||<sup>2</sup> + &mu; ||D dx||<sup>2</sup>
+ * </pre>
+ * where {@code D} holds the norms of the columns of the Jacobian, is solved
+ * with the LSQR algorithm of C. C. Paige and M. A. Saunders (<i>LSQR: An
+ * Algorithm for Sparse Linear Equations and Sparse Least Squares</i>, ACM
+ * Transactions on Mathematical Software 8(1), 1982). LSQR only accesses the
+ * Jacobian through its {@link RealMatrix#operate(double[]) operate} and
+ * {@link RealMatrix#preMultiply(double[]) preMultiply} methods: neither the
+ * normal matrix nor a dense copy of the Jacobian is ever built, so that the
+ * memory used scales with the number of non-zero entries of a Jacobian
+ * returned as a {@link CompressedRowRealMatrix}.
+ * </p>
+ * <p>
+ * The damping parameter is &mu; = &lambda; ||r|| / ||r<sub>0</sub>||, where
+ * {@code r0} are the residuals at the start point, so that it vanishes on
+ * zero-residual problems (J. Fan and Y. Yuan, <i>On the Quadratic Convergence
+ * of the Levenberg-Marquardt Method without Nonsingularity Assumption</i>,
+ * Computing 74(1), 2005). The factor &lambda; is updated as proposed by
+ * H. B. Nielsen (<i>Damping Parameter in Marquardt's Method</i>,
+ * IMM-REP-1999-05, Technical University of Denmark, 1999) from the ratio of
+ * the actual and predicted reductions of the cost. Convergence is decided by the
+ * {@link LeastSquaresProblem#getConvergenceChecker() checker} of the problem,
+ * which is required.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class SparseLevenbergMarquardtOptimizer implements LeastSquaresOptimizer {
+
+    /** Initial damping, relative to the largest diagonal entry of the scaled normal matrix. */
+    private final double initialDamping;
+    /** Relative tolerance of the LSQR iterations. */
+    private final double lsqrTolerance;
+    /** Maximal number of LSQR iterations per step (0 for twice the number of parameters). */
+    private final int maxLsqrIterations;
+
+    /**
+     * Default constructor.
+     * <p>
+     * The default values for the algorithm settings are:
+     * <ul>
+     *  <li>Initial damping: 1e-6</li>
+     *  <li>LSQR tolerance: 1e-12</li>
+     *  <li>Maximal number of LSQR iterations: twice the number of parameters</li>
+     * </ul>
+     */
+    public SparseLevenbergMarquardtOptimizer() {
+        this(1e-6, 1e-12, 0);
+    }
+
+    /**
+     * Construct an instance with all parameters specified.
+     *
+     * @param initialDamping    initial damping, relative to the largest diagonal
+     *                          entry of the scaled normal matrix
+     * @param lsqrTolerance     relative tolerance of the LSQR iterations
+     * @param maxLsqrIterations maximal number of LSQR iterations per step, or 0 for
+     *                          twice the number of parameters
+     * @throws NotStrictlyPositiveException if {@code initialDamping} or
+     * {@code lsqrTolerance} is not strictly positive (or is NaN)
+     * @throws NotPositiveException if {@code maxLsqrIterations < 0}
+     */
+    public SparseLevenbergMarquardtOptimizer(final double initialDamping,
+                                             final double lsqrTolerance,
+                                             final int maxLsqrIterations) {
+        if (!(initialDamping > 0)) {
+            throw new NotStrictlyPositiveException(initialDamping);
+        }
+        if (!(lsqrTolerance > 0)) {
+            throw new NotStrictlyPositiveException(lsqrTolerance);
+        }
+        if (maxLsqrIterations < 0) {
+            throw new NotPositiveException(maxLsqrIterations);
+        }
+        this.initialDamping = initialDamping;
+        this.lsqrTolerance = lsqrTolerance;
+        this.maxLsqrIterations = maxLsqrIterations;
+    }
+
+    /**
+     * @param initialDamping Initial damping parameter, relative to the largest
+     * diagonal entry of the scaled normal matrix. Small values make the first
+     * steps close to Gauss-Newton steps, large values close to short gradient
+     * steps.
+     * @return a new instance.
+     * @throws NotStrictlyPositiveException if {@code initialDamping} is not
+     * strictly positive (or is NaN)
+     */
+    public SparseLevenbergMarquardtOptimizer withInitialDamping(double initialDamping) {
+        return new SparseLevenbergMarquardtOptimizer(
+                initialDamping,
+                lsqrTolerance,
+                maxLsqrIterations);
+    }
+
+    /**
+     * @param lsqrTolerance Relative tolerance of the LSQR iterations that compute
+     * each step. Larger values give cheaper but less accurate steps.
+     * @return a new instance.
+     * @throws NotStrictlyPositiveException if {@code lsqrTolerance} is not
+     * strictly positive (or is NaN)
+     */
+    public SparseLevenbergMarquardtOptimizer withLsqrTolerance(double lsqrTolerance) {
+        return new SparseLevenbergMarquardtOptimizer(
+                initialDamping,
+                lsqrTolerance,
+                maxLsqrIterations);
+    }
+
+    /**
+     * @param maxLsqrIterations Maximal number of LSQR iterations per step, or 0
+     * to use twice the number of parameters.
+     * @return a new instance.
+     * @throws NotPositiveException if {@code maxLsqrIterations < 0}
+     */
+    public SparseLevenbergMarquardtOptimizer withMaxLsqrIterations(int maxLsqrIterations) {
+        return new SparseLevenbergMarquardtOptimizer(
+                initialDamping,
+                lsqrTolerance,
+                maxLsqrIterations);
+    }
+
+    /**
+     * Gets the value of a tuning parameter.
+     * @see #withInitialDamping(double)
+     *
+     * @return the parameter's value.
+     */
+    public double getInitialDamping() {
+        return initialDamping;
+    }
+
+    /**
+     * Gets the value of a tuning parameter.
+     * @see #withLsqrTolerance(double)
+     *
+     * @return the parameter's value.
+     */
+    public double getLsqrTolerance() {
+        return lsqrTolerance;
+    }
+
+    /**
+     * Gets the value of a tuning parameter.
+     * @see #withMaxLsqrIterations(int)
+     *
+     * @return the parameter's value.
+     */
+    public int getMaxLsqrIterations() {
+        return maxLsqrIterations;
+    }
+
+    /** {@inheritDoc} */
+    public Optimum optimize(final LeastSquaresProblem problem) {
+        final Incrementor iterationCounter = problem.getIterationCounter();
+        final Incrementor evaluationCounter = problem.getEvaluationCounter();
+        final ConvergenceChecker<Evaluation> checker
+                = problem.getConvergenceChecker();
+
+        // Computation will be useless without a checker.
+        if (checker == null) {
+            throw new NullArgumentException();
+        }
+
+        final int nC = problem.getParameterSize();
+        final int maxInner = maxLsqrIterations > 0 ? maxLsqrIterations : 2 * nC;
+        final double[] diag = new double[nC];
+
+        evaluationCounter.incrementCount();
+        Evaluation current = problem.evaluate(problem.getStart());
+        double currentCost = current.computeCost();
+
+        final double initialCost = currentCost;
+        double lambda = -1;
+        double nu = 2;
+        while (true) {
+            iterationCounter.incrementCount();
+
+            final RealMatrix jacobian = current.computeJacobian();
+            final double[] residuals = current.computeResiduals().toArray();
+
+            // scaling: largest norm seen so far for each column
+            final double[] norms = columnNorms(jacobian);
+            double maxScaledDiag = 0;
+            for (int j = 0; j < nC; ++j) {
+                if (norms[j] > diag[j]) {
+                    diag[j] = norms[j];
+                }
+                if (diag[j] == 0) {
+                    diag[j] = 1;
+                }
+                final double s = norms[j] / diag[j];
+                maxScaledDiag = FastMath.max(maxScaledDiag, s * s);
+            }
+            if (lambda < 0) {
+                lambda = initialDamping * (maxScaledDiag == 0 ? 1 : maxScaledDiag);
+            }
+
+            // try steps until the cost decreases
+            while (true) {
+                // the damping vanishes with the residuals, which gives a
+                // superlinear convergence on zero-residual problems
+                final double mu = initialCost == 0 ? 0 : lambda * currentCost / initialCost;
+                final double[] step = lsqr(jacobian, diag, residuals,
+                                           FastMath.sqrt(mu), maxInner);
+                final double[] jStep = jacobian.operate(step);
+                double predicted = 0;
+                for (int i = 0; i < residuals.length; ++i) {
+                    final double ri = residuals[i];
+                    final double ei = ri - jStep[i];
+                    predicted += (ri - ei) * (ri + ei);
+                }
+                if (!(predicted > 0)) {
+                    // no descent direction left: stationary point
+                    return new OptimumImpl(current,
+                                           evaluationCounter.getCount(),
+                                           iterationCounter.getCount());
+                }
+
+                final double[] point = current.getPoint().toArray();
+                for (int j = 0; j < nC; ++j) {
+                    point[j] += step[j];
+                }
+                evaluationCounter.incrementCount();
+                final Evaluation trial = problem.evaluate(new ArrayRealVector(point, false));
+                final double trialCost = trial.computeCost();
+                final double rho = (currentCost - trialCost) * (currentCost + trialCost) /
+                                   predicted;
+
+                if (rho > 0) {
+                    // accept the step
+                    final double t = 2 * rho - 1;
+                    lambda *= FastMath.max(1.0 / 3.0, 1 - t * t * t);
+                    nu = 2;
+                    final Evaluation previous = current;
+                    current = trial;
+                    currentCost = trialCost;
+                    if (checker.converged(iterationCounter.getCount(), previous, current)) {
+                        return new OptimumImpl(current,
+                                               evaluationCounter.getCount(),
+                                               iterationCounter.getCount());
+                    }
+                    break;
+                }
+
+                // reject the step and increase the damping
+                lambda *= nu;
+                nu *= 2;
+            }
+        }
+    }
+
+    /**
+     * Computes the Euclidean norms of the columns of a matrix. Only the
+     * stored entries of a {@link CompressedRowRealMatrix} are visited.
+     *
+     * @param m the matrix.
+     * @return the norm of each column.
+     */
+    private static double[] columnNorms(final RealMatrix m) {
+        final double[] norms = new double[m.getColumnDimension()];
+        final DefaultRealMatrixPreservingVisitor visitor =
+            new DefaultRealMatrixPreservingVisitor() {
+                @Override
+                public void visit(int row, int column, double value) {
+                    norms[column] += value * value;
+                }
+            };
+        if (m instanceof CompressedRowRealMatrix) {
+            ((CompressedRowRealMatrix) m).walkInNonZeroOrder(visitor);
+        } else {
+            m.walkInOptimizedOrder(visitor);
+        }
+        for (int j = 0; j < norms.length; ++j) {
+            norms[j] = FastMath.sqrt(norms[j]);
+        }
+        return norms;
+    }
+
+    /**
+     * Solves the damped, scaled linear least-squares problem
+     * {@code min ||J dx - r||^2 + damp^2 ||D dx||^2} with LSQR, applied to
+     * {@code A = J D^-1} and {@code y = D dx}.
+     *
+     * @param jacobian the Jacobian J.
+     * @param diag the diagonal of the scaling matrix D.
+     * @param r the right hand side (the residuals).
+     * @param damp the damping parameter.
+     * @param maxIterations the maximal number of LSQR iterations.
+     * @return the step dx.
+     */
+    private double[] lsqr(final RealMatrix jacobian,
+                          final double[] diag,
+                          final double[] r,
+                          final double damp,
+                          final int maxIterations) {
+        final int n = diag.length;
+        final double[] x = new double[n];
+
+        // bidiagonalization start: beta u = r, alpha v = A^T u
+        final double[] u = r.clone();
+        final double rNorm0 = norm(u);
+        double beta = rNorm0;
+        if (beta == 0) {
+            return x;
+        }
+        scale(u, 1 / beta);
+        final double[] v = scaledPreMultiply(jacobian, diag, u);
+        double alpha = norm(v);
+        if (alpha == 0) {
+            return x;
+        }
+        scale(v, 1 / alpha);
+
+        final double[] w = v.clone();
+        double phiBar = beta;
+        double rhoBar = alpha;
+        double aNorm2 = 0;
+        double residual2 = 0;
+        for (int k = 0; k < maxIterations; ++k) {
+            // continue the bidiagonalization
+            final double[] av = scaledOperate(jacobian, diag, v);
+            for (int i = 0; i < u.length; ++i) {
+                u[i] = av[i] - alpha * u[i];
+            }
+            beta = norm(u);
+            if (beta > 0) {
+                scale(u, 1 / beta);
+            }
+            aNorm2 += alpha * alpha + beta * beta + damp * damp;
+            final double[] atu = scaledPreMultiply(jacobian, diag, u);
+            for (int j = 0; j < n; ++j) {
+                v[j] = atu[j] - beta * v[j];
+            }
+            alpha = norm(v);
+            if (alpha > 0) {
+                scale(v, 1 / alpha);
+            }
+
+            // eliminate the damping parameter
+            final double rhoBar1 = FastMath.hypot(rhoBar, damp);
+            final double c1 = rhoBar / rhoBar1;
+            final double s1 = damp / rhoBar1;
+            final double psi = s1 * phiBar;
+            phiBar = c1 * phiBar;
+
+            // eliminate the subdiagonal element beta
+            final double rho = FastMath.hypot(rhoBar1, beta);
+            if (rho == 0) {
+                break;
+            }
+            final double c = rhoBar1 / rho;
+            final double s = beta / rho;
+            final double theta = s * alpha;
+            rhoBar = -c * alpha;
+            final double phi = c * phiBar;
+            phiBar = s * phiBar;
+
+            // update the solution and the search direction
+            final double t1 = phi / rho;
+            final double t2 = -theta / rho;
+            for (int j = 0; j < n; ++j) {
+                x[j] += t1 * w[j];
+                w[j] = v[j] + t2 * w[j];
+            }
+
+            // stopping criteria: small residual, or small normal equations residual
+            residual2 += psi * psi;
+            final double rNorm = FastMath.sqrt(phiBar * phiBar + residual2);
+            final double arNorm = alpha * FastMath.abs(s * phi);
+            if (rNorm <= lsqrTolerance * rNorm0 ||
+                arNorm <= lsqrTolerance * FastMath.sqrt(aNorm2) * rNorm ||
+                alpha == 0) {
+                break;
+            }
+        }
+
+        // back to the unscaled variables
+        for (int j = 0; j < n; ++j) {
+            x[j] /= diag[j];
+        }
+        return x;
+    }
+
+    /**
+     * Computes {@code J D^-1 v}.
+     *
+     * @param jacobian the Jacobian J.
+     * @param diag the diagonal of D.
+     * @param v the vector.
+     * @return the product.
+     */
+    private static double[] scaledOperate(final RealMatrix jacobian,
+                                          final double[] diag,
+                                          final double[] v) {
+        final double[] scaled = new double[v.length];
+        for (int j = 0; j < v.length; ++j) {
+            scaled[j] = v[j] / diag[j];
+        }
+        return jacobian.operate(scaled);
+    }
+
+    /**
+     * Computes {@code D^-1 J^T u}.
+     *
+     * @param jacobian the Jacobian J.
+     * @param diag the diagonal of D.
+     * @param u the vector.
+     * @return the product.
+     */
+    private static double[] scaledPreMultiply(final RealMatrix jacobian,
+                                              final double[] diag,
+                                              final double[] u) {
+        final double[] product = jacobian.preMultiply(u);
+        for (int j = 0; j < product.length; ++j) {
+            product[j] /= diag[j];
+        }
+        return product;
+    }
+
+    /**
+     * @param a a vector.
+     * @return the Euclidean norm of {@code a}.
+     */
+    private static double norm(final double[] a) {
+        double sum = 0;
+        for (int i = 0; i < a.length; ++i) {
+            sum += a[i] * a[i];
+        }
+        return FastMath.sqrt(sum);
+    }
+
+    /**
+     * Multiplies a vector in place.
+     *
+     * @param a the vector.
+     * @param factor the factor.
+     */
+    private static void scale(final double[] a, final double factor) {
+        for (int i = 0; i < a.length; ++i) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SparseLevenbergMarquardtOptimizer{" +
+                "initialDamping=" + initialDamping +
+                ", lsqrTolerance=" + lsqrTolerance +
+                ", maxLsqrIterations=" + maxLsqrIterations +
+                '}';
+    }
+}
@@ -0,0 +1,664 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.fitting.leastsquares.StreamingLeastSquaresProblem.BlockVisitor;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.linear.QRDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.ConvergenceChecker;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Incrementor;
+
+/**
+ * Damped Gauss-Newton solver for {@link StreamingLeastSquaresProblem streaming}
+ * least squares problems.
+ * <p/>
+ * Each evaluation of the problem is a single pass over the blocks of rows,
+ * which are reduced on the fly to an n&times;n system: the memory used only
+ * depends on the number n of parameters, not on the number of observations.
+ * Two reductions are available, see {@link Accumulation}.
+ * <p/>
+ * The steps are damped in the Levenberg-Marquardt fashion: the diagonal of the
+ * normal matrix is multiplied by {@code 1 + lambda}, {@code lambda} being
+ * divided by 10 after each step that decreases the cost and multiplied by 10
+ * after each step that is rejected. With a zero initial damping, the first
+ * steps are plain Gauss-Newton steps. Each trial step costs one pass over the
+ * observations.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class StreamingLeastSquaresOptimizer {
+
+    /** Reduction of the rows of the Jacobian to an n&times;n system. */
+    public static enum Accumulation {
+        /**
+         * Accumulate J<sup>T</sup>J and J<sup>T</sup>r, and solve the damped
+         * normal equations with a {@link CholeskyDecomposition}. This is the
+         * fastest option, but it squares the condition number of the problem.
+         */
+        NORMAL_EQUATIONS,
+        /**
+         * Maintain the triangular factor R of the QR decomposition of J and
+         * Q<sup>T</sup>r, updated by Givens rotations for each row. This costs
+         * about four times as many operations as {@link #NORMAL_EQUATIONS}, but
+         * it does not square the condition number of the problem.
+         */
+        QR
+    }
+
+    /** Damping used after a rejected step when the damping was zero. */
+    private static final double MIN_DAMPING = 1e-3;
+
+    /** Factor applied to the damping after each step. */
+    private static final double DAMPING_FACTOR = 10;
+
+    /** Reduction of the rows. */
+    private final Accumulation accumulation;
+    /** Damping of the first step. */
+    private final double initialDamping;
+
+    /**
+     * Creates an optimizer that accumulates the normal equations, with an
+     * initial damping of 10<sup>-3</sup>.
+     */
+    public StreamingLeastSquaresOptimizer() {
+        this(Accumulation.NORMAL_EQUATIONS, MIN_DAMPING);
+    }
+
+    /**
+     * @param accumulation reduction of the rows of the Jacobian
+     * @param initialDamping damping of the first step
+     */
+    private StreamingLeastSquaresOptimizer(final Accumulation accumulation,
+                                           final double initialDamping) {
+        this.accumulation = accumulation;
+        this.initialDamping = initialDamping;
+    }
+
+    /**
+     * @param newAccumulation reduction of the rows of the Jacobian
+     * @return a new instance.
+     */
+    public StreamingLeastSquaresOptimizer withAccumulation(final Accumulation newAccumulation) {
+        if (newAccumulation == null) {
+            throw new NullArgumentException();
+        }
+        return new StreamingLeastSquaresOptimizer(newAccumulation, initialDamping);
+    }
+
+    /**
+     * @param newInitialDamping damping of the first step, zero for a plain
+     * Gauss-Newton step
+     * @return a new instance.
+     * @throws NotPositiveException if {@code newInitialDamping < 0}
+     */
+    public StreamingLeastSquaresOptimizer withInitialDamping(final double newInitialDamping) {
+        if (newInitialDamping < 0) {
+            throw new NotPositiveException(newInitialDamping);
+        }
+        return new StreamingLeastSquaresOptimizer(accumulation, newInitialDamping);
+    }
+
+    /**
+     * Gets the reduction of the rows of the Jacobian.
+     *
+     * @return the reduction of the rows of the Jacobian.
+     */
+    public Accumulation getAccumulation() {
+        return accumulation;
+    }
+
+    /**
+     * Gets the damping of the first step.
+     *
+     * @return the damping of the first step.
+     */
+    public double getInitialDamping() {
+        return initialDamping;
+    }
+
+    /**
+     * Solve the non-linear least squares problem.
+     *
+     * @param problem the problem definition, including model function and
+     *                convergence criteria.
+     * @return the optimum.
+     * @throws NullArgumentException if the problem has no convergence checker.
+     * @throws org.apache.commons.math3.exception.TooManyEvaluationsException
+     * if the maximal number of evaluations is exceeded.
+     * @throws org.apache.commons.math3.exception.TooManyIterationsException
+     * if the maximal number of iterations is exceeded.
+     */
+    public Optimum optimize(final StreamingLeastSquaresProblem problem) {
+        final Incrementor evaluationCounter = problem.getEvaluationCounter();
+        final Incrementor iterationCounter = problem.getIterationCounter();
+        final ConvergenceChecker<PointValuePair> checker = problem.getConvergenceChecker();
+
+        // Computation will be useless without a checker (see "for-loop").
+        if (checker == null) {
+            throw new NullArgumentException();
+        }
+
+        final int nC = problem.getParameterSize();
+        double[] point = problem.getStart().toArray();
+
+        Accumulator current = createAccumulator(nC);
+        Accumulator trial = createAccumulator(nC);
+        evaluationCounter.incrementCount();
+        current.accumulate(problem, point);
+
+        double lambda = initialDamping;
+        while (true) {
+            iterationCounter.incrementCount();
+
+            // look for a step that does not increase the cost
+            double[] trialPoint = null;
+            while (trialPoint == null) {
+                final double[] step = current.solve(lambda);
+                if (step != null) {
+                    final double[] candidate = new double[nC];
+                    for (int j = 0; j < nC; ++j) {
+                        candidate[j] = point[j] + step[j];
+                    }
+                    evaluationCounter.incrementCount();
+                    trial.accumulate(problem, candidate);
+                    if (trial.getSumOfSquares() <= current.getSumOfSquares()) {
+                        trialPoint = candidate;
+                    }
+                }
+                if (trialPoint == null) {
+                    lambda = lambda == 0 ? MIN_DAMPING : lambda * DAMPING_FACTOR;
+                } else {
+                    lambda /= DAMPING_FACTOR;
+                }
+            }
+
+            final PointValuePair previous = new PointValuePair(point, current.getCost(), false);
+            final PointValuePair next = new PointValuePair(trialPoint, trial.getCost(), false);
+            point = trialPoint;
+            final Accumulator tmp = current;
+            current = trial;
+            trial = tmp;
+
+            if (checker.converged(iterationCounter.getCount(), previous, next)) {
+                return new Optimum(point, current,
+                                   evaluationCounter.getCount(),
+                                   iterationCounter.getCount());
+            }
+        }
+    }
+
+    /**
+     * @param nC number of parameters
+     * @return a new accumulator for the configured reduction
+     */
+    private Accumulator createAccumulator(final int nC) {
+        return accumulation == Accumulation.QR ?
+               new QRAccumulator(nC) :
+               new NormalEquationsAccumulator(nC);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "StreamingLeastSquaresOptimizer{" +
+                "accumulation=" + accumulation +
+                ", initialDamping=" + initialDamping +
+                '}';
+    }
+
+    /**
+     * Result of a {@link StreamingLeastSquaresOptimizer}. Only the n&times;n
+     * reduction of the Jacobian at the optimum is kept, from which the
+     * covariances are computed.
+     */
+    public static class Optimum {
+
+        /** Optimal parameters. */
+        private final double[] point;
+        /** Reduction of the rows at the optimum. */
+        private final Accumulator accumulator;
+        /** Number of evaluations. */
+        private final int evaluations;
+        /** Number of iterations. */
+        private final int iterations;
+
+        /**
+         * @param point optimal parameters
+         * @param accumulator reduction of the rows at the optimum
+         * @param evaluations number of evaluations
+         * @param iterations number of iterations
+         */
+        private Optimum(final double[] point, final Accumulator accumulator,
+                        final int evaluations, final int iterations) {
+            this.point = point;
+            this.accumulator = accumulator;
+            this.evaluations = evaluations;
+            this.iterations = iterations;
+        }
+
+        /**
+         * Get the optimal parameters.
+         *
+         * @return the optimal parameters.
+         */
+        public RealVector getPoint() {
+            return new ArrayRealVector(point);
+        }
+
+        /**
+         * Get the cost, i.e. the Euclidean norm of the residuals.
+         *
+         * @return the cost.
+         */
+        public double computeCost() {
+            return accumulator.getCost();
+        }
+
+        /**
+         * Get the normalized cost. It is the square-root of the sum of squared
+         * residuals, divided by the number of observations.
+         *
+         * @return the root mean square of the residuals.
+         */
+        public double computeRMS() {
+            return FastMath.sqrt(accumulator.getSumOfSquares() / accumulator.getRows());
+        }
+
+        /**
+         * Get the covariance matrix of the optimized parameters, i.e. the
+         * inverse of J<sup>T</sup>J at the optimum.
+         *
+         * @param threshold Singularity threshold.
+         * @return the covariance matrix.
+         * @throws org.apache.commons.math3.linear.SingularMatrixException
+         * if the covariance matrix cannot be computed (singular problem).
+         */
+        public RealMatrix computeCovariances(final double threshold) {
+            return new QRDecomposition(accumulator.getNormalMatrix(), threshold)
+                    .getSolver().getInverse();
+        }
+
+        /**
+         * Get the number of times the model was evaluated.
+         *
+         * @return the number of evaluations.
+         */
+        public int getEvaluations() {
+            return evaluations;
+        }
+
+        /**
+         * Get the number of iterations of the algorithm.
+         *
+         * @return the number of iterations.
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+    }
+
+    /** Reduction of the rows of the Jacobian and of the residuals. */
+    private abstract static class Accumulator implements BlockVisitor {
+
+        /** Number of parameters. */
+        protected final int nC;
+        /** Sum of the squared residuals. */
+        private double sumOfSquares;
+        /** Number of rows. */
+        private long rows;
+
+        /**
+         * @param nC number of parameters
+         */
+        protected Accumulator(final int nC) {
+            this.nC = nC;
+        }
+
+        /**
+         * Reduce the rows of a problem at some point, forgetting the
+         * previous rows.
+         *
+         * @param problem the problem
+         * @param point the parameters
+         */
+        public void accumulate(final StreamingLeastSquaresProblem problem,
+                               final double[] point) {
+            sumOfSquares = 0;
+            rows = 0;
+            clear();
+            problem.evaluate(new ArrayRealVector(point), this);
+        }
+
+        /** {@inheritDoc} */
+        public void visit(final double[] residuals, final double[][] jacobian,
+                          final int count) {
+            for (int i = 0; i < count; ++i) {
+                sumOfSquares += residuals[i] * residuals[i];
+                addRow(jacobian[i], residuals[i]);
+            }
+            rows += count;
+        }
+
+        /**
+         * @return the sum of the squared residuals.
+         */
+        public double getSumOfSquares() {
+            return sumOfSquares;
+        }
+
+        /**
+         * @return the Euclidean norm of the residuals.
+         */
+        public double getCost() {
+            return FastMath.sqrt(sumOfSquares);
+        }
+
+        /**
+         * @return the number of rows.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Scale of the damping of each parameter.
+         *
+         * @return the diagonal of J<sup>T</sup>J, with zeros replaced by ones.
+         */
+        protected double[] getDampingScale() {
+            final double[] scale = getNormalDiagonal();
+            for (int j = 0; j < nC; ++j) {
+                if (scale[j] == 0) {
+                    scale[j] = 1;
+                }
+            }
+            return scale;
+        }
+
+        /** Forget the rows. */
+        protected abstract void clear();
+
+        /**
+         * Reduce one row.
+         *
+         * @param row row of the Jacobian, which must not be modified
+         * @param residual residual of the row
+         */
+        protected abstract void addRow(double[] row, double residual);
+
+        /**
+         * @return the diagonal of J<sup>T</sup>J.
+         */
+        protected abstract double[] getNormalDiagonal();
+
+        /**
+         * @return J<sup>T</sup>J.
+         */
+        public abstract RealMatrix getNormalMatrix();
+
+        /**
+         * Compute the damped step.
+         *
+         * @param lambda damping
+         * @return the step, or {@code null} if the damped problem is singular
+         */
+        public abstract double[] solve(double lambda);
+
+    }
+
+    /** Accumulation of the normal equations. */
+    private static class NormalEquationsAccumulator extends Accumulator {
+
+        /** Lower triangle of J<sup>T</sup>J. */
+        private final double[][] a;
+        /** J<sup>T</sup>r. */
+        private final double[] b;
+
+        /**
+         * @param nC number of parameters
+         */
+        NormalEquationsAccumulator(final int nC) {
+            super(nC);
+            a = new double[nC][nC];
+            b = new double[nC];
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void clear() {
+            for (int k = 0; k < nC; ++k) {
+                b[k] = 0;
+                for (int l = 0; l <= k; ++l) {
+                    a[k][l] = 0;
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void addRow(final double[] row, final double residual) {
+            for (int k = 0; k < nC; ++k) {
+                final double gk = row[k];
+                if (gk == 0) {
+                    continue;
+                }
+                b[k] += gk * residual;
+                final double[] ak = a[k];
+                for (int l = 0; l <= k; ++l) {
+                    ak[l] += gk * row[l];
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected double[] getNormalDiagonal() {
+            final double[] diagonal = new double[nC];
+            for (int j = 0; j < nC; ++j) {
+                diagonal[j] = a[j][j];
+            }
+            return diagonal;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public RealMatrix getNormalMatrix() {
+            final double[][] full = new double[nC][nC];
+            for (int k = 0; k < nC; ++k) {
+                for (int l = 0; l <= k; ++l) {
+                    full[k][l] = a[k][l];
+                    full[l][k] = a[k][l];
+                }
+            }
+            return new Array2DRowRealMatrix(full, false);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double[] solve(final double lambda) {
+            final RealMatrix damped = getNormalMatrix();
+            if (lambda > 0) {
+                final double[] scale = getDampingScale();
+                for (int j = 0; j < nC; ++j) {
+                    damped.addToEntry(j, j, lambda * scale[j]);
+                }
+            }
+            try {
+                // a zero positivity threshold: a nearly singular system gives a
+                // large step, which is rejected if it increases the cost
+                final CholeskyDecomposition cholesky =
+                        new CholeskyDecomposition(damped,
+                                                  CholeskyDecomposition.DEFAULT_RELATIVE_SYMMETRY_THRESHOLD,
+                                                  0);
+                return cholesky.getSolver().solve(new ArrayRealVector(b, false)).toArray();
+            } catch (NonPositiveDefiniteMatrixException e) {
+                return null;
+            }
+        }
+
+    }
+
+    /** Incremental QR decomposition by Givens rotations. */
+    private static class QRAccumulator extends Accumulator {
+
+        /** Upper triangular factor. */
+        private final double[][] r;
+        /** Q<sup>T</sup>r, restricted to its first n components. */
+        private final double[] qtr;
+        /** Work array. */
+        private final double[] work;
+
+        /**
+         * @param nC number of parameters
+         */
+        QRAccumulator(final int nC) {
+            super(nC);
+            r = new double[nC][nC];
+            qtr = new double[nC];
+            work = new double[nC];
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void clear() {
+            for (int k = 0; k < nC; ++k) {
+                qtr[k] = 0;
+                for (int l = k; l < nC; ++l) {
+                    r[k][l] = 0;
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void addRow(final double[] row, final double residual) {
+            System.arraycopy(row, 0, work, 0, nC);
+            rotate(r, qtr, work, residual, 0);
+        }
+
+        /**
+         * Rotate a row into a triangular factor.
+         *
+         * @param factor triangular factor, updated in place
+         * @param rhs right-hand side associated with the factor, updated in place
+         * @param row row to rotate in, destroyed
+         * @param rowRhs right-hand side associated with the row
+         * @param first index of the first non-zero entry of the row
+         */
+        private void rotate(final double[][] factor, final double[] rhs,
+                            final double[] row, final double rowRhs,
+                            final int first) {
+            double w = rowRhs;
+            for (int j = first; j < nC; ++j) {
+                final double wj = row[j];
+                if (wj == 0) {
+                    continue;
+                }
+                final double[] fj = factor[j];
+                final double rjj = fj[j];
+                final double h = FastMath.sqrt(rjj * rjj + wj * wj);
+                final double c = rjj / h;
+                final double s = wj / h;
+                fj[j] = h;
+                for (int l = j + 1; l < nC; ++l) {
+                    final double t = fj[l];
+                    fj[l] = c * t + s * row[l];
+                    row[l] = c * row[l] - s * t;
+                }
+                final double t = rhs[j];
+                rhs[j] = c * t + s * w;
+                w = c * w - s * t;
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected double[] getNormalDiagonal() {
+            final double[] diagonal = new double[nC];
+            for (int k = 0; k < nC; ++k) {
+                for (int l = k; l < nC; ++l) {
+                    diagonal[l] += r[k][l] * r[k][l];
+                }
+            }
+            return diagonal;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public RealMatrix getNormalMatrix() {
+            final double[][] normal = new double[nC][nC];
+            for (int k = 0; k < nC; ++k) {
+                for (int l = k; l < nC; ++l) {
+                    double sum = 0;
+                    for (int i = 0; i <= k; ++i) {
+                        sum += r[i][k] * r[i][l];
+                    }
+                    normal[k][l] = sum;
+                    normal[l][k] = sum;
+                }
+            }
+            return new Array2DRowRealMatrix(normal, false);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public double[] solve(final double lambda) {
+            final double[][] factor = new double[nC][];
+            for (int k = 0; k < nC; ++k) {
+                factor[k] = r[k].clone();
+            }
+            final double[] x = qtr.clone();
+
+            if (lambda > 0) {
+                // rotate the damping rows into a copy of the factor
+                final double[] scale = getDampingScale();
+                for (int j = 0; j < nC; ++j) {
+                    final double[] row = new double[nC];
+                    row[j] = FastMath.sqrt(lambda * scale[j]);
+                    rotate(factor, x, row, 0, j);
+                }
+            }
+
+            // back substitution
+            for (int k = nC - 1; k >= 0; --k) {
+                final double[] fk = factor[k];
+                if (fk[k] == 0) {
+                    return null;
+                }
+                double sum = x[k];
+                for (int l = k + 1; l < nC; ++l) {
+                    sum -= fk[l] * x[l];
+                }
+                x[k] = sum / fk[k];
+            }
+            return x;
+        }
+
+    }
+
+}
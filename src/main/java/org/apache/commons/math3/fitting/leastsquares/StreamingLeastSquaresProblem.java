@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.PointValuePair;
+
+/**
+ * A least squares problem whose residuals and Jacobian are produced one block
+ * of rows at a time, so that neither is ever held in memory in full.
+ * <p/>
+ * The convergence checker operates on the point and the cost, i.e. the
+ * Euclidean norm of the residuals.
+ *
+ * @see StreamingLeastSquaresOptimizer
+ * @version $Id$
+ * @since 3.3
+ */
+public interface StreamingLeastSquaresProblem extends OptimizationProblem<PointValuePair> {
+
+    /**
+     * Gets the initial guess.
+     *
+     * @return the initial guess values.
+     */
+    RealVector getStart();
+
+    /**
+     * Get the number of observations (rows in the Jacobian) in this problem.
+     *
+     * @return the number of scalar observations
+     */
+    long getObservationSize();
+
+    /**
+     * Get the number of parameters (columns in the Jacobian) in this problem.
+     *
+     * @return the number of scalar parameters
+     */
+    int getParameterSize();
+
+    /**
+     * Evaluate the model at the specified point, handing the rows of the
+     * residuals and of the Jacobian to a visitor block after block. Each row
+     * is visited exactly once.
+     *
+     * @param point   the parameter values.
+     * @param visitor the visitor receiving the blocks.
+     */
+    void evaluate(RealVector point, BlockVisitor visitor);
+
+    /**
+     * Receives consecutive blocks of rows of a {@link StreamingLeastSquaresProblem}.
+     */
+    public interface BlockVisitor {
+
+        /**
+         * Visit a block of rows. The arrays belong to the problem, which may
+         * reuse them for the next block: they must not be kept.
+         *
+         * @param residuals the residuals of the rows
+         * @param jacobian  the rows of the Jacobian of the model values
+         * @param rows      number of rows in the block, which may be less
+         *                  than the length of the arrays
+         */
+        void visit(double[] residuals, double[][] jacobian, int rows);
+
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.AbstractOptimizationProblem;
+import org.apache.commons.math3.optim.ConvergenceChecker;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * A private implementation of {@link StreamingLeastSquaresProblem} that reads
+ * blocks of records from an {@link ObservationSource}.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class StreamingLeastSquaresProblemImpl
+        extends AbstractOptimizationProblem<PointValuePair>
+        implements StreamingLeastSquaresProblem {
+
+    /** Source of the observations. */
+    private final ObservationSource source;
+    /** Model function. */
+    private final StreamingModel model;
+    /** Initial guess. */
+    private final RealVector start;
+    /** Maximal number of rows in a block. */
+    private final int blockSize;
+
+    /**
+     * Create a {@link StreamingLeastSquaresProblem} from the given data.
+     *
+     * @param source         the source of the observations
+     * @param model          the model function
+     * @param start          the initial guess
+     * @param blockSize      the maximal number of rows in a block
+     * @param checker        the convergence checker
+     * @param maxEvaluations the allowed evaluations
+     * @param maxIterations  the allowed iterations
+     */
+    StreamingLeastSquaresProblemImpl(final ObservationSource source,
+                                     final StreamingModel model,
+                                     final RealVector start,
+                                     final int blockSize,
+                                     final ConvergenceChecker<PointValuePair> checker,
+                                     final int maxEvaluations,
+                                     final int maxIterations) {
+        super(maxEvaluations, maxIterations, checker);
+        this.source = source;
+        this.model = model;
+        this.start = start;
+        this.blockSize = blockSize;
+    }
+
+    /** {@inheritDoc} */
+    public long getObservationSize() {
+        return source.getObservationSize();
+    }
+
+    /** {@inheritDoc} */
+    public int getParameterSize() {
+        return start.getDimension();
+    }
+
+    /** {@inheritDoc} */
+    public RealVector getStart() {
+        return start.copy();
+    }
+
+    /** {@inheritDoc} */
+    public void evaluate(final RealVector point, final BlockVisitor visitor) {
+        final double[] p = point.toArray();
+        final long size = source.getObservationSize();
+        final int recordLength = source.getRecordLength();
+        final int rows = (int) FastMath.min(blockSize, size);
+
+        // the buffers are allocated once and reused for all blocks
+        final double[] records = new double[rows * recordLength];
+        final double[] residuals = new double[rows];
+        final double[][] jacobian = new double[rows][p.length];
+
+        for (long first = 0; first < size; first += rows) {
+            final int count = (int) FastMath.min(rows, size - first);
+            source.read(first, count, records);
+            for (int i = 0; i < count; ++i) {
+                residuals[i] = model.residual(records, i * recordLength, p, jacobian[i]);
+            }
+            visitor.visit(residuals, jacobian, count);
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+/**
+ * Model of a {@link StreamingLeastSquaresProblem}, which computes the residual
+ * of one observation at a time from its record.
+ * <p/>
+ * Weights are not handled separately: a weighted problem is expressed by
+ * multiplying both the residual and the gradient by the square root of the
+ * weight of the observation.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public interface StreamingModel {
+
+    /**
+     * Compute the residual of one observation and the gradient of the model
+     * value.
+     *
+     * @param records  array holding the record of the observation
+     * @param offset   index of the first double of the record in {@code records}
+     * @param point    the parameters, which must not be modified
+     * @param gradient array where the partial derivatives of the model value
+     *                 with respect to each parameter must be stored, of the same
+     *                 length as {@code point}
+     * @return the residual of the observation, i.e. the observed value minus
+     * the model value
+     */
+    double residual(double[] records, int offset, double[] point, double[] gradient);
+
+}
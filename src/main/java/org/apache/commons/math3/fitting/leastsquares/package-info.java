@@ -34,6 +34,16 @@
  * The algorithms implemented in this package also require that the user
  * specifies the Jacobian matrix of the model (represented by a
  * {@link org.apache.commons.math3.analysis.MultivariateMatrixFunction
- * MultivariateMatrixFunction}).
+ * MultivariateMatrixFunction}), or that the Jacobian is approximated by
+ * {@link org.apache.commons.math3.fitting.leastsquares.FiniteDifferenceScheme
+ * finite differences} of the model values.
+ * <br/>
+ * When the observations do not fit in memory, a
+ * {@link org.apache.commons.math3.fitting.leastsquares.StreamingLeastSquaresProblem
+ * streaming problem} reads them from an
+ * {@link org.apache.commons.math3.fitting.leastsquares.ObservationSource
+ * ObservationSource}, such as a memory-mapped file, and the
+ * {@link org.apache.commons.math3.fitting.leastsquares.StreamingLeastSquaresOptimizer
+ * StreamingLeastSquaresOptimizer} reduces the Jacobian block after block.
  */
 package org.apache.commons.math3.fitting.leastsquares;
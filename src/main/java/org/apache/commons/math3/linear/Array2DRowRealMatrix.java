@@ -27,6 +27,7 @@ import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.MathUtils;
 
 /**
@@ -38,6 +39,10 @@ import org.apache.commons.math3.util.MathUtils;
 public class Array2DRowRealMatrix extends AbstractRealMatrix implements Serializable {
     /** Serializable version identifier. */
     private static final long serialVersionUID = -1067294169172445528L;
+    /** Number of columns of the product computed together in {@link #multiplyRows}. */
+    private static final int COLUMN_TILE = 256;
+    /** Number of terms of the sums computed together in {@link #multiplyRows}. */
+    private static final int SUM_TILE = 64;
 
     /** Entries of the matrix. */
     private double data[][];
@@ -218,34 +223,111 @@ public class Array2DRowRealMatrix extends AbstractRealMatrix implements Serializ
         throws DimensionMismatchException {
         MatrixUtils.checkMultiplicationCompatible(this, m);
 
-        final int nRows = this.getRowDimension();
-        final int nCols = m.getColumnDimension();
-        final int nSum = this.getColumnDimension();
+        final double[][] outData = new double[getRowDimension()][m.getColumnDimension()];
+        multiplyRows(m, outData, 0, outData.length);
+        return new Array2DRowRealMatrix(outData, false);
+    }
 
-        final double[][] outData = new double[nRows][nCols];
-        // Will hold a column of "m".
-        final double[] mCol = new double[nSum];
+    /**
+     * Computes a range of rows of the product of this by {@code m}.
+     * <p>
+     * The rows are independent of each other, so that disjoint ranges can be
+     * computed concurrently (see {@link ParallelMatrixMultiplier}).
+     * </p>
+     * <p>
+     * The columns of the product and the sum are split into tiles, so that
+     * the slice of {@code m} in use stays in cache. Within a tile, the
+     * innermost loop runs along a row of {@code m} and of the product, with
+     * unit stride, so that it can be vectorized by the JIT compiler; four
+     * rows of the product are updated at once, using two columns of this
+     * matrix held in local variables.
+     * </p>
+     *
+     * @param m Matrix to postmultiply by (its dimensions must be compatible).
+     * @param out Entries of the product, which are accumulated into.
+     * @param start Index of the first row to compute.
+     * @param end Index following the last row to compute.
+     */
+    void multiplyRows(final Array2DRowRealMatrix m, final double[][] out,
+                      final int start, final int end) {
         final double[][] mData = m.data;
-
-        // Multiply.
-        for (int col = 0; col < nCols; col++) {
-            // Copy all elements of column "col" of "m" so that
-            // will be in contiguous memory.
-            for (int mRow = 0; mRow < nSum; mRow++) {
-                mCol[mRow] = mData[mRow][col];
-            }
-
-            for (int row = 0; row < nRows; row++) {
-                final double[] dataRow = data[row];
-                double sum = 0;
-                for (int i = 0; i < nSum; i++) {
-                    sum += dataRow[i] * mCol[i];
+        final int nSum = mData.length;
+        final int nCols = m.getColumnDimension();
+        for (int jStart = 0; jStart < nCols; jStart += COLUMN_TILE) {
+            final int jEnd = FastMath.min(jStart + COLUMN_TILE, nCols);
+            for (int kStart = 0; kStart < nSum; kStart += SUM_TILE) {
+                final int kEnd = FastMath.min(kStart + SUM_TILE, nSum);
+                int i = start;
+                for (; i < end - 3; i += 4) {
+                    final double[] d0 = data[i];
+                    final double[] d1 = data[i + 1];
+                    final double[] d2 = data[i + 2];
+                    final double[] d3 = data[i + 3];
+                    final double[] o0 = out[i];
+                    final double[] o1 = out[i + 1];
+                    final double[] o2 = out[i + 2];
+                    final double[] o3 = out[i + 3];
+                    int k = kStart;
+                    for (; k < kEnd - 1; k += 2) {
+                        final double x00 = d0[k];
+                        final double x01 = d0[k + 1];
+                        final double x10 = d1[k];
+                        final double x11 = d1[k + 1];
+                        final double x20 = d2[k];
+                        final double x21 = d2[k + 1];
+                        final double x30 = d3[k];
+                        final double x31 = d3[k + 1];
+                        final double[] m0 = mData[k];
+                        final double[] m1 = mData[k + 1];
+                        for (int j = jStart; j < jEnd; ++j) {
+                            final double y0 = m0[j];
+                            final double y1 = m1[j];
+                            o0[j] += x00 * y0 + x01 * y1;
+                            o1[j] += x10 * y0 + x11 * y1;
+                            o2[j] += x20 * y0 + x21 * y1;
+                            o3[j] += x30 * y0 + x31 * y1;
+                        }
+                    }
+                    if (k < kEnd) {
+                        final double x00 = d0[k];
+                        final double x10 = d1[k];
+                        final double x20 = d2[k];
+                        final double x30 = d3[k];
+                        final double[] m0 = mData[k];
+                        for (int j = jStart; j < jEnd; ++j) {
+                            final double y0 = m0[j];
+                            o0[j] += x00 * y0;
+                            o1[j] += x10 * y0;
+                            o2[j] += x20 * y0;
+                            o3[j] += x30 * y0;
+                        }
+                    }
+                }
+                for (; i < end; ++i) {
+                    final double[] d0 = data[i];
+                    final double[] o0 = out[i];
+                    // same grouping of the terms as above, so that the
+                    // result does not depend on how the rows are split
+                    int k = kStart;
+                    for (; k < kEnd - 1; k += 2) {
+                        final double x00 = d0[k];
+                        final double x01 = d0[k + 1];
+                        final double[] m0 = mData[k];
+                        final double[] m1 = mData[k + 1];
+                        for (int j = jStart; j < jEnd; ++j) {
+                            o0[j] += x00 * m0[j] + x01 * m1[j];
+                        }
+                    }
+                    if (k < kEnd) {
+                        final double x00 = d0[k];
+                        final double[] m0 = mData[k];
+                        for (int j = jStart; j < jEnd; ++j) {
+                            o0[j] += x00 * m0[j];
+                        }
+                    }
                 }
-                outData[row][col] = sum;
             }
         }
-
-        return new Array2DRowRealMatrix(outData, false);
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Calculates the Cholesky decomposition of a matrix, using a blocked
+ * algorithm.
+ * <p>This class computes the same decomposition A = LL<sup>T</sup> as
+ * {@link CholeskyDecomposition}, and provides the same methods. The matrix
+ * is processed in the layout of {@link BlockRealMatrix}: once a column of
+ * blocks of L has been computed, the blocks of the trailing lower part of
+ * the matrix are updated by products of blocks, which make an efficient use
+ * of the processor caches. If an executor is provided, these updates, which
+ * account for most of the computation, are run concurrently for the
+ * different rows of blocks.</p>
+ * <p>The blocks of a {@link BlockRealMatrix} are copied as they are, other
+ * matrices are converted to this layout. The matrices returned by
+ * {@link #getL()}, {@link #getLT()} and by the solver are
+ * {@link BlockRealMatrix} instances.</p>
+ *
+ * @see CholeskyDecomposition
+ * @version $Id$
+ * @since 3.3
+ */
+public class BlockCholeskyDecomposition {
+    /** Blocks of the matrix L (the blocks above the diagonal are zero). */
+    private final double[][] blocks;
+    /** Number of rows and columns of the matrix. */
+    private final int order;
+    /** Executor of the concurrent updates (may be {@code null}). */
+    private final ExecutorService executor;
+    /** Blocks of the matrix L<sup>T</sup>, computed on first use. */
+    private double[][] ltBlocks;
+    /** Cached value of L. */
+    private RealMatrix cachedL;
+    /** Cached value of LT. */
+    private RealMatrix cachedLT;
+    /**
+     * Calculates the Cholesky decomposition of the given matrix, in the
+     * calling thread, with the {@link
+     * CholeskyDecomposition#DEFAULT_RELATIVE_SYMMETRY_THRESHOLD default
+     * relative symmetry} and {@link
+     * CholeskyDecomposition#DEFAULT_ABSOLUTE_POSITIVITY_THRESHOLD default
+     * absolute positivity} thresholds.
+     *
+     * @param matrix the matrix to decompose
+     * @throws NonSquareMatrixException if the matrix is not square.
+     * @throws NonSymmetricMatrixException if the matrix is not symmetric.
+     * @throws NonPositiveDefiniteMatrixException if the matrix is not
+     * strictly positive definite.
+     */
+    public BlockCholeskyDecomposition(final RealMatrix matrix) {
+        this(matrix, null);
+    }
+    /**
+     * Calculates the Cholesky decomposition of the given matrix, with the
+     * {@link CholeskyDecomposition#DEFAULT_RELATIVE_SYMMETRY_THRESHOLD
+     * default relative symmetry} and {@link
+     * CholeskyDecomposition#DEFAULT_ABSOLUTE_POSITIVITY_THRESHOLD default
+     * absolute positivity} thresholds.
+     *
+     * @param matrix the matrix to decompose
+     * @param executor executor of the concurrent updates, or {@code null}
+     * to compute the decomposition in the calling thread
+     * @throws NonSquareMatrixException if the matrix is not square.
+     * @throws NonSymmetricMatrixException if the matrix is not symmetric.
+     * @throws NonPositiveDefiniteMatrixException if the matrix is not
+     * strictly positive definite.
+     * @throws org.apache.commons.math3.exception.MathIllegalStateException
+     * if the thread is interrupted while waiting for the updates.
+     */
+    public BlockCholeskyDecomposition(final RealMatrix matrix,
+                                      final ExecutorService executor) {
+        this(matrix,
+             CholeskyDecomposition.DEFAULT_RELATIVE_SYMMETRY_THRESHOLD,
+             CholeskyDecomposition.DEFAULT_ABSOLUTE_POSITIVITY_THRESHOLD,
+             executor);
+    }
+
+    /**
+     * Calculates the Cholesky decomposition of the given matrix.
+     *
+     * @param matrix the matrix to decompose
+     * @param relativeSymmetryThreshold threshold above which off-diagonal
+     * elements are considered too different and matrix not symmetric
+     * @param absolutePositivityThreshold threshold below which diagonal
+     * elements are considered null and matrix not positive definite
+     * @param executor executor of the concurrent updates, or {@code null}
+     * to compute the decomposition in the calling thread
+     * @throws NonSquareMatrixException if the matrix is not square.
+     * @throws NonSymmetricMatrixException if the matrix is not symmetric.
+     * @throws NonPositiveDefiniteMatrixException if the matrix is not
+     * strictly positive definite.
+     * @throws org.apache.commons.math3.exception.MathIllegalStateException
+     * if the thread is interrupted while waiting for the updates.
+     */
+    public BlockCholeskyDecomposition(final RealMatrix matrix,
+                                      final double relativeSymmetryThreshold,
+                                      final double absolutePositivityThreshold,
+                                      final ExecutorService executor) {
+        if (!matrix.isSquare()) {
+            throw new NonSquareMatrixException(matrix.getRowDimension(),
+                                               matrix.getColumnDimension());
+        }
+
+        this.order    = matrix.getRowDimension();
+        this.executor = executor;
+        this.blocks   = BlockOperations.copyBlocks(matrix);
+        checkSymmetry(relativeSymmetryThreshold);
+        final int n = BlockOperations.blockCount(order);
+        final double[][] transposed = new double[n][];
+        for (int k = 0; k < n; ++k) {
+            final int kWidth = BlockOperations.blockSize(k, order);
+            final double[] lKK = blocks[k * n + k];
+            decomposeDiagonalBlock(k, lKK, kWidth, absolutePositivityThreshold);
+
+            // column of blocks below the diagonal: L(i,k) = A(i,k) L(k,k)^-T
+            final int kBlock = k;
+            final long remaining = order - (long) (k + 1) * BlockOperations.BLOCK_SIZE;
+            BlockOperations.forEach(executor, remaining * kWidth * kWidth, k + 1, n,
+                                    new BlockOperations.Loop() {
+                public void run(final int i) {
+                    final int iHeight = BlockOperations.blockSize(i, order);
+                    // solve L(k,k) L(i,k)^T = A(i,k)^T, one row of L(i,k)^T at a time
+                    final double[] t = BlockOperations.transpose(blocks[i * n + kBlock], iHeight, kWidth);
+                    for (int p = 0; p < kWidth; ++p) {
+                        final int row = p * iHeight;
+                        for (int q = 0; q < p; ++q) {
+                            final double lPQ = lKK[p * kWidth + q];
+                            final int source = q * iHeight;
+                            for (int c = 0; c < iHeight; ++c) {
+                                t[row + c] -= lPQ * t[source + c];
+                            }
+                        }
+                        final double inv = 1.0 / lKK[p * kWidth + p];
+                        for (int c = 0; c < iHeight; ++c) {
+                            t[row + c] *= inv;
+                        }
+                    }
+                    transposed[i] = t;
+                    blocks[i * n + kBlock] = BlockOperations.transpose(t, kWidth, iHeight);
+                }
+            });
+
+            // trailing lower part: A(i,j) -= L(i,k) L(j,k)^T, for k < j <= i
+            BlockOperations.forEach(executor, remaining * remaining * kWidth / 2, k + 1, n,
+                                    new BlockOperations.Loop() {
+                public void run(final int i) {
+                    final int iHeight = BlockOperations.blockSize(i, order);
+                    final double[] lIK = blocks[i * n + kBlock];
+                    for (int j = kBlock + 1; j <= i; ++j) {
+                        BlockOperations.multiplyAdd(lIK, transposed[j], blocks[i * n + j],
+                                                    iHeight, kWidth,
+                                                    BlockOperations.blockSize(j, order), -1);
+                    }
+                }
+            });
+        }
+        // clear the upper part
+        for (int i = 0; i < n; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                blocks[i * n + j] = new double[blocks[i * n + j].length];
+            }
+        }
+    }
+    /**
+     * Checks the symmetry of the matrix.
+     *
+     * @param relativeSymmetryThreshold threshold above which off-diagonal
+     * elements are considered too different and matrix not symmetric
+     * @throws NonSymmetricMatrixException if the matrix is not symmetric.
+     */
+    private void checkSymmetry(final double relativeSymmetryThreshold) {
+        final int n = BlockOperations.blockCount(order);
+        for (int iBlock = 0; iBlock < n; ++iBlock) {
+            final int iHeight = BlockOperations.blockSize(iBlock, order);
+            for (int jBlock = iBlock; jBlock < n; ++jBlock) {
+                final int jWidth = BlockOperations.blockSize(jBlock, order);
+                final double[] aIJ = blocks[iBlock * n + jBlock];
+                final double[] aJI = blocks[jBlock * n + iBlock];
+                for (int p = 0; p < iHeight; ++p) {
+                    // only the entries above the diagonal
+                    final int qStart = (iBlock == jBlock) ? p + 1 : 0;
+                    for (int q = qStart; q < jWidth; ++q) {
+                        final double upper = aIJ[p * jWidth + q];
+                        final double lower = aJI[q * iHeight + p];
+                        final double maxDelta =
+                            relativeSymmetryThreshold * FastMath.max(FastMath.abs(upper), FastMath.abs(lower));
+                        if (FastMath.abs(upper - lower) > maxDelta) {
+                            throw new NonSymmetricMatrixException(iBlock * BlockOperations.BLOCK_SIZE + p,
+                                                                  jBlock * BlockOperations.BLOCK_SIZE + q,
+                                                                  relativeSymmetryThreshold);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    /**
+     * Replaces a diagonal block by its Cholesky factor.
+     *
+     * @param k Index of the diagonal block.
+     * @param a Diagonal block, updated by the previous columns of blocks.
+     * @param width Number of rows and columns of the block.
+     * @param absolutePositivityThreshold threshold below which diagonal
+     * elements are considered null and matrix not positive definite
+     * @throws NonPositiveDefiniteMatrixException if the matrix is not
+     * strictly positive definite.
+     */
+    private static void decomposeDiagonalBlock(final int k, final double[] a, final int width,
+                                               final double absolutePositivityThreshold) {
+        for (int j = 0; j < width; ++j) {
+            final int rowJ = j * width;
+            double d = a[rowJ + j];
+            for (int l = 0; l < j; ++l) {
+                d -= a[rowJ + l] * a[rowJ + l];
+            }
+            if (d <= absolutePositivityThreshold) {
+                throw new NonPositiveDefiniteMatrixException(d, k * BlockOperations.BLOCK_SIZE + j,
+                                                             absolutePositivityThreshold);
+            }
+            final double lJJ = FastMath.sqrt(d);
+            a[rowJ + j] = lJJ;
+            final double inv = 1.0 / lJJ;
+            for (int i = j + 1; i < width; ++i) {
+                final int rowI = i * width;
+                double s = a[rowI + j];
+                for (int l = 0; l < j; ++l) {
+                    s -= a[rowI + l] * a[rowJ + l];
+                }
+                a[rowI + j] = s * inv;
+                a[rowJ + i] = 0;
+            }
+        }
+    }
+    /**
+     * Returns the matrix L of the decomposition.
+     * <p>L is an lower-triangular matrix</p>
+     * @return the L matrix
+     */
+    public RealMatrix getL() {
+        if (cachedL == null) {
+            cachedL = new BlockRealMatrix(order, order, BlockOperations.copy(blocks), false);
+        }
+        return cachedL;
+    }
+    /**
+     * Returns the transpose of the matrix L of the decomposition.
+     * <p>L<sup>T</sup> is an upper-triangular matrix</p>
+     * @return the transpose of the matrix L of the decomposition
+     */
+    public RealMatrix getLT() {
+        if (cachedLT == null) {
+            cachedLT = new BlockRealMatrix(order, order, BlockOperations.copy(getLTBlocks()), false);
+        }
+        return cachedLT;
+    }
+    /**
+     * @return the blocks of the matrix L<sup>T</sup>.
+     */
+    private double[][] getLTBlocks() {
+        if (ltBlocks == null) {
+            final int n = BlockOperations.blockCount(order);
+            ltBlocks = new double[n * n][];
+            for (int i = 0; i < n; ++i) {
+                final int iHeight = BlockOperations.blockSize(i, order);
+                for (int j = 0; j < n; ++j) {
+                    ltBlocks[i * n + j] = BlockOperations.transpose(blocks[j * n + i],
+                                                                    BlockOperations.blockSize(j, order),
+                                                                    iHeight);
+                }
+            }
+        }
+        return ltBlocks;
+    }
+
+    /**
+     * Return the determinant of the matrix
+     * @return determinant of the matrix
+     */
+    public double getDeterminant() {
+        final int n = BlockOperations.blockCount(order);
+        double determinant = 1.0;
+        for (int k = 0; k < n; ++k) {
+            final int width = BlockOperations.blockSize(k, order);
+            final double[] lKK = blocks[k * n + k];
+            for (int j = 0; j < width; ++j) {
+                final double lJJ = lKK[j * width + j];
+                determinant *= lJJ * lJJ;
+            }
+        }
+        return determinant;
+    }
+
+    /**
+     * Get a solver for finding the A &times; X = B solution in least square sense.
+     * <p>The columns of blocks of the right hand side are solved
+     * concurrently if an executor was provided.</p>
+     * @return a solver
+     */
+    public DecompositionSolver getSolver() {
+        return new Solver(blocks, getLTBlocks(), order, executor);
+    }
+
+    /** Specialized solver. */
+    private static class Solver implements DecompositionSolver {
+        /** Blocks of the matrix L. */
+        private final double[][] lBlocks;
+        /** Blocks of the matrix L<sup>T</sup>. */
+        private final double[][] ltBlocks;
+        /** Number of rows and columns of the matrix. */
+        private final int order;
+        /** Executor of the concurrent solutions (may be {@code null}). */
+        private final ExecutorService executor;
+        /**
+         * Build a solver from decomposed matrix.
+         * @param lBlocks blocks of the matrix L
+         * @param ltBlocks blocks of the matrix L<sup>T</sup>
+         * @param order number of rows and columns of the matrix
+         * @param executor executor of the concurrent solutions (may be {@code null})
+         */
+        private Solver(final double[][] lBlocks, final double[][] ltBlocks,
+                       final int order, final ExecutorService executor) {
+            this.lBlocks  = lBlocks;
+            this.ltBlocks = ltBlocks;
+            this.order    = order;
+            this.executor = executor;
+        }
+
+        /** {@inheritDoc} */
+        public boolean isNonSingular() {
+            // if we get this far, the matrix was positive definite, hence non-singular
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public RealVector solve(final RealVector b) {
+            final RealMatrix x = solve(MatrixUtils.createColumnRealMatrix(b.toArray()));
+            return new ArrayRealVector(x.getColumn(0), false);
+        }
+
+        /** {@inheritDoc} */
+        public RealMatrix solve(final RealMatrix b) {
+            if (b.getRowDimension() != order) {
+                throw new DimensionMismatchException(b.getRowDimension(), order);
+            }
+            final int columns = b.getColumnDimension();
+            final int cBlocks = BlockOperations.blockCount(columns);
+            final double[][] x = BlockOperations.copyBlocks(b);
+            BlockOperations.forEach(executor, (long) order * order * columns, 0, cBlocks,
+                                    new BlockOperations.Loop() {
+                public void run(final int j) {
+                    BlockOperations.solveLower(lBlocks, order, false, x, cBlocks, columns, j);
+                    BlockOperations.solveUpper(ltBlocks, order, x, cBlocks, columns, j);
+                }
+            });
+            return new BlockRealMatrix(order, columns, x, false);
+        }
+
+        /** {@inheritDoc} */
+        public RealMatrix getInverse() {
+            return solve(MatrixUtils.createRealIdentityMatrix(order));
+        }
+    }
+}
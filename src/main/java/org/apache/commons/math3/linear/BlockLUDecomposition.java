@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Calculates the LUP-decomposition of a square matrix, using a blocked
+ * algorithm.
+ * <p>This class computes the same decomposition P&times;A = L&times;U, with
+ * partial pivoting, as {@link LUDecomposition}, and provides the same
+ * methods. The matrix is processed in the layout of
+ * {@link BlockRealMatrix}, one column of blocks at a time: the column is
+ * decomposed with row exchanges, then the exchanges are applied to the
+ * other columns, the corresponding row of blocks of U is computed and the
+ * trailing part of the matrix is updated by products of blocks, which make
+ * an efficient use of the processor caches. If an executor is provided,
+ * these updates, which account for most of the computation, are run
+ * concurrently for the different columns of blocks.</p>
+ * <p>The blocks of a {@link BlockRealMatrix} are copied as they are, other
+ * matrices are converted to this layout. The matrices returned by
+ * {@link #getL()}, {@link #getU()} and by the solver are
+ * {@link BlockRealMatrix} instances.</p>
+ *
+ * @see LUDecomposition
+ * @version $Id$
+ * @since 3.3
+ */
+public class BlockLUDecomposition {
+    /** Default bound to determine effective singularity in LU decomposition. */
+    private static final double DEFAULT_TOO_SMALL = 1e-11;
+    /** Blocks of the LU decomposition. */
+    private final double[][] blocks;
+    /** Number of rows and columns of the matrix. */
+    private final int order;
+    /** Pivot permutation associated with LU decomposition. */
+    private final int[] pivot;
+    /** Executor of the concurrent updates (may be {@code null}). */
+    private final ExecutorService executor;
+    /** Parity of the permutation associated with the LU decomposition. */
+    private boolean even;
+    /** Singularity indicator. */
+    private boolean singular;
+    /** Cached value of L. */
+    private RealMatrix cachedL;
+    /** Cached value of U. */
+    private RealMatrix cachedU;
+    /** Cached value of P. */
+    private RealMatrix cachedP;
+
+    /**
+     * Calculates the LU-decomposition of the given matrix, in the calling
+     * thread. This constructor uses 1e-11 as default value for the
+     * singularity threshold.
+     *
+     * @param matrix Matrix to decompose.
+     * @throws NonSquareMatrixException if matrix is not square.
+     */
+    public BlockLUDecomposition(RealMatrix matrix) {
+        this(matrix, DEFAULT_TOO_SMALL, null);
+    }
+
+    /**
+     * Calculates the LU-decomposition of the given matrix. This constructor
+     * uses 1e-11 as default value for the singularity threshold.
+     *
+     * @param matrix Matrix to decompose.
+     * @param executor executor of the concurrent updates, or {@code null}
+     * to compute the decomposition in the calling thread
+     * @throws NonSquareMatrixException if matrix is not square.
+     * @throws org.apache.commons.math3.exception.MathIllegalStateException
+     * if the thread is interrupted while waiting for the updates.
+     */
+    public BlockLUDecomposition(RealMatrix matrix, ExecutorService executor) {
+        this(matrix, DEFAULT_TOO_SMALL, executor);
+    }
+
+    /**
+     * Calculates the LU-decomposition of the given matrix.
+     * @param matrix The matrix to decompose.
+     * @param singularityThreshold threshold (based on partial row norm)
+     * under which a matrix is considered singular
+     * @param executor executor of the concurrent updates, or {@code null}
+     * to compute the decomposition in the calling thread
+     * @throws NonSquareMatrixException if matrix is not square
+     * @throws org.apache.commons.math3.exception.MathIllegalStateException
+     * if the thread is interrupted while waiting for the updates.
+     */
+    public BlockLUDecomposition(RealMatrix matrix, double singularityThreshold,
+                                ExecutorService executor) {
+        if (!matrix.isSquare()) {
+            throw new NonSquareMatrixException(matrix.getRowDimension(),
+                                               matrix.getColumnDimension());
+        }
+
+        this.order    = matrix.getRowDimension();
+        this.executor = executor;
+        this.blocks   = BlockOperations.copyBlocks(matrix);
+        pivot = new int[order];
+        for (int row = 0; row < order; row++) {
+            pivot[row] = row;
+        }
+        even     = true;
+        singular = false;
+
+        final int n = BlockOperations.blockCount(order);
+        for (int k = 0; k < n; ++k) {
+            final int kWidth = BlockOperations.blockSize(k, order);
+            final int[] exchanges = decomposeColumn(k, kWidth, singularityThreshold);
+            if (singular) {
+                return;
+            }
+
+            final int kBlock = k;
+            final double[] lKK = blocks[k * n + k];
+            final long remaining = order - (long) (k + 1) * BlockOperations.BLOCK_SIZE;
+            BlockOperations.forEach(executor, remaining * remaining * kWidth, 0, n,
+                                    new BlockOperations.Loop() {
+                public void run(final int j) {
+                    if (j == kBlock) {
+                        return;
+                    }
+                    final int jWidth = BlockOperations.blockSize(j, order);
+                    for (int q = 0; q < kWidth; ++q) {
+                        final int row = kBlock * BlockOperations.BLOCK_SIZE + q;
+                        if (exchanges[q] != row) {
+                            exchangeRows(j, jWidth, row, exchanges[q]);
+                        }
+                    }
+                    if (j < kBlock) {
+                        return;
+                    }
+
+                    // row of blocks of U: U(k,j) = L(k,k)^-1 A(k,j)
+                    final double[] uKJ = blocks[kBlock * n + j];
+                    for (int p = 0; p < kWidth; ++p) {
+                        final int row = p * jWidth;
+                        for (int q = 0; q < p; ++q) {
+                            final double lPQ = lKK[p * kWidth + q];
+                            final int source = q * jWidth;
+                            for (int c = 0; c < jWidth; ++c) {
+                                uKJ[row + c] -= lPQ * uKJ[source + c];
+                            }
+                        }
+                    }
+
+                    // trailing part: A(i,j) -= L(i,k) U(k,j)
+                    for (int i = kBlock + 1; i < n; ++i) {
+                        BlockOperations.multiplyAdd(blocks[i * n + kBlock], uKJ, blocks[i * n + j],
+                                                    BlockOperations.blockSize(i, order), kWidth, jWidth, -1);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Decomposes a column of blocks, from the diagonal down, with partial
+     * pivoting.
+     * <p>The row exchanges are only applied to the column of blocks.</p>
+     *
+     * @param k Index of the column of blocks.
+     * @param width Number of columns of the blocks.
+     * @param singularityThreshold threshold under which a matrix is
+     * considered singular
+     * @return the rows exchanged with each row of the diagonal block, or
+     * {@code null} if the matrix is singular.
+     */
+    private int[] decomposeColumn(final int k, final int width, final double singularityThreshold) {
+        final int n = BlockOperations.blockCount(order);
+        final int[] exchanges = new int[width];
+        for (int q = 0; q < width; ++q) {
+            final int col = k * BlockOperations.BLOCK_SIZE + q;
+
+            // find the permutation row
+            int max = col;
+            double largest = Double.NEGATIVE_INFINITY;
+            for (int iBlock = k; iBlock < n; ++iBlock) {
+                final double[] block = blocks[iBlock * n + k];
+                final int rowStart = iBlock * BlockOperations.BLOCK_SIZE;
+                final int height = BlockOperations.blockSize(iBlock, order);
+                for (int p = FastMath.max(0, col - rowStart); p < height; ++p) {
+                    final double abs = FastMath.abs(block[p * width + q]);
+                    if (abs > largest) {
+                        largest = abs;
+                        max = rowStart + p;
+                    }
+                }
+            }
+
+            // singularity check
+            if (largest < singularityThreshold) {
+                singular = true;
+                return null;
+            }
+
+            // pivot if necessary
+            exchanges[q] = max;
+            if (max != col) {
+                exchangeRows(k, width, col, max);
+                final int tmp = pivot[max];
+                pivot[max] = pivot[col];
+                pivot[col] = tmp;
+                even = !even;
+            }
+
+            // divide the lower elements by the pivot and update the
+            // remaining columns of the block column
+            final double[] diagonal = blocks[k * n + k];
+            final int colRow = q * width;
+            final double luDiag = diagonal[colRow + q];
+            for (int iBlock = k; iBlock < n; ++iBlock) {
+                final double[] block = blocks[iBlock * n + k];
+                final int rowStart = iBlock * BlockOperations.BLOCK_SIZE;
+                final int height = BlockOperations.blockSize(iBlock, order);
+                for (int p = FastMath.max(0, col + 1 - rowStart); p < height; ++p) {
+                    final int row = p * width;
+                    final double lPQ = block[row + q] / luDiag;
+                    block[row + q] = lPQ;
+                    for (int c = q + 1; c < width; ++c) {
+                        block[row + c] -= lPQ * diagonal[colRow + c];
+                    }
+                }
+            }
+        }
+        return exchanges;
+    }
+
+    /**
+     * Exchanges two rows in a column of blocks.
+     *
+     * @param j Index of the column of blocks.
+     * @param width Number of columns of the blocks.
+     * @param row1 First row.
+     * @param row2 Second row.
+     */
+    private void exchangeRows(final int j, final int width, final int row1, final int row2) {
+        final int n = BlockOperations.blockCount(order);
+        final double[] block1 = blocks[(row1 / BlockOperations.BLOCK_SIZE) * n + j];
+        final double[] block2 = blocks[(row2 / BlockOperations.BLOCK_SIZE) * n + j];
+        final int start1 = (row1 % BlockOperations.BLOCK_SIZE) * width;
+        final int start2 = (row2 % BlockOperations.BLOCK_SIZE) * width;
+        for (int c = 0; c < width; ++c) {
+            final double tmp = block1[start1 + c];
+            block1[start1 + c] = block2[start2 + c];
+            block2[start2 + c] = tmp;
+        }
+    }
+
+    /**
+     * Returns the matrix L of the decomposition.
+     * <p>L is a lower-triangular matrix</p>
+     * @return the L matrix (or null if decomposed matrix is singular)
+     */
+    public RealMatrix getL() {
+        if ((cachedL == null) && !singular) {
+            cachedL = new BlockRealMatrix(order, order, triangle(true), false);
+        }
+        return cachedL;
+    }
+
+    /**
+     * Returns the matrix U of the decomposition.
+     * <p>U is an upper-triangular matrix</p>
+     * @return the U matrix (or null if decomposed matrix is singular)
+     */
+    public RealMatrix getU() {
+        if ((cachedU == null) && !singular) {
+            cachedU = new BlockRealMatrix(order, order, triangle(false), false);
+        }
+        return cachedU;
+    }
+
+    /**
+     * Extracts one of the triangular factors.
+     *
+     * @param lower If {@code true}, extract L (with unit diagonal), otherwise U.
+     * @return the blocks of the factor.
+     */
+    private double[][] triangle(final boolean lower) {
+        final int n = BlockOperations.blockCount(order);
+        final double[][] factor = BlockRealMatrix.createBlocksLayout(order, order);
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (lower ? (j < i) : (j > i)) {
+                    System.arraycopy(blocks[i * n + j], 0, factor[i * n + j], 0, factor[i * n + j].length);
+                } else if (i == j) {
+                    final int width = BlockOperations.blockSize(i, order);
+                    final double[] source = blocks[i * n + i];
+                    final double[] target = factor[i * n + i];
+                    for (int p = 0; p < width; ++p) {
+                        if (lower) {
+                            System.arraycopy(source, p * width, target, p * width, p);
+                            target[p * width + p] = 1.0;
+                        } else {
+                            System.arraycopy(source, p * width + p, target, p * width + p, width - p);
+                        }
+                    }
+                }
+            }
+        }
+        return factor;
+    }
+
+    /**
+     * Returns the P rows permutation matrix.
+     * <p>P is a sparse matrix with exactly one element set to 1.0 in
+     * each row and each column, all other elements being set to 0.0.</p>
+     * <p>The positions of the 1 elements are given by the {@link #getPivot()
+     * pivot permutation vector}.</p>
+     * @return the P rows permutation matrix (or null if decomposed matrix is singular)
+     * @see #getPivot()
+     */
+    public RealMatrix getP() {
+        if ((cachedP == null) && !singular) {
+            cachedP = MatrixUtils.createRealMatrix(order, order);
+            for (int i = 0; i < order; ++i) {
+                cachedP.setEntry(i, pivot[i], 1.0);
+            }
+        }
+        return cachedP;
+    }
+
+    /**
+     * Returns the pivot permutation vector.
+     * @return the pivot permutation vector
+     * @see #getP()
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * Return the determinant of the matrix
+     * @return determinant of the matrix
+     */
+    public double getDeterminant() {
+        if (singular) {
+            return 0;
+        } else {
+            final int n = BlockOperations.blockCount(order);
+            double determinant = even ? 1 : -1;
+            for (int k = 0; k < n; ++k) {
+                final int width = BlockOperations.blockSize(k, order);
+                final double[] block = blocks[k * n + k];
+                for (int p = 0; p < width; ++p) {
+                    determinant *= block[p * width + p];
+                }
+            }
+            return determinant;
+        }
+    }
+
+    /**
+     * Get a solver for finding the A &times; X = B solution in exact linear
+     * sense.
+     * <p>The columns of blocks of the right hand side are solved
+     * concurrently if an executor was provided.</p>
+     * @return a solver
+     */
+    public DecompositionSolver getSolver() {
+        return new Solver(blocks, pivot, singular, executor);
+    }
+
+    /** Specialized solver. */
+    private static class Solver implements DecompositionSolver {
+        /** Blocks of the LU decomposition. */
+        private final double[][] blocks;
+        /** Pivot permutation associated with LU decomposition. */
+        private final int[] pivot;
+        /** Singularity indicator. */
+        private final boolean singular;
+        /** Executor of the concurrent solutions (may be {@code null}). */
+        private final ExecutorService executor;
+
+        /**
+         * Build a solver from decomposed matrix.
+         * @param blocks blocks of the LU decomposition
+         * @param pivot pivot permutation associated with LU decomposition
+         * @param singular singularity indicator
+         * @param executor executor of the concurrent solutions (may be {@code null})
+         */
+        private Solver(final double[][] blocks, final int[] pivot,
+                       final boolean singular, final ExecutorService executor) {
+            this.blocks   = blocks;
+            this.pivot    = pivot;
+            this.singular = singular;
+            this.executor = executor;
+        }
+
+        /** {@inheritDoc} */
+        public boolean isNonSingular() {
+            return !singular;
+        }
+
+        /** {@inheritDoc} */
+        public RealVector solve(RealVector b) {
+            final RealMatrix x = solve(MatrixUtils.createColumnRealMatrix(b.toArray()));
+            return new ArrayRealVector(x.getColumn(0), false);
+        }
+
+        /** {@inheritDoc} */
+        public RealMatrix solve(RealMatrix b) {
+            final int m = pivot.length;
+            if (b.getRowDimension() != m) {
+                throw new DimensionMismatchException(b.getRowDimension(), m);
+            }
+            if (singular) {
+                throw new SingularMatrixException();
+            }
+
+            // Apply permutations to b
+            final double[][] bp = new double[m][];
+            for (int row = 0; row < m; row++) {
+                bp[row] = b.getRow(pivot[row]);
+            }
+            final double[][] x = BlockRealMatrix.toBlocksLayout(bp);
+
+            // Solve LY = b, then UX = Y
+            final int columns = b.getColumnDimension();
+            final int cBlocks = BlockOperations.blockCount(columns);
+            BlockOperations.forEach(executor, (long) m * m * columns, 0, cBlocks,
+                                    new BlockOperations.Loop() {
+                public void run(final int j) {
+                    BlockOperations.solveLower(blocks, m, true, x, cBlocks, columns, j);
+                    BlockOperations.solveUpper(blocks, m, x, cBlocks, columns, j);
+                }
+            });
+            return new BlockRealMatrix(m, columns, x, false);
+        }
+
+        /** {@inheritDoc} */
+        public RealMatrix getInverse() {
+            return solve(MatrixUtils.createRealIdentityMatrix(pivot.length));
+        }
+    }
+}
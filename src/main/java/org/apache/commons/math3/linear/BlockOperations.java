@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.util.ConcurrentUtils;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Operations on matrices stored as blocks, in the layout of
+ * {@link BlockRealMatrix}.
+ * <p>
+ * The blocks are flat arrays holding the entries of square tiles of
+ * {@link BlockRealMatrix#BLOCK_SIZE} rows and columns in row major order,
+ * the tiles on the right and bottom sides being smaller. This class
+ * gathers the kernels shared by the block matrix products and the blocked
+ * decompositions, and the execution of their independent parts by an
+ * executor. It is intended for internal use by the library and is not
+ * public.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class BlockOperations {
+    /** Block size. */
+    static final int BLOCK_SIZE = BlockRealMatrix.BLOCK_SIZE;
+
+    /**
+     * Body of a loop whose iterations are independent of each other.
+     */
+    interface Loop {
+        /**
+         * @param index Index of the iteration.
+         */
+        void run(int index);
+    }
+
+    /**
+     * Class contains only static methods.
+     */
+    private BlockOperations() {}
+
+    /**
+     * @param dimension Number of rows or columns.
+     * @return the number of blocks along this dimension.
+     */
+    static int blockCount(final int dimension) {
+        return (dimension + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * @param index Index of a block row or column.
+     * @param dimension Number of rows or columns.
+     * @return the number of rows or columns of the blocks at this index.
+     */
+    static int blockSize(final int index, final int dimension) {
+        return FastMath.min(BLOCK_SIZE, dimension - index * BLOCK_SIZE);
+    }
+
+    /**
+     * Copies the entries of a matrix into the blocks layout.
+     * <p>
+     * The blocks of a {@link BlockRealMatrix} are copied directly, other
+     * matrices are converted.
+     * </p>
+     *
+     * @param m Matrix.
+     * @return a copy of the entries of the matrix, in the blocks layout.
+     */
+    static double[][] copyBlocks(final RealMatrix m) {
+        if (m instanceof BlockRealMatrix) {
+            return copy(((BlockRealMatrix) m).getBlocksRef());
+        }
+        if (m instanceof Array2DRowRealMatrix) {
+            return BlockRealMatrix.toBlocksLayout(((Array2DRowRealMatrix) m).getDataRef());
+        }
+        return BlockRealMatrix.toBlocksLayout(m.getData());
+    }
+
+    /**
+     * @param blocks Blocks.
+     * @return a deep copy of the blocks.
+     */
+    static double[][] copy(final double[][] blocks) {
+        final double[][] copy = new double[blocks.length][];
+        for (int k = 0; k < blocks.length; ++k) {
+            copy[k] = blocks[k].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the transpose of a block.
+     *
+     * @param a Block, with {@code height} rows and {@code width} columns.
+     * @param height Number of rows of {@code a}.
+     * @param width Number of columns of {@code a}.
+     * @return the transposed block, with {@code width} rows and
+     * {@code height} columns.
+     */
+    static double[] transpose(final double[] a, final int height, final int width) {
+        final double[] t = new double[height * width];
+        for (int p = 0; p < height; ++p) {
+            int index = p;
+            for (int q = 0; q < width; ++q) {
+                t[index] = a[p * width + q];
+                index += height;
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Accumulates the product of two blocks: {@code c += scale a b}.
+     * <p>
+     * The innermost loop runs along a row of {@code b} and of {@code c},
+     * with unit stride, so that it can be vectorized by the JIT compiler.
+     * Four rows of {@code c} are updated at once, using four columns of
+     * {@code a} held in local variables: each entry of {@code b} that is
+     * loaded is used in four multiplications, and each entry of {@code c}
+     * in four multiply-adds.
+     * </p>
+     *
+     * @param a Left block, with {@code height} rows and {@code width} columns.
+     * @param b Right block, with {@code width} rows and {@code bWidth} columns.
+     * @param c Product block, with {@code height} rows and {@code bWidth} columns.
+     * @param height Number of rows of {@code a} and {@code c}.
+     * @param width Number of columns of {@code a} and rows of {@code b}.
+     * @param bWidth Number of columns of {@code b} and {@code c}.
+     * @param scale Factor of the product (1 or -1 for exact accumulations).
+     */
+    static void multiplyAdd(final double[] a, final double[] b, final double[] c,
+                            final int height, final int width, final int bWidth,
+                            final double scale) {
+        int p = 0;
+        for (; p < height - 3; p += 4) {
+            final int c0 = p * bWidth;
+            final int c1 = c0 + bWidth;
+            final int c2 = c1 + bWidth;
+            final int c3 = c2 + bWidth;
+            final int a0 = p * width;
+            final int a1 = a0 + width;
+            final int a2 = a1 + width;
+            final int a3 = a2 + width;
+            int l = 0;
+            for (; l < width - 3; l += 4) {
+                final double a00 = scale * a[a0 + l];
+                final double a01 = scale * a[a0 + l + 1];
+                final double a02 = scale * a[a0 + l + 2];
+                final double a03 = scale * a[a0 + l + 3];
+                final double a10 = scale * a[a1 + l];
+                final double a11 = scale * a[a1 + l + 1];
+                final double a12 = scale * a[a1 + l + 2];
+                final double a13 = scale * a[a1 + l + 3];
+                final double a20 = scale * a[a2 + l];
+                final double a21 = scale * a[a2 + l + 1];
+                final double a22 = scale * a[a2 + l + 2];
+                final double a23 = scale * a[a2 + l + 3];
+                final double a30 = scale * a[a3 + l];
+                final double a31 = scale * a[a3 + l + 1];
+                final double a32 = scale * a[a3 + l + 2];
+                final double a33 = scale * a[a3 + l + 3];
+                final int b0 = l * bWidth;
+                final int b1 = b0 + bWidth;
+                final int b2 = b1 + bWidth;
+                final int b3 = b2 + bWidth;
+                for (int n = 0; n < bWidth; ++n) {
+                    final double y0 = b[b0 + n];
+                    final double y1 = b[b1 + n];
+                    final double y2 = b[b2 + n];
+                    final double y3 = b[b3 + n];
+                    c[c0 + n] += a00 * y0 + a01 * y1 + a02 * y2 + a03 * y3;
+                    c[c1 + n] += a10 * y0 + a11 * y1 + a12 * y2 + a13 * y3;
+                    c[c2 + n] += a20 * y0 + a21 * y1 + a22 * y2 + a23 * y3;
+                    c[c3 + n] += a30 * y0 + a31 * y1 + a32 * y2 + a33 * y3;
+                }
+            }
+            for (; l < width; ++l) {
+                final double a00 = scale * a[a0 + l];
+                final double a10 = scale * a[a1 + l];
+                final double a20 = scale * a[a2 + l];
+                final double a30 = scale * a[a3 + l];
+                final int b0 = l * bWidth;
+                for (int n = 0; n < bWidth; ++n) {
+                    final double y0 = b[b0 + n];
+                    c[c0 + n] += a00 * y0;
+                    c[c1 + n] += a10 * y0;
+                    c[c2 + n] += a20 * y0;
+                    c[c3 + n] += a30 * y0;
+                }
+            }
+        }
+        for (; p < height; ++p) {
+            // same grouping of the terms as above
+            final int c0 = p * bWidth;
+            final int a0 = p * width;
+            int l = 0;
+            for (; l < width - 3; l += 4) {
+                final double a00 = scale * a[a0 + l];
+                final double a01 = scale * a[a0 + l + 1];
+                final double a02 = scale * a[a0 + l + 2];
+                final double a03 = scale * a[a0 + l + 3];
+                final int b0 = l * bWidth;
+                final int b1 = b0 + bWidth;
+                final int b2 = b1 + bWidth;
+                final int b3 = b2 + bWidth;
+                for (int n = 0; n < bWidth; ++n) {
+                    c[c0 + n] += a00 * b[b0 + n] + a01 * b[b1 + n] + a02 * b[b2 + n] + a03 * b[b3 + n];
+                }
+            }
+            for (; l < width; ++l) {
+                final double a00 = scale * a[a0 + l];
+                final int b0 = l * bWidth;
+                for (int n = 0; n < bWidth; ++n) {
+                    c[c0 + n] += a00 * b[b0 + n];
+                }
+            }
+        }
+    }
+
+    /**
+     * Accumulates the product of a transposed block by a block:
+     * {@code c += a}<sup>T</sup>{@code b}.
+     * <p>
+     * Four rows of {@code a} and {@code b} are combined at once, and the
+     * innermost loop runs along a row of {@code b} and of {@code c}.
+     * </p>
+     *
+     * @param a Left block, with {@code height} rows and {@code width} columns.
+     * @param b Right block, with {@code height} rows and {@code bWidth} columns.
+     * @param c Product block, with {@code width} rows and {@code bWidth} columns.
+     * @param height Number of rows of {@code a} and {@code b}.
+     * @param width Number of columns of {@code a} and rows of {@code c}.
+     * @param bWidth Number of columns of {@code b} and {@code c}.
+     */
+    static void transposeMultiplyAdd(final double[] a, final double[] b, final double[] c,
+                                     final int height, final int width, final int bWidth) {
+        int p = 0;
+        for (; p < height - 3; p += 4) {
+            final int a0 = p * width;
+            final int a1 = a0 + width;
+            final int a2 = a1 + width;
+            final int a3 = a2 + width;
+            final int b0 = p * bWidth;
+            final int b1 = b0 + bWidth;
+            final int b2 = b1 + bWidth;
+            final int b3 = b2 + bWidth;
+            for (int l = 0; l < width; ++l) {
+                final double x0 = a[a0 + l];
+                final double x1 = a[a1 + l];
+                final double x2 = a[a2 + l];
+                final double x3 = a[a3 + l];
+                final int c0 = l * bWidth;
+                for (int n = 0; n < bWidth; ++n) {
+                    c[c0 + n] += x0 * b[b0 + n] + x1 * b[b1 + n] + x2 * b[b2 + n] + x3 * b[b3 + n];
+                }
+            }
+        }
+        for (; p < height; ++p) {
+            final int a0 = p * width;
+            final int b0 = p * bWidth;
+            for (int l = 0; l < width; ++l) {
+                final double x0 = a[a0 + l];
+                final int c0 = l * bWidth;
+                for (int n = 0; n < bWidth; ++n) {
+                    c[c0 + n] += x0 * b[b0 + n];
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves in place a lower triangular system for one column of blocks.
+     * <p>
+     * The leading {@code dimension} rows of the right hand side blocks are
+     * replaced by the solution of {@code L X = B}.
+     * </p>
+     *
+     * @param l Blocks of a square matrix with {@code dimension} rows, whose
+     * lower triangular part is {@code L} (the other entries are ignored).
+     * @param dimension Number of rows and columns of {@code L}.
+     * @param unit If {@code true}, the diagonal entries of {@code L} are
+     * assumed to be 1 and are not read.
+     * @param b Blocks of the right hand side.
+     * @param bBlockColumns Number of block columns of {@code b}.
+     * @param bColumns Number of columns of {@code b}.
+     * @param jBlock Index of the block column of {@code b} to solve.
+     */
+    static void solveLower(final double[][] l, final int dimension, final boolean unit,
+                           final double[][] b, final int bBlockColumns, final int bColumns,
+                           final int jBlock) {
+        final int blocks = blockCount(dimension);
+        final int bWidth = blockSize(jBlock, bColumns);
+        for (int iBlock = 0; iBlock < blocks; ++iBlock) {
+            final int height = blockSize(iBlock, dimension);
+            final double[] bI = b[iBlock * bBlockColumns + jBlock];
+            for (int kBlock = 0; kBlock < iBlock; ++kBlock) {
+                multiplyAdd(l[iBlock * blocks + kBlock], b[kBlock * bBlockColumns + jBlock], bI,
+                            height, blockSize(kBlock, dimension), bWidth, -1);
+            }
+            final double[] lII = l[iBlock * blocks + iBlock];
+            for (int p = 0; p < height; ++p) {
+                final int row = p * bWidth;
+                for (int q = 0; q < p; ++q) {
+                    final double lPQ = lII[p * height + q];
+                    final int source = q * bWidth;
+                    for (int n = 0; n < bWidth; ++n) {
+                        bI[row + n] -= lPQ * bI[source + n];
+                    }
+                }
+                if (!unit) {
+                    final double inv = 1.0 / lII[p * height + p];
+                    for (int n = 0; n < bWidth; ++n) {
+                        bI[row + n] *= inv;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves in place an upper triangular system for one column of blocks.
+     * <p>
+     * The leading {@code dimension} rows of the right hand side blocks are
+     * replaced by the solution of {@code U X = B}.
+     * </p>
+     *
+     * @param u Blocks of a square matrix with {@code dimension} rows, whose
+     * upper triangular part is {@code U} (the other entries are ignored).
+     * @param dimension Number of rows and columns of {@code U}.
+     * @param b Blocks of the right hand side.
+     * @param bBlockColumns Number of block columns of {@code b}.
+     * @param bColumns Number of columns of {@code b}.
+     * @param jBlock Index of the block column of {@code b} to solve.
+     */
+    static void solveUpper(final double[][] u, final int dimension,
+                           final double[][] b, final int bBlockColumns, final int bColumns,
+                           final int jBlock) {
+        final int blocks = blockCount(dimension);
+        final int bWidth = blockSize(jBlock, bColumns);
+        for (int iBlock = blocks - 1; iBlock >= 0; --iBlock) {
+            final int height = blockSize(iBlock, dimension);
+            final double[] bI = b[iBlock * bBlockColumns + jBlock];
+            for (int kBlock = iBlock + 1; kBlock < blocks; ++kBlock) {
+                multiplyAdd(u[iBlock * blocks + kBlock], b[kBlock * bBlockColumns + jBlock], bI,
+                            height, blockSize(kBlock, dimension), bWidth, -1);
+            }
+            final double[] uII = u[iBlock * blocks + iBlock];
+            for (int p = height - 1; p >= 0; --p) {
+                final int row = p * bWidth;
+                for (int q = p + 1; q < height; ++q) {
+                    final double uPQ = uII[p * height + q];
+                    final int source = q * bWidth;
+                    for (int n = 0; n < bWidth; ++n) {
+                        bI[row + n] -= uPQ * bI[source + n];
+                    }
+                }
+                final double inv = 1.0 / uII[p * height + p];
+                for (int n = 0; n < bWidth; ++n) {
+                    bI[row + n] *= inv;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the iterations of a loop, possibly concurrently.
+     * <p>
+     * The iterations are distributed in a round-robin fashion among one task
+     * per available processor, so that iterations of increasing cost are
+     * balanced. If there is no executor or if the loop requires fewer than
+     * {@link ParallelMatrixMultiplier#DEFAULT_THRESHOLD} multiply-add
+     * operations, the iterations are run in the calling thread.
+     * </p>
+     *
+     * @param executor Executor that runs the tasks (may be {@code null}).
+     * @param operations Number of multiply-add operations of the whole loop.
+     * @param start First index.
+     * @param end Index following the last one.
+     * @param loop Body of the loop.
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the tasks to complete.
+     */
+    static void forEach(final ExecutorService executor, final long operations,
+                        final int start, final int end, final Loop loop) {
+        final int tasks = (executor == null || operations < ParallelMatrixMultiplier.DEFAULT_THRESHOLD) ?
+                          1 : FastMath.min(end - start, Runtime.getRuntime().availableProcessors());
+        if (tasks <= 1) {
+            for (int index = start; index < end; ++index) {
+                loop.run(index);
+            }
+            return;
+        }
+
+        final List<Callable<Void>> parts = new ArrayList<Callable<Void>>(tasks);
+        for (int t = 0; t < tasks; ++t) {
+            final int first = start + t;
+            parts.add(new Callable<Void>() {
+                    public Void call() {
+                        for (int index = first; index < end; index += tasks) {
+                            loop.run(index);
+                        }
+                        return null;
+                    }
+                });
+        }
+        ConcurrentUtils.invokeAll(executor, parts);
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Calculates the QR-decomposition of a matrix, using a blocked algorithm.
+ * <p>This class computes the same decomposition A = QR as
+ * {@link QRDecomposition}, with the same Householder reflectors. The
+ * matrix is processed in the layout of {@link BlockRealMatrix}, one column
+ * of blocks at a time: the reflectors of the column are computed and
+ * accumulated in the compact WY representation
+ * H<sub>1</sub>&hellip;H<sub>k</sub> = I - VTV<sup>T</sup>, where V holds
+ * the reflector vectors and T is upper triangular, so that they can be
+ * applied to the remaining columns by products of blocks, which make an
+ * efficient use of the processor caches. If an executor is provided, the
+ * remaining columns of blocks are updated concurrently.</p>
+ * <p>The Householder vectors are scaled so that their first component is 1,
+ * so this class does not provide the {@code getH} method of
+ * {@link QRDecomposition}.</p>
+ *
+ * @see QRDecomposition
+ * @version $Id$
+ * @since 3.3
+ */
+public class BlockQRDecomposition {
+    /**
+     * Blocks of the decomposition.
+     * <p>The elements above the diagonal are the elements of R, the elements
+     * below the diagonal are the Householder vectors, whose implicit first
+     * component is 1.</p>
+     */
+    private final double[][] blocks;
+    /** Number of rows of the matrix. */
+    private final int rows;
+    /** Number of columns of the matrix. */
+    private final int columns;
+    /** The diagonal elements of R. */
+    private final double[] rDiag;
+    /** Diagonal blocks of the Householder vectors, with unit diagonal. */
+    private final double[][] vDiagonal;
+    /** Triangular factors T of the compact WY representation. */
+    private final double[][] t;
+    /** Transposed triangular factors T<sup>T</sup>. */
+    private final double[][] tTransposed;
+    /** Singularity threshold. */
+    private final double threshold;
+    /** Executor of the concurrent updates (may be {@code null}). */
+    private final ExecutorService executor;
+    /** Cached value of Q. */
+    private RealMatrix cachedQ;
+    /** Cached value of QT. */
+    private RealMatrix cachedQT;
+    /** Cached value of R. */
+    private RealMatrix cachedR;
+
+    /**
+     * Calculates the QR-decomposition of the given matrix, in the calling
+     * thread. The singularity threshold defaults to zero.
+     *
+     * @param matrix The matrix to decompose.
+     *
+     * @see #BlockQRDecomposition(RealMatrix,double,ExecutorService)
+     */
+    public BlockQRDecomposition(RealMatrix matrix) {
+        this(matrix, 0d, null);
+    }
+
+    /**
+     * Calculates the QR-decomposition of the given matrix, in the calling
+     * thread.
+     *
+     * @param matrix The matrix to decompose.
+     * @param threshold Singularity threshold.
+     */
+    public BlockQRDecomposition(RealMatrix matrix, double threshold) {
+        this(matrix, threshold, null);
+    }
+
+    /**
+     * Calculates the QR-decomposition of the given matrix.
+     *
+     * @param matrix The matrix to decompose.
+     * @param threshold Singularity threshold.
+     * @param executor executor of the concurrent updates, or {@code null}
+     * to compute the decomposition in the calling thread
+     * @throws org.apache.commons.math3.exception.MathIllegalStateException
+     * if the thread is interrupted while waiting for the updates.
+     */
+    public BlockQRDecomposition(RealMatrix matrix, double threshold,
+                                ExecutorService executor) {
+        this.threshold = threshold;
+        this.executor  = executor;
+        rows    = matrix.getRowDimension();
+        columns = matrix.getColumnDimension();
+        blocks  = BlockOperations.copyBlocks(matrix);
+        rDiag   = new double[FastMath.min(rows, columns)];
+
+        final int panels = BlockOperations.blockCount(rDiag.length);
+        final int n = BlockOperations.blockCount(columns);
+        vDiagonal   = new double[panels][];
+        t           = new double[panels][];
+        tTransposed = new double[panels][];
+        for (int k = 0; k < panels; ++k) {
+            final int kWidth = BlockOperations.blockSize(k, columns);
+            final double[] tau = decomposeColumn(k, kWidth);
+            computeT(k, kWidth, tau);
+
+            // apply H_k^T to the remaining columns of blocks
+            final int kBlock = k;
+            final long height = rows - (long) k * BlockOperations.BLOCK_SIZE;
+            final long width  = columns - (long) (k + 1) * BlockOperations.BLOCK_SIZE;
+            BlockOperations.forEach(executor, 2 * height * width * kWidth, k + 1, n,
+                                    new BlockOperations.Loop() {
+                public void run(final int j) {
+                    applyReflectors(kBlock, blocks, n, columns, j, true);
+                }
+            });
+        }
+    }
+
+    /**
+     * Computes the Householder reflectors of a column of blocks.
+     * <p>The reflectors are only applied to the column of blocks.</p>
+     *
+     * @param k Index of the column of blocks.
+     * @param width Number of columns of the blocks.
+     * @return the scaling factors of the reflectors
+     * H<sub>q</sub> = I - &tau;<sub>q</sub>v<sub>q</sub>v<sub>q</sub><sup>T</sup>.
+     */
+    private double[] decomposeColumn(final int k, final int width) {
+        final int m = BlockOperations.blockCount(rows);
+        final int n = BlockOperations.blockCount(columns);
+        final int rowStart = k * BlockOperations.BLOCK_SIZE;
+        final double[] tau = new double[width];
+        final double[] alpha = new double[width];
+        final int reflectors = FastMath.min(width, rows - rowStart);
+        for (int q = 0; q < reflectors; ++q) {
+            final int minor = rowStart + q;
+
+            /*
+             * Let x be the first column of the minor, and a^2 = |x|^2.
+             * The first column of the transformed minor will be (a,0,0,..)'
+             * The sign of a is chosen to be opposite to the sign of the first
+             * component of x.
+             */
+            double xNormSqr = 0;
+            for (int iBlock = k; iBlock < m; ++iBlock) {
+                final double[] block = blocks[iBlock * n + k];
+                final int height = BlockOperations.blockSize(iBlock, rows);
+                for (int p = FastMath.max(0, minor - iBlock * BlockOperations.BLOCK_SIZE); p < height; ++p) {
+                    final double c = block[p * width + q];
+                    xNormSqr += c * c;
+                }
+            }
+            final double[] diagonal = blocks[k * n + k];
+            final int minorRow = q * width;
+            final double x0 = diagonal[minorRow + q];
+            final double a = (x0 > 0) ? -FastMath.sqrt(xNormSqr) : FastMath.sqrt(xNormSqr);
+            rDiag[minor] = a;
+            diagonal[minorRow + q] = a;
+
+            if (a != 0.0) {
+
+                /*
+                 * The reflection vector x-ae is scaled so that its first
+                 * component is 1, then H = I - tau vv' with tau = (a-x0)/a.
+                 */
+                final double scale = 1.0 / (x0 - a);
+                tau[q] = (a - x0) / a;
+
+                // transform the rest of the columns of the block
+                for (int c = q + 1; c < width; ++c) {
+                    alpha[c] = diagonal[minorRow + c];
+                }
+                for (int iBlock = k; iBlock < m; ++iBlock) {
+                    final double[] block = blocks[iBlock * n + k];
+                    final int height = BlockOperations.blockSize(iBlock, rows);
+                    for (int p = FastMath.max(0, minor + 1 - iBlock * BlockOperations.BLOCK_SIZE); p < height; ++p) {
+                        final int row = p * width;
+                        final double v = block[row + q] * scale;
+                        block[row + q] = v;
+                        for (int c = q + 1; c < width; ++c) {
+                            alpha[c] += v * block[row + c];
+                        }
+                    }
+                }
+                for (int c = q + 1; c < width; ++c) {
+                    alpha[c] *= tau[q];
+                    diagonal[minorRow + c] -= alpha[c];
+                }
+                for (int iBlock = k; iBlock < m; ++iBlock) {
+                    final double[] block = blocks[iBlock * n + k];
+                    final int height = BlockOperations.blockSize(iBlock, rows);
+                    for (int p = FastMath.max(0, minor + 1 - iBlock * BlockOperations.BLOCK_SIZE); p < height; ++p) {
+                        final int row = p * width;
+                        final double v = block[row + q];
+                        for (int c = q + 1; c < width; ++c) {
+                            block[row + c] -= alpha[c] * v;
+                        }
+                    }
+                }
+            }
+        }
+        return tau;
+    }
+
+    /**
+     * Computes the triangular factor of the compact WY representation of
+     * the reflectors of a column of blocks.
+     *
+     * @param k Index of the column of blocks.
+     * @param width Number of columns of the blocks.
+     * @param tau Scaling factors of the reflectors.
+     */
+    private void computeT(final int k, final int width, final double[] tau) {
+        final int m = BlockOperations.blockCount(rows);
+        final int n = BlockOperations.blockCount(columns);
+
+        // diagonal block of V, with unit diagonal
+        final int height = BlockOperations.blockSize(k, rows);
+        final double[] source = blocks[k * n + k];
+        final double[] vKK = new double[height * width];
+        for (int p = 0; p < height; ++p) {
+            System.arraycopy(source, p * width, vKK, p * width, FastMath.min(p, width));
+            if (p < width) {
+                vKK[p * width + p] = 1.0;
+            }
+        }
+        vDiagonal[k] = vKK;
+
+        // Gram matrix V^T V
+        final double[] gram = new double[width * width];
+        BlockOperations.transposeMultiplyAdd(vKK, vKK, gram, height, width, width);
+        for (int iBlock = k + 1; iBlock < m; ++iBlock) {
+            final double[] vIK = blocks[iBlock * n + k];
+            BlockOperations.transposeMultiplyAdd(vIK, vIK, gram,
+                                                 BlockOperations.blockSize(iBlock, rows), width, width);
+        }
+
+        // T(0:q-1, q) = -tau_q T(0:q-1, 0:q-1) V(:, 0:q-1)^T v_q
+        final double[] tK = new double[width * width];
+        for (int q = 0; q < width; ++q) {
+            tK[q * width + q] = tau[q];
+            for (int p = 0; p < q; ++p) {
+                double sum = 0;
+                for (int l = p; l < q; ++l) {
+                    sum += tK[p * width + l] * gram[l * width + q];
+                }
+                tK[p * width + q] = -tau[q] * sum;
+            }
+        }
+        t[k] = tK;
+        tTransposed[k] = BlockOperations.transpose(tK, width, width);
+    }
+
+    /**
+     * Applies the reflectors of a column of blocks to a column of blocks of
+     * a matrix with the same number of rows.
+     * <p>The column is multiplied by I - VTV<sup>T</sup> = H<sub>1</sub>&hellip;H<sub>k</sub>,
+     * or by its transpose.</p>
+     *
+     * @param k Index of the column of blocks of the reflectors.
+     * @param x Blocks of the matrix to update.
+     * @param xBlockColumns Number of block columns of {@code x}.
+     * @param xColumns Number of columns of {@code x}.
+     * @param j Index of the column of blocks of {@code x} to update.
+     * @param transposed If {@code true}, apply the transpose
+     * H<sub>k</sub>&hellip;H<sub>1</sub>.
+     */
+    private void applyReflectors(final int k, final double[][] x,
+                                 final int xBlockColumns, final int xColumns,
+                                 final int j, final boolean transposed) {
+        final int m = BlockOperations.blockCount(rows);
+        final int n = BlockOperations.blockCount(columns);
+        final int kWidth = BlockOperations.blockSize(k, columns);
+        final int jWidth = BlockOperations.blockSize(j, xColumns);
+
+        // W = V^T X
+        final double[] w = new double[kWidth * jWidth];
+        for (int iBlock = k; iBlock < m; ++iBlock) {
+            final double[] v = (iBlock == k) ? vDiagonal[k] : blocks[iBlock * n + k];
+            BlockOperations.transposeMultiplyAdd(v, x[iBlock * xBlockColumns + j], w,
+                                                 BlockOperations.blockSize(iBlock, rows), kWidth, jWidth);
+        }
+
+        // W = T W or T^T W
+        final double[] tw = new double[kWidth * jWidth];
+        BlockOperations.multiplyAdd(transposed ? tTransposed[k] : t[k], w, tw, kWidth, kWidth, jWidth, 1);
+
+        // X = X - V W
+        for (int iBlock = k; iBlock < m; ++iBlock) {
+            final double[] v = (iBlock == k) ? vDiagonal[k] : blocks[iBlock * n + k];
+            BlockOperations.multiplyAdd(v, tw, x[iBlock * xBlockColumns + j],
+                                        BlockOperations.blockSize(iBlock, rows), kWidth, jWidth, -1);
+        }
+    }
+
+    /**
+     * Returns the matrix R of the decomposition.
+     * <p>R is an upper-triangular matrix</p>
+     * @return the R matrix
+     */
+    public RealMatrix getR() {
+        if (cachedR == null) {
+            cachedR = new BlockRealMatrix(rows, columns, upper(rows), false);
+        }
+        return cachedR;
+    }
+
+    /**
+     * Extracts the leading rows of R.
+     *
+     * @param height Number of rows to extract.
+     * @return the blocks of an height&times;n matrix.
+     */
+    private double[][] upper(final int height) {
+        final int m = BlockOperations.blockCount(height);
+        final int n = BlockOperations.blockCount(columns);
+        final double[][] r = BlockRealMatrix.createBlocksLayout(height, columns);
+        for (int iBlock = 0; iBlock < m; ++iBlock) {
+            final int iHeight = BlockOperations.blockSize(iBlock, height);
+            for (int jBlock = iBlock; jBlock < n; ++jBlock) {
+                final double[] source = blocks[iBlock * n + jBlock];
+                final double[] target = r[iBlock * n + jBlock];
+                if (jBlock > iBlock) {
+                    System.arraycopy(source, 0, target, 0, target.length);
+                } else {
+                    final int width = BlockOperations.blockSize(jBlock, columns);
+                    for (int p = 0; p < FastMath.min(iHeight, width); ++p) {
+                        System.arraycopy(source, p * width + p, target, p * width + p, width - p);
+                    }
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the matrix Q of the decomposition.
+     * <p>Q is an orthogonal matrix</p>
+     * @return the Q matrix
+     */
+    public RealMatrix getQ() {
+        if (cachedQ == null) {
+
+            /*
+             * Q = H_1 H_2 ... H_p, so Q is formed by applying the reflectors
+             * of the columns of blocks to the identity, from the last one
+             */
+            final int m = BlockOperations.blockCount(rows);
+            final double[][] q = BlockRealMatrix.createBlocksLayout(rows, rows);
+            for (int iBlock = 0; iBlock < m; ++iBlock) {
+                final int height = BlockOperations.blockSize(iBlock, rows);
+                final double[] block = q[iBlock * m + iBlock];
+                for (int p = 0; p < height; ++p) {
+                    block[p * height + p] = 1.0;
+                }
+            }
+            final long operations = 4l * rows * rows * rDiag.length;
+            BlockOperations.forEach(executor, operations, 0, m, new BlockOperations.Loop() {
+                public void run(final int j) {
+                    for (int k = FastMath.min(j, t.length - 1); k >= 0; --k) {
+                        applyReflectors(k, q, m, rows, j, false);
+                    }
+                }
+            });
+            cachedQ = new BlockRealMatrix(rows, rows, q, false);
+        }
+        return cachedQ;
+    }
+
+    /**
+     * Returns the transpose of the matrix Q of the decomposition.
+     * <p>Q is an orthogonal matrix</p>
+     * @return the transpose of the Q matrix, Q<sup>T</sup>
+     */
+    public RealMatrix getQT() {
+        if (cachedQT == null) {
+            cachedQT = getQ().transpose();
+        }
+        return cachedQT;
+    }
+
+    /**
+     * Get a solver for finding the A &times; X = B solution in least square sense.
+     * <p>The columns of blocks of the right hand side are solved
+     * concurrently if an executor was provided.</p>
+     * @return a solver
+     */
+    public DecompositionSolver getSolver() {
+        return new Solver();
+    }
+
+    /** Specialized solver. */
+    private class Solver implements DecompositionSolver {
+
+        /** {@inheritDoc} */
+        public boolean isNonSingular() {
+            for (double diag : rDiag) {
+                if (FastMath.abs(diag) <= threshold) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public RealVector solve(RealVector b) {
+            final RealMatrix x = solve(MatrixUtils.createColumnRealMatrix(b.toArray()));
+            return new ArrayRealVector(x.getColumn(0), false);
+        }
+
+        /** {@inheritDoc} */
+        public RealMatrix solve(RealMatrix b) {
+            if (b.getRowDimension() != rows) {
+                throw new DimensionMismatchException(b.getRowDimension(), rows);
+            }
+            if (!isNonSingular()) {
+                throw new SingularMatrixException();
+            }
+
+            // square upper triangular part of R
+            final int p = rDiag.length;
+            final int pBlocks = BlockOperations.blockCount(p);
+            final int n = BlockOperations.blockCount(columns);
+            final double[][] r = new double[pBlocks * pBlocks][];
+            final double[][] upper = upper(p);
+            for (int iBlock = 0; iBlock < pBlocks; ++iBlock) {
+                for (int jBlock = 0; jBlock < pBlocks; ++jBlock) {
+                    if (BlockOperations.blockSize(jBlock, p) == BlockOperations.blockSize(jBlock, columns)) {
+                        r[iBlock * pBlocks + jBlock] = upper[iBlock * n + jBlock];
+                    } else {
+                        // last column of blocks of a matrix with fewer rows than columns
+                        final int height = BlockOperations.blockSize(iBlock, p);
+                        final int width  = BlockOperations.blockSize(jBlock, columns);
+                        final int pWidth = BlockOperations.blockSize(jBlock, p);
+                        final double[] block = new double[height * pWidth];
+                        for (int row = 0; row < height; ++row) {
+                            System.arraycopy(upper[iBlock * n + jBlock], row * width,
+                                             block, row * pWidth, pWidth);
+                        }
+                        r[iBlock * pBlocks + jBlock] = block;
+                    }
+                }
+            }
+
+            // solve Q.y = b, then R.x = y
+            final int bColumns = b.getColumnDimension();
+            final int cBlocks = BlockOperations.blockCount(bColumns);
+            final double[][] y = BlockOperations.copyBlocks(b);
+            final long operations = 4l * rows * p * bColumns;
+            BlockOperations.forEach(executor, operations, 0, cBlocks, new BlockOperations.Loop() {
+                public void run(final int j) {
+                    for (int k = 0; k < t.length; ++k) {
+                        applyReflectors(k, y, cBlocks, bColumns, j, true);
+                    }
+                    BlockOperations.solveUpper(r, p, y, cBlocks, bColumns, j);
+                }
+            });
+
+            // copy the leading rows of y, the other unknowns are set to 0
+            final double[][] x = BlockRealMatrix.createBlocksLayout(columns, bColumns);
+            for (int iBlock = 0; iBlock < pBlocks; ++iBlock) {
+                final int height = BlockOperations.blockSize(iBlock, p);
+                for (int jBlock = 0; jBlock < cBlocks; ++jBlock) {
+                    System.arraycopy(y[iBlock * cBlocks + jBlock], 0, x[iBlock * cBlocks + jBlock], 0,
+                                     height * BlockOperations.blockSize(jBlock, bColumns));
+                }
+            }
+            return new BlockRealMatrix(columns, bColumns, x, false);
+        }
+
+        /** {@inheritDoc} */
+        public RealMatrix getInverse() {
+            return solve(MatrixUtils.createRealIdentityMatrix(rDiag.length));
+        }
+    }
+}
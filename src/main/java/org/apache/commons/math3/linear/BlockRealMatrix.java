@@ -537,59 +537,45 @@ public class BlockRealMatrix extends AbstractRealMatrix implements Serializable
         MatrixUtils.checkMultiplicationCompatible(this, m);
 
         final BlockRealMatrix out = new BlockRealMatrix(rows, m.columns);
+        multiplyBlocks(m, out, 0, out.blocks.length);
+        return out;
+    }
 
-        // perform multiplication block-wise, to ensure good cache behavior
-        int blockIndex = 0;
-        for (int iBlock = 0; iBlock < out.blockRows; ++iBlock) {
-
-            final int pStart = iBlock * BLOCK_SIZE;
-            final int pEnd = FastMath.min(pStart + BLOCK_SIZE, rows);
-
-            for (int jBlock = 0; jBlock < out.blockColumns; ++jBlock) {
-                final int jWidth = out.blockWidth(jBlock);
-                final int jWidth2 = jWidth  + jWidth;
-                final int jWidth3 = jWidth2 + jWidth;
-                final int jWidth4 = jWidth3 + jWidth;
-
-                // select current block
-                final double[] outBlock = out.blocks[blockIndex];
-
-                // perform multiplication on current block
-                for (int kBlock = 0; kBlock < blockColumns; ++kBlock) {
-                    final int kWidth = blockWidth(kBlock);
-                    final double[] tBlock = blocks[iBlock * blockColumns + kBlock];
-                    final double[] mBlock = m.blocks[kBlock * m.blockColumns + jBlock];
-                    int k = 0;
-                    for (int p = pStart; p < pEnd; ++p) {
-                        final int lStart = (p - pStart) * kWidth;
-                        final int lEnd = lStart + kWidth;
-                        for (int nStart = 0; nStart < jWidth; ++nStart) {
-                            double sum = 0;
-                            int l = lStart;
-                            int n = nStart;
-                            while (l < lEnd - 3) {
-                                sum += tBlock[l] * mBlock[n] +
-                                       tBlock[l + 1] * mBlock[n + jWidth] +
-                                       tBlock[l + 2] * mBlock[n + jWidth2] +
-                                       tBlock[l + 3] * mBlock[n + jWidth3];
-                                l += 4;
-                                n += jWidth4;
-                            }
-                            while (l < lEnd) {
-                                sum += tBlock[l++] * mBlock[n];
-                                n += jWidth;
-                            }
-                            outBlock[k] += sum;
-                            ++k;
-                        }
-                    }
-                }
-                // go to next block
-                ++blockIndex;
+    /**
+     * Computes a range of blocks of the product of this by {@code m}.
+     * <p>
+     * The blocks are independent of each other, so that disjoint ranges can
+     * be computed concurrently (see {@link ParallelMatrixMultiplier}).
+     * </p>
+     *
+     * @param m Matrix to postmultiply by (its dimensions must be compatible).
+     * @param out Product matrix, whose blocks are accumulated into.
+     * @param start Index of the first block of {@code out} to compute.
+     * @param end Index following the last block of {@code out} to compute.
+     */
+    void multiplyBlocks(final BlockRealMatrix m, final BlockRealMatrix out,
+                        final int start, final int end) {
+        for (int blockIndex = start; blockIndex < end; ++blockIndex) {
+            final int iBlock = blockIndex / out.blockColumns;
+            final int jBlock = blockIndex - iBlock * out.blockColumns;
+            final int iHeight = blockHeight(iBlock);
+            final int jWidth = out.blockWidth(jBlock);
+            final double[] outBlock = out.blocks[blockIndex];
+            for (int kBlock = 0; kBlock < blockColumns; ++kBlock) {
+                BlockOperations.multiplyAdd(blocks[iBlock * blockColumns + kBlock],
+                                            m.blocks[kBlock * m.blockColumns + jBlock],
+                                            outBlock, iHeight, blockWidth(kBlock), jWidth, 1);
             }
         }
+    }
 
-        return out;
+    /**
+     * Get a reference to the blocks of the matrix.
+     *
+     * @return the blocks of the matrix (not a copy).
+     */
+    double[][] getBlocksRef() {
+        return blocks;
     }
 
     /** {@inheritDoc} */
@@ -1265,9 +1251,26 @@ public class BlockRealMatrix extends AbstractRealMatrix implements Serializable
             throw new DimensionMismatchException(v.length, columns);
         }
         final double[] out = new double[rows];
+        operateBlockRows(v, out, 0, blockRows);
+        return out;
+    }
 
+    /**
+     * Computes a range of block rows of the product of this by a vector.
+     * <p>
+     * The block rows are independent of each other, so that disjoint ranges
+     * can be computed concurrently (see {@link ParallelMatrixMultiplier}).
+     * </p>
+     *
+     * @param v Vector to multiply (its dimension must be the number of columns).
+     * @param out Product vector, whose entries are accumulated into.
+     * @param start Index of the first block row to compute.
+     * @param end Index following the last block row to compute.
+     */
+    void operateBlockRows(final double[] v, final double[] out,
+                          final int start, final int end) {
         // perform multiplication block-wise, to ensure good cache behavior
-        for (int iBlock = 0; iBlock < blockRows; ++iBlock) {
+        for (int iBlock = start; iBlock < end; ++iBlock) {
             final int pStart = iBlock * BLOCK_SIZE;
             final int pEnd = FastMath.min(pStart + BLOCK_SIZE, rows);
             for (int jBlock = 0; jBlock < blockColumns; ++jBlock) {
@@ -1276,7 +1279,8 @@ public class BlockRealMatrix extends AbstractRealMatrix implements Serializable
                 final int qEnd = FastMath.min(qStart + BLOCK_SIZE, columns);
                 int k = 0;
                 for (int p = pStart; p < pEnd; ++p) {
-                    double sum = 0;
+                    // same grouping of the terms as in BlockOperations.multiplyAdd
+                    double sum = out[p];
                     int q = qStart;
                     while (q < qEnd - 3) {
                         sum += block[k]     * v[q]     +
@@ -1289,12 +1293,10 @@ public class BlockRealMatrix extends AbstractRealMatrix implements Serializable
                     while (q < qEnd) {
                         sum += block[k++] * v[q++];
                     }
-                    out[p] += sum;
+                    out[p] = sum;
                 }
             }
         }
-
-        return out;
     }
 
     /** {@inheritDoc} */
@@ -1320,7 +1322,8 @@ public class BlockRealMatrix extends AbstractRealMatrix implements Serializable
                 final int pEnd = FastMath.min(pStart + BLOCK_SIZE, rows);
                 for (int q = qStart; q < qEnd; ++q) {
                     int k = q - qStart;
-                    double sum = 0;
+                    // same grouping of the terms as in BlockOperations.multiplyAdd
+                    double sum = out[q];
                     int p = pStart;
                     while (p < pEnd - 3) {
                         sum += block[k]           * v[p]     +
@@ -1334,7 +1337,7 @@ public class BlockRealMatrix extends AbstractRealMatrix implements Serializable
                         sum += block[k] * v[p++];
                         k += jWidth;
                     }
-                    out[q] += sum;
+                    out[q] = sum;
                 }
             }
         }
@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.linear;
+
+import java.io.Serializable;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NonMonotonicSequenceException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+
+/**
+ * Sparse matrix stored in compressed column storage (CCS, also known as
+ * compressed sparse column or CSC) format.
+ * <br/>
+ * The non-zero entries of column {@code j} are stored at positions
+ * {@code columnStart[j]} (inclusive) to {@code columnStart[j + 1]} (exclusive)
+ * of the {@code rowIndex} and {@code values} arrays, sorted by increasing
+ * row index. This is the compressed row storage of the transpose, hence
+ * {@link #transpose() transposition} between the two formats only copies
+ * the values, and this class has the same memory footprint and the same
+ * costs as {@link CompressedRowRealMatrix}. The column format is the
+ * natural one for accessing the columns of a matrix, or for matrices
+ * built column by column.
+ * <br/>
+ * The sparsity pattern is fixed at construction: the value of a stored
+ * entry can be changed, but setting a non-zero value to an entry that
+ * is not stored is not supported.
+ *
+ * @see CompressedRowRealMatrix
+ * @see SparseMatrixBuilder
+ * @version $Id$
+ * @since 3.3
+ */
+public class CompressedColumnRealMatrix extends AbstractRealMatrix
+    implements Serializable {
+    /** Serializable version identifier. */
+    private static final long serialVersionUID = 20140510L;
+    /** Transpose of the matrix, in compressed row storage (shares the arrays). */
+    private final CompressedRowRealMatrix transposed;
+
+    /**
+     * Creates a matrix from its compressed column representation.
+     * <br/>
+     * The input arrays are copied, not referenced.
+     *
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param columnStart Position of the first stored entry of each column in
+     * {@code rowIndex} and {@code values}, followed by the number of
+     * stored entries ({@code columns + 1} elements).
+     * @param rowIndex Row of each stored entry.
+     * @param values Value of each stored entry.
+     * @throws NotStrictlyPositiveException if the dimensions are not positive.
+     * @throws NullArgumentException if one of the arrays is {@code null}.
+     * @throws DimensionMismatchException if the array lengths are not
+     * consistent.
+     * @throws NonMonotonicSequenceException if {@code columnStart} is not
+     * non-decreasing or the row indices of a column are not strictly
+     * increasing.
+     * @throws OutOfRangeException if a row index or an element of
+     * {@code columnStart} is out of range.
+     */
+    public CompressedColumnRealMatrix(final int rows, final int columns,
+                                      final int[] columnStart,
+                                      final int[] rowIndex,
+                                      final double[] values)
+        throws NotStrictlyPositiveException, NullArgumentException,
+               DimensionMismatchException, NonMonotonicSequenceException,
+               OutOfRangeException {
+        this(rows, columns, columnStart, rowIndex, values, true);
+    }
+
+    /**
+     * Creates a matrix from its compressed column representation.
+     * <br/>
+     * If the arrays are created specially in order to be embedded in
+     * this instance and not used directly, the {@code copyArray} may be
+     * set to {@code false}. This will prevent the copying and improve
+     * performance as no new arrays will be built and no data will be
+     * copied.
+     *
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param columnStart Position of the first stored entry of each column in
+     * {@code rowIndex} and {@code values}, followed by the number of
+     * stored entries ({@code columns + 1} elements).
+     * @param rowIndex Row of each stored entry.
+     * @param values Value of each stored entry.
+     * @param copyArray if {@code true}, the input arrays will be copied,
+     * otherwise they will be referenced.
+     * @throws NotStrictlyPositiveException if the dimensions are not positive.
+     * @throws NullArgumentException if one of the arrays is {@code null}.
+     * @throws DimensionMismatchException if the array lengths are not
+     * consistent.
+     * @throws NonMonotonicSequenceException if {@code columnStart} is not
+     * non-decreasing or the row indices of a column are not strictly
+     * increasing.
+     * @throws OutOfRangeException if a row index or an element of
+     * {@code columnStart} is out of range.
+     */
+    public CompressedColumnRealMatrix(final int rows, final int columns,
+                                      final int[] columnStart,
+                                      final int[] rowIndex,
+                                      final double[] values,
+                                      final boolean copyArray)
+        throws NotStrictlyPositiveException, NullArgumentException,
+               DimensionMismatchException, NonMonotonicSequenceException,
+               OutOfRangeException {
+        this(new CompressedRowRealMatrix(columns, rows, columnStart, rowIndex, values, copyArray));
+    }
+
+    /**
+     * Creates a matrix from its transpose.
+     *
+     * @param transposed Transpose of the matrix (referenced, not copied).
+     */
+    CompressedColumnRealMatrix(final CompressedRowRealMatrix transposed) {
+        super(transposed.getColumnDimension(), transposed.getRowDimension());
+        this.transposed = transposed;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealMatrix createMatrix(final int rowDimension,
+                                   final int columnDimension)
+        throws NotStrictlyPositiveException {
+        return MatrixUtils.createRealMatrix(rowDimension, columnDimension);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * The sparsity pattern is shared with the copy.
+     */
+    @Override
+    public CompressedColumnRealMatrix copy() {
+        return new CompressedColumnRealMatrix(transposed.copy());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * The transpose is stored in compressed row format: it shares the
+     * sparsity pattern of this matrix, and only the values are copied.
+     */
+    @Override
+    public CompressedRowRealMatrix transpose() {
+        return transposed.copy();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * If {@code m} is also a {@code CompressedColumnRealMatrix}, the product
+     * is computed from the stored entries of both matrices and returned in
+     * compressed column format. Otherwise, the product is dense, and it is
+     * computed in time proportional to the number of stored entries of this
+     * matrix times the column dimension of {@code m}.
+     */
+    @Override
+    public RealMatrix multiply(final RealMatrix m)
+        throws DimensionMismatchException {
+        MatrixUtils.checkMultiplicationCompatible(this, m);
+        if (m instanceof CompressedColumnRealMatrix) {
+            // (this m)^T = m^T this^T
+            final CompressedColumnRealMatrix sparse = (CompressedColumnRealMatrix) m;
+            return new CompressedColumnRealMatrix((CompressedRowRealMatrix) sparse.transposed.multiply(transposed));
+        }
+
+        final int[] columnStart = transposed.getRowStartRef();
+        final int[] rowIndex = transposed.getColumnIndexRef();
+        final double[] values = transposed.getValuesRef();
+        final int nCols = m.getColumnDimension();
+        final double[][] mData = (m instanceof Array2DRowRealMatrix) ?
+                                 ((Array2DRowRealMatrix) m).getDataRef() :
+                                 m.getData();
+        final double[][] out = new double[getRowDimension()][nCols];
+        for (int c = 0; c < columnStart.length - 1; c++) {
+            final double[] mRow = mData[c];
+            for (int k = columnStart[c]; k < columnStart[c + 1]; k++) {
+                final double a = values[k];
+                final double[] outRow = out[rowIndex[k]];
+                for (int j = 0; j < nCols; j++) {
+                    outRow[j] += a * mRow[j];
+                }
+            }
+        }
+        return new Array2DRowRealMatrix(out, false);
+    }
+
+    /**
+     * Gets the number of stored entries.
+     *
+     * @return the number of stored entries.
+     */
+    public int getNonZeroCount() {
+        return transposed.getNonZeroCount();
+    }
+
+    /**
+     * Gets a reference to the column start array: the stored entries of
+     * column {@code j} are at positions {@code columnStart[j]} (inclusive)
+     * to {@code columnStart[j + 1]} (exclusive) of the
+     * {@link #getRowIndexRef() row index} and
+     * {@link #getValuesRef() values} arrays.
+     * <br/>
+     * The array must not be modified.
+     *
+     * @return the column start array ({@code columns + 1} elements).
+     */
+    public int[] getColumnStartRef() {
+        return transposed.getRowStartRef();
+    }
+
+    /**
+     * Gets a reference to the row indices of the stored entries.
+     * <br/>
+     * The array must not be modified.
+     *
+     * @return the row index of each stored entry.
+     */
+    public int[] getRowIndexRef() {
+        return transposed.getColumnIndexRef();
+    }
+
+    /**
+     * Gets a reference to the values of the stored entries.
+     *
+     * @return the value of each stored entry.
+     */
+    public double[] getValuesRef() {
+        return transposed.getValuesRef();
+    }
+
+    /**
+     * Visits the stored entries of the matrix, in column order. The entries
+     * that are not stored (hence zero) are skipped.
+     *
+     * @param visitor Visitor used to process the stored entries.
+     * @return the value returned by {@link RealMatrixPreservingVisitor#end()}
+     * at the end of the walk.
+     */
+    public double walkInNonZeroOrder(final RealMatrixPreservingVisitor visitor) {
+        final int rows = getRowDimension();
+        final int columns = getColumnDimension();
+        final int[] columnStart = transposed.getRowStartRef();
+        final int[] rowIndex = transposed.getColumnIndexRef();
+        final double[] values = transposed.getValuesRef();
+        visitor.start(rows, columns, 0, rows - 1, 0, columns - 1);
+        for (int j = 0; j < columns; j++) {
+            for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                visitor.visit(rowIndex[k], j, values[k]);
+            }
+        }
+        return visitor.end();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getEntry(final int row, final int column)
+        throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        return transposed.getEntry(column, row);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws MathUnsupportedOperationException if the entry is not stored
+     * and {@code value} is not zero.
+     */
+    @Override
+    public void setEntry(final int row, final int column, final double value)
+        throws OutOfRangeException, MathUnsupportedOperationException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        transposed.setEntry(column, row, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws MathUnsupportedOperationException if the entry is not stored
+     * and {@code increment} is not zero.
+     */
+    @Override
+    public void addToEntry(final int row, final int column,
+                           final double increment)
+        throws OutOfRangeException, MathUnsupportedOperationException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        transposed.addToEntry(column, row, increment);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void multiplyEntry(final int row, final int column,
+                              final double factor)
+        throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        transposed.multiplyEntry(column, row, factor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRowDimension() {
+        return transposed.getColumnDimension();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnDimension() {
+        return transposed.getRowDimension();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] getColumn(final int column) throws OutOfRangeException {
+        MatrixUtils.checkColumnIndex(this, column);
+        return transposed.getRow(column);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] operate(final double[] v)
+        throws DimensionMismatchException {
+        return transposed.preMultiply(v);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealVector operate(final RealVector v)
+        throws DimensionMismatchException {
+        return transposed.preMultiply(v);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] preMultiply(final double[] v)
+        throws DimensionMismatchException {
+        return transposed.operate(v);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealVector preMultiply(final RealVector v)
+        throws DimensionMismatchException {
+        return transposed.operate(v);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * This is the same as {@link #preMultiply(RealVector) preMultiply}.
+     */
+    @Override
+    public RealVector operateTranspose(final RealVector x)
+        throws DimensionMismatchException {
+        return preMultiply(x);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code true}.
+     */
+    @Override
+    public boolean isTransposable() {
+        return true;
+    }
+}
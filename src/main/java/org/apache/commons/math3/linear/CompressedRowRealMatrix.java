@@ -0,0 +1,584 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NonMonotonicSequenceException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Sparse matrix stored in compressed row storage (CRS, also known as
+ * compressed sparse row or CSR) format.
+ * <br/>
+ * The non-zero entries of row {@code i} are stored at positions
+ * {@code rowStart[i]} (inclusive) to {@code rowStart[i + 1]} (exclusive)
+ * of the {@code columnIndex} and {@code values} arrays, sorted by
+ * increasing column index. The memory footprint is proportional to the
+ * number of stored entries (12 bytes per entry and 4 bytes per row), and
+ * {@link #operate(double[]) operate}, {@link #preMultiply(double[]) preMultiply}
+ * and {@link #transpose() transpose} run in time proportional to that number,
+ * which makes this class suitable for large Jacobians or iterative solvers
+ * such as {@link ConjugateGradient} and {@link SymmLQ}. Matrices are most
+ * easily built from their entries with a {@link SparseMatrixBuilder}.
+ * <br/>
+ * The sparsity pattern is fixed at construction: the value of a stored
+ * entry can be changed, but setting a non-zero value to an entry that
+ * is not stored is not supported.
+ *
+ * @see CompressedColumnRealMatrix
+ * @see SparseMatrixBuilder
+ * @version $Id$
+ * @since 3.3
+ */
+public class CompressedRowRealMatrix extends AbstractRealMatrix
+    implements Serializable {
+    /** Serializable version identifier. */
+    private static final long serialVersionUID = 20140419L;
+    /** Number of rows. */
+    private final int rows;
+    /** Number of columns. */
+    private final int columns;
+    /** Position of the first stored entry of each row, and number of entries. */
+    private final int[] rowStart;
+    /** Column of each stored entry. */
+    private final int[] columnIndex;
+    /** Value of each stored entry. */
+    private final double[] values;
+
+    /**
+     * Creates a matrix from its compressed row representation.
+     * <br/>
+     * The input arrays are copied, not referenced.
+     *
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param rowStart Position of the first stored entry of each row in
+     * {@code columnIndex} and {@code values}, followed by the number of
+     * stored entries ({@code rows + 1} elements).
+     * @param columnIndex Column of each stored entry.
+     * @param values Value of each stored entry.
+     * @throws NotStrictlyPositiveException if the dimensions are not positive.
+     * @throws NullArgumentException if one of the arrays is {@code null}.
+     * @throws DimensionMismatchException if the array lengths are not
+     * consistent.
+     * @throws NonMonotonicSequenceException if {@code rowStart} is not
+     * non-decreasing or the column indices of a row are not strictly
+     * increasing.
+     * @throws OutOfRangeException if a column index or an element of
+     * {@code rowStart} is out of range.
+     */
+    public CompressedRowRealMatrix(final int rows, final int columns,
+                                   final int[] rowStart,
+                                   final int[] columnIndex,
+                                   final double[] values)
+        throws NotStrictlyPositiveException, NullArgumentException,
+               DimensionMismatchException, NonMonotonicSequenceException,
+               OutOfRangeException {
+        this(rows, columns, rowStart, columnIndex, values, true);
+    }
+
+    /**
+     * Creates a matrix from its compressed row representation.
+     * <br/>
+     * If the arrays are created specially in order to be embedded in
+     * this instance and not used directly, the {@code copyArray} may be
+     * set to {@code false}. This will prevent the copying and improve
+     * performance as no new arrays will be built and no data will be
+     * copied.
+     *
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param rowStart Position of the first stored entry of each row in
+     * {@code columnIndex} and {@code values}, followed by the number of
+     * stored entries ({@code rows + 1} elements).
+     * @param columnIndex Column of each stored entry.
+     * @param values Value of each stored entry.
+     * @param copyArray if {@code true}, the input arrays will be copied,
+     * otherwise they will be referenced.
+     * @throws NotStrictlyPositiveException if the dimensions are not positive.
+     * @throws NullArgumentException if one of the arrays is {@code null}.
+     * @throws DimensionMismatchException if the array lengths are not
+     * consistent.
+     * @throws NonMonotonicSequenceException if {@code rowStart} is not
+     * non-decreasing or the column indices of a row are not strictly
+     * increasing.
+     * @throws OutOfRangeException if a column index or an element of
+     * {@code rowStart} is out of range.
+     */
+    public CompressedRowRealMatrix(final int rows, final int columns,
+                                   final int[] rowStart,
+                                   final int[] columnIndex,
+                                   final double[] values,
+                                   final boolean copyArray)
+        throws NotStrictlyPositiveException, NullArgumentException,
+               DimensionMismatchException, NonMonotonicSequenceException,
+               OutOfRangeException {
+        super(rows, columns);
+        MathUtils.checkNotNull(rowStart);
+        MathUtils.checkNotNull(columnIndex);
+        MathUtils.checkNotNull(values);
+        if (rowStart.length != rows + 1) {
+            throw new DimensionMismatchException(rowStart.length, rows + 1);
+        }
+        if (values.length != columnIndex.length) {
+            throw new DimensionMismatchException(values.length, columnIndex.length);
+        }
+        if (rowStart[0] != 0) {
+            throw new OutOfRangeException(rowStart[0], 0, 0);
+        }
+        if (rowStart[rows] != values.length) {
+            throw new DimensionMismatchException(rowStart[rows], values.length);
+        }
+
+        this.rows = rows;
+        this.columns = columns;
+
+        for (int i = 0; i < rows; i++) {
+            if (rowStart[i + 1] < rowStart[i]) {
+                throw new NonMonotonicSequenceException(rowStart[i + 1], rowStart[i], i + 1);
+            }
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                MatrixUtils.checkColumnIndex(this, columnIndex[k]);
+                if (k > rowStart[i] && columnIndex[k] <= columnIndex[k - 1]) {
+                    throw new NonMonotonicSequenceException(columnIndex[k], columnIndex[k - 1], k);
+                }
+            }
+        }
+
+        this.rowStart = copyArray ? rowStart.clone() : rowStart;
+        this.columnIndex = copyArray ? columnIndex.clone() : columnIndex;
+        this.values = copyArray ? values.clone() : values;
+    }
+
+    /**
+     * Creates a matrix with the same sparsity pattern as another one.
+     *
+     * @param pattern Matrix whose structure is shared (it is never modified).
+     * @param values Value of each stored entry (referenced, not copied).
+     */
+    private CompressedRowRealMatrix(final CompressedRowRealMatrix pattern,
+                                    final double[] values) {
+        super(pattern.rows, pattern.columns);
+        this.rows = pattern.rows;
+        this.columns = pattern.columns;
+        this.rowStart = pattern.rowStart;
+        this.columnIndex = pattern.columnIndex;
+        this.values = values;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealMatrix createMatrix(final int rowDimension,
+                                   final int columnDimension)
+        throws NotStrictlyPositiveException {
+        return MatrixUtils.createRealMatrix(rowDimension, columnDimension);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * The sparsity pattern is shared with the copy.
+     */
+    @Override
+    public CompressedRowRealMatrix copy() {
+        return new CompressedRowRealMatrix(this, values.clone());
+    }
+
+    /**
+     * Returns a matrix with the same sparsity pattern as this one and
+     * each row multiplied by a factor. Only the stored entries are
+     * scaled, hence the cost is proportional to their number.
+     *
+     * @param factors Factor of each row.
+     * @return a matrix whose row {@code i} is {@code factors[i]} times
+     * row {@code i} of this matrix.
+     * @throws DimensionMismatchException if the length of {@code factors}
+     * is not the row dimension.
+     */
+    public CompressedRowRealMatrix scaleRows(final double[] factors)
+        throws DimensionMismatchException {
+        if (factors.length != rows) {
+            throw new DimensionMismatchException(factors.length, rows);
+        }
+        final double[] scaled = new double[values.length];
+        for (int i = 0; i < rows; i++) {
+            final double f = factors[i];
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                scaled[k] = f * values[k];
+            }
+        }
+        return new CompressedRowRealMatrix(this, scaled);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * The transpose is stored in compressed column format: it shares the
+     * sparsity pattern of this matrix, and only the values are copied.
+     */
+    @Override
+    public CompressedColumnRealMatrix transpose() {
+        return new CompressedColumnRealMatrix(copy());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * If {@code m} is also a {@code CompressedRowRealMatrix}, the product is
+     * computed from the stored entries of both matrices and returned in
+     * compressed row format. Otherwise, the product is dense, and it is
+     * computed in time proportional to the number of stored entries of this
+     * matrix times the column dimension of {@code m}.
+     */
+    @Override
+    public RealMatrix multiply(final RealMatrix m)
+        throws DimensionMismatchException {
+        MatrixUtils.checkMultiplicationCompatible(this, m);
+        if (m instanceof CompressedRowRealMatrix) {
+            return multiplySparse((CompressedRowRealMatrix) m);
+        }
+
+        final int nCols = m.getColumnDimension();
+        final double[][] mData = (m instanceof Array2DRowRealMatrix) ?
+                                 ((Array2DRowRealMatrix) m).getDataRef() :
+                                 m.getData();
+        final double[][] out = new double[rows][nCols];
+        for (int i = 0; i < rows; i++) {
+            final double[] outRow = out[i];
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                final double a = values[k];
+                final double[] mRow = mData[columnIndex[k]];
+                for (int j = 0; j < nCols; j++) {
+                    outRow[j] += a * mRow[j];
+                }
+            }
+        }
+        return new Array2DRowRealMatrix(out, false);
+    }
+
+    /**
+     * Multiplies two sparse matrices (Gustavson's algorithm).
+     *
+     * @param m Matrix to postmultiply by (dimensions already checked).
+     * @return {@code this * m}, in compressed row format.
+     */
+    private CompressedRowRealMatrix multiplySparse(final CompressedRowRealMatrix m) {
+        final int nCols = m.columns;
+        final int[] marker = new int[nCols];
+        Arrays.fill(marker, -1);
+
+        // count the entries of each row of the product
+        final int[] start = new int[rows + 1];
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                final int c = columnIndex[k];
+                for (int l = m.rowStart[c]; l < m.rowStart[c + 1]; l++) {
+                    final int j = m.columnIndex[l];
+                    if (marker[j] != i) {
+                        marker[j] = i;
+                        ++count;
+                    }
+                }
+            }
+            start[i + 1] = count;
+        }
+
+        // accumulate the entries of each row in a dense work array
+        final int[] index = new int[count];
+        final double[] product = new double[count];
+        final double[] work = new double[nCols];
+        Arrays.fill(marker, -1);
+        for (int i = 0; i < rows; i++) {
+            int position = start[i];
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                final double a = values[k];
+                final int c = columnIndex[k];
+                for (int l = m.rowStart[c]; l < m.rowStart[c + 1]; l++) {
+                    final int j = m.columnIndex[l];
+                    if (marker[j] != i) {
+                        marker[j] = i;
+                        index[position++] = j;
+                        work[j] = 0;
+                    }
+                    work[j] += a * m.values[l];
+                }
+            }
+            Arrays.sort(index, start[i], start[i + 1]);
+            for (int q = start[i]; q < start[i + 1]; q++) {
+                product[q] = work[index[q]];
+            }
+        }
+
+        return new CompressedRowRealMatrix(rows, nCols, start, index, product, false);
+    }
+
+    /**
+     * Gets the number of stored entries.
+     *
+     * @return the number of stored entries.
+     */
+    public int getNonZeroCount() {
+        return values.length;
+    }
+
+    /**
+     * Gets a reference to the row start array: the stored entries of row
+     * {@code i} are at positions {@code rowStart[i]} (inclusive) to
+     * {@code rowStart[i + 1]} (exclusive) of the
+     * {@link #getColumnIndexRef() column index} and
+     * {@link #getValuesRef() values} arrays.
+     * <br/>
+     * The array must not be modified.
+     *
+     * @return the row start array ({@code rows + 1} elements).
+     */
+    public int[] getRowStartRef() {
+        return rowStart;
+    }
+
+    /**
+     * Gets a reference to the column indices of the stored entries.
+     * <br/>
+     * The array must not be modified.
+     *
+     * @return the column index of each stored entry.
+     */
+    public int[] getColumnIndexRef() {
+        return columnIndex;
+    }
+
+    /**
+     * Gets a reference to the values of the stored entries.
+     *
+     * @return the value of each stored entry.
+     */
+    public double[] getValuesRef() {
+        return values;
+    }
+
+    /**
+     * Visits the stored entries of the matrix, in row order. The entries
+     * that are not stored (hence zero) are skipped.
+     *
+     * @param visitor Visitor used to process the stored entries.
+     * @return the value returned by {@link RealMatrixPreservingVisitor#end()}
+     * at the end of the walk.
+     */
+    public double walkInNonZeroOrder(final RealMatrixPreservingVisitor visitor) {
+        visitor.start(rows, columns, 0, rows - 1, 0, columns - 1);
+        for (int i = 0; i < rows; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                visitor.visit(i, columnIndex[k], values[k]);
+            }
+        }
+        return visitor.end();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getEntry(final int row, final int column)
+        throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        final int k = find(row, column);
+        return k < 0 ? 0 : values[k];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws MathUnsupportedOperationException if the entry is not stored
+     * and {@code value} is not zero.
+     */
+    @Override
+    public void setEntry(final int row, final int column, final double value)
+        throws OutOfRangeException, MathUnsupportedOperationException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        final int k = find(row, column);
+        if (k >= 0) {
+            values[k] = value;
+        } else if (value != 0) {
+            throw new MathUnsupportedOperationException();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws MathUnsupportedOperationException if the entry is not stored
+     * and {@code increment} is not zero.
+     */
+    @Override
+    public void addToEntry(final int row, final int column,
+                           final double increment)
+        throws OutOfRangeException, MathUnsupportedOperationException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        final int k = find(row, column);
+        if (k >= 0) {
+            values[k] += increment;
+        } else if (increment != 0) {
+            throw new MathUnsupportedOperationException();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void multiplyEntry(final int row, final int column,
+                              final double factor)
+        throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        final int k = find(row, column);
+        if (k >= 0) {
+            values[k] *= factor;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRowDimension() {
+        return rows;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnDimension() {
+        return columns;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] getRow(final int row) throws OutOfRangeException {
+        MatrixUtils.checkRowIndex(this, row);
+        final double[] out = new double[columns];
+        for (int k = rowStart[row]; k < rowStart[row + 1]; k++) {
+            out[columnIndex[k]] = values[k];
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] operate(final double[] v)
+        throws DimensionMismatchException {
+        if (v.length != columns) {
+            throw new DimensionMismatchException(v.length, columns);
+        }
+        final double[] out = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            double sum = 0;
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                sum += values[k] * v[columnIndex[k]];
+            }
+            out[i] = sum;
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealVector operate(final RealVector v)
+        throws DimensionMismatchException {
+        if (v instanceof ArrayRealVector) {
+            return new ArrayRealVector(operate(((ArrayRealVector) v).getDataRef()), false);
+        }
+        return new ArrayRealVector(operate(v.toArray()), false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealVector preMultiply(final RealVector v)
+        throws DimensionMismatchException {
+        if (v instanceof ArrayRealVector) {
+            return new ArrayRealVector(preMultiply(((ArrayRealVector) v).getDataRef()), false);
+        }
+        return new ArrayRealVector(preMultiply(v.toArray()), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * This is the same as {@link #preMultiply(RealVector) preMultiply}.
+     */
+    @Override
+    public RealVector operateTranspose(final RealVector x)
+        throws DimensionMismatchException {
+        return preMultiply(x);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code true}.
+     */
+    @Override
+    public boolean isTransposable() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] preMultiply(final double[] v)
+        throws DimensionMismatchException {
+        if (v.length != rows) {
+            throw new DimensionMismatchException(v.length, rows);
+        }
+        final double[] out = new double[columns];
+        for (int i = 0; i < rows; i++) {
+            final double vi = v[i];
+            if (vi != 0) {
+                for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                    out[columnIndex[k]] += vi * values[k];
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Finds the position of an entry in the storage arrays.
+     *
+     * @param row Row index (must be valid).
+     * @param column Column index (must be valid).
+     * @return the position of the entry, or a negative value if it is
+     * not stored.
+     */
+    private int find(final int row, final int column) {
+        int low = rowStart[row];
+        int high = rowStart[row + 1] - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int c = columnIndex[mid];
+            if (c < column) {
+                low = mid + 1;
+            } else if (c > column) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Incrementor;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * Calculates the largest eigenvalues, and the corresponding eigenvectors, of
+ * a self-adjoint linear operator.
+ * <p>This class implements the thick-restart Lanczos method. An orthonormal
+ * basis of a Krylov subspace is built with the products of the operator by
+ * vectors only, so that the operator may be a large sparse matrix or even a
+ * matrix-free operator. The Ritz pairs of the operator restricted to the
+ * subspace approximate its extreme eigenpairs; when the basis is full, the
+ * Ritz vectors of the largest Ritz values are kept and the basis is expanded
+ * again from the residual, until the k largest pairs have converged.</p>
+ * <p>The basis vectors are fully reorthogonalized, so the Ritz values do not
+ * suffer from the spurious copies of the plain Lanczos recurrence. The memory
+ * used is about max(2k + 1, k + 20) vectors.</p>
+ * <p>The eigenvalues are the largest ones in the algebraic sense, sorted in
+ * decreasing order; the smallest eigenvalues of A are the opposite of the
+ * largest eigenvalues of -A. The operator is assumed to be self-adjoint,
+ * which is not checked.</p>
+ *
+ * @see SymmetricEigenDecomposition
+ * @see <a href="http://dx.doi.org/10.1137/S0895479898334605">Wu and Simon,
+ * Thick-Restart Lanczos Method for Large Symmetric Eigenvalue Problems</a>
+ * @version $Id$
+ * @since 3.3
+ */
+public class LanczosEigenDecomposition {
+    /** Default relative tolerance on the residuals of the eigenpairs. */
+    private static final double DEFAULT_TOLERANCE = 1e-10;
+    /** Default seed of the generator of the starting vector. */
+    private static final long DEFAULT_SEED = 0x4c616e637a6f73l;
+    /** Eigenvalues, in decreasing order. */
+    private final double[] eigenvalues;
+    /** Eigenvectors. */
+    private final double[][] eigenvectors;
+    /** Number of products of the operator by a vector. */
+    private final int iterations;
+    /** Cached value of V. */
+    private RealMatrix cachedV;
+
+    /**
+     * Calculates the k largest eigenpairs of a self-adjoint operator, with a
+     * relative tolerance of 10<sup>-10</sup> on the residuals.
+     *
+     * @param a Self-adjoint operator.
+     * @param k Number of eigenpairs.
+     * @param maxIterations Maximum number of products of the operator by a
+     * vector.
+     * @throws NonSquareOperatorException if the operator is not square.
+     * @throws NotStrictlyPositiveException if {@code k} is not positive.
+     * @throws NumberIsTooLargeException if {@code k} is larger than the
+     * dimension of the operator.
+     * @throws MaxCountExceededException if the eigenpairs have not converged
+     * after {@code maxIterations} products.
+     */
+    public LanczosEigenDecomposition(final RealLinearOperator a, final int k,
+                                     final int maxIterations) {
+        this(a, k, DEFAULT_TOLERANCE, maxIterations, new MersenneTwister(DEFAULT_SEED));
+    }
+
+    /**
+     * Calculates the k largest eigenpairs of a self-adjoint operator.
+     * <p>An eigenpair (&lambda;, v) has converged when the norm of its
+     * residual Av - &lambda;v is lower than {@code tolerance} times the
+     * largest absolute eigenvalue.</p>
+     *
+     * @param a Self-adjoint operator.
+     * @param k Number of eigenpairs.
+     * @param tolerance Relative tolerance on the residuals.
+     * @param maxIterations Maximum number of products of the operator by a
+     * vector.
+     * @param random Generator of the starting vector.
+     * @throws NonSquareOperatorException if the operator is not square.
+     * @throws NotStrictlyPositiveException if {@code k} is not positive.
+     * @throws NumberIsTooLargeException if {@code k} is larger than the
+     * dimension of the operator.
+     * @throws MaxCountExceededException if the eigenpairs have not converged
+     * after {@code maxIterations} products.
+     */
+    public LanczosEigenDecomposition(final RealLinearOperator a, final int k,
+                                     final double tolerance, final int maxIterations,
+                                     final RandomGenerator random) {
+        final int n = a.getRowDimension();
+        if (a.getColumnDimension() != n) {
+            throw new NonSquareOperatorException(a.getRowDimension(), a.getColumnDimension());
+        }
+        if (k <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.NUMBER_OF_ELEMENTS_SHOULD_BE_POSITIVE, k);
+        }
+        if (k > n) {
+            throw new NumberIsTooLargeException(k, n, true);
+        }
+
+        final Incrementor counter = new Incrementor(maxIterations);
+        final int m = FastMath.min(n, FastMath.max(2 * k + 1, k + 20));
+        double[][] basis = new double[m + 1][];
+        double[][] h = new double[m][m];
+        basis[0] = randomVector(random, n, basis, 0);
+        int start = 0;
+        while (true) {
+
+            // expand the basis up to m vectors, plus the residual direction
+            double beta = 0;
+            for (int j = start; j < m; ++j) {
+                final double[] w = a.operate(new ArrayRealVector(basis[j], false)).toArray();
+                counter.incrementCount();
+                final double wNorm = norm(w);
+                final double[] c = orthogonalize(w, basis, j + 1);
+                for (int l = 0; l <= j; ++l) {
+                    h[l][j] = c[l];
+                    h[j][l] = c[l];
+                }
+                beta = norm(w);
+                if (j + 1 == n) {
+                    // the basis spans the whole space
+                    beta = 0;
+                    basis[j + 1] = new double[n];
+                } else if (beta <= 8 * Precision.EPSILON * wNorm) {
+                    // invariant subspace, continue with an arbitrary orthogonal direction
+                    beta = 0;
+                    basis[j + 1] = randomVector(random, n, basis, j + 1);
+                } else {
+                    final double inv = 1.0 / beta;
+                    for (int i = 0; i < n; ++i) {
+                        w[i] *= inv;
+                    }
+                    basis[j + 1] = w;
+                }
+                if (j + 1 < m) {
+                    h[j][j + 1] = beta;
+                    h[j + 1][j] = beta;
+                }
+            }
+
+            // Ritz pairs, and their residual norms
+            final SymmetricEigenDecomposition ritz =
+                new SymmetricEigenDecomposition(new Array2DRowRealMatrix(h, false));
+            final double[] theta = ritz.getRealEigenvalues();
+            final double[][] s = ritz.getV().getData();
+            double scale = 0;
+            for (final double t : theta) {
+                scale = FastMath.max(scale, FastMath.abs(t));
+            }
+            boolean converged = true;
+            for (int i = 0; i < k; ++i) {
+                if (FastMath.abs(beta * s[m - 1][i]) > tolerance * scale) {
+                    converged = false;
+                }
+            }
+
+            // keep the largest Ritz vectors and restart from the residual
+            final int kept = converged ? k : FastMath.min(m - 1, k + (m - k) / 2);
+            final double[][] restarted = new double[m + 1][];
+            for (int i = 0; i < kept; ++i) {
+                final double[] u = new double[n];
+                for (int l = 0; l < m; ++l) {
+                    final double sLI = s[l][i];
+                    final double[] vL = basis[l];
+                    for (int r = 0; r < n; ++r) {
+                        u[r] += sLI * vL[r];
+                    }
+                }
+                restarted[i] = u;
+            }
+            if (converged) {
+                eigenvalues = new double[k];
+                System.arraycopy(theta, 0, eigenvalues, 0, k);
+                eigenvectors = restarted;
+                iterations = counter.getCount();
+                return;
+            }
+            restarted[kept] = basis[m];
+            basis = restarted;
+            h = new double[m][m];
+            for (int i = 0; i < kept; ++i) {
+                h[i][i] = theta[i];
+            }
+            start = kept;
+        }
+    }
+
+    /**
+     * Generates a random unit vector orthogonal to the first vectors of the
+     * basis.
+     *
+     * @param random Generator.
+     * @param n Dimension of the vector.
+     * @param basis Orthonormal vectors.
+     * @param size Number of vectors of the basis.
+     * @return a new unit vector.
+     */
+    private static double[] randomVector(final RandomGenerator random, final int n,
+                                         final double[][] basis, final int size) {
+        while (true) {
+            final double[] v = new double[n];
+            for (int i = 0; i < v.length; ++i) {
+                v[i] = random.nextDouble() - 0.5;
+            }
+            orthogonalize(v, basis, size);
+            final double norm = norm(v);
+            if (norm > 0) {
+                for (int i = 0; i < v.length; ++i) {
+                    v[i] /= norm;
+                }
+                return v;
+            }
+        }
+    }
+
+    /**
+     * Orthogonalizes a vector against the first vectors of the basis.
+     * <p>The classical Gram-Schmidt process is run twice, which is enough
+     * to get a vector orthogonal to working precision.</p>
+     *
+     * @param w Vector to orthogonalize, modified in place.
+     * @param basis Orthonormal vectors.
+     * @param size Number of vectors of the basis.
+     * @return the coefficients of the projection of w on the basis.
+     */
+    private static double[] orthogonalize(final double[] w, final double[][] basis, final int size) {
+        final double[] coefficients = new double[size];
+        for (int pass = 0; pass < 2; ++pass) {
+            for (int l = 0; l < size; ++l) {
+                final double[] vL = basis[l];
+                double dot = 0;
+                for (int r = 0; r < w.length; ++r) {
+                    dot += vL[r] * w[r];
+                }
+                for (int r = 0; r < w.length; ++r) {
+                    w[r] -= dot * vL[r];
+                }
+                coefficients[l] += dot;
+            }
+        }
+        return coefficients;
+    }
+
+    /**
+     * Computes the Euclidean norm of a vector.
+     *
+     * @param v Vector.
+     * @return the norm of v.
+     */
+    private static double norm(final double[] v) {
+        double sum = 0;
+        for (final double x : v) {
+            sum += x * x;
+        }
+        return FastMath.sqrt(sum);
+    }
+
+    /**
+     * Gets a copy of the eigenvalues.
+     *
+     * @return a copy of the k largest eigenvalues, in decreasing order.
+     */
+    public double[] getRealEigenvalues() {
+        return eigenvalues.clone();
+    }
+
+    /**
+     * Returns the i<sup>th</sup> eigenvalue.
+     *
+     * @param i index of the eigenvalue (counting from 0)
+     * @return the i<sup>th</sup> largest eigenvalue.
+     */
+    public double getRealEigenvalue(final int i) {
+        return eigenvalues[i];
+    }
+
+    /**
+     * Gets a copy of the i<sup>th</sup> eigenvector.
+     *
+     * @param i Index of the eigenvector (counting from 0).
+     * @return a copy of the unit eigenvector of the i<sup>th</sup> eigenvalue.
+     */
+    public RealVector getEigenvector(final int i) {
+        return new ArrayRealVector(eigenvectors[i]);
+    }
+
+    /**
+     * Gets the matrix whose columns are the eigenvectors.
+     *
+     * @return the n&times;k matrix of the eigenvectors.
+     */
+    public RealMatrix getV() {
+        if (cachedV == null) {
+            final int n = eigenvectors[0].length;
+            final RealMatrix v = MatrixUtils.createRealMatrix(n, eigenvalues.length);
+            for (int i = 0; i < eigenvalues.length; ++i) {
+                v.setColumn(i, eigenvectors[i]);
+            }
+            cachedV = v;
+        }
+        return cachedV;
+    }
+
+    /**
+     * Gets the diagonal matrix of the eigenvalues.
+     *
+     * @return the k&times;k diagonal matrix of the eigenvalues.
+     */
+    public RealMatrix getD() {
+        return MatrixUtils.createRealDiagonalMatrix(eigenvalues);
+    }
+
+    /**
+     * Gets the number of products of the operator by a vector.
+     *
+     * @return the number of products performed.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+}
@@ -33,7 +33,10 @@ import org.apache.commons.math3.util.OpenIntToDoubleHashMap;
  * @deprecated As of version 3.1, this class is deprecated, for reasons exposed
  * in this JIRA
  * <a href="https://issues.apache.org/jira/browse/MATH-870">ticket</a>. This
- * class will be removed in version 4.0.
+ * class will be removed in version 4.0. As of version 3.3, sparse matrices
+ * can be stored in {@link CompressedRowRealMatrix} or
+ * {@link CompressedColumnRealMatrix} (built with a {@link SparseMatrixBuilder}),
+ * which need less memory and are faster.
  *
  */
 @Deprecated
@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.util.ConcurrentUtils;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Computes products of dense matrices, and of dense matrices with vectors,
+ * using several threads.
+ * <p>
+ * The product is split into independent parts (blocks of a
+ * {@link BlockRealMatrix}, rows of an {@link Array2DRowRealMatrix}) which
+ * are distributed among the tasks submitted to the executor. Each part is
+ * computed by the same cache-tiled kernels as the sequential
+ * {@link BlockRealMatrix#multiply(BlockRealMatrix)} and
+ * {@link Array2DRowRealMatrix#multiply(Array2DRowRealMatrix)} methods, so
+ * the results are identical. Products that require fewer multiply-add
+ * operations than the threshold are computed in the calling thread, as the
+ * cost of the synchronization would exceed the gain.
+ * </p>
+ * <p>
+ * Other kinds of matrices are multiplied by their own methods, in the
+ * calling thread.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class ParallelMatrixMultiplier {
+    /**
+     * Default number of multiply-add operations below which products are
+     * sequential (about the cost of the product of two 128x128 matrices).
+     */
+    public static final long DEFAULT_THRESHOLD = 1l << 21;
+    /** Executor that runs the tasks. */
+    private final ExecutorService executor;
+    /** Number of multiply-add operations below which products are sequential. */
+    private final long threshold;
+    /** Number of tasks per product. */
+    private final int tasks;
+
+    /**
+     * Creates an instance with the {@link #DEFAULT_THRESHOLD default threshold}
+     * and one task per available processor.
+     *
+     * @param executor Executor that will run the tasks.
+     * @throws NullArgumentException if {@code executor} is {@code null}.
+     */
+    public ParallelMatrixMultiplier(ExecutorService executor) {
+        this(executor, DEFAULT_THRESHOLD, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param executor Executor that will run the tasks.
+     * @param threshold Number of multiply-add operations below which the
+     * products are computed in the calling thread.
+     * @param tasks Number of tasks among which each product is split.
+     * @throws NullArgumentException if {@code executor} is {@code null}.
+     * @throws NotPositiveException if {@code threshold < 0}.
+     * @throws NotStrictlyPositiveException if {@code tasks <= 0}.
+     */
+    public ParallelMatrixMultiplier(ExecutorService executor,
+                                    long threshold,
+                                    int tasks) {
+        if (executor == null) {
+            throw new NullArgumentException();
+        }
+        if (threshold < 0) {
+            throw new NotPositiveException(threshold);
+        }
+        if (tasks <= 0) {
+            throw new NotStrictlyPositiveException(tasks);
+        }
+        this.executor = executor;
+        this.threshold = threshold;
+        this.tasks = tasks;
+    }
+
+    /**
+     * @return the executor that runs the tasks.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the number of multiply-add operations below which the
+     * products are computed in the calling thread.
+     */
+    public long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return the number of tasks among which each product is split.
+     */
+    public int getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the product of two matrices.
+     * <p>
+     * If one of the matrices is a {@link BlockRealMatrix} and the other one
+     * is dense, the product is a {@link BlockRealMatrix}; if both are
+     * {@link Array2DRowRealMatrix} instances, the product is an
+     * {@link Array2DRowRealMatrix}. Otherwise, the product is computed by
+     * {@link RealMatrix#multiply(RealMatrix) a.multiply(b)}.
+     * </p>
+     *
+     * @param a Left matrix.
+     * @param b Right matrix.
+     * @return the product {@code a b}.
+     * @throws DimensionMismatchException if the matrices are not compatible.
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the tasks to complete.
+     */
+    public RealMatrix multiply(final RealMatrix a, final RealMatrix b)
+        throws DimensionMismatchException {
+        if (a instanceof BlockRealMatrix && isDense(b)) {
+            return multiply((BlockRealMatrix) a, toBlock(b));
+        }
+        if (b instanceof BlockRealMatrix && isDense(a)) {
+            return multiply(toBlock(a), (BlockRealMatrix) b);
+        }
+        if (a instanceof Array2DRowRealMatrix && b instanceof Array2DRowRealMatrix) {
+            return multiply((Array2DRowRealMatrix) a, (Array2DRowRealMatrix) b);
+        }
+        return a.multiply(b);
+    }
+
+    /**
+     * Returns the product of two block matrices.
+     *
+     * @param a Left matrix.
+     * @param b Right matrix.
+     * @return the product {@code a b}.
+     * @throws DimensionMismatchException if the matrices are not compatible.
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the tasks to complete.
+     */
+    public BlockRealMatrix multiply(final BlockRealMatrix a, final BlockRealMatrix b)
+        throws DimensionMismatchException {
+        MatrixUtils.checkMultiplicationCompatible(a, b);
+        final BlockRealMatrix out = new BlockRealMatrix(a.getRowDimension(), b.getColumnDimension());
+        final int nBlocks = BlockOperations.blockCount(a.getRowDimension()) *
+                            BlockOperations.blockCount(b.getColumnDimension());
+        final int n = taskCount(operations(a, b), nBlocks);
+        if (n == 1) {
+            a.multiplyBlocks(b, out, 0, nBlocks);
+            return out;
+        }
+
+        final List<Callable<Void>> parts = new ArrayList<Callable<Void>>(n);
+        for (int t = 0; t < n; t++) {
+            final int start = (int) ((long) nBlocks * t / n);
+            final int end = (int) ((long) nBlocks * (t + 1) / n);
+            parts.add(new Callable<Void>() {
+                    public Void call() {
+                        a.multiplyBlocks(b, out, start, end);
+                        return null;
+                    }
+                });
+        }
+        ConcurrentUtils.invokeAll(executor, parts);
+        return out;
+    }
+
+    /**
+     * Returns the product of two matrices stored as arrays of rows.
+     *
+     * @param a Left matrix.
+     * @param b Right matrix.
+     * @return the product {@code a b}.
+     * @throws DimensionMismatchException if the matrices are not compatible.
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the tasks to complete.
+     */
+    public Array2DRowRealMatrix multiply(final Array2DRowRealMatrix a, final Array2DRowRealMatrix b)
+        throws DimensionMismatchException {
+        MatrixUtils.checkMultiplicationCompatible(a, b);
+        final int rows = a.getRowDimension();
+        final double[][] out = new double[rows][b.getColumnDimension()];
+        final int n = taskCount(operations(a, b), rows);
+        if (n == 1) {
+            a.multiplyRows(b, out, 0, rows);
+            return new Array2DRowRealMatrix(out, false);
+        }
+
+        final List<Callable<Void>> parts = new ArrayList<Callable<Void>>(n);
+        for (int t = 0; t < n; t++) {
+            final int start = (int) ((long) rows * t / n);
+            final int end = (int) ((long) rows * (t + 1) / n);
+            parts.add(new Callable<Void>() {
+                    public Void call() {
+                        a.multiplyRows(b, out, start, end);
+                        return null;
+                    }
+                });
+        }
+        ConcurrentUtils.invokeAll(executor, parts);
+        return new Array2DRowRealMatrix(out, false);
+    }
+
+    /**
+     * Returns the product of a matrix by a vector.
+     * <p>
+     * Only {@link BlockRealMatrix} and {@link Array2DRowRealMatrix}
+     * instances are split among tasks, other matrices are multiplied by
+     * {@link RealMatrix#operate(double[]) m.operate(v)}.
+     * </p>
+     *
+     * @param m Matrix.
+     * @param v Vector.
+     * @return the product {@code m v}.
+     * @throws DimensionMismatchException if the length of {@code v} is not
+     * the number of columns of {@code m}.
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the tasks to complete.
+     */
+    public double[] operate(final RealMatrix m, final double[] v)
+        throws DimensionMismatchException {
+        final int rows = m.getRowDimension();
+        final int columns = m.getColumnDimension();
+        if (v.length != columns) {
+            throw new DimensionMismatchException(v.length, columns);
+        }
+        final long operations = (long) rows * columns;
+        final double[] out = new double[rows];
+        final List<Callable<Void>> parts;
+        if (m instanceof BlockRealMatrix) {
+            final BlockRealMatrix block = (BlockRealMatrix) m;
+            final int blockRows = BlockOperations.blockCount(rows);
+            final int n = taskCount(operations, blockRows);
+            if (n == 1) {
+                block.operateBlockRows(v, out, 0, blockRows);
+                return out;
+            }
+            parts = new ArrayList<Callable<Void>>(n);
+            for (int t = 0; t < n; t++) {
+                final int start = (int) ((long) blockRows * t / n);
+                final int end = (int) ((long) blockRows * (t + 1) / n);
+                parts.add(new Callable<Void>() {
+                        public Void call() {
+                            block.operateBlockRows(v, out, start, end);
+                            return null;
+                        }
+                    });
+            }
+        } else if (m instanceof Array2DRowRealMatrix) {
+            final double[][] data = ((Array2DRowRealMatrix) m).getDataRef();
+            final int n = taskCount(operations, rows);
+            if (n == 1) {
+                operateRows(data, v, out, 0, rows);
+                return out;
+            }
+            parts = new ArrayList<Callable<Void>>(n);
+            for (int t = 0; t < n; t++) {
+                final int start = (int) ((long) rows * t / n);
+                final int end = (int) ((long) rows * (t + 1) / n);
+                parts.add(new Callable<Void>() {
+                        public Void call() {
+                            operateRows(data, v, out, start, end);
+                            return null;
+                        }
+                    });
+            }
+        } else {
+            return m.operate(v);
+        }
+        ConcurrentUtils.invokeAll(executor, parts);
+        return out;
+    }
+
+    /**
+     * Computes a range of entries of the product of a matrix by a vector.
+     *
+     * @param data Rows of the matrix.
+     * @param v Vector.
+     * @param out Product vector.
+     * @param start Index of the first row to compute.
+     * @param end Index following the last row to compute.
+     */
+    private static void operateRows(final double[][] data, final double[] v, final double[] out,
+                                    final int start, final int end) {
+        for (int row = start; row < end; row++) {
+            final double[] dataRow = data[row];
+            double sum = 0;
+            for (int i = 0; i < dataRow.length; i++) {
+                sum += dataRow[i] * v[i];
+            }
+            out[row] = sum;
+        }
+    }
+
+    /**
+     * Computes the number of tasks among which a product is split.
+     *
+     * @param operations Number of multiply-add operations of the product.
+     * @param parts Number of independent parts of the product.
+     * @return the number of tasks (1 if the product is sequential).
+     */
+    private int taskCount(final long operations, final int parts) {
+        if (operations < threshold) {
+            return 1;
+        }
+        return FastMath.max(1, FastMath.min(tasks, parts));
+    }
+
+    /**
+     * @param a Left matrix.
+     * @param b Right matrix.
+     * @return the number of multiply-add operations of the product.
+     */
+    private static long operations(final RealMatrix a, final RealMatrix b) {
+        return (long) a.getRowDimension() * a.getColumnDimension() * b.getColumnDimension();
+    }
+
+    /**
+     * @param m Matrix.
+     * @return {@code true} if all the entries of the matrix are stored.
+     */
+    private static boolean isDense(final RealMatrix m) {
+        return m instanceof BlockRealMatrix || m instanceof Array2DRowRealMatrix;
+    }
+
+    /**
+     * @param m Dense matrix.
+     * @return the matrix, converted to a block matrix if needed.
+     */
+    private static BlockRealMatrix toBlock(final RealMatrix m) {
+        if (m instanceof BlockRealMatrix) {
+            return (BlockRealMatrix) m;
+        }
+        return new BlockRealMatrix(m.getData());
+    }
+}
@@ -0,0 +1,587 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Calculates the leading singular triplets of a linear operator with a
+ * randomized range finder.
+ * <p>The range of the m&times;n operator A is sampled by its products with
+ * k + p random Gaussian vectors, where k is the target rank and p the
+ * oversampling. Each power iteration multiplies the samples by
+ * A A<sup>T</sup> once more, which sharpens the decay of the spectrum seen by
+ * the samples when the singular values decrease slowly. An orthonormal basis
+ * Q of the samples is then computed, and the small matrix B = Q<sup>T</sup>A
+ * is decomposed exactly. The result is a rank-k approximation
+ * A &asymp; U &Sigma; V<sup>T</sup>, where U is m&times;k and V is
+ * n&times;k.</p>
+ * <p>The operator is only accessed through products with blocks of k + p
+ * vectors, by A and by A<sup>T</sup>, and the memory used is about
+ * (k + p)(m + n) numbers: both scale with the target rank instead of
+ * min(m, n). Dense matrices are multiplied with the tiled kernels of
+ * {@link BlockRealMatrix} and {@link Array2DRowRealMatrix}, sparse matrices
+ * with their own products, and other operators one vector at a time. If an
+ * executor is provided, these products are split among several tasks; a
+ * matrix-free operator must then be safe for use by several threads.</p>
+ * <p>Since A is approximated, and not decomposed, the quality of the
+ * approximation can be checked with {@link #getApproximationError()}.</p>
+ *
+ * @see SingularValueDecomposition
+ * @see <a href="http://dx.doi.org/10.1137/090771806">Halko, Martinsson and
+ * Tropp, Finding Structure with Randomness: Probabilistic Algorithms for
+ * Constructing Approximate Matrix Decompositions</a>
+ * @version $Id$
+ * @since 3.3
+ */
+public class RandomizedSingularValueDecomposition {
+    /** Default number of additional samples. */
+    public static final int DEFAULT_OVERSAMPLING = 10;
+    /** Default number of power iterations. */
+    public static final int DEFAULT_POWER_ITERATIONS = 2;
+    /** Number of random vectors used to estimate the error. */
+    private static final int ERROR_SAMPLES = 10;
+    /** Default seed of the generator of the random samples. */
+    private static final long DEFAULT_SEED = 0x5256442d53564443l;
+    /** Relative norm below which a sample is considered dependent on the previous ones. */
+    private static final double DEPENDENCY_THRESHOLD = 1.0e-12;
+    /** Approximated operator. */
+    private final RealLinearOperator operator;
+    /** Approximated operator, if it is a matrix. */
+    private final RealMatrix matrix;
+    /** Transpose of the matrix, if it is neither a block nor an array matrix. */
+    private final RealMatrix transposed;
+    /** Executor that runs the tasks (may be {@code null}). */
+    private final ExecutorService executor;
+    /** Multiplier of dense matrices (may be {@code null}). */
+    private final ParallelMatrixMultiplier multiplier;
+    /** Generator of the random samples. */
+    private final RandomGenerator random;
+    /** Singular values, in non-increasing order. */
+    private final double[] singularValues;
+    /** Left singular vectors. */
+    private final double[][] u;
+    /** Right singular vectors. */
+    private final double[][] v;
+    /** Cached value of U. */
+    private RealMatrix cachedU;
+    /** Cached value of V. */
+    private RealMatrix cachedV;
+    /** Cached value of the error estimate. */
+    private double cachedError;
+
+    /**
+     * Calculates a rank-k approximation of an operator, with the
+     * {@link #DEFAULT_OVERSAMPLING default oversampling} and
+     * {@link #DEFAULT_POWER_ITERATIONS default number of power iterations}.
+     *
+     * @param a Operator to decompose; any {@link AbstractRealMatrix} is
+     * accepted as is, other operators must be
+     * {@link RealLinearOperator#isTransposable() transposable}.
+     * @param rank Target rank k.
+     * @throws NotStrictlyPositiveException if {@code rank} is not positive.
+     * @throws NumberIsTooLargeException if {@code rank} is larger than the
+     * smallest dimension of the operator.
+     * @throws MathUnsupportedOperationException if the operator is not a
+     * matrix and cannot be transposed.
+     */
+    public RandomizedSingularValueDecomposition(final RealLinearOperator a, final int rank) {
+        this(a, rank, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS,
+             new MersenneTwister(DEFAULT_SEED), null);
+    }
+
+    /**
+     * Calculates a rank-k approximation of an operator.
+     *
+     * @param a Operator to decompose; any {@link AbstractRealMatrix} is
+     * accepted as is, other operators must be
+     * {@link RealLinearOperator#isTransposable() transposable}.
+     * @param rank Target rank k.
+     * @param oversampling Number p of additional samples of the range of the
+     * operator; about 10 is usually enough.
+     * @param powerIterations Number of power iterations.
+     * @param random Generator of the random samples.
+     * @param executor Executor that runs the products (may be {@code null},
+     * in which case everything is computed in the calling thread).
+     * @throws NotStrictlyPositiveException if {@code rank} is not positive.
+     * @throws NumberIsTooLargeException if {@code rank} is larger than the
+     * smallest dimension of the operator.
+     * @throws NotPositiveException if {@code oversampling} or
+     * {@code powerIterations} is negative.
+     * @throws MathUnsupportedOperationException if the operator is not a
+     * matrix and cannot be transposed.
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the tasks to complete.
+     */
+    public RandomizedSingularValueDecomposition(final RealLinearOperator a, final int rank,
+                                                final int oversampling, final int powerIterations,
+                                                final RandomGenerator random,
+                                                final ExecutorService executor) {
+        final int m = a.getRowDimension();
+        final int n = a.getColumnDimension();
+        if (rank <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.NUMBER_OF_ELEMENTS_SHOULD_BE_POSITIVE, rank);
+        }
+        if (rank > FastMath.min(m, n)) {
+            throw new NumberIsTooLargeException(rank, FastMath.min(m, n), true);
+        }
+        if (oversampling < 0) {
+            throw new NotPositiveException(oversampling);
+        }
+        if (powerIterations < 0) {
+            throw new NotPositiveException(powerIterations);
+        }
+
+        this.operator = a;
+        if (a instanceof RealMatrix) {
+            matrix     = (RealMatrix) a;
+            transposed = isDense(matrix) ? null : matrix.transpose();
+        } else if (a.isTransposable()) {
+            matrix     = null;
+            transposed = null;
+        } else {
+            throw new MathUnsupportedOperationException();
+        }
+        this.executor   = executor;
+        this.multiplier = (executor == null) ? null : new ParallelMatrixMultiplier(executor);
+        this.random     = random;
+        this.cachedError = Double.NaN;
+
+        // sample the range of the operator
+        final int l = FastMath.min(rank + oversampling, FastMath.min(m, n));
+        double[][] q = multiply(gaussian(l, n), false);
+        orthonormalize(q);
+        for (int i = 0; i < powerIterations; ++i) {
+            // orthonormalizing between the products keeps the small
+            // singular values from being lost in rounding errors
+            final double[][] z = multiply(q, true);
+            orthonormalize(z);
+            q = multiply(z, false);
+            orthonormalize(q);
+        }
+
+        // B^T = A^T Q = Q2 R, hence A ~ Q B = (Q Vr) S (Q2 Ur)^T with R = Ur S Vr^T
+        final double[][] q2 = multiply(q, true);
+        final double[][] r  = orthonormalize(q2);
+        final SingularValueDecomposition svd =
+            new SingularValueDecomposition(new Array2DRowRealMatrix(r, false));
+        singularValues = new double[rank];
+        System.arraycopy(svd.getSingularValues(), 0, singularValues, 0, rank);
+        u = combine(q,  svd.getV(), rank);
+        v = combine(q2, svd.getU(), rank);
+    }
+
+    /**
+     * Checks whether a matrix is multiplied by the tiled dense kernels.
+     *
+     * @param m Matrix.
+     * @return true if m is a block or an array matrix.
+     */
+    private static boolean isDense(final RealMatrix m) {
+        return m instanceof BlockRealMatrix || m instanceof Array2DRowRealMatrix;
+    }
+
+    /**
+     * Generates random vectors with independent standard normal entries.
+     *
+     * @param count Number of vectors.
+     * @param dimension Dimension of the vectors.
+     * @return the vectors.
+     */
+    private double[][] gaussian(final int count, final int dimension) {
+        final double[][] x = new double[count][dimension];
+        for (final double[] xJ : x) {
+            for (int i = 0; i < dimension; ++i) {
+                xJ[i] = random.nextGaussian();
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Multiplies vectors by the operator or by its transpose.
+     *
+     * @param x Vectors to multiply.
+     * @param transpose If true, the vectors are multiplied by A<sup>T</sup>.
+     * @return the products, in the same order as the vectors.
+     */
+    private double[][] multiply(final double[][] x, final boolean transpose) {
+        final long operations  = (long) x.length * operator.getRowDimension() * operator.getColumnDimension();
+
+        if (matrix == null) {
+            // matrix-free operator, one vector at a time
+            final double[][] y = new double[x.length][];
+            BlockOperations.forEach(executor, operations, 0, x.length, new BlockOperations.Loop() {
+                /** {@inheritDoc} */
+                public void run(final int j) {
+                    final RealVector xJ = new ArrayRealVector(x[j], false);
+                    y[j] = (transpose ? operator.operateTranspose(xJ) : operator.operate(xJ)).toArray();
+                }
+            });
+            return y;
+        }
+
+        if (transposed == null) {
+            // dense matrix: a single product with the tiled kernels
+            if (transpose) {
+                // the rows of X^T A are the products A^T x
+                return product(createDense(x), matrix).getData();
+            }
+            return transpose(product(matrix, createDense(transpose(x))).getData());
+        }
+
+        // other matrices: the vectors are split in groups multiplied independently
+        final RealMatrix a = transpose ? transposed : matrix;
+        final int groups   = (executor == null) ? 1 : FastMath.min(x.length, Runtime.getRuntime().availableProcessors());
+        final double[][] y = new double[x.length][];
+        BlockOperations.forEach(executor, operations, 0, groups, new BlockOperations.Loop() {
+            /** {@inheritDoc} */
+            public void run(final int g) {
+                final int start = (g * x.length) / groups;
+                final int end   = ((g + 1) * x.length) / groups;
+                final double[][] group = new double[end - start][];
+                System.arraycopy(x, start, group, 0, group.length);
+                final double[][] product = transpose(a.multiply(new Array2DRowRealMatrix(transpose(group), false)).getData());
+                System.arraycopy(product, 0, y, start, group.length);
+            }
+        });
+        return y;
+    }
+
+    /**
+     * Creates a dense matrix of the same kind as the decomposed matrix.
+     *
+     * @param rows Rows of the matrix (referenced, not copied, when possible).
+     * @return a dense matrix.
+     */
+    private RealMatrix createDense(final double[][] rows) {
+        if (matrix instanceof BlockRealMatrix) {
+            return new BlockRealMatrix(rows);
+        }
+        return new Array2DRowRealMatrix(rows, false);
+    }
+
+    /**
+     * Multiplies two dense matrices, with the executor if there is one.
+     *
+     * @param left Left matrix.
+     * @param right Right matrix.
+     * @return the product {@code left right}.
+     */
+    private RealMatrix product(final RealMatrix left, final RealMatrix right) {
+        if (multiplier != null) {
+            return multiplier.multiply(left, right);
+        }
+        if (left instanceof Array2DRowRealMatrix && right instanceof Array2DRowRealMatrix) {
+            return ((Array2DRowRealMatrix) left).multiply((Array2DRowRealMatrix) right);
+        }
+        return left.multiply(right);
+    }
+
+    /**
+     * Transposes an array.
+     *
+     * @param a Rectangular array.
+     * @return the transposed array.
+     */
+    private static double[][] transpose(final double[][] a) {
+        final double[][] t = new double[a[0].length][a.length];
+        for (int i = 0; i < a.length; ++i) {
+            final double[] aI = a[i];
+            for (int j = 0; j < aI.length; ++j) {
+                t[j][i] = aI[j];
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Orthonormalizes vectors in place.
+     * <p>The modified Gram-Schmidt process is run, and each vector is
+     * orthogonalized a second time against the previous ones before being
+     * normalized, which is enough to get vectors orthogonal to working
+     * precision. A vector that depends on the previous ones is replaced by a
+     * random vector orthogonal to them, with a null coefficient in R.</p>
+     *
+     * @param x Linearly independent vectors, replaced by orthonormal ones.
+     * @return the upper triangular matrix R such that the original vectors
+     * are the columns of Q R, Q being the matrix of the orthonormal vectors.
+     */
+    private double[][] orthonormalize(final double[][] x) {
+        final int count = x.length;
+        final double[][] r = new double[count][count];
+        final double[] initialNorms = new double[count];
+        for (int j = 0; j < count; ++j) {
+            initialNorms[j] = norm(x[j]);
+        }
+
+        for (int i = 0; i < count; ++i) {
+            final double[] xI = x[i];
+            final double[] rI = r[i];
+            final double[] correction = project(xI, x, i);
+            for (int l = 0; l < i; ++l) {
+                r[l][i] += correction[l];
+            }
+            final double norm = norm(xI);
+            if (norm <= DEPENDENCY_THRESHOLD * initialNorms[i] || norm == 0) {
+                // the vector brings no new direction, replace it
+                double replacementNorm = 0;
+                while (replacementNorm == 0) {
+                    for (int k = 0; k < xI.length; ++k) {
+                        xI[k] = random.nextGaussian();
+                    }
+                    project(xI, x, i);
+                    project(xI, x, i);
+                    replacementNorm = norm(xI);
+                }
+                scale(xI, 1 / replacementNorm);
+            } else {
+                rI[i] = norm;
+                scale(xI, 1 / norm);
+            }
+
+            // remove the new direction from the following vectors
+            BlockOperations.forEach(executor, (long) (count - i - 1) * xI.length, i + 1, count,
+                                    new BlockOperations.Loop() {
+                /** {@inheritDoc} */
+                public void run(final int j) {
+                    final double[] xJ = x[j];
+                    double dot = 0;
+                    for (int k = 0; k < xJ.length; ++k) {
+                        dot += xI[k] * xJ[k];
+                    }
+                    for (int k = 0; k < xJ.length; ++k) {
+                        xJ[k] -= dot * xI[k];
+                    }
+                    rI[j] = dot;
+                }
+            });
+        }
+        return r;
+    }
+
+    /**
+     * Removes from a vector its projection on the first orthonormal vectors.
+     *
+     * @param w Vector, modified in place.
+     * @param basis Orthonormal vectors.
+     * @param size Number of vectors to use.
+     * @return the coefficients of the projection.
+     */
+    private static double[] project(final double[] w, final double[][] basis, final int size) {
+        final double[] coefficients = new double[size];
+        for (int l = 0; l < size; ++l) {
+            final double[] bL = basis[l];
+            double dot = 0;
+            for (int k = 0; k < w.length; ++k) {
+                dot += bL[k] * w[k];
+            }
+            for (int k = 0; k < w.length; ++k) {
+                w[k] -= dot * bL[k];
+            }
+            coefficients[l] = dot;
+        }
+        return coefficients;
+    }
+
+    /**
+     * Computes the Euclidean norm of a vector.
+     *
+     * @param w Vector.
+     * @return the norm of w.
+     */
+    private static double norm(final double[] w) {
+        double sum = 0;
+        for (final double x : w) {
+            sum += x * x;
+        }
+        return FastMath.sqrt(sum);
+    }
+
+    /**
+     * Multiplies a vector by a scalar in place.
+     *
+     * @param w Vector.
+     * @param factor Scalar.
+     */
+    private static void scale(final double[] w, final double factor) {
+        for (int k = 0; k < w.length; ++k) {
+            w[k] *= factor;
+        }
+    }
+
+    /**
+     * Computes linear combinations of orthonormal vectors.
+     *
+     * @param basis Orthonormal vectors.
+     * @param coefficients Matrix whose columns hold the coefficients of the
+     * combinations.
+     * @param count Number of combinations, from the first column.
+     * @return the combinations.
+     */
+    private double[][] combine(final double[][] basis, final RealMatrix coefficients,
+                               final int count) {
+        final double[][] c = coefficients.getData();
+        final double[][] combinations = new double[count][basis[0].length];
+        BlockOperations.forEach(executor, (long) count * basis.length * basis[0].length, 0, count,
+                                new BlockOperations.Loop() {
+            /** {@inheritDoc} */
+            public void run(final int j) {
+                final double[] out = combinations[j];
+                for (int l = 0; l < basis.length; ++l) {
+                    final double cLJ = c[l][j];
+                    final double[] bL = basis[l];
+                    for (int k = 0; k < out.length; ++k) {
+                        out[k] += cLJ * bL[k];
+                    }
+                }
+            }
+        });
+        return combinations;
+    }
+
+    /**
+     * Gets the matrix U of the approximation.
+     *
+     * @return the m&times;k matrix whose orthonormal columns are the left
+     * singular vectors.
+     */
+    public RealMatrix getU() {
+        if (cachedU == null) {
+            cachedU = columnsMatrix(u);
+        }
+        return cachedU;
+    }
+
+    /**
+     * Gets the transpose of the matrix U of the approximation.
+     *
+     * @return the k&times;m transpose of U.
+     */
+    public RealMatrix getUT() {
+        return MatrixUtils.createRealMatrix(u);
+    }
+
+    /**
+     * Gets the diagonal matrix &Sigma; of the approximation.
+     *
+     * @return the k&times;k diagonal matrix of the singular values.
+     */
+    public RealMatrix getS() {
+        return MatrixUtils.createRealDiagonalMatrix(singularValues);
+    }
+
+    /**
+     * Gets a copy of the singular values.
+     *
+     * @return the k largest singular values, in non-increasing order.
+     */
+    public double[] getSingularValues() {
+        return singularValues.clone();
+    }
+
+    /**
+     * Gets the matrix V of the approximation.
+     *
+     * @return the n&times;k matrix whose orthonormal columns are the right
+     * singular vectors.
+     */
+    public RealMatrix getV() {
+        if (cachedV == null) {
+            cachedV = columnsMatrix(v);
+        }
+        return cachedV;
+    }
+
+    /**
+     * Gets the transpose of the matrix V of the approximation.
+     *
+     * @return the k&times;n transpose of V.
+     */
+    public RealMatrix getVT() {
+        return MatrixUtils.createRealMatrix(v);
+    }
+
+    /**
+     * Creates a matrix from its columns.
+     *
+     * @param columns Columns of the matrix.
+     * @return the matrix.
+     */
+    private static RealMatrix columnsMatrix(final double[][] columns) {
+        final RealMatrix m = MatrixUtils.createRealMatrix(columns[0].length, columns.length);
+        for (int j = 0; j < columns.length; ++j) {
+            m.setColumn(j, columns[j]);
+        }
+        return m;
+    }
+
+    /**
+     * Estimates the error of the approximation.
+     * <p>The error is estimated from the products of the difference
+     * E = A - U &Sigma; V<sup>T</sup> with 10 random Gaussian vectors
+     * &omega;<sub>i</sub>: with a probability of at least
+     * 1 - 10<sup>-10</sup>, the spectral norm of E is lower than
+     * 10 &radic;(2/&pi;) max<sub>i</sub> ||E &omega;<sub>i</sub>||, which is
+     * the returned value. This upper bound usually overestimates the error
+     * by about one order of magnitude. It is computed on the first call,
+     * with 10 additional products by the operator.</p>
+     * <p>The error is bounded below by the (k+1)<sup>th</sup> singular value
+     * of A. If it is much larger, the target rank, the oversampling or the
+     * number of power iterations should be increased.</p>
+     *
+     * @return a probabilistic upper bound of the spectral norm of
+     * A - U &Sigma; V<sup>T</sup>.
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the tasks to complete.
+     */
+    public double getApproximationError() {
+        if (Double.isNaN(cachedError)) {
+            final double[][] omega = gaussian(ERROR_SAMPLES, operator.getColumnDimension());
+            final double[][] residuals = multiply(omega, false);
+            double max = 0;
+            for (int i = 0; i < ERROR_SAMPLES; ++i) {
+                final double[] e = residuals[i];
+                for (int j = 0; j < singularValues.length; ++j) {
+                    final double[] vJ = v[j];
+                    double dot = 0;
+                    for (int k = 0; k < vJ.length; ++k) {
+                        dot += vJ[k] * omega[i][k];
+                    }
+                    final double c = singularValues[j] * dot;
+                    final double[] uJ = u[j];
+                    for (int k = 0; k < e.length; ++k) {
+                        e[k] -= c * uJ[k];
+                    }
+                }
+                max = FastMath.max(max, norm(e));
+            }
+            cachedError = 10 * FastMath.sqrt(2 / FastMath.PI) * max;
+        }
+        return cachedError;
+    }
+}
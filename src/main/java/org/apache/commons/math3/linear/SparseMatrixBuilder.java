@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.linear;
+
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.MathArrays;
+
+/**
+ * Builder for sparse matrices in compressed storage.
+ * <br/>
+ * The entries are added in any order, as (row, column, value) triplets
+ * (the coordinate or COO format); entries added several times at the same
+ * position are summed. The matrices are then built in
+ * {@link CompressedRowRealMatrix compressed row} or
+ * {@link CompressedColumnRealMatrix compressed column} format by two
+ * stable counting sorts, in time proportional to the number of entries
+ * plus the dimensions.
+ * <br/>
+ * Every position at which an entry has been added is stored in the built
+ * matrices, even if the sum of its values is zero, so that its value can
+ * be {@link RealMatrix#setEntry(int, int, double) set} later.
+ *
+ * @see CompressedRowRealMatrix
+ * @see CompressedColumnRealMatrix
+ * @version $Id$
+ * @since 3.3
+ */
+public class SparseMatrixBuilder {
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** Number of rows. */
+    private final int rows;
+    /** Number of columns. */
+    private final int columns;
+    /** Row of each entry. */
+    private int[] rowIndex;
+    /** Column of each entry. */
+    private int[] columnIndex;
+    /** Value of each entry. */
+    private double[] values;
+    /** Number of entries. */
+    private int size;
+
+    /**
+     * Creates a builder for a matrix with the given dimensions.
+     *
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @throws NotStrictlyPositiveException if the dimensions are not positive.
+     */
+    public SparseMatrixBuilder(final int rows, final int columns)
+        throws NotStrictlyPositiveException {
+        this(rows, columns, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a builder for a matrix with the given dimensions.
+     *
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param expectedEntries Expected number of entries (the storage grows
+     * as needed, this only avoids reallocations).
+     * @throws NotStrictlyPositiveException if the dimensions are not positive.
+     * @throws NotPositiveException if {@code expectedEntries} is negative.
+     */
+    public SparseMatrixBuilder(final int rows, final int columns,
+                               final int expectedEntries)
+        throws NotStrictlyPositiveException, NotPositiveException {
+        if (rows <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.DIMENSION, rows);
+        }
+        if (columns <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.DIMENSION, columns);
+        }
+        if (expectedEntries < 0) {
+            throw new NotPositiveException(expectedEntries);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        rowIndex = new int[expectedEntries];
+        columnIndex = new int[expectedEntries];
+        values = new double[expectedEntries];
+        size = 0;
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param row Row index.
+     * @param column Column index.
+     * @param value Value, added to the previous entries at the same position.
+     * @return this builder.
+     * @throws OutOfRangeException if the position is outside the matrix.
+     */
+    public SparseMatrixBuilder add(final int row, final int column, final double value)
+        throws OutOfRangeException {
+        if (row < 0 || row >= rows) {
+            throw new OutOfRangeException(LocalizedFormats.ROW_INDEX, row, 0, rows - 1);
+        }
+        if (column < 0 || column >= columns) {
+            throw new OutOfRangeException(LocalizedFormats.COLUMN_INDEX, column, 0, columns - 1);
+        }
+        if (size == values.length) {
+            final int capacity = size == 0 ? DEFAULT_CAPACITY : 2 * size;
+            rowIndex = MathArrays.copyOf(rowIndex, capacity);
+            columnIndex = MathArrays.copyOf(columnIndex, capacity);
+            values = MathArrays.copyOf(values, capacity);
+        }
+        rowIndex[size] = row;
+        columnIndex[size] = column;
+        values[size] = value;
+        ++size;
+        return this;
+    }
+
+    /**
+     * Gets the number of entries added so far (including duplicates).
+     *
+     * @return the number of entries.
+     */
+    public int getEntryCount() {
+        return size;
+    }
+
+    /**
+     * Builds the matrix in compressed row format.
+     * <br/>
+     * The builder can be used again after this call: the matrix does not
+     * share any storage with it.
+     *
+     * @return a new matrix.
+     */
+    public CompressedRowRealMatrix buildCompressedRow() {
+        return compress(rows, columns, rowIndex, columnIndex);
+    }
+
+    /**
+     * Builds the matrix in compressed column format.
+     * <br/>
+     * The builder can be used again after this call: the matrix does not
+     * share any storage with it.
+     *
+     * @return a new matrix.
+     */
+    public CompressedColumnRealMatrix buildCompressedColumn() {
+        // the compressed column storage is the compressed row storage of the transpose
+        return new CompressedColumnRealMatrix(compress(columns, rows, columnIndex, rowIndex));
+    }
+
+    /**
+     * Sorts the entries and sums the duplicates.
+     *
+     * @param majorDimension Dimension of the major indices.
+     * @param minorDimension Dimension of the minor indices.
+     * @param major Major index of each entry (row index for compressed rows).
+     * @param minor Minor index of each entry (column index for compressed rows).
+     * @return the matrix in compressed row format, with the major indices as rows.
+     */
+    private CompressedRowRealMatrix compress(final int majorDimension, final int minorDimension,
+                                             final int[] major, final int[] minor) {
+        // sort by minor index, then (stably) by major index
+        final int[] byMinor = countingSort(minorDimension, minor, null);
+        final int[] start = new int[majorDimension + 1];
+        final int[] order = countingSort(majorDimension, major, byMinor, start);
+
+        // sum the duplicates, compacting the arrays
+        final int[] index = new int[size];
+        final double[] sorted = new double[size];
+        int count = 0;
+        for (int i = 0; i < majorDimension; i++) {
+            final int first = count;
+            for (int k = start[i]; k < start[i + 1]; k++) {
+                final int e = order[k];
+                if (count > first && index[count - 1] == minor[e]) {
+                    sorted[count - 1] += values[e];
+                } else {
+                    index[count] = minor[e];
+                    sorted[count] = values[e];
+                    ++count;
+                }
+            }
+            start[i] = first;
+        }
+        start[majorDimension] = count;
+
+        return new CompressedRowRealMatrix(majorDimension, minorDimension, start,
+                                           MathArrays.copyOf(index, count),
+                                           MathArrays.copyOf(sorted, count),
+                                           false);
+    }
+
+    /**
+     * Stable counting sort of the entries.
+     *
+     * @param dimension Number of distinct keys.
+     * @param key Key of each entry.
+     * @param input Order of the entries to sort (if {@code null}, the
+     * entries are taken in insertion order).
+     * @return the sorted order of the entries.
+     */
+    private int[] countingSort(final int dimension, final int[] key, final int[] input) {
+        return countingSort(dimension, key, input, new int[dimension + 1]);
+    }
+
+    /**
+     * Stable counting sort of the entries.
+     *
+     * @param dimension Number of distinct keys.
+     * @param key Key of each entry.
+     * @param input Order of the entries to sort (if {@code null}, the
+     * entries are taken in insertion order).
+     * @param start Array of {@code dimension + 1} zeros, which is filled
+     * with the position of the first entry of each key in the sorted order.
+     * @return the sorted order of the entries.
+     */
+    private int[] countingSort(final int dimension, final int[] key, final int[] input,
+                               final int[] start) {
+        for (int e = 0; e < size; e++) {
+            ++start[key[e] + 1];
+        }
+        for (int i = 0; i < dimension; i++) {
+            start[i + 1] += start[i];
+        }
+        final int[] next = MathArrays.copyOf(start, dimension);
+        final int[] output = new int[size];
+        for (int k = 0; k < size; k++) {
+            final int e = input == null ? k : input[k];
+            output[next[key[e]]++] = e;
+        }
+        return output;
+    }
+}
@@ -0,0 +1,1080 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * Calculates the eigen decomposition of a real symmetric matrix.
+ * <p>The decomposition is the same as the one computed by
+ * {@link EigenDecomposition} for symmetric matrices: A = V &times; D &times;
+ * V<sup>T</sup> where D is diagonal, with the eigenvalues sorted in
+ * decreasing order, and V is orthogonal. The algorithms are designed for
+ * large matrices:</p>
+ * <ul>
+ *   <li>the matrix is reduced to tridiagonal form by Householder reflectors
+ *   which are accumulated by blocks of columns, so that most of the update of
+ *   the remaining part of the matrix is a rank-2k update instead of a
+ *   sequence of rank-2 updates,</li>
+ *   <li>the eigenvalues and eigenvectors of the tridiagonal matrix are
+ *   computed by Cuppen's divide-and-conquer algorithm: the matrix is split
+ *   into two halves whose decompositions are merged by solving a secular
+ *   equation, with the deflation of negligible components and the
+ *   eigenvectors computation of Gu and Eisenstat, which keeps them
+ *   orthogonal,</li>
+ *   <li>the reflectors are applied to the eigenvectors of the tridiagonal
+ *   matrix by blocks, in the compact WY representation.</li>
+ * </ul>
+ * <p>The merges of the divide-and-conquer algorithm and the application of
+ * the reflectors are mostly matrix products, which are run concurrently if
+ * an executor is provided. The small sub-problems of the divide-and-conquer
+ * algorithm are solved by the implicit QL algorithm.</p>
+ * <p>Only the eigenvalues in the first k positions are needed when a few
+ * dominant eigenpairs are sought: {@link LanczosEigenDecomposition} computes
+ * them without decomposing the whole matrix.</p>
+ *
+ * @see EigenDecomposition
+ * @see <a href="http://www.netlib.org/lapack/lawnspdf/lawn89.pdf">Gu and
+ * Eisenstat, A Divide-and-Conquer Algorithm for the Symmetric Tridiagonal
+ * Eigenproblem</a>
+ * @version $Id$
+ * @since 3.3
+ */
+public class SymmetricEigenDecomposition {
+    /** Size of the sub-problems solved by the implicit QL algorithm. */
+    private static final int SMALL_PROBLEM = 25;
+    /** Maximum number of iterations accepted in the implicit QL transformation. */
+    private static final int MAX_QL_ITERATIONS = 30;
+    /** Maximum number of iterations of the secular equation solver. */
+    private static final int MAX_SECULAR_ITERATIONS = 100;
+    /** Eigenvalues, in decreasing order. */
+    private final double[] eigenvalues;
+    /** Eigenvectors, stored by columns. */
+    private final double[][] eigenvectors;
+    /** Executor of the concurrent updates (may be {@code null}). */
+    private final ExecutorService executor;
+    /** Cached value of V. */
+    private RealMatrix cachedV;
+    /** Cached value of D. */
+    private RealMatrix cachedD;
+    /** Cached value of Vt. */
+    private RealMatrix cachedVt;
+
+    /**
+     * Calculates the eigen decomposition of the given symmetric matrix, in
+     * the calling thread.
+     *
+     * @param matrix Matrix to decompose.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     * @throws NonSymmetricMatrixException if the matrix is not symmetric.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    public SymmetricEigenDecomposition(final RealMatrix matrix) {
+        this(matrix, null);
+    }
+
+    /**
+     * Calculates the eigen decomposition of the given symmetric matrix.
+     *
+     * @param matrix Matrix to decompose.
+     * @param executor executor of the concurrent updates, or {@code null}
+     * to compute the decomposition in the calling thread
+     * @throws NonSquareMatrixException if the matrix is not square.
+     * @throws NonSymmetricMatrixException if the matrix is not symmetric.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     * @throws org.apache.commons.math3.exception.MathIllegalStateException
+     * if the thread is interrupted while waiting for the updates.
+     */
+    public SymmetricEigenDecomposition(final RealMatrix matrix,
+                                       final ExecutorService executor) {
+        final double symTol = 10 * matrix.getRowDimension() * matrix.getColumnDimension() * Precision.EPSILON;
+        MatrixUtils.checkSymmetric(matrix, symTol);
+        this.executor = executor;
+
+        final int n = matrix.getRowDimension();
+        final double[][] a = matrix.getData();
+        final double[] main = new double[n];
+        final double[] secondary = new double[n];
+        final double[] tau = new double[n];
+        transformToTridiagonal(a, main, secondary, tau);
+        eigenvectors = new double[n][n];
+        eigenvalues = main;
+        findEigenVectors(main, secondary, eigenvectors);
+        applyHouseholderVectors(a, tau, eigenvectors);
+        sortDecreasing();
+    }
+
+    /**
+     * Calculates the eigen decomposition of the symmetric tridiagonal
+     * matrix, in the calling thread.
+     *
+     * @param main Main diagonal of the symmetric tridiagonal form.
+     * @param secondary Secondary of the tridiagonal form.
+     * @throws DimensionMismatchException if the secondary diagonal is not one
+     * element shorter than the main diagonal.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    public SymmetricEigenDecomposition(final double[] main, final double[] secondary) {
+        if (secondary.length != main.length - 1) {
+            throw new DimensionMismatchException(secondary.length, main.length - 1);
+        }
+        executor = null;
+        final int n = main.length;
+        final double[] e = new double[n];
+        System.arraycopy(secondary, 0, e, 0, n - 1);
+        eigenvalues  = main.clone();
+        eigenvectors = new double[n][n];
+        findEigenVectors(eigenvalues, e, eigenvectors);
+        sortDecreasing();
+    }
+
+    /**
+     * Reduces the matrix to tridiagonal form.
+     * <p>The reflector H<sub>c</sub> = I - &tau;<sub>c</sub>vv<sup>T</sup> of
+     * column c annihilates the elements below the sub-diagonal. Its vector
+     * v has a first component 1 on row c+1, the other ones are stored below
+     * in column c. The reflectors of a block of columns are applied to the
+     * remaining part of the matrix by a single rank-2k update
+     * A - VW<sup>T</sup> - WV<sup>T</sup> (this is LAPACK's {@code DSYTRD}
+     * algorithm).</p>
+     *
+     * @param a Symmetric matrix, whose lower triangular part is overwritten
+     * by the reflectors vectors.
+     * @param main Main diagonal of the tridiagonal form (output).
+     * @param secondary Secondary diagonal of the tridiagonal form (output).
+     * @param tau Scaling factors of the reflectors (output).
+     */
+    private void transformToTridiagonal(final double[][] a, final double[] main,
+                                        final double[] secondary, final double[] tau) {
+        final int n = a.length;
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int k = 0; k < n - 1; k += BlockOperations.BLOCK_SIZE) {
+            final int width = FastMath.min(BlockOperations.BLOCK_SIZE, n - 1 - k);
+            final double[][] v = new double[n][width];
+            final double[][] w = new double[n][width];
+            final double[] p = new double[width];
+            final double[] q = new double[width];
+            for (int i = 0; i < width; ++i) {
+                final int c = k + i;
+
+                // apply the previous reflectors of the block to column c
+                final double[] vC = v[c];
+                final double[] wC = w[c];
+                for (int r = c; r < n; ++r) {
+                    final double[] vR = v[r];
+                    final double[] wR = w[r];
+                    double s = 0;
+                    for (int l = 0; l < i; ++l) {
+                        s += vR[l] * wC[l] + wR[l] * vC[l];
+                    }
+                    a[r][c] -= s;
+                }
+                main[c] = a[c][c];
+
+                // reflector annihilating the elements below the sub-diagonal
+                final double alpha = a[c + 1][c];
+                double xNormSqr = 0;
+                for (int r = c + 2; r < n; ++r) {
+                    xNormSqr += a[r][c] * a[r][c];
+                }
+                v[c + 1][i] = 1;
+                if (xNormSqr == 0) {
+                    // nothing to annihilate, H = I and w = 0
+                    tau[c] = 0;
+                    secondary[c] = alpha;
+                    continue;
+                }
+                final double beta = (alpha > 0) ?
+                                    -FastMath.sqrt(alpha * alpha + xNormSqr) :
+                                    FastMath.sqrt(alpha * alpha + xNormSqr);
+                final double t = (beta - alpha) / beta;
+                final double scale = 1.0 / (alpha - beta);
+                tau[c] = t;
+                secondary[c] = beta;
+                for (int r = c + 2; r < n; ++r) {
+                    a[r][c] *= scale;
+                    v[r][i] = a[r][c];
+                }
+
+                // y = A v on the trailing part, from its lower triangle
+                for (int r = c + 1; r < n; ++r) {
+                    x[r] = v[r][i];
+                }
+                for (int r = c + 1; r < n; ++r) {
+                    final double[] aR = a[r];
+                    final double xR = x[r];
+                    double s = 0;
+                    for (int j = c + 1; j < r; ++j) {
+                        s    += aR[j] * x[j];
+                        y[j] += aR[j] * xR;
+                    }
+                    y[r] = s + aR[r] * xR;
+                }
+
+                // y = (A - VW' - WV') v, with the previous reflectors of the block
+                if (i > 0) {
+                    for (int l = 0; l < i; ++l) {
+                        p[l] = 0;
+                        q[l] = 0;
+                    }
+                    for (int r = c + 1; r < n; ++r) {
+                        final double[] vR = v[r];
+                        final double[] wR = w[r];
+                        for (int l = 0; l < i; ++l) {
+                            p[l] += wR[l] * vR[i];
+                            q[l] += vR[l] * vR[i];
+                        }
+                    }
+                    for (int r = c + 1; r < n; ++r) {
+                        final double[] vR = v[r];
+                        final double[] wR = w[r];
+                        double s = 0;
+                        for (int l = 0; l < i; ++l) {
+                            s += vR[l] * p[l] + wR[l] * q[l];
+                        }
+                        y[r] -= s;
+                    }
+                }
+
+                // w = tau y - (tau^2 y'v / 2) v
+                double dot = 0;
+                for (int r = c + 1; r < n; ++r) {
+                    y[r] *= t;
+                    dot  += y[r] * v[r][i];
+                }
+                final double correction = -0.5 * t * dot;
+                for (int r = c + 1; r < n; ++r) {
+                    w[r][i] = y[r] + correction * v[r][i];
+                }
+            }
+
+            // rank-2k update of the lower triangle of the trailing part
+            final int end = k + width;
+            final long operations = 2l * (n - end) * (n - end) * width;
+            BlockOperations.forEach(executor, operations, end, n, new BlockOperations.Loop() {
+                public void run(final int r) {
+                    final double[] aR = a[r];
+                    final double[] vR = v[r];
+                    final double[] wR = w[r];
+                    for (int j = end; j <= r; ++j) {
+                        final double[] vJ = v[j];
+                        final double[] wJ = w[j];
+                        double s = 0;
+                        for (int l = 0; l < width; ++l) {
+                            s += vR[l] * wJ[l] + wR[l] * vJ[l];
+                        }
+                        aR[j] -= s;
+                    }
+                }
+            });
+        }
+        main[n - 1] = a[n - 1][n - 1];
+        secondary[n - 1] = 0;
+    }
+
+    /**
+     * Multiplies the eigenvectors of the tridiagonal matrix by the
+     * orthogonal matrix Q = H<sub>0</sub>&hellip;H<sub>n-2</sub> of the
+     * reduction to tridiagonal form.
+     * <p>The reflectors of each block of columns are applied at once, as
+     * I - VTV<sup>T</sup> where T is upper triangular.</p>
+     *
+     * @param a Reflectors vectors, stored below the sub-diagonal.
+     * @param tau Scaling factors of the reflectors.
+     * @param z Eigenvectors of the tridiagonal matrix, replaced by the
+     * eigenvectors of the matrix.
+     */
+    private void applyHouseholderVectors(final double[][] a, final double[] tau, final double[][] z) {
+        final int n = a.length;
+        final int chunks = BlockOperations.blockCount(n);
+        final int last = ((n - 2) / BlockOperations.BLOCK_SIZE) * BlockOperations.BLOCK_SIZE;
+        for (int k = last; k >= 0; k -= BlockOperations.BLOCK_SIZE) {
+            final int first  = k + 1;
+            final int height = n - first;
+            final int width  = FastMath.min(BlockOperations.BLOCK_SIZE, n - 1 - k);
+
+            // vectors of the block, on rows k+1 to n-1
+            final double[][] v = new double[height][width];
+            for (int i = 0; i < width; ++i) {
+                final int c = k + i;
+                v[c - k][i] = 1;
+                for (int r = c + 2; r < n; ++r) {
+                    v[r - first][i] = a[r][c];
+                }
+            }
+
+            // triangular factor: T(0:i-1, i) = -tau_i T(0:i-1, 0:i-1) V(:, 0:i-1)' v_i
+            final double[][] t = new double[width][width];
+            final double[][] gram = new double[width][width];
+            for (int r = 0; r < height; ++r) {
+                final double[] vR = v[r];
+                for (int i = 0; i < width; ++i) {
+                    final double vRI = vR[i];
+                    if (vRI != 0) {
+                        final double[] gramI = gram[i];
+                        for (int l = 0; l < width; ++l) {
+                            gramI[l] += vRI * vR[l];
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < width; ++i) {
+                final double tauI = tau[k + i];
+                t[i][i] = tauI;
+                for (int p = 0; p < i; ++p) {
+                    double s = 0;
+                    for (int l = p; l < i; ++l) {
+                        s += t[p][l] * gram[l][i];
+                    }
+                    t[p][i] = -tauI * s;
+                }
+            }
+
+            // Z = Z - V T V' Z, by chunks of columns
+            final long operations = 4l * height * width * n;
+            BlockOperations.forEach(executor, operations, 0, chunks, new BlockOperations.Loop() {
+                public void run(final int chunk) {
+                    final int c0 = chunk * BlockOperations.BLOCK_SIZE;
+                    final int cw = BlockOperations.blockSize(chunk, n);
+                    final double[][] y = new double[width][cw];
+                    for (int r = 0; r < height; ++r) {
+                        final double[] vR = v[r];
+                        final double[] zR = z[first + r];
+                        final int lEnd = FastMath.min(width, r + 1);
+                        int l = 0;
+                        for (; l < lEnd - 3; l += 4) {
+                            final double v0 = vR[l];
+                            final double v1 = vR[l + 1];
+                            final double v2 = vR[l + 2];
+                            final double v3 = vR[l + 3];
+                            final double[] y0 = y[l];
+                            final double[] y1 = y[l + 1];
+                            final double[] y2 = y[l + 2];
+                            final double[] y3 = y[l + 3];
+                            for (int j = 0; j < cw; ++j) {
+                                final double zRJ = zR[c0 + j];
+                                y0[j] += v0 * zRJ;
+                                y1[j] += v1 * zRJ;
+                                y2[j] += v2 * zRJ;
+                                y3[j] += v3 * zRJ;
+                            }
+                        }
+                        for (; l < lEnd; ++l) {
+                            final double vRL = vR[l];
+                            final double[] yL = y[l];
+                            for (int j = 0; j < cw; ++j) {
+                                yL[j] += vRL * zR[c0 + j];
+                            }
+                        }
+                    }
+                    for (int p = 0; p < width; ++p) {
+                        final double[] yP = y[p];
+                        for (int j = 0; j < cw; ++j) {
+                            double s = 0;
+                            for (int l = p; l < width; ++l) {
+                                s += t[p][l] * y[l][j];
+                            }
+                            yP[j] = s;
+                        }
+                    }
+                    for (int r = 0; r < height; ++r) {
+                        final double[] vR = v[r];
+                        final double[] zR = z[first + r];
+                        final int lEnd = FastMath.min(width, r + 1);
+                        int l = 0;
+                        for (; l < lEnd - 3; l += 4) {
+                            final double v0 = vR[l];
+                            final double v1 = vR[l + 1];
+                            final double v2 = vR[l + 2];
+                            final double v3 = vR[l + 3];
+                            final double[] y0 = y[l];
+                            final double[] y1 = y[l + 1];
+                            final double[] y2 = y[l + 2];
+                            final double[] y3 = y[l + 3];
+                            for (int j = 0; j < cw; ++j) {
+                                zR[c0 + j] -= v0 * y0[j] + v1 * y1[j] + v2 * y2[j] + v3 * y3[j];
+                            }
+                        }
+                        for (; l < lEnd; ++l) {
+                            final double vRL = vR[l];
+                            final double[] yL = y[l];
+                            for (int j = 0; j < cw; ++j) {
+                                zR[c0 + j] -= vRL * yL[j];
+                            }
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Computes the eigenvalues and eigenvectors of a symmetric tridiagonal
+     * matrix.
+     *
+     * @param d Main diagonal, replaced by the eigenvalues in increasing
+     * order.
+     * @param e Secondary diagonal (its last element is ignored), destroyed.
+     * @param z Eigenvectors, stored by columns (output).
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    private void findEigenVectors(final double[] d, final double[] e, final double[][] z) {
+        final int n = d.length;
+
+        // scale the matrix, so that tolerances are absolute
+        double norm = 0;
+        for (int i = 0; i < n; ++i) {
+            norm = FastMath.max(norm, FastMath.abs(d[i]));
+            if (i < n - 1) {
+                norm = FastMath.max(norm, FastMath.abs(e[i]));
+            }
+        }
+        if (norm == 0) {
+            for (int i = 0; i < n; ++i) {
+                z[i][i] = 1;
+            }
+            return;
+        }
+        for (int i = 0; i < n; ++i) {
+            d[i] /= norm;
+            e[i] /= norm;
+        }
+        e[n - 1] = 0;
+
+        divide(d, e, 0, n, z);
+
+        for (int i = 0; i < n; ++i) {
+            d[i] *= norm;
+        }
+    }
+
+    /**
+     * Solves a sub-problem of the divide-and-conquer algorithm.
+     * <p>The tridiagonal matrix of rows and columns {@code start} to
+     * {@code start + size - 1} is torn into two halves by a rank-one
+     * modification, the halves are solved recursively and their
+     * decompositions are merged.</p>
+     *
+     * @param d Main diagonal, replaced by the eigenvalues of the sub-problem
+     * in increasing order.
+     * @param e Secondary diagonal.
+     * @param start Index of the first row of the sub-problem.
+     * @param size Number of rows of the sub-problem.
+     * @param z Eigenvectors, the sub-problem ones are stored in its diagonal
+     * block.
+     */
+    private void divide(final double[] d, final double[] e, final int start, final int size,
+                        final double[][] z) {
+        if (size <= SMALL_PROBLEM) {
+            solveQL(d, e, start, size, z);
+            return;
+        }
+
+        // T = diag(T1, T2) + |beta| u u' with u = e_(m-1) + sign(beta) e_m
+        final int m = size / 2;
+        final double beta = e[start + m - 1];
+        d[start + m - 1] -= FastMath.abs(beta);
+        d[start + m]     -= FastMath.abs(beta);
+        divide(d, e, start, m, z);
+        divide(d, e, start + m, size - m, z);
+        merge(d, start, m, size, beta, z);
+    }
+
+    /**
+     * Merges the decompositions of the two halves of a sub-problem.
+     * <p>The eigenvalues of diag(D<sub>1</sub>, D<sub>2</sub>) + &rho;zz<sup>T</sup>
+     * are the roots of the secular equation
+     * 1 + &rho;&sum;z<sub>j</sub><sup>2</sup>/(d<sub>j</sub> - &lambda;) = 0.
+     * The components of z which are negligible, or which correspond to equal
+     * eigenvalues of the halves, are first deflated.</p>
+     *
+     * @param d Eigenvalues of the halves, replaced by the merged eigenvalues.
+     * @param start Index of the first row of the sub-problem.
+     * @param m Size of the first half.
+     * @param size Size of the sub-problem.
+     * @param beta Element of the secondary diagonal coupling the halves.
+     * @param z Eigenvectors.
+     */
+    private void merge(final double[] d, final int start, final int m, final int size,
+                       final double beta, final double[][] z) {
+
+        // rank-one modification: rho = 2 |beta|, |zeta| = 1
+        final double rho = 2 * FastMath.abs(beta);
+        final double[] zeta = new double[size];
+        final double[] lambda = new double[size];
+        final double scale = FastMath.sqrt(0.5);
+        for (int j = 0; j < size; ++j) {
+            lambda[j] = d[start + j];
+            if (j < m) {
+                zeta[j] = scale * z[start + m - 1][start + j];
+            } else {
+                zeta[j] = (beta < 0 ? -scale : scale) * z[start + m][start + j];
+            }
+        }
+
+        // kind of each column: 1 upper half only, 2 both halves, 3 lower half only
+        final int[] kind = new int[size];
+        for (int j = 0; j < size; ++j) {
+            kind[j] = j < m ? 1 : 3;
+        }
+
+        // merge the increasing eigenvalues of the halves
+        final int[] order = new int[size];
+        for (int i = 0, j = m, k = 0; k < size; ++k) {
+            if (j >= size || (i < m && lambda[i] <= lambda[j])) {
+                order[k] = i++;
+            } else {
+                order[k] = j++;
+            }
+        }
+
+        // deflation
+        double maxAbs = rho;
+        for (int j = 0; j < size; ++j) {
+            maxAbs = FastMath.max(maxAbs, FastMath.abs(lambda[j]));
+        }
+        final double tol = 8 * Precision.EPSILON * maxAbs;
+        final int[] kept = new int[size];
+        final int[] deflated = new int[size];
+        int nKept = 0;
+        int nDeflated = 0;
+        int previous = -1;
+        for (int k = 0; k < size; ++k) {
+            final int j = order[k];
+            if (rho * FastMath.abs(zeta[j]) <= tol) {
+                deflated[nDeflated++] = j;
+                continue;
+            }
+            if (previous >= 0) {
+                // a rotation in the plane of two close eigenvalues zeroes a component
+                final double r = FastMath.hypot(zeta[previous], zeta[j]);
+                final double c = zeta[j] / r;
+                final double s = -zeta[previous] / r;
+                if (FastMath.abs((lambda[j] - lambda[previous]) * c * s) <= tol) {
+                    zeta[j] = r;
+                    zeta[previous] = 0;
+                    for (int row = start; row < start + size; ++row) {
+                        final double[] zRow = z[row];
+                        final double x = zRow[start + previous];
+                        final double y = zRow[start + j];
+                        zRow[start + previous] = c * x + s * y;
+                        zRow[start + j]        = c * y - s * x;
+                    }
+                    if (kind[previous] != kind[j]) {
+                        kind[previous] = 2;
+                        kind[j] = 2;
+                    }
+                    final double lp = lambda[previous] * c * c + lambda[j] * s * s;
+                    lambda[j] = lambda[previous] * s * s + lambda[j] * c * c;
+                    lambda[previous] = lp;
+                    deflated[nDeflated++] = previous;
+                } else {
+                    kept[nKept++] = previous;
+                }
+            }
+            previous = j;
+        }
+        if (previous >= 0) {
+            kept[nKept++] = previous;
+        }
+
+        // roots of the secular equation, as d(origin) + shift
+        final double[] dk = new double[nKept];
+        final double[] zk = new double[nKept];
+        for (int i = 0; i < nKept; ++i) {
+            dk[i] = lambda[kept[i]];
+            zk[i] = zeta[kept[i]];
+        }
+        final int[] origin = new int[nKept];
+        final double[] shift = new double[nKept];
+        for (int i = 0; i < nKept; ++i) {
+            solveSecular(dk, zk, rho, i, origin, shift);
+        }
+
+        // eigenvectors of the rank-one modification (Gu and Eisenstat)
+        final double[] zHat = new double[nKept];
+        for (int j = 0; j < nKept; ++j) {
+            double w = (dk[j] - dk[origin[j]]) - shift[j];
+            for (int i = 0; i < nKept; ++i) {
+                if (i != j) {
+                    w *= ((dk[j] - dk[origin[i]]) - shift[i]) / (dk[j] - dk[i]);
+                }
+            }
+            zHat[j] = FastMath.copySign(FastMath.sqrt(FastMath.max(0, -w / rho)), zk[j]);
+        }
+        final double[][] u = new double[nKept][nKept];
+        for (int i = 0; i < nKept; ++i) {
+            double norm2 = 0;
+            for (int j = 0; j < nKept; ++j) {
+                final double uJI = zHat[j] / ((dk[j] - dk[origin[i]]) - shift[i]);
+                u[j][i] = uJI;
+                norm2  += uJI * uJI;
+            }
+            final double inv = 1.0 / FastMath.sqrt(norm2);
+            for (int j = 0; j < nKept; ++j) {
+                u[j][i] *= inv;
+            }
+        }
+
+        // group the kept columns by kind, to skip the zero parts in the product
+        final int[] group = new int[nKept];
+        int nUpper = 0;
+        int nBoth = 0;
+        for (int i = 0; i < nKept; ++i) {
+            if (kind[kept[i]] == 1) {
+                ++nUpper;
+            } else if (kind[kept[i]] == 2) {
+                ++nBoth;
+            }
+        }
+        final int[] next = { 0, 0, nUpper, nUpper + nBoth };
+        for (int i = 0; i < nKept; ++i) {
+            group[next[kind[kept[i]]]++] = i;
+        }
+        final double[][] ug = new double[nKept][];
+        for (int g = 0; g < nKept; ++g) {
+            ug[g] = u[group[g]];
+        }
+        final int upperEnd = nUpper + nBoth;
+        final double[][] qUpper = new double[m][upperEnd];
+        for (int r = 0; r < m; ++r) {
+            for (int g = 0; g < upperEnd; ++g) {
+                qUpper[r][g] = z[start + r][start + kept[group[g]]];
+            }
+        }
+        final double[][] qLower = new double[size - m][nKept - nUpper];
+        for (int r = m; r < size; ++r) {
+            for (int g = nUpper; g < nKept; ++g) {
+                qLower[r - m][g - nUpper] = z[start + r][start + kept[group[g]]];
+            }
+        }
+
+        // sort all the eigenvalues, kept ones are identified by negative indices
+        final double[] values = new double[size];
+        final int[] source = new int[size];
+        for (int i = 0, j = 0, k = 0; k < size; ++k) {
+            final double vKept = (i < nKept) ? dk[origin[i]] + shift[i] : Double.POSITIVE_INFINITY;
+            if (j >= nDeflated || (i < nKept && vKept <= lambda[deflated[j]])) {
+                values[k] = vKept;
+                source[k] = -1 - i++;
+            } else {
+                values[k] = lambda[deflated[j]];
+                source[k] = deflated[j++];
+            }
+        }
+        System.arraycopy(values, 0, d, start, size);
+
+        // eigenvectors: Q diag(U, I), skipping the zero parts of Q
+        final RealMatrix upper = multiply(qUpper, ug, 0, upperEnd, nKept);
+        final RealMatrix lower = multiply(qLower, ug, nUpper, nKept, nKept);
+        for (int r = 0; r < size; ++r) {
+            final double[] zRow = z[start + r];
+            final double[] product = (r < m) ? upper.getRow(r) : lower.getRow(r - m);
+            final double[] row = new double[size];
+            for (int k = 0; k < size; ++k) {
+                row[k] = (source[k] < 0) ? product[-1 - source[k]] : zRow[start + source[k]];
+            }
+            System.arraycopy(row, 0, zRow, start, size);
+        }
+    }
+
+    /**
+     * Multiplies a matrix by some rows of another one.
+     *
+     * @param a Left matrix.
+     * @param b Rows of the right matrix.
+     * @param first Index of the first row of the right matrix.
+     * @param last Index following the last row of the right matrix.
+     * @param columns Number of columns of the right matrix.
+     * @return the product.
+     */
+    private RealMatrix multiply(final double[][] a, final double[][] b,
+                                final int first, final int last, final int columns) {
+        if (a.length == 0 || first == last) {
+            return new BlockRealMatrix(FastMath.max(a.length, 1), FastMath.max(columns, 1));
+        }
+        final double[][] rows = new double[last - first][];
+        System.arraycopy(b, first, rows, 0, last - first);
+        final BlockRealMatrix left  = new BlockRealMatrix(a);
+        final BlockRealMatrix right = new BlockRealMatrix(rows);
+        return (executor == null) ?
+               left.multiply(right) :
+               new ParallelMatrixMultiplier(executor).multiply(left, right);
+    }
+
+    /**
+     * Solves the secular equation
+     * f(&lambda;) = 1 + &rho;&sum;z<sub>j</sub><sup>2</sup>/(d<sub>j</sub> - &lambda;) = 0
+     * for its root between d<sub>i</sub> and d<sub>i+1</sub> (or above the
+     * last d).
+     * <p>The root is represented as d<sub>origin</sub> + shift, where the
+     * origin is the closest pole, so that the differences
+     * d<sub>j</sub> - &lambda; are accurate. The iterations use a rational
+     * model of f with the two poles enclosing the root, safeguarded by
+     * bisection.</p>
+     *
+     * @param d Poles, in strictly increasing order.
+     * @param z Components of the rank-one modification.
+     * @param rho Positive factor of the rank-one modification.
+     * @param i Index of the root.
+     * @param origin Index of the origin of each root (output).
+     * @param shift Shift of each root with respect to its origin (output).
+     */
+    private static void solveSecular(final double[] d, final double[] z, final double rho,
+                                     final int i, final int[] origin, final double[] shift) {
+        final int k = d.length;
+        if (k == 1) {
+            origin[i] = 0;
+            shift[i]  = rho * z[0] * z[0];
+            return;
+        }
+
+        // bracket the root, from the nearest pole
+        final int o;
+        final int left;
+        double lo;
+        double hi;
+        if (i < k - 1) {
+            final double half = 0.5 * (d[i + 1] - d[i]);
+            double f = 1;
+            for (int j = 0; j < k; ++j) {
+                f += rho * z[j] * z[j] / ((d[j] - d[i]) - half);
+            }
+            if (f >= 0) {
+                o  = i;
+                lo = 0;
+                hi = half;
+            } else {
+                o  = i + 1;
+                lo = -half;
+                hi = 0;
+            }
+            left = i;
+        } else {
+            double norm2 = 0;
+            for (int j = 0; j < k; ++j) {
+                norm2 += z[j] * z[j];
+            }
+            o    = k - 1;
+            lo   = 0;
+            hi   = rho * norm2;
+            left = k - 2;
+        }
+
+        double t = 0.5 * (lo + hi);
+        for (int iteration = 0; iteration < MAX_SECULAR_ITERATIONS; ++iteration) {
+            // f = 1 + psi + phi, psi for the poles up to left, phi above
+            double psi  = 0;
+            double dPsi = 0;
+            double phi  = 0;
+            double dPhi = 0;
+            for (int j = 0; j < k; ++j) {
+                final double q = z[j] / ((d[j] - d[o]) - t);
+                if (j <= left) {
+                    psi  += z[j] * q;
+                    dPsi += q * q;
+                } else {
+                    phi  += z[j] * q;
+                    dPhi += q * q;
+                }
+            }
+            psi  *= rho;
+            dPsi *= rho;
+            phi  *= rho;
+            dPhi *= rho;
+            final double f = 1 + psi + phi;
+            if (FastMath.abs(f) <= 8 * k * Precision.EPSILON * (1 + FastMath.abs(psi) + FastMath.abs(phi))) {
+                break;
+            }
+            if (f > 0) {
+                hi = t;
+            } else {
+                lo = t;
+            }
+            if (hi - lo <= 2 * Precision.EPSILON * FastMath.max(FastMath.abs(lo), FastMath.abs(hi))) {
+                break;
+            }
+
+            // root of c + s / (d1 - eta) + S / (d2 - eta), which matches f and f'
+            final double d1 = (d[left] - d[o]) - t;
+            final double d2 = (d[left + 1] - d[o]) - t;
+            final double s1 = d1 * d1 * dPsi;
+            final double s2 = d2 * d2 * dPhi;
+            final double c  = f - d1 * dPsi - d2 * dPhi;
+            final double b  = c * (d1 + d2) + s1 + s2;
+            final double a  = c * d1 * d2 + s1 * d2 + s2 * d1;
+            double next = Double.NaN;
+            if (c == 0) {
+                next = t + a / b;
+            } else {
+                final double root = FastMath.sqrt(FastMath.max(0, b * b - 4 * c * a));
+                final double q = 0.5 * (b + FastMath.copySign(root, b));
+                final double eta1 = q / c;
+                final double eta2 = (q == 0) ? eta1 : a / q;
+                final double t1 = t + eta1;
+                final double t2 = t + eta2;
+                final boolean in1 = t1 > lo && t1 < hi;
+                final boolean in2 = t2 > lo && t2 < hi;
+                if (in1 && (!in2 || FastMath.abs(eta1) < FastMath.abs(eta2))) {
+                    next = t1;
+                } else if (in2) {
+                    next = t2;
+                }
+            }
+            if (!(next > lo && next < hi)) {
+                next = 0.5 * (lo + hi);
+            }
+            if (next == t) {
+                break;
+            }
+            t = next;
+        }
+        origin[i] = o;
+        shift[i]  = t;
+    }
+
+    /**
+     * Solves a small sub-problem by the implicit QL algorithm (Dubrulle et
+     * al., 1971).
+     *
+     * @param d Main diagonal, replaced by the eigenvalues of the sub-problem
+     * in increasing order.
+     * @param e Secondary diagonal.
+     * @param start Index of the first row of the sub-problem.
+     * @param size Number of rows of the sub-problem.
+     * @param z Eigenvectors, the sub-problem ones are stored in its diagonal
+     * block.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    private static void solveQL(final double[] d, final double[] e, final int start, final int size,
+                                final double[][] z) {
+        final double[] lambda = new double[size];
+        final double[] sub = new double[size];
+        System.arraycopy(d, start, lambda, 0, size);
+        System.arraycopy(e, start, sub, 0, size - 1);
+
+        // eigenvectors stored by rows
+        final double[][] v = new double[size][size];
+        for (int i = 0; i < size; ++i) {
+            v[i][i] = 1;
+        }
+
+        for (int j = 0; j < size; j++) {
+            int its = 0;
+            int m;
+            do {
+                for (m = j; m < size - 1; m++) {
+                    double delta = FastMath.abs(lambda[m]) + FastMath.abs(lambda[m + 1]);
+                    if (FastMath.abs(sub[m]) + delta == delta) {
+                        break;
+                    }
+                }
+                if (m != j) {
+                    if (its == MAX_QL_ITERATIONS) {
+                        throw new MaxCountExceededException(LocalizedFormats.CONVERGENCE_FAILED,
+                                                            MAX_QL_ITERATIONS);
+                    }
+                    its++;
+                    double q = (lambda[j + 1] - lambda[j]) / (2 * sub[j]);
+                    double t = FastMath.sqrt(1 + q * q);
+                    if (q < 0.0) {
+                        q = lambda[m] - lambda[j] + sub[j] / (q - t);
+                    } else {
+                        q = lambda[m] - lambda[j] + sub[j] / (q + t);
+                    }
+                    double u = 0.0;
+                    double s = 1.0;
+                    double c = 1.0;
+                    int i;
+                    for (i = m - 1; i >= j; i--) {
+                        double p = s * sub[i];
+                        double h = c * sub[i];
+                        if (FastMath.abs(p) >= FastMath.abs(q)) {
+                            c = q / p;
+                            t = FastMath.sqrt(c * c + 1.0);
+                            sub[i + 1] = p * t;
+                            s = 1.0 / t;
+                            c = c * s;
+                        } else {
+                            s = p / q;
+                            t = FastMath.sqrt(s * s + 1.0);
+                            sub[i + 1] = q * t;
+                            c = 1.0 / t;
+                            s = s * c;
+                        }
+                        if (sub[i + 1] == 0.0) {
+                            lambda[i + 1] -= u;
+                            sub[m] = 0.0;
+                            break;
+                        }
+                        q = lambda[i + 1] - u;
+                        t = (lambda[i] - q) * s + 2.0 * c * h;
+                        u = s * t;
+                        lambda[i + 1] = q + u;
+                        q = c * t - h;
+                        final double[] vI  = v[i];
+                        final double[] vI1 = v[i + 1];
+                        for (int ia = 0; ia < size; ia++) {
+                            p = vI1[ia];
+                            vI1[ia] = s * vI[ia] + c * p;
+                            vI[ia]  = c * vI[ia] - s * p;
+                        }
+                    }
+                    if (t == 0.0 && i >= j) {
+                        continue;
+                    }
+                    lambda[j] -= u;
+                    sub[j] = q;
+                    sub[m] = 0.0;
+                }
+            } while (m != j);
+        }
+
+        // store the eigenpairs in increasing order
+        final boolean[] used = new boolean[size];
+        for (int k = 0; k < size; ++k) {
+            int min = -1;
+            for (int i = 0; i < size; ++i) {
+                if (!used[i] && (min < 0 || lambda[i] < lambda[min])) {
+                    min = i;
+                }
+            }
+            used[min] = true;
+            d[start + k] = lambda[min];
+            for (int r = 0; r < size; ++r) {
+                z[start + r][start + k] = v[min][r];
+            }
+        }
+    }
+
+    /**
+     * Reverses the increasing order of the eigenvalues and eigenvectors.
+     */
+    private void sortDecreasing() {
+        final int n = eigenvalues.length;
+        for (int i = 0; i < n / 2; ++i) {
+            final double tmp = eigenvalues[i];
+            eigenvalues[i] = eigenvalues[n - 1 - i];
+            eigenvalues[n - 1 - i] = tmp;
+        }
+        for (final double[] row : eigenvectors) {
+            for (int i = 0; i < n / 2; ++i) {
+                final double tmp = row[i];
+                row[i] = row[n - 1 - i];
+                row[n - 1 - i] = tmp;
+            }
+        }
+    }
+
+    /**
+     * Gets the matrix V of the decomposition.
+     * V is an orthogonal matrix, i.e. its transpose is also its inverse.
+     * The columns of V are the eigenvectors of the original matrix.
+     *
+     * @return the V matrix.
+     */
+    public RealMatrix getV() {
+        if (cachedV == null) {
+            cachedV = MatrixUtils.createRealMatrix(eigenvectors);
+        }
+        return cachedV;
+    }
+
+    /**
+     * Gets the block diagonal matrix D of the decomposition.
+     * D is a diagonal matrix, whose diagonal elements are the eigenvalues in
+     * decreasing order.
+     *
+     * @return the D matrix.
+     */
+    public RealMatrix getD() {
+        if (cachedD == null) {
+            cachedD = MatrixUtils.createRealDiagonalMatrix(eigenvalues);
+        }
+        return cachedD;
+    }
+
+    /**
+     * Gets the transpose of the matrix V of the decomposition.
+     *
+     * @return the transpose of the V matrix.
+     */
+    public RealMatrix getVT() {
+        if (cachedVt == null) {
+            cachedVt = getV().transpose();
+        }
+        return cachedVt;
+    }
+
+    /**
+     * Gets a copy of the eigenvalues of the original matrix.
+     *
+     * @return a copy of the eigenvalues, in decreasing order.
+     * @see #getD()
+     * @see #getRealEigenvalue(int)
+     */
+    public double[] getRealEigenvalues() {
+        return eigenvalues.clone();
+    }
+
+    /**
+     * Returns the i<sup>th</sup> eigenvalue of the original matrix.
+     *
+     * @param i index of the eigenvalue (counting from 0)
+     * @return the i<sup>th</sup> eigenvalue, in decreasing order.
+     * @see #getD()
+     * @see #getRealEigenvalues()
+     */
+    public double getRealEigenvalue(final int i) {
+        return eigenvalues[i];
+    }
+
+    /**
+     * Gets a copy of the i<sup>th</sup> eigenvector of the original matrix.
+     *
+     * @param i Index of the eigenvector (counting from 0).
+     * @return a copy of the i<sup>th</sup> eigenvector of the original matrix.
+     * @see #getD()
+     */
+    public RealVector getEigenvector(final int i) {
+        final double[] v = new double[eigenvectors.length];
+        for (int r = 0; r < v.length; ++r) {
+            v[r] = eigenvectors[r][i];
+        }
+        return new ArrayRealVector(v, false);
+    }
+
+    /**
+     * Computes the determinant of the matrix.
+     *
+     * @return the determinant of the matrix.
+     */
+    public double getDeterminant() {
+        double determinant = 1;
+        for (double lambda : eigenvalues) {
+            determinant *= lambda;
+        }
+        return determinant;
+    }
+}
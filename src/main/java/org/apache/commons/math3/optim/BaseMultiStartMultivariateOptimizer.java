@@ -16,10 +16,18 @@
  */
 package org.apache.commons.math3.optim;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
 import org.apache.commons.math3.exception.MathIllegalStateException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.TooManyEvaluationsException;
 import org.apache.commons.math3.random.RandomVectorGenerator;
+import org.apache.commons.math3.util.ConcurrentUtils;
+import org.apache.commons.math3.util.FastMath;
 
 /**
  * Base class multi-start optimizer for a multivariate function.
@@ -27,6 +35,9 @@ import org.apache.commons.math3.random.RandomVectorGenerator;
  * This class wraps an optimizer in order to use it several times in
  * turn with different starting points (trying to avoid being trapped
  * in a local extremum when looking for a global one).
+ * <br/>
+ * When built with an {@link OptimizerFactory} and an {@link ExecutorService},
+ * the starts are run concurrently, each one on its own optimizer instance.
  * <em>It is not a "user" class.</em>
  *
  * @param <PAIR> Type of the point/value pair returned by the optimization
@@ -39,6 +50,10 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
     extends BaseMultivariateOptimizer<PAIR> {
     /** Underlying classical optimizer. */
     private final BaseMultivariateOptimizer<PAIR> optimizer;
+    /** Factory for the optimizers used by the parallel starts. */
+    private final OptimizerFactory<? extends BaseMultivariateOptimizer<PAIR>> factory;
+    /** Executor for the parallel starts ({@code null} for sequential starts). */
+    private final ExecutorService executor;
     /** Number of evaluations already performed for all starts. */
     private int totalEvaluations;
     /** Number of starts to go. */
@@ -57,6 +72,8 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
      * will be stored.
      */
     private int initialGuessIndex = -1;
+    /** Last exception thrown by a failed start. */
+    private RuntimeException lastException;
 
     /**
      * Create a multi-start optimizer from a single-start optimizer.
@@ -79,6 +96,61 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
     public BaseMultiStartMultivariateOptimizer(final BaseMultivariateOptimizer<PAIR> optimizer,
                                                final int starts,
                                                final RandomVectorGenerator generator) {
+        this(optimizer, null, null, starts, generator);
+    }
+
+    /**
+     * Create a parallel multi-start optimizer.
+     * <p>
+     * The start points are generated in sequence (hence the results do not
+     * depend on the scheduling of the tasks), then each start is run by
+     * the {@code executor} on its own optimizer instance. The first start
+     * uses a reference instance created at construction; the other ones
+     * use instances newly created by the {@code factory} for each call to
+     * {@link #optimize(OptimizationData[]) optimize}.
+     * </p>
+     * <p>
+     * Each start is given its own evaluation budget: the maximal number of
+     * evaluations set by {@link MaxEval} is evenly split between the starts.
+     * If there are fewer evaluations than starts, only the first starts are
+     * run, with one evaluation each.
+     * The objective function and the other optimization data are shared
+     * by all the starts, and must therefore be thread-safe.
+     * </p>
+     *
+     * @param factory Factory for the single-start optimizers.
+     * @param executor Executor that will run the starts.
+     * @param starts Number of starts to perform. If {@code starts == 1},
+     * the {@link #optimize(OptimizationData[]) optimize} will return the
+     * same solution as a single-start optimizer would return.
+     * @param generator Random vector generator to use for restarts.
+     * @throws NullArgumentException if {@code factory} or {@code executor}
+     * is {@code null}.
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     * @since 3.3
+     */
+    public BaseMultiStartMultivariateOptimizer(final OptimizerFactory<? extends BaseMultivariateOptimizer<PAIR>> factory,
+                                               final ExecutorService executor,
+                                               final int starts,
+                                               final RandomVectorGenerator generator) {
+        this(create(factory), factory, checkNotNull(executor), starts, generator);
+    }
+
+    /**
+     * @param optimizer Reference optimizer (used by the first start).
+     * @param factory Factory for the optimizers used by the other starts
+     * (may be {@code null} if {@code executor} is {@code null}).
+     * @param executor Executor for the parallel starts, or {@code null}
+     * for sequential starts.
+     * @param starts Number of starts to perform.
+     * @param generator Random vector generator to use for restarts.
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     */
+    private BaseMultiStartMultivariateOptimizer(final BaseMultivariateOptimizer<PAIR> optimizer,
+                                                final OptimizerFactory<? extends BaseMultivariateOptimizer<PAIR>> factory,
+                                                final ExecutorService executor,
+                                                final int starts,
+                                                final RandomVectorGenerator generator) {
         super(optimizer.getConvergenceChecker());
 
         if (starts < 1) {
@@ -86,10 +158,34 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
         }
 
         this.optimizer = optimizer;
+        this.factory = factory;
+        this.executor = executor;
         this.starts = starts;
         this.generator = generator;
     }
 
+    /**
+     * Gets the reference optimizer.
+     * In sequential mode, it is the optimizer that performs all the starts.
+     * In parallel mode, it is the optimizer that performs the first start.
+     *
+     * @return the reference optimizer.
+     * @since 3.3
+     */
+    protected BaseMultivariateOptimizer<PAIR> getOptimizer() {
+        return optimizer;
+    }
+
+    /**
+     * Checks whether the starts are run concurrently.
+     *
+     * @return {@code true} if this instance was built with an executor.
+     * @since 3.3
+     */
+    public boolean isParallel() {
+        return executor != null;
+    }
+
     /** {@inheritDoc} */
     @Override
     public int getEvaluations() {
@@ -161,10 +257,31 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
             throw new MathIllegalStateException();
         }
 
-        RuntimeException lastException = null;
+        lastException = null;
         totalEvaluations = 0;
         clear();
 
+        if (executor == null) {
+            optimizeSequentially();
+        } else {
+            optimizeConcurrently();
+        }
+
+        final PAIR[] optima = getOptima();
+        if (optima.length == 0) {
+            // All runs failed.
+            throw lastException; // Cannot be null if starts >= 1.
+        }
+
+        // Return the best optimum.
+        return optima[0];
+    }
+
+    /**
+     * Runs the starts in turn, on the reference optimizer.
+     * Each start may use the evaluations not used up by the previous ones.
+     */
+    private void optimizeSequentially() {
         final int maxEval = getMaxEvaluations();
         final double[] min = getLowerBound();
         final double[] max = getUpperBound();
@@ -177,24 +294,7 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
                 // Decrease number of allowed evaluations.
                 optimData[maxEvalIndex] = new MaxEval(maxEval - totalEvaluations);
                 // New start value.
-                double[] s = null;
-                if (i == 0) {
-                    s = startPoint;
-                } else {
-                    int attempts = 0;
-                    while (s == null) {
-                        if (attempts++ >= getMaxEvaluations()) {
-                            throw new TooManyEvaluationsException(getMaxEvaluations());
-                        }
-                        s = generator.nextVector();
-                        for (int k = 0; s != null && k < s.length; ++k) {
-                            if ((min != null && s[k] < min[k]) || (max != null && s[k] > max[k])) {
-                                // reject the vector
-                                s = null;
-                            }
-                        }
-                    }
-                }
+                final double[] s = (i == 0) ? startPoint : nextStartPoint(min, max);
                 optimData[initialGuessIndex] = new InitialGuess(s);
                 // Optimize.
                 final PAIR result = optimizer.optimize(optimData);
@@ -206,15 +306,108 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
 
             totalEvaluations += optimizer.getEvaluations();
         }
+    }
 
-        final PAIR[] optima = getOptima();
-        if (optima.length == 0) {
-            // All runs failed.
-            throw lastException; // Cannot be null if starts >= 1.
+    /**
+     * Runs the starts concurrently, each on its own optimizer.
+     * The start points are generated upfront, in the order of the starts,
+     * and the results are stored in that same order, irrespective of the
+     * order in which the runs complete.
+     *
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the runs to complete.
+     */
+    private void optimizeConcurrently() {
+        final int maxEval = getMaxEvaluations();
+        // starts whose share of the evaluations would be 0 are not run
+        final int runnable = FastMath.min(starts, maxEval);
+        final int share = maxEval / runnable;
+        final int remainder = maxEval % runnable;
+        final double[] min = getLowerBound();
+        final double[] max = getUpperBound();
+        final double[] startPoint = getStartPoint();
+
+        final List<Start> runs = new ArrayList<Start>(runnable);
+        for (int i = 0; i < runnable; i++) {
+            // CHECKSTYLE: stop IllegalCatch
+            try {
+                final double[] s = (i == 0) ? startPoint : nextStartPoint(min, max);
+                final OptimizationData[] data = optimData.clone();
+                data[maxEvalIndex] = new MaxEval(i < remainder ? share + 1 : share);
+                data[initialGuessIndex] = new InitialGuess(s);
+                runs.add(new Start((i == 0) ? optimizer : factory.create(), data));
+            } catch (RuntimeException mue) {
+                lastException = mue;
+            }
+            // CHECKSTYLE: resume IllegalCatch
         }
 
-        // Return the best optimum.
-        return optima[0];
+        final List<PAIR> results = ConcurrentUtils.invokeAll(executor, runs);
+        for (int i = 0; i < results.size(); i++) {
+            final Start run = runs.get(i);
+            if (run.getException() == null) {
+                store(results.get(i));
+            } else {
+                lastException = run.getException();
+            }
+            totalEvaluations += run.getOptimizer().getEvaluations();
+        }
+    }
+
+    /**
+     * Generates a new start point.
+     * A simple rejection algorithm is used if there are bounds constraints.
+     *
+     * @param min Lower bounds (may be {@code null}).
+     * @param max Upper bounds (may be {@code null}).
+     * @return a new start point.
+     * @throws TooManyEvaluationsException if the generator fails to produce
+     * a point within the bounds after {@link #getMaxEvaluations()} attempts.
+     */
+    private double[] nextStartPoint(final double[] min, final double[] max) {
+        double[] s = null;
+        int attempts = 0;
+        while (s == null) {
+            if (attempts++ >= getMaxEvaluations()) {
+                throw new TooManyEvaluationsException(getMaxEvaluations());
+            }
+            s = generator.nextVector();
+            for (int k = 0; s != null && k < s.length; ++k) {
+                if ((min != null && s[k] < min[k]) || (max != null && s[k] > max[k])) {
+                    // reject the vector
+                    s = null;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Creates the reference optimizer of a parallel multi-start optimizer.
+     *
+     * @param factory Factory for the single-start optimizers.
+     * @param <PAIR> Type of the point/value pair returned by the optimizer.
+     * @return a new optimizer.
+     * @throws NullArgumentException if {@code factory} is {@code null}.
+     */
+    private static <PAIR> BaseMultivariateOptimizer<PAIR>
+        create(final OptimizerFactory<? extends BaseMultivariateOptimizer<PAIR>> factory) {
+        if (factory == null) {
+            throw new NullArgumentException();
+        }
+        return factory.create();
+    }
+
+    /**
+     * @param executor Executor.
+     * @return the executor.
+     * @throws NullArgumentException if {@code executor} is {@code null}.
+     */
+    private static ExecutorService checkNotNull(final ExecutorService executor) {
+        if (executor == null) {
+            throw new NullArgumentException();
+        }
+        return executor;
     }
 
     /**
@@ -227,4 +420,53 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
      * Method that will called in order to clear all stored optima.
      */
     protected abstract void clear();
+
+    /**
+     * Single run of a parallel multi-start optimization.
+     */
+    private class Start implements Callable<PAIR> {
+        /** Optimizer performing the run. */
+        private final BaseMultivariateOptimizer<PAIR> opt;
+        /** Optimization data of the run. */
+        private final OptimizationData[] data;
+        /** Exception thrown by the run, if any. */
+        private RuntimeException exception;
+
+        /**
+         * @param opt Optimizer performing the run.
+         * @param data Optimization data of the run.
+         */
+        Start(final BaseMultivariateOptimizer<PAIR> opt,
+              final OptimizationData[] data) {
+            this.opt = opt;
+            this.data = data;
+        }
+
+        /**
+         * @return the optimizer performing the run.
+         */
+        BaseMultivariateOptimizer<PAIR> getOptimizer() {
+            return opt;
+        }
+
+        /**
+         * @return the exception thrown by the run, or {@code null} if it
+         * completed normally.
+         */
+        RuntimeException getException() {
+            return exception;
+        }
+
+        /** {@inheritDoc} */
+        public PAIR call() {
+            // CHECKSTYLE: stop IllegalCatch
+            try {
+                return opt.optimize(data);
+            } catch (RuntimeException e) {
+                exception = e;
+                return null;
+            }
+            // CHECKSTYLE: resume IllegalCatch
+        }
+    }
 }
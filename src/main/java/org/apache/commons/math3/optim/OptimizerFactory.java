@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim;
+
+/**
+ * Factory of optimizers.
+ * Optimizers are stateful; drivers that need to run several optimizations
+ * concurrently (e.g. a parallel multi-start optimizer) use a factory
+ * in order to obtain one independent instance per run.
+ *
+ * @param <OPTIMIZER> Type of the optimizers created by the factory.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public interface OptimizerFactory<OPTIMIZER> {
+    /**
+     * Creates a new optimizer.
+     * Each call must return a new instance that shares no mutable state
+     * with the instances returned by previous calls.
+     *
+     * @return a new optimizer.
+     */
+    OPTIMIZER create();
+}
@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+
+/**
+ * Factorization of the basis matrix used by the {@link RevisedSimplexSolver
+ * revised simplex method}.
+ * <p>
+ * The basis is factorized as a sparse LU decomposition, computed column by
+ * column (left-looking) with partial pivoting; columns are processed by
+ * increasing number of non-zero entries, so that the slack columns that
+ * typically make up most of the basis do not create any fill-in.
+ * Basis changes are then applied in product form: each change appends an
+ * <em>eta</em> column to a file, so that after {@code k} changes
+ * <code>B<sub>k</sub><sup>-1</sup> = E<sub>k</sub> ... E<sub>1</sub>
+ * B<sub>0</sub><sup>-1</sup></code>. The caller is expected to
+ * {@link #factorize(int[]) refactorize} the basis when the
+ * {@link #getUpdateCount() number of updates} grows too large.
+ * </p>
+ * <p>
+ * Vectors indexed by the rows of the constraint matrix and vectors indexed
+ * by the positions in the basis are both represented as dense arrays of
+ * the same length.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class BasisFactorization {
+    /** Magnitude below which a pivot is considered to be zero. */
+    private static final double SINGULARITY_THRESHOLD = 1e-11;
+
+    /** Constraint matrix (source of the basis columns). */
+    private final SparseColumnMatrix matrix;
+    /** Dimension of the basis. */
+    private final int dimension;
+    /** Row of the pivot chosen at each elimination step. */
+    private final int[] pivotRow;
+    /** Elimination step at which each row was chosen as pivot (-1 if none). */
+    private final int[] pivotStep;
+    /** Position in the basis of the column processed at each step. */
+    private final int[] stepPosition;
+    /** Diagonal of U. */
+    private final double[] diagonal;
+    /** Start of each column of L (multipliers, excluding the unit diagonal). */
+    private final int[] lStart;
+    /** Start of each column of U (entries above the diagonal). */
+    private final int[] uStart;
+    /** Entries of L (row index and multiplier). */
+    private final Entries lEntries = new Entries();
+    /** Entries of U (step index and value). */
+    private final Entries uEntries = new Entries();
+    /** Entries of the eta columns (position and value). */
+    private final Entries etaEntries = new Entries();
+    /** Start of each eta column. */
+    private int[] etaStart;
+    /** Position in the basis that was changed by each eta column. */
+    private int[] etaPosition;
+    /** Pivot of each eta column. */
+    private double[] etaPivot;
+    /** Number of updates since the last factorization. */
+    private int updates;
+    /** Work array. */
+    private final double[] work;
+    /** Marks of the rows already in the pattern of the current column. */
+    private final int[] mark;
+    /** Rows of the non-zero entries of the current column. */
+    private final int[] pattern;
+    /** Heap of the pending elimination steps. */
+    private final int[] heap;
+
+    /**
+     * @param matrix Constraint matrix.
+     */
+    BasisFactorization(final SparseColumnMatrix matrix) {
+        this.matrix = matrix;
+        dimension = matrix.getRowDimension();
+        pivotRow = new int[dimension];
+        pivotStep = new int[dimension];
+        stepPosition = new int[dimension];
+        diagonal = new double[dimension];
+        lStart = new int[dimension + 1];
+        uStart = new int[dimension + 1];
+        etaStart = new int[16];
+        etaPosition = new int[16];
+        etaPivot = new double[16];
+        work = new double[dimension];
+        mark = new int[dimension];
+        pattern = new int[dimension];
+        heap = new int[dimension];
+    }
+
+    /**
+     * Computes the factorization of a basis, discarding all updates.
+     * <p>
+     * If some columns of the basis are linearly dependent on the others,
+     * the factorization is left incomplete and the rows that could not be
+     * pivoted on are returned: the caller must replace the dependent
+     * columns by unit columns on these rows and factorize again.
+     * </p>
+     *
+     * @param basis Columns of the constraint matrix that form the basis.
+     * @return {@code null} if the basis is not singular, an array
+     * giving, for each position of the basis, either -1 or the row of the
+     * unit column that should replace the column at that position.
+     */
+    int[] factorize(final int[] basis) {
+        updates = 0;
+        etaEntries.clear();
+        lEntries.clear();
+        uEntries.clear();
+        Arrays.fill(pivotStep, -1);
+        Arrays.fill(mark, -1);
+
+        final int[] positions = sortBySize(basis);
+        int[] dependent = null;
+        int step = 0;
+        for (int t = 0; t < dimension; t++) {
+            final int position = positions[t];
+            final int column = basis[position];
+
+            // Scatter the column.
+            int size = 0;
+            int heapSize = 0;
+            for (int k = matrix.getColumnStart(column); k < matrix.getColumnEnd(column); k++) {
+                final int row = matrix.getRowIndex(k);
+                work[row] = matrix.getValue(k);
+                mark[row] = t;
+                pattern[size++] = row;
+                if (pivotStep[row] >= 0) {
+                    heapSize = push(pivotStep[row], heapSize);
+                }
+            }
+
+            // Apply the previous eliminations, in increasing step order.
+            while (heapSize > 0) {
+                final int j = heap[0];
+                heapSize = pop(heapSize);
+                final double x = work[pivotRow[j]];
+                if (x != 0) {
+                    for (int k = lStart[j]; k < lStart[j + 1]; k++) {
+                        final int row = lEntries.index[k];
+                        if (mark[row] != t) {
+                            mark[row] = t;
+                            work[row] = 0;
+                            pattern[size++] = row;
+                            if (pivotStep[row] >= 0) {
+                                heapSize = push(pivotStep[row], heapSize);
+                            }
+                        }
+                        work[row] -= lEntries.value[k] * x;
+                    }
+                }
+            }
+
+            // Select the largest entry on the rows not yet pivoted on.
+            int pivot = -1;
+            double max = SINGULARITY_THRESHOLD;
+            for (int k = 0; k < size; k++) {
+                final int row = pattern[k];
+                final double abs = FastMath.abs(work[row]);
+                if (pivotStep[row] < 0 && abs > max) {
+                    max = abs;
+                    pivot = row;
+                }
+            }
+
+            if (pivot < 0) {
+                // Linearly dependent column.
+                if (dependent == null) {
+                    dependent = new int[dimension];
+                    Arrays.fill(dependent, -1);
+                }
+                dependent[position] = 0;
+            } else {
+                final double d = work[pivot];
+                for (int k = 0; k < size; k++) {
+                    final int row = pattern[k];
+                    final double x = work[row];
+                    if (x != 0) {
+                        if (pivotStep[row] >= 0) {
+                            uEntries.add(pivotStep[row], x);
+                        } else if (row != pivot) {
+                            lEntries.add(row, x / d);
+                        }
+                    }
+                }
+                diagonal[step] = d;
+                pivotRow[step] = pivot;
+                pivotStep[pivot] = step;
+                stepPosition[step] = position;
+                ++step;
+                lStart[step] = lEntries.size;
+                uStart[step] = uEntries.size;
+            }
+
+            for (int k = 0; k < size; k++) {
+                work[pattern[k]] = 0;
+            }
+        }
+
+        if (dependent != null) {
+            // Pair the dependent positions with the rows left without pivot.
+            int row = 0;
+            for (int position = 0; position < dimension; position++) {
+                if (dependent[position] >= 0) {
+                    while (pivotStep[row] >= 0) {
+                        ++row;
+                    }
+                    dependent[position] = row++;
+                }
+            }
+        }
+        return dependent;
+    }
+
+    /**
+     * Replaces a column of the basis.
+     *
+     * @param position Position of the leaving column in the basis.
+     * @param column Entering column, as returned by {@link #ftran(double[])}.
+     */
+    void update(final int position, final double[] column) {
+        if (updates + 1 == etaPosition.length) {
+            final int capacity = 2 * etaPosition.length;
+            etaStart = MathArrays.copyOf(etaStart, capacity);
+            etaPosition = MathArrays.copyOf(etaPosition, capacity);
+            etaPivot = MathArrays.copyOf(etaPivot, capacity);
+        }
+        etaStart[updates] = etaEntries.size;
+        etaPosition[updates] = position;
+        etaPivot[updates] = column[position];
+        for (int i = 0; i < dimension; i++) {
+            if (i != position && column[i] != 0) {
+                etaEntries.add(i, column[i]);
+            }
+        }
+        ++updates;
+        etaStart[updates] = etaEntries.size;
+    }
+
+    /**
+     * @return the number of updates since the last factorization.
+     */
+    int getUpdateCount() {
+        return updates;
+    }
+
+    /**
+     * Solves <code>B x = a</code> in place.
+     *
+     * @param x On entry, the right hand side {@code a} (indexed by rows);
+     * on exit, the solution (indexed by positions in the basis).
+     */
+    void ftran(final double[] x) {
+        // L solve.
+        for (int j = 0; j < dimension; j++) {
+            final double xj = x[pivotRow[j]];
+            if (xj != 0) {
+                for (int k = lStart[j]; k < lStart[j + 1]; k++) {
+                    x[lEntries.index[k]] -= lEntries.value[k] * xj;
+                }
+            }
+        }
+
+        // U solve (by columns), the solution being indexed by steps.
+        for (int j = dimension - 1; j >= 0; j--) {
+            final int row = pivotRow[j];
+            final double z = x[row] / diagonal[j];
+            work[j] = z;
+            if (z != 0) {
+                for (int k = uStart[j]; k < uStart[j + 1]; k++) {
+                    x[pivotRow[uEntries.index[k]]] -= uEntries.value[k] * z;
+                }
+            }
+        }
+        for (int j = 0; j < dimension; j++) {
+            x[stepPosition[j]] = work[j];
+            work[j] = 0;
+        }
+
+        // Updates.
+        for (int e = 0; e < updates; e++) {
+            final int position = etaPosition[e];
+            final double z = x[position] / etaPivot[e];
+            x[position] = z;
+            if (z != 0) {
+                for (int k = etaStart[e]; k < etaStart[e + 1]; k++) {
+                    x[etaEntries.index[k]] -= etaEntries.value[k] * z;
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves <code>y<sup>T</sup> B = c<sup>T</sup></code> in place.
+     *
+     * @param y On entry, the right hand side {@code c} (indexed by positions
+     * in the basis); on exit, the solution (indexed by rows).
+     */
+    void btran(final double[] y) {
+        // Updates, in reverse order.
+        for (int e = updates - 1; e >= 0; e--) {
+            final int position = etaPosition[e];
+            double sum = y[position];
+            for (int k = etaStart[e]; k < etaStart[e + 1]; k++) {
+                sum -= etaEntries.value[k] * y[etaEntries.index[k]];
+            }
+            y[position] = sum / etaPivot[e];
+        }
+
+        // U transpose solve (by columns), the solution being indexed by steps.
+        for (int j = 0; j < dimension; j++) {
+            double sum = y[stepPosition[j]];
+            for (int k = uStart[j]; k < uStart[j + 1]; k++) {
+                sum -= uEntries.value[k] * work[uEntries.index[k]];
+            }
+            work[j] = sum / diagonal[j];
+        }
+        for (int j = 0; j < dimension; j++) {
+            y[pivotRow[j]] = work[j];
+            work[j] = 0;
+        }
+
+        // L transpose solve.
+        for (int j = dimension - 1; j >= 0; j--) {
+            double sum = 0;
+            for (int k = lStart[j]; k < lStart[j + 1]; k++) {
+                sum += lEntries.value[k] * y[lEntries.index[k]];
+            }
+            y[pivotRow[j]] -= sum;
+        }
+    }
+
+    /**
+     * Sorts the positions of the basis by increasing number of entries
+     * in their column.
+     *
+     * @param basis Columns of the basis.
+     * @return the sorted positions.
+     */
+    private int[] sortBySize(final int[] basis) {
+        final int[] count = new int[dimension + 2];
+        for (int position = 0; position < dimension; position++) {
+            ++count[matrix.getColumnSize(basis[position]) + 1];
+        }
+        for (int s = 1; s < count.length; s++) {
+            count[s] += count[s - 1];
+        }
+        final int[] sorted = new int[dimension];
+        for (int position = 0; position < dimension; position++) {
+            sorted[count[matrix.getColumnSize(basis[position])]++] = position;
+        }
+        return sorted;
+    }
+
+    /**
+     * Adds an elimination step to the heap.
+     *
+     * @param step Step.
+     * @param size Current size of the heap.
+     * @return the new size of the heap.
+     */
+    private int push(final int step, final int size) {
+        int i = size;
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (heap[parent] <= step) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = step;
+        return size + 1;
+    }
+
+    /**
+     * Removes the smallest elimination step from the heap.
+     *
+     * @param size Current size of the heap.
+     * @return the new size of the heap.
+     */
+    private int pop(final int size) {
+        final int last = heap[size - 1];
+        final int newSize = size - 1;
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= newSize) {
+                break;
+            }
+            if (child + 1 < newSize && heap[child + 1] < heap[child]) {
+                ++child;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (newSize > 0) {
+            heap[i] = last;
+        }
+        return newSize;
+    }
+
+    /** Growable list of (index, value) entries. */
+    private static class Entries {
+        /** Indices. */
+        private int[] index = new int[16];
+        /** Values. */
+        private double[] value = new double[16];
+        /** Number of entries. */
+        private int size;
+
+        /**
+         * Removes all entries.
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Appends an entry.
+         *
+         * @param i Index.
+         * @param v Value.
+         */
+        void add(final int i, final double v) {
+            if (size == index.length) {
+                index = MathArrays.copyOf(index, 2 * size);
+                value = MathArrays.copyOf(value, 2 * size);
+            }
+            index[size] = i;
+            value[size] = v;
+            ++size;
+        }
+    }
+}
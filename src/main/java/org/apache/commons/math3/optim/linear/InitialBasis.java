@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import org.apache.commons.math3.optim.OptimizationData;
+
+/**
+ * Basis from which {@link RevisedSimplexSolver} starts its iterations.
+ * <p>
+ * Instances are obtained from {@link RevisedSimplexSolver#getFinalBasis()}
+ * at the end of a successful solve. Passing the final basis of a problem
+ * to the {@link RevisedSimplexSolver#optimize(OptimizationData[]) optimize}
+ * method for a problem that only differs by a few objective function
+ * coefficients or constraint values usually allows the solver to skip
+ * phase 1 and to reach the new optimum in a few pivots.
+ * </p>
+ * <p>
+ * The basis only refers to the decision variables and to the constraints
+ * by their indices: it can be used with any problem with the same number
+ * of variables and constraints (and the same {@link NonNegativeConstraint}),
+ * but it is only useful if the problems are close to each other.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class InitialBasis implements OptimizationData {
+    /** Number of structural columns of the standard form. */
+    private final int variables;
+    /**
+     * Basic column at each position: indices lower than {@link #variables}
+     * are structural columns, the other ones refer to the slack (or
+     * artificial) variable of constraint {@code index - variables}.
+     */
+    private final int[] columns;
+
+    /**
+     * @param variables Number of structural columns of the standard form.
+     * @param columns Basic column at each position (not copied).
+     */
+    InitialBasis(final int variables, final int[] columns) {
+        this.variables = variables;
+        this.columns = columns;
+    }
+
+    /**
+     * @return the number of structural columns of the standard form.
+     */
+    int getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the basic column at each position (not a copy).
+     */
+    int[] getColumns() {
+        return columns;
+    }
+}
@@ -17,13 +17,16 @@
 package org.apache.commons.math3.optim.linear;
 
 import java.util.Set;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Collection;
 import java.util.Collections;
 import org.apache.commons.math3.optim.OptimizationData;
 
 /**
  * Class that represents a set of {@link LinearConstraint linear constraints}.
+ * The constraints are kept in insertion order, so that the rows of the
+ * simplex tableau (and the rows referenced by an {@link InitialBasis
+ * initial basis}) do not depend on the hash codes of the constraints.
  *
  * @version $Id$
  * @since 3.1
@@ -31,7 +34,7 @@ import org.apache.commons.math3.optim.OptimizationData;
 public class LinearConstraintSet implements OptimizationData {
     /** Set of constraints. */
     private final Set<LinearConstraint> linearConstraints
-        = new HashSet<LinearConstraint>();
+        = new LinkedHashSet<LinearConstraint>();
 
     /**
      * Creates a set containing the given constraints.
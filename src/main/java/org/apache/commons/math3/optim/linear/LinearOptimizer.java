@@ -43,6 +43,10 @@ public abstract class LinearOptimizer
      * Whether to restrict the variables to non-negative values.
      */
     private boolean nonNegative;
+    /**
+     * Statistics of the current solve.
+     */
+    private SimplexStatistics statistics;
 
     /**
      * Simple constructor with default settings.
@@ -73,6 +77,16 @@ public abstract class LinearOptimizer
         return Collections.unmodifiableCollection(linearConstraints);
     }
 
+    /**
+     * @return the statistics to be filled in for the current solve (never
+     * {@code null}: if no {@link SimplexStatistics} were passed to {@link
+     * #optimize(OptimizationData[]) optimize}, a private instance is used).
+     * @since 3.3
+     */
+    protected SimplexStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -83,6 +97,7 @@ public abstract class LinearOptimizer
      *  <li>{@link LinearObjectiveFunction}</li>
      *  <li>{@link LinearConstraintSet}</li>
      *  <li>{@link NonNegativeConstraint}</li>
+     *  <li>{@link SimplexStatistics}</li>
      * </ul>
      * @return {@inheritDoc}
      * @throws TooManyIterationsException if the maximal number of
@@ -105,13 +120,19 @@ public abstract class LinearOptimizer
      *  <li>{@link LinearObjectiveFunction}</li>
      *  <li>{@link LinearConstraintSet}</li>
      *  <li>{@link NonNegativeConstraint}</li>
+     *  <li>{@link SimplexStatistics}</li>
      * </ul>
+     * Contrary to the other data, the statistics are not reused from one
+     * call to the next.
      */
     @Override
     protected void parseOptimizationData(OptimizationData... optData) {
         // Allow base class to register its own data.
         super.parseOptimizationData(optData);
 
+        // The statistics are specific to each call.
+        statistics = null;
+
         // The existing values (as set by the previous call) are reused if
         // not provided in the argument list.
         for (OptimizationData data : optData) {
@@ -127,6 +148,14 @@ public abstract class LinearOptimizer
                 nonNegative = ((NonNegativeConstraint) data).isRestrictedToNonNegative();
                 continue;
             }
+            if (data instanceof SimplexStatistics) {
+                statistics = (SimplexStatistics) data;
+                continue;
+            }
+        }
+        if (statistics == null) {
+            statistics = new SimplexStatistics();
         }
+        statistics.reset();
     }
 }
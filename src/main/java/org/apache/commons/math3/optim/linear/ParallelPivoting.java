@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.optim.OptimizationData;
+
+/**
+ * Enables the parallel execution of the row operations of each pivot of
+ * {@link SimplexSolver}.
+ * <br/>
+ * The rows of the tableau are split into as many blocks as there are
+ * tasks, and each block is updated by a separate task submitted to the
+ * executor. Tableaux with fewer entries than the threshold are updated
+ * in the calling thread, as the cost of the synchronization would exceed
+ * the gain.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class ParallelPivoting implements OptimizationData {
+    /** Default number of tableau entries below which pivots are sequential. */
+    public static final int DEFAULT_THRESHOLD = 100000;
+    /** Executor that runs the row operations. */
+    private final ExecutorService executor;
+    /** Number of tableau entries below which pivots are sequential. */
+    private final int threshold;
+    /** Number of tasks per pivot. */
+    private final int tasks;
+
+    /**
+     * Creates an instance with the {@link #DEFAULT_THRESHOLD default threshold}
+     * and one task per available processor.
+     *
+     * @param executor Executor that will run the row operations.
+     * @throws NullArgumentException if {@code executor} is {@code null}.
+     */
+    public ParallelPivoting(ExecutorService executor) {
+        this(executor, DEFAULT_THRESHOLD, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param executor Executor that will run the row operations.
+     * @param threshold Number of tableau entries (rows times columns) below
+     * which the pivots are performed in the calling thread.
+     * @param tasks Number of tasks among which the rows are split.
+     * @throws NullArgumentException if {@code executor} is {@code null}.
+     * @throws NotPositiveException if {@code threshold < 0}.
+     * @throws NotStrictlyPositiveException if {@code tasks <= 0}.
+     */
+    public ParallelPivoting(ExecutorService executor,
+                            int threshold,
+                            int tasks) {
+        if (executor == null) {
+            throw new NullArgumentException();
+        }
+        if (threshold < 0) {
+            throw new NotPositiveException(threshold);
+        }
+        if (tasks <= 0) {
+            throw new NotStrictlyPositiveException(tasks);
+        }
+        this.executor = executor;
+        this.threshold = threshold;
+        this.tasks = tasks;
+    }
+
+    /**
+     * @return the executor that runs the row operations.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the number of tableau entries below which the pivots are
+     * performed in the calling thread.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return the number of tasks among which the rows are split.
+     */
+    public int getTasks() {
+        return tasks;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import org.apache.commons.math3.optim.OptimizationData;
+
+/**
+ * Pivot selection rule to use for a Simplex solver.
+ * <p>
+ * The rule selects the column (variable) entering the basis among those
+ * whose reduced cost would improve the objective function; the row
+ * leaving the basis is then given by the minimum ratio test.
+ * </p>
+ *
+ * @see SimplexSolver
+ * @version $Id$
+ * @since 3.3
+ */
+public enum PivotSelectionRule implements OptimizationData {
+    /**
+     * The classical rule, the variable with the most negative reduced cost
+     * is selected as entering variable.
+     */
+    DANTZIG,
+    /**
+     * The first variable with a negative reduced cost is selected as
+     * entering variable, and ties in the minimum ratio test are broken in
+     * favour of the basic variable with the smallest index.
+     * This rule guarantees that the algorithm does not cycle on degenerate
+     * problems, at the cost of many more (cheap) iterations.
+     */
+    BLAND,
+    /**
+     * The variable with the most negative reduced cost per unit of distance
+     * moved along its edge of the feasible polytope is selected as entering
+     * variable. The norms of all candidate edges are computed exactly, which
+     * adds about the cost of a pivot to each iteration but usually reduces
+     * the number of iterations significantly.
+     */
+    STEEPEST_EDGE,
+    /**
+     * Approximation of {@link #STEEPEST_EDGE} in which the edge norms are
+     * replaced by reference weights, updated cheaply from the pivot row at
+     * each iteration (P.M.J. Harris, "Pivot selection methods of the Devex
+     * LP code", Mathematical Programming 5, 1973).
+     */
+    DEVEX
+}
@@ -0,0 +1,852 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+
+/**
+ * Solves a linear problem using the "Two-Phase Revised Simplex" method.
+ * <p>
+ * Contrary to {@link SimplexSolver}, which updates a dense tableau whose
+ * size is the number of constraints times the number of variables, this
+ * solver only stores the non-zero coefficients of the constraints (in
+ * compressed sparse column form) together with a factorization of the
+ * current basis. The basis is factorized as a sparse LU decomposition,
+ * updated in product form after each pivot and refactorized from scratch
+ * after a fixed number of updates. The memory and time per iteration
+ * therefore depend on the number of non-zero coefficients rather than on
+ * the size of the problem, which makes this solver much faster than
+ * {@link SimplexSolver} on large sparse problems.
+ * </p>
+ * <p>
+ * The problem is defined with the same {@link
+ * org.apache.commons.math3.optim.OptimizationData OptimizationData} as for
+ * {@link SimplexSolver}: {@link LinearObjectiveFunction}, {@link
+ * LinearConstraintSet}, {@link NonNegativeConstraint}, {@link GoalType}
+ * and {@link org.apache.commons.math3.optim.MaxIter MaxIter}.
+ * </p>
+ * <p>
+ * The entering variable is the one with the most negative reduced cost;
+ * the leaving variable is selected with a two-pass (Harris) ratio test,
+ * that favours large pivots. After a long sequence of degenerate pivots,
+ * the solver switches to Bland's rule until the objective improves again,
+ * in order to prevent cycling.
+ * </p>
+ * <p>
+ * The final basis of a successful solve is available from {@link
+ * #getFinalBasis()}. When it is passed back as an {@link InitialBasis}
+ * for a slightly modified problem, the solver starts from that basis
+ * instead of running phase 1: if the basis is still feasible (e.g. after
+ * a change of the objective function), only primal simplex iterations are
+ * performed; if it is infeasible but still optimal for the objective
+ * function (e.g. after a change of the constraint values), the dual simplex
+ * method is used to restore feasibility. The solver falls back to the
+ * two-phase method when the basis is neither feasible nor dual feasible.
+ * In the {@link SimplexStatistics}, the pivots needed to reach a feasible
+ * basis from the initial basis are reported as phase 1 pivots.
+ * </p>
+ * <p>
+ * Default convergence criteria:
+ * <ul>
+ *   <li>Algorithm convergence: 1e-6</li>
+ *   <li>Cut-Off value: 1e-12</li>
+ *   <li>Basis updates between refactorizations: 100</li>
+ * </ul>
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class RevisedSimplexSolver extends LinearOptimizer {
+    /** Default number of basis updates between refactorizations. */
+    public static final int DEFAULT_UPDATE_LIMIT = 100;
+
+    /** Default amount of error to accept for algorithm convergence. */
+    private static final double DEFAULT_EPSILON = 1.0e-6;
+
+    /** Smallest magnitude of an acceptable pivot. */
+    private static final double PIVOT_TOLERANCE = 1.0e-9;
+
+    /** Amount of infeasibility tolerated by the ratio test. */
+    private static final double FEASIBILITY_TOLERANCE = 1.0e-9;
+
+    /** Number of consecutive degenerate pivots after which Bland's rule is used. */
+    private static final int DEGENERACY_LIMIT = 50;
+
+    /** Amount of error to accept for algorithm convergence. */
+    private final double epsilon;
+
+    /**
+     * Cut-off value for the entries of the transformed columns: values
+     * smaller than the cut-off are treated as zero.
+     */
+    private final double cutOff;
+
+    /** Number of basis updates between refactorizations. */
+    private final int updateLimit;
+
+    /** Constraint matrix, with the slack and artificial columns. */
+    private SparseColumnMatrix matrix;
+
+    /** Right hand side of the constraints. */
+    private double[] rhs;
+
+    /** Costs of the current phase. */
+    private double[] cost;
+
+    /** Columns that are not allowed to enter the basis. */
+    private boolean[] excluded;
+
+    /** Index of the first slack (or artificial) column. */
+    private int logicalOffset;
+
+    /** Index of the first artificial column. */
+    private int artificialOffset;
+
+    /** Unit column available for each row, used to repair singular bases. */
+    private int[] unitColumn;
+
+    /** Column at each position of the basis. */
+    private int[] basis;
+
+    /** Position of each column in the basis (-1 if not basic). */
+    private int[] basisPosition;
+
+    /** Values of the basic variables. */
+    private double[] basicValues;
+
+    /** Factorization of the basis. */
+    private BasisFactorization factorization;
+
+    /** Basis to start from ({@code null} for the two-phase method). */
+    private InitialBasis initialBasis;
+
+    /** Final basis of the last successful solve. */
+    private InitialBasis finalBasis;
+
+    /**
+     * Builds a revised simplex solver with default settings.
+     */
+    public RevisedSimplexSolver() {
+        this(DEFAULT_EPSILON, SimplexSolver.DEFAULT_CUT_OFF, DEFAULT_UPDATE_LIMIT);
+    }
+
+    /**
+     * Builds a revised simplex solver with a specified accepted amount of error.
+     *
+     * @param epsilon Amount of error to accept for algorithm convergence.
+     */
+    public RevisedSimplexSolver(final double epsilon) {
+        this(epsilon, SimplexSolver.DEFAULT_CUT_OFF, DEFAULT_UPDATE_LIMIT);
+    }
+
+    /**
+     * Builds a revised simplex solver with a specified accepted amount of error.
+     *
+     * @param epsilon Amount of error to accept for algorithm convergence.
+     * @param cutOff Values smaller than the cutOff are treated as zero.
+     * @param updateLimit Number of basis updates after which the basis is
+     * refactorized.
+     * @throws NotStrictlyPositiveException if {@code updateLimit <= 0}.
+     */
+    public RevisedSimplexSolver(final double epsilon, final double cutOff,
+                                final int updateLimit) {
+        if (updateLimit <= 0) {
+            throw new NotStrictlyPositiveException(updateLimit);
+        }
+        this.epsilon = epsilon;
+        this.cutOff = cutOff;
+        this.updateLimit = updateLimit;
+    }
+
+    /**
+     * Returns the basis at the optimum found by the last call to {@link
+     * #optimize(OptimizationData[]) optimize}, to be used as the {@link
+     * InitialBasis} of a subsequent call.
+     *
+     * @return the final basis, or {@code null} if the last call did not
+     * complete successfully.
+     */
+    public InitialBasis getFinalBasis() {
+        return finalBasis;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data. In addition to those documented in
+     * {@link LinearOptimizer#optimize(OptimizationData[]) LinearOptimizer},
+     * this method will register the following data:
+     * <ul>
+     *  <li>{@link InitialBasis}</li>
+     * </ul>
+     * @return {@inheritDoc}
+     * @throws TooManyIterationsException if the maximal number of
+     * iterations is exceeded.
+     * @throws DimensionMismatchException if the initial basis does not
+     * match the number of variables or constraints of the problem.
+     */
+    @Override
+    public PointValuePair optimize(OptimizationData... optData)
+        throws TooManyIterationsException {
+        // Set up base class and perform computation.
+        return super.optimize(optData);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data.
+     * In addition to those documented in
+     * {@link LinearOptimizer#parseOptimizationData(OptimizationData[])
+     * LinearOptimizer}, this method will register the following data:
+     * <ul>
+     *  <li>{@link InitialBasis}</li>
+     * </ul>
+     * Contrary to the other data, the initial basis is not reused from
+     * one call to the next.
+     */
+    @Override
+    protected void parseOptimizationData(OptimizationData... optData) {
+        // Allow base class to register its own data.
+        super.parseOptimizationData(optData);
+
+        // The initial basis is specific to each call.
+        initialBasis = null;
+        for (OptimizationData data : optData) {
+            if (data instanceof InitialBasis) {
+                initialBasis = (InitialBasis) data;
+                continue;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PointValuePair doOptimize()
+        throws TooManyIterationsException,
+               UnboundedSolutionException,
+               NoFeasibleSolutionException {
+        final LinearObjectiveFunction f = getFunction();
+        final int n = f.getCoefficients().getDimension();
+        final boolean nonNegative = isRestrictedToNonNegative();
+        final boolean maximize = getGoalType() == GoalType.MAXIMIZE;
+
+        final SimplexStatistics statistics = getStatistics();
+        long start = System.nanoTime();
+        finalBasis = null;
+
+        setUp(f, getConstraints(), nonNegative, maximize);
+        final int columns = matrix.getColumnDimension();
+        final int[] slackBasis = basis.clone();
+
+        if (initialBasis == null || !warmStart(initialBasis)) {
+            setBasis(slackBasis);
+
+            // Phase 1: minimize the sum of the artificial variables.
+            if (artificialOffset < columns) {
+                final double[] phase2Cost = cost;
+                cost = new double[columns];
+                Arrays.fill(cost, artificialOffset, columns, 1);
+                solve();
+
+                double infeasibility = 0;
+                for (int i = 0; i < basis.length; i++) {
+                    if (basis[i] >= artificialOffset) {
+                        infeasibility += basicValues[i];
+                    }
+                }
+                if (infeasibility > epsilon) {
+                    throw new NoFeasibleSolutionException();
+                }
+
+                removeArtificialVariables();
+                cost = phase2Cost;
+            }
+        }
+        statistics.endPhase1(System.nanoTime() - start);
+
+        // Phase 2.
+        start = System.nanoTime();
+        solve();
+        statistics.endPhase2(System.nanoTime() - start);
+
+        final int[] finalColumns = new int[basis.length];
+        for (int i = 0; i < basis.length; i++) {
+            finalColumns[i] = basis[i] < logicalOffset ?
+                              basis[i] :
+                              logicalOffset + matrix.getRowIndex(matrix.getColumnStart(basis[i]));
+        }
+        finalBasis = new InitialBasis(logicalOffset, finalColumns);
+
+        final double[] point = new double[n];
+        for (int j = 0; j < n; j++) {
+            point[j] = getValue(j);
+            if (!nonNegative) {
+                point[j] -= getValue(n + j);
+            }
+        }
+        return new PointValuePair(point, f.value(point));
+    }
+
+    /**
+     * Builds the standard form of the problem
+     * (<code>min c<sup>T</sup>x, A x = b, x &ge; 0, b &ge; 0</code>) and
+     * the initial basis of the two-phase method, made of the slack and
+     * artificial variables (the basis is not factorized).
+     * <p>
+     * The columns of {@code A} are the decision variables (followed by
+     * their negative parts if the variables are not restricted to
+     * non-negative values), the slack variables of the inequality
+     * constraints and the artificial variables of the {@link
+     * Relationship#GEQ GEQ} and {@link Relationship#EQ EQ} constraints.
+     * </p>
+     *
+     * @param f Objective function.
+     * @param constraints Constraints.
+     * @param nonNegative Whether the variables are restricted to non-negative values.
+     * @param maximize Whether the objective function must be maximized.
+     */
+    private void setUp(final LinearObjectiveFunction f,
+                       final Collection<LinearConstraint> constraints,
+                       final boolean nonNegative,
+                       final boolean maximize) {
+        final int n = f.getCoefficients().getDimension();
+        final int structural = nonNegative ? n : 2 * n;
+        final int m = constraints.size();
+
+        // Collect the non-zero coefficients of the normalized constraints,
+        // row by row, and count the entries of each column.
+        final Relationship[] relationship = new Relationship[m];
+        final int[] rowStart = new int[m + 1];
+        final int[] columnSize = new int[n];
+        int[] entryColumn = new int[16];
+        double[] entryValue = new double[16];
+        rhs = new double[m];
+        int slacks = 0;
+        int artificials = 0;
+        int i = 0;
+        for (final LinearConstraint constraint : constraints) {
+            // Normalization: non-negative right hand side.
+            final double sign = constraint.getValue() < 0 ? -1 : 1;
+            relationship[i] = sign < 0 ?
+                              constraint.getRelationship().oppositeRelationship() :
+                              constraint.getRelationship();
+            rhs[i] = sign * constraint.getValue();
+
+            final double[] a = constraint.getCoefficients().toArray();
+            int size = rowStart[i];
+            for (int j = 0; j < a.length; j++) {
+                if (a[j] != 0) {
+                    if (size == entryColumn.length) {
+                        entryColumn = MathArrays.copyOf(entryColumn, 2 * size);
+                        entryValue = MathArrays.copyOf(entryValue, 2 * size);
+                    }
+                    entryColumn[size] = j;
+                    entryValue[size] = sign * a[j];
+                    ++size;
+                    ++columnSize[j];
+                }
+            }
+            rowStart[++i] = size;
+
+            if (relationship[i - 1] != Relationship.EQ) {
+                ++slacks;
+            }
+            if (relationship[i - 1] != Relationship.LEQ) {
+                ++artificials;
+            }
+        }
+        logicalOffset = structural;
+        artificialOffset = structural + slacks;
+        final int columns = artificialOffset + artificials;
+
+        // Column starts.
+        final int[] columnStart = new int[columns + 1];
+        for (int j = 0; j < structural; j++) {
+            columnStart[j + 1] = columnStart[j] + columnSize[j % n];
+        }
+        for (int j = structural; j < columns; j++) {
+            columnStart[j + 1] = columnStart[j] + 1;
+        }
+
+        // Fill the matrix, row by row.
+        final int[] rowIndex = new int[columnStart[columns]];
+        final double[] value = new double[rowIndex.length];
+        final int[] next = new int[structural];
+        System.arraycopy(columnStart, 0, next, 0, structural);
+        unitColumn = new int[m];
+        basis = new int[m];
+        int slack = structural;
+        int artificial = artificialOffset;
+        for (i = 0; i < m; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                final int j = entryColumn[k];
+                rowIndex[next[j]] = i;
+                value[next[j]++] = entryValue[k];
+                if (!nonNegative) {
+                    rowIndex[next[n + j]] = i;
+                    value[next[n + j]++] = -entryValue[k];
+                }
+            }
+
+            if (relationship[i] != Relationship.EQ) {
+                rowIndex[columnStart[slack]] = i;
+                value[columnStart[slack]] = relationship[i] == Relationship.LEQ ? 1 : -1;
+                unitColumn[i] = slack;
+                basis[i] = slack;
+                ++slack;
+            }
+            if (relationship[i] != Relationship.LEQ) {
+                rowIndex[columnStart[artificial]] = i;
+                value[columnStart[artificial]] = 1;
+                if (relationship[i] == Relationship.EQ) {
+                    unitColumn[i] = artificial;
+                }
+                basis[i] = artificial;
+                ++artificial;
+            }
+        }
+        matrix = new SparseColumnMatrix(m, columnStart, rowIndex, value);
+
+        // Phase 2 costs (the problem is always solved as a minimization).
+        cost = new double[columns];
+        final double[] c = f.getCoefficients().toArray();
+        for (int j = 0; j < n; j++) {
+            cost[j] = maximize ? -c[j] : c[j];
+            if (!nonNegative) {
+                cost[n + j] = -cost[j];
+            }
+        }
+
+        excluded = new boolean[columns];
+        basisPosition = new int[columns];
+        basicValues = new double[m];
+        factorization = new BasisFactorization(matrix);
+    }
+
+    /**
+     * Sets and factorizes the basis, and allows all columns to enter it.
+     *
+     * @param columns Column at each position of the basis.
+     */
+    private void setBasis(final int[] columns) {
+        System.arraycopy(columns, 0, basis, 0, basis.length);
+        Arrays.fill(basisPosition, -1);
+        for (int i = 0; i < basis.length; i++) {
+            basisPosition[basis[i]] = i;
+        }
+        Arrays.fill(excluded, false);
+        refactorize();
+    }
+
+    /**
+     * Tries to find a feasible basis from the basis of a previous solve.
+     * The dual simplex method is used if the basis is infeasible but dual
+     * feasible.
+     *
+     * @param initial Initial basis.
+     * @return {@code true} if a feasible basis, without artificial variables
+     * at non-zero level, was found; {@code false} if the two-phase method
+     * must be used.
+     * @throws DimensionMismatchException if the basis does not match the
+     * number of variables or constraints.
+     * @throws TooManyIterationsException if the allowed number of iterations has been exhausted.
+     * @throws NoFeasibleSolutionException if the problem is found to be infeasible.
+     */
+    private boolean warmStart(final InitialBasis initial)
+        throws TooManyIterationsException,
+               NoFeasibleSolutionException {
+        final int m = basis.length;
+        final int[] columns = initial.getColumns();
+        if (initial.getVariables() != logicalOffset) {
+            throw new DimensionMismatchException(initial.getVariables(), logicalOffset);
+        }
+        if (columns.length != m) {
+            throw new DimensionMismatchException(columns.length, m);
+        }
+
+        // Map the basis onto the columns of this problem; positions whose
+        // column is already used are filled with unused unit columns.
+        final int[] start = new int[m];
+        final boolean[] used = new boolean[matrix.getColumnDimension()];
+        for (int i = 0; i < m; i++) {
+            final int column = columns[i] < logicalOffset ?
+                               columns[i] :
+                               unitColumn[columns[i] - logicalOffset];
+            if (used[column]) {
+                start[i] = -1;
+            } else {
+                start[i] = column;
+                used[column] = true;
+            }
+        }
+        int next = 0;
+        for (int i = 0; i < m; i++) {
+            if (start[i] < 0) {
+                while (used[unitColumn[next]]) {
+                    ++next;
+                }
+                start[i] = unitColumn[next];
+                used[start[i]] = true;
+            }
+        }
+        setBasis(start);
+
+        // Artificial variables (of equality constraints) must leave the basis.
+        removeArtificialVariables();
+        refactorize();
+        for (int i = 0; i < m; i++) {
+            if (basis[i] >= artificialOffset && FastMath.abs(basicValues[i]) > epsilon) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < m; i++) {
+            if (basicValues[i] < -FEASIBILITY_TOLERANCE) {
+                // The basis is infeasible: use the dual simplex method if possible.
+                final double[] y = new double[m];
+                for (int k = 0; k < m; k++) {
+                    y[k] = cost[basis[k]];
+                }
+                factorization.btran(y);
+                if (selectEnteringColumn(y, false) >= 0) {
+                    return false;
+                }
+                solveDual();
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs simplex iterations until the current costs are minimized.
+     *
+     * @throws TooManyIterationsException if the allowed number of iterations has been exhausted.
+     * @throws UnboundedSolutionException if the model is found not to have a bounded solution.
+     */
+    private void solve()
+        throws TooManyIterationsException,
+               UnboundedSolutionException {
+        final int m = basis.length;
+        final double[] y = new double[m];
+        final double[] column = new double[m];
+        int degenerate = 0;
+        while (true) {
+            final boolean bland = degenerate >= DEGENERACY_LIMIT;
+
+            // Simplex multipliers.
+            for (int i = 0; i < m; i++) {
+                y[i] = cost[basis[i]];
+            }
+            factorization.btran(y);
+
+            // Pricing.
+            final int entering = selectEnteringColumn(y, bland);
+            if (entering < 0) {
+                return;
+            }
+
+            incrementIterationCount();
+
+            Arrays.fill(column, 0);
+            matrix.scatter(entering, column);
+            factorization.ftran(column);
+            for (int i = 0; i < m; i++) {
+                if (FastMath.abs(column[i]) < cutOff) {
+                    column[i] = 0;
+                }
+            }
+
+            final int leaving = selectLeavingPosition(column, bland);
+            if (leaving < 0) {
+                throw new UnboundedSolutionException();
+            }
+
+            final double step = pivot(leaving, entering, column);
+            getStatistics().pivot(step == 0);
+            degenerate = step > 0 ? 0 : degenerate + 1;
+        }
+    }
+
+    /**
+     * Runs dual simplex iterations until the basic variables are feasible.
+     * The current basis must be dual feasible (i.e. optimal for the current
+     * costs if it were feasible).
+     *
+     * @throws TooManyIterationsException if the allowed number of iterations has been exhausted.
+     * @throws NoFeasibleSolutionException if the problem is found to be infeasible.
+     */
+    private void solveDual()
+        throws TooManyIterationsException,
+               NoFeasibleSolutionException {
+        final int m = basis.length;
+        final double[] y = new double[m];
+        final double[] row = new double[m];
+        final double[] column = new double[m];
+        while (true) {
+            // Leaving variable: the most infeasible one.
+            int leaving = -1;
+            double min = -FEASIBILITY_TOLERANCE;
+            for (int i = 0; i < m; i++) {
+                if (basicValues[i] < min) {
+                    min = basicValues[i];
+                    leaving = i;
+                }
+            }
+            if (leaving < 0) {
+                return;
+            }
+
+            incrementIterationCount();
+
+            // Simplex multipliers and row of the leaving variable.
+            for (int i = 0; i < m; i++) {
+                y[i] = cost[basis[i]];
+            }
+            factorization.btran(y);
+            Arrays.fill(row, 0);
+            row[leaving] = 1;
+            factorization.btran(row);
+
+            // Ratio test on the reduced costs, favouring large pivots.
+            int entering = -1;
+            double minRatio = Double.POSITIVE_INFINITY;
+            double maxPivot = 0;
+            for (int j = 0; j < cost.length; j++) {
+                if (basisPosition[j] < 0 && !excluded[j]) {
+                    final double alpha = matrix.dotProduct(j, row);
+                    if (alpha < -PIVOT_TOLERANCE) {
+                        final double reducedCost = cost[j] - matrix.dotProduct(j, y);
+                        final double ratio = FastMath.max(reducedCost, 0) / -alpha;
+                        if (ratio < minRatio ||
+                            (ratio == minRatio && -alpha > maxPivot)) {
+                            minRatio = ratio;
+                            maxPivot = -alpha;
+                            entering = j;
+                        }
+                    }
+                }
+            }
+            if (entering < 0) {
+                // The row of the leaving variable cannot be satisfied.
+                throw new NoFeasibleSolutionException();
+            }
+
+            Arrays.fill(column, 0);
+            matrix.scatter(entering, column);
+            factorization.ftran(column);
+            for (int i = 0; i < m; i++) {
+                if (FastMath.abs(column[i]) < cutOff) {
+                    column[i] = 0;
+                }
+            }
+
+            pivot(leaving, entering, column);
+            getStatistics().pivot(minRatio == 0);
+        }
+    }
+
+    /**
+     * Selects the column entering the basis.
+     *
+     * @param y Simplex multipliers.
+     * @param bland Whether to use Bland's rule (first eligible column)
+     * rather than the most negative reduced cost.
+     * @return the entering column, or -1 if the current basis is optimal.
+     */
+    private int selectEnteringColumn(final double[] y, final boolean bland) {
+        int entering = -1;
+        double min = -epsilon;
+        for (int j = 0; j < cost.length; j++) {
+            if (basisPosition[j] < 0 && !excluded[j]) {
+                final double reducedCost = cost[j] - matrix.dotProduct(j, y);
+                if (reducedCost < min) {
+                    entering = j;
+                    if (bland) {
+                        break;
+                    }
+                    min = reducedCost;
+                }
+            }
+        }
+        return entering;
+    }
+
+    /**
+     * Selects the position in the basis of the leaving column.
+     *
+     * @param column Entering column, in terms of the current basis.
+     * @param bland Whether to use Bland's rule (the smallest leaving column
+     * among the minimal ratios) rather than the largest pivot among the
+     * (slightly relaxed) minimal ratios.
+     * @return the position of the leaving column, or -1 if the objective
+     * is unbounded along the entering column.
+     */
+    private int selectLeavingPosition(final double[] column, final boolean bland) {
+        final int m = basis.length;
+        int leaving = -1;
+
+        if (bland) {
+            double minRatio = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < m; i++) {
+                if (column[i] > PIVOT_TOLERANCE) {
+                    final double ratio = FastMath.max(basicValues[i], 0) / column[i];
+                    if (ratio < minRatio ||
+                        (ratio == minRatio && basis[i] < basis[leaving])) {
+                        minRatio = ratio;
+                        leaving = i;
+                    }
+                }
+            }
+            return leaving;
+        }
+
+        // First pass: bound on the step, with relaxed bounds.
+        double maxRatio = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < m; i++) {
+            if (column[i] > PIVOT_TOLERANCE) {
+                final double ratio = (basicValues[i] + FEASIBILITY_TOLERANCE) / column[i];
+                if (ratio < maxRatio) {
+                    maxRatio = ratio;
+                }
+            }
+        }
+
+        // Second pass: largest pivot among the blocking variables.
+        double maxPivot = 0;
+        for (int i = 0; i < m; i++) {
+            if (column[i] > PIVOT_TOLERANCE &&
+                basicValues[i] / column[i] <= maxRatio &&
+                column[i] > maxPivot) {
+                maxPivot = column[i];
+                leaving = i;
+            }
+        }
+        return leaving;
+    }
+
+    /**
+     * Replaces a column of the basis and updates the basic variables.
+     *
+     * @param leaving Position of the leaving column.
+     * @param entering Entering column.
+     * @param column Entering column, in terms of the current basis.
+     * @return the value of the entering variable.
+     */
+    private double pivot(final int leaving, final int entering, final double[] column) {
+        final double step = FastMath.max(basicValues[leaving] / column[leaving], 0);
+        if (step != 0) {
+            for (int i = 0; i < basicValues.length; i++) {
+                basicValues[i] -= step * column[i];
+            }
+        }
+        basicValues[leaving] = step;
+
+        basisPosition[basis[leaving]] = -1;
+        basis[leaving] = entering;
+        basisPosition[entering] = leaving;
+
+        if (factorization.getUpdateCount() + 1 >= updateLimit) {
+            refactorize();
+        } else {
+            factorization.update(leaving, column);
+        }
+        return step;
+    }
+
+    /**
+     * Factorizes the current basis and recomputes the basic variables.
+     * Columns found to be linearly dependent are replaced by unit columns.
+     */
+    private void refactorize() {
+        for (int[] rows = factorization.factorize(basis);
+             rows != null;
+             rows = factorization.factorize(basis)) {
+            for (int i = 0; i < basis.length; i++) {
+                if (rows[i] >= 0) {
+                    basisPosition[basis[i]] = -1;
+                    basis[i] = unitColumn[rows[i]];
+                    basisPosition[basis[i]] = i;
+                }
+            }
+        }
+        System.arraycopy(rhs, 0, basicValues, 0, rhs.length);
+        factorization.ftran(basicValues);
+    }
+
+    /**
+     * Drives the artificial variables out of the basis at the end of
+     * phase 1, and prevents them from entering it again.
+     * Artificial variables that cannot be driven out correspond to
+     * redundant constraints: they remain in the basis, at zero level.
+     */
+    private void removeArtificialVariables() {
+        final int m = basis.length;
+        final double[] row = new double[m];
+        final double[] column = new double[m];
+        for (int i = 0; i < m; i++) {
+            if (basis[i] >= artificialOffset) {
+                // Row of the basis inverse.
+                Arrays.fill(row, 0);
+                row[i] = 1;
+                factorization.btran(row);
+
+                int entering = -1;
+                double max = PIVOT_TOLERANCE;
+                for (int j = 0; j < artificialOffset; j++) {
+                    if (basisPosition[j] < 0) {
+                        final double alpha = FastMath.abs(matrix.dotProduct(j, row));
+                        if (alpha > max) {
+                            max = alpha;
+                            entering = j;
+                        }
+                    }
+                }
+
+                if (entering >= 0) {
+                    Arrays.fill(column, 0);
+                    matrix.scatter(entering, column);
+                    factorization.ftran(column);
+                    pivot(i, entering, column);
+                    getStatistics().pivot(true);
+                }
+            }
+        }
+        Arrays.fill(excluded, artificialOffset, excluded.length, true);
+    }
+
+    /**
+     * @param column Column.
+     * @return the value of the variable associated with the column.
+     */
+    private double getValue(final int column) {
+        final int position = basisPosition[column];
+        return position < 0 ? 0 : basicValues[position];
+    }
+}
@@ -17,9 +17,12 @@
 package org.apache.commons.math3.optim.linear;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.optim.OptimizationData;
 import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.Precision;
 
 /**
@@ -49,6 +52,15 @@ import org.apache.commons.math3.util.Precision;
  * as the {@link SimplexSolver} will use different strategies depending on the current iteration
  * count. After half of the allowed max iterations has already been reached, the strategy to select
  * pivot rows will change in order to break possible cycles due to degenerate problems.
+ * <p>
+ * The rule used to select the entering variable at each iteration can be
+ * chosen by passing a {@link PivotSelectionRule} to the {@link
+ * #optimize(OptimizationData[]) optimize} method (the default is {@link
+ * PivotSelectionRule#DANTZIG DANTZIG}). The number of pivots and the time
+ * spent in each phase can be retrieved by passing a {@link SimplexStatistics}
+ * instance as well. On large problems, the row operations of each pivot
+ * can be spread over several threads by passing a {@link ParallelPivoting}
+ * instance.
  *
  * @version $Id$
  * @since 2.0
@@ -75,6 +87,19 @@ public class SimplexSolver extends LinearOptimizer {
      */
     private final double cutOff;
 
+    /** The pivot selection rule to use. */
+    private PivotSelectionRule pivotSelection;
+
+    /** Settings of the parallel row operations ({@code null} if sequential). */
+    private ParallelPivoting parallelPivoting;
+
+    /**
+     * Reference weights of the columns of the tableau, for the {@link
+     * PivotSelectionRule#DEVEX DEVEX} rule ({@code null} until first used
+     * in the current phase).
+     */
+    private double[] devexWeights;
+
     /**
      * Builds a simplex solver with default settings.
      */
@@ -112,6 +137,84 @@ public class SimplexSolver extends LinearOptimizer {
         this.epsilon = epsilon;
         this.maxUlps = maxUlps;
         this.cutOff = cutOff;
+        this.pivotSelection = PivotSelectionRule.DANTZIG;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data. In addition to those documented in
+     * {@link LinearOptimizer#optimize(OptimizationData[]) LinearOptimizer},
+     * this method will register the following data:
+     * <ul>
+     *  <li>{@link PivotSelectionRule}</li>
+     *  <li>{@link ParallelPivoting}</li>
+     * </ul>
+     * @return {@inheritDoc}
+     * @throws TooManyIterationsException if the maximal number of
+     * iterations is exceeded.
+     */
+    @Override
+    public PointValuePair optimize(OptimizationData... optData)
+        throws TooManyIterationsException {
+        // Set up base class and perform computation.
+        return super.optimize(optData);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data.
+     * In addition to those documented in
+     * {@link LinearOptimizer#parseOptimizationData(OptimizationData[])
+     * LinearOptimizer}, this method will register the following data:
+     * <ul>
+     *  <li>{@link PivotSelectionRule}</li>
+     *  <li>{@link ParallelPivoting}</li>
+     * </ul>
+     */
+    @Override
+    protected void parseOptimizationData(OptimizationData... optData) {
+        // Allow base class to register its own data.
+        super.parseOptimizationData(optData);
+
+        // The existing values (as set by the previous call) are reused if
+        // not provided in the argument list.
+        for (OptimizationData data : optData) {
+            if (data instanceof PivotSelectionRule) {
+                pivotSelection = (PivotSelectionRule) data;
+                continue;
+            }
+            if (data instanceof ParallelPivoting) {
+                parallelPivoting = (ParallelPivoting) data;
+                continue;
+            }
+        }
+    }
+
+    /**
+     * Returns the column entering the basis, according to the {@link
+     * PivotSelectionRule pivot selection rule}.
+     *
+     * @param tableau Simple tableau for the problem.
+     * @return the entering column.
+     */
+    private Integer getPivotColumn(SimplexTableau tableau) {
+        switch (pivotSelection) {
+        case BLAND:
+            // first column with a negative coefficient
+            for (int i = tableau.getNumObjectiveFunctions(); i < tableau.getWidth() - 1; i++) {
+                if (Precision.compareTo(tableau.getEntry(0, i), 0d, epsilon) < 0) {
+                    return i;
+                }
+            }
+            return null;
+        case STEEPEST_EDGE:
+        case DEVEX:
+            return getWeightedPivotColumn(tableau);
+        default:
+            return getMostNegativeColumn(tableau);
+        }
     }
 
     /**
@@ -120,7 +223,7 @@ public class SimplexSolver extends LinearOptimizer {
      * @param tableau Simple tableau for the problem.
      * @return the column with the most negative coefficient.
      */
-    private Integer getPivotColumn(SimplexTableau tableau) {
+    private Integer getMostNegativeColumn(SimplexTableau tableau) {
         double minValue = 0;
         Integer minPos = null;
         for (int i = tableau.getNumObjectiveFunctions(); i < tableau.getWidth() - 1; i++) {
@@ -135,6 +238,71 @@ public class SimplexSolver extends LinearOptimizer {
         return minPos;
     }
 
+    /**
+     * Returns the column with the largest squared coefficient in the objective
+     * function row relative to its weight: the squared norm of the edge (for
+     * {@link PivotSelectionRule#STEEPEST_EDGE STEEPEST_EDGE}) or its reference
+     * weight (for {@link PivotSelectionRule#DEVEX DEVEX}).
+     *
+     * @param tableau Simple tableau for the problem.
+     * @return the selected column.
+     */
+    private Integer getWeightedPivotColumn(SimplexTableau tableau) {
+        if (pivotSelection == PivotSelectionRule.DEVEX && devexWeights == null) {
+            devexWeights = new double[tableau.getWidth()];
+            Arrays.fill(devexWeights, 1);
+        }
+
+        double maxScore = 0;
+        Integer maxPos = null;
+        for (int i = tableau.getNumObjectiveFunctions(); i < tableau.getWidth() - 1; i++) {
+            final double entry = tableau.getEntry(0, i);
+            if (Precision.compareTo(entry, 0d, epsilon) < 0) {
+                final double weight;
+                if (pivotSelection == PivotSelectionRule.DEVEX) {
+                    weight = devexWeights[i];
+                } else {
+                    // squared norm of the edge: 1 + sum of the squares of the column entries
+                    double sum = 1;
+                    for (int row = tableau.getNumObjectiveFunctions(); row < tableau.getHeight(); row++) {
+                        final double a = tableau.getEntry(row, i);
+                        sum += a * a;
+                    }
+                    weight = sum;
+                }
+                final double score = entry * entry / weight;
+                if (score > maxScore) {
+                    maxScore = score;
+                    maxPos = i;
+                }
+            }
+        }
+        return maxPos;
+    }
+
+    /**
+     * Updates the {@link PivotSelectionRule#DEVEX DEVEX} reference weights
+     * before a pivot.
+     *
+     * @param tableau Simple tableau for the problem.
+     * @param pivotRow Pivot row.
+     * @param pivotCol Pivot column.
+     */
+    private void updateDevexWeights(final SimplexTableau tableau,
+                                    final int pivotRow, final int pivotCol) {
+        final double pivotVal = tableau.getEntry(pivotRow, pivotCol);
+        final double pivotWeight = devexWeights[pivotCol];
+        for (int i = tableau.getNumObjectiveFunctions(); i < tableau.getWidth() - 1; i++) {
+            final double ratio = tableau.getEntry(pivotRow, i) / pivotVal;
+            if (ratio != 0) {
+                devexWeights[i] = FastMath.max(devexWeights[i], ratio * ratio * pivotWeight);
+            }
+        }
+        // reset the weight of the entering column, so that it will be at
+        // least 1 when it leaves the basis again
+        devexWeights[pivotCol] = 1;
+    }
+
     /**
      * Returns the row with the minimum ratio as given by the minimum ratio test (MRT).
      *
@@ -231,17 +399,13 @@ public class SimplexSolver extends LinearOptimizer {
             throw new UnboundedSolutionException();
         }
 
-        // set the pivot element to 1
-        double pivotVal = tableau.getEntry(pivotRow, pivotCol);
-        tableau.divideRow(pivotRow, pivotVal);
-
-        // set the rest of the pivot column to 0
-        for (int i = 0; i < tableau.getHeight(); i++) {
-            if (i != pivotRow) {
-                final double multiplier = tableau.getEntry(i, pivotCol);
-                tableau.subtractRow(i, pivotRow, multiplier);
-            }
+        if (pivotSelection == PivotSelectionRule.DEVEX) {
+            updateDevexWeights(tableau, pivotRow, pivotCol);
         }
+        final double rhs = tableau.getEntry(pivotRow, tableau.getWidth() - 1);
+        getStatistics().pivot(Precision.equals(rhs, 0d, epsilon));
+
+        tableau.pivot(pivotRow, pivotCol, parallelPivoting);
     }
 
     /**
@@ -278,6 +442,10 @@ public class SimplexSolver extends LinearOptimizer {
         throws TooManyIterationsException,
                UnboundedSolutionException,
                NoFeasibleSolutionException {
+        final SimplexStatistics statistics = getStatistics();
+        long start = System.nanoTime();
+        devexWeights = null;
+
         final SimplexTableau tableau =
             new SimplexTableau(getFunction(),
                                getConstraints(),
@@ -289,10 +457,16 @@ public class SimplexSolver extends LinearOptimizer {
 
         solvePhase1(tableau);
         tableau.dropPhase1Objective();
+        statistics.endPhase1(System.nanoTime() - start);
+
+        // the columns have changed
+        start = System.nanoTime();
+        devexWeights = null;
 
         while (!tableau.isOptimal()) {
             doIteration(tableau);
         }
+        statistics.endPhase2(System.nanoTime() - start);
         return tableau.getSolution();
     }
 }
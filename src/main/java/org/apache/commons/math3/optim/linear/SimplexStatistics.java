@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import org.apache.commons.math3.optim.OptimizationData;
+
+/**
+ * Statistics gathered by a linear optimizer while solving a problem.
+ * <p>
+ * An instance can be passed as {@link OptimizationData} to the {@link
+ * LinearOptimizer#optimize(OptimizationData[]) optimize} method of
+ * {@link SimplexSolver} or {@link RevisedSimplexSolver}: it is reset at
+ * the beginning of the call and updated as the solver proceeds, so that
+ * the pivot counts are available even if the call fails with an exception
+ * (e.g. when the maximal number of iterations is exceeded).
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class SimplexStatistics implements OptimizationData {
+    /** Number of pivots. */
+    private int pivots;
+    /** Number of degenerate pivots. */
+    private int degeneratePivots;
+    /** Number of pivots performed during phase 1. */
+    private int phase1Pivots;
+    /** Time spent in phase 1, in nanoseconds. */
+    private long phase1Time;
+    /** Time spent in phase 2, in nanoseconds. */
+    private long phase2Time;
+
+    /**
+     * Gets the total number of pivots.
+     *
+     * @return the number of pivots.
+     */
+    public int getPivotCount() {
+        return pivots;
+    }
+
+    /**
+     * Gets the number of degenerate pivots, i.e. of pivots that did not
+     * change the value of the objective function because the leaving
+     * variable was already zero.
+     *
+     * @return the number of degenerate pivots.
+     */
+    public int getDegeneratePivotCount() {
+        return degeneratePivots;
+    }
+
+    /**
+     * Gets the number of pivots performed to find a feasible solution
+     * (phase 1).
+     *
+     * @return the number of phase 1 pivots.
+     */
+    public int getPhase1PivotCount() {
+        return phase1Pivots;
+    }
+
+    /**
+     * Gets the time spent to set up the problem and find a feasible
+     * solution (phase 1).
+     *
+     * @return the phase 1 time, in nanoseconds.
+     */
+    public long getPhase1Time() {
+        return phase1Time;
+    }
+
+    /**
+     * Gets the time spent to optimize the objective function from a
+     * feasible solution (phase 2).
+     *
+     * @return the phase 2 time, in nanoseconds.
+     */
+    public long getPhase2Time() {
+        return phase2Time;
+    }
+
+    /**
+     * Resets all the statistics.
+     */
+    void reset() {
+        pivots = 0;
+        degeneratePivots = 0;
+        phase1Pivots = 0;
+        phase1Time = 0;
+        phase2Time = 0;
+    }
+
+    /**
+     * Records a pivot.
+     *
+     * @param degenerate Whether the pivot was degenerate.
+     */
+    void pivot(final boolean degenerate) {
+        ++pivots;
+        if (degenerate) {
+            ++degeneratePivots;
+        }
+    }
+
+    /**
+     * Records the end of phase 1.
+     *
+     * @param time Time spent in phase 1, in nanoseconds.
+     */
+    void endPhase1(final long time) {
+        phase1Pivots = pivots;
+        phase1Time = time;
+    }
+
+    /**
+     * Records the end of phase 2.
+     *
+     * @param time Time spent in phase 2, in nanoseconds.
+     */
+    void endPhase2(final long time) {
+        phase2Time = time;
+    }
+}
@@ -16,23 +16,21 @@
  */
 package org.apache.commons.math3.optim.linear;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.exception.MathIllegalStateException;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.util.ConcurrentUtils;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.Precision;
 
@@ -58,6 +56,10 @@ import org.apache.commons.math3.util.Precision;
  * a1: Artificial variable</br>
  * RHS: Right hand side</br>
  * </p>
+ * <p>
+ * The entries are stored row by row in a single array, so that the row
+ * operations of a pivot run over contiguous memory.
+ * </p>
  * @version $Id$
  * @since 2.0
  */
@@ -67,7 +69,7 @@ class SimplexTableau implements Serializable {
     private static final String NEGATIVE_VAR_COLUMN_LABEL = "x-";
 
     /** Serializable version identifier. */
-    private static final long serialVersionUID = -1369660067587938365L;
+    private static final long serialVersionUID = 20140412L;
 
     /** Linear objective function. */
     private final LinearObjectiveFunction f;
@@ -81,8 +83,11 @@ class SimplexTableau implements Serializable {
     /** The variables each column represents */
     private final List<String> columnLabels = new ArrayList<String>();
 
-    /** Simple tableau. */
-    private transient RealMatrix tableau;
+    /** Simple tableau, stored row by row. */
+    private double[] tableau;
+
+    /** Number of columns of the tableau. */
+    private int width;
 
     /** Number of decision variables. */
     private final int numDecisionVariables;
@@ -197,32 +202,33 @@ class SimplexTableau implements Serializable {
 
     /**
      * Create the tableau by itself.
+     * Sets the {@link #getWidth() width} of the tableau.
      * @param maximize if true, goal is to maximize the objective function
-     * @return created tableau
+     * @return created tableau, stored row by row
      */
-    protected RealMatrix createTableau(final boolean maximize) {
+    protected double[] createTableau(final boolean maximize) {
 
         // create a matrix of the correct size
-        int width = numDecisionVariables + numSlackVariables +
+        width = numDecisionVariables + numSlackVariables +
         numArtificialVariables + getNumObjectiveFunctions() + 1; // + 1 is for RHS
         int height = constraints.size() + getNumObjectiveFunctions();
-        Array2DRowRealMatrix matrix = new Array2DRowRealMatrix(height, width);
+        double[] matrix = new double[height * width];
 
         // initialize the objective function rows
         if (getNumObjectiveFunctions() == 2) {
-            matrix.setEntry(0, 0, -1);
+            matrix[0] = -1;
         }
         int zIndex = (getNumObjectiveFunctions() == 1) ? 0 : 1;
-        matrix.setEntry(zIndex, zIndex, maximize ? 1 : -1);
+        matrix[zIndex * width + zIndex] = maximize ? 1 : -1;
         RealVector objectiveCoefficients =
             maximize ? f.getCoefficients().mapMultiply(-1) : f.getCoefficients();
-        copyArray(objectiveCoefficients.toArray(), matrix.getDataRef()[zIndex]);
-        matrix.setEntry(zIndex, width - 1,
-            maximize ? f.getConstantTerm() : -1 * f.getConstantTerm());
+        copyArray(objectiveCoefficients.toArray(), matrix, zIndex * width);
+        matrix[zIndex * width + width - 1] =
+            maximize ? f.getConstantTerm() : -1 * f.getConstantTerm();
 
         if (!restrictToNonNegative) {
-            matrix.setEntry(zIndex, getSlackVariableOffset() - 1,
-                getInvertedCoefficientSum(objectiveCoefficients));
+            matrix[zIndex * width + getSlackVariableOffset() - 1] =
+                getInvertedCoefficientSum(objectiveCoefficients);
         }
 
         // initialize the constraint rows
@@ -231,32 +237,35 @@ class SimplexTableau implements Serializable {
         for (int i = 0; i < constraints.size(); i++) {
             LinearConstraint constraint = constraints.get(i);
             int row = getNumObjectiveFunctions() + i;
+            int offset = row * width;
 
             // decision variable coefficients
-            copyArray(constraint.getCoefficients().toArray(), matrix.getDataRef()[row]);
+            copyArray(constraint.getCoefficients().toArray(), matrix, offset);
 
             // x-
             if (!restrictToNonNegative) {
-                matrix.setEntry(row, getSlackVariableOffset() - 1,
-                    getInvertedCoefficientSum(constraint.getCoefficients()));
+                matrix[offset + getSlackVariableOffset() - 1] =
+                    getInvertedCoefficientSum(constraint.getCoefficients());
             }
 
             // RHS
-            matrix.setEntry(row, width - 1, constraint.getValue());
+            matrix[offset + width - 1] = constraint.getValue();
 
             // slack variables
             if (constraint.getRelationship() == Relationship.LEQ) {
-                matrix.setEntry(row, getSlackVariableOffset() + slackVar++, 1);  // slack
+                matrix[offset + getSlackVariableOffset() + slackVar++] = 1;  // slack
             } else if (constraint.getRelationship() == Relationship.GEQ) {
-                matrix.setEntry(row, getSlackVariableOffset() + slackVar++, -1); // excess
+                matrix[offset + getSlackVariableOffset() + slackVar++] = -1; // excess
             }
 
             // artificial variables
             if ((constraint.getRelationship() == Relationship.EQ) ||
                     (constraint.getRelationship() == Relationship.GEQ)) {
-                matrix.setEntry(0, getArtificialVariableOffset() + artificialVar, 1);
-                matrix.setEntry(row, getArtificialVariableOffset() + artificialVar++, 1);
-                matrix.setRowVector(0, matrix.getRowVector(0).subtract(matrix.getRowVector(row)));
+                matrix[getArtificialVariableOffset() + artificialVar] = 1;
+                matrix[offset + getArtificialVariableOffset() + artificialVar++] = 1;
+                for (int j = 0; j < width; j++) {
+                    matrix[j] -= matrix[offset + j];
+                }
             }
         }
 
@@ -359,7 +368,7 @@ class SimplexTableau implements Serializable {
 
         // positive cost non-artificial variables
         for (int i = getNumObjectiveFunctions(); i < getArtificialVariableOffset(); i++) {
-            final double entry = tableau.getEntry(0, i);
+            final double entry = tableau[i];
             if (Precision.compareTo(entry, 0d, epsilon) > 0) {
                 columnsToDrop.add(i);
             }
@@ -373,12 +382,13 @@ class SimplexTableau implements Serializable {
             }
         }
 
-        double[][] matrix = new double[getHeight() - 1][getWidth() - columnsToDrop.size()];
+        final int newWidth = getWidth() - columnsToDrop.size();
+        double[] matrix = new double[(getHeight() - 1) * newWidth];
+        int k = 0;
         for (int i = 1; i < getHeight(); i++) {
-            int col = 0;
             for (int j = 0; j < getWidth(); j++) {
                 if (!columnsToDrop.contains(j)) {
-                    matrix[i - 1][col++] = tableau.getEntry(i, j);
+                    matrix[k++] = getEntry(i, j);
                 }
             }
         }
@@ -389,16 +399,18 @@ class SimplexTableau implements Serializable {
             columnLabels.remove((int) drop[i]);
         }
 
-        this.tableau = new Array2DRowRealMatrix(matrix);
+        this.tableau = matrix;
+        this.width = newWidth;
         this.numArtificialVariables = 0;
     }
 
     /**
      * @param src the source array
      * @param dest the destination array
+     * @param rowOffset offset of the destination row
      */
-    private void copyArray(final double[] src, final double[] dest) {
-        System.arraycopy(src, 0, dest, getNumObjectiveFunctions(), src.length);
+    private void copyArray(final double[] src, final double[] dest, final int rowOffset) {
+        System.arraycopy(src, 0, dest, rowOffset + getNumObjectiveFunctions(), src.length);
     }
 
     /**
@@ -407,7 +419,7 @@ class SimplexTableau implements Serializable {
      */
     boolean isOptimal() {
         for (int i = getNumObjectiveFunctions(); i < getWidth() - 1; i++) {
-            final double entry = tableau.getEntry(0, i);
+            final double entry = tableau[i];
             if (Precision.compareTo(entry, 0d, epsilon) < 0) {
                 return false;
             }
@@ -462,8 +474,9 @@ class SimplexTableau implements Serializable {
      * @param divisor value of the divisor
      */
     protected void divideRow(final int dividendRow, final double divisor) {
-        for (int j = 0; j < getWidth(); j++) {
-            tableau.setEntry(dividendRow, j, tableau.getEntry(dividendRow, j) / divisor);
+        final int offset = dividendRow * width;
+        for (int j = offset; j < offset + width; j++) {
+            tableau[j] /= divisor;
         }
     }
 
@@ -479,13 +492,77 @@ class SimplexTableau implements Serializable {
      */
     protected void subtractRow(final int minuendRow, final int subtrahendRow,
                                final double multiple) {
-        for (int i = 0; i < getWidth(); i++) {
-            double result = tableau.getEntry(minuendRow, i) - tableau.getEntry(subtrahendRow, i) * multiple;
+        final int minuendOffset = minuendRow * width;
+        final int subtrahendOffset = subtrahendRow * width;
+        for (int i = 0; i < width; i++) {
+            double result = tableau[minuendOffset + i] - tableau[subtrahendOffset + i] * multiple;
             // cut-off values smaller than the cut-off threshold, otherwise may lead to numerical instabilities
             if (FastMath.abs(result) < cutOff) {
                 result = 0.0;
             }
-            tableau.setEntry(minuendRow, i, result);
+            tableau[minuendOffset + i] = result;
+        }
+    }
+
+    /**
+     * Pivots on an entry: divides the pivot row by the pivot entry and
+     * subtracts multiples of it from all other rows, so that the pivot
+     * column becomes a unit column.
+     * <p>
+     * If {@code parallel} is not {@code null} and the tableau has at least
+     * {@link ParallelPivoting#getThreshold() threshold} entries, the other
+     * rows are split into blocks that are updated concurrently.
+     * </p>
+     *
+     * @param pivotRow row of the pivot entry
+     * @param pivotCol column of the pivot entry
+     * @param parallel settings of the parallel execution (may be {@code null})
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the row operations to complete.
+     */
+    protected void pivot(final int pivotRow, final int pivotCol,
+                         final ParallelPivoting parallel) {
+        // set the pivot element to 1
+        divideRow(pivotRow, getEntry(pivotRow, pivotCol));
+
+        // set the rest of the pivot column to 0
+        final int height = getHeight();
+        if (parallel == null || tableau.length < parallel.getThreshold() ||
+            parallel.getTasks() == 1 || height < 2) {
+            subtractPivotRow(pivotRow, pivotCol, 0, height);
+            return;
+        }
+
+        final int tasks = FastMath.min(parallel.getTasks(), height);
+        final List<Callable<Void>> blocks = new ArrayList<Callable<Void>>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            final int start = (int) ((long) height * t / tasks);
+            final int end = (int) ((long) height * (t + 1) / tasks);
+            blocks.add(new Callable<Void>() {
+                    public Void call() {
+                        subtractPivotRow(pivotRow, pivotCol, start, end);
+                        return null;
+                    }
+                });
+        }
+
+        ConcurrentUtils.invokeAll(parallel.getExecutor(), blocks);
+    }
+
+    /**
+     * Subtracts the appropriate multiple of the pivot row from a block of rows.
+     *
+     * @param pivotRow row of the pivot entry (already divided by the pivot)
+     * @param pivotCol column of the pivot entry
+     * @param start first row of the block
+     * @param end row following the last row of the block
+     */
+    private void subtractPivotRow(final int pivotRow, final int pivotCol,
+                                  final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (i != pivotRow) {
+                subtractRow(i, pivotRow, getEntry(i, pivotCol));
+            }
         }
     }
 
@@ -494,7 +571,7 @@ class SimplexTableau implements Serializable {
      * @return width of the tableau
      */
     protected final int getWidth() {
-        return tableau.getColumnDimension();
+        return width;
     }
 
     /**
@@ -502,7 +579,7 @@ class SimplexTableau implements Serializable {
      * @return height of the tableau
      */
     protected final int getHeight() {
-        return tableau.getRowDimension();
+        return tableau.length / width;
     }
 
     /**
@@ -512,7 +589,7 @@ class SimplexTableau implements Serializable {
      * @return entry at (row, column)
      */
     protected final double getEntry(final int row, final int column) {
-        return tableau.getEntry(row, column);
+        return tableau[row * width + column];
     }
 
     /**
@@ -523,7 +600,7 @@ class SimplexTableau implements Serializable {
      */
     protected final void setEntry(final int row, final int column,
                                   final double value) {
-        tableau.setEntry(row, column, value);
+        tableau[row * width + column] = value;
     }
 
     /**
@@ -593,7 +670,11 @@ class SimplexTableau implements Serializable {
      * @return tableau data
      */
     protected final double[][] getData() {
-        return tableau.getData();
+        final double[][] data = new double[getHeight()][width];
+        for (int i = 0; i < data.length; i++) {
+            System.arraycopy(tableau, i * width, data[i], 0, width);
+        }
+        return data;
     }
 
     @Override
@@ -613,7 +694,8 @@ class SimplexTableau implements Serializable {
                  (maxUlps                == rhs.maxUlps) &&
                  f.equals(rhs.f) &&
                  constraints.equals(rhs.constraints) &&
-                 tableau.equals(rhs.tableau);
+                 (width                  == rhs.width) &&
+                 Arrays.equals(tableau, rhs.tableau);
       }
       return false;
     }
@@ -628,29 +710,7 @@ class SimplexTableau implements Serializable {
                maxUlps ^
                f.hashCode() ^
                constraints.hashCode() ^
-               tableau.hashCode();
-    }
-
-    /**
-     * Serialize the instance.
-     * @param oos stream where object should be written
-     * @throws IOException if object cannot be written to stream
-     */
-    private void writeObject(ObjectOutputStream oos)
-        throws IOException {
-        oos.defaultWriteObject();
-        MatrixUtils.serializeRealMatrix(tableau, oos);
-    }
-
-    /**
-     * Deserialize the instance.
-     * @param ois stream from which the object should be read
-     * @throws ClassNotFoundException if a class in the stream cannot be found
-     * @throws IOException if object cannot be read from the stream
-     */
-    private void readObject(ObjectInputStream ois)
-      throws ClassNotFoundException, IOException {
-        ois.defaultReadObject();
-        MatrixUtils.deserializeRealMatrix(this, "tableau", ois);
+               width ^
+               Arrays.hashCode(tableau);
     }
 }
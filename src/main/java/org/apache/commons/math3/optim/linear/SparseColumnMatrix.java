@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+/**
+ * Matrix stored in compressed sparse column form: the non-zero entries
+ * of column {@code j} are at indices {@code columnStart[j]} (inclusive)
+ * to {@code columnStart[j + 1]} (exclusive) of the {@code rowIndex} and
+ * {@code value} arrays.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class SparseColumnMatrix {
+    /** Number of rows. */
+    private final int rows;
+    /** Start of each column (the last element is the number of entries). */
+    private final int[] columnStart;
+    /** Row index of each entry. */
+    private final int[] rowIndex;
+    /** Value of each entry. */
+    private final double[] value;
+
+    /**
+     * Creates a matrix from its compressed representation.
+     * The arrays are not copied.
+     *
+     * @param rows Number of rows.
+     * @param columnStart Start of each column, followed by the number of entries.
+     * @param rowIndex Row index of each entry.
+     * @param value Value of each entry.
+     */
+    SparseColumnMatrix(final int rows,
+                       final int[] columnStart,
+                       final int[] rowIndex,
+                       final double[] value) {
+        this.rows = rows;
+        this.columnStart = columnStart;
+        this.rowIndex = rowIndex;
+        this.value = value;
+    }
+
+    /**
+     * @return the number of rows.
+     */
+    int getRowDimension() {
+        return rows;
+    }
+
+    /**
+     * @return the number of columns.
+     */
+    int getColumnDimension() {
+        return columnStart.length - 1;
+    }
+
+    /**
+     * @param column Column index.
+     * @return the number of entries stored for the column.
+     */
+    int getColumnSize(final int column) {
+        return columnStart[column + 1] - columnStart[column];
+    }
+
+    /**
+     * @param column Column index.
+     * @return the index of the first entry of the column.
+     */
+    int getColumnStart(final int column) {
+        return columnStart[column];
+    }
+
+    /**
+     * @param column Column index.
+     * @return the index following the last entry of the column.
+     */
+    int getColumnEnd(final int column) {
+        return columnStart[column + 1];
+    }
+
+    /**
+     * @param entry Entry index.
+     * @return the row of the entry.
+     */
+    int getRowIndex(final int entry) {
+        return rowIndex[entry];
+    }
+
+    /**
+     * @param entry Entry index.
+     * @return the value of the entry.
+     */
+    double getValue(final int entry) {
+        return value[entry];
+    }
+
+    /**
+     * Computes the dot product of a column with a dense vector.
+     *
+     * @param column Column index.
+     * @param y Dense vector (one element per row).
+     * @return the dot product.
+     */
+    double dotProduct(final int column, final double[] y) {
+        double sum = 0;
+        for (int k = columnStart[column]; k < columnStart[column + 1]; k++) {
+            sum += value[k] * y[rowIndex[k]];
+        }
+        return sum;
+    }
+
+    /**
+     * Copies a column into a dense vector.
+     * The entries of {@code x} that are not in the column are left unchanged.
+     *
+     * @param column Column index.
+     * @param x Dense vector (one element per row).
+     */
+    void scatter(final int column, final double[] x) {
+        for (int k = columnStart[column]; k < columnStart[column + 1]; k++) {
+            x[rowIndex[k]] = value[k];
+        }
+    }
+}
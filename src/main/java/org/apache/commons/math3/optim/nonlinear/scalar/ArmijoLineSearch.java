@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Backtracking line search enforcing a sufficient decrease condition.
+ * <br/>
+ * If the {@link LineFunction} provides derivatives, the accepted step
+ * satisfies the Armijo condition
+ * {@code phi(alpha) <= phi(0) + c1 alpha phi'(0)}, and the trial steps are
+ * reduced by safeguarded quadratic interpolation.
+ * <br/>
+ * Otherwise, the line search is derivative-free: the direction need not be
+ * a descent direction, both {@code alpha} and {@code -alpha} are tried, the
+ * accepted step satisfies {@code phi(alpha) <= phi(0) - c1 alpha<sup>2</sup> |d|<sup>2</sup>},
+ * and it is expanded as long as this condition holds and the function
+ * decreases (this is the derivative-free line search of Lucidi and
+ * Sciandrone). Once the minimum is bracketed, the step is refined by
+ * parabolic interpolation.
+ *
+ * @since 3.3
+ * @version $Id$
+ */
+public class ArmijoLineSearch implements LineSearch {
+    /** Default sufficient decrease parameter. */
+    public static final double DEFAULT_C1 = 1.0e-4;
+    /** Default contraction factor. */
+    public static final double DEFAULT_CONTRACTION = 0.5;
+    /** Default maximal number of trial steps. */
+    public static final int DEFAULT_MAX_TRIALS = 40;
+    /** Smallest reduction of the step by interpolation. */
+    private static final double MIN_CONTRACTION = 0.1;
+    /** Sufficient decrease parameter. */
+    private final double c1;
+    /** Contraction factor. */
+    private final double contraction;
+    /** Maximal number of trial steps. */
+    private final int maxTrials;
+
+    /**
+     * Build a line search with default parameters.
+     */
+    public ArmijoLineSearch() {
+        this(DEFAULT_C1, DEFAULT_CONTRACTION, DEFAULT_MAX_TRIALS);
+    }
+
+    /**
+     * @param c1 Sufficient decrease parameter.
+     * @param contraction Largest ratio between two successive trial steps
+     * (also the inverse of the expansion factor of derivative-free searches).
+     * @param maxTrials Maximal number of trial steps.
+     * @throws OutOfRangeException if {@code c1} or {@code contraction}
+     * is not in the open interval (0, 1).
+     * @throws NotStrictlyPositiveException if {@code maxTrials <= 0}.
+     */
+    public ArmijoLineSearch(final double c1, final double contraction, final int maxTrials) {
+        if (c1 <= 0 || c1 >= 1) {
+            throw new OutOfRangeException(c1, 0, 1);
+        }
+        if (contraction <= 0 || contraction >= 1) {
+            throw new OutOfRangeException(contraction, 0, 1);
+        }
+        if (maxTrials <= 0) {
+            throw new NotStrictlyPositiveException(maxTrials);
+        }
+        this.c1 = c1;
+        this.contraction = contraction;
+        this.maxTrials = maxTrials;
+    }
+
+    /** {@inheritDoc} */
+    public double search(final LineFunction function, final double initialStep) {
+        return function.isDifferentiable() ?
+               backtrack(function, initialStep) :
+               derivativeFree(function, initialStep);
+    }
+
+    /**
+     * Backtracking search using the directional derivative.
+     *
+     * @param phi Function to decrease.
+     * @param initialStep First trial step.
+     * @return the selected step, or 0.
+     */
+    private double backtrack(final LineFunction phi, final double initialStep) {
+        final double f0 = phi.value(0);
+        final double d0 = phi.derivative(0);
+        if (d0 >= 0) {
+            // not a descent direction
+            return 0;
+        }
+
+        double alpha = initialStep;
+        for (int trial = 0; trial < maxTrials; ++trial) {
+            final double f = phi.value(alpha);
+            if (f <= f0 + c1 * alpha * d0) {
+                return alpha;
+            }
+
+            // minimizer of the quadratic interpolating f0, d0 and f
+            final double q = -0.5 * d0 * alpha * alpha / (f - f0 - d0 * alpha);
+            final double lo = FastMath.min(MIN_CONTRACTION, contraction) * alpha;
+            final double hi = contraction * alpha;
+            alpha = (q >= lo && q <= hi) ? q : hi;
+        }
+        return 0;
+    }
+
+    /**
+     * Derivative-free search, in both directions.
+     *
+     * @param phi Function to decrease.
+     * @param initialStep First trial step.
+     * @return the selected step (which may be negative), or 0.
+     */
+    private double derivativeFree(final LineFunction phi, final double initialStep) {
+        final double f0 = phi.value(0);
+        final double[] d = phi.getDirection();
+        double d2 = 0;
+        for (int i = 0; i < d.length; ++i) {
+            d2 += d[i] * d[i];
+        }
+        if (d2 == 0) {
+            // the function is constant along the line
+            return 0;
+        }
+
+        double alpha = initialStep;
+        for (int trial = 0; trial < maxTrials; trial += 2) {
+            if (c1 * alpha * alpha * d2 < FastMath.ulp(f0)) {
+                // the required decrease is below the accuracy of the function
+                break;
+            }
+            for (int sign = 1; sign >= -1; sign -= 2) {
+                final double step = sign * alpha;
+                if (phi.value(step) <= f0 - c1 * step * step * d2) {
+                    return expand(phi, f0, d2, step, maxTrials - trial);
+                }
+            }
+            alpha *= contraction;
+        }
+        return 0;
+    }
+
+    /**
+     * Expand an accepted step as long as the function decreases sufficiently,
+     * then refine it by parabolic interpolation.
+     *
+     * @param phi Function to decrease.
+     * @param f0 Value at the start point.
+     * @param d2 Squared norm of the direction.
+     * @param accepted Accepted step.
+     * @param trials Remaining number of trial steps.
+     * @return the expanded step.
+     */
+    private double expand(final LineFunction phi, final double f0, final double d2,
+                          final double accepted, final int trials) {
+        double previous = 0;
+        double alpha = accepted;
+        double f = phi.value(alpha);
+        for (int trial = 0; trial < trials; ++trial) {
+            final double step = alpha / contraction;
+            final double fStep = phi.value(step);
+            if (fStep > f0 - c1 * step * step * d2 || fStep >= f) {
+                if (fStep >= f) {
+                    // the minimum is bracketed by previous and step
+                    return refine(phi, previous, alpha, step);
+                }
+                break;
+            }
+            previous = alpha;
+            alpha = step;
+            f = fStep;
+        }
+        return alpha;
+    }
+
+    /**
+     * Refine a step by parabolic interpolation.
+     *
+     * @param phi Function to decrease.
+     * @param a First step.
+     * @param b Middle step, with a value lower than at the two other steps.
+     * @param c Last step.
+     * @return the step with the lowest value among {@code b} and the
+     * minimum of the parabola through the three steps.
+     */
+    private double refine(final LineFunction phi,
+                          final double a, final double b, final double c) {
+        final double fa = phi.value(a);
+        final double fb = phi.value(b);
+        final double fc = phi.value(c);
+        final double p = (b - a) * (fb - fc);
+        final double q = (b - c) * (fb - fa);
+        final double denominator = 2 * (p - q);
+        if (denominator == 0) {
+            return b;
+        }
+        final double u = b - ((b - a) * p - (b - c) * q) / denominator;
+        if (!(u > FastMath.min(a, c) && u < FastMath.max(a, c)) || u == b) {
+            return b;
+        }
+        return phi.value(u) < fb ? u : b;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.optim.OptimizationData;
+
+/**
+ * Scalar function to be optimized, evaluated on whole sets of points.
+ * <br/>
+ * Optimizers that generate several independent points per iteration
+ * (e.g. the population of an evolution strategy, or the vertices of
+ * a simplex) will evaluate them with a single call to
+ * {@link #value(double[][])} when this object is passed as optimization
+ * data, thus allowing implementations to evaluate the points concurrently
+ * or in a single pass.
+ * <br/>
+ * The other optimizers, as well as single-point evaluations, use the
+ * {@link #value(double[]) single point} method.
+ *
+ * @see ParallelObjectiveFunction
+ * @version $Id$
+ * @since 3.3
+ */
+public abstract class BatchObjectiveFunction
+    implements OptimizationData, MultivariateFunction {
+    /**
+     * Computes the function values at several points.
+     *
+     * @param points Points at which the function must be evaluated.
+     * The arrays must not be modified.
+     * @return an array containing the function values, in the same order
+     * as the {@code points}.
+     */
+    public abstract double[] value(double[][] points);
+
+    /**
+     * Computes the function value at a single point.
+     * The default implementation delegates to {@link #value(double[][])}.
+     *
+     * @param point Point at which the function must be evaluated.
+     * @return the function value.
+     */
+    public double value(double[] point) {
+        return value(new double[][] { point })[0];
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Line search of Hager and Zhang.
+ * <br/>
+ * This is the line search of the CG_DESCENT method (<em>A new conjugate
+ * gradient method with guaranteed descent and an efficient line search</em>,
+ * SIAM Journal on Optimization 16, 2005). A step is accepted if it satisfies
+ * either the Wolfe conditions or the approximate Wolfe conditions
+ * {@code (2 delta - 1) phi'(0) >= phi'(alpha) >= sigma phi'(0)} with
+ * {@code phi(alpha) <= phi(0) + epsilon |phi(0)|}; the latter can be checked
+ * accurately close to the minimum, where rounding errors make the
+ * sufficient decrease condition unreliable. The interval of uncertainty is
+ * shrunk by double secant steps, with a bisection whenever they do not
+ * reduce it enough.
+ * <br/>
+ * This line search requires derivatives.
+ *
+ * @since 3.3
+ * @version $Id$
+ */
+public class HagerZhangLineSearch implements LineSearch {
+    /** Default sufficient decrease parameter. */
+    public static final double DEFAULT_DELTA = 0.1;
+    /** Default curvature parameter. */
+    public static final double DEFAULT_SIGMA = 0.9;
+    /** Default relative tolerance on the function value. */
+    public static final double DEFAULT_EPSILON = 1.0e-6;
+    /** Default maximal number of trial steps. */
+    public static final int DEFAULT_MAX_TRIALS = 40;
+    /** Position of the bisection step in the interval. */
+    private static final double THETA = 0.5;
+    /** Required relative decrease of the interval by a double secant step. */
+    private static final double GAMMA = 0.66;
+    /** Expansion factor of the bracketing phase. */
+    private static final double RHO = 5.0;
+    /** Sufficient decrease parameter. */
+    private final double delta;
+    /** Curvature parameter. */
+    private final double sigma;
+    /** Relative tolerance on the function value. */
+    private final double epsilon;
+    /** Maximal number of trial steps. */
+    private final int maxTrials;
+
+    /**
+     * Build a line search with default parameters.
+     */
+    public HagerZhangLineSearch() {
+        this(DEFAULT_DELTA, DEFAULT_SIGMA, DEFAULT_EPSILON, DEFAULT_MAX_TRIALS);
+    }
+
+    /**
+     * @param delta Sufficient decrease parameter, in (0, 0.5).
+     * @param sigma Curvature parameter, in [delta, 1).
+     * @param epsilon Relative tolerance on the function value for the
+     * approximate Wolfe conditions.
+     * @param maxTrials Maximal number of trial steps.
+     * @throws OutOfRangeException if {@code delta} is not in (0, 0.5)
+     * or {@code sigma} is not in (0, 1).
+     * @throws NumberIsTooSmallException if {@code sigma < delta}.
+     * @throws NotPositiveException if {@code epsilon < 0}.
+     * @throws NotStrictlyPositiveException if {@code maxTrials <= 0}.
+     */
+    public HagerZhangLineSearch(final double delta, final double sigma,
+                                final double epsilon, final int maxTrials) {
+        if (delta <= 0 || delta >= 0.5) {
+            throw new OutOfRangeException(delta, 0, 0.5);
+        }
+        if (sigma <= 0 || sigma >= 1) {
+            throw new OutOfRangeException(sigma, 0, 1);
+        }
+        if (sigma < delta) {
+            throw new NumberIsTooSmallException(sigma, delta, true);
+        }
+        if (epsilon < 0) {
+            throw new NotPositiveException(epsilon);
+        }
+        if (maxTrials <= 0) {
+            throw new NotStrictlyPositiveException(maxTrials);
+        }
+        this.delta = delta;
+        this.sigma = sigma;
+        this.epsilon = epsilon;
+        this.maxTrials = maxTrials;
+    }
+
+    /** {@inheritDoc} */
+    public double search(final LineFunction phi, final double initialStep) {
+        final Search search = new Search(phi);
+        if (search.d0 >= 0) {
+            // not a descent direction
+            return 0;
+        }
+
+        if (search.accept(initialStep)) {
+            return initialStep;
+        }
+        double[] ab = search.bracket(initialStep);
+        while (ab != null && !search.exhausted()) {
+            final double width = ab[1] - ab[0];
+            final double[] secant = search.secant2(ab[0], ab[1]);
+            if (secant == null) {
+                break;
+            }
+            if (secant[1] - secant[0] > GAMMA * width) {
+                ab = search.update(secant[0], secant[1],
+                                   secant[0] + THETA * (secant[1] - secant[0]));
+            } else {
+                ab = secant;
+            }
+            if (ab == null || ab[1] - ab[0] <= FastMath.ulp(ab[1])) {
+                break;
+            }
+        }
+
+        return search.result();
+    }
+
+    /**
+     * State of one search.
+     * <p>
+     * The methods return {@code null} as soon as an acceptable step has been
+     * found or the trials budget is exhausted, and the step is then given by
+     * {@link #result()}.
+     * </p>
+     */
+    private class Search {
+        /** Function to decrease. */
+        private final LineFunction phi;
+        /** Value at step 0. */
+        private final double f0;
+        /** Derivative at step 0. */
+        private final double d0;
+        /** Upper bound of the values in the approximate Wolfe conditions. */
+        private final double fTol;
+        /** Number of value evaluations when the search started. */
+        private final int start;
+        /** Accepted step, or {@code NaN}. */
+        private double found;
+        /** Step with the lowest value. */
+        private double best;
+        /** Lowest value. */
+        private double bestValue;
+
+        /**
+         * @param phi Function to decrease.
+         */
+        Search(final LineFunction phi) {
+            this.phi  = phi;
+            start     = phi.getValueEvaluations();
+            f0        = phi.value(0);
+            d0        = phi.derivative(0);
+            fTol      = f0 + epsilon * FastMath.abs(f0);
+            found     = Double.NaN;
+            best      = 0;
+            bestValue = f0;
+        }
+
+        /**
+         * @return {@code true} if no more trial steps are allowed.
+         */
+        boolean exhausted() {
+            return phi.getValueEvaluations() - start >= maxTrials;
+        }
+
+        /**
+         * @return the accepted step, or the step with the lowest value.
+         */
+        double result() {
+            return Double.isNaN(found) ? best : found;
+        }
+
+        /**
+         * @param alpha Step.
+         * @return the value at the step.
+         */
+        double value(final double alpha) {
+            final double f = phi.value(alpha);
+            if (f < bestValue) {
+                best = alpha;
+                bestValue = f;
+            }
+            return f;
+        }
+
+        /**
+         * Check the (approximate) Wolfe conditions, and record acceptable steps.
+         *
+         * @param alpha Step.
+         * @return {@code true} if the step is acceptable.
+         */
+        boolean accept(final double alpha) {
+            final double f = value(alpha);
+            final double d = phi.derivative(alpha);
+            if (d >= sigma * d0 &&
+                (f - f0 <= delta * alpha * d0 ||
+                 (d <= (2 * delta - 1) * d0 && f <= fTol))) {
+                found = alpha;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Find an initial interval satisfying the opposite slope condition.
+         *
+         * @param c Initial step (already checked).
+         * @return the interval, or {@code null}.
+         */
+        double[] bracket(final double c) {
+            double last = 0;
+            double cj = c;
+            while (!exhausted()) {
+                if (phi.derivative(cj) >= 0) {
+                    return new double[] { last, cj };
+                }
+                if (value(cj) > fTol) {
+                    return shrink(0, cj);
+                }
+                last = cj;
+                cj *= RHO;
+                if (accept(cj)) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Update an interval with a new step.
+         *
+         * @param a Lower end.
+         * @param b Upper end.
+         * @param c New step.
+         * @return the updated interval, or {@code null}.
+         */
+        double[] update(final double a, final double b, final double c) {
+            if (!(c > a && c < b)) {
+                return new double[] { a, b };
+            }
+            if (accept(c)) {
+                return null;
+            }
+            if (phi.derivative(c) >= 0) {
+                return new double[] { a, c };
+            }
+            if (value(c) <= fTol) {
+                return new double[] { c, b };
+            }
+            return shrink(a, c);
+        }
+
+        /**
+         * Bisect an interval whose upper end has a too large value.
+         *
+         * @param a Lower end.
+         * @param b Upper end.
+         * @return the updated interval, or {@code null}.
+         */
+        double[] shrink(final double a, final double b) {
+            double lo = a;
+            double hi = b;
+            while (!exhausted()) {
+                final double d = (1 - THETA) * lo + THETA * hi;
+                if (accept(d)) {
+                    return null;
+                }
+                if (phi.derivative(d) >= 0) {
+                    return new double[] { lo, d };
+                }
+                if (value(d) <= fTol) {
+                    lo = d;
+                } else {
+                    hi = d;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Double secant step.
+         *
+         * @param a Lower end.
+         * @param b Upper end.
+         * @return the updated interval, or {@code null}.
+         */
+        double[] secant2(final double a, final double b) {
+            final double c = secant(a, b);
+            final double[] ab = update(a, b, c);
+            if (ab == null) {
+                return null;
+            }
+            if (c == ab[1]) {
+                return update(ab[0], ab[1], secant(b, ab[1]));
+            }
+            if (c == ab[0]) {
+                return update(ab[0], ab[1], secant(a, ab[0]));
+            }
+            return ab;
+        }
+
+        /**
+         * @param a First step.
+         * @param b Second step.
+         * @return the zero of the secant of the derivative.
+         */
+        private double secant(final double a, final double b) {
+            final double da = phi.derivative(a);
+            final double db = phi.derivative(b);
+            return (a * db - b * da) / (db - da);
+        }
+    }
+}
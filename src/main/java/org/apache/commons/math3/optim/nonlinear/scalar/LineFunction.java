@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.analysis.UnivariateFunction;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Restriction of a multivariate function to a line, for {@link LineSearch line searches}.
+ * <br/>
+ * This class represents the univariate function {@code phi(alpha) = f(x + alpha d)}
+ * for a start point {@code x} and a direction {@code d}. The function is
+ * minimized: optimizers maximizing an objective function must provide its
+ * opposite. The directional derivative {@code phi'(alpha)} is available if
+ * the gradient of {@code f} is provided.
+ * <br/>
+ * All the evaluations are cached: requesting the value or the derivative
+ * at a step where it has already been computed (by the line search, or
+ * before it for the start point) does not evaluate the function again, and
+ * the value and gradient at the step selected by the line search can be
+ * retrieved without further evaluations.
+ *
+ * @since 3.3
+ * @version $Id$
+ */
+public class LineFunction implements UnivariateFunction {
+    /** Function. */
+    private final MultivariateFunction function;
+    /** Gradient (may be {@code null}). */
+    private final MultivariateVectorFunction gradient;
+    /** Start point. */
+    private final double[] start;
+    /** Direction. */
+    private final double[] direction;
+    /** Cached evaluations. */
+    private final Map<Double, Evaluation> cache;
+    /** Number of evaluations of the function. */
+    private int valueEvaluations;
+    /** Number of evaluations of the gradient. */
+    private int gradientEvaluations;
+
+    /**
+     * @param function Function to minimize.
+     * @param gradient Gradient of the function (may be {@code null} for
+     * derivative-free line searches).
+     * @param start Start point.
+     * @param direction Search direction.
+     * @throws DimensionMismatchException if the dimensions of {@code start}
+     * and {@code direction} are different.
+     */
+    public LineFunction(final MultivariateFunction function,
+                        final MultivariateVectorFunction gradient,
+                        final double[] start,
+                        final double[] direction) {
+        MathUtils.checkNotNull(function);
+        if (start.length != direction.length) {
+            throw new DimensionMismatchException(direction.length, start.length);
+        }
+        this.function = function;
+        this.gradient = gradient;
+        this.start = start.clone();
+        this.direction = direction.clone();
+        this.cache = new HashMap<Double, Evaluation>();
+    }
+
+    /**
+     * Build a function whose value and gradient at the start point are known.
+     *
+     * @param function Function to minimize.
+     * @param gradient Gradient of the function (may be {@code null} for
+     * derivative-free line searches).
+     * @param start Start point.
+     * @param startValue Value of the function at the start point.
+     * @param startGradient Gradient of the function at the start point
+     * (may be {@code null} if unknown).
+     * @param direction Search direction.
+     * @throws DimensionMismatchException if the dimensions of {@code start}
+     * and {@code direction} are different.
+     */
+    public LineFunction(final MultivariateFunction function,
+                        final MultivariateVectorFunction gradient,
+                        final double[] start,
+                        final double startValue,
+                        final double[] startGradient,
+                        final double[] direction) {
+        this(function, gradient, start, direction);
+        final Evaluation origin = new Evaluation(this.start, startValue);
+        if (startGradient != null) {
+            origin.setGradient(startGradient.clone(), dot(startGradient));
+        }
+        cache.put(0.0, origin);
+    }
+
+    /**
+     * @return {@code true} if the derivative is available.
+     */
+    public boolean isDifferentiable() {
+        return gradient != null;
+    }
+
+    /**
+     * @return a copy of the search direction.
+     */
+    public double[] getDirection() {
+        return direction.clone();
+    }
+
+    /**
+     * Compute the value of the function, evaluating it only if needed.
+     *
+     * @param alpha Step along the direction.
+     * @return {@code f(x + alpha d)}.
+     */
+    public double value(final double alpha) {
+        return evaluate(alpha).value;
+    }
+
+    /**
+     * Compute the directional derivative, evaluating the gradient only if needed.
+     *
+     * @param alpha Step along the direction.
+     * @return the derivative of {@code f(x + alpha d)} with respect to {@code alpha}.
+     * @throws MathUnsupportedOperationException if the gradient of the
+     * function is not available.
+     */
+    public double derivative(final double alpha) {
+        return evaluateGradient(alpha).derivative;
+    }
+
+    /**
+     * @param alpha Step along the direction.
+     * @return the point {@code x + alpha d}.
+     */
+    public double[] getPoint(final double alpha) {
+        return evaluate(alpha).point.clone();
+    }
+
+    /**
+     * Get the gradient at a point of the line, evaluating it only if needed.
+     *
+     * @param alpha Step along the direction.
+     * @return the gradient at {@code x + alpha d}.
+     * @throws MathUnsupportedOperationException if the gradient of the
+     * function is not available.
+     */
+    public double[] getGradient(final double alpha) {
+        return evaluateGradient(alpha).gradient.clone();
+    }
+
+    /**
+     * @return the number of evaluations of the function.
+     */
+    public int getValueEvaluations() {
+        return valueEvaluations;
+    }
+
+    /**
+     * @return the number of evaluations of the gradient.
+     */
+    public int getGradientEvaluations() {
+        return gradientEvaluations;
+    }
+
+    /**
+     * @param alpha Step along the direction.
+     * @return the cached evaluation, with a value.
+     */
+    private Evaluation evaluate(final double alpha) {
+        // adding 0 turns -0.0 into 0.0, so that both share the same entry
+        final Double key = alpha + 0.0;
+        Evaluation evaluation = cache.get(key);
+        if (evaluation == null) {
+            final double[] point = new double[start.length];
+            for (int i = 0; i < point.length; i++) {
+                point[i] = start[i] + alpha * direction[i];
+            }
+            ++valueEvaluations;
+            evaluation = new Evaluation(point, function.value(point));
+            cache.put(key, evaluation);
+        }
+        return evaluation;
+    }
+
+    /**
+     * @param alpha Step along the direction.
+     * @return the cached evaluation, with a value and a gradient.
+     * @throws MathUnsupportedOperationException if the gradient of the
+     * function is not available.
+     */
+    private Evaluation evaluateGradient(final double alpha) {
+        final Evaluation evaluation = evaluate(alpha);
+        if (evaluation.gradient == null) {
+            if (gradient == null) {
+                throw new MathUnsupportedOperationException(LocalizedFormats.UNSUPPORTED_OPERATION);
+            }
+            ++gradientEvaluations;
+            final double[] g = gradient.value(evaluation.point);
+            evaluation.setGradient(g, dot(g));
+        }
+        return evaluation;
+    }
+
+    /**
+     * @param g Gradient.
+     * @return the dot product of {@code g} and the direction.
+     */
+    private double dot(final double[] g) {
+        double sum = 0;
+        for (int i = 0; i < g.length; i++) {
+            sum += g[i] * direction[i];
+        }
+        return sum;
+    }
+
+    /** Evaluation at one point of the line. */
+    private static class Evaluation {
+        /** Point. */
+        private final double[] point;
+        /** Value. */
+        private final double value;
+        /** Gradient (null until computed). */
+        private double[] gradient;
+        /** Directional derivative. */
+        private double derivative;
+
+        /**
+         * @param point Point.
+         * @param value Value.
+         */
+        Evaluation(final double[] point, final double value) {
+            this.point = point;
+            this.value = value;
+        }
+
+        /**
+         * @param gradient Gradient.
+         * @param derivative Directional derivative.
+         */
+        void setGradient(final double[] gradient, final double derivative) {
+            this.gradient = gradient;
+            this.derivative = derivative;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+/**
+ * Interface for line searches, which select a step along a direction
+ * in order to decrease a function.
+ * <br/>
+ * Implementations only evaluate the function through the {@link LineFunction},
+ * so that the evaluations are cached, and are stateless, so that a single
+ * instance can be shared by several optimizers.
+ *
+ * @see ArmijoLineSearch
+ * @see MoreThuenteLineSearch
+ * @see HagerZhangLineSearch
+ * @since 3.3
+ * @version $Id$
+ */
+public interface LineSearch {
+    /**
+     * Search a step along a line.
+     *
+     * @param function Function to decrease along the line.
+     * @param initialStep First step to try (strictly positive).
+     * @return the selected step, such that {@code function.value(step)} is
+     * lower than {@code function.value(0)}, or 0 if no such step was found.
+     * @throws org.apache.commons.math3.exception.MathUnsupportedOperationException
+     * if the line search requires derivatives and the function does not
+     * provide them.
+     */
+    double search(LineFunction function, double initialStep);
+}
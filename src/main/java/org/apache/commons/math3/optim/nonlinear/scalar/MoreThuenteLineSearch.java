@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Line search finding a step that satisfies the strong Wolfe conditions.
+ * <br/>
+ * This is the algorithm of Moré and Thuente (<em>Line search algorithms
+ * with guaranteed sufficient decrease</em>, ACM Transactions on
+ * Mathematical Software 20, 1994), as implemented in the {@code dcsrch}
+ * and {@code dcstep} routines of MINPACK-2: the interval of uncertainty is
+ * updated by safeguarded cubic and quadratic steps until a step satisfies
+ * {@code phi(alpha) <= phi(0) + c1 alpha phi'(0)} and
+ * {@code |phi'(alpha)| <= c2 |phi'(0)|}.
+ * <br/>
+ * This line search requires derivatives.
+ *
+ * @since 3.3
+ * @version $Id$
+ */
+public class MoreThuenteLineSearch implements LineSearch {
+    /** Default sufficient decrease parameter. */
+    public static final double DEFAULT_C1 = 1.0e-4;
+    /** Default curvature parameter, suitable for quasi-Newton methods. */
+    public static final double DEFAULT_C2 = 0.9;
+    /** Default maximal number of trial steps. */
+    public static final int DEFAULT_MAX_TRIALS = 40;
+    /** Relative width of the interval of uncertainty below which the search stops. */
+    private static final double XTOL = 1.0e-10;
+    /** Largest step. */
+    private static final double STEP_MAX = 1.0e20;
+    /** Lower extrapolation factor. */
+    private static final double XTRAPL = 1.1;
+    /** Upper extrapolation factor. */
+    private static final double XTRAPU = 4.0;
+    /** Sufficient decrease parameter. */
+    private final double c1;
+    /** Curvature parameter. */
+    private final double c2;
+    /** Maximal number of trial steps. */
+    private final int maxTrials;
+
+    /**
+     * Build a line search with default parameters.
+     */
+    public MoreThuenteLineSearch() {
+        this(DEFAULT_C1, DEFAULT_C2, DEFAULT_MAX_TRIALS);
+    }
+
+    /**
+     * @param c1 Sufficient decrease parameter.
+     * @param c2 Curvature parameter (typically 0.9 for quasi-Newton methods
+     * and 0.1 for non-linear conjugate gradient methods).
+     * @param maxTrials Maximal number of trial steps.
+     * @throws OutOfRangeException if {@code c1} or {@code c2} is not in the
+     * open interval (0, 1).
+     * @throws NumberIsTooLargeException if {@code c1 >= c2}.
+     * @throws NotStrictlyPositiveException if {@code maxTrials <= 0}.
+     */
+    public MoreThuenteLineSearch(final double c1, final double c2, final int maxTrials) {
+        if (c1 <= 0 || c1 >= 1) {
+            throw new OutOfRangeException(c1, 0, 1);
+        }
+        if (c2 <= 0 || c2 >= 1) {
+            throw new OutOfRangeException(c2, 0, 1);
+        }
+        if (c1 >= c2) {
+            throw new NumberIsTooLargeException(c1, c2, false);
+        }
+        if (maxTrials <= 0) {
+            throw new NotStrictlyPositiveException(maxTrials);
+        }
+        this.c1 = c1;
+        this.c2 = c2;
+        this.maxTrials = maxTrials;
+    }
+
+    /** {@inheritDoc} */
+    public double search(final LineFunction phi, final double initialStep) {
+        final double finit = phi.value(0);
+        final double ginit = phi.derivative(0);
+        if (ginit >= 0) {
+            // not a descent direction
+            return 0;
+        }
+        final double gtest = c1 * ginit;
+
+        final Interval interval = new Interval(finit, ginit);
+        boolean stage1 = true;
+        double width = STEP_MAX;
+        double width1 = 2 * width;
+        double stmin = 0;
+        double stmax = initialStep + XTRAPU * initialStep;
+        double stp = initialStep;
+
+        for (int trial = 0; trial < maxTrials; ++trial) {
+            final double f = phi.value(stp);
+            final double ftest = finit + stp * gtest;
+            final double g = phi.derivative(stp);
+
+            // convergence
+            if (f <= ftest && FastMath.abs(g) <= -c2 * ginit) {
+                return stp;
+            }
+            if (stp == STEP_MAX && f <= ftest && g <= gtest) {
+                return stp;
+            }
+
+            if (stage1 && f <= ftest && g >= FastMath.min(c1, c2) * ginit) {
+                stage1 = false;
+            }
+
+            if (stage1 && f <= interval.fx && f > ftest) {
+                // use the modified function, which has a minimum at the same point
+                interval.step(stp, f - stp * gtest, g - gtest, stmin, stmax, gtest);
+            } else {
+                interval.step(stp, f, g, stmin, stmax, 0);
+            }
+
+            // force a sufficient decrease of the interval width
+            if (interval.bracketed) {
+                if (FastMath.abs(interval.sty - interval.stx) >= 0.66 * width1) {
+                    interval.stp = interval.stx + 0.5 * (interval.sty - interval.stx);
+                }
+                width1 = width;
+                width = FastMath.abs(interval.sty - interval.stx);
+                stmin = FastMath.min(interval.stx, interval.sty);
+                stmax = FastMath.max(interval.stx, interval.sty);
+            } else {
+                stmin = interval.stp + XTRAPL * (interval.stp - interval.stx);
+                stmax = interval.stp + XTRAPU * (interval.stp - interval.stx);
+            }
+
+            stp = FastMath.min(FastMath.max(interval.stp, 0), STEP_MAX);
+            if (interval.bracketed &&
+                (stp <= stmin || stp >= stmax || stmax - stmin <= XTOL * stmax)) {
+                // rounding errors prevent further progress: use the best step
+                break;
+            }
+        }
+
+        return (interval.stx > 0 && phi.value(interval.stx) < finit) ? interval.stx : 0;
+    }
+
+    /**
+     * Interval of uncertainty, updated by the {@code dcstep} algorithm.
+     */
+    private static class Interval {
+        /** Best step. */
+        private double stx;
+        /** Value at the best step. */
+        private double fx;
+        /** Derivative at the best step. */
+        private double dx;
+        /** Other end of the interval. */
+        private double sty;
+        /** Value at the other end. */
+        private double fy;
+        /** Derivative at the other end. */
+        private double dy;
+        /** Next trial step. */
+        private double stp;
+        /** Indicator for a bracketed minimizer. */
+        private boolean bracketed;
+
+        /**
+         * @param f0 Value at step 0.
+         * @param g0 Derivative at step 0.
+         */
+        Interval(final double f0, final double g0) {
+            stx = 0;
+            fx  = f0;
+            dx  = g0;
+            sty = 0;
+            fy  = f0;
+            dy  = g0;
+            bracketed = false;
+        }
+
+        /**
+         * Update the interval and compute the next trial step.
+         * <p>
+         * The values and derivatives at the ends of the interval are those of
+         * the function minus {@code shift * alpha}, so that the same update can
+         * be applied to the function and to the modified function of the first
+         * stage of the search.
+         * </p>
+         *
+         * @param tp Current trial step.
+         * @param fp Shifted value at the trial step.
+         * @param dp Shifted derivative at the trial step.
+         * @param stpmin Lower bound for the next step.
+         * @param stpmax Upper bound for the next step.
+         * @param shift Slope subtracted from the function.
+         */
+        void step(final double tp, final double fp, final double dp,
+                  final double stpmin, final double stpmax, final double shift) {
+            // shift the interval ends
+            final double sfx = fx - stx * shift;
+            final double sdx = dx - shift;
+            final double sfy = fy - sty * shift;
+            final double sdy = dy - shift;
+
+            final double sgnd = dp * FastMath.signum(sdx);
+            final double stpf;
+            if (fp > sfx) {
+                // higher value: the minimum is bracketed
+                final double theta = 3 * (sfx - fp) / (tp - stx) + sdx + dp;
+                final double s = max(theta, sdx, dp);
+                double gamma = s * FastMath.sqrt((theta / s) * (theta / s) - (sdx / s) * (dp / s));
+                if (tp < stx) {
+                    gamma = -gamma;
+                }
+                final double p = (gamma - sdx) + theta;
+                final double q = ((gamma - sdx) + gamma) + dp;
+                final double stpc = stx + (p / q) * (tp - stx);
+                final double stpq = stx + ((sdx / ((sfx - fp) / (tp - stx) + sdx)) / 2) * (tp - stx);
+                if (FastMath.abs(stpc - stx) < FastMath.abs(stpq - stx)) {
+                    stpf = stpc;
+                } else {
+                    stpf = stpc + (stpq - stpc) / 2;
+                }
+                bracketed = true;
+            } else if (sgnd < 0) {
+                // derivatives of opposite signs: the minimum is bracketed
+                final double theta = 3 * (sfx - fp) / (tp - stx) + sdx + dp;
+                final double s = max(theta, sdx, dp);
+                double gamma = s * FastMath.sqrt((theta / s) * (theta / s) - (sdx / s) * (dp / s));
+                if (tp > stx) {
+                    gamma = -gamma;
+                }
+                final double p = (gamma - dp) + theta;
+                final double q = ((gamma - dp) + gamma) + sdx;
+                final double stpc = tp + (p / q) * (stx - tp);
+                final double stpq = tp + (dp / (dp - sdx)) * (stx - tp);
+                stpf = (FastMath.abs(stpc - tp) > FastMath.abs(stpq - tp)) ? stpc : stpq;
+                bracketed = true;
+            } else if (FastMath.abs(dp) < FastMath.abs(sdx)) {
+                // lower value, same sign of derivatives, decreasing magnitude
+                final double theta = 3 * (sfx - fp) / (tp - stx) + sdx + dp;
+                final double s = max(theta, sdx, dp);
+                double gamma = s * FastMath.sqrt(FastMath.max(0, (theta / s) * (theta / s) - (sdx / s) * (dp / s)));
+                if (tp > stx) {
+                    gamma = -gamma;
+                }
+                final double p = (gamma - dp) + theta;
+                final double q = (gamma + (sdx - dp)) + gamma;
+                final double r = p / q;
+                final double stpc;
+                if (r < 0 && gamma != 0) {
+                    stpc = tp + r * (stx - tp);
+                } else if (tp > stx) {
+                    stpc = stpmax;
+                } else {
+                    stpc = stpmin;
+                }
+                final double stpq = tp + (dp / (dp - sdx)) * (stx - tp);
+                if (bracketed) {
+                    final double candidate =
+                        (FastMath.abs(stpc - tp) < FastMath.abs(stpq - tp)) ? stpc : stpq;
+                    if (tp > stx) {
+                        stpf = FastMath.min(tp + 0.66 * (sty - tp), candidate);
+                    } else {
+                        stpf = FastMath.max(tp + 0.66 * (sty - tp), candidate);
+                    }
+                } else {
+                    final double candidate =
+                        (FastMath.abs(stpc - tp) > FastMath.abs(stpq - tp)) ? stpc : stpq;
+                    stpf = FastMath.max(stpmin, FastMath.min(stpmax, candidate));
+                }
+            } else {
+                // lower value, same sign of derivatives, no decrease in magnitude
+                if (bracketed) {
+                    final double theta = 3 * (fp - sfy) / (sty - tp) + sdy + dp;
+                    final double s = max(theta, sdy, dp);
+                    double gamma = s * FastMath.sqrt((theta / s) * (theta / s) - (sdy / s) * (dp / s));
+                    if (tp > sty) {
+                        gamma = -gamma;
+                    }
+                    final double p = (gamma - dp) + theta;
+                    final double q = ((gamma - dp) + gamma) + sdy;
+                    stpf = tp + (p / q) * (sty - tp);
+                } else {
+                    stpf = (tp > stx) ? stpmax : stpmin;
+                }
+            }
+
+            // update the interval, removing the shift
+            if (fp > sfx) {
+                sty = tp;
+                fy  = fp + tp * shift;
+                dy  = dp + shift;
+            } else {
+                if (sgnd < 0) {
+                    sty = stx;
+                    fy  = fx;
+                    dy  = dx;
+                }
+                stx = tp;
+                fx  = fp + tp * shift;
+                dx  = dp + shift;
+            }
+            stp = stpf;
+        }
+
+        /**
+         * @param a First value.
+         * @param b Second value.
+         * @param c Third value.
+         * @return the largest absolute value.
+         */
+        private static double max(final double a, final double b, final double c) {
+            return FastMath.max(FastMath.abs(a), FastMath.max(FastMath.abs(b), FastMath.abs(c)));
+        }
+    }
+}
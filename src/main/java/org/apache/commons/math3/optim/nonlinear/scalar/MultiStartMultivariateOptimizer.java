@@ -20,10 +20,12 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.random.RandomVectorGenerator;
 import org.apache.commons.math3.optim.BaseMultiStartMultivariateOptimizer;
+import org.apache.commons.math3.optim.OptimizerFactory;
 import org.apache.commons.math3.optim.PointValuePair;
 
 /**
@@ -64,6 +66,35 @@ public class MultiStartMultivariateOptimizer
         this.optimizer = optimizer;
     }
 
+    /**
+     * Create a parallel multi-start optimizer.
+     * The starts are run concurrently by the {@code executor}, each one
+     * on its own optimizer instance, and the evaluation budget is evenly
+     * split between them (see
+     * {@link BaseMultiStartMultivariateOptimizer#BaseMultiStartMultivariateOptimizer(OptimizerFactory,ExecutorService,int,RandomVectorGenerator)
+     * BaseMultiStartMultivariateOptimizer}).
+     *
+     * @param factory Factory for the single-start optimizers.
+     * @param executor Executor that will run the starts.
+     * @param starts Number of starts to perform.
+     * If {@code starts == 1}, the result will be same as if an optimizer
+     * created by the {@code factory} is called directly.
+     * @param generator Random vector generator to use for restarts.
+     * @throws NullArgumentException if {@code factory} or {@code executor}
+     * is {@code null}.
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     * @since 3.3
+     */
+    public MultiStartMultivariateOptimizer(final OptimizerFactory<? extends MultivariateOptimizer> factory,
+                                           final ExecutorService executor,
+                                           final int starts,
+                                           final RandomVectorGenerator generator)
+        throws NullArgumentException,
+        NotStrictlyPositiveException {
+        super(factory, executor, starts, generator);
+        this.optimizer = (MultivariateOptimizer) getOptimizer();
+    }
+
     /**
      * {@inheritDoc}
      */
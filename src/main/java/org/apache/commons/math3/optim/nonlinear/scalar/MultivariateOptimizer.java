@@ -21,6 +21,7 @@ import org.apache.commons.math3.optim.BaseMultivariateOptimizer;
 import org.apache.commons.math3.optim.OptimizationData;
 import org.apache.commons.math3.optim.ConvergenceChecker;
 import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.TooManyEvaluationsException;
 
 /**
@@ -33,6 +34,8 @@ public abstract class MultivariateOptimizer
     extends BaseMultivariateOptimizer<PointValuePair> {
     /** Objective function. */
     private MultivariateFunction function;
+    /** Batch objective function. */
+    private BatchObjectiveFunction batchFunction;
     /** Type of optimization. */
     private GoalType goal;
 
@@ -51,6 +54,7 @@ public abstract class MultivariateOptimizer
      * BaseMultivariateOptimizer}, this method will register the following data:
      * <ul>
      *  <li>{@link ObjectiveFunction}</li>
+     *  <li>{@link BatchObjectiveFunction}</li>
      *  <li>{@link GoalType}</li>
      * </ul>
      * @return {@inheritDoc}
@@ -72,8 +76,13 @@ public abstract class MultivariateOptimizer
      * The following data will be looked for:
      * <ul>
      *  <li>{@link ObjectiveFunction}</li>
+     *  <li>{@link BatchObjectiveFunction}</li>
      *  <li>{@link GoalType}</li>
      * </ul>
+     * An {@link ObjectiveFunction} and a {@link BatchObjectiveFunction}
+     * replace each other: only the last one provided is used. If both are
+     * provided in the same call, the {@link BatchObjectiveFunction} is used
+     * for all the evaluations and the {@link ObjectiveFunction} is ignored.
      */
     @Override
     protected void parseOptimizationData(OptimizationData... optData) {
@@ -82,15 +91,29 @@ public abstract class MultivariateOptimizer
 
         // The existing values (as set by the previous call) are reused if
         // not provided in the argument list.
+        ObjectiveFunction newFunction = null;
+        BatchObjectiveFunction newBatchFunction = null;
         for (OptimizationData data : optData) {
             if (data instanceof GoalType) {
                 goal = (GoalType) data;
                 continue;
             }
             if (data instanceof ObjectiveFunction) {
-                function = ((ObjectiveFunction) data).getObjectiveFunction();
+                newFunction = (ObjectiveFunction) data;
                 continue;
             }
+            if (data instanceof BatchObjectiveFunction) {
+                newBatchFunction = (BatchObjectiveFunction) data;
+                continue;
+            }
+        }
+
+        if (newBatchFunction != null) {
+            batchFunction = newBatchFunction;
+            function = null;
+        } else if (newFunction != null) {
+            function = newFunction.getObjectiveFunction();
+            batchFunction = null;
         }
     }
 
@@ -113,6 +136,58 @@ public abstract class MultivariateOptimizer
      */
     protected double computeObjectiveValue(double[] params) {
         super.incrementEvaluationCount();
-        return function.value(params);
+        return batchFunction == null ?
+            function.value(params) :
+            batchFunction.value(params);
+    }
+
+    /**
+     * Checks whether a {@link BatchObjectiveFunction} was provided.
+     * Subclasses can use it to decide whether it is worth gathering
+     * points so as to evaluate them with a single call to
+     * {@link #computeObjectiveValues(double[][])}.
+     *
+     * @return {@code true} if the objective function can be evaluated in
+     * batches.
+     * @since 3.3
+     */
+    protected boolean hasBatchObjectiveFunction() {
+        return batchFunction != null;
+    }
+
+    /**
+     * Computes the objective function values at several points.
+     * The points are evaluated with a single call to the
+     * {@link BatchObjectiveFunction} if one was provided, and in turn
+     * otherwise.
+     * This method <em>must</em> be called by subclasses to enforce the
+     * evaluation counter limit: the counter is incremented once per point,
+     * before any evaluation is performed.
+     *
+     * @param params Points at which the objective function must be evaluated.
+     * @return the objective function values at the specified points.
+     * @throws TooManyEvaluationsException if the maximal number of
+     * evaluations would be exceeded.
+     * @throws DimensionMismatchException if the batch function does not
+     * return one value per point.
+     * @since 3.3
+     */
+    protected double[] computeObjectiveValues(double[][] params) {
+        if (batchFunction == null) {
+            final double[] values = new double[params.length];
+            for (int i = 0; i < params.length; i++) {
+                values[i] = computeObjectiveValue(params[i]);
+            }
+            return values;
+        }
+
+        for (int i = 0; i < params.length; i++) {
+            super.incrementEvaluationCount();
+        }
+        final double[] values = batchFunction.value(params);
+        if (values.length != params.length) {
+            throw new DimensionMismatchException(values.length, params.length);
+        }
+        return values;
     }
 }
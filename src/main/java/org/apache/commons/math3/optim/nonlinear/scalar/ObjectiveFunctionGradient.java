@@ -17,6 +17,12 @@
 package org.apache.commons.math3.optim.nonlinear.scalar;
 
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.analysis.differentiation.GradientFunction;
+import org.apache.commons.math3.analysis.differentiation.MultivariateDifferentiableFunction;
+import org.apache.commons.math3.analysis.differentiation.MultivariateGradientFunction;
+import org.apache.commons.math3.analysis.differentiation.MultivariateTapeFunction;
+import org.apache.commons.math3.analysis.differentiation.PooledGradientFunction;
+import org.apache.commons.math3.analysis.differentiation.TapeGradientFunction;
 import org.apache.commons.math3.optim.OptimizationData;
 
 /**
@@ -36,6 +42,51 @@ public class ObjectiveFunctionGradient implements OptimizationData {
         gradient = g;
     }
 
+    /**
+     * Build the gradient by automatic differentiation of a function.
+     *
+     * @param f Function to be optimized, whose first order derivatives are
+     * computed with {@link org.apache.commons.math3.analysis.differentiation.DenseGradient
+     * DenseGradient} instances.
+     * @see PooledGradientFunction
+     * @since 3.3
+     */
+    public ObjectiveFunctionGradient(MultivariateGradientFunction f) {
+        this(new PooledGradientFunction(f));
+    }
+
+    /**
+     * Build the gradient by reverse mode automatic differentiation of a function.
+     * <p>
+     * All the derivatives are computed by a single backward sweep, which is
+     * the most efficient way to differentiate functions of many parameters.
+     * </p>
+     *
+     * @param f Function to be optimized.
+     * @see TapeGradientFunction
+     * @since 3.3
+     */
+    public ObjectiveFunctionGradient(MultivariateTapeFunction f) {
+        this(new TapeGradientFunction(f));
+    }
+
+    /**
+     * Build the gradient by automatic differentiation of a function.
+     * <p>
+     * The derivatives are computed with first order {@link
+     * org.apache.commons.math3.analysis.differentiation.DerivativeStructure
+     * DerivativeStructure} instances. Functions that are evaluated many times
+     * with many parameters should rather implement {@link MultivariateGradientFunction}.
+     * </p>
+     *
+     * @param f Function to be optimized.
+     * @see GradientFunction
+     * @since 3.3
+     */
+    public ObjectiveFunctionGradient(MultivariateDifferentiableFunction f) {
+        this(new GradientFunction(f));
+    }
+
     /**
      * Gets the gradient of the function to be optimized.
      *
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.util.ConcurrentUtils;
+
+/**
+ * Batch objective function that evaluates a plain scalar function
+ * at several points concurrently.
+ * <br/>
+ * Each point of a batch is evaluated by a separate task submitted to
+ * the executor; the {@link MultivariateFunction function} must therefore
+ * be thread-safe.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class ParallelObjectiveFunction extends BatchObjectiveFunction {
+    /** Function to be optimized. */
+    private final MultivariateFunction function;
+    /** Executor that evaluates the points. */
+    private final ExecutorService executor;
+
+    /**
+     * @param f Function to be optimized.
+     * @param executor Executor that will evaluate the points.
+     * @throws NullArgumentException if any argument is {@code null}.
+     */
+    public ParallelObjectiveFunction(MultivariateFunction f,
+                                     ExecutorService executor) {
+        if (f == null || executor == null) {
+            throw new NullArgumentException();
+        }
+        this.function = f;
+        this.executor = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws MathIllegalStateException if the thread is interrupted while
+     * waiting for the evaluations to complete.
+     */
+    @Override
+    public double[] value(double[][] points) {
+        final List<Callable<Double>> tasks = new ArrayList<Callable<Double>>(points.length);
+        for (final double[] point : points) {
+            tasks.add(new Callable<Double>() {
+                    public Double call() {
+                        return function.value(point);
+                    }
+                });
+        }
+
+        final List<Double> results = ConcurrentUtils.invokeAll(executor, tasks);
+        final double[] values = new double[points.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = results.get(i);
+        }
+        return values;
+    }
+
+    /**
+     * Computes the function value at a single point, in the calling thread.
+     *
+     * @param point Point at which the function must be evaluated.
+     * @return the function value.
+     */
+    @Override
+    public double value(double[] point) {
+        return function.value(point);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar.gradient;
+
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * Limited memory BFGS approximation of the inverse of a Hessian matrix.
+ * <p>
+ * The approximation is never formed: only the last {@code m} pairs of
+ * steps {@code s} and gradient changes {@code y} are stored, in {@code O(mn)}
+ * memory, and the product of the approximation with a gradient is computed
+ * by the two-loop recursion.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class InverseHessianApproximation {
+    /** Maximal number of stored pairs. */
+    private final int memory;
+    /** Stored steps (circular buffer). */
+    private final double[][] s;
+    /** Stored gradient changes (circular buffer). */
+    private final double[][] y;
+    /** Coefficients used by the recursion. */
+    private final double[] alpha;
+    /** Number of stored pairs. */
+    private int size;
+    /** Index of the most recent pair. */
+    private int newest;
+
+    /**
+     * @param memory Maximal number of stored pairs.
+     * @param n Dimension of the problem.
+     */
+    InverseHessianApproximation(final int memory, final int n) {
+        this.memory = memory;
+        s = new double[memory][n];
+        y = new double[memory][n];
+        alpha = new double[memory];
+        reset();
+    }
+
+    /**
+     * Forget all the stored pairs.
+     */
+    void reset() {
+        size = 0;
+        newest = -1;
+    }
+
+    /**
+     * @return {@code true} if no pair is stored.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Store a new pair, replacing the oldest one if the memory is full.
+     * The pair is ignored if it does not satisfy the curvature condition.
+     *
+     * @param step Step between two successive points.
+     * @param change Change of the gradient between the two points.
+     * @return {@code true} if the pair was stored.
+     */
+    boolean update(final double[] step, final double[] change) {
+        if (dot(step, change, null) <= Precision.EPSILON * dot(change, change, null)) {
+            return false;
+        }
+        newest = (newest + 1) % memory;
+        System.arraycopy(step, 0, s[newest], 0, step.length);
+        System.arraycopy(change, 0, y[newest], 0, change.length);
+        if (size < memory) {
+            ++size;
+        }
+        return true;
+    }
+
+    /**
+     * Compute a quasi-Newton search direction.
+     * <p>
+     * When some components are fixed, the recursion is restricted to the
+     * subspace of the free components, and pairs that do not satisfy the
+     * curvature condition in this subspace are skipped.
+     * </p>
+     *
+     * @param gradient Gradient at the current point.
+     * @param fixed Components which are fixed (may be {@code null} if
+     * all the components are free).
+     * @return the opposite of the product of the approximation with the
+     * gradient, whose fixed components are 0.
+     */
+    double[] direction(final double[] gradient, final boolean[] fixed) {
+        final double[] q = gradient.clone();
+        mask(q, fixed);
+
+        // from the newest pair to the oldest one
+        double gamma = 1;
+        boolean scaled = false;
+        for (int k = 0; k < size; ++k) {
+            final int i = (newest - k + memory) % memory;
+            final double sy = dot(s[i], y[i], fixed);
+            final double yy = dot(y[i], y[i], fixed);
+            if (sy <= Precision.EPSILON * yy) {
+                alpha[i] = Double.NaN;
+                continue;
+            }
+            if (!scaled) {
+                gamma = sy / yy;
+                scaled = true;
+            }
+            alpha[i] = dot(s[i], q, fixed) / sy;
+            axpy(-alpha[i], y[i], q, fixed);
+        }
+
+        for (int j = 0; j < q.length; ++j) {
+            q[j] *= gamma;
+        }
+
+        // from the oldest pair to the newest one
+        for (int k = size - 1; k >= 0; --k) {
+            final int i = (newest - k + memory) % memory;
+            if (Double.isNaN(alpha[i])) {
+                continue;
+            }
+            final double beta = dot(y[i], q, fixed) / dot(s[i], y[i], fixed);
+            axpy(alpha[i] - beta, s[i], q, fixed);
+        }
+
+        for (int j = 0; j < q.length; ++j) {
+            q[j] = -q[j];
+        }
+        return q;
+    }
+
+    /**
+     * @param a First vector.
+     * @param b Second vector.
+     * @param fixed Components to ignore (may be {@code null}).
+     * @return the dot product of the free components.
+     */
+    static double dot(final double[] a, final double[] b, final boolean[] fixed) {
+        double sum = 0;
+        for (int j = 0; j < a.length; ++j) {
+            if (fixed == null || !fixed[j]) {
+                sum += a[j] * b[j];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Add a multiple of a vector to another one, on the free components.
+     *
+     * @param factor Factor to apply to {@code x}.
+     * @param x Vector to add.
+     * @param target Vector to update.
+     * @param fixed Components to ignore (may be {@code null}).
+     */
+    private static void axpy(final double factor, final double[] x,
+                             final double[] target, final boolean[] fixed) {
+        for (int j = 0; j < x.length; ++j) {
+            if (fixed == null || !fixed[j]) {
+                target[j] += factor * x[j];
+            }
+        }
+    }
+
+    /**
+     * Set the fixed components to 0.
+     *
+     * @param v Vector to update.
+     * @param fixed Components to set to 0 (may be {@code null}).
+     */
+    private static void mask(final double[] v, final boolean[] fixed) {
+        if (fixed != null) {
+            for (int j = 0; j < v.length; ++j) {
+                if (fixed[j]) {
+                    v[j] = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar.gradient;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.optim.ConvergenceChecker;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.GradientMultivariateOptimizer;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Limited memory BFGS optimizer with simple bounds.
+ * <br/>
+ * This optimizer honours the {@link SimpleBounds} passed to the
+ * {@link #optimize(OptimizationData[]) optimize} method (missing bounds
+ * are infinite). At each iteration, the parameters that lie on a bound
+ * with the gradient pointing outside of the feasible box are fixed, the
+ * search direction is computed by the L-BFGS two-loop recursion restricted
+ * to the free parameters, and the step is found by a backtracking search
+ * along the projection of the direction on the box. All the points at
+ * which the objective function is evaluated are feasible.
+ * <br/>
+ * This is a projected variant of the L-BFGS-B algorithm of Byrd, Lu,
+ * Nocedal and Zhu: it uses the same active set and limited memory update,
+ * but no generalized Cauchy point.
+ *
+ * @see LBFGSOptimizer
+ * @version $Id$
+ * @since 3.3
+ */
+public class LBFGSBOptimizer
+    extends GradientMultivariateOptimizer {
+    /** Sufficient decrease parameter of the line search. */
+    private static final double C1 = 1.0e-4;
+    /** Maximal number of trial points in the line search. */
+    private static final int MAX_TRIALS = 40;
+    /** Number of stored corrections. */
+    private final int memory;
+
+    /**
+     * Constructor with {@link LBFGSOptimizer#DEFAULT_MEMORY default memory}.
+     *
+     * @param checker Convergence checker.
+     */
+    public LBFGSBOptimizer(ConvergenceChecker<PointValuePair> checker) {
+        this(checker, LBFGSOptimizer.DEFAULT_MEMORY);
+    }
+
+    /**
+     * @param checker Convergence checker.
+     * @param memory Number of corrections used to approximate the inverse
+     * Hessian (typically between 3 and 20).
+     * @throws NotStrictlyPositiveException if {@code memory <= 0}.
+     */
+    public LBFGSBOptimizer(ConvergenceChecker<PointValuePair> checker,
+                           final int memory) {
+        super(checker);
+        if (memory <= 0) {
+            throw new NotStrictlyPositiveException(memory);
+        }
+        this.memory = memory;
+    }
+
+    /**
+     * @return the number of corrections used to approximate the inverse Hessian.
+     */
+    public int getMemory() {
+        return memory;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data. The data documented in
+     * {@link GradientMultivariateOptimizer#parseOptimizationData(OptimizationData[])
+     * GradientMultivariateOptimizer} are registered, including {@link SimpleBounds}.
+     * @return {@inheritDoc}
+     * @throws TooManyEvaluationsException if the maximal number of
+     * evaluations (of the objective function) is exceeded.
+     */
+    @Override
+    public PointValuePair optimize(OptimizationData... optData)
+        throws TooManyEvaluationsException {
+        // Set up base class and perform computation.
+        return super.optimize(optData);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected PointValuePair doOptimize() {
+        final ConvergenceChecker<PointValuePair> checker = getConvergenceChecker();
+        final double sign = getGoalType() == GoalType.MINIMIZE ? 1 : -1;
+        final double[] start = getStartPoint();
+        final int n = start.length;
+        final double[] lower = bound(getLowerBound(), n, Double.NEGATIVE_INFINITY);
+        final double[] upper = bound(getUpperBound(), n, Double.POSITIVE_INFINITY);
+
+        double[] point = project(start, lower, upper);
+        double value = sign * computeObjectiveValue(point);
+        double[] gradient =
+            LBFGSOptimizer.minimizationGradient(sign, computeObjectiveGradient(point));
+        final InverseHessianApproximation hessian = new InverseHessianApproximation(memory, n);
+        final boolean[] fixed = new boolean[n];
+
+        PointValuePair current = new PointValuePair(point, sign * value);
+        while (true) {
+            incrementIterationCount();
+
+            // fix the parameters that would leave the box
+            boolean stationary = true;
+            for (int i = 0; i < n; ++i) {
+                fixed[i] = (point[i] <= lower[i] && gradient[i] > 0) ||
+                           (point[i] >= upper[i] && gradient[i] < 0);
+                stationary &= fixed[i] || gradient[i] == 0;
+            }
+            if (stationary) {
+                // the projected gradient is null
+                return current;
+            }
+
+            double[] direction = hessian.direction(gradient, fixed);
+            double slope = InverseHessianApproximation.dot(direction, gradient, null);
+            if (slope >= 0) {
+                // the approximation is not reliable anymore, use steepest descent
+                hessian.reset();
+                direction = hessian.direction(gradient, fixed);
+                slope = InverseHessianApproximation.dot(direction, gradient, null);
+            }
+
+            // backtracking along the projected direction
+            double step = hessian.isEmpty() ?
+                          FastMath.min(1, 1 / LBFGSOptimizer.norm(direction)) : 1;
+            double[] trial = null;
+            double trialValue = Double.NaN;
+            for (int k = 0; k < MAX_TRIALS; ++k) {
+                final double[] candidate = new double[n];
+                double decrease = 0;
+                boolean moved = false;
+                for (int i = 0; i < n; ++i) {
+                    candidate[i] = FastMath.max(lower[i],
+                                                FastMath.min(upper[i], point[i] + step * direction[i]));
+                    decrease += gradient[i] * (candidate[i] - point[i]);
+                    moved |= candidate[i] != point[i];
+                }
+                if (!moved) {
+                    break;
+                }
+                final double candidateValue = sign * computeObjectiveValue(candidate);
+                if (candidateValue <= value + C1 * decrease) {
+                    trial = candidate;
+                    trialValue = candidateValue;
+                    break;
+                }
+
+                // safeguarded quadratic interpolation
+                final double q = 0.5 * slope * step * step /
+                                 (candidateValue - value - slope * step);
+                step = (q > 0.1 * step && q < 0.5 * step) ? q : 0.5 * step;
+            }
+
+            if (trial == null) {
+                if (hessian.isEmpty()) {
+                    // no decrease along steepest descent: we cannot do better
+                    return current;
+                }
+                hessian.reset();
+                continue;
+            }
+
+            final double[] trialGradient =
+                LBFGSOptimizer.minimizationGradient(sign, computeObjectiveGradient(trial));
+            final double[] s = new double[n];
+            final double[] y = new double[n];
+            for (int i = 0; i < n; ++i) {
+                s[i] = trial[i] - point[i];
+                y[i] = trialGradient[i] - gradient[i];
+            }
+            hessian.update(s, y);
+
+            point    = trial;
+            value    = trialValue;
+            gradient = trialGradient;
+
+            final PointValuePair previous = current;
+            current = new PointValuePair(point, sign * value);
+            if (checker != null && checker.converged(getIterations(), previous, current)) {
+                // We have found an optimum.
+                return current;
+            }
+        }
+    }
+
+    /**
+     * @param bound Bound (may be {@code null}).
+     * @param n Dimension.
+     * @param infinity Value to use for missing bounds.
+     * @return the bound, or an array filled with {@code infinity}.
+     */
+    private static double[] bound(final double[] bound, final int n, final double infinity) {
+        if (bound != null) {
+            return bound;
+        }
+        final double[] infinite = new double[n];
+        for (int i = 0; i < n; ++i) {
+            infinite[i] = infinity;
+        }
+        return infinite;
+    }
+
+    /**
+     * @param point Point.
+     * @param lower Lower bound.
+     * @param upper Upper bound.
+     * @return the projection of {@code point} on the box.
+     */
+    private static double[] project(final double[] point,
+                                    final double[] lower, final double[] upper) {
+        final double[] projected = new double[point.length];
+        for (int i = 0; i < point.length; ++i) {
+            projected[i] = FastMath.max(lower[i], FastMath.min(upper[i], point[i]));
+        }
+        return projected;
+    }
+}
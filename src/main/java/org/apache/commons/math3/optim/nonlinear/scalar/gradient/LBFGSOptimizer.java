@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar.gradient;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.optim.ConvergenceChecker;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.GradientMultivariateOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.LineFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.LineSearch;
+import org.apache.commons.math3.optim.nonlinear.scalar.MoreThuenteLineSearch;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Limited memory BFGS optimizer.
+ * <br/>
+ * The search directions are computed from the last {@code m} steps and
+ * gradient changes by the L-BFGS two-loop recursion, so that the memory
+ * used is {@code O(mn)} for {@code n} parameters. By default, each step
+ * is selected by a {@link MoreThuenteLineSearch Moré-Thuente line search}
+ * and satisfies the strong Wolfe conditions, which ensures the approximation
+ * of the inverse Hessian stays positive definite.
+ * <br/>
+ * Constraints are not supported: the call to
+ * {@link #optimize(OptimizationData[]) optimize} will throw
+ * {@link MathUnsupportedOperationException} if bounds are passed to it.
+ * {@link LBFGSBOptimizer} supports simple bounds.
+ *
+ * @see LBFGSBOptimizer
+ * @version $Id$
+ * @since 3.3
+ */
+public class LBFGSOptimizer
+    extends GradientMultivariateOptimizer {
+    /** Default number of stored corrections. */
+    public static final int DEFAULT_MEMORY = 10;
+    /** Number of stored corrections. */
+    private final int memory;
+    /** Line search. */
+    private final LineSearch lineSearch;
+
+    /**
+     * Constructor with {@link #DEFAULT_MEMORY default memory}.
+     *
+     * @param checker Convergence checker.
+     */
+    public LBFGSOptimizer(ConvergenceChecker<PointValuePair> checker) {
+        this(checker, DEFAULT_MEMORY);
+    }
+
+    /**
+     * @param checker Convergence checker.
+     * @param memory Number of corrections used to approximate the inverse
+     * Hessian (typically between 3 and 20).
+     * @throws NotStrictlyPositiveException if {@code memory <= 0}.
+     */
+    public LBFGSOptimizer(ConvergenceChecker<PointValuePair> checker,
+                          final int memory) {
+        this(checker, memory, new MoreThuenteLineSearch());
+    }
+
+    /**
+     * @param checker Convergence checker.
+     * @param memory Number of corrections used to approximate the inverse
+     * Hessian (typically between 3 and 20).
+     * @param lineSearch Line search. It should select steps satisfying
+     * the Wolfe conditions, otherwise some corrections will be discarded.
+     * @throws NotStrictlyPositiveException if {@code memory <= 0}.
+     * @throws org.apache.commons.math3.exception.NullArgumentException
+     * if {@code lineSearch} is {@code null}.
+     */
+    public LBFGSOptimizer(ConvergenceChecker<PointValuePair> checker,
+                          final int memory,
+                          final LineSearch lineSearch) {
+        super(checker);
+        if (memory <= 0) {
+            throw new NotStrictlyPositiveException(memory);
+        }
+        MathUtils.checkNotNull(lineSearch);
+        this.memory = memory;
+        this.lineSearch = lineSearch;
+    }
+
+    /**
+     * @return the number of corrections used to approximate the inverse Hessian.
+     */
+    public int getMemory() {
+        return memory;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data. The data documented in
+     * {@link GradientMultivariateOptimizer#parseOptimizationData(OptimizationData[])
+     * GradientMultivariateOptimizer} are registered.
+     * @return {@inheritDoc}
+     * @throws TooManyEvaluationsException if the maximal number of
+     * evaluations (of the objective function) is exceeded.
+     */
+    @Override
+    public PointValuePair optimize(OptimizationData... optData)
+        throws TooManyEvaluationsException {
+        // Set up base class and perform computation.
+        return super.optimize(optData);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected PointValuePair doOptimize() {
+        final ConvergenceChecker<PointValuePair> checker = getConvergenceChecker();
+        final double sign = getGoalType() == GoalType.MINIMIZE ? 1 : -1;
+        final MultivariateFunction objective = new MultivariateFunction() {
+            /** {@inheritDoc} */
+            public double value(double[] point) {
+                return sign * computeObjectiveValue(point);
+            }
+        };
+        final MultivariateVectorFunction objectiveGradient = new MultivariateVectorFunction() {
+            /** {@inheritDoc} */
+            public double[] value(double[] point) {
+                return minimizationGradient(sign, computeObjectiveGradient(point));
+            }
+        };
+
+        double[] point = getStartPoint();
+        double value = objective.value(point);
+        double[] gradient = objectiveGradient.value(point);
+        final InverseHessianApproximation hessian =
+            new InverseHessianApproximation(memory, point.length);
+
+        PointValuePair current = new PointValuePair(point, sign * value);
+        while (true) {
+            incrementIterationCount();
+
+            double[] direction = hessian.direction(gradient, null);
+            if (InverseHessianApproximation.dot(direction, gradient, null) >= 0) {
+                // the approximation is not reliable anymore, use steepest descent
+                hessian.reset();
+                direction = steepestDescent(gradient);
+            }
+            final double norm = norm(direction);
+            if (norm == 0) {
+                // the gradient is null
+                return current;
+            }
+
+            // without curvature information, the scale of the step is unknown
+            final double initial = hessian.isEmpty() ? FastMath.min(1, 1 / norm) : 1;
+            final LineFunction line =
+                new LineFunction(objective, objectiveGradient, point, value, gradient, direction);
+            final double alpha = lineSearch.search(line, initial);
+            if (alpha <= 0) {
+                if (hessian.isEmpty()) {
+                    // no decrease along steepest descent: we cannot do better
+                    return current;
+                }
+                hessian.reset();
+                continue;
+            }
+
+            // the line function has cached the value and gradient at the selected step
+            final double[] next = line.getPoint(alpha);
+            final double[] nextGradient = line.getGradient(alpha);
+            final double[] s = new double[point.length];
+            final double[] y = new double[point.length];
+            for (int i = 0; i < point.length; ++i) {
+                s[i] = next[i] - point[i];
+                y[i] = nextGradient[i] - gradient[i];
+            }
+            hessian.update(s, y);
+
+            point    = next;
+            value    = line.value(alpha);
+            gradient = nextGradient;
+
+            final PointValuePair previous = current;
+            current = new PointValuePair(point, sign * value);
+            if (checker != null && checker.converged(getIterations(), previous, current)) {
+                // We have found an optimum.
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Scans the list of (required and optional) optimization data that
+     * characterize the problem.
+     *
+     * @param optData Optimization data. The data documented in
+     * {@link GradientMultivariateOptimizer#parseOptimizationData(OptimizationData[])
+     * GradientMultivariateOptimizer} are registered.
+     */
+    @Override
+    protected void parseOptimizationData(OptimizationData... optData) {
+        // Allow base class to register its own data.
+        super.parseOptimizationData(optData);
+
+        checkParameters();
+    }
+
+    /**
+     * Convert a gradient of the objective function into a gradient of the
+     * function to minimize.
+     *
+     * @param sign Sign of the objective function in the function to minimize.
+     * @param gradient Gradient of the objective function (changed in-place).
+     * @return the gradient of {@code sign} times the objective function.
+     */
+    static double[] minimizationGradient(final double sign, final double[] gradient) {
+        if (sign < 0) {
+            for (int i = 0; i < gradient.length; ++i) {
+                gradient[i] = -gradient[i];
+            }
+        }
+        return gradient;
+    }
+
+    /**
+     * @param gradient Gradient.
+     * @return the opposite of the gradient.
+     */
+    static double[] steepestDescent(final double[] gradient) {
+        final double[] direction = new double[gradient.length];
+        for (int i = 0; i < gradient.length; ++i) {
+            direction[i] = -gradient[i];
+        }
+        return direction;
+    }
+
+    /**
+     * @param v Vector.
+     * @return the Euclidean norm of {@code v}.
+     */
+    static double norm(final double[] v) {
+        return FastMath.sqrt(InverseHessianApproximation.dot(v, v, null));
+    }
+
+    /**
+     * @throws MathUnsupportedOperationException if bounds were passed to the
+     * {@link #optimize(OptimizationData[]) optimize} method.
+     */
+    private void checkParameters() {
+        if (getLowerBound() != null ||
+            getUpperBound() != null) {
+            throw new MathUnsupportedOperationException(LocalizedFormats.CONSTRAINT);
+        }
+    }
+}
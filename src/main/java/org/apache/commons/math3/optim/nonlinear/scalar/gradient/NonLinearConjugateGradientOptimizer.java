@@ -17,6 +17,8 @@
 
 package org.apache.commons.math3.optim.nonlinear.scalar.gradient;
 
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
 import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.analysis.solvers.BrentSolver;
 import org.apache.commons.math3.analysis.solvers.UnivariateSolver;
@@ -30,7 +32,10 @@ import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.ConvergenceChecker;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.nonlinear.scalar.GradientMultivariateOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.LineFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.LineSearch;
 import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathUtils;
 
 /**
  * Non-linear conjugate gradient optimizer.
@@ -39,6 +44,12 @@ import org.apache.commons.math3.util.FastMath;
  * update formulas for the conjugate search directions.
  * It also supports optional preconditioning.
  * <br/>
+ * By default, the step along each search direction is the root of the
+ * directional derivative, found by a {@link UnivariateSolver solver}.
+ * Alternatively, an inexact {@link LineSearch line search} can be used;
+ * it evaluates the function and its gradient at far fewer points per
+ * iteration.
+ * <br/>
  * Constraints are not supported: the call to
  * {@link #optimize(OptimizationData[]) optimize} will throw
  * {@link MathUnsupportedOperationException} if bounds are passed to it.
@@ -54,6 +65,8 @@ public class NonLinearConjugateGradientOptimizer
     private final Preconditioner preconditioner;
     /** solver to use in the line search (may be null). */
     private final UnivariateSolver solver;
+    /** Inexact line search (may be null). */
+    private final LineSearch lineSearch;
     /** Initial step used to bracket the optimum in line search. */
     private double initialStep = 1;
 
@@ -163,6 +176,41 @@ public class NonLinearConjugateGradientOptimizer
 
         this.updateFormula = updateFormula;
         solver = lineSearchSolver;
+        lineSearch = null;
+        this.preconditioner = preconditioner;
+        initialStep = 1;
+    }
+
+    /**
+     * Constructor with an inexact line search.
+     * <br/>
+     * The {@link BracketingStep bracketing step} is then the first trial step
+     * of the first line search; the first trial steps of the following ones
+     * are scaled so that the first-order change of the function is the same
+     * as in the previous iteration. The search direction is reset to the
+     * steepest descent whenever it is not a descent direction.
+     *
+     * @param updateFormula formula to use for updating the &beta; parameter,
+     * must be one of {@link Formula#FLETCHER_REEVES} or
+     * {@link Formula#POLAK_RIBIERE}.
+     * @param checker Convergence checker.
+     * @param lineSearch Line search (it should enforce the strong Wolfe
+     * conditions with a small curvature parameter, such as 0.1).
+     * @param preconditioner Preconditioner.
+     * @throws org.apache.commons.math3.exception.NullArgumentException
+     * if {@code lineSearch} is {@code null}.
+     * @since 3.3
+     */
+    public NonLinearConjugateGradientOptimizer(final Formula updateFormula,
+                                               ConvergenceChecker<PointValuePair> checker,
+                                               final LineSearch lineSearch,
+                                               final Preconditioner preconditioner) {
+        super(checker);
+
+        MathUtils.checkNotNull(lineSearch);
+        this.updateFormula = updateFormula;
+        solver = null;
+        this.lineSearch = lineSearch;
         this.preconditioner = preconditioner;
         initialStep = 1;
     }
@@ -190,6 +238,10 @@ public class NonLinearConjugateGradientOptimizer
     /** {@inheritDoc} */
     @Override
     protected PointValuePair doOptimize() {
+        if (lineSearch != null) {
+            return doOptimizeWithLineSearch();
+        }
+
         final ConvergenceChecker<PointValuePair> checker = getConvergenceChecker();
         final double[] point = getStartPoint();
         final GoalType goal = getGoalType();
@@ -252,22 +304,7 @@ public class NonLinearConjugateGradientOptimizer
                 delta += r[i] * newSteepestDescent[i];
             }
 
-            final double beta;
-            switch (updateFormula) {
-            case FLETCHER_REEVES:
-                beta = delta / deltaOld;
-                break;
-            case POLAK_RIBIERE:
-                double deltaMid = 0;
-                for (int i = 0; i < r.length; ++i) {
-                    deltaMid += r[i] * steepestDescent[i];
-                }
-                beta = (delta - deltaMid) / deltaOld;
-                break;
-            default:
-                // Should never happen.
-                throw new MathInternalError();
-            }
+            final double beta = computeBeta(r, steepestDescent, delta, deltaOld);
             steepestDescent = newSteepestDescent;
 
             // Compute conjugate search direction.
@@ -284,6 +321,149 @@ public class NonLinearConjugateGradientOptimizer
         }
     }
 
+    /**
+     * Optimization loop using the inexact line search.
+     *
+     * @return the optimum.
+     */
+    private PointValuePair doOptimizeWithLineSearch() {
+        final ConvergenceChecker<PointValuePair> checker = getConvergenceChecker();
+        final double sign = getGoalType() == GoalType.MINIMIZE ? 1 : -1;
+        final MultivariateFunction objective = new MultivariateFunction() {
+            /** {@inheritDoc} */
+            public double value(double[] x) {
+                return sign * computeObjectiveValue(x);
+            }
+        };
+        final MultivariateVectorFunction objectiveGradient = new MultivariateVectorFunction() {
+            /** {@inheritDoc} */
+            public double[] value(double[] x) {
+                final double[] g = computeObjectiveGradient(x);
+                for (int i = 0; i < g.length; ++i) {
+                    g[i] *= sign;
+                }
+                return g;
+            }
+        };
+
+        double[] point = getStartPoint();
+        final int n = point.length;
+        double value = objective.value(point);
+        double[] gradient = objectiveGradient.value(point);
+        double[] r = LBFGSOptimizer.steepestDescent(gradient);
+
+        // Initial search direction.
+        double[] steepestDescent = preconditioner.precondition(point, r);
+        double[] searchDirection = steepestDescent.clone();
+        double delta = dot(r, searchDirection);
+
+        PointValuePair current = new PointValuePair(point, sign * value);
+        double step = initialStep;
+        double slope = Double.NaN;
+        while (true) {
+            incrementIterationCount();
+
+            double newSlope = -dot(r, searchDirection);
+            if (newSlope >= 0) {
+                // not a descent direction
+                searchDirection = steepestDescent;
+                newSlope = -delta;
+                if (newSlope >= 0) {
+                    // the gradient is null
+                    return current;
+                }
+            }
+            if (!Double.isNaN(slope)) {
+                // same first-order change as in the previous iteration
+                step *= slope / newSlope;
+            }
+            slope = newSlope;
+
+            final LineFunction line =
+                new LineFunction(objective, objectiveGradient, point, value, gradient, searchDirection);
+            step = lineSearch.search(line, step);
+            if (step <= 0) {
+                if (searchDirection == steepestDescent) {
+                    // no decrease along the steepest descent: we cannot do better
+                    return current;
+                }
+                // restart from the steepest descent
+                searchDirection = steepestDescent;
+                step = initialStep;
+                slope = Double.NaN;
+                continue;
+            }
+
+            // the line function has cached the value and gradient at the selected step
+            point    = line.getPoint(step);
+            value    = line.value(step);
+            gradient = line.getGradient(step);
+            r        = LBFGSOptimizer.steepestDescent(gradient);
+
+            final PointValuePair previous = current;
+            current = new PointValuePair(point, sign * value);
+            if (checker != null && checker.converged(getIterations(), previous, current)) {
+                // We have found an optimum.
+                return current;
+            }
+
+            // Compute beta.
+            final double deltaOld = delta;
+            final double[] newSteepestDescent = preconditioner.precondition(point, r);
+            delta = dot(r, newSteepestDescent);
+            final double beta = computeBeta(r, steepestDescent, delta, deltaOld);
+            steepestDescent = newSteepestDescent;
+
+            // Compute conjugate search direction.
+            if (getIterations() % n == 0 ||
+                beta < 0) {
+                // Break conjugation: reset search direction.
+                searchDirection = steepestDescent;
+            } else {
+                final double[] conjugate = new double[n];
+                for (int i = 0; i < n; ++i) {
+                    conjugate[i] = steepestDescent[i] + beta * searchDirection[i];
+                }
+                searchDirection = conjugate;
+            }
+        }
+    }
+
+    /**
+     * Compute the &beta; parameter.
+     *
+     * @param r Current residual (opposite of the gradient of the minimized function).
+     * @param steepestDescent Previous preconditioned residual.
+     * @param delta Dot product of the current residual and preconditioned residual.
+     * @param deltaOld Dot product of the previous residual and preconditioned residual.
+     * @return the &beta; parameter.
+     */
+    private double computeBeta(final double[] r, final double[] steepestDescent,
+                               final double delta, final double deltaOld) {
+        switch (updateFormula) {
+        case FLETCHER_REEVES:
+            return delta / deltaOld;
+        case POLAK_RIBIERE:
+            return (delta - dot(r, steepestDescent)) / deltaOld;
+        default:
+            // Should never happen.
+            throw new MathInternalError();
+        }
+    }
+
+    /**
+     * @param a First vector.
+     * @param b Second vector.
+     * @return the dot product of {@code a} and {@code b}.
+     */
+    private static double dot(final double[] a, final double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; ++i) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
     /**
      * Scans the list of (required and optional) optimization data that
      * characterize the problem.
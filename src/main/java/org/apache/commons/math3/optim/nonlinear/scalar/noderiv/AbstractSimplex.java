@@ -29,6 +29,7 @@ import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.BatchObjectiveFunction;
 import org.apache.commons.math3.optim.OptimizationData;
 
 /**
@@ -235,6 +236,8 @@ public abstract class AbstractSimplex implements OptimizationData {
 
     /**
      * Evaluate all the non-evaluated points of the simplex.
+     * If the evaluation function is a {@link BatchObjectiveFunction}, all
+     * the points are evaluated with a single call.
      *
      * @param evaluationFunction Evaluation function.
      * @param comparator Comparator to use to sort simplex vertices from best to worst.
@@ -243,12 +246,33 @@ public abstract class AbstractSimplex implements OptimizationData {
      */
     public void evaluate(final MultivariateFunction evaluationFunction,
                          final Comparator<PointValuePair> comparator) {
-        // Evaluate the objective function at all non-evaluated simplex points.
-        for (int i = 0; i < simplex.length; i++) {
-            final PointValuePair vertex = simplex[i];
-            final double[] point = vertex.getPointRef();
-            if (Double.isNaN(vertex.getValue())) {
-                simplex[i] = new PointValuePair(point, evaluationFunction.value(point), false);
+        if (evaluationFunction instanceof BatchObjectiveFunction) {
+            // Gather all non-evaluated simplex points.
+            final int[] indices = new int[simplex.length];
+            int n = 0;
+            for (int i = 0; i < simplex.length; i++) {
+                if (Double.isNaN(simplex[i].getValue())) {
+                    indices[n++] = i;
+                }
+            }
+            if (n > 0) {
+                final double[][] points = new double[n][];
+                for (int j = 0; j < n; j++) {
+                    points[j] = simplex[indices[j]].getPointRef();
+                }
+                final double[] values = ((BatchObjectiveFunction) evaluationFunction).value(points);
+                for (int j = 0; j < n; j++) {
+                    simplex[indices[j]] = new PointValuePair(points[j], values[j], false);
+                }
+            }
+        } else {
+            // Evaluate the objective function at all non-evaluated simplex points.
+            for (int i = 0; i < simplex.length; i++) {
+                final PointValuePair vertex = simplex[i];
+                final double[] point = vertex.getPointRef();
+                if (Double.isNaN(vertex.getValue())) {
+                    simplex[i] = new PointValuePair(point, evaluationFunction.value(point), false);
+                }
             }
         }
 
@@ -35,6 +35,7 @@ import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.nonlinear.scalar.MultivariateOptimizer;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.MathArrays;
 
 /**
@@ -66,6 +67,23 @@ import org.apache.commons.math3.util.MathArrays;
  * <p>This implementation is translated and adapted from the Matlab version
  * of the CMA-ES algorithm as implemented in module {@code cmaes.m} version 3.51.</p>
  *
+ * <p>When a {@link org.apache.commons.math3.optim.nonlinear.scalar.BatchObjectiveFunction
+ * BatchObjectiveFunction} is provided, the offspring of each generation are
+ * evaluated with a single call to that function.</p>
+ *
+ * <p>The strategy state can optionally be updated in place (see
+ * {@link #CMAESOptimizer(int,double,boolean,int,int,RandomGenerator,boolean,ConvergenceChecker,boolean)
+ * constructor}), in arrays allocated once per optimization; this reduces the
+ * garbage generated at each generation without changing the results.</p>
+ *
+ * <p>For large dimensions, the cost of a generation is dominated by the
+ * eigendecomposition of the covariance matrix. It can be reduced by
+ * delaying the decomposition (lazy update of the eigenvectors) or by
+ * restricting the covariance matrix to its diagonal during the whole run
+ * (separable CMA-ES, {@code diagonalOnly = 1}); see
+ * {@link #CMAESOptimizer(int,double,boolean,int,int,RandomGenerator,boolean,ConvergenceChecker,boolean,boolean)
+ * constructor}.</p>
+ *
  * For more information, please refer to the following links:
  * <ul>
  *  <li><a href="http://www.lri.fr/~hansen/cmaes.m">Matlab code</a></li>
@@ -195,6 +213,10 @@ public class CMAESOptimizer
 
     /** Random generator. */
     private final RandomGenerator random;
+    /** Indicates whether the strategy state is updated in place. */
+    private final boolean inPlace;
+    /** Indicates whether the eigendecomposition of C is delayed. */
+    private final boolean lazyEigenDecomposition;
 
     /** History of sigma values. */
     private final List<Double> statisticsSigmaHistory = new ArrayList<Double>();
@@ -228,6 +250,80 @@ public class CMAESOptimizer
                           RandomGenerator random,
                           boolean generateStatistics,
                           ConvergenceChecker<PointValuePair> checker) {
+        this(maxIterations, stopFitness, isActiveCMA, diagonalOnly,
+             checkFeasableCount, random, generateStatistics, checker, false);
+    }
+
+    /**
+     * @param maxIterations Maximal number of iterations.
+     * @param stopFitness Whether to stop if objective function value is smaller than
+     * {@code stopFitness}.
+     * @param isActiveCMA Chooses the covariance matrix update method.
+     * @param diagonalOnly Number of initial iterations, where the covariance matrix
+     * remains diagonal.
+     * @param checkFeasableCount Determines how often new random objective variables are
+     * generated in case they are out of bounds.
+     * @param random Random generator.
+     * @param generateStatistics Whether statistic data is collected.
+     * @param checker Convergence checker.
+     * @param inPlace Whether the strategy state should be updated in
+     * preallocated arrays rather than through matrix operations. Both
+     * settings produce identical results for the same random sequence;
+     * in-place updates avoid allocating temporary matrices at each
+     * generation.
+     *
+     * @since 3.3
+     */
+    public CMAESOptimizer(int maxIterations,
+                          double stopFitness,
+                          boolean isActiveCMA,
+                          int diagonalOnly,
+                          int checkFeasableCount,
+                          RandomGenerator random,
+                          boolean generateStatistics,
+                          ConvergenceChecker<PointValuePair> checker,
+                          boolean inPlace) {
+        this(maxIterations, stopFitness, isActiveCMA, diagonalOnly,
+             checkFeasableCount, random, generateStatistics, checker,
+             inPlace, false);
+    }
+
+    /**
+     * @param maxIterations Maximal number of iterations.
+     * @param stopFitness Whether to stop if objective function value is smaller than
+     * {@code stopFitness}.
+     * @param isActiveCMA Chooses the covariance matrix update method.
+     * @param diagonalOnly Number of initial iterations, where the covariance matrix
+     * remains diagonal. A value of 1 keeps it diagonal during the whole run
+     * (separable CMA-ES), in which case the time and space complexity of each
+     * generation is linear in the dimension.
+     * @param checkFeasableCount Determines how often new random objective variables are
+     * generated in case they are out of bounds.
+     * @param random Random generator.
+     * @param generateStatistics Whether statistic data is collected.
+     * @param checker Convergence checker.
+     * @param inPlace Whether the strategy state should be updated in
+     * preallocated arrays rather than through matrix operations.
+     * @param lazyEigenDecomposition Whether the eigendecomposition of the
+     * covariance matrix should be performed only every
+     * <math>1 / (c<sub>1</sub> + c<sub>&mu;</sub>) / n / 10</math> generations
+     * instead of at every generation. In between, the offspring are sampled
+     * with the previous eigenvectors and eigenvalues. This reduces the cost
+     * of a generation from <math>O(n<sup>3</sup>)</math> to
+     * <math>O(n<sup>2</sup>)</math> for large dimensions.
+     *
+     * @since 3.3
+     */
+    public CMAESOptimizer(int maxIterations,
+                          double stopFitness,
+                          boolean isActiveCMA,
+                          int diagonalOnly,
+                          int checkFeasableCount,
+                          RandomGenerator random,
+                          boolean generateStatistics,
+                          ConvergenceChecker<PointValuePair> checker,
+                          boolean inPlace,
+                          boolean lazyEigenDecomposition) {
         super(checker);
         this.maxIterations = maxIterations;
         this.stopFitness = stopFitness;
@@ -236,6 +332,8 @@ public class CMAESOptimizer
         this.checkFeasableCount = checkFeasableCount;
         this.random = random;
         this.generateStatistics = generateStatistics;
+        this.inPlace = inPlace;
+        this.lazyEigenDecomposition = lazyEigenDecomposition;
     }
 
     /**
@@ -379,6 +477,9 @@ public class CMAESOptimizer
         PointValuePair optimum
             = new PointValuePair(getStartPoint(),
                                  isMinimize ? bestValue : -bestValue);
+        final Engine engine = inPlace ? new InPlaceEngine() : new MatrixEngine();
+        final int[] arindex = new int[lambda];
+        final double[] sqrtDiagC = new double[dimension];
         PointValuePair lastResult = null;
 
         // -------------------- Generation Loop --------------------------------
@@ -388,48 +489,17 @@ public class CMAESOptimizer
             incrementIterationCount();
 
             // Generate and evaluate lambda offspring
-            final RealMatrix arz = randn1(dimension, lambda);
-            final RealMatrix arx = zeros(dimension, lambda);
-            final double[] fitness = new double[lambda];
-            // generate random offspring
-            for (int k = 0; k < lambda; k++) {
-                RealMatrix arxk = null;
-                for (int i = 0; i < checkFeasableCount + 1; i++) {
-                    if (diagonalOnly <= 0) {
-                        arxk = xmean.add(BD.multiply(arz.getColumnMatrix(k))
-                                         .scalarMultiply(sigma)); // m + sig * Normal(0,C)
-                    } else {
-                        arxk = xmean.add(times(diagD,arz.getColumnMatrix(k))
-                                         .scalarMultiply(sigma));
-                    }
-                    if (i >= checkFeasableCount ||
-                        fitfun.isFeasible(arxk.getColumn(0))) {
-                        break;
-                    }
-                    // regenerate random arguments for row
-                    arz.setColumn(k, randn(dimension));
-                }
-                copyColumn(arxk, 0, arx, k);
-                try {
-                    fitness[k] = fitfun.value(arx.getColumn(k)); // compute fitness
-                } catch (TooManyEvaluationsException e) {
-                    break generationLoop;
-                }
-            }
-            // Sort by fitness and compute weighted mean into xmean
-            final int[] arindex = sortedIndices(fitness);
-            // Calculate new xmean, this is selection and recombination
-            final RealMatrix xold = xmean; // for speed up of Eq. (2) and (3)
-            final RealMatrix bestArx = selectColumns(arx, MathArrays.copyOf(arindex, mu));
-            xmean = bestArx.multiply(weights);
-            final RealMatrix bestArz = selectColumns(arz, MathArrays.copyOf(arindex, mu));
-            final RealMatrix zmean = bestArz.multiply(weights);
-            final boolean hsig = updateEvolutionPaths(zmean, xold);
-            if (diagonalOnly <= 0) {
-                updateCovariance(hsig, bestArx, arz, arindex, xold);
-            } else {
-                updateCovarianceDiagonalOnly(hsig, bestArz);
+            engine.sampleOffspring(fitfun);
+            // compute fitness (in a single batch if possible)
+            final double[] fitness;
+            try {
+                fitness = engine.evaluateOffspring(fitfun);
+            } catch (TooManyEvaluationsException e) {
+                break generationLoop;
             }
+            // Sort by fitness, then select, recombine and adapt the distribution
+            sortIndices(fitness, lambda, arindex);
+            engine.update(arindex);
             // Adapt step size sigma - Eq. (5)
             sigma *= Math.exp(Math.min(1, (normps/chiN - 1) * cs / damps));
             final double bestFitness = fitness[arindex[0]];
@@ -437,7 +507,7 @@ public class CMAESOptimizer
             if (bestValue > bestFitness) {
                 bestValue = bestFitness;
                 lastResult = optimum;
-                optimum = new PointValuePair(fitfun.repair(bestArx.getColumn(0)),
+                optimum = new PointValuePair(fitfun.repair(engine.getOffspring(arindex[0])),
                                              isMinimize ? bestFitness : -bestFitness);
                 if (getConvergenceChecker() != null && lastResult != null &&
                     getConvergenceChecker().converged(iterations, optimum, lastResult)) {
@@ -449,8 +519,11 @@ public class CMAESOptimizer
             if (stopFitness != 0 && bestFitness < (isMinimize ? stopFitness : -stopFitness)) {
                 break generationLoop;
             }
-            final double[] sqrtDiagC = sqrt(diagC).getColumn(0);
-            final double[] pcCol = pc.getColumn(0);
+            final double[] diagCCol = engine.getDiagC();
+            for (int i = 0; i < dimension; i++) {
+                sqrtDiagC[i] = Math.sqrt(diagCCol[i]);
+            }
+            final double[] pcCol = engine.getPc();
             for (int i = 0; i < dimension; i++) {
                 if (sigma * Math.max(Math.abs(pcCol[i]), sqrtDiagC[i]) > stopTolX) {
                     break;
@@ -476,13 +549,14 @@ public class CMAESOptimizer
                 break generationLoop;
             }
             // condition number of the covariance matrix exceeds 1e14
-            if (max(diagD) / min(diagD) > 1e7) {
+            final double[] diagDCol = engine.getDiagD();
+            if (max(diagDCol) / min(diagDCol) > 1e7) {
                 break generationLoop;
             }
             // user defined termination
             if (getConvergenceChecker() != null) {
                 final PointValuePair current
-                    = new PointValuePair(bestArx.getColumn(0),
+                    = new PointValuePair(engine.getOffspring(arindex[0]),
                                          isMinimize ? bestFitness : -bestFitness);
                 if (lastResult != null &&
                     getConvergenceChecker().converged(iterations, current, lastResult)) {
@@ -504,8 +578,12 @@ public class CMAESOptimizer
             if (generateStatistics) {
                 statisticsSigmaHistory.add(sigma);
                 statisticsFitnessHistory.add(bestFitness);
-                statisticsMeanHistory.add(xmean.transpose());
-                statisticsDHistory.add(diagD.transpose().scalarMultiply(1E5));
+                statisticsMeanHistory.add(new Array2DRowRealMatrix(new double[][] { engine.getMean() }, false));
+                final double[] scaledD = new double[dimension];
+                for (int i = 0; i < dimension; i++) {
+                    scaledD[i] = diagDCol[i] * 1E5;
+                }
+                statisticsDHistory.add(new Array2DRowRealMatrix(new double[][] { scaledD }, false));
             }
         }
         return optimum;
@@ -622,10 +700,17 @@ public class CMAESOptimizer
         ps = zeros(dimension, 1); // B defines the coordinate system
         normps = ps.getFrobeniusNorm();
 
-        B = eye(dimension, dimension);
         D = ones(dimension, 1); // diagonal D defines the scaling
-        BD = times(B, repmat(diagD.transpose(), dimension, 1));
-        C = B.multiply(diag(square(D)).multiply(B.transpose())); // covariance
+        if (diagonalOnly == 1) {
+            // separable CMA-ES: the full matrices are never used
+            B = null;
+            BD = null;
+            C = null;
+        } else {
+            B = eye(dimension, dimension);
+            BD = times(B, repmat(diagD.transpose(), dimension, 1));
+            C = B.multiply(diag(square(D)).multiply(B.transpose())); // covariance
+        }
         historySize = 10 + (int) (3 * 10 * dimension / (double) lambda);
         fitnessHistory = new double[historySize]; // history of fitness values
         for (int i = 0; i < historySize; i++) {
@@ -642,8 +727,10 @@ public class CMAESOptimizer
      * @return hsig flag indicating a small correction.
      */
     private boolean updateEvolutionPaths(RealMatrix zmean, RealMatrix xold) {
+        // B is not stored (identity) in separable mode
+        final RealMatrix bz = B == null ? zmean : B.multiply(zmean);
         ps = ps.scalarMultiply(1 - cs).add(
-                B.multiply(zmean).scalarMultiply(
+                bz.scalarMultiply(
                         Math.sqrt(cs * (2 - cs) * mueff)));
         normps = ps.getFrobeniusNorm();
         final boolean hsig = normps /
@@ -761,9 +848,7 @@ public class CMAESOptimizer
      * @param negccov Negative covariance factor.
      */
     private void updateBD(double negccov) {
-        if (ccov1 + ccovmu + negccov > 0 &&
-            (iterations % 1. / (ccov1 + ccovmu + negccov) / dimension / 10.) < 1) {
-            // to achieve O(N^2)
+        if (isEigenDecompositionDue(negccov)) {
             C = triu(C, 0).add(triu(C, 1).transpose());
             // enforce symmetry to prevent complex numbers
             final EigenDecomposition eig = new EigenDecomposition(C);
@@ -791,6 +876,24 @@ public class CMAESOptimizer
         }
     }
 
+    /**
+     * Checks whether B and D must be updated from C at the current generation.
+     *
+     * @param negccov Negative covariance factor.
+     * @return {@code true} if the eigendecomposition of C is due.
+     */
+    private boolean isEigenDecompositionDue(double negccov) {
+        final double ccov = ccov1 + ccovmu + negccov;
+        if (ccov <= 0) {
+            return false;
+        }
+        if (lazyEigenDecomposition) {
+            // to achieve O(N^2)
+            return iterations % (1. / ccov / dimension / 10.) < 1;
+        }
+        return true;
+    }
+
     /**
      * Pushes the current best fitness value in a history queue.
      *
@@ -870,6 +973,612 @@ public class CMAESOptimizer
         }
     }
 
+    /**
+     * Storage of the strategy state, and updates of that state, used by the
+     * generation loop of {@link #doOptimize()}.
+     */
+    private interface Engine {
+        /**
+         * Generates the offspring of a generation.
+         *
+         * @param fitfun Fitness function, used to check feasibility.
+         */
+        void sampleOffspring(FitnessFunction fitfun);
+
+        /**
+         * Evaluates the offspring of the current generation.
+         *
+         * @param fitfun Fitness function.
+         * @return the fitness of each offspring.
+         * @throws TooManyEvaluationsException if the maximal number of
+         * evaluations is exceeded.
+         */
+        double[] evaluateOffspring(FitnessFunction fitfun);
+
+        /**
+         * Updates the mean, the evolution paths and the covariance matrix
+         * from the selected offspring.
+         *
+         * @param arindex Indices of the offspring, sorted by fitness.
+         */
+        void update(int[] arindex);
+
+        /**
+         * @param k Index of an offspring.
+         * @return the offspring (the array must not be modified).
+         */
+        double[] getOffspring(int k);
+
+        /**
+         * @return the mean of the search distribution (a new array).
+         */
+        double[] getMean();
+
+        /**
+         * @return the evolution path pc (the array must not be modified).
+         */
+        double[] getPc();
+
+        /**
+         * @return the diagonal of C (the array must not be modified).
+         */
+        double[] getDiagC();
+
+        /**
+         * @return the standard deviations along the principal axes (the
+         * array must not be modified).
+         */
+        double[] getDiagD();
+    }
+
+    /**
+     * Matrix-based implementation of the updates, translated from the
+     * Matlab code.
+     */
+    private class MatrixEngine implements Engine {
+        /** Gaussian vectors of the offspring (one column per offspring). */
+        private RealMatrix arz;
+        /** Offspring (one column per offspring). */
+        private RealMatrix arx;
+
+        /** {@inheritDoc} */
+        public void sampleOffspring(final FitnessFunction fitfun) {
+            arz = randn1(dimension, lambda);
+            arx = zeros(dimension, lambda);
+            // generate random offspring
+            for (int k = 0; k < lambda; k++) {
+                RealMatrix arxk = null;
+                for (int i = 0; i < checkFeasableCount + 1; i++) {
+                    if (diagonalOnly <= 0) {
+                        arxk = xmean.add(BD.multiply(arz.getColumnMatrix(k))
+                                         .scalarMultiply(sigma)); // m + sig * Normal(0,C)
+                    } else {
+                        arxk = xmean.add(times(diagD,arz.getColumnMatrix(k))
+                                         .scalarMultiply(sigma));
+                    }
+                    if (i >= checkFeasableCount ||
+                        fitfun.isFeasible(arxk.getColumn(0))) {
+                        break;
+                    }
+                    // regenerate random arguments for row
+                    arz.setColumn(k, randn(dimension));
+                }
+                copyColumn(arxk, 0, arx, k);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public double[] evaluateOffspring(final FitnessFunction fitfun) {
+            return fitfun.value(arx);
+        }
+
+        /** {@inheritDoc} */
+        public void update(final int[] arindex) {
+            // Calculate new xmean, this is selection and recombination
+            final RealMatrix xold = xmean; // for speed up of Eq. (2) and (3)
+            final RealMatrix bestArx = selectColumns(arx, MathArrays.copyOf(arindex, mu));
+            xmean = bestArx.multiply(weights);
+            final RealMatrix bestArz = selectColumns(arz, MathArrays.copyOf(arindex, mu));
+            final RealMatrix zmean = bestArz.multiply(weights);
+            final boolean hsig = updateEvolutionPaths(zmean, xold);
+            if (diagonalOnly <= 0) {
+                updateCovariance(hsig, bestArx, arz, arindex, xold);
+            } else {
+                updateCovarianceDiagonalOnly(hsig, bestArz);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public double[] getOffspring(final int k) {
+            return arx.getColumn(k);
+        }
+
+        /** {@inheritDoc} */
+        public double[] getMean() {
+            return xmean.getColumn(0);
+        }
+
+        /** {@inheritDoc} */
+        public double[] getPc() {
+            return pc.getColumn(0);
+        }
+
+        /** {@inheritDoc} */
+        public double[] getDiagC() {
+            return diagC.getColumn(0);
+        }
+
+        /** {@inheritDoc} */
+        public double[] getDiagD() {
+            return diagD.getColumn(0);
+        }
+    }
+
+    /**
+     * In-place implementation of the updates.
+     * <p>
+     * The strategy state (mean, evolution paths, B, D, C and the offspring)
+     * is kept in arrays allocated once per run and updated in place; the
+     * matrices are stored in row-major order. Only the eigendecomposition
+     * of C, the product of B by the mean Gaussian vector and the arrays
+     * passed to the objective function are allocated during the iterations.
+     * </p>
+     * <p>
+     * Each update performs the same floating point operations, in the same
+     * order, as the matrix-based implementation, so that both give the same
+     * results for the same random sequence. The loops over the row-major
+     * arrays follow the generic {@link RealMatrix#multiply(RealMatrix)},
+     * whose sums start at zero and run over increasing indices; the product
+     * by B, whose storage depends on its size, is delegated to the matrix
+     * returned by the eigendecomposition.
+     * </p>
+     */
+    private class InPlaceEngine implements Engine {
+        /** Mean of the search distribution. */
+        private final double[] xmean;
+        /** Mean of the previous generation. */
+        private final double[] xold;
+        /** Weighted mean of the selected Gaussian vectors (column matrix). */
+        private final Array2DRowRealMatrix zmean;
+        /** Entries of {@link #zmean}. */
+        private final double[][] zmeanData;
+        /** Evolution path. */
+        private final double[] pc;
+        /** Evolution path for sigma. */
+        private final double[] ps;
+        /** Standard deviations along the principal axes. */
+        private final double[] diagD;
+        /** Diagonal of C. */
+        private final double[] diagC;
+        /** Coordinate system, {@code null} in separable mode. */
+        private RealMatrix bMatrix;
+        /** Covariance matrix (row-major). */
+        private final double[] c;
+        /** B*D (row-major). */
+        private final double[] bd;
+        /** Recombination weights. */
+        private final double[] w;
+        /** Gaussian vectors of the offspring (one row per offspring). */
+        private final double[][] arz;
+        /** Offspring (one row per offspring). */
+        private final double[][] arx;
+        /** Fitness-sorted indices of the offspring. */
+        private int[] arindex;
+        /** Mu difference vectors, scaled for the rank-mu update. */
+        private final double[][] arposScaled;
+        /** Mu difference vectors, weighted for the rank-mu update. */
+        private final double[][] arposWeighted;
+        /** Norms of the worst Gaussian vectors. */
+        private final double[] arnorms;
+        /** Sorted indices of {@link #arnorms}. */
+        private final int[] idxnorms;
+        /** Scaling factors of the worst Gaussian vectors. */
+        private final double[] arnormsInv;
+        /** Scaled worst Gaussian vectors. */
+        private final double[][] arzneg;
+        /** B*D times the scaled worst Gaussian vectors (transposed). */
+        private final double[][] artmp;
+        /** Weighted {@link #artmp}. */
+        private final double[][] artmpWeighted;
+        /** Symmetric copy of C, input of the eigendecomposition. */
+        private final double[][] symmetricC;
+
+        /**
+         * Copies the state set up by {@link CMAESOptimizer#initializeCMA(double[])}.
+         */
+        InPlaceEngine() {
+            final int n = dimension;
+            xmean = CMAESOptimizer.this.xmean.getColumn(0);
+            xold = new double[n];
+            zmean = new Array2DRowRealMatrix(n, 1);
+            zmeanData = zmean.getDataRef();
+            pc = CMAESOptimizer.this.pc.getColumn(0);
+            ps = CMAESOptimizer.this.ps.getColumn(0);
+            diagD = CMAESOptimizer.this.diagD.getColumn(0);
+            diagC = CMAESOptimizer.this.diagC.getColumn(0);
+            bMatrix = B;
+            if (diagonalOnly == 1) {
+                // separable CMA-ES: the full matrices are never used
+                c = null;
+                bd = null;
+                symmetricC = null;
+            } else {
+                c = new double[n * n];
+                bd = new double[n * n];
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        c[i * n + j] = C.getEntry(i, j);
+                        bd[i * n + j] = BD.getEntry(i, j);
+                    }
+                }
+                symmetricC = new double[n][n];
+            }
+            w = weights.getColumn(0);
+
+            arz = new double[lambda][n];
+            arx = new double[lambda][n];
+            arposScaled = new double[mu][n];
+            arposWeighted = new double[mu][n];
+            arnorms = new double[mu];
+            idxnorms = new int[mu];
+            arnormsInv = new double[mu];
+            arzneg = new double[mu][n];
+            artmp = new double[mu][n];
+            artmpWeighted = new double[mu][n];
+        }
+
+        /** {@inheritDoc} */
+        public void sampleOffspring(final FitnessFunction fitfun) {
+            final int n = dimension;
+            for (int r = 0; r < n; r++) {
+                for (int k = 0; k < lambda; k++) {
+                    arz[k][r] = random.nextGaussian();
+                }
+            }
+            for (int k = 0; k < lambda; k++) {
+                final double[] arzk = arz[k];
+                final double[] arxk = arx[k];
+                for (int i = 0; i < checkFeasableCount + 1; i++) {
+                    if (diagonalOnly <= 0) {
+                        for (int r = 0; r < n; r++) {
+                            final int row = r * n;
+                            double sum = 0;
+                            for (int j = 0; j < n; j++) {
+                                sum += bd[row + j] * arzk[j];
+                            }
+                            arxk[r] = xmean[r] + sum * sigma; // m + sig * Normal(0,C)
+                        }
+                    } else {
+                        for (int r = 0; r < n; r++) {
+                            arxk[r] = xmean[r] + diagD[r] * arzk[r] * sigma;
+                        }
+                    }
+                    if (i >= checkFeasableCount ||
+                        fitfun.isFeasible(arxk)) {
+                        break;
+                    }
+                    // regenerate random arguments for row
+                    for (int r = 0; r < n; r++) {
+                        arzk[r] = random.nextGaussian();
+                    }
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        public double[] evaluateOffspring(final FitnessFunction fitfun) {
+            return fitfun.value(arx);
+        }
+
+        /** {@inheritDoc} */
+        public void update(final int[] indices) {
+            final int n = dimension;
+            arindex = indices;
+            // Calculate new xmean, this is selection and recombination
+            System.arraycopy(xmean, 0, xold, 0, n);
+            for (int r = 0; r < n; r++) {
+                double sumX = 0;
+                double sumZ = 0;
+                for (int j = 0; j < mu; j++) {
+                    sumX += arx[arindex[j]][r] * w[j];
+                    sumZ += arz[arindex[j]][r] * w[j];
+                }
+                xmean[r] = sumX;
+                zmeanData[r][0] = sumZ;
+            }
+            final boolean hsig = updateEvolutionPaths();
+            if (diagonalOnly <= 0) {
+                updateCovariance(hsig);
+            } else {
+                updateCovarianceDiagonalOnly(hsig);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public double[] getOffspring(final int k) {
+            return arx[k];
+        }
+
+        /** {@inheritDoc} */
+        public double[] getMean() {
+            return xmean.clone();
+        }
+
+        /** {@inheritDoc} */
+        public double[] getPc() {
+            return pc;
+        }
+
+        /** {@inheritDoc} */
+        public double[] getDiagC() {
+            return diagC;
+        }
+
+        /** {@inheritDoc} */
+        public double[] getDiagD() {
+            return diagD;
+        }
+
+        /**
+         * Update of the evolution paths ps and pc.
+         *
+         * @return hsig flag indicating a small correction.
+         */
+        private boolean updateEvolutionPaths() {
+            final int n = dimension;
+            // B is not stored (identity) in separable mode
+            final double[][] bz = bMatrix == null ?
+                                  zmeanData :
+                                  bMatrix.multiply(zmean).getData();
+            final double psFactor = Math.sqrt(cs * (2 - cs) * mueff);
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                ps[i] = ps[i] * (1 - cs) + bz[i][0] * psFactor;
+                sum += ps[i] * ps[i];
+            }
+            normps = FastMath.sqrt(sum);
+            final boolean hsig = normps /
+                Math.sqrt(1 - Math.pow(1 - cs, 2 * iterations)) /
+                chiN < 1.4 + 2 / ((double) dimension + 1);
+            for (int i = 0; i < n; i++) {
+                pc[i] *= 1 - cc;
+            }
+            if (hsig) {
+                final double pcFactor = Math.sqrt(cc * (2 - cc) * mueff) / sigma;
+                for (int i = 0; i < n; i++) {
+                    pc[i] += (xmean[i] - xold[i]) * pcFactor;
+                }
+            }
+            return hsig;
+        }
+
+        /**
+         * Update of the covariance matrix C for diagonalOnly > 0
+         *
+         * @param hsig Flag indicating a small correction.
+         */
+        private void updateCovarianceDiagonalOnly(boolean hsig) {
+            final int n = dimension;
+            // minor correction if hsig==false
+            double oldFac = hsig ? 0 : ccov1Sep * cc * (2 - cc);
+            oldFac += 1 - ccov1Sep - ccovmuSep;
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int j = 0; j < mu; j++) {
+                    final double z = arz[arindex[j]][i];
+                    sum += z * z * w[j];
+                }
+                diagC[i] = diagC[i] * oldFac // regard old matrix
+                    + pc[i] * pc[i] * ccov1Sep // plus rank one update
+                    + diagC[i] * sum * ccovmuSep; // plus rank mu update
+                diagD[i] = Math.sqrt(diagC[i]); // replaces eig(C)
+            }
+            if (diagonalOnly > 1 &&
+                iterations > diagonalOnly) {
+                // full covariance matrix from now on
+                diagonalOnly = 0;
+                bMatrix = eye(n, n);
+                Arrays.fill(bd, 0);
+                Arrays.fill(c, 0);
+                for (int i = 0; i < n; i++) {
+                    bd[i * n + i] = diagD[i];
+                    c[i * n + i] = diagC[i];
+                }
+            }
+        }
+
+        /**
+         * Update of the covariance matrix C.
+         *
+         * @param hsig Flag indicating a small correction.
+         */
+        private void updateCovariance(boolean hsig) {
+            final int n = dimension;
+            double negccov = 0;
+            if (ccov1 + ccovmu > 0) {
+                // minor correction if hsig==false
+                double oldFac = hsig ? 0 : ccov1 * cc * (2 - cc);
+                oldFac += 1 - ccov1 - ccovmu;
+                double rankMuFactor = ccovmu;
+                if (isActiveCMA) {
+                    // Adapt covariance matrix C active CMA
+                    negccov = (1 - ccovmu) * 0.25 * mueff /
+                        (Math.pow(dimension + 2, 1.5) + 2 * mueff);
+                    // keep at least 0.66 in all directions, small popsize are most
+                    // critical
+                    final double negminresidualvariance = 0.66;
+                    // where to make up for the variance loss
+                    final double negalphaold = 0.5;
+                    // norms of the mu worst Gaussian vectors
+                    for (int j = 0; j < mu; j++) {
+                        final double[] z = arz[arindex[lambda - 1 - j]];
+                        double sum = 0;
+                        for (int r = 0; r < n; r++) {
+                            sum += z[r] * z[r];
+                        }
+                        arnorms[j] = Math.sqrt(sum);
+                    }
+                    // match the largest norms with the smallest ones
+                    sortIndices(arnorms, mu, idxnorms);
+                    for (int j = 0; j < mu; j++) {
+                        arnormsInv[idxnorms[j]] = arnorms[idxnorms[mu - 1 - j]] / arnorms[idxnorms[j]];
+                    }
+                    // check and set learning rate negccov
+                    double sum = 0;
+                    for (int j = 0; j < mu; j++) {
+                        sum += arnormsInv[j] * arnormsInv[j] * w[j];
+                    }
+                    final double negcovMax = (1 - negminresidualvariance) / sum;
+                    if (negccov > negcovMax) {
+                        negccov = negcovMax;
+                    }
+                    for (int j = 0; j < mu; j++) {
+                        final double[] z = arz[arindex[lambda - 1 - j]];
+                        for (int r = 0; r < n; r++) {
+                            arzneg[j][r] = z[r] * arnormsInv[j];
+                        }
+                    }
+                    // negative updating matrix Cneg = artmp diag(w) artmp^T
+                    for (int j = 0; j < mu; j++) {
+                        final double[] zj = arzneg[j];
+                        for (int i = 0; i < n; i++) {
+                            final int row = i * n;
+                            double s = 0;
+                            for (int k = 0; k < n; k++) {
+                                s += bd[row + k] * zj[k];
+                            }
+                            artmp[j][i] = s;
+                            // "0.0 +": same signed zeros as the product by diag(weights)
+                            artmpWeighted[j][i] = 0.0 + s * w[j];
+                        }
+                    }
+                    oldFac += negalphaold * negccov;
+                    rankMuFactor = ccovmu + (1 - negalphaold) * negccov;
+                }
+
+                // mu difference vectors
+                final double sigmaInv = 1 / sigma;
+                for (int j = 0; j < mu; j++) {
+                    final double[] x = arx[arindex[j]];
+                    for (int i = 0; i < n; i++) {
+                        final double arpos = (x[i] - xold[i]) * sigmaInv;
+                        arposScaled[j][i] = arpos * rankMuFactor;
+                        arposWeighted[j][i] = w[j] * arpos;
+                    }
+                }
+
+                for (int i = 0; i < n; i++) {
+                    final int row = i * n;
+                    final double roneuFactor = pc[i];
+                    for (int l = 0; l < n; l++) {
+                        double rankMu = 0;
+                        for (int j = 0; j < mu; j++) {
+                            rankMu += arposScaled[j][i] * arposWeighted[j][l];
+                        }
+                        // "0.0 +": same signed zeros as the product pc pc^T
+                        final double value = c[row + l] * oldFac // regard old matrix
+                            + (0.0 + roneuFactor * pc[l]) * ccov1 // plus rank one update
+                            + rankMu; // plus rank mu update
+                        if (isActiveCMA) {
+                            double cneg = 0;
+                            for (int j = 0; j < mu; j++) {
+                                cneg += artmpWeighted[j][i] * artmp[j][l];
+                            }
+                            c[row + l] = value - cneg * negccov;
+                        } else {
+                            c[row + l] = value;
+                        }
+                    }
+                }
+            }
+            updateBD(negccov);
+        }
+
+        /**
+         * Update B and D from C.
+         *
+         * @param negccov Negative covariance factor.
+         */
+        private void updateBD(double negccov) {
+            final int n = dimension;
+            if (isEigenDecompositionDue(negccov)) {
+                // enforce symmetry to prevent complex numbers
+                for (int r = 0; r < n; r++) {
+                    for (int col = r; col < n; col++) {
+                        // "+ 0.0": same signed zeros as the sum of triu(C, 0) and triu(C, 1)
+                        final double v = c[r * n + col] + 0.0;
+                        c[r * n + col] = v;
+                        c[col * n + r] = v;
+                        symmetricC[r][col] = v;
+                        symmetricC[col][r] = v;
+                    }
+                }
+                final EigenDecomposition eig
+                    = new EigenDecomposition(new Array2DRowRealMatrix(symmetricC, false));
+                bMatrix = eig.getV(); // eigen decomposition, B==normalized eigenvectors
+                for (int k = 0; k < n; k++) {
+                    diagD[k] = eig.getRealEigenvalue(k);
+                }
+                if (min(diagD) <= 0) {
+                    for (int i = 0; i < n; i++) {
+                        if (diagD[i] < 0) {
+                            diagD[i] = 0;
+                        }
+                    }
+                    addToDiagonal(max(diagD) / 1e14);
+                }
+                if (max(diagD) > 1e14 * min(diagD)) {
+                    addToDiagonal(max(diagD) / 1e14 - min(diagD));
+                }
+                for (int i = 0; i < n; i++) {
+                    diagC[i] = c[i * n + i];
+                    diagD[i] = Math.sqrt(diagD[i]); // D contains standard deviations now
+                }
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        bd[i * n + j] = bMatrix.getEntry(i, j) * diagD[j]; // O(n^2)
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds a multiple of the identity to C and to the (squared)
+         * scaling factors.
+         *
+         * @param tfac Factor.
+         */
+        private void addToDiagonal(final double tfac) {
+            final int n = dimension;
+            for (int r = 0; r < n; r++) {
+                for (int col = 0; col < n; col++) {
+                    c[r * n + col] += (r == col ? 1.0 : 0.0) * tfac;
+                }
+                diagD[r] += tfac;
+            }
+        }
+    }
+
+    /**
+     * Sorts values, keeping equal values in their original order.
+     *
+     * @param values Values to be sorted.
+     * @param n Number of values to sort.
+     * @param indices Array where to store the indices of the sorted values.
+     */
+    private static void sortIndices(final double[] values, final int n, final int[] indices) {
+        for (int i = 0; i < n; i++) {
+            final int index = i;
+            final double value = values[index];
+            int j = i - 1;
+            while (j >= 0 && Double.compare(values[indices[j]], value) > 0) {
+                indices[j + 1] = indices[j];
+                --j;
+            }
+            indices[j + 1] = index;
+        }
+    }
+
     /**
      * Normalizes fitness values to the range [0,1]. Adds a penalty to the
      * fitness value if out of range. The penalty is adjusted by calling
@@ -907,6 +1616,38 @@ public class CMAESOptimizer
             return isMinimize ? value : -value;
         }
 
+        /**
+         * @param points Normalized objective variables, one point per column.
+         * @return the objective values + penalty for violated bounds.
+         */
+        public double[] value(final RealMatrix points) {
+            final double[][] x = new double[points.getColumnDimension()][];
+            for (int k = 0; k < x.length; k++) {
+                x[k] = points.getColumn(k);
+            }
+            return value(x);
+        }
+
+        /**
+         * @param x Normalized objective variables, one array per point.
+         * @return the objective values + penalty for violated bounds.
+         */
+        public double[] value(final double[][] x) {
+            final int n = x.length;
+            final double[][] params = new double[n][];
+            for (int k = 0; k < n; k++) {
+                params[k] = isRepairMode ? repair(x[k]) : x[k];
+            }
+            final double[] values = CMAESOptimizer.this.computeObjectiveValues(params);
+            for (int k = 0; k < n; k++) {
+                if (isRepairMode) {
+                    values[k] += penalty(x[k], params[k]);
+                }
+                values[k] = isMinimize ? values[k] : -values[k];
+            }
+            return values;
+        }
+
         /**
          * @param x Normalized objective variables.
          * @return {@code true} if in bounds.
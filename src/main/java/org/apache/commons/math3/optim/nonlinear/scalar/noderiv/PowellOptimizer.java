@@ -16,14 +16,20 @@
  */
 package org.apache.commons.math3.optim.nonlinear.scalar.noderiv;
 
+import java.util.Arrays;
+
 import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.MathArrays;
+import org.apache.commons.math3.util.MathUtils;
+import org.apache.commons.math3.analysis.MultivariateFunction;
 import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.MathUnsupportedOperationException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.LineFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.LineSearch;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.ConvergenceChecker;
@@ -48,6 +54,9 @@ import org.apache.commons.math3.optim.univariate.UnivariateObjectiveFunction;
  * <br/>
  * The internal line search optimizer is a {@link BrentOptimizer} with a
  * convergence checker set to {@link SimpleUnivariateValueChecker}.
+ * Alternatively, a derivative-free inexact {@link LineSearch line search}
+ * (such as {@link org.apache.commons.math3.optim.nonlinear.scalar.ArmijoLineSearch
+ * ArmijoLineSearch}) can be used, which needs fewer evaluations per direction.
  * <br/>
  * Constraints are not supported: the call to
  * {@link #optimize(OptimizationData[]) optimize} will throw
@@ -79,7 +88,11 @@ public class PowellOptimizer
     /**
      * Line search.
      */
-    private final LineSearch line;
+    private final BrentLineSearch line;
+    /**
+     * Inexact line search (may be null).
+     */
+    private final LineSearch lineSearch;
 
     /**
      * This constructor allows to specify a user-defined convergence checker,
@@ -131,8 +144,47 @@ public class PowellOptimizer
         absoluteThreshold = abs;
 
         // Create the line search optimizer.
-        line = new LineSearch(lineRel,
-                              lineAbs);
+        line = new BrentLineSearch(lineRel,
+                                   lineAbs);
+        lineSearch = null;
+    }
+
+    /**
+     * Builds an instance using an inexact line search instead of the
+     * internal {@link BrentOptimizer}.
+     * <br/>
+     * The line search is performed without derivatives. Each search along
+     * one of the directions of the set starts with the magnitude of the
+     * last step selected along this direction (initially 1). The selected
+     * steps may be negative.
+     *
+     * @param rel Relative threshold.
+     * @param abs Absolute threshold.
+     * @param checker Convergence checker.
+     * @param lineSearch Derivative-free line search.
+     * @throws NotStrictlyPositiveException if {@code abs <= 0}.
+     * @throws NumberIsTooSmallException if {@code rel < 2 * Math.ulp(1d)}.
+     * @throws org.apache.commons.math3.exception.NullArgumentException
+     * if {@code lineSearch} is {@code null}.
+     * @since 3.3
+     */
+    public PowellOptimizer(double rel,
+                           double abs,
+                           ConvergenceChecker<PointValuePair> checker,
+                           LineSearch lineSearch) {
+        super(checker);
+
+        if (rel < MIN_RELATIVE_TOLERANCE) {
+            throw new NumberIsTooSmallException(rel, MIN_RELATIVE_TOLERANCE, true);
+        }
+        if (abs <= 0) {
+            throw new NotStrictlyPositiveException(abs);
+        }
+        MathUtils.checkNotNull(lineSearch);
+        relativeThreshold = rel;
+        absoluteThreshold = abs;
+        line = null;
+        this.lineSearch = lineSearch;
     }
 
     /**
@@ -181,6 +233,9 @@ public class PowellOptimizer
         for (int i = 0; i < n; i++) {
             direc[i][i] = 1;
         }
+        // initial steps of the inexact line searches
+        final double[] steps = new double[n];
+        Arrays.fill(steps, 1);
 
         final ConvergenceChecker<PointValuePair> checker
             = getConvergenceChecker();
@@ -202,9 +257,12 @@ public class PowellOptimizer
 
                 fX2 = fVal;
 
-                final UnivariatePointValuePair optimum = line.search(x, d);
+                final UnivariatePointValuePair optimum = search(x, fVal, d, steps[i]);
                 fVal = optimum.getValue();
                 alphaMin = optimum.getPoint();
+                if (alphaMin != 0) {
+                    steps[i] = FastMath.abs(alphaMin);
+                }
                 final double[][] result = newPointAndDirection(x, d, alphaMin);
                 x = result[0];
 
@@ -250,7 +308,7 @@ public class PowellOptimizer
                 t -= delta * temp * temp;
 
                 if (t < 0.0) {
-                    final UnivariatePointValuePair optimum = line.search(x, d);
+                    final UnivariatePointValuePair optimum = search(x, fVal, d, 1);
                     fVal = optimum.getValue();
                     alphaMin = optimum.getPoint();
                     final double[][] result = newPointAndDirection(x, d, alphaMin);
@@ -259,11 +317,41 @@ public class PowellOptimizer
                     final int lastInd = n - 1;
                     direc[bigInd] = direc[lastInd];
                     direc[lastInd] = result[1];
+                    steps[bigInd] = steps[lastInd];
+                    steps[lastInd] = 1;
                 }
             }
         }
     }
 
+    /**
+     * Find the minimum of the objective function along a direction.
+     *
+     * @param p Starting point.
+     * @param fP Value of the objective function at the starting point.
+     * @param d Search direction.
+     * @param initialStep Initial step of inexact line searches.
+     * @return the optimum (or the selected step, for inexact line searches).
+     */
+    private UnivariatePointValuePair search(final double[] p,
+                                            final double fP,
+                                            final double[] d,
+                                            final double initialStep) {
+        if (lineSearch == null) {
+            return line.search(p, d);
+        }
+
+        final double sign = getGoalType() == GoalType.MINIMIZE ? 1 : -1;
+        final MultivariateFunction f = new MultivariateFunction() {
+                public double value(double[] x) {
+                    return sign * computeObjectiveValue(x);
+                }
+            };
+        final LineFunction lf = new LineFunction(f, null, p, sign * fP, null, d);
+        final double alpha = lineSearch.search(lf, initialStep);
+        return new UnivariatePointValuePair(alpha, sign * lf.value(alpha));
+    }
+
     /**
      * Compute a new point (in the original space) and a new direction
      * vector, resulting from the line search.
@@ -296,7 +384,7 @@ public class PowellOptimizer
      * Class for finding the minimum of the objective function along a given
      * direction.
      */
-    private class LineSearch extends BrentOptimizer {
+    private class BrentLineSearch extends BrentOptimizer {
         /**
          * Value that will pass the precondition check for {@link BrentOptimizer}
          * but will not pass the convergence check, so that the custom checker
@@ -322,8 +410,8 @@ public class PowellOptimizer
          * @param rel Relative threshold.
          * @param abs Absolute threshold.
          */
-        LineSearch(double rel,
-                   double abs) {
+        BrentLineSearch(double rel,
+                        double abs) {
             super(REL_TOL_UNUSED,
                   ABS_TOL_UNUSED,
                   new SimpleUnivariateValueChecker(rel, abs));
@@ -21,6 +21,7 @@ import org.apache.commons.math3.analysis.MultivariateFunction;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.exception.MathUnsupportedOperationException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.optim.nonlinear.scalar.BatchObjectiveFunction;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.ConvergenceChecker;
 import org.apache.commons.math3.optim.PointValuePair;
@@ -64,6 +65,12 @@ import org.apache.commons.math3.optim.nonlinear.scalar.MultivariateOptimizer;
  *  to one with the appropriate dimensions.
  * </p>
  * <p>
+ *  When a {@link BatchObjectiveFunction} is provided, the vertices that
+ *  are computed together by the simplex update procedure (e.g. the whole
+ *  transformed simplex of {@link MultiDirectionalSimplex}) are evaluated
+ *  with a single call to that function.
+ * </p>
+ * <p>
  *  Convergence is checked by providing the <em>worst</em> points of
  *  previous and current simplex to the convergence checker, not the best
  *  ones.
@@ -129,12 +136,27 @@ public class SimplexOptimizer extends MultivariateOptimizer {
 
         // Indirect call to "computeObjectiveValue" in order to update the
         // evaluations counter.
-        final MultivariateFunction evalFunc
-            = new MultivariateFunction() {
-                public double value(double[] point) {
-                    return computeObjectiveValue(point);
-                }
-            };
+        final MultivariateFunction evalFunc;
+        if (hasBatchObjectiveFunction()) {
+            // Let the simplex evaluate its new vertices in batches.
+            evalFunc = new BatchObjectiveFunction() {
+                    @Override
+                    public double[] value(double[][] points) {
+                        return computeObjectiveValues(points);
+                    }
+
+                    @Override
+                    public double value(double[] point) {
+                        return computeObjectiveValue(point);
+                    }
+                };
+        } else {
+            evalFunc = new MultivariateFunction() {
+                    public double value(double[] point) {
+                        return computeObjectiveValue(point);
+                    }
+                };
+        }
 
         final boolean isMinim = getGoalType() == GoalType.MINIMIZE;
         final Comparator<PointValuePair> comparator
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.linear.RealMatrix;
@@ -27,6 +28,7 @@ import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.random.RandomVectorGenerator;
 import org.apache.commons.math3.optim.BaseMultiStartMultivariateOptimizer;
+import org.apache.commons.math3.optim.OptimizerFactory;
 import org.apache.commons.math3.optim.PointVectorValuePair;
 
 /**
@@ -67,6 +69,35 @@ public class MultiStartMultivariateVectorOptimizer
         this.optimizer = optimizer;
     }
 
+    /**
+     * Create a parallel multi-start optimizer.
+     * The starts are run concurrently by the {@code executor}, each one
+     * on its own optimizer instance, and the evaluation budget is evenly
+     * split between them (see
+     * {@link BaseMultiStartMultivariateOptimizer#BaseMultiStartMultivariateOptimizer(OptimizerFactory,ExecutorService,int,RandomVectorGenerator)
+     * BaseMultiStartMultivariateOptimizer}).
+     *
+     * @param factory Factory for the single-start optimizers.
+     * @param executor Executor that will run the starts.
+     * @param starts Number of starts to perform.
+     * If {@code starts == 1}, the result will be same as if an optimizer
+     * created by the {@code factory} is called directly.
+     * @param generator Random vector generator to use for restarts.
+     * @throws NullArgumentException if {@code factory} or {@code executor}
+     * is {@code null}.
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     * @since 3.3
+     */
+    public MultiStartMultivariateVectorOptimizer(final OptimizerFactory<? extends MultivariateVectorOptimizer> factory,
+                                                 final ExecutorService executor,
+                                                 final int starts,
+                                                 final RandomVectorGenerator generator)
+        throws NullArgumentException,
+        NotStrictlyPositiveException {
+        super(factory, executor, starts, generator);
+        this.optimizer = (MultivariateVectorOptimizer) getOptimizer();
+    }
+
     /**
      * {@inheritDoc}
      */
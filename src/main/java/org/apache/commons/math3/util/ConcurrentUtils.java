@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Utilities for running tasks on a user-provided {@link ExecutorService}.
+ * <p>
+ * The classes that accept an executor only submit tasks to it: the
+ * executor is never shut down, its lifecycle remains the responsibility
+ * of the caller, and the same executor can be shared by several classes.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public final class ConcurrentUtils {
+
+    /**
+     * Class contains only static methods.
+     */
+    private ConcurrentUtils() {}
+
+    /**
+     * Runs tasks and waits for all of them to complete.
+     * <p>
+     * If a task fails, the exception it has thrown is reported as by
+     * {@link #get(Future)}. The exception of the first failed task (in the
+     * order of the collection) is reported.
+     * </p>
+     *
+     * @param <T> Type of the results of the tasks.
+     * @param executor Executor that runs the tasks.
+     * @param tasks Tasks to run.
+     * @return the results of the tasks, in the order of the collection.
+     * @throws MathIllegalStateException if the current thread is interrupted
+     * while waiting for the tasks to complete, or if a task throws a checked
+     * exception.
+     */
+    public static <T> List<T> invokeAll(final ExecutorService executor,
+                                        final Collection<? extends Callable<T>> tasks) {
+        final List<Future<T>> futures;
+        try {
+            futures = executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MathIllegalStateException(e, LocalizedFormats.ILLEGAL_STATE);
+        }
+        final List<T> results = new ArrayList<T>(futures.size());
+        for (final Future<T> future : futures) {
+            results.add(get(future));
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the result of a task.
+     * <p>
+     * If the task has failed, the exception it has thrown is rethrown as is
+     * when it is unchecked, and wrapped otherwise.
+     * </p>
+     *
+     * @param <T> Type of the result of the task.
+     * @param future Pending result of the task.
+     * @return the result of the task.
+     * @throws MathIllegalStateException if the current thread is interrupted
+     * while waiting for the task to complete, or if the task has thrown a
+     * checked exception.
+     */
+    public static <T> T get(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MathIllegalStateException(e, LocalizedFormats.ILLEGAL_STATE);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MathIllegalStateException(cause, LocalizedFormats.ILLEGAL_STATE);
+        }
+    }
+}
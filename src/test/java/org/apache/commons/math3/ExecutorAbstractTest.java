@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+
+/**
+ * Base class for the tests of parallel code: each test gets its own
+ * fixed-size thread pool, which is shut down once the test is over.
+ */
+public abstract class ExecutorAbstractTest {
+
+    /** Maximal time to wait for the tasks of a test to complete, in seconds. */
+    private static final long TERMINATION_TIMEOUT = 10;
+
+    /** Executor of the current test. */
+    protected ExecutorService executor;
+
+    /** Number of threads of the executor. */
+    private final int threads;
+
+    /**
+     * @param threads number of threads of the executor
+     */
+    protected ExecutorAbstractTest(final int threads) {
+        this.threads = threads;
+    }
+
+    @Before
+    public void setUpExecutor() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @After
+    public void tearDownExecutor() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+            // the tasks started by a test must not outlive it
+            executor.shutdownNow();
+            Assert.fail("tasks still running " + TERMINATION_TIMEOUT + " s after the test");
+        }
+    }
+
+}
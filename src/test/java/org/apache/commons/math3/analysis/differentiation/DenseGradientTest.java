@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for class {@link DenseGradient}.
+ */
+public class DenseGradientTest {
+
+    @Test
+    public void testConstruction() {
+        DenseGradient c = new DenseGradient(3, 2.5);
+        Assert.assertEquals(3, c.getFreeParameters());
+        Assert.assertEquals(2.5, c.getValue(), 0);
+        Assert.assertArrayEquals(new double[3], c.getGradient(), 0);
+
+        DenseGradient v = new DenseGradient(3, 1, -1.5);
+        Assert.assertEquals(-1.5, v.getValue(), 0);
+        Assert.assertArrayEquals(new double[] { 0, 1, 0 }, v.getGradient(), 0);
+
+        DerivativeStructure ds = new DerivativeStructure(3, 1, 2, 4.0).multiply(3);
+        DenseGradient fromDs = new DenseGradient(ds);
+        check(ds, fromDs, 0);
+        check(ds, new DenseGradient(fromDs.toDerivativeStructure()), 0);
+    }
+
+    @Test
+    public void testArithmetic() {
+        for (double x = -2.7; x < 3; x += 0.4) {
+            for (double y = -2.9; y < 3; y += 0.55) {
+                DerivativeStructure dx = new DerivativeStructure(2, 1, 0, x);
+                DerivativeStructure dy = new DerivativeStructure(2, 1, 1, y);
+                check(dx.add(dy).add(1.5),
+                      variable(0, x).add(variable(1, y)).add(1.5), 1.0e-15);
+                check(dx.subtract(dy).subtract(0.5),
+                      variable(0, x).subtract(variable(1, y)).subtract(0.5), 1.0e-15);
+                check(dx.multiply(dy).multiply(3),
+                      variable(0, x).multiply(variable(1, y)).multiply(3), 1.0e-14);
+                check(dx.divide(dy).divide(2),
+                      variable(0, x).divide(variable(1, y)).divide(2), 1.0e-13);
+                check(dx.multiply(dy).add(dx.multiply(2)),
+                      variable(0, x).multiply(variable(1, y)).addScaled(2, variable(0, x)), 1.0e-14);
+                check(dx.add(dx.multiply(dy)),
+                      variable(0, x).addProduct(variable(0, x), variable(1, y)), 1.0e-14);
+                check(dx.negate().reciprocal(), variable(0, x).negate().reciprocal(), 1.0e-13);
+                check(dx.abs(), variable(0, x).abs(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testFunctions() {
+        for (double x = 0.1; x < 0.95; x += 0.05) {
+            DerivativeStructure dx = new DerivativeStructure(1, 1, 0, x);
+            check(dx.sqrt(),      variable(0, x).sqrt(),      1.0e-14);
+            check(dx.pow(2.5),    variable(0, x).pow(2.5),    1.0e-14);
+            check(dx.pow(3),      variable(0, x).pow(3),      1.0e-14);
+            check(dx.pow(-2),     variable(0, x).pow(-2),     1.0e-11);
+            check(dx.exp(),       variable(0, x).exp(),       1.0e-14);
+            check(dx.expm1(),     variable(0, x).expm1(),     1.0e-14);
+            check(dx.log(),       variable(0, x).log(),       1.0e-14);
+            check(dx.log1p(),     variable(0, x).log1p(),     1.0e-14);
+            check(dx.cos(),       variable(0, x).cos(),       1.0e-14);
+            check(dx.sin(),       variable(0, x).sin(),       1.0e-14);
+            check(dx.tan(),       variable(0, x).tan(),       1.0e-14);
+            check(dx.acos(),      variable(0, x).acos(),      1.0e-14);
+            check(dx.asin(),      variable(0, x).asin(),      1.0e-14);
+            check(dx.atan(),      variable(0, x).atan(),      1.0e-14);
+            check(dx.cosh(),      variable(0, x).cosh(),      1.0e-14);
+            check(dx.sinh(),      variable(0, x).sinh(),      1.0e-14);
+            check(dx.tanh(),      variable(0, x).tanh(),      1.0e-14);
+        }
+    }
+
+    @Test
+    public void testPowVariableExponent() {
+        for (double x = 0.5; x < 3; x += 0.25) {
+            for (double y = -2; y < 2; y += 0.3) {
+                DerivativeStructure dx = new DerivativeStructure(2, 1, 0, x);
+                DerivativeStructure dy = new DerivativeStructure(2, 1, 1, y);
+                check(dx.pow(dy), variable(0, x).pow(variable(1, y)), 1.0e-13);
+            }
+        }
+    }
+
+    @Test
+    public void testAliasing() {
+        DenseGradient a = new DenseGradient(2, 0, 3.0);
+        a.multiply(a);
+        DerivativeStructure da = new DerivativeStructure(2, 1, 0, 3.0);
+        check(da.multiply(da), a, 0);
+
+        DenseGradient b = new DenseGradient(2, 1, 0.5);
+        b.addProduct(b, b);
+        DerivativeStructure db = new DerivativeStructure(2, 1, 1, 0.5);
+        check(db.add(db.multiply(db)), b, 0);
+
+        DenseGradient c = new DenseGradient(2, 0, 2.0);
+        c.divide(c);
+        Assert.assertEquals(1.0, c.getValue(), 0);
+        Assert.assertArrayEquals(new double[2], c.getGradient(), 0);
+    }
+
+    @Test
+    public void testCopyIndependence() {
+        DenseGradient a = new DenseGradient(2, 0, 3.0);
+        DenseGradient b = a.copy();
+        a.exp();
+        Assert.assertEquals(3.0, b.getValue(), 0);
+        double[] g = b.getGradient();
+        g[0] = 10;
+        Assert.assertEquals(1.0, b.getPartialDerivative(0), 0);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testIncompatible() {
+        new DenseGradient(2, 1.0).add(new DenseGradient(3, 1.0));
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testVariableOutOfRange() {
+        new DenseGradient(2, 2, 1.0);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testPartialDerivativeOutOfRange() {
+        new DenseGradient(2, 1.0).getPartialDerivative(-1);
+    }
+
+    @Test(expected=NotPositiveException.class)
+    public void testNegativeParameters() {
+        new DenseGradient(-1, 1.0);
+    }
+
+    private DenseGradient variable(int index, double value) {
+        return new DenseGradient(2, index, value);
+    }
+
+    private void check(DerivativeStructure expected, DenseGradient actual, double tolerance) {
+        Assert.assertEquals(expected.getValue(), actual.getValue(),
+                            tolerance * FastMath.max(1, FastMath.abs(expected.getValue())));
+        int[] orders = new int[expected.getFreeParameters()];
+        for (int i = 0; i < orders.length; ++i) {
+            orders[i] = 1;
+            double d = expected.getPartialDerivative(orders);
+            Assert.assertEquals(d, actual.getPartialDerivative(i),
+                                tolerance * FastMath.max(1, FastMath.abs(d)));
+            orders[i] = 0;
+        }
+    }
+
+}
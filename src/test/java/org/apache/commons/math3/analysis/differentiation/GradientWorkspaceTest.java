@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for class {@link GradientWorkspace}.
+ */
+public class GradientWorkspaceTest {
+
+    @Test
+    public void testReuse() {
+        GradientWorkspace workspace = new GradientWorkspace(3, 4);
+        Assert.assertEquals(0, workspace.getAllocated());
+        for (int k = 0; k < 10; ++k) {
+            workspace.reset();
+            DenseGradient[] x = workspace.variables(new double[] { k, 1, 2 });
+            DenseGradient sum = workspace.constant(0);
+            for (int i = 0; i < 3; ++i) {
+                sum.addProduct(x[i], workspace.copy(x[i]).exp());
+            }
+            Assert.assertEquals(4, workspace.getUsed());
+            Assert.assertEquals(4, workspace.getAllocated());
+            Assert.assertEquals(k * FastMath.exp(k) + FastMath.E + 2 * FastMath.exp(2),
+                                sum.getValue(), 1.0e-10 * sum.getValue());
+            Assert.assertEquals((k + 1) * FastMath.exp(k), sum.getPartialDerivative(0),
+                                1.0e-10 * FastMath.max(1, sum.getPartialDerivative(0)));
+        }
+
+        // growing beyond one block
+        workspace.reset();
+        for (int i = 0; i < 9; ++i) {
+            workspace.variable(i % 3, i);
+        }
+        Assert.assertEquals(12, workspace.getAllocated());
+    }
+
+    @Test
+    public void testVariablesNotRecycled() {
+        GradientWorkspace workspace = new GradientWorkspace(2, 1);
+        DenseGradient[] x = workspace.variables(new double[] { 1, 2 });
+        workspace.reset();
+        workspace.constant(5);
+        Assert.assertEquals(1, x[0].getValue(), 0);
+        Assert.assertEquals(2, x[1].getValue(), 0);
+        Assert.assertEquals(1, x[1].getPartialDerivative(1), 0);
+    }
+
+    @Test
+    public void testManyParameters() {
+        final int n = 3000;
+        GradientWorkspace workspace = new GradientWorkspace(n);
+        double[] point = new double[n];
+        for (int i = 0; i < n; ++i) {
+            point[i] = i;
+        }
+        DenseGradient[] x = workspace.variables(point);
+        DenseGradient sum = workspace.constant(0);
+        for (int i = 0; i < n; ++i) {
+            sum.addProduct(x[i], x[i]);
+        }
+        Assert.assertEquals(n, sum.getFreeParameters());
+        Assert.assertEquals((n - 1) * n * (2.0 * n - 1) / 6, sum.getValue(), 0);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(2.0 * i, sum.getPartialDerivative(i), 0);
+        }
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testWrongDimension() {
+        new GradientWorkspace(2).variables(new double[3]);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testBlockSize() {
+        new GradientWorkspace(2, 0);
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleValueChecker;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunctionGradient;
+import org.apache.commons.math3.optim.nonlinear.scalar.gradient.NonLinearConjugateGradientOptimizer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for class {@link PooledGradientFunction}.
+ */
+public class PooledGradientFunctionTest {
+
+    @Test
+    public void testSameAsGradientFunction() {
+        PooledGradientFunction pooled = new PooledGradientFunction(new PooledRosenbrock());
+        GradientFunction reference = new GradientFunction(new Rosenbrock());
+        for (double x = -2; x < 2; x += 0.25) {
+            for (double y = -1; y < 3; y += 0.25) {
+                double[] point = new double[] { x, y };
+                TestUtils.assertEquals(reference.value(point), pooled.value(point), 1.0e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testDimensionChange() {
+        PooledGradientFunction g = new PooledGradientFunction(new SumOfSquares());
+        TestUtils.assertEquals(new double[] { 2, 4 }, g.value(new double[] { 1, 2 }), 0);
+        TestUtils.assertEquals(new double[] { 2, 4, 6 }, g.value(new double[] { 1, 2, 3 }), 0);
+    }
+
+    @Test
+    public void testConjugateGradient() {
+        final PooledRosenbrock f = new PooledRosenbrock();
+        NonLinearConjugateGradientOptimizer optimizer
+            = new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                      new SimpleValueChecker(1e-13, 1e-13));
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(10000),
+                                 new ObjectiveFunction(new PooledGradientFunctionTest.Value(f)),
+                                 new ObjectiveFunctionGradient(f),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { -1.2, 1 }));
+        Assert.assertEquals(1.0, optimum.getPoint()[0], 1.0e-4);
+        Assert.assertEquals(1.0, optimum.getPoint()[1], 1.0e-4);
+        Assert.assertEquals(0.0, optimum.getValue(), 1.0e-8);
+
+        // the same optimization with a DerivativeStructure-based gradient
+        PointValuePair reference
+            = optimizer.optimize(new MaxEval(10000),
+                                 new ObjectiveFunction(new PooledGradientFunctionTest.Value(f)),
+                                 new ObjectiveFunctionGradient(new Rosenbrock()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { -1.2, 1 }));
+        TestUtils.assertEquals(reference.getPoint(), optimum.getPoint(), 1.0e-10);
+    }
+
+    /** Value of a pooled function. */
+    private static class Value implements org.apache.commons.math3.analysis.MultivariateFunction {
+        private final MultivariateGradientFunction f;
+        Value(MultivariateGradientFunction f) {
+            this.f = f;
+        }
+        public double value(double[] point) {
+            final GradientWorkspace workspace = new GradientWorkspace(point.length);
+            return f.value(workspace.variables(point), workspace).getValue();
+        }
+    }
+
+    /** Rosenbrock function with in-place operations. */
+    private static class PooledRosenbrock implements MultivariateGradientFunction {
+        public DenseGradient value(DenseGradient[] point, GradientWorkspace workspace) {
+            final DenseGradient a = workspace.copy(point[0]).pow(2).negate().add(point[1]);
+            final DenseGradient b = workspace.constant(1).subtract(point[0]);
+            return a.multiply(a).multiply(100).addProduct(b, b);
+        }
+    }
+
+    /** Rosenbrock function with derivative structures. */
+    private static class Rosenbrock implements MultivariateDifferentiableFunction {
+        public double value(double[] point) {
+            final double a = point[1] - point[0] * point[0];
+            final double b = 1 - point[0];
+            return 100 * a * a + b * b;
+        }
+        public DerivativeStructure value(DerivativeStructure[] point) {
+            final DerivativeStructure a = point[1].subtract(point[0].multiply(point[0]));
+            final DerivativeStructure b = point[0].negate().add(1);
+            return a.multiply(a).multiply(100).add(b.multiply(b));
+        }
+    }
+
+    /** Sum of squares in any dimension. */
+    private static class SumOfSquares implements MultivariateGradientFunction {
+        public DenseGradient value(DenseGradient[] point, GradientWorkspace workspace) {
+            final DenseGradient sum = workspace.constant(0);
+            for (DenseGradient x : point) {
+                sum.addProduct(x, x);
+            }
+            return sum;
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleValueChecker;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunctionGradient;
+import org.apache.commons.math3.optim.nonlinear.scalar.gradient.NonLinearConjugateGradientOptimizer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for class {@link TapeGradientFunction}.
+ */
+public class TapeGradientFunctionTest {
+
+    @Test
+    public void testSameAsGradientFunction() {
+        final ExtendedRosenbrock f = new ExtendedRosenbrock();
+        final TapeGradientFunction reverse = new TapeGradientFunction(f);
+        final GradientFunction forward = new GradientFunction(f);
+        for (double x = -2; x < 2; x += 0.5) {
+            for (double y = -1; y < 3; y += 0.5) {
+                final double[] point = new double[] { x, y, y - x, x * y };
+                TestUtils.assertEquals(forward.value(point), reverse.value(point), 1.0e-11);
+            }
+        }
+    }
+
+    @Test
+    public void testManyParameters() {
+        // 5000 parameters, the gradient is computed in a single backward sweep
+        final int n = 5000;
+        final ExtendedRosenbrock f = new ExtendedRosenbrock();
+        final double[] start = new double[n];
+        for (int i = 0; i < n; ++i) {
+            start[i] = (i % 2 == 0) ? -1.2 : 1.0;
+        }
+        final NonLinearConjugateGradientOptimizer optimizer
+            = new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                      new SimpleValueChecker(1e-12, 1e-12));
+        final PointValuePair optimum
+            = optimizer.optimize(new MaxEval(100000),
+                                 new ObjectiveFunction(f),
+                                 new ObjectiveFunctionGradient((MultivariateTapeFunction) f),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(start));
+        Assert.assertEquals(0.0, optimum.getValue(), 1.0e-6);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(1.0, optimum.getPoint()[i], 1.0e-3);
+        }
+    }
+
+    /** Extended Rosenbrock function, for an even number of parameters. */
+    private static class ExtendedRosenbrock
+        implements MultivariateFunction, MultivariateTapeFunction, MultivariateDifferentiableFunction {
+
+        public double value(double[] point) {
+            double sum = 0;
+            for (int i = 0; i < point.length; i += 2) {
+                final double a = point[i + 1] - point[i] * point[i];
+                final double b = 1 - point[i];
+                sum += 100 * a * a + b * b;
+            }
+            return sum;
+        }
+
+        public TapeVariable value(TapeVariable[] point) {
+            TapeVariable sum = point[0].getTape().constant(0);
+            for (int i = 0; i < point.length; i += 2) {
+                final TapeVariable a = point[i + 1].subtract(point[i].multiply(point[i]));
+                final TapeVariable b = point[i].negate().add(1);
+                sum = sum.add(a.multiply(a).multiply(100)).add(b.multiply(b));
+            }
+            return sum;
+        }
+
+        public DerivativeStructure value(DerivativeStructure[] point) {
+            DerivativeStructure sum = point[0].getField().getZero();
+            for (int i = 0; i < point.length; i += 2) {
+                final DerivativeStructure a = point[i + 1].subtract(point[i].multiply(point[i]));
+                final DerivativeStructure b = point[i].negate().add(1);
+                sum = sum.add(a.multiply(a).multiply(100)).add(b.multiply(b));
+            }
+            return sum;
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.analysis.differentiation;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for classes {@link TapeVariable} and {@link GradientTape}.
+ */
+public class TapeVariableTest {
+
+    @Test
+    public void testBinaryOperations() {
+        final GradientTape tape = new GradientTape(4);
+        for (double x = 0.3; x < 3; x += 0.35) {
+            for (double y = -2.1; y < 2; y += 0.45) {
+                final DerivativeStructure dx = new DerivativeStructure(2, 1, 0, x);
+                final DerivativeStructure dy = new DerivativeStructure(2, 1, 1, y);
+                TapeVariable[] v = tape.variables(new double[] { x, y });
+                check(dx.add(dy).add(1.5), v[0].add(v[1]).add(1.5), 1.0e-15);
+                v = tape.variables(new double[] { x, y });
+                check(dx.subtract(dy).subtract(0.5), v[0].subtract(v[1]).subtract(0.5), 1.0e-15);
+                v = tape.variables(new double[] { x, y });
+                check(dx.multiply(dy).multiply(3), v[0].multiply(v[1]).multiply(3), 1.0e-14);
+                v = tape.variables(new double[] { x, y });
+                check(dy.divide(dx).divide(2), v[1].divide(v[0]).divide(2), 1.0e-14);
+                v = tape.variables(new double[] { x, y });
+                check(dx.pow(dy), v[0].pow(v[1]), 1.0e-13);
+                v = tape.variables(new double[] { x, y });
+                check(dx.hypot(dy), v[0].hypot(v[1]), 1.0e-14);
+                v = tape.variables(new double[] { x, y });
+                check(dy.atan2(dx), v[1].atan2(v[0]), 1.0e-14);
+            }
+        }
+    }
+
+    @Test
+    public void testFunctions() {
+        final GradientTape tape = new GradientTape();
+        for (double x = 0.1; x < 0.95; x += 0.05) {
+            final DerivativeStructure dx = new DerivativeStructure(1, 1, 0, x);
+            final double[] p = new double[] { x };
+            check(dx.negate(),       tape.variables(p)[0].negate(),       0);
+            check(dx.abs(),          tape.variables(p)[0].abs(),          0);
+            check(dx.reciprocal(),   tape.variables(p)[0].reciprocal(),   1.0e-14);
+            check(dx.sqrt(),         tape.variables(p)[0].sqrt(),         1.0e-14);
+            check(dx.cbrt(),         tape.variables(p)[0].cbrt(),         1.0e-14);
+            check(dx.pow(2.5),       tape.variables(p)[0].pow(2.5),       1.0e-14);
+            check(dx.pow(3),         tape.variables(p)[0].pow(3),         1.0e-14);
+            check(dx.pow(0),         tape.variables(p)[0].pow(0),         0);
+            check(dx.exp(),          tape.variables(p)[0].exp(),          1.0e-14);
+            check(dx.expm1(),        tape.variables(p)[0].expm1(),        1.0e-14);
+            check(dx.log(),          tape.variables(p)[0].log(),          1.0e-14);
+            check(dx.log1p(),        tape.variables(p)[0].log1p(),        1.0e-14);
+            check(dx.log10(),        tape.variables(p)[0].log10(),        1.0e-14);
+            check(dx.cos(),          tape.variables(p)[0].cos(),          1.0e-14);
+            check(dx.sin(),          tape.variables(p)[0].sin(),          1.0e-14);
+            check(dx.tan(),          tape.variables(p)[0].tan(),          1.0e-14);
+            check(dx.acos(),         tape.variables(p)[0].acos(),         1.0e-14);
+            check(dx.asin(),         tape.variables(p)[0].asin(),         1.0e-14);
+            check(dx.atan(),         tape.variables(p)[0].atan(),         1.0e-14);
+            check(dx.cosh(),         tape.variables(p)[0].cosh(),         1.0e-14);
+            check(dx.sinh(),         tape.variables(p)[0].sinh(),         1.0e-14);
+            check(dx.tanh(),         tape.variables(p)[0].tanh(),         1.0e-14);
+            check(dx.add(2).acosh(), tape.variables(p)[0].add(2).acosh(), 1.0e-14);
+            check(dx.asinh(),        tape.variables(p)[0].asinh(),        1.0e-14);
+            check(dx.atanh(),        tape.variables(p)[0].atanh(),        1.0e-14);
+        }
+    }
+
+    @Test
+    public void testSharedSubexpressions() {
+        // f(x, y) = u * u + sin(u) with u = x * y, u being used three times
+        final GradientTape tape = new GradientTape();
+        final TapeVariable[] v = tape.variables(new double[] { 1.5, -0.5 });
+        final TapeVariable u = v[0].multiply(v[1]);
+        final TapeVariable f = u.multiply(u).add(u.sin());
+        final DerivativeStructure dx = new DerivativeStructure(2, 1, 0, 1.5);
+        final DerivativeStructure dy = new DerivativeStructure(2, 1, 1, -0.5);
+        final DerivativeStructure du = dx.multiply(dy);
+        check(du.multiply(du).add(du.sin()), f, 1.0e-15);
+
+        // differentiating an intermediate result
+        check(du, u, 0);
+
+        // a constant result
+        final double[] g = tape.gradient(tape.constant(2));
+        Assert.assertArrayEquals(new double[2], g, 0);
+    }
+
+    @Test
+    public void testGrowth() {
+        final GradientTape tape = new GradientTape(2);
+        final int n = 100;
+        final double[] point = new double[n];
+        for (int i = 0; i < n; ++i) {
+            point[i] = 0.01 * i;
+        }
+        for (int k = 0; k < 3; ++k) {
+            final TapeVariable[] v = tape.variables(point);
+            TapeVariable sum = tape.constant(0);
+            for (int i = 0; i < n; ++i) {
+                sum = sum.add(v[i].multiply(v[i]).multiply(i));
+            }
+            final double[] g = tape.gradient(sum);
+            for (int i = 0; i < n; ++i) {
+                Assert.assertEquals(2 * i * point[i], g[i], 1.0e-14);
+            }
+            Assert.assertEquals(n + 1 + 3 * n, tape.getSize());
+        }
+        Assert.assertTrue(tape.getCapacity() >= tape.getSize());
+    }
+
+    @Test(expected=MathIllegalStateException.class)
+    public void testStaleVariable() {
+        final GradientTape tape = new GradientTape();
+        final TapeVariable x = tape.variables(new double[] { 1 })[0];
+        tape.variables(new double[] { 2 });
+        x.sin();
+    }
+
+    @Test(expected=MathIllegalStateException.class)
+    public void testForeignVariable() {
+        final TapeVariable x = new GradientTape().variables(new double[] { 1 })[0];
+        final TapeVariable y = new GradientTape().variables(new double[] { 2 })[0];
+        x.add(y);
+    }
+
+    private void check(DerivativeStructure expected, TapeVariable actual, double tolerance) {
+        Assert.assertEquals(expected.getValue(), actual.getValue(),
+                            tolerance * FastMath.max(1, FastMath.abs(expected.getValue())));
+        final double[] gradient = actual.getTape().gradient(actual);
+        final int[] orders = new int[expected.getFreeParameters()];
+        for (int i = 0; i < orders.length; ++i) {
+            orders[i] = 1;
+            final double d = expected.getPartialDerivative(orders);
+            Assert.assertEquals(d, gradient[i], tolerance * FastMath.max(1, FastMath.abs(d)));
+            orders[i] = 0;
+        }
+    }
+
+}
@@ -464,7 +464,7 @@ public abstract class AbstractLeastSquaresOptimizerAbstractTest {
         Assert.assertEquals(0.04268731682389561, optimum.computeRMS(), 1e-8);
     }
 
-    private final double[][] circlePoints = new double[][]{
+    protected final double[][] circlePoints = new double[][]{
             {-0.312967, 0.072366}, {-0.339248, 0.132965}, {-0.379780, 0.202724},
             {-0.390426, 0.260487}, {-0.361212, 0.328325}, {-0.346039, 0.392619},
             {-0.280579, 0.444306}, {-0.216035, 0.470009}, {-0.149127, 0.493832},
@@ -13,15 +13,30 @@
  */
 package org.apache.commons.math3.fitting.leastsquares;
 
+import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
+import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.DiagonalMatrix;
 import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.SimpleVectorValueChecker;
 import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Incrementor;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 /**
  * The only features tested here are utility methods defined
  * in {@link LeastSquaresProblem.Evaluation} that compute the
@@ -95,4 +110,244 @@ public class EvaluationTest {
                                 expected[i], actual, 1e-6 * expected[i]);
         }
     }
+
+    @Test
+    public void testMemoization() throws IOException {
+        final StatisticalReferenceDataset dataset
+            = StatisticalReferenceDatasetFactory.createKirby2();
+        final LeastSquaresProblem lsp = builder(dataset).build();
+        final Evaluation evaluation = lsp.evaluate(lsp.getStart());
+
+        // derived quantities are computed once
+        Assert.assertSame(evaluation.computeResiduals(), evaluation.computeResiduals());
+        Assert.assertSame(evaluation.computeJacobian(), evaluation.computeJacobian());
+        Assert.assertEquals(evaluation.computeCost(), evaluation.computeCost(), 0);
+        Assert.assertEquals(evaluation.computeCovariances(1e-14),
+                            evaluation.computeCovariances(1e-14));
+    }
+
+    @Test
+    public void testPointIsCopied() throws IOException {
+        final StatisticalReferenceDataset dataset
+            = StatisticalReferenceDatasetFactory.createKirby2();
+        final LeastSquaresProblem lsp = builder(dataset).build();
+        final RealVector point = lsp.getStart();
+        final Evaluation evaluation = lsp.evaluate(point);
+
+        // modifying the point does not modify the evaluation
+        point.setEntry(0, point.getEntry(0) + 1);
+        Assert.assertEquals(lsp.getStart(), evaluation.getPoint());
+    }
+
+    @Test
+    public void testLazyEvaluation() {
+        final int[] counts = new int[2];
+        final ValueAndJacobianFunction model = LeastSquaresFactory.model(
+                new MultivariateVectorFunction() {
+                    public double[] value(double[] point) {
+                        ++counts[0];
+                        return new double[] { point[0] * point[0], point[0] + point[1] };
+                    }
+                },
+                new MultivariateMatrixFunction() {
+                    public double[][] value(double[] point) {
+                        ++counts[1];
+                        return new double[][] { { 2 * point[0], 0 }, { 1, 1 } };
+                    }
+                });
+        final LeastSquaresProblem lsp = LeastSquaresFactory.create(
+                model,
+                new ArrayRealVector(new double[] { 4, 3 }),
+                new ArrayRealVector(new double[] { 1, 1 }),
+                null, 10, 10);
+
+        final Evaluation evaluation = lsp.evaluate(lsp.getStart());
+        Assert.assertEquals(0, counts[0]);
+        Assert.assertEquals(0, counts[1]);
+
+        // the residuals do not need the Jacobian
+        Assert.assertEquals(3, evaluation.computeResiduals().getEntry(0), 0);
+        Assert.assertEquals(FastMath.sqrt(10), evaluation.computeCost(), 1e-15);
+        Assert.assertEquals(1, counts[0]);
+        Assert.assertEquals(0, counts[1]);
+
+        Assert.assertEquals(2, evaluation.computeJacobian().getEntry(0, 0), 0);
+        evaluation.computeJacobian();
+        Assert.assertEquals(1, counts[0]);
+        Assert.assertEquals(1, counts[1]);
+
+        // the pair is still available to the callers of the model
+        model.value(lsp.getStart());
+        Assert.assertEquals(2, counts[0]);
+        Assert.assertEquals(2, counts[1]);
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        final StatisticalReferenceDataset dataset
+            = StatisticalReferenceDatasetFactory.createKirby2();
+        final Incrementor evaluations = new Incrementor(Integer.MAX_VALUE);
+        final Incrementor hits = new Incrementor(Integer.MAX_VALUE);
+        final Incrementor misses = new Incrementor(Integer.MAX_VALUE);
+        final LeastSquaresProblem lsp =
+            LeastSquaresFactory.cache(LeastSquaresFactory.countEvaluations(builder(dataset).build(),
+                                                                           evaluations),
+                                      2, hits, misses);
+
+        final RealVector p1 = lsp.getStart();
+        final RealVector p2 = p1.mapMultiply(1.001);
+        final RealVector p3 = p1.mapMultiply(0.999);
+
+        final Evaluation e1 = lsp.evaluate(p1);
+        Assert.assertSame(e1, lsp.evaluate(p1.copy()));
+        final Evaluation e2 = lsp.evaluate(p2);
+        Assert.assertNotSame(e1, e2);
+        Assert.assertSame(e1, lsp.evaluate(p1));
+        Assert.assertEquals(2, hits.getCount());
+        Assert.assertEquals(2, misses.getCount());
+
+        // p2 is the least recently used, and is dropped
+        lsp.evaluate(p3);
+        Assert.assertSame(e1, lsp.evaluate(p1));
+        Assert.assertNotSame(e2, lsp.evaluate(p2));
+        Assert.assertEquals(3, hits.getCount());
+        Assert.assertEquals(4, misses.getCount());
+        Assert.assertEquals(misses.getCount(), evaluations.getCount());
+    }
+
+    @Test
+    public void testCachedOptimization() throws IOException {
+        final StatisticalReferenceDataset dataset
+            = StatisticalReferenceDatasetFactory.createKirby2();
+        final Incrementor evaluations = new Incrementor(Integer.MAX_VALUE);
+        final LeastSquaresProblem lsp =
+            LeastSquaresFactory.cache(LeastSquaresFactory.countEvaluations(
+                    builder(dataset)
+                        .checkerPair(new SimpleVectorValueChecker(1e-10, 1e-10))
+                        .maxEvaluations(1000)
+                        .maxIterations(1000)
+                        .build(),
+                    evaluations), 10);
+
+        final LeastSquaresOptimizer.Optimum optimum =
+            new LevenbergMarquardtOptimizer().optimize(lsp);
+        for (int i = 0; i < dataset.getNumParameters(); i++) {
+            Assert.assertEquals(dataset.getParameter(i), optimum.getPoint().getEntry(i),
+                                1e-7 * FastMath.abs(dataset.getParameter(i)));
+        }
+
+        // the model is not evaluated again at the optimum
+        final int count = evaluations.getCount();
+        Assert.assertEquals(optimum.computeCost(),
+                            lsp.evaluate(optimum.getPoint()).computeCost(), 0);
+        Assert.assertEquals(count, evaluations.getCount());
+    }
+
+    @Test
+    public void testConcurrentCache() throws Exception {
+        final AtomicInteger evaluations = new AtomicInteger();
+        final AtomicInteger values = new AtomicInteger();
+        final AtomicInteger jacobians = new AtomicInteger();
+        final ValueAndJacobianFunction model = LeastSquaresFactory.model(
+                new MultivariateVectorFunction() {
+                    public double[] value(double[] point) {
+                        values.incrementAndGet();
+                        return new double[] { point[0] * point[0], point[0] + point[1] };
+                    }
+                },
+                new MultivariateMatrixFunction() {
+                    public double[][] value(double[] point) {
+                        jacobians.incrementAndGet();
+                        return new double[][] { { 2 * point[0], 0 }, { 1, 1 } };
+                    }
+                });
+        final LeastSquaresProblem slow = new LeastSquaresAdapter(LeastSquaresFactory.create(
+                model,
+                new ArrayRealVector(new double[] { 4, 3 }),
+                new ArrayRealVector(new double[] { 1, 1 }),
+                null, 10, 10)) {
+            @Override
+            public Evaluation evaluate(RealVector point) {
+                evaluations.incrementAndGet();
+                try {
+                    // leave time to the other threads to miss the cache
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.evaluate(point);
+            }
+        };
+        final Incrementor hits = new Incrementor(Integer.MAX_VALUE);
+        final Incrementor misses = new Incrementor(Integer.MAX_VALUE);
+        final LeastSquaresProblem lsp = LeastSquaresFactory.cache(slow, 2, hits, misses);
+
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Callable<Evaluation>> tasks = new ArrayList<Callable<Evaluation>>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(new Callable<Evaluation>() {
+                    public Evaluation call() throws InterruptedException {
+                        start.await();
+                        final Evaluation evaluation = lsp.evaluate(lsp.getStart().copy());
+                        evaluation.computeCost();
+                        evaluation.computeJacobian();
+                        return evaluation;
+                    }
+                });
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Evaluation>> futures = new ArrayList<Future<Evaluation>>();
+            for (final Callable<Evaluation> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            final Evaluation first = futures.get(0).get();
+            for (final Future<Evaluation> future : futures) {
+                Assert.assertSame(first, future.get());
+            }
+            Assert.assertEquals(FastMath.sqrt(10), first.computeCost(), 1e-15);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // a single evaluation, whose quantities are computed once
+        Assert.assertEquals(1, evaluations.get());
+        Assert.assertEquals(1, misses.getCount());
+        Assert.assertEquals(threads - 1, hits.getCount());
+        Assert.assertEquals(1, values.get());
+        Assert.assertEquals(1, jacobians.get());
+    }
+
+    @Test
+    public void testCacheDropsFailures() throws IOException {
+        final AtomicInteger evaluations = new AtomicInteger();
+        final LeastSquaresProblem failing =
+            new LeastSquaresAdapter(builder(StatisticalReferenceDatasetFactory.createKirby2()).build()) {
+                @Override
+                public Evaluation evaluate(RealVector point) {
+                    if (evaluations.incrementAndGet() == 1) {
+                        throw new TooManyEvaluationsException(1);
+                    }
+                    return super.evaluate(point);
+                }
+            };
+        final LeastSquaresProblem lsp = LeastSquaresFactory.cache(failing, 2);
+
+        try {
+            lsp.evaluate(lsp.getStart());
+            Assert.fail("an exception should have been thrown");
+        } catch (TooManyEvaluationsException e) {
+            // expected
+        }
+        final Evaluation evaluation = lsp.evaluate(lsp.getStart());
+        Assert.assertSame(evaluation, lsp.evaluate(lsp.getStart()));
+        Assert.assertEquals(2, evaluations.get());
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testCacheCapacity() throws IOException {
+        LeastSquaresFactory.cache(builder(StatisticalReferenceDatasetFactory.createKirby2()).build(), 0);
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.ExecutorAbstractTest;
+import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresOptimizer.Optimum;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.DiagonalMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.optim.SimpleVectorValueChecker;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the finite differences models built by {@link LeastSquaresFactory}.
+ *
+ * @version $Id$
+ */
+public class FiniteDifferencesModelTest extends ExecutorAbstractTest {
+    public FiniteDifferencesModelTest() {
+        super(3);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullValue() {
+        LeastSquaresFactory.finiteDifferencesModel(null, FiniteDifferenceScheme.CENTRAL);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullScheme() {
+        LeastSquaresFactory.finiteDifferencesModel(new ExponentialModel(abscissae(5)), null);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullExecutor() {
+        LeastSquaresFactory.finiteDifferencesModel(new ExponentialModel(abscissae(5)),
+                                                   FiniteDifferenceScheme.CENTRAL, null);
+    }
+
+    @Test
+    public void testAccuracy() {
+        final ExponentialModel model = new ExponentialModel(abscissae(20));
+        final double[] p = { 2.5, -0.7, 0 };
+        final RealMatrix expected = model.jacobian(p);
+        checkAccuracy(expected, FiniteDifferenceScheme.FORWARD, model, p, 1e-6);
+        checkAccuracy(expected, FiniteDifferenceScheme.CENTRAL, model, p, 1e-9);
+        checkAccuracy(expected, FiniteDifferenceScheme.RICHARDSON, model, p, 1e-11);
+    }
+
+    @Test
+    public void testEvaluationCounts() {
+        final ExponentialModel model = new ExponentialModel(abscissae(10));
+        final double[] p = { 1, 0.2, 3 };
+        for (final FiniteDifferenceScheme scheme : FiniteDifferenceScheme.values()) {
+            model.count = 0;
+            final LeastSquaresProblem problem
+                = LeastSquaresFactory.create(LeastSquaresFactory.finiteDifferencesModel(model, scheme),
+                                             new ArrayRealVector(10), new ArrayRealVector(p),
+                                             null, 10, 10);
+            final Evaluation evaluation = problem.evaluate(problem.getStart());
+            evaluation.computeResiduals();
+            Assert.assertEquals(1, model.count);
+            evaluation.computeJacobian();
+            // forward differences reuse the value at the point
+            Assert.assertEquals(scheme.name(),
+                                1 + p.length * scheme.getEvaluationsPerColumn(),
+                                model.count);
+        }
+    }
+
+    @Test
+    public void testSameAsSequential() {
+        final ExponentialModel model = new ExponentialModel(abscissae(50));
+        final double[] p = { 1.5, -0.3, 0.25 };
+        for (final FiniteDifferenceScheme scheme : FiniteDifferenceScheme.values()) {
+            final RealMatrix sequential
+                = LeastSquaresFactory.finiteDifferencesModel(model, scheme).computeJacobian(p);
+            final RealMatrix parallel
+                = LeastSquaresFactory.finiteDifferencesModel(model, scheme, executor).computeJacobian(p);
+            Assert.assertEquals(sequential, parallel);
+        }
+        // the executor is left running
+        Assert.assertFalse(executor.isShutdown());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testExceptionInColumn() {
+        LeastSquaresFactory.finiteDifferencesModel(new MultivariateVectorFunction() {
+            public double[] value(double[] point) {
+                if (point[1] != 0) {
+                    throw new IllegalStateException();
+                }
+                return point.clone();
+            }
+        }, FiniteDifferenceScheme.CENTRAL, executor).computeJacobian(new double[3]);
+    }
+
+    @Test
+    public void testFit() {
+        final double[] x = abscissae(40);
+        final ExponentialModel model = new ExponentialModel(x);
+        final double[] solution = { 3, -0.8, 0.5 };
+        final double[] target = model.value(solution);
+        for (int i = 0; i < target.length; i++) {
+            // deterministic noise
+            target[i] += 1e-3 * FastMath.sin(7 * i);
+        }
+
+        final double[] weights = new double[target.length];
+        Arrays.fill(weights, 1);
+
+        final LeastSquaresBuilder builder = new LeastSquaresBuilder()
+                .checkerPair(new SimpleVectorValueChecker(1e-12, 1e-12))
+                .maxEvaluations(1000)
+                .maxIterations(100)
+                .target(target)
+                .weight(new DiagonalMatrix(weights))
+                .start(new double[] { 1, -0.1, 0 });
+
+        final Optimum analytic = new LevenbergMarquardtOptimizer().optimize(
+                builder.model(model, new MultivariateMatrixFunction() {
+                    public double[][] value(double[] point) {
+                        return model.jacobian(point).getData();
+                    }
+                }).build());
+        for (final FiniteDifferenceScheme scheme : FiniteDifferenceScheme.values()) {
+            final Optimum optimum = new LevenbergMarquardtOptimizer().optimize(
+                    builder.model(model, scheme, executor).build());
+            for (int j = 0; j < solution.length; j++) {
+                Assert.assertEquals(scheme.name(),
+                                    analytic.getPoint().getEntry(j),
+                                    optimum.getPoint().getEntry(j),
+                                    1e-6);
+            }
+        }
+    }
+
+    private static void checkAccuracy(final RealMatrix expected,
+                                      final FiniteDifferenceScheme scheme,
+                                      final MultivariateVectorFunction model,
+                                      final double[] p,
+                                      final double tolerance) {
+        final RealMatrix actual = LeastSquaresFactory.finiteDifferencesModel(model, scheme).computeJacobian(p);
+        for (int i = 0; i < expected.getRowDimension(); i++) {
+            for (int j = 0; j < expected.getColumnDimension(); j++) {
+                final double e = expected.getEntry(i, j);
+                Assert.assertEquals(scheme.name() + " [" + i + "][" + j + "]",
+                                    e, actual.getEntry(i, j),
+                                    tolerance * FastMath.max(1, FastMath.abs(e)));
+            }
+        }
+    }
+
+    private static double[] abscissae(final int n) {
+        final double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 0.1 * i;
+        }
+        return x;
+    }
+
+    /** Model {@code a exp(b x) + c}, which counts its evaluations. */
+    private static class ExponentialModel implements MultivariateVectorFunction {
+        private final double[] x;
+        private int count;
+
+        ExponentialModel(final double[] x) {
+            this.x = x;
+        }
+
+        public synchronized double[] value(final double[] p) {
+            ++count;
+            final double[] v = new double[x.length];
+            for (int i = 0; i < x.length; i++) {
+                v[i] = p[0] * FastMath.exp(p[1] * x[i]) + p[2];
+            }
+            return v;
+        }
+
+        RealMatrix jacobian(final double[] p) {
+            final double[][] jacobian = new double[x.length][];
+            for (int i = 0; i < x.length; i++) {
+                final double e = FastMath.exp(p[1] * x[i]);
+                jacobian[i] = new double[] { e, p[0] * x[i] * e, 1 };
+            }
+            return new Array2DRowRealMatrix(jacobian, false);
+        }
+    }
+}
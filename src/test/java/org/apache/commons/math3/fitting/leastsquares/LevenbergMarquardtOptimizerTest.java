@@ -20,6 +20,7 @@ package org.apache.commons.math3.fitting.leastsquares;
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
 import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotPositiveException;
 import org.apache.commons.math3.exception.TooManyEvaluationsException;
 import org.apache.commons.math3.fitting.leastsquares.LeastSquaresOptimizer.Optimum;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
@@ -27,6 +28,7 @@ import org.apache.commons.math3.linear.DiagonalMatrix;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.linear.SingularMatrixException;
+import org.apache.commons.math3.optim.SimpleVectorValueChecker;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.Precision;
 import org.junit.Assert;
@@ -69,6 +71,70 @@ public class LevenbergMarquardtOptimizerTest
         check(new LevenbergMarquardtOptimizer());
     }
 
+    @Test
+    public void testGeodesicAcceleration() throws Exception {
+        // acceleration is an option, it is not run through the whole suite:
+        // on the ill-conditioned Hahn1 problem, the accelerated steps stop on
+        // a slightly different point with the loose checker of these tests
+        final LeastSquaresOptimizer optimizer
+            = new LevenbergMarquardtOptimizer().withGeodesicAcceleration(true);
+        testTrivial(optimizer);
+        testQRColumnsPermutation(optimizer);
+        testNoDependency(optimizer);
+        testOneSet(optimizer);
+        testTwoSets(optimizer);
+        testIllConditioned(optimizer);
+        testRedundantEquations(optimizer);
+        testInconsistentEquations(optimizer);
+        testCircleFitting(optimizer);
+        testCircleFittingBadInit(optimizer);
+        testCircleFittingGoodInit(optimizer);
+        testCircleFitting2(optimizer);
+        testKirby2(optimizer);
+        testBevington(optimizer);
+    }
+
+    @Test
+    public void testBroydenUpdates() {
+        checkBevington(fitBevington(new LevenbergMarquardtOptimizer().withBroydenUpdates(5), 100));
+        checkBevington(fitBevington(new LevenbergMarquardtOptimizer()
+                                            .withBroydenUpdates(5)
+                                            .withGeodesicAcceleration(true), 100));
+
+        CircleVectorial circle = new CircleVectorial();
+        circle.addPoint(30, 68);
+        circle.addPoint(50, -6);
+        circle.addPoint(110, -20);
+        circle.addPoint(35, 15);
+        circle.addPoint(45, 97);
+        final LeastSquaresProblem problem = builder(circle)
+                .checkerPair(new SimpleVectorValueChecker(1e-12, 1e-12))
+                .start(new double[] { 98.680, 47.345 })
+                .build();
+        final Optimum reference = new LevenbergMarquardtOptimizer().optimize(problem);
+        final Optimum optimum = new LevenbergMarquardtOptimizer().withBroydenUpdates(3).optimize(problem);
+
+        assertEquals(1e-6, optimum.getPoint(), reference.getPoint().toArray());
+        Assert.assertEquals(reference.computeRMS(), optimum.computeRMS(), 1e-12);
+    }
+
+    @Test
+    public void testAccelerationParameters() {
+        LevenbergMarquardtOptimizer optimizer = new LevenbergMarquardtOptimizer();
+        Assert.assertEquals(0, optimizer.getBroydenUpdates());
+        Assert.assertFalse(optimizer.isGeodesicAcceleration());
+
+        optimizer = optimizer.withBroydenUpdates(4).withGeodesicAcceleration(true).withOrthoTolerance(1e-8);
+        Assert.assertEquals(4, optimizer.getBroydenUpdates());
+        Assert.assertTrue(optimizer.isGeodesicAcceleration());
+        Assert.assertEquals(1e-8, optimizer.getOrthoTolerance(), 0);
+    }
+
+    @Test(expected=NotPositiveException.class)
+    public void testNegativeBroydenUpdates() {
+        new LevenbergMarquardtOptimizer().withBroydenUpdates(-1);
+    }
+
     @Override
     public void check(LeastSquaresOptimizer optimizer) throws Exception {
         super.check(optimizer);
@@ -163,6 +229,17 @@ public class LevenbergMarquardtOptimizerTest
      * investigation).
      */
     public void testBevington(LeastSquaresOptimizer optimizer) {
+        checkBevington(fitBevington(optimizer, 20));
+    }
+
+    /**
+     * Fit the decay curve of {@link #testBevington(LeastSquaresOptimizer)}.
+     *
+     * @param optimizer optimizer to use
+     * @param maxIterations maximal number of iterations
+     * @return the optimum
+     */
+    private Optimum fitBevington(LeastSquaresOptimizer optimizer, int maxIterations) {
         final double[][] dataPoints = {
             // column 1 = times
             { 15, 30, 45, 60, 75, 90, 105, 120, 135, 150,
@@ -192,15 +269,22 @@ public class LevenbergMarquardtOptimizerTest
             weights[i] = 1 / dataPoints[1][i];
         }
 
-        final Optimum optimum = optimizer.optimize(
+        return optimizer.optimize(
                 builder(problem)
                         .target(dataPoints[1])
                         .weight(new DiagonalMatrix(weights))
                         .start(start)
-                        .maxIterations(20)
+                        .maxIterations(maxIterations)
                         .build()
         );
+    }
 
+    /**
+     * Check the solution of {@link #testBevington(LeastSquaresOptimizer)}.
+     *
+     * @param optimum the optimum found
+     */
+    private void checkBevington(Optimum optimum) {
         final RealVector solution = optimum.getPoint();
         final double[] expectedSolution = { 10.4, 958.3, 131.4, 33.9, 205.0 };
 
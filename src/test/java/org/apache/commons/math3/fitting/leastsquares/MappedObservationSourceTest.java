@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @version $Id$
+ */
+public class MappedObservationSourceTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("observations", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Write records whose doubles are {@code 10 * record + component}.
+     *
+     * @param records number of records
+     * @param recordLength number of doubles in each record
+     */
+    private void write(int records, int recordLength) throws IOException {
+        final DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            for (int i = 0; i < records; i++) {
+                for (int j = 0; j < recordLength; j++) {
+                    out.writeDouble(10 * i + j);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        write(25, 3);
+        final ObservationSource source = new MappedObservationSource(file, 3);
+        Assert.assertEquals(3, source.getRecordLength());
+        Assert.assertEquals(25, source.getObservationSize());
+
+        final double[] buffer = new double[3 * 4];
+        source.read(21, 4, buffer);
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 3; j++) {
+                Assert.assertEquals(10 * (21 + i) + j, buffer[3 * i + j], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testReadAcrossWindows() throws IOException {
+        write(25, 3);
+        // windows of 4 records, the last one holding a single record
+        final ObservationSource source =
+            new MappedObservationSource(file, 3, ByteOrder.BIG_ENDIAN, 4 * 3 * 8 + 5);
+        final double[] buffer = new double[3 * 25];
+        source.read(0, 25, buffer);
+        for (int i = 0; i < 25; i++) {
+            for (int j = 0; j < 3; j++) {
+                Assert.assertEquals(10 * i + j, buffer[3 * i + j], 0);
+            }
+        }
+        source.read(7, 10, buffer);
+        Assert.assertEquals(70, buffer[0], 0);
+        Assert.assertEquals(162, buffer[29], 0);
+    }
+
+    @Test
+    public void testLittleEndian() throws IOException {
+        final ByteBuffer bytes = ByteBuffer.allocate(2 * 8).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putDouble(1.5).putDouble(-2.25);
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes.array());
+        } finally {
+            out.close();
+        }
+
+        final ObservationSource source =
+            new MappedObservationSource(file, 2, ByteOrder.LITTLE_ENDIAN);
+        final double[] buffer = new double[2];
+        source.read(0, 1, buffer);
+        Assert.assertEquals(1.5, buffer[0], 0);
+        Assert.assertEquals(-2.25, buffer[1], 0);
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final ObservationSource source = new MappedObservationSource(file, 2);
+        Assert.assertEquals(0, source.getObservationSize());
+        source.read(0, 0, new double[0]);
+    }
+
+    @Test
+    public void testPartialRecord() throws IOException {
+        write(5, 3);
+        try {
+            new MappedObservationSource(file, 2);
+            Assert.fail("an exception should have been thrown");
+        } catch (DimensionMismatchException e) {
+            Assert.assertEquals(8, e.getArgument());
+            Assert.assertEquals(16, e.getDimension());
+            Assert.assertTrue(e.getMessage().contains("last record has 8 bytes instead of 16"));
+        }
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testRecordLength() throws IOException {
+        new MappedObservationSource(file, 0);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testReadOutOfRange() throws IOException {
+        write(5, 3);
+        new MappedObservationSource(file, 3).read(3, 3, new double[9]);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testBufferTooSmall() throws IOException {
+        write(5, 3);
+        new MappedObservationSource(file, 3).read(0, 3, new double[8]);
+    }
+}
@@ -495,6 +495,42 @@ public class MinpackTest {
                 }), false);
     }
 
+    @Test
+    public void testMinpackBroydenUpdates() {
+        final MinpackFunction[] functions = {
+            new RosenbrockFunction(new double[] { -1.2, 1.0 }, FastMath.sqrt(24.2)),
+            new HelicalValleyFunction(new double[] { -10.0, 0.0, 0.0 }, 102.95630140987),
+            new PowellSingularFunction(new double[] { 3.0, -1.0, 0.0, 1.0 }, 14.6628782986152),
+            new PowellSingularFunction(new double[] { 30.0, -10.0, 0.0, 10.0 }, 1270.9838708654),
+            new Box3DimensionalFunction(10, new double[] { 0.0, 10.0, 20.0 }, 32.1115837449572),
+            new ChebyquadFunction(8, 8, 1.0, 0.196513862833975, 0.0593032355046727, null)
+        };
+        int plain = 0;
+        int broyden = 0;
+        for (MinpackFunction function : functions) {
+            plain += countJacobianEvaluations(function, 0, false);
+            broyden += countJacobianEvaluations(function, 5, false);
+            countJacobianEvaluations(function, 5, true);
+        }
+        // the rank-one updates replace most of the Jacobian evaluations
+        Assert.assertTrue(2 * broyden < plain);
+    }
+
+    @Test
+    public void testMinpackGeodesicAcceleration() {
+        countJacobianEvaluations(new RosenbrockFunction(new double[] { -12.0, 10.0 },
+                                                        FastMath.sqrt(1795769.0)), 0, true);
+        countJacobianEvaluations(new HelicalValleyFunction(new double[] { -100.0, 0.0, 0.0},
+                                                           991.261822123701), 0, true);
+        countJacobianEvaluations(new PowellSingularFunction(new double[] { 300.0, -100.0, 0.0, 100.0 },
+                                                            126887.903284750), 0, true);
+        countJacobianEvaluations(new JennrichSampsonFunction(10, new double[] { 0.3, 0.4 },
+                                                             64.5856498144943, 11.1517793413499,
+                                                             new double[] {
+                                                                 0.2578199266368004, 0.25782997676455244
+                                                             }), 0, true);
+    }
+
     private void minpackTest(MinpackFunction function, boolean exceptionExpected) {
         final double tol = 2.22044604926e-16;
         final double sqrtTol = FastMath.sqrt(tol);
@@ -523,7 +559,49 @@ public class MinpackTest {
         }
     }
 
-    private static abstract class MinpackFunction {
+    /**
+     * Solve a problem with the accelerations of the Levenberg-Marquardt
+     * optimizer, and count the Jacobian evaluations.
+     *
+     * @param function the problem to solve
+     * @param broydenUpdates maximal number of Broyden updates of the Jacobian
+     * @param geodesicAcceleration whether geodesic acceleration is used
+     * @return the number of Jacobian evaluations
+     */
+    private int countJacobianEvaluations(final MinpackFunction function,
+                                         int broydenUpdates, boolean geodesicAcceleration) {
+        final double tol = 2.22044604926e-16;
+        final double sqrtTol = FastMath.sqrt(tol);
+
+        LevenbergMarquardtOptimizer optimizer = new LevenbergMarquardtOptimizer()
+            .withCostRelativeTolerance(sqrtTol)
+            .withParameterRelativeTolerance(sqrtTol)
+            .withOrthoTolerance(tol)
+            .withBroydenUpdates(broydenUpdates)
+            .withGeodesicAcceleration(geodesicAcceleration);
+
+        final int[] jacobianEvaluations = new int[1];
+        LeastSquaresProblem problem = new LeastSquaresBuilder()
+                .maxEvaluations(400 * (function.getN() + 1))
+                .maxIterations(2000)
+                .model(function.getModelFunction(), new MultivariateMatrixFunction() {
+                    public double[][] value(double[] point) {
+                        ++jacobianEvaluations[0];
+                        return function.computeJacobian(point);
+                    }
+                })
+                .target(function.getTarget())
+                .weight(new DiagonalMatrix(function.getWeight()))
+                .start(function.getStartPoint())
+                .build();
+
+        final Optimum optimum = optimizer.optimize(problem);
+        function.checkTheoreticalMinCost(optimum.computeRMS());
+        function.checkTheoreticalMinParams(optimum.getPoint().toArray());
+        return jacobianEvaluations[0];
+    }
+
+    static abstract class MinpackFunction {
         protected int      n;
         protected int      m;
         protected double[] startParams;
@@ -609,7 +687,7 @@ public class MinpackTest {
         public abstract double[] computeValue(double[] variables);
     }
 
-    private static class LinearFullRankFunction extends MinpackFunction {
+    static class LinearFullRankFunction extends MinpackFunction {
         private static final long serialVersionUID = -9030323226268039536L;
         
         public LinearFullRankFunction(int m, int n, double x0,
@@ -648,7 +726,7 @@ public class MinpackTest {
         }
     }
 
-    private static class LinearRank1Function extends MinpackFunction {
+    static class LinearRank1Function extends MinpackFunction {
         private static final long serialVersionUID = 8494863245104608300L;
 
         public LinearRank1Function(int m, int n, double x0,
@@ -683,7 +761,7 @@ public class MinpackTest {
         }
     }
 
-    private static class LinearRank1ZeroColsAndRowsFunction extends MinpackFunction {
+    static class LinearRank1ZeroColsAndRowsFunction extends MinpackFunction {
         private static final long serialVersionUID = -3316653043091995018L;
 
         public LinearRank1ZeroColsAndRowsFunction(int m, int n, double x0) {
@@ -727,7 +805,7 @@ public class MinpackTest {
         }
     }
 
-    private static class RosenbrockFunction extends MinpackFunction {
+    static class RosenbrockFunction extends MinpackFunction {
         private static final long serialVersionUID = 2893438180956569134L;
         public RosenbrockFunction(double[] startParams, double theoreticalStartCost) {
             super(2, startParams, 0.0, buildArray(2, 1.0));
@@ -747,7 +825,7 @@ public class MinpackTest {
         }
     }
 
-    private static class HelicalValleyFunction extends MinpackFunction {
+    static class HelicalValleyFunction extends MinpackFunction {
         private static final long serialVersionUID = 220613787843200102L;
         public HelicalValleyFunction(double[] startParams,
                                      double theoreticalStartCost) {
@@ -793,7 +871,7 @@ public class MinpackTest {
         private static final double twoPi = 2.0 * FastMath.PI;
     }
 
-    private static class PowellSingularFunction extends MinpackFunction {
+    static class PowellSingularFunction extends MinpackFunction {
         private static final long serialVersionUID = 7298364171208142405L;
 
         public PowellSingularFunction(double[] startParams,
@@ -833,7 +911,7 @@ public class MinpackTest {
         private static final double sqrt10 = FastMath.sqrt(10.0);
   }
 
-    private static class FreudensteinRothFunction extends MinpackFunction {
+    static class FreudensteinRothFunction extends MinpackFunction {
         private static final long serialVersionUID = 2892404999344244214L;
 
         public FreudensteinRothFunction(double[] startParams,
@@ -864,7 +942,7 @@ public class MinpackTest {
         }
     }
 
-    private static class BardFunction extends MinpackFunction {
+    static class BardFunction extends MinpackFunction {
         private static final long serialVersionUID = 5990442612572087668L;
 
         public BardFunction(double x0,
@@ -913,7 +991,7 @@ public class MinpackTest {
         };
     }
 
-    private static class KowalikOsborneFunction extends MinpackFunction {
+    static class KowalikOsborneFunction extends MinpackFunction {
         private static final long serialVersionUID = -4867445739880495801L;
 
         public KowalikOsborneFunction(double[] startParams,
@@ -969,7 +1047,7 @@ public class MinpackTest {
         };
     }
 
-    private static class MeyerFunction extends MinpackFunction {
+    static class MeyerFunction extends MinpackFunction {
         private static final long serialVersionUID = -838060619150131027L;
 
         public MeyerFunction(double[] startParams,
@@ -1020,7 +1098,7 @@ public class MinpackTest {
         };
     }
 
-    private static class WatsonFunction extends MinpackFunction {
+    static class WatsonFunction extends MinpackFunction {
         private static final long serialVersionUID = -9034759294980218927L;
 
         public WatsonFunction(int n, double x0,
@@ -1091,7 +1169,7 @@ public class MinpackTest {
         }
     }
 
-    private static class Box3DimensionalFunction extends MinpackFunction {
+    static class Box3DimensionalFunction extends MinpackFunction {
         private static final long serialVersionUID = 5511403858142574493L;
 
         public Box3DimensionalFunction(int m, double[] startParams,
@@ -1131,7 +1209,7 @@ public class MinpackTest {
         }
     }
 
-    private static class JennrichSampsonFunction extends MinpackFunction {
+    static class JennrichSampsonFunction extends MinpackFunction {
         private static final long serialVersionUID = -2489165190443352947L;
 
         public JennrichSampsonFunction(int m, double[] startParams,
@@ -1167,7 +1245,7 @@ public class MinpackTest {
         }
     }
 
-    private static class BrownDennisFunction extends MinpackFunction {
+    static class BrownDennisFunction extends MinpackFunction {
         private static final long serialVersionUID = 8340018645694243910L;
 
         public BrownDennisFunction(int m, double[] startParams,
@@ -1215,7 +1293,7 @@ public class MinpackTest {
         }
     }
 
-    private static class ChebyquadFunction extends MinpackFunction {
+    static class ChebyquadFunction extends MinpackFunction {
         private static final long serialVersionUID = -2394877275028008594L;
 
         private static double[] buildChebyquadArray(int n, double factor) {
@@ -1293,7 +1371,7 @@ public class MinpackTest {
         }
     }
 
-    private static class BrownAlmostLinearFunction extends MinpackFunction {
+    static class BrownAlmostLinearFunction extends MinpackFunction {
         private static final long serialVersionUID = 8239594490466964725L;
 
         public BrownAlmostLinearFunction(int m, double factor,
@@ -1354,7 +1432,7 @@ public class MinpackTest {
         }
     }
 
-    private static class Osborne1Function extends MinpackFunction {
+    static class Osborne1Function extends MinpackFunction {
         private static final long serialVersionUID = 4006743521149849494L;
 
         public Osborne1Function(double[] startParams,
@@ -1407,7 +1485,7 @@ public class MinpackTest {
         };
     }
 
-    private static class Osborne2Function extends MinpackFunction {
+    static class Osborne2Function extends MinpackFunction {
         private static final long serialVersionUID = -8418268780389858746L;
 
         public Osborne2Function(double[] startParams,
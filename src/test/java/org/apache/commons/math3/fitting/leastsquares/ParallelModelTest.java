@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import org.apache.commons.math3.ExecutorAbstractTest;
+import org.apache.commons.math3.analysis.ParametricUnivariateFunction;
+import org.apache.commons.math3.analysis.function.Gaussian;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresOptimizer.Optimum;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.SimpleVectorValueChecker;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the parallel models built by {@link LeastSquaresFactory}.
+ *
+ * @version $Id$
+ */
+public class ParallelModelTest extends ExecutorAbstractTest {
+    public ParallelModelTest() {
+        super(3);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullModel() {
+        LeastSquaresFactory.parallelModel((ObservationFunction) null, 10, 2, executor);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullExecutor() {
+        LeastSquaresFactory.parallelModel(new Gaussian.Parametric(), new double[3], 2, null);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNoObservations() {
+        LeastSquaresFactory.parallelModel(new Gaussian.Parametric(), new double[0], 2, executor);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testChunkSize() {
+        LeastSquaresFactory.parallelModel(new Gaussian.Parametric(), new double[3], 0, executor);
+    }
+
+    @Test
+    public void testSameAsSequential() {
+        final ParametricUnivariateFunction f = new Gaussian.Parametric();
+        final double[] x = abscissae(1001);
+        final double[] p = { 3, 0.5, 1.5 };
+
+        // the last chunk is smaller than the others
+        for (final int chunkSize : new int[] { 1, 64, 1000, 5000 }) {
+            final Pair<RealVector, RealMatrix> value
+                = LeastSquaresFactory.parallelModel(f, x, chunkSize, executor)
+                                     .value(new ArrayRealVector(p));
+            Assert.assertEquals(x.length, value.getFirst().getDimension());
+            Assert.assertEquals(x.length, value.getSecond().getRowDimension());
+            Assert.assertEquals(p.length, value.getSecond().getColumnDimension());
+            for (int i = 0; i < x.length; i++) {
+                Assert.assertEquals(f.value(x[i], p), value.getFirst().getEntry(i), 0);
+                final double[] gradient = f.gradient(x[i], p);
+                for (int j = 0; j < p.length; j++) {
+                    Assert.assertEquals(gradient[j], value.getSecond().getEntry(i, j), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFit() {
+        final ParametricUnivariateFunction f = new Gaussian.Parametric();
+        final double[] x = abscissae(20000);
+        final double[] p = { 3, 0.5, 1.5 };
+        final double[] y = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = f.value(x[i], p);
+        }
+
+        for (final LeastSquaresOptimizer optimizer :
+                 new LeastSquaresOptimizer[] {
+                     new LevenbergMarquardtOptimizer(), new GaussNewtonOptimizer()
+                 }) {
+            final Optimum optimum = optimizer.optimize(
+                    LeastSquaresFactory.create(
+                            LeastSquaresFactory.parallelModel(f, x, 500, executor),
+                            new ArrayRealVector(y, false),
+                            new ArrayRealVector(new double[] { 2.5, 0.3, 1.2 }),
+                            LeastSquaresFactory.evaluationChecker(
+                                    new SimpleVectorValueChecker(1e-12, 1e-12)),
+                            100, 100));
+            for (int j = 0; j < p.length; j++) {
+                Assert.assertEquals(p[j], optimum.getPoint().getEntry(j), 1e-9);
+            }
+        }
+    }
+
+    @Test(expected=TestException.class)
+    public void testException() {
+        final ObservationFunction failing = new ObservationFunction() {
+                public double value(int observation, double[] point, double[] gradient) {
+                    if (observation == 57) {
+                        throw new TestException();
+                    }
+                    gradient[0] = 1;
+                    return point[0];
+                }
+            };
+        LeastSquaresFactory.parallelModel(failing, 100, 10, executor)
+                           .value(new ArrayRealVector(new double[] { 1 }));
+    }
+
+    /**
+     * @param n number of abscissae
+     * @return abscissae evenly spread in [-2, 3]
+     */
+    private static double[] abscissae(int n) {
+        final double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = -2 + 5.0 * i / (n - 1);
+        }
+        return x;
+    }
+
+    private static class TestException extends RuntimeException {
+        private static final long serialVersionUID = 20140420L;
+    }
+}
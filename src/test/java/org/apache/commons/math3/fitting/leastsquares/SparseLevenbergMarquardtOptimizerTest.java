@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresOptimizer.Optimum;
+import org.apache.commons.math3.fitting.leastsquares.LeastSquaresProblem.Evaluation;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CompressedRowRealMatrix;
+import org.apache.commons.math3.linear.DiagonalMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.apache.commons.math3.optim.ConvergenceChecker;
+import org.apache.commons.math3.optim.SimpleVectorValueChecker;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @version $Id$
+ */
+public class SparseLevenbergMarquardtOptimizerTest
+    extends AbstractLeastSquaresOptimizerAbstractTest {
+
+    @Override
+    public int getMaxIterations() {
+        return 25;
+    }
+
+    @Test
+    public void testSparseLevenbergMarquardtOptimizer() throws Exception {
+        check(new SparseLevenbergMarquardtOptimizer());
+    }
+
+    @Override
+    public void testNonInvertible(LeastSquaresOptimizer optimizer) {
+        try {
+            /*
+             * LSQR computes a least-squares step even when the Jacobian is
+             * singular: the singularity only shows up in the covariances.
+             */
+            LinearProblem problem = new LinearProblem(new double[][] {
+                    {  1, 2, -3 },
+                    {  2, 1,  3 },
+                    { -3, 0, -9 }
+            }, new double[] { 1, 1, 1 });
+
+            final Optimum optimum = optimizer.optimize(problem.getBuilder().build());
+
+            Assert.assertTrue(FastMath.sqrt(problem.getTarget().length) * optimum.computeRMS() > 0.6);
+
+            optimum.computeCovariances(1.5e-14);
+
+            fail(optimizer);
+        } catch (SingularMatrixException e) {
+            //expected
+        }
+    }
+
+    @Override
+    public void testMoreEstimatedParametersUnsorted(LeastSquaresOptimizer optimizer) {
+        /*
+         * Only the sum of the first two parameters is defined by the problem:
+         * LSQR does not move them along the null space of the Jacobian, where
+         * the dense optimizer ends up at (2, 1).
+         */
+        LinearProblem problem = new LinearProblem(new double[][]{
+                {1, 1, 0, 0, 0, 0},
+                {0, 0, 1, 1, 1, 0},
+                {0, 0, 0, 0, 1, -1},
+                {0, 0, -1, 1, 0, 1},
+                {0, 0, 0, -1, 1, 0}
+        }, new double[]{3, 12, -1, 7, 1});
+
+        Optimum optimum = optimizer.optimize(
+                problem.getBuilder().start(new double[]{2, 2, 2, 2, 2, 2}).build());
+
+        Assert.assertEquals(0, optimum.computeRMS(), TOl);
+        assertEquals(TOl, optimum.getPoint(), 1.5, 1.5, 3, 4, 5, 6);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullChecker() {
+        new SparseLevenbergMarquardtOptimizer().optimize(
+                LeastSquaresFactory.create(new ChainFunction(3),
+                                           new ArrayRealVector(3),
+                                           new ArrayRealVector(3),
+                                           null, 10, 10));
+    }
+
+    @Test
+    public void testControlParameters() {
+        SparseLevenbergMarquardtOptimizer optimizer
+                = new SparseLevenbergMarquardtOptimizer()
+                        .withInitialDamping(1)
+                        .withLsqrTolerance(1e-6)
+                        .withMaxLsqrIterations(7);
+        Assert.assertEquals(1, optimizer.getInitialDamping(), 0);
+        Assert.assertEquals(1e-6, optimizer.getLsqrTolerance(), 0);
+        Assert.assertEquals(7, optimizer.getMaxLsqrIterations());
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testZeroInitialDamping() {
+        new SparseLevenbergMarquardtOptimizer().withInitialDamping(0);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNegativeInitialDamping() {
+        new SparseLevenbergMarquardtOptimizer(-1, 1e-12, 0);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNaNInitialDamping() {
+        new SparseLevenbergMarquardtOptimizer().withInitialDamping(Double.NaN);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testZeroLsqrTolerance() {
+        new SparseLevenbergMarquardtOptimizer().withLsqrTolerance(0);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNegativeLsqrTolerance() {
+        new SparseLevenbergMarquardtOptimizer(1e-6, -1e-12, 0);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNaNLsqrTolerance() {
+        new SparseLevenbergMarquardtOptimizer().withLsqrTolerance(Double.NaN);
+    }
+
+    @Test(expected=NotPositiveException.class)
+    public void testNegativeMaxLsqrIterations() {
+        new SparseLevenbergMarquardtOptimizer().withMaxLsqrIterations(-1);
+    }
+
+    /**
+     * Solves a large weighted problem whose Jacobian only has two non-zero
+     * entries per row.
+     */
+    @Test
+    public void testLargeSparseProblem() {
+        final int n = 2000;
+        final ChainFunction chain = new ChainFunction(n);
+        final RandomGenerator random = new MersenneTwister(4657l);
+        final double[] solution = new double[n];
+        final double[] start = new double[n];
+        for (int j = 0; j < n; j++) {
+            solution[j] = 1 + random.nextDouble();
+            start[j] = solution[j] + 0.2 * (random.nextDouble() - 0.5);
+        }
+        final RealVector target = chain.value(new ArrayRealVector(solution)).getFirst();
+        final double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1 + random.nextInt(3);
+        }
+
+        final LeastSquaresProblem problem = new LeastSquaresBuilder()
+                .model(chain)
+                .target(target)
+                .weight(new DiagonalMatrix(weights))
+                .start(start)
+                .checkerPair(new SimpleVectorValueChecker(1e-12, 1e-12))
+                .maxEvaluations(100)
+                .maxIterations(100)
+                .build();
+
+        // the weighted Jacobian is still sparse
+        final RealMatrix jacobian = problem.evaluate(new ArrayRealVector(start)).computeJacobian();
+        Assert.assertTrue(jacobian instanceof CompressedRowRealMatrix);
+        Assert.assertEquals(2 * n - 1, ((CompressedRowRealMatrix) jacobian).getNonZeroCount());
+
+        final Optimum optimum = new SparseLevenbergMarquardtOptimizer().optimize(problem);
+        for (int j = 0; j < n; j++) {
+            Assert.assertEquals(solution[j], optimum.getPoint().getEntry(j), 1e-8);
+        }
+        Assert.assertEquals(0, optimum.computeRMS(), 1e-10);
+        Assert.assertTrue(optimum.getIterations() < 20);
+    }
+
+    /**
+     * Compares the sparse and dense paths on a smaller version of the chain
+     * problem, where the dense Levenberg-Marquardt optimizer is affordable.
+     */
+    @Test
+    public void testSameSolutionAsDense() {
+        final int n = 50;
+        final ChainFunction chain = new ChainFunction(n);
+        final double[] start = new double[n];
+        final double[] target = new double[n];
+        for (int j = 0; j < n; j++) {
+            start[j] = 1;
+            target[j] = 3 + (j % 7) * 0.1;
+        }
+        final ConvergenceChecker<Evaluation> checker
+                = LeastSquaresFactory.evaluationChecker(new SimpleVectorValueChecker(1e-12, 1e-12));
+
+        final Optimum sparse = new SparseLevenbergMarquardtOptimizer()
+                .optimize(LeastSquaresFactory.create(chain,
+                                                     new ArrayRealVector(target),
+                                                     new ArrayRealVector(start),
+                                                     checker, 200, 200));
+        final Optimum dense = new LevenbergMarquardtOptimizer()
+                .optimize(LeastSquaresFactory.create(new DenseFunction(chain),
+                                                     new ArrayRealVector(target),
+                                                     new ArrayRealVector(start),
+                                                     checker, 200, 200));
+        final Optimum gaussNewton = new GaussNewtonOptimizer()
+                .optimize(LeastSquaresFactory.create(chain,
+                                                     new ArrayRealVector(target),
+                                                     new ArrayRealVector(start),
+                                                     checker, 200, 200));
+
+        Assert.assertEquals(dense.computeRMS(), sparse.computeRMS(), 1e-10);
+        Assert.assertEquals(dense.computeRMS(), gaussNewton.computeRMS(), 1e-10);
+        for (int j = 0; j < n; j++) {
+            Assert.assertEquals(dense.getPoint().getEntry(j), sparse.getPoint().getEntry(j), 1e-8);
+            Assert.assertEquals(dense.getPoint().getEntry(j), gaussNewton.getPoint().getEntry(j), 1e-8);
+        }
+        Assert.assertEquals(sparse.computeCovariances(1e-14).getEntry(3, 4),
+                            dense.computeCovariances(1e-14).getEntry(3, 4),
+                            1e-10);
+    }
+
+    /**
+     * Model {@code f_i(p) = p_i^2 + p_(i+1)} (the last value only depends on
+     * the last parameter), with a sparse Jacobian.
+     */
+    private static class ChainFunction implements MultivariateJacobianFunction {
+        /** Number of parameters and values. */
+        private final int n;
+
+        /**
+         * @param n number of parameters and values.
+         */
+        ChainFunction(int n) {
+            this.n = n;
+        }
+
+        public Pair<RealVector, RealMatrix> value(RealVector point) {
+            final double[] p = point.toArray();
+            final double[] value = new double[n];
+            final int[] rowStart = new int[n + 1];
+            final int[] columnIndex = new int[2 * n - 1];
+            final double[] derivatives = new double[2 * n - 1];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                rowStart[i] = k;
+                value[i] = p[i] * p[i];
+                columnIndex[k] = i;
+                derivatives[k++] = 2 * p[i];
+                if (i + 1 < n) {
+                    value[i] += p[i + 1];
+                    columnIndex[k] = i + 1;
+                    derivatives[k++] = 1;
+                }
+            }
+            rowStart[n] = k;
+            return new Pair<RealVector, RealMatrix>(
+                    new ArrayRealVector(value, false),
+                    new CompressedRowRealMatrix(n, n, rowStart, columnIndex, derivatives, false));
+        }
+    }
+
+    /**
+     * Same model, with a dense Jacobian.
+     */
+    private static class DenseFunction implements MultivariateJacobianFunction {
+        /** Sparse version of the model. */
+        private final MultivariateJacobianFunction sparse;
+
+        /**
+         * @param sparse sparse version of the model.
+         */
+        DenseFunction(MultivariateJacobianFunction sparse) {
+            this.sparse = sparse;
+        }
+
+        public Pair<RealVector, RealMatrix> value(RealVector point) {
+            final Pair<RealVector, RealMatrix> value = sparse.value(point);
+            return new Pair<RealVector, RealMatrix>(
+                    value.getFirst(),
+                    new Array2DRowRealMatrix(value.getSecond().getData()));
+        }
+    }
+}
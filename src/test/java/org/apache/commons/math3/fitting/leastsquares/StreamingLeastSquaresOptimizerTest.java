@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.analysis.ParametricUnivariateFunction;
+import org.apache.commons.math3.analysis.function.Gaussian;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.fitting.leastsquares.StreamingLeastSquaresOptimizer.Accumulation;
+import org.apache.commons.math3.fitting.leastsquares.StreamingLeastSquaresOptimizer.Optimum;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.SimpleValueChecker;
+import org.apache.commons.math3.optim.SimpleVectorValueChecker;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @version $Id$
+ */
+public class StreamingLeastSquaresOptimizerTest {
+
+    /** Parameters of the curve generating the data. */
+    private static final double[] CURVE = { 3, 0.5, 1.5 };
+
+    /** Initial guess. */
+    private static final double[] START = { 2.5, 0.3, 1.2 };
+
+    @Test
+    public void testSameAsLevenbergMarquardt() {
+        final int n = 10000;
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        final double[] records = createData(n, x, y);
+        final ParametricUnivariateFunction f = new Gaussian.Parametric();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final LeastSquaresOptimizer.Optimum reference;
+        try {
+            reference = new LevenbergMarquardtOptimizer().optimize(
+                    LeastSquaresFactory.create(
+                            LeastSquaresFactory.parallelModel(f, x, 1000, executor),
+                            new ArrayRealVector(y, false),
+                            new ArrayRealVector(START),
+                            LeastSquaresFactory.evaluationChecker(
+                                    new SimpleVectorValueChecker(1e-14, 1e-14)),
+                            100, 100));
+        } finally {
+            executor.shutdown();
+        }
+
+        for (final Accumulation accumulation : Accumulation.values()) {
+            final CountingSource source = new CountingSource(records, 2);
+            final Optimum optimum = new StreamingLeastSquaresOptimizer()
+                    .withAccumulation(accumulation)
+                    .optimize(problem(source, 128));
+
+            Assert.assertTrue(source.maxCount <= 128);
+            Assert.assertEquals(reference.computeRMS(), optimum.computeRMS(), 1e-12);
+            Assert.assertEquals(reference.computeCost(), optimum.computeCost(), 1e-10);
+            for (int j = 0; j < CURVE.length; j++) {
+                Assert.assertEquals(reference.getPoint().getEntry(j),
+                                    optimum.getPoint().getEntry(j), 1e-8);
+            }
+
+            final RealMatrix expected = reference.computeCovariances(1e-14);
+            final RealMatrix actual = optimum.computeCovariances(1e-14);
+            for (int i = 0; i < CURVE.length; i++) {
+                for (int j = 0; j < CURVE.length; j++) {
+                    Assert.assertEquals(expected.getEntry(i, j), actual.getEntry(i, j),
+                                        1e-5 * Math.abs(expected.getEntry(i, j)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGaussNewtonSteps() {
+        final int n = 1000;
+        final double[] records = createData(n, new double[n], new double[n]);
+        for (final Accumulation accumulation : Accumulation.values()) {
+            final StreamingLeastSquaresOptimizer optimizer = new StreamingLeastSquaresOptimizer()
+                    .withAccumulation(accumulation)
+                    .withInitialDamping(0);
+            final Optimum optimum = optimizer.optimize(problem(new CountingSource(records, 2), 100));
+            for (int j = 0; j < CURVE.length; j++) {
+                Assert.assertEquals(CURVE[j], optimum.getPoint().getEntry(j), 1e-3);
+            }
+            // a pure Gauss-Newton step never needs to be retried
+            Assert.assertEquals(optimum.getIterations() + 1, optimum.getEvaluations());
+        }
+    }
+
+    @Test
+    public void testLinear() {
+        // y = 2 x0 - 3 x1 + 1 exactly
+        final int n = 57;
+        final double[] records = new double[3 * n];
+        for (int i = 0; i < n; i++) {
+            records[3 * i]     = i;
+            records[3 * i + 1] = (i * 7) % 11;
+            records[3 * i + 2] = 2 * records[3 * i] - 3 * records[3 * i + 1] + 1;
+        }
+        final StreamingModel model = new StreamingModel() {
+            public double residual(double[] r, int offset, double[] p, double[] gradient) {
+                gradient[0] = r[offset];
+                gradient[1] = r[offset + 1];
+                gradient[2] = 1;
+                return r[offset + 2] - (p[0] * r[offset] + p[1] * r[offset + 1] + p[2]);
+            }
+        };
+        for (final Accumulation accumulation : Accumulation.values()) {
+            final Optimum optimum = new StreamingLeastSquaresOptimizer()
+                    .withAccumulation(accumulation)
+                    .optimize(LeastSquaresFactory.createStreaming(
+                            new CountingSource(records, 3), model,
+                            new ArrayRealVector(3), 10,
+                            new SimpleValueChecker(1e-15, 1e-15), 100, 100));
+            Assert.assertEquals(0, optimum.computeRMS(), 1e-10);
+            Assert.assertEquals(2, optimum.getPoint().getEntry(0), 1e-10);
+            Assert.assertEquals(-3, optimum.getPoint().getEntry(1), 1e-10);
+            Assert.assertEquals(1, optimum.getPoint().getEntry(2), 1e-10);
+        }
+    }
+
+    @Test
+    public void testMappedSource() throws IOException {
+        final int n = 5000;
+        final double[] records = createData(n, new double[n], new double[n]);
+        final File file = File.createTempFile("observations", ".bin");
+        try {
+            final DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                for (final double d : records) {
+                    out.writeDouble(d);
+                }
+            } finally {
+                out.close();
+            }
+
+            final Optimum mapped = new StreamingLeastSquaresOptimizer()
+                    .optimize(problem(new MappedObservationSource(file, 2), 300));
+            final Optimum inMemory = new StreamingLeastSquaresOptimizer()
+                    .optimize(problem(new CountingSource(records, 2), 300));
+            Assert.assertEquals(inMemory.getPoint(), mapped.getPoint());
+            Assert.assertEquals(inMemory.getEvaluations(), mapped.getEvaluations());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testBlocks() {
+        final int n = 1003;
+        final double[] records = createData(n, new double[n], new double[n]);
+        final StreamingLeastSquaresProblem problem = problem(new CountingSource(records, 2), 100);
+        Assert.assertEquals(n, problem.getObservationSize());
+        Assert.assertEquals(3, problem.getParameterSize());
+
+        final int[] blocks = new int[2];
+        problem.evaluate(new ArrayRealVector(CURVE), new StreamingLeastSquaresProblem.BlockVisitor() {
+            public void visit(double[] residuals, double[][] jacobian, int rows) {
+                Assert.assertTrue(rows <= 100);
+                Assert.assertTrue(residuals.length >= rows);
+                Assert.assertTrue(jacobian.length >= rows);
+                blocks[0]++;
+                blocks[1] += rows;
+            }
+        });
+        Assert.assertEquals(11, blocks[0]);
+        Assert.assertEquals(n, blocks[1]);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullChecker() {
+        final double[] records = createData(10, new double[10], new double[10]);
+        new StreamingLeastSquaresOptimizer().optimize(
+                LeastSquaresFactory.createStreaming(new CountingSource(records, 2),
+                                                    new GaussianModel(),
+                                                    new ArrayRealVector(START),
+                                                    5, null, 10, 10));
+    }
+
+    @Test(expected=NotPositiveException.class)
+    public void testNegativeDamping() {
+        new StreamingLeastSquaresOptimizer().withInitialDamping(-1);
+    }
+
+    @Test
+    public void testControlParameters() {
+        final StreamingLeastSquaresOptimizer optimizer = new StreamingLeastSquaresOptimizer()
+                .withAccumulation(Accumulation.QR)
+                .withInitialDamping(0.5);
+        Assert.assertEquals(Accumulation.QR, optimizer.getAccumulation());
+        Assert.assertEquals(0.5, optimizer.getInitialDamping(), 0);
+        Assert.assertEquals(Accumulation.NORMAL_EQUATIONS,
+                            new StreamingLeastSquaresOptimizer().getAccumulation());
+    }
+
+    /**
+     * @param source source of the observations
+     * @param blockSize maximal number of rows in a block
+     * @return a problem fitting a Gaussian to the observations
+     */
+    private static StreamingLeastSquaresProblem problem(ObservationSource source, int blockSize) {
+        return LeastSquaresFactory.createStreaming(source, new GaussianModel(),
+                                                   new ArrayRealVector(START), blockSize,
+                                                   new SimpleValueChecker(1e-14, 1e-14),
+                                                   100, 100);
+    }
+
+    /**
+     * Create noisy observations of a Gaussian curve.
+     *
+     * @param n number of observations
+     * @param x array where the abscissae are stored
+     * @param y array where the observed values are stored
+     * @return the records (x, y) of the observations
+     */
+    private static double[] createData(int n, double[] x, double[] y) {
+        final ParametricUnivariateFunction f = new Gaussian.Parametric();
+        final RandomGenerator random = new MersenneTwister(6346l);
+        final double[] records = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            x[i] = -2 + 5.0 * i / (n - 1);
+            y[i] = f.value(x[i], CURVE) + 0.01 * random.nextGaussian();
+            records[2 * i] = x[i];
+            records[2 * i + 1] = y[i];
+        }
+        return records;
+    }
+
+    /** Gaussian curve fitted to (x, y) records. */
+    private static class GaussianModel implements StreamingModel {
+        /** The curve. */
+        private final ParametricUnivariateFunction f = new Gaussian.Parametric();
+
+        public double residual(double[] records, int offset, double[] point, double[] gradient) {
+            final double x = records[offset];
+            System.arraycopy(f.gradient(x, point), 0, gradient, 0, gradient.length);
+            return records[offset + 1] - f.value(x, point);
+        }
+    }
+
+    /** In-memory source that records the size of the largest read. */
+    private static class CountingSource implements ObservationSource {
+        /** The records. */
+        private final double[] records;
+        /** Number of doubles in each record. */
+        private final int recordLength;
+        /** Largest number of records read at once. */
+        private int maxCount;
+
+        /**
+         * @param records the records
+         * @param recordLength number of doubles in each record
+         */
+        CountingSource(double[] records, int recordLength) {
+            this.records = records;
+            this.recordLength = recordLength;
+        }
+
+        public int getRecordLength() {
+            return recordLength;
+        }
+
+        public long getObservationSize() {
+            return records.length / recordLength;
+        }
+
+        public void read(long first, int count, double[] buffer) {
+            maxCount = Math.max(maxCount, count);
+            System.arraycopy(records, (int) first * recordLength, buffer, 0, count * recordLength);
+        }
+    }
+}
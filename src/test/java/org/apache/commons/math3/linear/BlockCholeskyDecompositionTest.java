@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link BlockCholeskyDecomposition} class.
+ */
+public class BlockCholeskyDecompositionTest extends BlockDecompositionAbstractTest<BlockCholeskyDecomposition> {
+
+    @Override
+    protected RealMatrix createMatrix(final RandomGenerator random, final int rows, final int columns) {
+        return createSpd(random, rows);
+    }
+
+    @Override
+    protected BlockCholeskyDecomposition decompose(final RealMatrix a, final ExecutorService executor) {
+        return new BlockCholeskyDecomposition(a, executor);
+    }
+
+    @Override
+    protected RealMatrix[] getFactors(final BlockCholeskyDecomposition decomposition) {
+        return new RealMatrix[] { decomposition.getL() };
+    }
+
+    @Override
+    protected DecompositionSolver getSolver(final BlockCholeskyDecomposition decomposition) {
+        return decomposition.getSolver();
+    }
+
+    /** test non-square matrix */
+    @Test(expected = NonSquareMatrixException.class)
+    public void testNonSquare() {
+        new BlockCholeskyDecomposition(MatrixUtils.createRealMatrix(new double[3][2]));
+    }
+
+    /** test non-symmetric matrix, with the difference outside of the diagonal blocks */
+    @Test(expected = NonSymmetricMatrixException.class)
+    public void testNotSymmetricMatrixException() {
+        final RealMatrix a = createSpd(new MersenneTwister(2468l), 120);
+        a.addToEntry(110, 3, 1.0e-5);
+        new BlockCholeskyDecomposition(a);
+    }
+
+    /** test non positive definite matrix */
+    @Test(expected = NonPositiveDefiniteMatrixException.class)
+    public void testNotPositiveDefinite() {
+        new BlockCholeskyDecomposition(MatrixUtils.createRealMatrix(new double[][] {
+                { 14, 11, 13, 15, 24 },
+                { 11, 34, 13, 8,  25 },
+                { 13, 13, 14, 15, 21 },
+                { 15, 8,  15, 18, 23 },
+                { 24, 25, 21, 23, 45 }
+        }));
+    }
+
+    /** test a matrix which is only found not positive definite in a later block */
+    @Test(expected = NonPositiveDefiniteMatrixException.class)
+    public void testNotPositiveDefiniteLargeMatrix() {
+        final RealMatrix a = createSpd(new MersenneTwister(1357l), 130);
+        a.setEntry(125, 125, -1.0);
+        new BlockCholeskyDecomposition(a);
+    }
+
+    /** test the factor against the unblocked decomposition */
+    @Test
+    public void testSameAsCholeskyDecomposition() {
+        final RandomGenerator random = new MersenneTwister(9753l);
+        for (final int n : new int[] { 1, 5, 52, 53, 157 }) {
+            final RealMatrix a = createSpd(random, n);
+            final BlockCholeskyDecomposition block = new BlockCholeskyDecomposition(a);
+            final CholeskyDecomposition reference = new CholeskyDecomposition(a);
+            Assert.assertTrue(block.getL() instanceof BlockRealMatrix);
+            TestUtils.assertEquals("L", reference.getL(), block.getL(), 1.0e-12 * n);
+            TestUtils.assertEquals("LT", block.getL().transpose(), block.getLT(), 1.0e-15);
+            TestUtils.assertEquals("LLT", a, block.getL().multiply(block.getLT()), 1.0e-12 * n * n);
+            Assert.assertEquals(1.0, block.getDeterminant() / reference.getDeterminant(), 1.0e-10);
+        }
+    }
+
+    /** test solve and inverse */
+    @Test
+    public void testSolve() {
+        final RandomGenerator random = new MersenneTwister(8642l);
+        final RealMatrix a = createSpd(random, 140);
+        final RealMatrix b = createRandom(random, 140, 60);
+        final DecompositionSolver solver = new BlockCholeskyDecomposition(a).getSolver();
+        Assert.assertTrue(solver.isNonSingular());
+
+        final RealMatrix x = solver.solve(b);
+        TestUtils.assertEquals("residual", b, a.multiply(x), 1.0e-10);
+        final RealVector v = solver.solve(b.getColumnVector(7));
+        TestUtils.assertEquals("vector", x.getColumnVector(7), v, 1.0e-12);
+        TestUtils.assertEquals("inverse", MatrixUtils.createRealIdentityMatrix(140),
+                               a.multiply(solver.getInverse()), 1.0e-10);
+    }
+
+    private static RealMatrix createSpd(final RandomGenerator random, final int n) {
+        final RealMatrix m = createRandom(random, n, n);
+        final RealMatrix a = m.transpose().multiply(m);
+        for (int i = 0; i < n; ++i) {
+            a.addToEntry(i, i, FastMath.sqrt(n));
+        }
+        return a;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.ExecutorAbstractTest;
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases common to the blocked decompositions: concurrent updates, and
+ * preservation of the decomposed matrix.
+ *
+ * @param <T> Type of the decomposition.
+ */
+public abstract class BlockDecompositionAbstractTest<T> extends ExecutorAbstractTest {
+    protected BlockDecompositionAbstractTest() {
+        super(4);
+    }
+
+    /**
+     * Creates a matrix that can be decomposed.
+     *
+     * @param random Generator of the entries.
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @return a new matrix.
+     */
+    protected abstract RealMatrix createMatrix(RandomGenerator random, int rows, int columns);
+
+    /**
+     * Decomposes a matrix.
+     *
+     * @param a Matrix to decompose.
+     * @param executor Executor of the concurrent updates (may be {@code null}).
+     * @return the decomposition.
+     */
+    protected abstract T decompose(RealMatrix a, ExecutorService executor);
+
+    /**
+     * @param decomposition Decomposition.
+     * @return the factors of the decomposition.
+     */
+    protected abstract RealMatrix[] getFactors(T decomposition);
+
+    /**
+     * @param decomposition Decomposition.
+     * @return the solver of the decomposition.
+     */
+    protected abstract DecompositionSolver getSolver(T decomposition);
+
+    /**
+     * Gets the number of rows of the tested matrices. Decompositions of
+     * rectangular matrices can override this method to test tall matrices.
+     *
+     * @param columns Number of columns.
+     * @return the number of rows.
+     */
+    protected int getRows(int columns) {
+        return columns;
+    }
+
+    /** test the concurrent decomposition against the sequential one */
+    @Test
+    public void testExecutor() {
+        final RandomGenerator random = new MersenneTwister(5656l);
+        final RealMatrix a = createMatrix(random, getRows(300), 300);
+        final RealMatrix b = createRandom(random, getRows(300), 150);
+        final T sequential = decompose(a, null);
+        final T concurrent = decompose(a, executor);
+        final RealMatrix[] expected = getFactors(sequential);
+        final RealMatrix[] actual = getFactors(concurrent);
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; ++i) {
+            TestUtils.assertEquals("factor " + i, expected[i], actual[i], 1.0e-15);
+        }
+        TestUtils.assertEquals("solution", getSolver(sequential).solve(b),
+                               getSolver(concurrent).solve(b), 1.0e-15);
+    }
+
+    /** test the input matrix is left unchanged */
+    @Test
+    public void testInputUnchanged() {
+        final RealMatrix a = createMatrix(new MersenneTwister(7878l), getRows(70), 70);
+        final RealMatrix copy = a.copy();
+        final T decomposition = decompose(a, null);
+        getFactors(decomposition);
+        getSolver(decomposition).solve(new ArrayRealVector(a.getRowDimension()));
+        TestUtils.assertEquals("input", copy, a, 1.0e-15);
+    }
+
+    protected static RealMatrix createRandom(final RandomGenerator random, final int rows, final int columns) {
+        final double[][] data = new double[rows][columns];
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < columns; ++j) {
+                data[i][j] = 2 * random.nextDouble() - 1;
+            }
+        }
+        return new BlockRealMatrix(data);
+    }
+}
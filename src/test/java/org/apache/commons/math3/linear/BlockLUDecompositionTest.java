@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link BlockLUDecomposition} class.
+ */
+public class BlockLUDecompositionTest extends BlockDecompositionAbstractTest<BlockLUDecomposition> {
+
+    @Override
+    protected RealMatrix createMatrix(final RandomGenerator random, final int rows, final int columns) {
+        return createRandom(random, rows, columns);
+    }
+
+    @Override
+    protected BlockLUDecomposition decompose(final RealMatrix a, final ExecutorService executor) {
+        return new BlockLUDecomposition(a, executor);
+    }
+
+    @Override
+    protected RealMatrix[] getFactors(final BlockLUDecomposition decomposition) {
+        return new RealMatrix[] { decomposition.getL(), decomposition.getU(), decomposition.getP() };
+    }
+
+    @Override
+    protected DecompositionSolver getSolver(final BlockLUDecomposition decomposition) {
+        return decomposition.getSolver();
+    }
+
+    /** test non-square matrix */
+    @Test(expected = NonSquareMatrixException.class)
+    public void testNonSquare() {
+        new BlockLUDecomposition(MatrixUtils.createRealMatrix(new double[3][2]));
+    }
+
+    /** test the factors against the unblocked decomposition */
+    @Test
+    public void testSameAsLUDecomposition() {
+        final RandomGenerator random = new MersenneTwister(5566l);
+        for (final int n : new int[] { 1, 5, 52, 53, 157 }) {
+            final RealMatrix a = createRandom(random, n, n);
+            final BlockLUDecomposition block = new BlockLUDecomposition(a);
+            final LUDecomposition reference = new LUDecomposition(a);
+            Assert.assertArrayEquals(reference.getPivot(), block.getPivot());
+            TestUtils.assertEquals("L", reference.getL(), block.getL(), 1.0e-10);
+            TestUtils.assertEquals("U", reference.getU(), block.getU(), 1.0e-10);
+            TestUtils.assertEquals("P", reference.getP(), block.getP(), 1.0e-15);
+            TestUtils.assertEquals("PA = LU", block.getP().multiply(a),
+                                   block.getL().multiply(block.getU()), 1.0e-12 * n);
+            Assert.assertEquals(1.0, block.getDeterminant() / reference.getDeterminant(), 1.0e-10);
+        }
+    }
+
+    /** test a matrix where the pivoting exchanges rows of different blocks */
+    @Test
+    public void testPivotingAcrossBlocks() {
+        final int n = 120;
+        final RealMatrix a = createRandom(new MersenneTwister(7788l), n, n);
+        for (int j = 0; j < n; ++j) {
+            // the largest entry of each column is far below the diagonal
+            a.setEntry((j + 60) % n, j, 10.0 + j);
+        }
+        final BlockLUDecomposition block = new BlockLUDecomposition(a);
+        final LUDecomposition reference = new LUDecomposition(a);
+        Assert.assertArrayEquals(reference.getPivot(), block.getPivot());
+        Assert.assertEquals(1.0, block.getDeterminant() / reference.getDeterminant(), 1.0e-10);
+        TestUtils.assertEquals("PA = LU", block.getP().multiply(a),
+                               block.getL().multiply(block.getU()), 1.0e-10);
+    }
+
+    /** test singular matrices */
+    @Test
+    public void testSingular() {
+        final RealMatrix a = createRandom(new MersenneTwister(9900l), 110, 110);
+        a.setColumnVector(80, a.getColumnVector(3).add(a.getColumnVector(95)));
+        final BlockLUDecomposition lu = new BlockLUDecomposition(a);
+        Assert.assertFalse(lu.getSolver().isNonSingular());
+        Assert.assertNull(lu.getL());
+        Assert.assertNull(lu.getU());
+        Assert.assertNull(lu.getP());
+        Assert.assertEquals(0, lu.getDeterminant(), 0);
+        try {
+            lu.getSolver().solve(new ArrayRealVector(110));
+            Assert.fail("an exception should have been thrown");
+        } catch (SingularMatrixException sme) {
+            // expected behavior
+        }
+    }
+
+    /** test solve and inverse */
+    @Test
+    public void testSolve() {
+        final RandomGenerator random = new MersenneTwister(1212l);
+        final RealMatrix a = createRandom(random, 140, 140);
+        final RealMatrix b = createRandom(random, 140, 60);
+        final DecompositionSolver solver = new BlockLUDecomposition(a).getSolver();
+        Assert.assertTrue(solver.isNonSingular());
+
+        final RealMatrix x = solver.solve(b);
+        TestUtils.assertEquals("residual", b, a.multiply(x), 1.0e-10);
+        final RealVector v = solver.solve(b.getColumnVector(7));
+        TestUtils.assertEquals("vector", x.getColumnVector(7), v, 1.0e-12);
+        TestUtils.assertEquals("inverse", new LUDecomposition(a).getSolver().getInverse(),
+                               solver.getInverse(), 1.0e-10);
+    }
+
+    @Test(expected = DimensionMismatchException.class)
+    public void testSolveDimensionMismatch() {
+        final RealMatrix a = createRandom(new MersenneTwister(3434l), 20, 20);
+        new BlockLUDecomposition(a).getSolver().solve(new ArrayRealVector(19));
+    }
+}
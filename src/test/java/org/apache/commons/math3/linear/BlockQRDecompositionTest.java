@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link BlockQRDecomposition} class.
+ */
+public class BlockQRDecompositionTest extends BlockDecompositionAbstractTest<BlockQRDecomposition> {
+
+    @Override
+    protected RealMatrix createMatrix(final RandomGenerator random, final int rows, final int columns) {
+        return createRandom(random, rows, columns);
+    }
+
+    @Override
+    protected BlockQRDecomposition decompose(final RealMatrix a, final ExecutorService executor) {
+        return new BlockQRDecomposition(a, 0, executor);
+    }
+
+    @Override
+    protected RealMatrix[] getFactors(final BlockQRDecomposition decomposition) {
+        return new RealMatrix[] { decomposition.getQ(), decomposition.getR() };
+    }
+
+    @Override
+    protected DecompositionSolver getSolver(final BlockQRDecomposition decomposition) {
+        return decomposition.getSolver();
+    }
+
+    @Override
+    protected int getRows(final int columns) {
+        // overdetermined systems
+        return columns + columns / 6;
+    }
+
+    /** test the factors against the unblocked decomposition */
+    @Test
+    public void testSameAsQRDecomposition() {
+        final RandomGenerator random = new MersenneTwister(2323l);
+        final int[][] shapes = {
+            { 1, 1 }, { 5, 5 }, { 52, 52 }, { 157, 157 },
+            { 130, 60 }, { 60, 130 }, { 53, 52 }, { 52, 53 }, { 110, 5 }, { 5, 110 }
+        };
+        for (final int[] shape : shapes) {
+            final RealMatrix a = createRandom(random, shape[0], shape[1]);
+            final BlockQRDecomposition block = new BlockQRDecomposition(a);
+            final QRDecomposition reference = new QRDecomposition(a);
+            final RealMatrix q = block.getQ();
+            final RealMatrix r = block.getR();
+            Assert.assertTrue(q instanceof BlockRealMatrix);
+            Assert.assertEquals(shape[0], q.getRowDimension());
+            Assert.assertEquals(shape[0], q.getColumnDimension());
+            Assert.assertEquals(shape[0], r.getRowDimension());
+            Assert.assertEquals(shape[1], r.getColumnDimension());
+            TestUtils.assertEquals("Q", reference.getQ(), q, 1.0e-12);
+            TestUtils.assertEquals("R", reference.getR(), r, 1.0e-12);
+            TestUtils.assertEquals("QT", q.transpose(), block.getQT(), 1.0e-15);
+            TestUtils.assertEquals("QR", a, q.multiply(r), 1.0e-12);
+            TestUtils.assertEquals("QTQ", MatrixUtils.createRealIdentityMatrix(shape[0]),
+                                   block.getQT().multiply(q), 1.0e-12);
+        }
+    }
+
+    /** test a matrix with zero columns */
+    @Test
+    public void testZeroColumns() {
+        final RealMatrix a = createRandom(new MersenneTwister(4545l), 80, 70);
+        a.setColumnVector(10, new ArrayRealVector(80));
+        a.setColumnVector(60, new ArrayRealVector(80));
+        final BlockQRDecomposition block = new BlockQRDecomposition(a);
+        TestUtils.assertEquals("QR", a, block.getQ().multiply(block.getR()), 1.0e-12);
+        Assert.assertFalse(block.getSolver().isNonSingular());
+        Assert.assertTrue(new BlockQRDecomposition(createRandom(new MersenneTwister(4546l), 80, 70))
+                          .getSolver().isNonSingular());
+    }
+
+    /** test the least squares solution of overdetermined systems */
+    @Test
+    public void testSolve() {
+        final RandomGenerator random = new MersenneTwister(6767l);
+        for (final int[] shape : new int[][] { { 140, 140 }, { 180, 70 } }) {
+            final RealMatrix a = createRandom(random, shape[0], shape[1]);
+            final RealMatrix b = createRandom(random, shape[0], 60);
+            final DecompositionSolver solver = new BlockQRDecomposition(a).getSolver();
+            final DecompositionSolver reference = new QRDecomposition(a).getSolver();
+            final RealMatrix x = solver.solve(b);
+            TestUtils.assertEquals("solution", reference.solve(b), x, 1.0e-10);
+            TestUtils.assertEquals("vector", x.getColumnVector(7), solver.solve(b.getColumnVector(7)), 1.0e-12);
+        }
+        final RealMatrix a = createRandom(random, 120, 120);
+        TestUtils.assertEquals("inverse", MatrixUtils.createRealIdentityMatrix(120),
+                               a.multiply(new BlockQRDecomposition(a).getSolver().getInverse()), 1.0e-10);
+    }
+
+    /** test the solution of underdetermined systems */
+    @Test
+    public void testSolveUnderdetermined() {
+        final RandomGenerator random = new MersenneTwister(8989l);
+        final RealMatrix a = createRandom(random, 70, 130);
+        final RealMatrix b = createRandom(random, 70, 20);
+        final RealMatrix x = new BlockQRDecomposition(a).getSolver().solve(b);
+        Assert.assertEquals(130, x.getRowDimension());
+        TestUtils.assertEquals("solution", new QRDecomposition(a).getSolver().solve(b), x, 1.0e-10);
+    }
+
+    @Test(expected = DimensionMismatchException.class)
+    public void testSolveDimensionMismatch() {
+        final RealMatrix a = createRandom(new MersenneTwister(1010l), 20, 10);
+        new BlockQRDecomposition(a).getSolver().solve(new ArrayRealVector(10));
+    }
+
+    @Test(expected = SingularMatrixException.class)
+    public void testSolveSingular() {
+        final RealMatrix a = createRandom(new MersenneTwister(1111l), 60, 60);
+        a.setColumnVector(55, a.getColumnVector(2));
+        new BlockQRDecomposition(a, 1.0e-10).getSolver().solve(new ArrayRealVector(60));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NonMonotonicSequenceException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link CompressedColumnRealMatrix} class.
+ */
+public class CompressedColumnRealMatrixTest {
+    /** Dense version of the test matrix. */
+    private final double[][] dense = {
+        { 1, 0, 0, 2 },
+        { 0, 0, 0, 0 },
+        { 0, 3, 4, 0 }
+    };
+
+    /**
+     * @return the sparse version of the test matrix.
+     */
+    private CompressedColumnRealMatrix createSparse() {
+        return new CompressedColumnRealMatrix(3, 4,
+                                              new int[] { 0, 1, 2, 3, 4 },
+                                              new int[] { 0, 2, 2, 0 },
+                                              new double[] { 1, 3, 4, 2 });
+    }
+
+    @Test
+    public void testEntries() {
+        final CompressedColumnRealMatrix m = createSparse();
+        Assert.assertEquals(3, m.getRowDimension());
+        Assert.assertEquals(4, m.getColumnDimension());
+        Assert.assertEquals(4, m.getNonZeroCount());
+        TestUtils.assertEquals("matrix", new Array2DRowRealMatrix(dense), m, 1e-15);
+        for (int j = 0; j < dense[0].length; j++) {
+            TestUtils.assertEquals(new Array2DRowRealMatrix(dense).getColumn(j), m.getColumn(j), 0);
+        }
+    }
+
+    @Test
+    public void testOperate() {
+        final RealMatrix expected = new Array2DRowRealMatrix(dense);
+        final CompressedColumnRealMatrix m = createSparse();
+        final double[] v = { 1, -2, 3, 0.5 };
+        final double[] u = { -1, 7, 2 };
+        TestUtils.assertEquals(expected.operate(v), m.operate(v), 0);
+        TestUtils.assertEquals(expected.preMultiply(u), m.preMultiply(u), 0);
+        TestUtils.assertEquals(expected.operate(v),
+                               m.operate(new ArrayRealVector(v)).toArray(), 0);
+        TestUtils.assertEquals(expected.preMultiply(u),
+                               m.operateTranspose(new ArrayRealVector(u)).toArray(), 0);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testOperateDimensionMismatch() {
+        createSparse().operate(new double[3]);
+    }
+
+    @Test
+    public void testTranspose() {
+        final CompressedColumnRealMatrix m = createSparse();
+        final CompressedRowRealMatrix t = m.transpose();
+        TestUtils.assertEquals("transpose", new Array2DRowRealMatrix(dense).transpose(), t, 1e-15);
+        t.setEntry(3, 0, 7);
+        Assert.assertEquals(2, m.getEntry(0, 3), 0);
+    }
+
+    @Test
+    public void testMultiply() {
+        final CompressedColumnRealMatrix m = createSparse();
+        final RealMatrix expected = new Array2DRowRealMatrix(dense).transpose().multiply(new Array2DRowRealMatrix(dense));
+        TestUtils.assertEquals("dense", expected, m.transpose().multiply(m), 1e-15);
+
+        // transpose of the test matrix, stored by columns
+        final RealMatrix sparse = new CompressedColumnRealMatrix(4, 3,
+                                                                 new int[] { 0, 2, 2, 4 },
+                                                                 new int[] { 0, 3, 1, 2 },
+                                                                 new double[] { 1, 2, 3, 4 }).multiply(m);
+        Assert.assertTrue(sparse instanceof CompressedColumnRealMatrix);
+        TestUtils.assertEquals("sparse", expected, sparse, 1e-15);
+    }
+
+    @Test
+    public void testWalkInNonZeroOrder() {
+        final StringBuilder visited = new StringBuilder();
+        createSparse().walkInNonZeroOrder(new DefaultRealMatrixPreservingVisitor() {
+            @Override
+            public void visit(int row, int column, double value) {
+                visited.append(row).append(column).append(' ');
+            }
+        });
+        Assert.assertEquals("00 21 22 03 ", visited.toString());
+    }
+
+    @Test
+    public void testSetEntry() {
+        final CompressedColumnRealMatrix m = createSparse();
+        m.setEntry(2, 1, 5);
+        m.addToEntry(2, 2, 1);
+        m.multiplyEntry(0, 3, 3);
+        Assert.assertEquals(5, m.getEntry(2, 1), 0);
+        Assert.assertEquals(5, m.getEntry(2, 2), 0);
+        Assert.assertEquals(6, m.getEntry(0, 3), 0);
+
+        final CompressedColumnRealMatrix copy = m.copy();
+        copy.setEntry(0, 0, -1);
+        Assert.assertEquals(1, m.getEntry(0, 0), 0);
+    }
+
+    @Test(expected=MathUnsupportedOperationException.class)
+    public void testSetEntryNotStored() {
+        createSparse().setEntry(1, 1, 1);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testGetEntryOutOfRange() {
+        createSparse().getEntry(3, 0);
+    }
+
+    @Test(expected=NonMonotonicSequenceException.class)
+    public void testUnsortedRows() {
+        new CompressedColumnRealMatrix(3, 1, new int[] { 0, 2 }, new int[] { 2, 1 }, new double[] { 1, 2 });
+    }
+
+    @Test
+    public void testSerial() {
+        final CompressedColumnRealMatrix m = createSparse();
+        Assert.assertEquals(m, TestUtils.serializeAndRecover(m));
+    }
+}
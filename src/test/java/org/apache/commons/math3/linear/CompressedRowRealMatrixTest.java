@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NonMonotonicSequenceException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link CompressedRowRealMatrix} class.
+ */
+public class CompressedRowRealMatrixTest {
+    /** Dense version of the test matrix. */
+    private final double[][] dense = {
+        { 1, 0, 0, 2 },
+        { 0, 0, 0, 0 },
+        { 0, 3, 4, 0 }
+    };
+
+    /**
+     * @return the sparse version of the test matrix.
+     */
+    private CompressedRowRealMatrix createSparse() {
+        return new CompressedRowRealMatrix(3, 4,
+                                           new int[] { 0, 2, 2, 4 },
+                                           new int[] { 0, 3, 1, 2 },
+                                           new double[] { 1, 2, 3, 4 });
+    }
+
+    @Test
+    public void testEntries() {
+        final CompressedRowRealMatrix m = createSparse();
+        Assert.assertEquals(3, m.getRowDimension());
+        Assert.assertEquals(4, m.getColumnDimension());
+        Assert.assertEquals(4, m.getNonZeroCount());
+        TestUtils.assertEquals("matrix", new Array2DRowRealMatrix(dense), m, 1e-15);
+        for (int i = 0; i < dense.length; i++) {
+            TestUtils.assertEquals(dense[i], m.getRow(i), 0);
+        }
+    }
+
+    @Test
+    public void testConstructorCopies() {
+        final double[] values = { 1, 2, 3, 4 };
+        final CompressedRowRealMatrix copied
+            = new CompressedRowRealMatrix(3, 4,
+                                          new int[] { 0, 2, 2, 4 },
+                                          new int[] { 0, 3, 1, 2 },
+                                          values);
+        final CompressedRowRealMatrix referenced
+            = new CompressedRowRealMatrix(3, 4,
+                                          new int[] { 0, 2, 2, 4 },
+                                          new int[] { 0, 3, 1, 2 },
+                                          values, false);
+        values[0] = 10;
+        Assert.assertEquals(1, copied.getEntry(0, 0), 0);
+        Assert.assertEquals(10, referenced.getEntry(0, 0), 0);
+    }
+
+    @Test
+    public void testOperate() {
+        final RealMatrix expected = new Array2DRowRealMatrix(dense);
+        final CompressedRowRealMatrix m = createSparse();
+        final double[] v = { 1, -2, 3, 0.5 };
+        final double[] u = { -1, 7, 2 };
+        TestUtils.assertEquals(expected.operate(v), m.operate(v), 0);
+        TestUtils.assertEquals(expected.preMultiply(u), m.preMultiply(u), 0);
+        TestUtils.assertEquals(expected.operate(v),
+                               m.operate(new ArrayRealVector(v)).toArray(), 0);
+        TestUtils.assertEquals("normal matrix", expected.transpose().multiply(expected),
+                               m.transpose().multiply(m), 1e-15);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testOperateDimensionMismatch() {
+        createSparse().operate(new double[3]);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testPreMultiplyDimensionMismatch() {
+        createSparse().preMultiply(new double[4]);
+    }
+
+    @Test
+    public void testScaleRows() {
+        final CompressedRowRealMatrix m = createSparse();
+        final CompressedRowRealMatrix scaled = m.scaleRows(new double[] { 2, 3, -1 });
+        Assert.assertEquals(m.getNonZeroCount(), scaled.getNonZeroCount());
+        for (int i = 0; i < dense.length; i++) {
+            for (int j = 0; j < dense[i].length; j++) {
+                final double f = i == 0 ? 2 : (i == 1 ? 3 : -1);
+                Assert.assertEquals(f * dense[i][j], scaled.getEntry(i, j), 0);
+            }
+        }
+        // the original matrix is not modified
+        TestUtils.assertEquals("matrix", new Array2DRowRealMatrix(dense), m, 1e-15);
+    }
+
+    @Test
+    public void testWalkInNonZeroOrder() {
+        final CompressedRowRealMatrix m = createSparse();
+        final StringBuilder visited = new StringBuilder();
+        final double sum = m.walkInNonZeroOrder(new DefaultRealMatrixPreservingVisitor() {
+            private double sum;
+
+            @Override
+            public void visit(int row, int column, double value) {
+                visited.append(row).append(column).append(' ');
+                sum += value;
+            }
+
+            @Override
+            public double end() {
+                return sum;
+            }
+        });
+        Assert.assertEquals("00 03 21 22 ", visited.toString());
+        Assert.assertEquals(10, sum, 0);
+    }
+
+    @Test
+    public void testSetEntry() {
+        final CompressedRowRealMatrix m = createSparse();
+        m.setEntry(2, 1, 5);
+        m.addToEntry(2, 2, 1);
+        m.multiplyEntry(0, 3, 3);
+        m.setEntry(1, 1, 0);
+        m.addToEntry(1, 1, 0);
+        m.multiplyEntry(1, 1, 2);
+        Assert.assertEquals(5, m.getEntry(2, 1), 0);
+        Assert.assertEquals(5, m.getEntry(2, 2), 0);
+        Assert.assertEquals(6, m.getEntry(0, 3), 0);
+        Assert.assertEquals(0, m.getEntry(1, 1), 0);
+
+        // the copy does not share the values
+        final CompressedRowRealMatrix copy = m.copy();
+        copy.setEntry(0, 0, -1);
+        Assert.assertEquals(1, m.getEntry(0, 0), 0);
+        Assert.assertEquals(-1, copy.getEntry(0, 0), 0);
+    }
+
+    @Test(expected=MathUnsupportedOperationException.class)
+    public void testSetEntryNotStored() {
+        createSparse().setEntry(1, 1, 1);
+    }
+
+    @Test(expected=MathUnsupportedOperationException.class)
+    public void testAddToEntryNotStored() {
+        createSparse().addToEntry(0, 1, 1);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testGetEntryOutOfRange() {
+        createSparse().getEntry(0, 4);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullArray() {
+        new CompressedRowRealMatrix(1, 1, new int[] { 0, 0 }, null, new double[0]);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testRowStartLength() {
+        new CompressedRowRealMatrix(2, 2, new int[] { 0, 1 }, new int[] { 0 }, new double[] { 1 });
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testValuesLength() {
+        new CompressedRowRealMatrix(1, 2, new int[] { 0, 2 }, new int[] { 0, 1 }, new double[] { 1 });
+    }
+
+    @Test(expected=NonMonotonicSequenceException.class)
+    public void testDecreasingRowStart() {
+        new CompressedRowRealMatrix(2, 2, new int[] { 0, 2, 1 }, new int[] { 0 }, new double[] { 1 });
+    }
+
+    @Test(expected=NonMonotonicSequenceException.class)
+    public void testUnsortedColumns() {
+        new CompressedRowRealMatrix(1, 3, new int[] { 0, 2 }, new int[] { 2, 1 }, new double[] { 1, 2 });
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testColumnOutOfRange() {
+        new CompressedRowRealMatrix(1, 3, new int[] { 0, 1 }, new int[] { 3 }, new double[] { 1 });
+    }
+
+    @Test
+    public void testOperateVector() {
+        final RealMatrix expected = new Array2DRowRealMatrix(dense);
+        final CompressedRowRealMatrix m = createSparse();
+        final RealVector v = new OpenMapRealVector(new double[] { 1, 0, 0, 0.5 });
+        final RealVector u = new OpenMapRealVector(new double[] { -1, 0, 2 });
+        TestUtils.assertEquals(expected.operate(v.toArray()), m.operate(v).toArray(), 0);
+        TestUtils.assertEquals(expected.preMultiply(u.toArray()), m.preMultiply(u).toArray(), 0);
+        Assert.assertTrue(m.isTransposable());
+        TestUtils.assertEquals(expected.preMultiply(u.toArray()), m.operateTranspose(u).toArray(), 0);
+    }
+
+    @Test
+    public void testTranspose() {
+        final CompressedRowRealMatrix m = createSparse();
+        final CompressedColumnRealMatrix t = m.transpose();
+        TestUtils.assertEquals("transpose", new Array2DRowRealMatrix(dense).transpose(), t, 1e-15);
+        Assert.assertSame(m.getRowStartRef(), t.getColumnStartRef());
+        Assert.assertSame(m.getColumnIndexRef(), t.getRowIndexRef());
+
+        // the values are not shared
+        t.setEntry(3, 0, 7);
+        Assert.assertEquals(2, m.getEntry(0, 3), 0);
+        TestUtils.assertEquals("round trip", new Array2DRowRealMatrix(dense), m.transpose().transpose(), 1e-15);
+    }
+
+    @Test
+    public void testMultiply() {
+        final RandomGenerator random = new MersenneTwister(6784l);
+        final CompressedRowRealMatrix a = createRandom(random, 30, 20, 0.1);
+        final CompressedRowRealMatrix b = createRandom(random, 20, 25, 0.1);
+        final RealMatrix expected = new Array2DRowRealMatrix(a.getData()).multiply(new Array2DRowRealMatrix(b.getData()));
+
+        // sparse times sparse
+        final RealMatrix sparse = a.multiply(b);
+        Assert.assertTrue(sparse instanceof CompressedRowRealMatrix);
+        TestUtils.assertEquals("sparse", expected, sparse, 1e-14);
+        Assert.assertTrue(((CompressedRowRealMatrix) sparse).getNonZeroCount() < 30 * 25);
+
+        // sparse times dense
+        TestUtils.assertEquals("array", expected, a.multiply(new Array2DRowRealMatrix(b.getData())), 1e-14);
+        TestUtils.assertEquals("block", expected, a.multiply(new BlockRealMatrix(b.getData())), 1e-14);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testMultiplyDimensionMismatch() {
+        createSparse().multiply(createSparse());
+    }
+
+    /**
+     * Solves the discrete Poisson equation on a square grid, whose matrix
+     * has 5 non-zero entries per row.
+     */
+    @Test
+    public void testConjugateGradient() {
+        final int n = 100;
+        final CompressedRowRealMatrix a = laplacian(n, 0).buildCompressedRow();
+        Assert.assertEquals(5 * n * n - 4 * n, a.getNonZeroCount());
+        final RealVector solution = new ArrayRealVector(n * n);
+        for (int i = 0; i < solution.getDimension(); i++) {
+            solution.setEntry(i, FastMath.sin(i));
+        }
+        final RealVector b = a.operate(solution);
+        final RealVector x = new ConjugateGradient(2000, 1e-12, false).solve(a, b);
+        Assert.assertEquals(0, x.subtract(solution).getLInfNorm(), 1e-8);
+    }
+
+    @Test
+    public void testSymmLQ() {
+        // shifted Laplacian: symmetric, but not positive definite
+        final int n = 40;
+        final CompressedRowRealMatrix a = laplacian(n, -2.5).buildCompressedRow();
+        final RealVector solution = new ArrayRealVector(n * n, 1);
+        final RealVector b = a.operate(solution);
+        final RealVector x = new SymmLQ(5000, 1e-14, false).solve(a, b);
+        Assert.assertEquals(0, x.subtract(solution).getLInfNorm(), 1e-7);
+    }
+
+    /**
+     * @param n Size of the grid.
+     * @param shift Shift of the diagonal.
+     * @return a builder holding the 5-points Laplacian on a {@code n} by {@code n} grid.
+     */
+    private static SparseMatrixBuilder laplacian(final int n, final double shift) {
+        final SparseMatrixBuilder builder = new SparseMatrixBuilder(n * n, n * n, 5 * n * n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                final int k = i * n + j;
+                builder.add(k, k, 4 + shift);
+                if (i > 0) {
+                    builder.add(k, k - n, -1);
+                }
+                if (i < n - 1) {
+                    builder.add(k, k + n, -1);
+                }
+                if (j > 0) {
+                    builder.add(k, k - 1, -1);
+                }
+                if (j < n - 1) {
+                    builder.add(k, k + 1, -1);
+                }
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * @param random Random generator.
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param density Probability of each entry to be non-zero.
+     * @return a random sparse matrix.
+     */
+    private static CompressedRowRealMatrix createRandom(final RandomGenerator random,
+                                                       final int rows, final int columns,
+                                                       final double density) {
+        final SparseMatrixBuilder builder = new SparseMatrixBuilder(rows, columns);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (random.nextDouble() < density) {
+                    builder.add(i, j, random.nextGaussian());
+                }
+            }
+        }
+        return builder.buildCompressedRow();
+    }
+
+    @Test
+    public void testSerial() {
+        final CompressedRowRealMatrix m = createSparse();
+        Assert.assertEquals(m, TestUtils.serializeAndRecover(m));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link LanczosEigenDecomposition} class.
+ */
+public class LanczosEigenDecompositionTest {
+
+    @Test(expected = NonSquareOperatorException.class)
+    public void testNonSquare() {
+        new LanczosEigenDecomposition(new Array2DRowRealMatrix(3, 2), 1, 10);
+    }
+
+    @Test(expected = NotStrictlyPositiveException.class)
+    public void testNoEigenpair() {
+        new LanczosEigenDecomposition(new Array2DRowRealMatrix(3, 3), 0, 10);
+    }
+
+    @Test(expected = NumberIsTooLargeException.class)
+    public void testTooManyEigenpairs() {
+        new LanczosEigenDecomposition(new Array2DRowRealMatrix(3, 3), 4, 10);
+    }
+
+    @Test(expected = MaxCountExceededException.class)
+    public void testMaxIterations() {
+        new LanczosEigenDecomposition(new DiagonalOperator(1000), 3, 10);
+    }
+
+    /** test a small matrix, whose whole space is spanned by the basis */
+    @Test
+    public void testSmallMatrix() {
+        final Array2DRowRealMatrix a = new Array2DRowRealMatrix(new double[][] {
+                { 4, 1, 0, 2 },
+                { 1, 3, 1, 0 },
+                { 0, 1, 2, 1 },
+                { 2, 0, 1, 5 }
+        });
+        final LanczosEigenDecomposition lanczos = new LanczosEigenDecomposition(a, 4, 10);
+        final SymmetricEigenDecomposition reference = new SymmetricEigenDecomposition(a);
+        Assert.assertArrayEquals(reference.getRealEigenvalues(), lanczos.getRealEigenvalues(), 1.0e-13);
+        checkEigenpairs(a, lanczos, 1.0e-13);
+    }
+
+    /** test a matrix-free operator, with known eigenpairs */
+    @Test
+    public void testMatrixFreeOperator() {
+        final int n = 1000;
+        final LanczosEigenDecomposition lanczos = new LanczosEigenDecomposition(new DiagonalOperator(n), 5, 1000);
+        for (int i = 0; i < 5; ++i) {
+            Assert.assertEquals(n - i, lanczos.getRealEigenvalue(i), 1.0e-8);
+            Assert.assertEquals(1.0, FastMath.abs(lanczos.getEigenvector(i).getEntry(n - 1 - i)), 1.0e-10);
+        }
+        Assert.assertTrue(lanczos.getIterations() < 1000);
+    }
+
+    /** test the dominant eigenpairs of a sparse covariance-like matrix */
+    @Test
+    public void testSparseMatrix() {
+        final RandomGenerator random = new MersenneTwister(2019l);
+        final int n = 400;
+        final SparseMatrixBuilder builder = new SparseMatrixBuilder(n, n, 3 * n);
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, i, 100 * FastMath.exp(-0.05 * i));
+            if (i > 0) {
+                final double x = 0.5 * random.nextDouble();
+                builder.add(i, i - 1, x);
+                builder.add(i - 1, i, x);
+            }
+        }
+        final CompressedRowRealMatrix a = builder.buildCompressedRow();
+        final int k = 10;
+        final LanczosEigenDecomposition lanczos =
+            new LanczosEigenDecomposition(a, k, 1.0e-12, 5000, new MersenneTwister(17l));
+        final SymmetricEigenDecomposition reference =
+            new SymmetricEigenDecomposition(new Array2DRowRealMatrix(a.getData(), false));
+        for (int i = 0; i < k; ++i) {
+            Assert.assertEquals(reference.getRealEigenvalue(i), lanczos.getRealEigenvalue(i), 1.0e-10);
+            Assert.assertEquals(1.0, FastMath.abs(reference.getEigenvector(i).dotProduct(lanczos.getEigenvector(i))),
+                                1.0e-10);
+        }
+        checkEigenpairs(a, lanczos, 1.0e-9);
+    }
+
+    /** test an operator with multiple eigenvalues, which need a restart from a new direction */
+    @Test
+    public void testMultipleEigenvalues() {
+        final int n = 200;
+        final SparseMatrixBuilder builder = new SparseMatrixBuilder(n, n, n);
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, i, (i < 3) ? 10 : 1.0 / (i + 1));
+        }
+        final CompressedRowRealMatrix a = builder.buildCompressedRow();
+        final LanczosEigenDecomposition lanczos = new LanczosEigenDecomposition(a, 4, 1000);
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(10, lanczos.getRealEigenvalue(i), 1.0e-10);
+        }
+        Assert.assertEquals(0.25, lanczos.getRealEigenvalue(3), 1.0e-10);
+        checkEigenpairs(a, lanczos, 1.0e-9);
+    }
+
+    /**
+     * Checks A V = V D and V<sup>T</sup>V = I.
+     */
+    private static void checkEigenpairs(final RealLinearOperator a, final LanczosEigenDecomposition lanczos,
+                                        final double tolerance) {
+        final RealMatrix v = lanczos.getV();
+        final int k = v.getColumnDimension();
+        TestUtils.assertEquals("orthogonality", MatrixUtils.createRealIdentityMatrix(k),
+                               v.transpose().multiply(v), tolerance);
+        for (int i = 0; i < k; ++i) {
+            final RealVector x = lanczos.getEigenvector(i);
+            TestUtils.assertEquals("eigenvector", v.getColumnVector(i), x, 1.0e-15);
+            TestUtils.assertEquals("residual", x.mapMultiply(lanczos.getRealEigenvalue(i)), a.operate(x),
+                                   tolerance * FastMath.max(1, FastMath.abs(lanczos.getRealEigenvalue(0))));
+        }
+    }
+
+    /** Diagonal operator diag(1, 2, ..., n), without a matrix. */
+    private static class DiagonalOperator extends RealLinearOperator {
+        /** Dimension. */
+        private final int n;
+
+        /**
+         * @param n dimension.
+         */
+        DiagonalOperator(final int n) {
+            this.n = n;
+        }
+
+        @Override
+        public int getRowDimension() {
+            return n;
+        }
+
+        @Override
+        public int getColumnDimension() {
+            return n;
+        }
+
+        @Override
+        public RealVector operate(final RealVector x) {
+            final double[] y = new double[n];
+            for (int i = 0; i < n; ++i) {
+                y[i] = (i + 1) * x.getEntry(i);
+            }
+            return new ArrayRealVector(y, false);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import org.apache.commons.math3.ExecutorAbstractTest;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link ParallelMatrixMultiplier} class.
+ */
+public class ParallelMatrixMultiplierTest extends ExecutorAbstractTest {
+    public ParallelMatrixMultiplierTest() {
+        super(4);
+    }
+
+    @Test
+    public void testBlockMultiply() {
+        final RandomGenerator random = new MersenneTwister(7531l);
+        // threshold 0: all products are parallel
+        final ParallelMatrixMultiplier multiplier = new ParallelMatrixMultiplier(executor, 0, 3);
+        final int[][] sizes = { { 1, 1, 1 }, { 7, 3, 5 }, { 52, 52, 52 }, { 53, 105, 51 }, { 130, 70, 160 } };
+        for (final int[] size : sizes) {
+            final double[][] a = randomData(random, size[0], size[1]);
+            final double[][] b = randomData(random, size[1], size[2]);
+            final RealMatrix expected = naiveMultiply(a, b);
+
+            final BlockRealMatrix sequential = new BlockRealMatrix(a).multiply(new BlockRealMatrix(b));
+            final BlockRealMatrix parallel = multiplier.multiply(new BlockRealMatrix(a), new BlockRealMatrix(b));
+            assertClose(expected, sequential, 1e-12);
+            // same kernel, same order of the operations
+            Assert.assertEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void testArrayMultiply() {
+        final RandomGenerator random = new MersenneTwister(8642l);
+        final ParallelMatrixMultiplier multiplier = new ParallelMatrixMultiplier(executor, 0, 3);
+        final int[][] sizes = { { 1, 1, 1 }, { 2, 9, 3 }, { 67, 65, 300 }, { 131, 270, 61 } };
+        for (final int[] size : sizes) {
+            final double[][] a = randomData(random, size[0], size[1]);
+            final double[][] b = randomData(random, size[1], size[2]);
+            final RealMatrix expected = naiveMultiply(a, b);
+
+            final Array2DRowRealMatrix sequential = new Array2DRowRealMatrix(a).multiply(new Array2DRowRealMatrix(b));
+            final Array2DRowRealMatrix parallel = multiplier.multiply(new Array2DRowRealMatrix(a),
+                                                                      new Array2DRowRealMatrix(b));
+            assertClose(expected, sequential, 1e-12);
+            Assert.assertEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void testMixedMultiply() {
+        final RandomGenerator random = new MersenneTwister(9753l);
+        final ParallelMatrixMultiplier multiplier = new ParallelMatrixMultiplier(executor, 0, 4);
+        final double[][] a = randomData(random, 60, 40);
+        final double[][] b = randomData(random, 40, 70);
+        final RealMatrix expected = naiveMultiply(a, b);
+
+        final RealMatrix blockArray = multiplier.multiply(new BlockRealMatrix(a), (RealMatrix) new Array2DRowRealMatrix(b));
+        Assert.assertTrue(blockArray instanceof BlockRealMatrix);
+        assertClose(expected, blockArray, 1e-12);
+
+        final RealMatrix arrayBlock = multiplier.multiply(new Array2DRowRealMatrix(a), (RealMatrix) new BlockRealMatrix(b));
+        Assert.assertTrue(arrayBlock instanceof BlockRealMatrix);
+        assertClose(expected, arrayBlock, 1e-12);
+
+        final RealMatrix arrayArray = multiplier.multiply((RealMatrix) new Array2DRowRealMatrix(a), new Array2DRowRealMatrix(b));
+        Assert.assertTrue(arrayArray instanceof Array2DRowRealMatrix);
+        assertClose(expected, arrayArray, 1e-12);
+
+        // not dense: delegated to the matrix
+        final double[] diagonal = randomData(random, 1, 40)[0];
+        final RealMatrix diagonalBlock = multiplier.multiply(new DiagonalMatrix(diagonal), (RealMatrix) new BlockRealMatrix(b));
+        assertClose(new DiagonalMatrix(diagonal).multiply(new BlockRealMatrix(b)), diagonalBlock, 0);
+    }
+
+    @Test
+    public void testOperate() {
+        final RandomGenerator random = new MersenneTwister(1357l);
+        final ParallelMatrixMultiplier multiplier = new ParallelMatrixMultiplier(executor, 0, 3);
+        final double[][] a = randomData(random, 170, 90);
+        final double[] v = randomData(random, 1, 90)[0];
+        final RealMatrix block = new BlockRealMatrix(a);
+        final RealMatrix array = new Array2DRowRealMatrix(a);
+        Assert.assertArrayEquals(block.operate(v), multiplier.operate(block, v), 0);
+        Assert.assertArrayEquals(array.operate(v), multiplier.operate(array, v), 0);
+        Assert.assertArrayEquals(array.operate(v), multiplier.operate(block, v), 1e-12);
+    }
+
+    @Test
+    public void testBelowThreshold() {
+        final RandomGenerator random = new MersenneTwister(2468l);
+        final ParallelMatrixMultiplier multiplier = new ParallelMatrixMultiplier(executor);
+        Assert.assertEquals(ParallelMatrixMultiplier.DEFAULT_THRESHOLD, multiplier.getThreshold());
+        Assert.assertEquals(Runtime.getRuntime().availableProcessors(), multiplier.getTasks());
+        Assert.assertSame(executor, multiplier.getExecutor());
+
+        // sequential products
+        final double[][] a = randomData(random, 20, 30);
+        final double[][] b = randomData(random, 30, 10);
+        Assert.assertEquals(new BlockRealMatrix(a).multiply(new BlockRealMatrix(b)),
+                            multiplier.multiply(new BlockRealMatrix(a), new BlockRealMatrix(b)));
+        final double[] v = randomData(random, 1, 30)[0];
+        Assert.assertArrayEquals(new BlockRealMatrix(a).operate(v),
+                                 multiplier.operate(new BlockRealMatrix(a), v), 0);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testMultiplyDimensionMismatch() {
+        new ParallelMatrixMultiplier(executor, 0, 2).multiply(new BlockRealMatrix(3, 4), new BlockRealMatrix(3, 4));
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testOperateDimensionMismatch() {
+        new ParallelMatrixMultiplier(executor, 0, 2).operate(new Array2DRowRealMatrix(3, 4), new double[3]);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullExecutor() {
+        new ParallelMatrixMultiplier(null);
+    }
+
+    @Test(expected=NotPositiveException.class)
+    public void testInvalidThreshold() {
+        new ParallelMatrixMultiplier(executor, -1, 2);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testInvalidTasks() {
+        new ParallelMatrixMultiplier(executor, 0, 0);
+    }
+
+    /**
+     * @param random Random generator.
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @return random entries.
+     */
+    private static double[][] randomData(final RandomGenerator random, final int rows, final int columns) {
+        final double[][] data = new double[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                data[i][j] = 2 * random.nextDouble() - 1;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * @param a Left matrix.
+     * @param b Right matrix.
+     * @return the product, computed by the definition.
+     */
+    private static RealMatrix naiveMultiply(final double[][] a, final double[][] b) {
+        final double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b[0].length; j++) {
+                for (int k = 0; k < b.length; k++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return new Array2DRowRealMatrix(c, false);
+    }
+
+    /**
+     * @param expected Expected matrix.
+     * @param observed Observed matrix.
+     * @param tolerance Tolerance on each entry.
+     */
+    private static void assertClose(final RealMatrix expected, final RealMatrix observed, final double tolerance) {
+        Assert.assertEquals(expected.getRowDimension(), observed.getRowDimension());
+        Assert.assertEquals(expected.getColumnDimension(), observed.getColumnDimension());
+        for (int i = 0; i < expected.getRowDimension(); i++) {
+            for (int j = 0; j < expected.getColumnDimension(); j++) {
+                Assert.assertEquals(expected.getEntry(i, j), observed.getEntry(i, j), tolerance);
+            }
+        }
+    }
+}
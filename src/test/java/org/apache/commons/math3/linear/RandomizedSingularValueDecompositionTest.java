@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import org.apache.commons.math3.ExecutorAbstractTest;
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link RandomizedSingularValueDecomposition} class.
+ */
+public class RandomizedSingularValueDecompositionTest extends ExecutorAbstractTest {
+    public RandomizedSingularValueDecompositionTest() {
+        super(4);
+    }
+
+    @Test(expected = NotStrictlyPositiveException.class)
+    public void testNoSingularValue() {
+        new RandomizedSingularValueDecomposition(new Array2DRowRealMatrix(4, 3), 0);
+    }
+
+    @Test(expected = NumberIsTooLargeException.class)
+    public void testRankTooLarge() {
+        new RandomizedSingularValueDecomposition(new Array2DRowRealMatrix(4, 3), 4);
+    }
+
+    @Test(expected = NotPositiveException.class)
+    public void testNegativeOversampling() {
+        new RandomizedSingularValueDecomposition(new Array2DRowRealMatrix(4, 3), 2, -1, 0,
+                                                 new MersenneTwister(), null);
+    }
+
+    @Test(expected = MathUnsupportedOperationException.class)
+    public void testNonTransposableOperator() {
+        final RealMatrix m = createMatrix(10, 5, 1.0, new MersenneTwister(12l));
+        new RandomizedSingularValueDecomposition(new MatrixOperator(m, false), 2);
+    }
+
+    /** test a matrix whose rank is the target rank: the decomposition is exact */
+    @Test
+    public void testExactLowRank() {
+        final RandomGenerator random = new MersenneTwister(4352l);
+        final Array2DRowRealMatrix a = createRandom(50, 5, random).multiply(createRandom(5, 30, random));
+        final RandomizedSingularValueDecomposition rsvd = new RandomizedSingularValueDecomposition(a, 5);
+        final double[] expected = new SingularValueDecomposition(a).getSingularValues();
+        for (int i = 0; i < 5; ++i) {
+            Assert.assertEquals(expected[i], rsvd.getSingularValues()[i], 1.0e-12 * expected[0]);
+        }
+        TestUtils.assertEquals("reconstruction", a, rsvd.getU().multiply(rsvd.getS()).multiply(rsvd.getVT()),
+                               1.0e-12 * expected[0]);
+        Assert.assertTrue(rsvd.getApproximationError() < 1.0e-12 * expected[0]);
+    }
+
+    /** test the leading singular triplets against the complete decomposition */
+    @Test
+    public void testSameAsSingularValueDecomposition() {
+        for (final int[] dimensions : new int[][] { { 200, 80 }, { 80, 200 } }) {
+            final Array2DRowRealMatrix a = createMatrix(dimensions[0], dimensions[1], 0.8, new MersenneTwister(2365l));
+            final int k = 10;
+            final RandomizedSingularValueDecomposition rsvd = new RandomizedSingularValueDecomposition(a, k);
+            final SingularValueDecomposition svd = new SingularValueDecomposition(a);
+            checkOrthonormal(rsvd.getU());
+            checkOrthonormal(rsvd.getV());
+            for (int i = 0; i < k; ++i) {
+                Assert.assertEquals(svd.getSingularValues()[i], rsvd.getSingularValues()[i],
+                                    1.0e-10 * svd.getSingularValues()[0]);
+                Assert.assertEquals(1.0, FastMath.abs(svd.getU().getColumnVector(i).dotProduct(rsvd.getU().getColumnVector(i))),
+                                    1.0e-8);
+                Assert.assertEquals(1.0, FastMath.abs(svd.getV().getColumnVector(i).dotProduct(rsvd.getV().getColumnVector(i))),
+                                    1.0e-8);
+            }
+
+            // the error is at least the first neglected singular value, and the bound is not too loose
+            final double error = rsvd.getApproximationError();
+            Assert.assertTrue(error >= svd.getSingularValues()[k]);
+            Assert.assertTrue(error <= 100 * svd.getSingularValues()[k]);
+        }
+    }
+
+    /** test that power iterations improve the approximation of a slowly decaying spectrum */
+    @Test
+    public void testPowerIterations() {
+        final Array2DRowRealMatrix a = createMatrix(300, 200, 0.9, new MersenneTwister(7341l));
+        final double expected = new SingularValueDecomposition(a).getSingularValues()[4];
+        double previous = Double.POSITIVE_INFINITY;
+        for (int q = 0; q < 4; ++q) {
+            final RandomizedSingularValueDecomposition rsvd =
+                new RandomizedSingularValueDecomposition(a, 5, 5, q, new MersenneTwister(37l), null);
+            final double delta = FastMath.abs(rsvd.getSingularValues()[4] - expected);
+            Assert.assertTrue(delta < previous);
+            previous = delta;
+        }
+        Assert.assertEquals(0, previous, 1.0e-4 * expected);
+    }
+
+    /** test a rank larger than the rank of the matrix */
+    @Test
+    public void testRankDeficient() {
+        final RandomGenerator random = new MersenneTwister(8812l);
+        final Array2DRowRealMatrix a = createRandom(40, 3, random).multiply(createRandom(3, 20, random));
+        final RandomizedSingularValueDecomposition rsvd = new RandomizedSingularValueDecomposition(a, 20);
+        checkOrthonormal(rsvd.getU());
+        checkOrthonormal(rsvd.getV());
+        for (int i = 3; i < 20; ++i) {
+            Assert.assertEquals(0, rsvd.getSingularValues()[i], 1.0e-12 * rsvd.getSingularValues()[0]);
+        }
+        TestUtils.assertEquals("reconstruction", a, rsvd.getU().multiply(rsvd.getS()).multiply(rsvd.getVT()),
+                               1.0e-12 * rsvd.getSingularValues()[0]);
+    }
+
+    /** test that sparse matrices and matrix-free operators give the same result as dense matrices */
+    @Test
+    public void testOperators() {
+        final Array2DRowRealMatrix a = createMatrix(150, 60, 0.7, new MersenneTwister(5519l));
+        final SparseMatrixBuilder builder = new SparseMatrixBuilder(150, 60, 150 * 60);
+        for (int i = 0; i < 150; ++i) {
+            for (int j = 0; j < 60; ++j) {
+                builder.add(i, j, a.getEntry(i, j));
+            }
+        }
+        final double[] expected =
+            new RandomizedSingularValueDecomposition(a, 8).getSingularValues();
+        final RealLinearOperator[] operators = new RealLinearOperator[] {
+            new BlockRealMatrix(a.getData()),
+            builder.buildCompressedRow(),
+            builder.buildCompressedColumn(),
+            new MatrixOperator(a, true)
+        };
+        for (final RealLinearOperator operator : operators) {
+            final double[] s = new RandomizedSingularValueDecomposition(operator, 8).getSingularValues();
+            Assert.assertArrayEquals(expected, s, 1.0e-12 * expected[0]);
+        }
+    }
+
+    /** test the concurrent products against the sequential ones */
+    @Test
+    public void testExecutor() {
+        final Array2DRowRealMatrix a = createMatrix(600, 300, 0.9, new MersenneTwister(1729l));
+        final SparseMatrixBuilder builder = new SparseMatrixBuilder(600, 300, 600 * 300);
+        for (int i = 0; i < 600; ++i) {
+            for (int j = 0; j < 300; ++j) {
+                builder.add(i, j, a.getEntry(i, j));
+            }
+        }
+        final RealLinearOperator[] operators = new RealLinearOperator[] {
+            a,
+            new BlockRealMatrix(a.getData()),
+            builder.buildCompressedRow(),
+            new MatrixOperator(a, true)
+        };
+        for (final RealLinearOperator operator : operators) {
+            final RandomizedSingularValueDecomposition sequential =
+                new RandomizedSingularValueDecomposition(operator, 15, 10, 2, new MersenneTwister(3l), null);
+            final RandomizedSingularValueDecomposition concurrent =
+                new RandomizedSingularValueDecomposition(operator, 15, 10, 2, new MersenneTwister(3l), executor);
+            Assert.assertArrayEquals(sequential.getSingularValues(), concurrent.getSingularValues(),
+                                     1.0e-12 * sequential.getSingularValues()[0]);
+            TestUtils.assertEquals("U", sequential.getU(), concurrent.getU(), 1.0e-10);
+            TestUtils.assertEquals("V", sequential.getV(), concurrent.getV(), 1.0e-10);
+        }
+    }
+
+    /**
+     * Checks that the columns of a matrix are orthonormal.
+     */
+    private static void checkOrthonormal(final RealMatrix m) {
+        TestUtils.assertEquals("orthonormality", MatrixUtils.createRealIdentityMatrix(m.getColumnDimension()),
+                               m.transpose().multiply(m), 1.0e-13);
+    }
+
+    /**
+     * Creates a matrix with random singular vectors and geometrically
+     * decreasing singular values.
+     */
+    private static Array2DRowRealMatrix createMatrix(final int rows, final int columns, final double ratio,
+                                           final RandomGenerator random) {
+        final int p = FastMath.min(rows, columns);
+        final RealMatrix u = new QRDecomposition(createRandom(rows, p, random)).getQ().getSubMatrix(0, rows - 1, 0, p - 1);
+        final RealMatrix v = new QRDecomposition(createRandom(columns, p, random)).getQ().getSubMatrix(0, columns - 1, 0, p - 1);
+        final double[] s = new double[p];
+        for (int i = 0; i < p; ++i) {
+            s[i] = 100 * FastMath.pow(ratio, i);
+        }
+        return new Array2DRowRealMatrix(u.multiply(MatrixUtils.createRealDiagonalMatrix(s)).multiply(v.transpose()).getData(),
+                                        false);
+    }
+
+    /**
+     * Creates a matrix with standard normal entries.
+     */
+    private static Array2DRowRealMatrix createRandom(final int rows, final int columns, final RandomGenerator random) {
+        final double[][] data = new double[rows][columns];
+        for (final double[] row : data) {
+            for (int j = 0; j < columns; ++j) {
+                row[j] = random.nextGaussian();
+            }
+        }
+        return new Array2DRowRealMatrix(data, false);
+    }
+
+    /** Matrix-free view of a matrix. */
+    private static class MatrixOperator extends RealLinearOperator {
+        /** Matrix. */
+        private final RealMatrix m;
+        /** Indicator for transposable operators. */
+        private final boolean transposable;
+
+        /**
+         * @param m matrix.
+         * @param transposable if true, the transposed products are available.
+         */
+        MatrixOperator(final RealMatrix m, final boolean transposable) {
+            this.m = m;
+            this.transposable = transposable;
+        }
+
+        @Override
+        public int getRowDimension() {
+            return m.getRowDimension();
+        }
+
+        @Override
+        public int getColumnDimension() {
+            return m.getColumnDimension();
+        }
+
+        @Override
+        public RealVector operate(final RealVector x) {
+            return m.operate(x);
+        }
+
+        @Override
+        public RealVector operateTranspose(final RealVector x) {
+            return m.preMultiply(x);
+        }
+
+        @Override
+        public boolean isTransposable() {
+            return transposable;
+        }
+    }
+}
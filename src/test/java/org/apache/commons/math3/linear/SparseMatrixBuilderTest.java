@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link SparseMatrixBuilder} class.
+ */
+public class SparseMatrixBuilderTest {
+
+    @Test
+    public void testRandomEntries() {
+        final RandomGenerator random = new MersenneTwister(3412l);
+        final int rows = 40;
+        final int columns = 27;
+        final double[][] expected = new double[rows][columns];
+        final boolean[][] stored = new boolean[rows][columns];
+        final SparseMatrixBuilder builder = new SparseMatrixBuilder(rows, columns);
+        for (int k = 0; k < 300; k++) {
+            // many duplicates, in random order
+            final int i = random.nextInt(rows);
+            final int j = random.nextInt(columns);
+            final double value = random.nextGaussian();
+            expected[i][j] += value;
+            stored[i][j] = true;
+            builder.add(i, j, value);
+        }
+        Assert.assertEquals(300, builder.getEntryCount());
+
+        int nonZero = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (stored[i][j]) {
+                    ++nonZero;
+                }
+            }
+        }
+
+        final CompressedRowRealMatrix byRow = builder.buildCompressedRow();
+        final CompressedColumnRealMatrix byColumn = builder.buildCompressedColumn();
+        Assert.assertEquals(nonZero, byRow.getNonZeroCount());
+        Assert.assertEquals(nonZero, byColumn.getNonZeroCount());
+        TestUtils.assertEquals("rows", new Array2DRowRealMatrix(expected), byRow, 1e-15);
+        TestUtils.assertEquals("columns", new Array2DRowRealMatrix(expected), byColumn, 1e-15);
+    }
+
+    @Test
+    public void testCancellingEntriesStored() {
+        final CompressedRowRealMatrix m = new SparseMatrixBuilder(2, 2)
+            .add(1, 0, 3)
+            .add(1, 0, -3)
+            .add(0, 1, 1)
+            .buildCompressedRow();
+        Assert.assertEquals(2, m.getNonZeroCount());
+        Assert.assertEquals(0, m.getEntry(1, 0), 0);
+        // the entry is stored, so it can be set
+        m.setEntry(1, 0, 2);
+        Assert.assertEquals(2, m.getEntry(1, 0), 0);
+    }
+
+    @Test
+    public void testBuilderReused() {
+        final SparseMatrixBuilder builder = new SparseMatrixBuilder(3, 3, 0);
+        builder.add(2, 2, 1);
+        final CompressedRowRealMatrix first = builder.buildCompressedRow();
+        builder.add(0, 1, 5);
+        final CompressedRowRealMatrix second = builder.buildCompressedRow();
+        Assert.assertEquals(1, first.getNonZeroCount());
+        Assert.assertEquals(2, second.getNonZeroCount());
+        Assert.assertEquals(5, second.getEntry(0, 1), 0);
+        Assert.assertArrayEquals(new int[] { 0, 1, 1, 2 }, second.getRowStartRef());
+    }
+
+    @Test
+    public void testEmpty() {
+        final CompressedColumnRealMatrix m = new SparseMatrixBuilder(2, 3).buildCompressedColumn();
+        Assert.assertEquals(0, m.getNonZeroCount());
+        Assert.assertEquals(2, m.getRowDimension());
+        Assert.assertEquals(3, m.getColumnDimension());
+        TestUtils.assertEquals(new double[2], m.operate(new double[] { 1, 2, 3 }), 0);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testRowOutOfRange() {
+        new SparseMatrixBuilder(2, 3).add(2, 0, 1);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testColumnOutOfRange() {
+        new SparseMatrixBuilder(2, 3).add(0, -1, 1);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testInvalidDimension() {
+        new SparseMatrixBuilder(0, 3);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.linear;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.ExecutorAbstractTest;
+import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link SymmetricEigenDecomposition} class.
+ */
+public class SymmetricEigenDecompositionTest extends ExecutorAbstractTest {
+    public SymmetricEigenDecompositionTest() {
+        super(4);
+    }
+
+    @Test
+    public void testDimension1() {
+        final SymmetricEigenDecomposition ed =
+            new SymmetricEigenDecomposition(MatrixUtils.createRealMatrix(new double[][] { { 1.5 } }));
+        Assert.assertEquals(1.5, ed.getRealEigenvalue(0), 1.0e-15);
+        Assert.assertEquals(1.0, FastMath.abs(ed.getEigenvector(0).getEntry(0)), 1.0e-15);
+    }
+
+    @Test(expected = NonSymmetricMatrixException.class)
+    public void testNonSymmetric() {
+        new SymmetricEigenDecomposition(MatrixUtils.createRealMatrix(new double[][] {
+                { 1, 2 },
+                { 3, 4 }
+        }));
+    }
+
+    @Test(expected = NonSquareMatrixException.class)
+    public void testNonSquare() {
+        new SymmetricEigenDecomposition(MatrixUtils.createRealMatrix(new double[2][3]));
+    }
+
+    @Test
+    public void testZero() {
+        final SymmetricEigenDecomposition ed = new SymmetricEigenDecomposition(new Array2DRowRealMatrix(40, 40));
+        for (int i = 0; i < 40; ++i) {
+            Assert.assertEquals(0, ed.getRealEigenvalue(i), 0);
+        }
+        checkDecomposition(new Array2DRowRealMatrix(40, 40), ed, 1.0e-15);
+    }
+
+    /** test the eigenvalues against the implicit QL algorithm, on sizes above and below the QL threshold */
+    @Test
+    public void testSameAsEigenDecomposition() {
+        final RandomGenerator random = new MersenneTwister(4321l);
+        for (final int n : new int[] { 2, 5, 25, 26, 51, 52, 53, 120, 211 }) {
+            final RealMatrix a = createSymmetric(random, n);
+            final SymmetricEigenDecomposition ed = new SymmetricEigenDecomposition(a);
+            final EigenDecomposition reference = new EigenDecomposition(a);
+            for (int i = 0; i < n; ++i) {
+                Assert.assertEquals(reference.getRealEigenvalue(i), ed.getRealEigenvalue(i), 1.0e-12 * n);
+                if (i > 0) {
+                    Assert.assertTrue(ed.getRealEigenvalue(i) <= ed.getRealEigenvalue(i - 1));
+                }
+            }
+            checkDecomposition(a, ed, 1.0e-12 * n);
+        }
+    }
+
+    /** test a spectrum with clusters and multiple eigenvalues, which are deflated */
+    @Test
+    public void testClusteredEigenvalues() {
+        final RandomGenerator random = new MersenneTwister(8765l);
+        final int n = 150;
+        final double[] lambda = new double[n];
+        for (int i = 0; i < n; ++i) {
+            switch (i % 4) {
+            case 0 :
+                lambda[i] = 1;
+                break;
+            case 1 :
+                lambda[i] = 1 + 1.0e-13 * i;
+                break;
+            case 2 :
+                lambda[i] = -2;
+                break;
+            default :
+                lambda[i] = 1.0e-3 * i;
+            }
+        }
+        final RealMatrix q = new QRDecomposition(createSymmetric(random, n)).getQ();
+        final RealMatrix a = symmetrize(q.multiply(MatrixUtils.createRealDiagonalMatrix(lambda)).multiply(q.transpose()));
+        final SymmetricEigenDecomposition ed = new SymmetricEigenDecomposition(a);
+        final double[] sorted = lambda.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(sorted[n - 1 - i], ed.getRealEigenvalue(i), 1.0e-12);
+        }
+        checkDecomposition(a, ed, 1.0e-12);
+    }
+
+    /** test a matrix which is already tridiagonal, with a negligible off-diagonal element */
+    @Test
+    public void testTridiagonal() {
+        final int n = 100;
+        final double[] main = new double[n];
+        final double[] secondary = new double[n - 1];
+        for (int i = 0; i < n; ++i) {
+            main[i] = FastMath.abs(i - n / 2);
+            if (i < n - 1) {
+                secondary[i] = (i == 40) ? 1.0e-20 : 1;
+            }
+        }
+        final SymmetricEigenDecomposition ed = new SymmetricEigenDecomposition(main, secondary);
+        final EigenDecomposition reference = new EigenDecomposition(main, secondary);
+        final RealMatrix t = MatrixUtils.createRealMatrix(n, n);
+        for (int i = 0; i < n; ++i) {
+            t.setEntry(i, i, main[i]);
+            if (i < n - 1) {
+                t.setEntry(i, i + 1, secondary[i]);
+                t.setEntry(i + 1, i, secondary[i]);
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(reference.getRealEigenvalue(i), ed.getRealEigenvalue(i), 1.0e-12);
+        }
+        checkDecomposition(t, ed, 1.0e-12);
+    }
+
+    /** test a matrix with eigenvalues of very different magnitudes */
+    @Test
+    public void testGraded() {
+        final RandomGenerator random = new MersenneTwister(1928l);
+        final int n = 80;
+        final double[] lambda = new double[n];
+        for (int i = 0; i < n; ++i) {
+            lambda[i] = FastMath.pow(10, 6 - 0.15 * i);
+        }
+        final RealMatrix q = new QRDecomposition(createSymmetric(random, n)).getQ();
+        final RealMatrix a = symmetrize(q.multiply(MatrixUtils.createRealDiagonalMatrix(lambda)).multiply(q.transpose()));
+        final SymmetricEigenDecomposition ed = new SymmetricEigenDecomposition(a);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(lambda[i], ed.getRealEigenvalue(i), 1.0e-8);
+        }
+        checkDecomposition(a, ed, 1.0e-8);
+    }
+
+    /** test the concurrent decomposition against the sequential one */
+    @Test
+    public void testExecutor() {
+        final RealMatrix a = createSymmetric(new MersenneTwister(3737l), 300);
+        final SymmetricEigenDecomposition sequential = new SymmetricEigenDecomposition(a);
+        final SymmetricEigenDecomposition concurrent = new SymmetricEigenDecomposition(a, executor);
+        Assert.assertArrayEquals(sequential.getRealEigenvalues(), concurrent.getRealEigenvalues(), 1.0e-12);
+        checkDecomposition(a, concurrent, 1.0e-11);
+    }
+
+    @Test
+    public void testDeterminant() {
+        final RealMatrix a = createSymmetric(new MersenneTwister(5151l), 30);
+        Assert.assertEquals(1.0,
+                            new SymmetricEigenDecomposition(a).getDeterminant() /
+                            new LUDecomposition(a).getDeterminant(),
+                            1.0e-10);
+    }
+
+    /**
+     * Checks A V = V D and V<sup>T</sup>V = I.
+     */
+    private static void checkDecomposition(final RealMatrix a, final SymmetricEigenDecomposition ed,
+                                           final double tolerance) {
+        final int n = a.getRowDimension();
+        final RealMatrix v = ed.getV();
+        final RealMatrix d = ed.getD();
+        TestUtils.assertEquals("VT", v.transpose(), ed.getVT(), 1.0e-15);
+        TestUtils.assertEquals("orthogonality", MatrixUtils.createRealIdentityMatrix(n),
+                               ed.getVT().multiply(v), tolerance);
+        final double scale = FastMath.max(1, a.getNorm());
+        TestUtils.assertEquals("AV = VD", a.multiply(v).scalarMultiply(1 / scale),
+                               v.multiply(d).scalarMultiply(1 / scale), tolerance);
+        for (int i = 0; i < n; i += 7) {
+            TestUtils.assertEquals("eigenvector", v.getColumnVector(i), ed.getEigenvector(i), 1.0e-15);
+        }
+    }
+
+    private static RealMatrix createSymmetric(final RandomGenerator random, final int n) {
+        final double[][] data = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j <= i; ++j) {
+                data[i][j] = 2 * random.nextDouble() - 1;
+                data[j][i] = data[i][j];
+            }
+        }
+        return new Array2DRowRealMatrix(data, false);
+    }
+
+    private static RealMatrix symmetrize(final RealMatrix a) {
+        final double[][] data = a.getData();
+        for (int i = 0; i < data.length; ++i) {
+            for (int j = 0; j < i; ++j) {
+                data[i][j] = data[j][i];
+            }
+        }
+        return new Array2DRowRealMatrix(data, false);
+    }
+}
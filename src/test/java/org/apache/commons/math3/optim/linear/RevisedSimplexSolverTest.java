@@ -0,0 +1,669 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.Precision;
+import org.junit.Test;
+import org.junit.Assert;
+
+public class RevisedSimplexSolverTest {
+    private static final MaxIter DEFAULT_MAX_ITER = new MaxIter(100);
+
+    @Test
+    public void testMath828() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(
+                new double[] { 1.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0}, 0.0);
+
+        ArrayList <LinearConstraint>constraints = new ArrayList<LinearConstraint>();
+
+        constraints.add(new LinearConstraint(new double[] {0.0, 39.0, 23.0, 96.0, 15.0, 48.0, 9.0, 21.0, 48.0, 36.0, 76.0, 19.0, 88.0, 17.0, 16.0, 36.0,}, Relationship.GEQ, 15.0));
+        constraints.add(new LinearConstraint(new double[] {0.0, 59.0, 93.0, 12.0, 29.0, 78.0, 73.0, 87.0, 32.0, 70.0, 68.0, 24.0, 11.0, 26.0, 65.0, 25.0,}, Relationship.GEQ, 29.0));
+        constraints.add(new LinearConstraint(new double[] {0.0, 74.0, 5.0, 82.0, 6.0, 97.0, 55.0, 44.0, 52.0, 54.0, 5.0, 93.0, 91.0, 8.0, 20.0, 97.0,}, Relationship.GEQ, 6.0));
+        constraints.add(new LinearConstraint(new double[] {8.0, -3.0, -28.0, -72.0, -8.0, -31.0, -31.0, -74.0, -47.0, -59.0, -24.0, -57.0, -56.0, -16.0, -92.0, -59.0,}, Relationship.GEQ, 0.0));
+        constraints.add(new LinearConstraint(new double[] {25.0, -7.0, -99.0, -78.0, -25.0, -14.0, -16.0, -89.0, -39.0, -56.0, -53.0, -9.0, -18.0, -26.0, -11.0, -61.0,}, Relationship.GEQ, 0.0));
+        constraints.add(new LinearConstraint(new double[] {33.0, -95.0, -15.0, -4.0, -33.0, -3.0, -20.0, -96.0, -27.0, -13.0, -80.0, -24.0, -3.0, -13.0, -57.0, -76.0,}, Relationship.GEQ, 0.0));
+        constraints.add(new LinearConstraint(new double[] {7.0, -95.0, -39.0, -93.0, -7.0, -94.0, -94.0, -62.0, -76.0, -26.0, -53.0, -57.0, -31.0, -76.0, -53.0, -52.0,}, Relationship.GEQ, 0.0));
+
+        double epsilon = 1e-6;
+        PointValuePair solution = new RevisedSimplexSolver().optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                                      GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(1.0d, solution.getValue(), epsilon);
+        Assert.assertTrue(validSolution(solution, constraints, epsilon));
+    }
+
+    @Test
+    public void testMath781() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 2, 6, 7 }, 0);
+
+        ArrayList<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 2, 1 }, Relationship.LEQ, 2));
+        constraints.add(new LinearConstraint(new double[] { -1, 1, 1 }, Relationship.LEQ, -1));
+        constraints.add(new LinearConstraint(new double[] { 2, -3, 1 }, Relationship.LEQ, -1));
+
+        double epsilon = 1e-6;
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+
+        Assert.assertTrue(Precision.compareTo(solution.getPoint()[0], 0.0d, epsilon) > 0);
+        Assert.assertTrue(Precision.compareTo(solution.getPoint()[1], 0.0d, epsilon) > 0);
+        Assert.assertTrue(Precision.compareTo(solution.getPoint()[2], 0.0d, epsilon) < 0);
+        Assert.assertEquals(2.0d, solution.getValue(), epsilon);
+    }
+
+    @Test
+    public void testMath434NegativeVariable() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] {0.0, 0.0, 1.0}, 0.0d);
+        ArrayList<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] {1, 1, 0}, Relationship.EQ, 5));
+        constraints.add(new LinearConstraint(new double[] {0, 0, 1}, Relationship.GEQ, -10));
+
+        double epsilon = 1e-6;
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(false));
+
+        Assert.assertEquals(5.0, solution.getPoint()[0] + solution.getPoint()[1], epsilon);
+        Assert.assertEquals(-10.0, solution.getPoint()[2], epsilon);
+        Assert.assertEquals(-10.0, solution.getValue(), epsilon);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testMath434UnfeasibleSolution() {
+        double epsilon = 1e-6;
+
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] {1.0, 0.0}, 0.0);
+        ArrayList<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] {epsilon/2, 0.5}, Relationship.EQ, 0));
+        constraints.add(new LinearConstraint(new double[] {1e-3, 0.1}, Relationship.EQ, 10));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        // allowing only non-negative values, no feasible solution shall be found
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true));
+    }
+
+    @Test
+    public void testMath434PivotRowSelection2() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] {0.0d, 1.0d, 1.0d, 0.0d, 0.0d, 0.0d, 0.0d}, 0.0d);
+
+        ArrayList<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] {1.0d, -0.1d, 0.0d, 0.0d, 0.0d, 0.0d, 0.0d}, Relationship.EQ, -0.1d));
+        constraints.add(new LinearConstraint(new double[] {1.0d, 0.0d, 0.0d, 0.0d, 0.0d, 0.0d, 0.0d}, Relationship.GEQ, -1e-18d));
+        constraints.add(new LinearConstraint(new double[] {0.0d, 1.0d, 0.0d, 0.0d, 0.0d, 0.0d, 0.0d}, Relationship.GEQ, 0.0d));
+        constraints.add(new LinearConstraint(new double[] {0.0d, 0.0d, 0.0d, 1.0d, 0.0d, -0.0128588d, 1e-5d}, Relationship.EQ, 0.0d));
+        constraints.add(new LinearConstraint(new double[] {0.0d, 0.0d, 0.0d, 0.0d, 1.0d, 1e-5d, -0.0128586d}, Relationship.EQ, 1e-10d));
+        constraints.add(new LinearConstraint(new double[] {0.0d, 0.0d, 1.0d, -1.0d, 0.0d, 0.0d, 0.0d}, Relationship.GEQ, 0.0d));
+        constraints.add(new LinearConstraint(new double[] {0.0d, 0.0d, 1.0d, 1.0d, 0.0d, 0.0d, 0.0d}, Relationship.GEQ, 0.0d));
+        constraints.add(new LinearConstraint(new double[] {0.0d, 0.0d, 1.0d, 0.0d, -1.0d, 0.0d, 0.0d}, Relationship.GEQ, 0.0d));
+        constraints.add(new LinearConstraint(new double[] {0.0d, 0.0d, 1.0d, 0.0d, 1.0d, 0.0d, 0.0d}, Relationship.GEQ, 0.0d));
+
+        double epsilon = 1e-7;
+        RevisedSimplexSolver simplex = new RevisedSimplexSolver();
+        PointValuePair solution = simplex.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                   GoalType.MINIMIZE, new NonNegativeConstraint(false));
+
+        Assert.assertTrue(Precision.compareTo(solution.getPoint()[0], -1e-18d, epsilon) >= 0);
+        Assert.assertEquals(1.0d, solution.getPoint()[1], epsilon);
+        Assert.assertEquals(0.0d, solution.getPoint()[2], epsilon);
+        Assert.assertEquals(1.0d, solution.getValue(), epsilon);
+    }
+
+    @Test
+    public void testMath286() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 0.8, 0.2, 0.7, 0.3, 0.6, 0.4 }, 0 );
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0, 1, 0, 1, 0 }, Relationship.EQ, 23.0));
+        constraints.add(new LinearConstraint(new double[] { 0, 1, 0, 1, 0, 1 }, Relationship.EQ, 23.0));
+        constraints.add(new LinearConstraint(new double[] { 1, 0, 0, 0, 0, 0 }, Relationship.GEQ, 10.0));
+        constraints.add(new LinearConstraint(new double[] { 0, 0, 1, 0, 0, 0 }, Relationship.GEQ, 8.0));
+        constraints.add(new LinearConstraint(new double[] { 0, 0, 0, 0, 1, 0 }, Relationship.GEQ, 5.0));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+
+        Assert.assertEquals(25.8, solution.getValue(), .0000001);
+        Assert.assertEquals(23.0, solution.getPoint()[0] + solution.getPoint()[2] + solution.getPoint()[4], 0.0000001);
+        Assert.assertEquals(23.0, solution.getPoint()[1] + solution.getPoint()[3] + solution.getPoint()[5], 0.0000001);
+        Assert.assertTrue(solution.getPoint()[0] >= 10.0 - 0.0000001);
+        Assert.assertTrue(solution.getPoint()[2] >= 8.0 - 0.0000001);
+        Assert.assertTrue(solution.getPoint()[4] >= 5.0 - 0.0000001);
+    }
+
+    @Test
+    public void testDegeneracy() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 0.8, 0.7 }, 0 );
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 18.0));
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.GEQ, 10.0));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.GEQ, 8.0));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(13.6, solution.getValue(), .0000001);
+    }
+
+    @Test
+    public void testMath288() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 7, 3, 0, 0 }, 0 );
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 3, 0, -5, 0 }, Relationship.LEQ, 0.0));
+        constraints.add(new LinearConstraint(new double[] { 2, 0, 0, -5 }, Relationship.LEQ, 0.0));
+        constraints.add(new LinearConstraint(new double[] { 0, 3, 0, -5 }, Relationship.LEQ, 0.0));
+        constraints.add(new LinearConstraint(new double[] { 1, 0, 0, 0 }, Relationship.LEQ, 1.0));
+        constraints.add(new LinearConstraint(new double[] { 0, 1, 0, 0 }, Relationship.LEQ, 1.0));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(10.0, solution.getValue(), .0000001);
+    }
+
+    @Test
+    public void testMath290GEQ() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 5 }, 0 );
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 2, 0 }, Relationship.GEQ, -1.0));
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(0, solution.getValue(), .0000001);
+        Assert.assertEquals(0, solution.getPoint()[0], .0000001);
+        Assert.assertEquals(0, solution.getPoint()[1], .0000001);
+    }
+
+    @Test(expected=NoFeasibleSolutionException.class)
+    public void testMath290LEQ() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 5 }, 0 );
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 2, 0 }, Relationship.LEQ, -1.0));
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true));
+    }
+
+    @Test
+    public void testSimplexSolver() {
+        LinearObjectiveFunction f =
+            new LinearObjectiveFunction(new double[] { 15, 10 }, 7);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 2));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 3));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ, 4));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(2.0, solution.getPoint()[0], 1e-12);
+        Assert.assertEquals(2.0, solution.getPoint()[1], 1e-12);
+        Assert.assertEquals(57.0, solution.getValue(), 1e-12);
+    }
+
+    @Test
+    public void testSingleVariableAndConstraint() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 3 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1 }, Relationship.LEQ, 10));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+        Assert.assertEquals(10.0, solution.getPoint()[0], 0.0);
+        Assert.assertEquals(30.0, solution.getValue(), 0.0);
+    }
+
+    @Test
+    public void testMinimization() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { -2, 1 }, -5);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 2 }, Relationship.LEQ, 6));
+        constraints.add(new LinearConstraint(new double[] { 3, 2 }, Relationship.LEQ, 12));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.GEQ, 0));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(false));
+        Assert.assertEquals(4.0, solution.getPoint()[0], 1e-12);
+        Assert.assertEquals(0.0, solution.getPoint()[1], 1e-12);
+        Assert.assertEquals(-13.0, solution.getValue(), 1e-12);
+    }
+
+    @Test
+    public void testSolutionWithNegativeDecisionVariable() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { -2, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 6));
+        constraints.add(new LinearConstraint(new double[] { 1, 2 }, Relationship.LEQ, 14));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+        Assert.assertEquals(-2.0, solution.getPoint()[0], 1e-12);
+        Assert.assertEquals(8.0, solution.getPoint()[1], 1e-12);
+        Assert.assertEquals(12.0, solution.getValue(), 1e-12);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasibleSolution() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 15 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1 }, Relationship.GEQ, 3));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnboundedSolution() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 15, 10 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.EQ, 2));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test
+    public void testRestrictVariablesToNonNegative() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 409, 523, 70, 204, 339 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] {    43,   56, 345,  56,    5 }, Relationship.LEQ,  4567456));
+        constraints.add(new LinearConstraint(new double[] {    12,   45,   7,  56,   23 }, Relationship.LEQ,    56454));
+        constraints.add(new LinearConstraint(new double[] {     8,  768,   0,  34, 7456 }, Relationship.LEQ,  1923421));
+        constraints.add(new LinearConstraint(new double[] { 12342, 2342,  34, 678, 2342 }, Relationship.GEQ,     4356));
+        constraints.add(new LinearConstraint(new double[] {    45,  678,  76,  52,   23 }, Relationship.EQ,    456356));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(2902.92783505155, solution.getPoint()[0], .0000001);
+        Assert.assertEquals(480.419243986254, solution.getPoint()[1], .0000001);
+        Assert.assertEquals(0.0, solution.getPoint()[2], .0000001);
+        Assert.assertEquals(0.0, solution.getPoint()[3], .0000001);
+        Assert.assertEquals(0.0, solution.getPoint()[4], .0000001);
+        Assert.assertEquals(1438556.7491409, solution.getValue(), .0000001);
+    }
+
+    @Test
+    public void testTrivialModel() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ,  0));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(0, solution.getValue(), .0000001);
+    }
+
+    @Test
+    public void testRedundantConstraints() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 2, 0 }, 0);
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1, 1 }, Relationship.EQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 2, 2, 2 }, Relationship.EQ, 8));
+        constraints.add(new LinearConstraint(new double[] { 1, 1, 0 }, Relationship.GEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 0, 0, 1 }, Relationship.EQ, 3));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(1.0, solution.getValue(), 1e-10);
+        Assert.assertEquals(1.0, solution.getPoint()[0], 1e-10);
+        Assert.assertTrue(validSolution(solution, constraints, 1e-10));
+    }
+
+    @Test(expected = NotStrictlyPositiveException.class)
+    public void testInvalidUpdateLimit() {
+        new RevisedSimplexSolver(1e-6, 1e-12, 0);
+    }
+
+    @Test
+    public void testRandomProblems() {
+        final RandomGenerator random = new MersenneTwister(4321l);
+        for (int k = 0; k < 20; k++) {
+            final int n = 10 + random.nextInt(30);
+            final int m = 5 + random.nextInt(30);
+
+            // feasible point
+            final double[] x = new double[n];
+            for (int j = 0; j < n; j++) {
+                x[j] = random.nextDouble();
+            }
+
+            final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+            for (int i = 0; i < m; i++) {
+                final double[] a = new double[n];
+                double ax = 0;
+                for (int j = 0; j < n; j++) {
+                    if (random.nextDouble() < 0.2) {
+                        a[j] = random.nextDouble() * 10 - 5;
+                        ax += a[j] * x[j];
+                    }
+                }
+                switch (random.nextInt(3)) {
+                case 0:
+                    constraints.add(new LinearConstraint(a, Relationship.LEQ, ax + random.nextDouble()));
+                    break;
+                case 1:
+                    constraints.add(new LinearConstraint(a, Relationship.GEQ, ax - random.nextDouble()));
+                    break;
+                default:
+                    constraints.add(new LinearConstraint(a, Relationship.EQ, ax));
+                }
+            }
+
+            // positive costs: bounded below on the non-negative orthant
+            final double[] c = new double[n];
+            for (int j = 0; j < n; j++) {
+                c[j] = 0.1 + random.nextDouble();
+            }
+            final LinearObjectiveFunction f = new LinearObjectiveFunction(c, 0);
+
+            final PointValuePair expected =
+                new SimplexSolver().optimize(new MaxIter(10000), f, new LinearConstraintSet(constraints),
+                                             GoalType.MINIMIZE, new NonNegativeConstraint(true));
+            final PointValuePair solution =
+                new RevisedSimplexSolver().optimize(new MaxIter(10000), f, new LinearConstraintSet(constraints),
+                                                    GoalType.MINIMIZE, new NonNegativeConstraint(true));
+            Assert.assertEquals(expected.getValue(), solution.getValue(), 1e-8);
+            Assert.assertTrue(validSolution(solution, constraints, 1e-8));
+        }
+    }
+
+    @Test
+    public void testTransportationProblem() {
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearObjectiveFunction f = transportationProblem(20, 30, new MersenneTwister(1234l), constraints);
+
+        final PointValuePair expected =
+            new SimplexSolver().optimize(new MaxIter(10000), f, new LinearConstraintSet(constraints),
+                                         GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        final PointValuePair solution =
+            new RevisedSimplexSolver().optimize(new MaxIter(10000), f, new LinearConstraintSet(constraints),
+                                                GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(expected.getValue(), solution.getValue(), 1e-8);
+        Assert.assertTrue(validSolution(solution, constraints, 1e-8));
+
+        // refactorization after each pivot
+        final PointValuePair refactorized =
+            new RevisedSimplexSolver(1e-6, 1e-12, 1).optimize(new MaxIter(10000), f, new LinearConstraintSet(constraints),
+                                                              GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(expected.getValue(), refactorized.getValue(), 1e-8);
+    }
+
+    @Test
+    public void testStatistics() {
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearObjectiveFunction f = transportationProblem(10, 15, new MersenneTwister(2345l), constraints);
+        final SimplexStatistics statistics = new SimplexStatistics();
+
+        final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(new MaxIter(10000), f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true), statistics);
+        Assert.assertTrue(statistics.getPhase1PivotCount() > 0);
+        Assert.assertTrue(statistics.getPhase1PivotCount() <= statistics.getPivotCount());
+        Assert.assertTrue(statistics.getDegeneratePivotCount() <= statistics.getPivotCount());
+        Assert.assertTrue(statistics.getPivotCount() <= solver.getIterations());
+        Assert.assertTrue(statistics.getPhase1Time() > 0);
+        Assert.assertTrue(statistics.getPhase2Time() > 0);
+    }
+
+    @Test
+    public void testWarmStartObjectiveChange() {
+        final RandomGenerator random = new MersenneTwister(3456l);
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearObjectiveFunction f = transportationProblem(20, 30, random, constraints);
+        final LinearConstraintSet set = new LinearConstraintSet(constraints);
+
+        final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(new MaxIter(10000), f, set, GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        final InitialBasis basis = solver.getFinalBasis();
+        Assert.assertNotNull(basis);
+
+        final double[] c = f.getCoefficients().toArray();
+        for (int k = 0; k < 5; k++) {
+            c[random.nextInt(c.length)] *= 0.5;
+        }
+        final LinearObjectiveFunction g = new LinearObjectiveFunction(c, 0);
+
+        final RevisedSimplexSolver cold = new RevisedSimplexSolver();
+        final PointValuePair expected =
+            cold.optimize(new MaxIter(10000), g, set, GoalType.MINIMIZE, new NonNegativeConstraint(true));
+
+        final SimplexStatistics statistics = new SimplexStatistics();
+        final PointValuePair solution =
+            solver.optimize(new MaxIter(10000), g, set, GoalType.MINIMIZE, new NonNegativeConstraint(true),
+                            basis, statistics);
+        Assert.assertEquals(expected.getValue(), solution.getValue(), 1e-8);
+        Assert.assertTrue(validSolution(solution, constraints, 1e-8));
+        Assert.assertEquals(0, statistics.getPhase1PivotCount());
+        Assert.assertTrue(solver.getIterations() < cold.getIterations() / 10);
+    }
+
+    @Test
+    public void testWarmStartConstraintChange() {
+        final RandomGenerator random = new MersenneTwister(4567l);
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearObjectiveFunction f = transportationProblem(20, 30, random, constraints);
+
+        final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(new MaxIter(10000), f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        final InitialBasis basis = solver.getFinalBasis();
+
+        // larger demands: the previous optimum is no longer feasible
+        final List<LinearConstraint> modified = new ArrayList<LinearConstraint>(constraints);
+        for (int k = 0; k < 5; k++) {
+            final int i = 20 + random.nextInt(30);
+            final LinearConstraint constraint = modified.get(i);
+            modified.set(i, new LinearConstraint(constraint.getCoefficients(), constraint.getRelationship(),
+                                                 constraint.getValue() + 100));
+        }
+
+        final RevisedSimplexSolver cold = new RevisedSimplexSolver();
+        final PointValuePair expected =
+            cold.optimize(new MaxIter(10000), f, new LinearConstraintSet(modified),
+                          GoalType.MINIMIZE, new NonNegativeConstraint(true));
+
+        final PointValuePair solution =
+            solver.optimize(new MaxIter(10000), f, new LinearConstraintSet(modified),
+                            GoalType.MINIMIZE, new NonNegativeConstraint(true), basis);
+        Assert.assertEquals(expected.getValue(), solution.getValue(), 1e-8);
+        Assert.assertTrue(validSolution(solution, modified, 1e-8));
+        Assert.assertTrue(solver.getIterations() > 0);
+        Assert.assertTrue(solver.getIterations() < cold.getIterations() / 10);
+    }
+
+    @Test
+    public void testWarmStartRandomProblems() {
+        final RandomGenerator random = new MersenneTwister(5678l);
+        int infeasible = 0;
+        for (int k = 0; k < 50; k++) {
+            final int n = 10 + random.nextInt(30);
+            final int m = 5 + random.nextInt(30);
+            final double[] x = new double[n];
+            for (int j = 0; j < n; j++) {
+                x[j] = random.nextDouble();
+            }
+            final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+            for (int i = 0; i < m; i++) {
+                // at least one non-zero coefficient, so that the constraints are distinct
+                final double[] a = new double[n];
+                a[random.nextInt(n)] = 1;
+                double ax = 0;
+                for (int j = 0; j < n; j++) {
+                    if (random.nextDouble() < 0.2) {
+                        a[j] = random.nextDouble() * 10 - 5;
+                    }
+                    ax += a[j] * x[j];
+                }
+                final Relationship relationship = Relationship.values()[random.nextInt(3)];
+                constraints.add(new LinearConstraint(a, relationship, ax));
+            }
+            final double[] c = new double[n];
+            for (int j = 0; j < n; j++) {
+                c[j] = 0.1 + random.nextDouble();
+            }
+
+            final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+            solver.optimize(new MaxIter(10000), new LinearObjectiveFunction(c, 0),
+                            new LinearConstraintSet(constraints),
+                            GoalType.MINIMIZE, new NonNegativeConstraint(true));
+            final InitialBasis basis = solver.getFinalBasis();
+
+            // perturb both the costs and the constraint values
+            for (int j = 0; j < n; j++) {
+                c[j] += 0.2 * random.nextDouble();
+            }
+            final LinearObjectiveFunction g = new LinearObjectiveFunction(c, 0);
+            final List<LinearConstraint> modified = new ArrayList<LinearConstraint>();
+            for (LinearConstraint constraint : constraints) {
+                modified.add(new LinearConstraint(constraint.getCoefficients(), constraint.getRelationship(),
+                                                  constraint.getValue() + random.nextDouble() - 0.5));
+            }
+
+            PointValuePair expected = null;
+            try {
+                expected = new RevisedSimplexSolver().optimize(new MaxIter(10000), g, new LinearConstraintSet(modified),
+                                                               GoalType.MINIMIZE, new NonNegativeConstraint(true));
+            } catch (NoFeasibleSolutionException e) {
+                ++infeasible;
+            }
+            try {
+                final PointValuePair solution =
+                    solver.optimize(new MaxIter(10000), g, new LinearConstraintSet(modified),
+                                    GoalType.MINIMIZE, new NonNegativeConstraint(true), basis);
+                Assert.assertNotNull(expected);
+                Assert.assertEquals(expected.getValue(), solution.getValue(), 1e-8);
+                Assert.assertTrue(validSolution(solution, modified, 1e-8));
+            } catch (NoFeasibleSolutionException e) {
+                Assert.assertNull(expected);
+                Assert.assertNull(solver.getFinalBasis());
+            }
+        }
+        // both outcomes must have been exercised
+        Assert.assertTrue(infeasible > 0);
+        Assert.assertTrue(infeasible < 50);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testWarmStartDimensionMismatch() {
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearObjectiveFunction f = transportationProblem(3, 4, new MersenneTwister(6789l), constraints);
+        final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true));
+
+        constraints.remove(0);
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true), solver.getFinalBasis());
+    }
+
+    @Test
+    public void testLargeSparseProblem() {
+        // 10000 variables, 200 constraints, 1% of non-zero coefficients
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearObjectiveFunction f = transportationProblem(100, 100, new MersenneTwister(5678l), constraints);
+        final PointValuePair solution =
+            new RevisedSimplexSolver().optimize(new MaxIter(100000), f, new LinearConstraintSet(constraints),
+                                                GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertTrue(validSolution(solution, constraints, 1e-8));
+    }
+
+    /**
+     * Builds a random transportation problem: minimize the cost of shipping
+     * the demands of the destinations from the sources, with limited supplies.
+     */
+    private static LinearObjectiveFunction transportationProblem(int sources, int destinations, RandomGenerator random,
+                                                                 List<LinearConstraint> constraints) {
+        final int n = sources * destinations;
+        final double[] costs = new double[n];
+        for (int j = 0; j < n; j++) {
+            costs[j] = 1 + random.nextInt(100);
+        }
+
+        double totalDemand = 0;
+        final double[] demand = new double[destinations];
+        for (int d = 0; d < destinations; d++) {
+            demand[d] = 10 + random.nextInt(90);
+            totalDemand += demand[d];
+        }
+        for (int s = 0; s < sources; s++) {
+            final OpenMapRealVector a = new OpenMapRealVector(n);
+            for (int d = 0; d < destinations; d++) {
+                a.setEntry(s * destinations + d, 1);
+            }
+            constraints.add(new LinearConstraint(a, Relationship.LEQ, 1.5 * totalDemand / sources));
+        }
+        for (int d = 0; d < destinations; d++) {
+            final OpenMapRealVector a = new OpenMapRealVector(n);
+            for (int s = 0; s < sources; s++) {
+                a.setEntry(s * destinations + d, 1);
+            }
+            constraints.add(new LinearConstraint(a, Relationship.GEQ, demand[d]));
+        }
+        return new LinearObjectiveFunction(costs, 0);
+    }
+
+    private static boolean validSolution(PointValuePair solution, List<LinearConstraint> constraints, double epsilon) {
+        double[] vals = solution.getPoint();
+        for (int i = 0; i < vals.length; i++) {
+            if (vals[i] < -epsilon) {
+                return false;
+            }
+        }
+        for (LinearConstraint c : constraints) {
+            double result = c.getCoefficients().dotProduct(new ArrayRealVector(vals));
+            switch (c.getRelationship()) {
+            case EQ:
+                if (!Precision.equals(result, c.getValue(), epsilon)) {
+                    return false;
+                }
+                break;
+            case GEQ:
+                if (Precision.compareTo(result, c.getValue(), epsilon) < 0) {
+                    return false;
+                }
+                break;
+            case LEQ:
+                if (Precision.compareTo(result, c.getValue(), epsilon) > 0) {
+                    return false;
+                }
+                break;
+            }
+        }
+        return true;
+    }
+}
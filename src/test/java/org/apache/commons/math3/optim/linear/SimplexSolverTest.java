@@ -19,9 +19,15 @@ package org.apache.commons.math3.optim.linear;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.optim.MaxIter;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.util.Precision;
 import org.junit.Test;
 import org.junit.Assert;
@@ -710,6 +716,156 @@ public class SimplexSolverTest {
         Assert.assertEquals(7518.0, solution.getValue(), .0000001);
     }
 
+    @Test
+    public void testPivotSelectionRules() {
+        final RandomGenerator random = new MersenneTwister(1234l);
+        for (int k = 0; k < 20; k++) {
+            final int n = 5 + random.nextInt(20);
+            final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+            final LinearObjectiveFunction f = randomProblem(n, 5 + random.nextInt(20), random, constraints);
+
+            final PointValuePair reference =
+                new SimplexSolver().optimize(new MaxIter(1000), f, new LinearConstraintSet(constraints),
+                                             GoalType.MINIMIZE, new NonNegativeConstraint(true));
+            for (PivotSelectionRule rule : PivotSelectionRule.values()) {
+                final PointValuePair solution =
+                    new SimplexSolver().optimize(new MaxIter(1000), f, new LinearConstraintSet(constraints),
+                                                 GoalType.MINIMIZE, new NonNegativeConstraint(true), rule);
+                Assert.assertEquals(rule.toString(), reference.getValue(), solution.getValue(), 1e-8);
+                Assert.assertTrue(rule.toString(), validSolution(solution, constraints, 1e-8));
+            }
+        }
+    }
+
+    @Test
+    public void testPivotSelectionRuleIsKept() {
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearObjectiveFunction f = randomProblem(20, 15, new MersenneTwister(4321l), constraints);
+        final SimplexSolver solver = new SimplexSolver();
+
+        solver.optimize(new MaxIter(1000), f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true), PivotSelectionRule.BLAND);
+        final int blandIterations = solver.getIterations();
+        solver.optimize(new MaxIter(1000), f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(blandIterations, solver.getIterations());
+    }
+
+    @Test
+    public void testStatistics() {
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearObjectiveFunction f = randomProblem(30, 20, new MersenneTwister(5678l), constraints);
+        final SimplexStatistics statistics = new SimplexStatistics();
+
+        for (PivotSelectionRule rule : PivotSelectionRule.values()) {
+            final SimplexSolver solver = new SimplexSolver();
+            solver.optimize(new MaxIter(1000), f, new LinearConstraintSet(constraints),
+                            GoalType.MINIMIZE, new NonNegativeConstraint(true), rule, statistics);
+            Assert.assertEquals(solver.getIterations(), statistics.getPivotCount());
+            Assert.assertTrue(statistics.getPhase1PivotCount() > 0);
+            Assert.assertTrue(statistics.getPhase1PivotCount() <= statistics.getPivotCount());
+            Assert.assertTrue(statistics.getDegeneratePivotCount() <= statistics.getPivotCount());
+            Assert.assertTrue(statistics.getPhase1Time() > 0);
+            Assert.assertTrue(statistics.getPhase2Time() > 0);
+        }
+    }
+
+    @Test
+    public void testDegeneratePivotCount() {
+        // the optimum is at a vertex where all three constraints are active
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { -1, -1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 2));
+
+        final SimplexStatistics statistics = new SimplexStatistics();
+        PointValuePair solution = new SimplexSolver().optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                               GoalType.MINIMIZE, new NonNegativeConstraint(true),
+                                                               PivotSelectionRule.BLAND, statistics);
+        Assert.assertEquals(-2, solution.getValue(), 1e-12);
+        Assert.assertEquals(0, statistics.getPhase1PivotCount());
+        Assert.assertEquals(2, statistics.getPivotCount());
+        Assert.assertEquals(0, statistics.getDegeneratePivotCount());
+    }
+
+    @Test
+    public void testParallelPivoting() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final RandomGenerator random = new MersenneTwister(2468l);
+            for (int k = 0; k < 10; k++) {
+                final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+                final LinearObjectiveFunction f = randomProblem(30 + random.nextInt(30), 20 + random.nextInt(30),
+                                                                random, constraints);
+
+                final SimplexSolver sequential = new SimplexSolver();
+                final PointValuePair expected =
+                    sequential.optimize(new MaxIter(1000), f, new LinearConstraintSet(constraints),
+                                        GoalType.MINIMIZE, new NonNegativeConstraint(true));
+
+                // threshold 0: all pivots are parallel
+                final SimplexSolver parallel = new SimplexSolver();
+                final PointValuePair solution =
+                    parallel.optimize(new MaxIter(1000), f, new LinearConstraintSet(constraints),
+                                      GoalType.MINIMIZE, new NonNegativeConstraint(true),
+                                      new ParallelPivoting(executor, 0, 3));
+                Assert.assertEquals(sequential.getIterations(), parallel.getIterations());
+                Assert.assertEquals(expected.getValue(), solution.getValue(), 0);
+                Assert.assertArrayEquals(expected.getPoint(), solution.getPoint(), 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testParallelPivotingNullExecutor() {
+        new ParallelPivoting(null);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testParallelPivotingInvalidTasks() {
+        new ParallelPivoting(Executors.newSingleThreadExecutor(), 0, 0);
+    }
+
+    /**
+     * Builds a random feasible and bounded problem, with positive costs and
+     * a mix of inequality and equality constraints.
+     */
+    private static LinearObjectiveFunction randomProblem(int n, int m, RandomGenerator random,
+                                                         List<LinearConstraint> constraints) {
+        final double[] x = new double[n];
+        for (int j = 0; j < n; j++) {
+            x[j] = random.nextInt(3) == 0 ? 0 : random.nextDouble();
+        }
+        for (int i = 0; i < m; i++) {
+            final double[] a = new double[n];
+            double ax = 0;
+            for (int j = 0; j < n; j++) {
+                if (random.nextDouble() < 0.3) {
+                    a[j] = random.nextInt(11) - 5;
+                    ax += a[j] * x[j];
+                }
+            }
+            switch (random.nextInt(3)) {
+            case 0:
+                constraints.add(new LinearConstraint(a, Relationship.LEQ, ax + random.nextInt(2)));
+                break;
+            case 1:
+                constraints.add(new LinearConstraint(a, Relationship.GEQ, ax - random.nextInt(2)));
+                break;
+            default:
+                constraints.add(new LinearConstraint(a, Relationship.EQ, ax));
+            }
+        }
+        final double[] c = new double[n];
+        for (int j = 0; j < n; j++) {
+            c[j] = 1 + random.nextInt(10);
+        }
+        return new LinearObjectiveFunction(c, 0);
+    }
+
     /**
      * Converts a test string to a {@link LinearConstraint}.
      * Ex: x0 + x1 + x2 + x3 - x12 = 0
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link ArmijoLineSearch}.
+ *
+ * @version $Id$
+ */
+public class ArmijoLineSearchTest extends LineSearchAbstractTest {
+
+    @Override
+    public LineSearch createLineSearch() {
+        return new ArmijoLineSearch();
+    }
+
+    @Override
+    public void checkStep(LineFunction phi, double alpha) {
+        checkSufficientDecrease(phi, alpha, ArmijoLineSearch.DEFAULT_C1);
+    }
+
+    @Test
+    public void testDerivativeFreeWrongDirection() {
+        // the direction points away from the minimum: the step is negative
+        final double[] start = { 3, -1 };
+        final double[] d = { 1, 0 };
+        final LineFunction phi = new LineFunction(QUADRATIC, null, start, d);
+        final double alpha = createLineSearch().search(phi, 1);
+        Assert.assertTrue(alpha < 0);
+        Assert.assertTrue(phi.value(alpha) <= phi.value(0) - ArmijoLineSearch.DEFAULT_C1 * alpha * alpha);
+        // the parabolic refinement is exact on a quadratic
+        Assert.assertEquals(-3, alpha, 1.0e-12);
+    }
+
+    @Test
+    public void testDerivativeFreeExpansion() {
+        // a unit step is far too small: the step is expanded
+        final double[] start = { 1000, 0 };
+        final LineFunction phi = new LineFunction(QUADRATIC, null, start, new double[] { -1, 0 });
+        final double alpha = createLineSearch().search(phi, 1);
+        Assert.assertEquals(1000, alpha, 1.0e-9);
+        Assert.assertTrue(phi.getValueEvaluations() < 20);
+    }
+
+    @Test
+    public void testDerivativeFreeAtMinimum() {
+        final LineFunction phi = new LineFunction(QUADRATIC, null,
+                                                  new double[] { 0, 0 }, new double[] { 1, 1 });
+        Assert.assertEquals(0, createLineSearch().search(phi, 1), 0);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testInvalidContraction() {
+        new ArmijoLineSearch(1.0e-4, 1, 10);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testInvalidTrials() {
+        new ArmijoLineSearch(1.0e-4, 0.5, 0);
+    }
+}
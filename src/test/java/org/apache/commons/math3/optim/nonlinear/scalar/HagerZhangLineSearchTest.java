@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link HagerZhangLineSearch}.
+ *
+ * @version $Id$
+ */
+public class HagerZhangLineSearchTest extends LineSearchAbstractTest {
+
+    @Override
+    public LineSearch createLineSearch() {
+        return new HagerZhangLineSearch();
+    }
+
+    @Override
+    public void checkStep(LineFunction phi, double alpha) {
+        final double f0 = phi.value(0);
+        final double d0 = phi.derivative(0);
+        final double f = phi.value(alpha);
+        final double d = phi.derivative(alpha);
+        final double delta = HagerZhangLineSearch.DEFAULT_DELTA;
+        // curvature condition
+        Assert.assertTrue(d >= HagerZhangLineSearch.DEFAULT_SIGMA * d0);
+        // sufficient decrease, or approximate Wolfe conditions
+        Assert.assertTrue(f - f0 <= delta * alpha * d0 ||
+                          (d <= (2 * delta - 1) * d0 &&
+                           f <= f0 + HagerZhangLineSearch.DEFAULT_EPSILON * FastMath.abs(f0)));
+    }
+
+    @Test
+    public void testApproximateWolfe() {
+        // close to the minimum, the decrease is below the accuracy of the function
+        final double[] start = { 1 + 1.0e-9, 1 + 2.0e-9 };
+        final double[] g = ROSENBROCK_GRADIENT.value(start);
+        final LineFunction phi = new LineFunction(ROSENBROCK, ROSENBROCK_GRADIENT, start,
+                                                  new double[] { -g[0], -g[1] });
+        final double alpha = createLineSearch().search(phi, 1.0e-3);
+        Assert.assertTrue(alpha > 0);
+        checkStep(phi, alpha);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testInvalidDelta() {
+        new HagerZhangLineSearch(0.5, 0.9, 1.0e-6, 10);
+    }
+
+    @Test(expected=NumberIsTooSmallException.class)
+    public void testSigmaSmallerThanDelta() {
+        new HagerZhangLineSearch(0.2, 0.1, 1.0e-6, 10);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link LineFunction}.
+ */
+public class LineFunctionTest {
+
+    @Test
+    public void testValueAndDerivative() {
+        final LineFunction phi = new LineFunction(new Quadratic(), new Quadratic.Gradient(),
+                                                  new double[] { 1, 2 }, new double[] { -1, 0.5 });
+        Assert.assertTrue(phi.isDifferentiable());
+        // phi(alpha) = (1 - alpha)^2 + 2 (2 + alpha / 2)^2
+        for (double alpha = -2; alpha <= 2; alpha += 0.25) {
+            final double a = 1 - alpha;
+            final double b = 2 + 0.5 * alpha;
+            Assert.assertEquals(a * a + 2 * b * b, phi.value(alpha), 1e-14);
+            Assert.assertEquals(-2 * a + 2 * b, phi.derivative(alpha), 1e-14);
+            Assert.assertArrayEquals(new double[] { a, b }, phi.getPoint(alpha), 1e-15);
+            Assert.assertArrayEquals(new double[] { 2 * a, 4 * b }, phi.getGradient(alpha), 1e-14);
+        }
+    }
+
+    @Test
+    public void testCache() {
+        final Quadratic f = new Quadratic();
+        final Quadratic.Gradient g = new Quadratic.Gradient();
+        final LineFunction phi = new LineFunction(f, g, new double[] { 1, 2 }, 9,
+                                                  new double[] { 2, 8 }, new double[] { -1, 0 });
+
+        // the start point is known
+        Assert.assertEquals(9, phi.value(0), 0);
+        Assert.assertEquals(9, phi.value(-0.0), 0);
+        Assert.assertEquals(-2, phi.derivative(0), 0);
+        Assert.assertEquals(0, f.count);
+        Assert.assertEquals(0, g.count);
+
+        // each point is evaluated once
+        phi.value(0.5);
+        phi.value(0.5);
+        phi.derivative(0.5);
+        phi.getGradient(0.5);
+        phi.getPoint(0.5);
+        Assert.assertEquals(1, f.count);
+        Assert.assertEquals(1, g.count);
+        Assert.assertEquals(1, phi.getValueEvaluations());
+        Assert.assertEquals(1, phi.getGradientEvaluations());
+
+        // the value at the point where the derivative is requested is computed too
+        phi.derivative(0.25);
+        Assert.assertEquals(2, f.count);
+        Assert.assertEquals(2, g.count);
+    }
+
+    @Test
+    public void testDirectionCopied() {
+        final double[] d = { 1, 1 };
+        final LineFunction phi = new LineFunction(new Quadratic(), null, new double[2], d);
+        d[0] = 10;
+        Assert.assertArrayEquals(new double[] { 1, 1 }, phi.getDirection(), 0);
+        Assert.assertEquals(3, phi.value(1), 0);
+    }
+
+    @Test(expected=MathUnsupportedOperationException.class)
+    public void testNoGradient() {
+        final LineFunction phi = new LineFunction(new Quadratic(), null,
+                                                  new double[2], new double[] { 1, 0 });
+        Assert.assertFalse(phi.isDifferentiable());
+        phi.derivative(1);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testDimensionMismatch() {
+        new LineFunction(new Quadratic(), null, new double[2], new double[3]);
+    }
+
+    /** Function {@code x^2 + 2 y^2}, counting its evaluations. */
+    private static class Quadratic implements MultivariateFunction {
+        private int count;
+
+        public double value(double[] x) {
+            ++count;
+            return x[0] * x[0] + 2 * x[1] * x[1];
+        }
+
+        /** Gradient, counting its evaluations. */
+        static class Gradient implements MultivariateVectorFunction {
+            private int count;
+
+            public double[] value(double[] x) {
+                ++count;
+                return new double[] { 2 * x[0], 4 * x[1] };
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests common to all the {@link LineSearch line searches} using derivatives.
+ *
+ * @version $Id$
+ */
+public abstract class LineSearchAbstractTest {
+
+    /**
+     * @return the line search to test.
+     */
+    public abstract LineSearch createLineSearch();
+
+    /**
+     * Check the step selected by the line search.
+     *
+     * @param phi Line function.
+     * @param alpha Selected step.
+     */
+    public abstract void checkStep(LineFunction phi, double alpha);
+
+    @Test
+    public void testQuadratic() {
+        final double[] start = { 3, -1 };
+        for (double initial : new double[] { 1.0e-3, 0.1, 1, 100 }) {
+            final LineFunction phi = new LineFunction(QUADRATIC, QUADRATIC_GRADIENT, start,
+                                                      steepestDescent(QUADRATIC_GRADIENT, start));
+            final double alpha = createLineSearch().search(phi, initial);
+            Assert.assertTrue(alpha > 0);
+            checkStep(phi, alpha);
+        }
+    }
+
+    @Test
+    public void testRosenbrock() {
+        final double[] start = { -1.2, 1 };
+        for (double initial : new double[] { 1.0e-4, 1.0e-2, 1, 10 }) {
+            final LineFunction phi = new LineFunction(ROSENBROCK, ROSENBROCK_GRADIENT, start,
+                                                      steepestDescent(ROSENBROCK_GRADIENT, start));
+            final double alpha = createLineSearch().search(phi, initial);
+            Assert.assertTrue(alpha > 0);
+            checkStep(phi, alpha);
+            Assert.assertTrue(phi.getValueEvaluations() <= 20);
+        }
+    }
+
+    @Test
+    public void testAscentDirection() {
+        final double[] start = { 3, -1 };
+        final double[] ascent = QUADRATIC_GRADIENT.value(start);
+        final LineFunction phi = new LineFunction(QUADRATIC, QUADRATIC_GRADIENT, start, ascent);
+        Assert.assertEquals(0, createLineSearch().search(phi, 1), 0);
+    }
+
+    @Test
+    public void testKnownStart() {
+        final double[] start = { -1.2, 1 };
+        final double[] gradient = ROSENBROCK_GRADIENT.value(start);
+        final LineFunction phi = new LineFunction(ROSENBROCK, ROSENBROCK_GRADIENT,
+                                                  start, ROSENBROCK.value(start), gradient,
+                                                  steepestDescent(ROSENBROCK_GRADIENT, start));
+        final double alpha = createLineSearch().search(phi, 1.0e-3);
+        checkStep(phi, alpha);
+
+        // the start point has not been evaluated again,
+        // and the selected point has been evaluated only once
+        final int values = phi.getValueEvaluations();
+        phi.value(alpha);
+        Assert.assertEquals(values, phi.getValueEvaluations());
+        Assert.assertTrue(values <= 20);
+    }
+
+    /**
+     * Check the sufficient decrease condition.
+     *
+     * @param phi Line function.
+     * @param alpha Selected step.
+     * @param c1 Sufficient decrease parameter.
+     */
+    protected void checkSufficientDecrease(LineFunction phi, double alpha, double c1) {
+        Assert.assertTrue(phi.value(alpha) <= phi.value(0) + c1 * alpha * phi.derivative(0));
+    }
+
+    /**
+     * @param gradient Gradient.
+     * @param point Point.
+     * @return the opposite of the gradient at the point.
+     */
+    private static double[] steepestDescent(MultivariateVectorFunction gradient, double[] point) {
+        final double[] d = gradient.value(point);
+        for (int i = 0; i < d.length; ++i) {
+            d[i] = -d[i];
+        }
+        return d;
+    }
+
+    /** Function {@code x^2 + 10 y^2}. */
+    protected static final MultivariateFunction QUADRATIC = new MultivariateFunction() {
+        public double value(double[] x) {
+            return x[0] * x[0] + 10 * x[1] * x[1];
+        }
+    };
+
+    /** Gradient of {@link #QUADRATIC}. */
+    protected static final MultivariateVectorFunction QUADRATIC_GRADIENT = new MultivariateVectorFunction() {
+        public double[] value(double[] x) {
+            return new double[] { 2 * x[0], 20 * x[1] };
+        }
+    };
+
+    /** Rosenbrock function. */
+    protected static final MultivariateFunction ROSENBROCK = new MultivariateFunction() {
+        public double value(double[] x) {
+            final double a = x[1] - x[0] * x[0];
+            final double b = 1 - x[0];
+            return 100 * a * a + b * b;
+        }
+    };
+
+    /** Gradient of {@link #ROSENBROCK}. */
+    protected static final MultivariateVectorFunction ROSENBROCK_GRADIENT = new MultivariateVectorFunction() {
+        public double[] value(double[] x) {
+            final double a = x[1] - x[0] * x[0];
+            return new double[] { -400 * x[0] * a - 2 * (1 - x[0]), 200 * a };
+        }
+    };
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link MoreThuenteLineSearch}.
+ *
+ * @version $Id$
+ */
+public class MoreThuenteLineSearchTest extends LineSearchAbstractTest {
+
+    @Override
+    public LineSearch createLineSearch() {
+        return new MoreThuenteLineSearch();
+    }
+
+    @Override
+    public void checkStep(LineFunction phi, double alpha) {
+        // strong Wolfe conditions
+        checkSufficientDecrease(phi, alpha, MoreThuenteLineSearch.DEFAULT_C1);
+        Assert.assertTrue(FastMath.abs(phi.derivative(alpha)) <=
+                          -MoreThuenteLineSearch.DEFAULT_C2 * phi.derivative(0));
+    }
+
+    @Test
+    public void testSmallCurvatureParameter() {
+        final double[] start = { -1.2, 1 };
+        final double[] g = ROSENBROCK_GRADIENT.value(start);
+        final LineFunction phi = new LineFunction(ROSENBROCK, ROSENBROCK_GRADIENT, start,
+                                                  new double[] { -g[0], -g[1] });
+        final double alpha = new MoreThuenteLineSearch(1.0e-4, 1.0e-3, 40).search(phi, 1.0e-4);
+        checkSufficientDecrease(phi, alpha, 1.0e-4);
+        Assert.assertTrue(FastMath.abs(phi.derivative(alpha)) <= -1.0e-3 * phi.derivative(0));
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testInvalidC1() {
+        new MoreThuenteLineSearch(0, 0.9, 10);
+    }
+
+    @Test(expected=NumberIsTooLargeException.class)
+    public void testC1LargerThanC2() {
+        new MoreThuenteLineSearch(0.5, 0.1, 10);
+    }
+}
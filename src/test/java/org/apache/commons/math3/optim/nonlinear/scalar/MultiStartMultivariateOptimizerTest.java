@@ -16,15 +16,23 @@
  */
 package org.apache.commons.math3.optim.nonlinear.scalar;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.OptimizerFactory;
 import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.SimpleValueChecker;
 import org.apache.commons.math3.optim.nonlinear.scalar.gradient.CircleScalar;
 import org.apache.commons.math3.optim.nonlinear.scalar.gradient.NonLinearConjugateGradientOptimizer;
 import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.NelderMeadSimplex;
+import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.PowellOptimizer;
 import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.SimplexOptimizer;
 import org.apache.commons.math3.random.GaussianRandomGenerator;
 import org.apache.commons.math3.random.JDKRandomGenerator;
@@ -75,6 +83,140 @@ public class MultiStartMultivariateOptimizerTest {
         Assert.assertEquals(3.1267527, optimum.getValue(), 1e-8);
     }
 
+    @Test
+    public void testCircleFittingParallel() {
+        CircleScalar circle = new CircleScalar();
+        circle.addPoint( 30.0,  68.0);
+        circle.addPoint( 50.0,  -6.0);
+        circle.addPoint(110.0, -20.0);
+        circle.addPoint( 35.0,  15.0);
+        circle.addPoint( 45.0,  97.0);
+        OptimizerFactory<GradientMultivariateOptimizer> factory
+            = new OptimizerFactory<GradientMultivariateOptimizer>() {
+                public GradientMultivariateOptimizer create() {
+                    return new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                                   new SimpleValueChecker(1e-10, 1e-10));
+                }
+            };
+
+        final int starts = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            MultiStartMultivariateOptimizer sequential
+                = new MultiStartMultivariateOptimizer(factory.create(), starts, circleGenerator());
+            MultiStartMultivariateOptimizer parallel
+                = new MultiStartMultivariateOptimizer(factory, executor, starts, circleGenerator());
+            Assert.assertFalse(sequential.isParallel());
+            Assert.assertTrue(parallel.isParallel());
+
+            // With a budget large enough for all starts to converge, each start
+            // must give the same result as in sequential mode.
+            PointValuePair optimumSequential
+                = sequential.optimize(new MaxEval(100 * starts),
+                                      circle.getObjectiveFunction(),
+                                      circle.getObjectiveFunctionGradient(),
+                                      GoalType.MINIMIZE,
+                                      new InitialGuess(new double[] { 98.680, 47.345 }));
+            PointValuePair optimumParallel
+                = parallel.optimize(new MaxEval(100 * starts),
+                                    circle.getObjectiveFunction(),
+                                    circle.getObjectiveFunctionGradient(),
+                                    GoalType.MINIMIZE,
+                                    new InitialGuess(new double[] { 98.680, 47.345 }));
+            Assert.assertEquals(optimumSequential.getValue(), optimumParallel.getValue(), 0);
+            Assert.assertEquals(sequential.getEvaluations(), parallel.getEvaluations());
+
+            PointValuePair[] optimaSequential = sequential.getOptima();
+            PointValuePair[] optimaParallel = parallel.getOptima();
+            Assert.assertEquals(starts, optimaParallel.length);
+            for (int i = 0; i < starts; i++) {
+                Assert.assertArrayEquals(optimaSequential[i].getPoint(), optimaParallel[i].getPoint(), 0);
+                Assert.assertEquals(optimaSequential[i].getValue(), optimaParallel[i].getValue(), 0);
+                Vector2D center = new Vector2D(optimaParallel[i].getPointRef()[0],
+                                               optimaParallel[i].getPointRef()[1]);
+                Assert.assertEquals(69.960161753, circle.getRadius(center), 1e-8);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedStartsParallel() {
+        final int starts = 6;
+        final MultivariateFunction sphere = new MultivariateFunction() {
+                public double value(double[] x) {
+                    return (x[0] - 1) * (x[0] - 1) + (x[1] - 2) * (x[1] - 2);
+                }
+            };
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // every other start fails; the others still contribute their optimum
+            final MultiStartMultivariateOptimizer optimizer
+                = new MultiStartMultivariateOptimizer(failingFactory(2), executor,
+                                                      starts, circleGenerator());
+            final PointValuePair optimum
+                = optimizer.optimize(new MaxEval(1000 * starts),
+                                     new ObjectiveFunction(sphere),
+                                     GoalType.MINIMIZE,
+                                     new InitialGuess(new double[] { -1.2, 1.0 }));
+            Assert.assertEquals(0, optimum.getValue(), 1e-6);
+            int converged = 0;
+            for (final PointValuePair p : optimizer.getOptima()) {
+                if (p != null) {
+                    ++converged;
+                }
+            }
+            Assert.assertEquals(starts / 2, converged);
+
+            // when all the starts fail, the failure is reported
+            final MultiStartMultivariateOptimizer failing
+                = new MultiStartMultivariateOptimizer(failingFactory(1), executor,
+                                                      starts, circleGenerator());
+            try {
+                failing.optimize(new MaxEval(1000 * starts),
+                                 new ObjectiveFunction(sphere),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { -1.2, 1.0 }));
+                Assert.fail("an exception should have been thrown");
+            } catch (MathIllegalStateException e) {
+                // expected
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFewerEvaluationsThanStartsParallel() {
+        final AtomicInteger count = new AtomicInteger();
+        final MultivariateFunction sphere = new MultivariateFunction() {
+                public double value(double[] x) {
+                    count.incrementAndGet();
+                    return x[0] * x[0] + x[1] * x[1];
+                }
+            };
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final MultiStartMultivariateOptimizer optimizer
+                = new MultiStartMultivariateOptimizer(failingFactory(Integer.MAX_VALUE), executor,
+                                                      10, circleGenerator());
+            try {
+                optimizer.optimize(new MaxEval(4),
+                                   new ObjectiveFunction(sphere),
+                                   GoalType.MINIMIZE,
+                                   new InitialGuess(new double[] { -1.2, 1.0 }));
+                Assert.fail("an exception should have been thrown");
+            } catch (TooManyEvaluationsException e) {
+                // expected
+            }
+            // the budget set by the caller is not exceeded
+            Assert.assertEquals(4, count.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testRosenbrock() {
         Rosenbrock rosenbrock = new Rosenbrock();
@@ -104,6 +246,37 @@ public class MultiStartMultivariateOptimizerTest {
         Assert.assertTrue(optimum.getValue() < 8e-4);
     }
 
+    /**
+     * @param period Period of the failing optimizers.
+     * @return a factory of optimizers, one in {@code period} of which fails.
+     */
+    private static OptimizerFactory<PowellOptimizer> failingFactory(final int period) {
+        return new OptimizerFactory<PowellOptimizer>() {
+            private int created;
+
+            public PowellOptimizer create() {
+                final boolean fail = created++ % period == period - 1;
+                return new PowellOptimizer(1e-10, 1e-30) {
+                    @Override
+                    protected PointValuePair doOptimize() {
+                        if (fail) {
+                            throw new MathIllegalStateException();
+                        }
+                        return super.doOptimize();
+                    }
+                };
+            }
+        };
+    }
+
+    private static RandomVectorGenerator circleGenerator() {
+        JDKRandomGenerator g = new JDKRandomGenerator();
+        g.setSeed(753289573253l);
+        return new UncorrelatedRandomVectorGenerator(new double[] { 50, 50 },
+                                                     new double[] { 10, 10 },
+                                                     new GaussianRandomGenerator(g));
+    }
+
     private static class Rosenbrock implements MultivariateFunction {
         private int count;
 
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.ExecutorAbstractTest;
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelObjectiveFunctionTest extends ExecutorAbstractTest {
+    public ParallelObjectiveFunctionTest() {
+        super(3);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullFunction() {
+        new ParallelObjectiveFunction(null, executor);
+    }
+
+    @Test(expected=NullArgumentException.class)
+    public void testNullExecutor() {
+        new ParallelObjectiveFunction(new Sum(), null);
+    }
+
+    @Test
+    public void testValues() {
+        final BatchObjectiveFunction f = new ParallelObjectiveFunction(new Sum(), executor);
+        final double[][] points = new double[20][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[] { i, 0.5 * i, -2 };
+        }
+
+        final double[] values = f.value(points);
+        Assert.assertEquals(points.length, values.length);
+        for (int i = 0; i < points.length; i++) {
+            Assert.assertEquals(1.5 * i - 2, values[i], 0);
+        }
+        Assert.assertEquals(4.0, f.value(new double[] { 1, 2, 1 }), 0);
+        Assert.assertEquals(0, f.value(new double[0][]).length);
+    }
+
+    @Test(expected=TestException.class)
+    public void testException() {
+        final MultivariateFunction failing = new MultivariateFunction() {
+                public double value(double[] point) {
+                    if (point[0] > 2) {
+                        throw new TestException();
+                    }
+                    return point[0];
+                }
+            };
+        new ParallelObjectiveFunction(failing, executor).value(new double[][] {
+                { 1 }, { 2 }, { 3 }
+            });
+    }
+
+    private static class Sum implements MultivariateFunction {
+        public double value(double[] point) {
+            double sum = 0;
+            for (double x : point) {
+                sum += x;
+            }
+            return sum;
+        }
+    }
+
+    private static class TestException extends RuntimeException {
+        private static final long serialVersionUID = 20131017L;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar.gradient;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.SimpleValueChecker;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunctionGradient;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link LBFGSBOptimizer}.
+ */
+public class LBFGSBOptimizerTest {
+    @Test
+    public void testUnbounded() {
+        LBFGSBOptimizer optimizer = new LBFGSBOptimizer(new SimpleValueChecker(1e-15, 1e-15));
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(new LBFGSOptimizerTest.Rosenbrock()),
+                                 new ObjectiveFunctionGradient(new LBFGSOptimizerTest.Rosenbrock.Gradient()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { -1.2, 1 }));
+        Assert.assertEquals(1.0, optimum.getPoint()[0], 1.0e-6);
+        Assert.assertEquals(1.0, optimum.getPoint()[1], 1.0e-6);
+        Assert.assertEquals(0.0, optimum.getValue(), 1.0e-12);
+    }
+
+    @Test
+    public void testRosenbrockActiveBound() {
+        // with x <= 0.5, the optimum lies on the parabola y = x^2, at x = 0.5
+        LBFGSBOptimizer optimizer = new LBFGSBOptimizer(new SimpleValueChecker(1e-15, 1e-15), 5);
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(new LBFGSOptimizerTest.Rosenbrock()),
+                                 new ObjectiveFunctionGradient(new LBFGSOptimizerTest.Rosenbrock.Gradient()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { -1.2, 1 }),
+                                 new SimpleBounds(new double[] { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY },
+                                                  new double[] { 0.5, Double.POSITIVE_INFINITY }));
+        Assert.assertEquals(0.5,  optimum.getPoint()[0], 1.0e-8);
+        Assert.assertEquals(0.25, optimum.getPoint()[1], 1.0e-6);
+        Assert.assertEquals(0.25, optimum.getValue(), 1.0e-10);
+    }
+
+    @Test
+    public void testFeasibleEvaluations() {
+        // some bounds are active at the optimum
+        final double[] center = { -1, 0.5, 2, 0.25, 3 };
+        final Quadratic quadratic = new Quadratic(center, 0, 1);
+        LBFGSBOptimizer optimizer = new LBFGSBOptimizer(new SimpleValueChecker(1e-15, 1e-15));
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(quadratic),
+                                 new ObjectiveFunctionGradient(quadratic.gradient()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { 1, 0, 0, 1, 0.5 }),
+                                 new SimpleBounds(new double[] { 0, 0, 0, 0, 0 },
+                                                  new double[] { 1, 1, 1, 1, 1 }));
+        final double[] expected = { 0, 0.5, 1, 0.25, 1 };
+        for (int i = 0; i < expected.length; ++i) {
+            Assert.assertEquals(expected[i], optimum.getPoint()[i], 1.0e-10);
+        }
+        Assert.assertFalse(quadratic.isInfeasible());
+    }
+
+    @Test
+    public void testMaximize() {
+        final double[] center = { 3, -2 };
+        final Quadratic quadratic = new Quadratic(center, -1, 1);
+        final MultivariateVectorFunction gradient = quadratic.gradient();
+        LBFGSBOptimizer optimizer = new LBFGSBOptimizer(new SimpleValueChecker(1e-15, 1e-15));
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(new MultivariateFunction() {
+                                     public double value(double[] point) {
+                                         return -quadratic.value(point);
+                                     }
+                                 }),
+                                 new ObjectiveFunctionGradient(new MultivariateVectorFunction() {
+                                     public double[] value(double[] point) {
+                                         final double[] g = gradient.value(point);
+                                         for (int i = 0; i < g.length; ++i) {
+                                             g[i] = -g[i];
+                                         }
+                                         return g;
+                                     }
+                                 }),
+                                 GoalType.MAXIMIZE,
+                                 new InitialGuess(new double[] { 0, 0 }),
+                                 new SimpleBounds(new double[] { -1, -1 },
+                                                  new double[] { 1, 1 }));
+        Assert.assertEquals(1.0, optimum.getPoint()[0], 1.0e-10);
+        Assert.assertEquals(-1.0, optimum.getPoint()[1], 1.0e-10);
+        Assert.assertEquals(-6.0, optimum.getValue(), 1.0e-10);
+    }
+
+    @Test
+    public void testLargeScale() {
+        // half of the 100000 parameters end up on their upper bound
+        final int n = 100000;
+        final double[] center = new double[n];
+        final double[] lower = new double[n];
+        final double[] upper = new double[n];
+        for (int i = 0; i < n; ++i) {
+            center[i] = (i % 2 == 0) ? 2 : 0.5;
+            upper[i] = 1;
+        }
+        final Quadratic quadratic = new Quadratic(center, 0, 1);
+        LBFGSBOptimizer optimizer = new LBFGSBOptimizer(new SimpleValueChecker(1e-15, 1e-15), 5);
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(quadratic),
+                                 new ObjectiveFunctionGradient(quadratic.gradient()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[n]),
+                                 new SimpleBounds(lower, upper));
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(FastMath.min(center[i], 1), optimum.getPointRef()[i], 1.0e-6);
+        }
+        Assert.assertFalse(quadratic.isInfeasible());
+    }
+
+    /**
+     * Weighted sum of squared distances to a center, recording whether it
+     * has been evaluated outside of a box.
+     */
+    private static class Quadratic implements MultivariateFunction {
+        private final double[] center;
+        private final double lower;
+        private final double upper;
+        private boolean infeasible;
+
+        Quadratic(double[] center, double lower, double upper) {
+            this.center = center;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        public double value(double[] point) {
+            check(point);
+            double sum = 0;
+            for (int i = 0; i < point.length; ++i) {
+                final double d = point[i] - center[i];
+                sum += (1 + i % 3) * d * d;
+            }
+            return sum;
+        }
+
+        MultivariateVectorFunction gradient() {
+            return new MultivariateVectorFunction() {
+                public double[] value(double[] point) {
+                    check(point);
+                    final double[] g = new double[point.length];
+                    for (int i = 0; i < point.length; ++i) {
+                        g[i] = 2 * (1 + i % 3) * (point[i] - center[i]);
+                    }
+                    return g;
+                }
+            };
+        }
+
+        boolean isInfeasible() {
+            return infeasible;
+        }
+
+        private void check(double[] point) {
+            for (double x : point) {
+                infeasible |= x < lower || x > upper;
+            }
+        }
+    }
+}
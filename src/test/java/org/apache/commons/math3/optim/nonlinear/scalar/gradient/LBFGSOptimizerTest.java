@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.optim.nonlinear.scalar.gradient;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.SimpleValueChecker;
+import org.apache.commons.math3.optim.nonlinear.scalar.ArmijoLineSearch;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.HagerZhangLineSearch;
+import org.apache.commons.math3.optim.nonlinear.scalar.LineSearch;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunctionGradient;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link LBFGSOptimizer}.
+ */
+public class LBFGSOptimizerTest {
+    @Test(expected=MathUnsupportedOperationException.class)
+    public void testBoundsUnsupported() {
+        new LBFGSOptimizer(new SimpleValueChecker(1e-6, 1e-6))
+            .optimize(new MaxEval(100),
+                      new ObjectiveFunction(new Rosenbrock()),
+                      new ObjectiveFunctionGradient(new Rosenbrock.Gradient()),
+                      GoalType.MINIMIZE,
+                      new InitialGuess(new double[] { 0, 0 }),
+                      new SimpleBounds(new double[] { -1, -1 },
+                                       new double[] { 1, 1 }));
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testInvalidMemory() {
+        new LBFGSOptimizer(new SimpleValueChecker(1e-6, 1e-6), 0);
+    }
+
+    @Test
+    public void testRosenbrock() {
+        LBFGSOptimizer optimizer = new LBFGSOptimizer(new SimpleValueChecker(1e-15, 1e-15));
+        Assert.assertEquals(LBFGSOptimizer.DEFAULT_MEMORY, optimizer.getMemory());
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(new Rosenbrock()),
+                                 new ObjectiveFunctionGradient(new Rosenbrock.Gradient()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { -1.2, 1 }));
+        Assert.assertEquals(1.0, optimum.getPoint()[0], 1.0e-6);
+        Assert.assertEquals(1.0, optimum.getPoint()[1], 1.0e-6);
+        Assert.assertEquals(0.0, optimum.getValue(), 1.0e-12);
+        Assert.assertTrue(optimizer.getIterations() > 0);
+        Assert.assertTrue(optimizer.getEvaluations() < 100);
+    }
+
+    @Test
+    public void testMaximize() {
+        final Rosenbrock rosenbrock = new Rosenbrock();
+        final Rosenbrock.Gradient gradient = new Rosenbrock.Gradient();
+        LBFGSOptimizer optimizer = new LBFGSOptimizer(new SimpleValueChecker(1e-15, 1e-15), 5);
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(new MultivariateFunction() {
+                                     public double value(double[] point) {
+                                         return -rosenbrock.value(point);
+                                     }
+                                 }),
+                                 new ObjectiveFunctionGradient(new MultivariateVectorFunction() {
+                                     public double[] value(double[] point) {
+                                         final double[] g = gradient.value(point);
+                                         for (int i = 0; i < g.length; ++i) {
+                                             g[i] = -g[i];
+                                         }
+                                         return g;
+                                     }
+                                 }),
+                                 GoalType.MAXIMIZE,
+                                 new InitialGuess(new double[] { -1.2, 1 }));
+        Assert.assertEquals(1.0, optimum.getPoint()[0], 1.0e-6);
+        Assert.assertEquals(1.0, optimum.getPoint()[1], 1.0e-6);
+        Assert.assertEquals(0.0, optimum.getValue(), 1.0e-12);
+    }
+
+    @Test
+    public void testCircleFitting() {
+        CircleScalar problem = new CircleScalar();
+        problem.addPoint( 30.0,  68.0);
+        problem.addPoint( 50.0,  -6.0);
+        problem.addPoint(110.0, -20.0);
+        problem.addPoint( 35.0,  15.0);
+        problem.addPoint( 45.0,  97.0);
+        LBFGSOptimizer optimizer = new LBFGSOptimizer(new SimpleValueChecker(1e-15, 1e-15));
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(200),
+                                 problem.getObjectiveFunction(),
+                                 problem.getObjectiveFunctionGradient(),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { 98.680, 47.345 }));
+        Vector2D center = new Vector2D(optimum.getPointRef()[0], optimum.getPointRef()[1]);
+        // the minimum is flat, its location is only found to the square root of the precision
+        Assert.assertEquals(69.960161753, problem.getRadius(center), 1.0e-6);
+        Assert.assertEquals(96.075902096, center.getX(), 1.0e-6);
+        Assert.assertEquals(48.135167894, center.getY(), 1.0e-6);
+    }
+
+    @Test
+    public void testOtherLineSearches() {
+        for (LineSearch lineSearch : new LineSearch[] {
+            new HagerZhangLineSearch(), new ArmijoLineSearch()
+        }) {
+            LBFGSOptimizer optimizer
+                = new LBFGSOptimizer(new SimpleValueChecker(1e-15, 1e-15), 5, lineSearch);
+            PointValuePair optimum
+                = optimizer.optimize(new MaxEval(200),
+                                     new ObjectiveFunction(new Rosenbrock()),
+                                     new ObjectiveFunctionGradient(new Rosenbrock.Gradient()),
+                                     GoalType.MINIMIZE,
+                                     new InitialGuess(new double[] { -1.2, 1 }));
+            Assert.assertEquals(1, optimum.getPoint()[0], 1e-8);
+            Assert.assertEquals(1, optimum.getPoint()[1], 1e-8);
+        }
+    }
+
+    @Test
+    public void testFewerEvaluationsThanConjugateGradient() {
+        final Rosenbrock.Gradient lbfgsGradient = new Rosenbrock.Gradient();
+        final LBFGSOptimizer lbfgs = new LBFGSOptimizer(new SimpleValueChecker(1e-15, 1e-15));
+        final PointValuePair lbfgsOptimum
+            = lbfgs.optimize(new MaxEval(10000),
+                             new ObjectiveFunction(new Rosenbrock()),
+                             new ObjectiveFunctionGradient(lbfgsGradient),
+                             GoalType.MINIMIZE,
+                             new InitialGuess(new double[] { -1.2, 1 }));
+
+        final Rosenbrock.Gradient cgGradient = new Rosenbrock.Gradient();
+        final NonLinearConjugateGradientOptimizer cg
+            = new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                      new SimpleValueChecker(1e-15, 1e-15));
+        final PointValuePair cgOptimum
+            = cg.optimize(new MaxEval(10000),
+                          new ObjectiveFunction(new Rosenbrock()),
+                          new ObjectiveFunctionGradient(cgGradient),
+                          GoalType.MINIMIZE,
+                          new InitialGuess(new double[] { -1.2, 1 }));
+
+        Assert.assertTrue(lbfgsOptimum.getValue() <= cgOptimum.getValue());
+        Assert.assertTrue(lbfgs.getEvaluations() + lbfgsGradient.getCount() <
+                          cg.getEvaluations() + cgGradient.getCount());
+    }
+
+    @Test
+    public void testLargeScale() {
+        // 100000 parameters, only 5 corrections are stored
+        final int n = 100000;
+        final double[] start = new double[n];
+        for (int i = 0; i < n; ++i) {
+            start[i] = (i % 2 == 0) ? -1.2 : 1.0;
+        }
+        LBFGSOptimizer optimizer = new LBFGSOptimizer(new SimpleValueChecker(1e-12, 1e-12), 5);
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(new Rosenbrock()),
+                                 new ObjectiveFunctionGradient(new Rosenbrock.Gradient()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(start));
+        Assert.assertEquals(0.0, optimum.getValue(), 1.0e-6);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(1.0, optimum.getPointRef()[i], 1.0e-3);
+        }
+    }
+
+    /**
+     * Extended Rosenbrock function, for an even number of parameters.
+     */
+    static class Rosenbrock implements MultivariateFunction {
+        public double value(double[] point) {
+            double sum = 0;
+            for (int i = 0; i < point.length; i += 2) {
+                final double a = point[i + 1] - point[i] * point[i];
+                final double b = 1 - point[i];
+                sum += 100 * a * a + b * b;
+            }
+            return sum;
+        }
+
+        /**
+         * Gradient of the extended Rosenbrock function, counting its evaluations.
+         */
+        static class Gradient implements MultivariateVectorFunction {
+            private int count;
+
+            public double[] value(double[] point) {
+                ++count;
+                final double[] g = new double[point.length];
+                for (int i = 0; i < point.length; i += 2) {
+                    final double a = point[i + 1] - point[i] * point[i];
+                    g[i]     = -400 * a * point[i] - 2 * (1 - point[i]);
+                    g[i + 1] = 200 * a;
+                }
+                return g;
+            }
+
+            int getCount() {
+                return count;
+            }
+        }
+    }
+}
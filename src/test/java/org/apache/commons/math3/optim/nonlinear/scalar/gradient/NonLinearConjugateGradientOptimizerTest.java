@@ -31,6 +31,8 @@ import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.SimpleBounds;
 import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.HagerZhangLineSearch;
+import org.apache.commons.math3.optim.nonlinear.scalar.MoreThuenteLineSearch;
 import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunctionGradient;
 import org.junit.Assert;
 import org.junit.Test;
@@ -418,6 +420,100 @@ public class NonLinearConjugateGradientOptimizerTest {
         Assert.assertEquals(48.135167894, center.getY(), 1.0e-8);
     }
 
+    @Test
+    public void testCircleFittingWithLineSearch() {
+        CircleScalar problem = new CircleScalar();
+        problem.addPoint( 30.0,  68.0);
+        problem.addPoint( 50.0,  -6.0);
+        problem.addPoint(110.0, -20.0);
+        problem.addPoint( 35.0,  15.0);
+        problem.addPoint( 45.0,  97.0);
+        NonLinearConjugateGradientOptimizer optimizer
+           = new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                     new SimpleValueChecker(1e-30, 1e-30),
+                                                     new MoreThuenteLineSearch(1e-4, 0.1, 40),
+                                                     new NonLinearConjugateGradientOptimizer.IdentityPreconditioner());
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(100),
+                                 problem.getObjectiveFunction(),
+                                 problem.getObjectiveFunctionGradient(),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { 98.680, 47.345 }));
+        Vector2D center = new Vector2D(optimum.getPointRef()[0], optimum.getPointRef()[1]);
+        Assert.assertEquals(69.960161753, problem.getRadius(center), 1.0e-6);
+        Assert.assertEquals(96.075902096, center.getX(), 1.0e-6);
+        Assert.assertEquals(48.135167894, center.getY(), 1.0e-6);
+    }
+
+    @Test
+    public void testMaximizeWithLineSearch() {
+        LinearProblem problem
+            = new LinearProblem(new double[][] { { 2, 1 }, { 1, 3 } }, new double[] { 3, 5 });
+        final ObjectiveFunction f = problem.getObjectiveFunction();
+        final ObjectiveFunctionGradient g = problem.getObjectiveFunctionGradient();
+        NonLinearConjugateGradientOptimizer optimizer
+            = new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.FLETCHER_REEVES,
+                                                      new SimpleValueChecker(1e-15, 1e-15),
+                                                      new HagerZhangLineSearch(),
+                                                      new NonLinearConjugateGradientOptimizer.IdentityPreconditioner());
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(200),
+                                 new ObjectiveFunction(new MultivariateFunction() {
+                                     public double value(double[] point) {
+                                         return -f.getObjectiveFunction().value(point);
+                                     }
+                                 }),
+                                 new ObjectiveFunctionGradient(new MultivariateVectorFunction() {
+                                     public double[] value(double[] point) {
+                                         final double[] gradient = g.getObjectiveFunctionGradient().value(point);
+                                         for (int i = 0; i < gradient.length; ++i) {
+                                             gradient[i] = -gradient[i];
+                                         }
+                                         return gradient;
+                                     }
+                                 }),
+                                 GoalType.MAXIMIZE,
+                                 new InitialGuess(new double[] { 0, 0 }));
+        Assert.assertEquals(0.8, optimum.getPoint()[0], 1.0e-7);
+        Assert.assertEquals(1.4, optimum.getPoint()[1], 1.0e-7);
+        Assert.assertEquals(0, optimum.getValue(), 1.0e-12);
+    }
+
+    @Test
+    public void testFewerEvaluationsWithLineSearch() {
+        final LBFGSOptimizerTest.Rosenbrock.Gradient brentGradient = new LBFGSOptimizerTest.Rosenbrock.Gradient();
+        final NonLinearConjugateGradientOptimizer brent
+            = new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                      new SimpleValueChecker(1e-12, 1e-12));
+        final PointValuePair brentOptimum
+            = brent.optimize(new MaxEval(1000),
+                             new ObjectiveFunction(new LBFGSOptimizerTest.Rosenbrock()),
+                             new ObjectiveFunctionGradient(brentGradient),
+                             GoalType.MINIMIZE,
+                             new InitialGuess(new double[] { -1.2, 1 }));
+
+        final LBFGSOptimizerTest.Rosenbrock.Gradient searchGradient = new LBFGSOptimizerTest.Rosenbrock.Gradient();
+        final NonLinearConjugateGradientOptimizer search
+            = new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                      new SimpleValueChecker(1e-12, 1e-12),
+                                                      new MoreThuenteLineSearch(1e-4, 0.1, 40),
+                                                      new NonLinearConjugateGradientOptimizer.IdentityPreconditioner());
+        final PointValuePair searchOptimum
+            = search.optimize(new MaxEval(1000),
+                              new ObjectiveFunction(new LBFGSOptimizerTest.Rosenbrock()),
+                              new ObjectiveFunctionGradient(searchGradient),
+                              GoalType.MINIMIZE,
+                              new InitialGuess(new double[] { -1.2, 1 }));
+
+        Assert.assertEquals(1, brentOptimum.getPoint()[0], 1.0e-8);
+        Assert.assertEquals(1, searchOptimum.getPoint()[0], 1.0e-8);
+        Assert.assertEquals(1, searchOptimum.getPoint()[1], 1.0e-8);
+        // a few evaluations per iteration, instead of more than ten gradients
+        Assert.assertTrue(search.getEvaluations() + searchGradient.getCount() <
+                          brent.getEvaluations() + brentGradient.getCount());
+        Assert.assertTrue(search.getEvaluations() < 4 * search.getIterations());
+    }
+
     private static class LinearProblem {
         final RealMatrix factors;
         final double[] target;
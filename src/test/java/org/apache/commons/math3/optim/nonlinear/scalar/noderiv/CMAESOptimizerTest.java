@@ -18,6 +18,8 @@ package org.apache.commons.math3.optim.nonlinear.scalar.noderiv;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.math3.Retry;
 import org.apache.commons.math3.RetryRunner;
 import org.apache.commons.math3.analysis.MultivariateFunction;
@@ -30,7 +32,9 @@ import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.InitialGuess;
 import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.nonlinear.scalar.BatchObjectiveFunction;
 import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.ParallelObjectiveFunction;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.random.MersenneTwister;
 import org.junit.Assert;
@@ -389,6 +393,187 @@ public class CMAESOptimizerTest {
                           result[0] <= upper[0]);
     }
 
+    @Test
+    public void testBatchObjectiveFunction() {
+        final Rosen rosen = new Rosen();
+        final int[] batchCount = new int[1];
+        final BatchObjectiveFunction batch = new BatchObjectiveFunction() {
+                @Override
+                public double[] value(double[][] points) {
+                    ++batchCount[0];
+                    Assert.assertEquals(LAMBDA, points.length);
+                    final double[] values = new double[points.length];
+                    for (int i = 0; i < points.length; i++) {
+                        values[i] = rosen.value(points[i]);
+                    }
+                    return values;
+                }
+
+                @Override
+                public double value(double[] point) {
+                    return rosen.value(point);
+                }
+            };
+
+        final CMAESOptimizer reference
+            = new CMAESOptimizer(30000, 1e-13, true, 0, 0, new MersenneTwister(1234l), false, null);
+        final PointValuePair expected
+            = reference.optimize(new MaxEval(100000),
+                                 new ObjectiveFunction(rosen),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(point(DIM, 0.1)),
+                                 SimpleBounds.unbounded(DIM),
+                                 new CMAESOptimizer.Sigma(point(DIM, 0.1)),
+                                 new CMAESOptimizer.PopulationSize(LAMBDA));
+
+        final CMAESOptimizer optimizer
+            = new CMAESOptimizer(30000, 1e-13, true, 0, 0, new MersenneTwister(1234l), false, null);
+        final PointValuePair result
+            = optimizer.optimize(new MaxEval(100000),
+                                 batch,
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(point(DIM, 0.1)),
+                                 SimpleBounds.unbounded(DIM),
+                                 new CMAESOptimizer.Sigma(point(DIM, 0.1)),
+                                 new CMAESOptimizer.PopulationSize(LAMBDA));
+
+        // Same random sequence and same function: same run.
+        Assert.assertEquals(expected.getValue(), result.getValue(), 0);
+        Assert.assertArrayEquals(expected.getPoint(), result.getPoint(), 0);
+        Assert.assertEquals(reference.getIterations(), optimizer.getIterations());
+        Assert.assertEquals(reference.getEvaluations(), optimizer.getEvaluations());
+        Assert.assertEquals(optimizer.getEvaluations(), 1 + batchCount[0] * LAMBDA);
+    }
+
+    @Test
+    public void testParallelObjectiveFunction() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final CMAESOptimizer optimizer
+                = new CMAESOptimizer(30000, 1e-13, true, 0, 0, new MersenneTwister(1234l), false, null);
+            final PointValuePair result
+                = optimizer.optimize(new MaxEval(100000),
+                                     new ParallelObjectiveFunction(new Rosen(), executor),
+                                     GoalType.MINIMIZE,
+                                     new InitialGuess(point(DIM, 0.1)),
+                                     SimpleBounds.unbounded(DIM),
+                                     new CMAESOptimizer.Sigma(point(DIM, 0.1)),
+                                     new CMAESOptimizer.PopulationSize(LAMBDA));
+            Assert.assertEquals(0, result.getValue(), 1e-13);
+            for (int i = 0; i < DIM; i++) {
+                Assert.assertEquals(1, result.getPoint()[i], 1e-6);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInPlace() {
+        final double[] lower = point(DIM, -1);
+        final double[] upper = point(DIM, 0.5);
+        // Active and non-active CMA, full covariance.
+        checkInPlace(new ElliRotated(), DIM, true, 0, 0, GoalType.MINIMIZE, null, null, 1000, false);
+        checkInPlace(new Rosen(), DIM, false, 0, 0, GoalType.MINIMIZE, null, null, 1000, false);
+        // Diagonal covariance, always or during the first iterations.
+        checkInPlace(new Elli(), DIM, true, 1, 0, GoalType.MINIMIZE, null, null, 1000, false);
+        checkInPlace(new Rosen(), DIM, true, 20, 0, GoalType.MINIMIZE, null, null, 1000, false);
+        // Bounds, with regeneration of unfeasible offspring.
+        checkInPlace(new Rosen(), DIM, true, 0, 3, GoalType.MINIMIZE, lower, upper, 1000, false);
+        checkInPlace(new MinusElli(), DIM, true, 0, 0, GoalType.MAXIMIZE, null, null, 1000, false);
+        // Large enough for the eigenvectors to be stored in blocks.
+        checkInPlace(new Elli(), 70, true, 0, 0, GoalType.MINIMIZE, null, null, 30, false);
+    }
+
+    @Test
+    public void testLazyEigenDecomposition() {
+        final int dim = 100;
+        final CMAESOptimizer optimizer
+            = new CMAESOptimizer(30000, 1e-6, true, 0, 0,
+                                 new MersenneTwister(1234l), false, null, true, true);
+        final PointValuePair result
+            = optimizer.optimize(new MaxEval(1000000),
+                                 new ObjectiveFunction(new Sphere()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(point(dim, 1.0)),
+                                 SimpleBounds.unbounded(dim),
+                                 new CMAESOptimizer.Sigma(point(dim, 0.1)),
+                                 new CMAESOptimizer.PopulationSize(LAMBDA));
+        Assert.assertEquals(0, result.getValue(), 1e-6);
+        for (int i = 0; i < dim; i++) {
+            Assert.assertEquals(0, result.getPoint()[i], 1e-3);
+        }
+
+        // Both implementations follow the same schedule.
+        checkInPlace(new ElliRotated(), dim, true, 0, 0, GoalType.MINIMIZE, null, null, 50, true);
+        checkInPlace(new Elli(), dim, false, 20, 0, GoalType.MINIMIZE, null, null, 50, true);
+    }
+
+    @Test
+    public void testSeparable() {
+        final int dim = 300;
+        final CMAESOptimizer optimizer
+            = new CMAESOptimizer(30000, 1e-10, true, 1, 0,
+                                 new MersenneTwister(1234l), false, null, true, false);
+        final PointValuePair result
+            = optimizer.optimize(new MaxEval(10000000),
+                                 new ObjectiveFunction(new Sphere()),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(point(dim, 1.0)),
+                                 SimpleBounds.unbounded(dim),
+                                 new CMAESOptimizer.Sigma(point(dim, 0.1)),
+                                 new CMAESOptimizer.PopulationSize(LAMBDA));
+        Assert.assertEquals(0, result.getValue(), 1e-10);
+
+        checkInPlace(new Elli(), DIM, true, 1, 0, GoalType.MINIMIZE, null, null, 1000, false);
+    }
+
+    /**
+     * Checks that the in-place and the matrix-based implementations
+     * produce the same run.
+     */
+    private void checkInPlace(MultivariateFunction func, int dim,
+                              boolean isActive, int diagonalOnly, int checkFeasableCount,
+                              GoalType goal, double[] lower, double[] upper,
+                              int maxIterations, boolean lazy) {
+        final SimpleBounds bounds = lower == null ?
+            SimpleBounds.unbounded(dim) :
+            new SimpleBounds(lower, upper);
+        final CMAESOptimizer reference
+            = new CMAESOptimizer(maxIterations, 1e-13, isActive, diagonalOnly, checkFeasableCount,
+                                 new MersenneTwister(1234l), true, null, false, lazy);
+        final PointValuePair expected
+            = reference.optimize(new MaxEval(1000000),
+                                 new ObjectiveFunction(func),
+                                 goal,
+                                 new InitialGuess(point(dim, 0.1)),
+                                 bounds,
+                                 new CMAESOptimizer.Sigma(point(dim, 0.1)),
+                                 new CMAESOptimizer.PopulationSize(LAMBDA));
+        final CMAESOptimizer optimizer
+            = new CMAESOptimizer(maxIterations, 1e-13, isActive, diagonalOnly, checkFeasableCount,
+                                 new MersenneTwister(1234l), true, null, true, lazy);
+        final PointValuePair result
+            = optimizer.optimize(new MaxEval(1000000),
+                                 new ObjectiveFunction(func),
+                                 goal,
+                                 new InitialGuess(point(dim, 0.1)),
+                                 bounds,
+                                 new CMAESOptimizer.Sigma(point(dim, 0.1)),
+                                 new CMAESOptimizer.PopulationSize(LAMBDA));
+
+        Assert.assertEquals(expected.getValue(), result.getValue(), 0);
+        Assert.assertArrayEquals(expected.getPoint(), result.getPoint(), 0);
+        Assert.assertEquals(reference.getIterations(), optimizer.getIterations());
+        Assert.assertEquals(reference.getEvaluations(), optimizer.getEvaluations());
+        Assert.assertEquals(reference.getStatisticsSigmaHistory(),
+                            optimizer.getStatisticsSigmaHistory());
+        Assert.assertEquals(reference.getStatisticsMeanHistory(),
+                            optimizer.getStatisticsMeanHistory());
+        Assert.assertEquals(reference.getStatisticsDHistory(),
+                            optimizer.getStatisticsDHistory());
+    }
+
     /**
      * Cf. MATH-867
      */
@@ -22,6 +22,7 @@ import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.InitialGuess;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.nonlinear.scalar.ArmijoLineSearch;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
 import org.apache.commons.math3.exception.MathUnsupportedOperationException;
@@ -137,6 +138,55 @@ public class PowellOptimizerTest {
         doTest(func, maxPoint, init, GoalType.MAXIMIZE, 1e-9, 1e-8);
     }
 
+    @Test
+    public void testMaximizeQuadraticWithLineSearch() {
+        final MultivariateFunction func = new MultivariateFunction() {
+                public double value(double[] x) {
+                    final double a = x[0] - 1;
+                    final double b = x[1] - 1;
+                    return -a * a - b * b + 1;
+                }
+            };
+        final PowellOptimizer optim = new PowellOptimizer(1e-9, Math.ulp(1d), null,
+                                                          new ArmijoLineSearch());
+        final PointValuePair result = optim.optimize(new MaxEval(1000),
+                                                     new ObjectiveFunction(func),
+                                                     GoalType.MAXIMIZE,
+                                                     new InitialGuess(new double[] { -19, -19 }));
+        Assert.assertEquals(1, result.getPoint()[0], 1e-8);
+        Assert.assertEquals(1, result.getPoint()[1], 1e-8);
+        Assert.assertEquals(1, result.getValue(), 1e-15);
+    }
+
+    @Test
+    public void testRosenbrockWithLineSearch() {
+        final MultivariateFunction rosenbrock = new MultivariateFunction() {
+                public double value(double[] x) {
+                    final double a = x[1] - x[0] * x[0];
+                    final double b = 1 - x[0];
+                    return 100 * a * a + b * b;
+                }
+            };
+
+        final PowellOptimizer brent = new PowellOptimizer(1e-10, 1e-12);
+        final PointValuePair brentResult = brent.optimize(new MaxEval(10000),
+                                                          new ObjectiveFunction(rosenbrock),
+                                                          GoalType.MINIMIZE,
+                                                          new InitialGuess(new double[] { -1.2, 1 }));
+
+        final PowellOptimizer armijo = new PowellOptimizer(1e-10, 1e-12, null,
+                                                           new ArmijoLineSearch());
+        final PointValuePair armijoResult = armijo.optimize(new MaxEval(10000),
+                                                            new ObjectiveFunction(rosenbrock),
+                                                            GoalType.MINIMIZE,
+                                                            new InitialGuess(new double[] { -1.2, 1 }));
+
+        Assert.assertEquals(1, brentResult.getPoint()[0], 1e-4);
+        Assert.assertEquals(1, armijoResult.getPoint()[0], 1e-8);
+        Assert.assertEquals(1, armijoResult.getPoint()[1], 1e-8);
+        Assert.assertTrue(armijo.getEvaluations() < brent.getEvaluations());
+    }
+
     /**
      * Ensure that we do not increase the number of function evaluations when
      * the function values are scaled up.
@@ -23,6 +23,7 @@ import org.apache.commons.math3.optim.InitialGuess;
 import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.SimpleValueChecker;
 import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.nonlinear.scalar.BatchObjectiveFunction;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
 import org.apache.commons.math3.exception.MathUnsupportedOperationException;
@@ -187,6 +188,114 @@ public class SimplexOptimizerMultiDirectionalTest {
         Assert.assertTrue(optimum.getValue() > 1e-2);
     }
 
+    @Test
+    public void testPowellBatch() {
+        final MultivariateFunction powell
+            = new MultivariateFunction() {
+                    public double value(double[] x) {
+                        double a = x[0] + 10 * x[1];
+                        double b = x[2] - x[3];
+                        double c = x[1] - 2 * x[2];
+                        double d = x[0] - x[3];
+                        return a * a + 5 * b * b + c * c * c * c + 10 * d * d * d * d;
+                    }
+                };
+        final int[] batchCount = new int[1];
+        final BatchObjectiveFunction batch
+            = new BatchObjectiveFunction() {
+                    @Override
+                    public double[] value(double[][] points) {
+                        ++batchCount[0];
+                        final double[] values = new double[points.length];
+                        for (int i = 0; i < points.length; i++) {
+                            values[i] = powell.value(points[i]);
+                        }
+                        return values;
+                    }
+                };
+
+        SimplexOptimizer reference = new SimplexOptimizer(-1, 1e-3);
+        PointValuePair expected
+            = reference.optimize(new MaxEval(1000),
+                                 new ObjectiveFunction(powell),
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { 3, -1, 0, 1 }),
+                                 new MultiDirectionalSimplex(4));
+
+        SimplexOptimizer optimizer = new SimplexOptimizer(-1, 1e-3);
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000),
+                                 batch,
+                                 GoalType.MINIMIZE,
+                                 new InitialGuess(new double[] { 3, -1, 0, 1 }),
+                                 new MultiDirectionalSimplex(4));
+
+        Assert.assertEquals(expected.getValue(), optimum.getValue(), 0);
+        Assert.assertArrayEquals(expected.getPoint(), optimum.getPoint(), 0);
+        Assert.assertEquals(reference.getEvaluations(), optimizer.getEvaluations());
+        // The initial simplex has 5 vertices, and each of the following
+        // batches evaluates 4 transformed vertices.
+        Assert.assertEquals(optimizer.getEvaluations(), 5 + 4 * (batchCount[0] - 1));
+    }
+
+    @Test
+    public void testReuseWithBothKindsOfObjective() {
+        final int[] singleCount = new int[1];
+        final MultivariateFunction shifted
+            = new MultivariateFunction() {
+                    public double value(double[] x) {
+                        ++singleCount[0];
+                        return (x[0] - 1) * (x[0] - 1) + (x[1] + 2) * (x[1] + 2);
+                    }
+                };
+        final int[] batchCount = new int[1];
+        final BatchObjectiveFunction batch
+            = new BatchObjectiveFunction() {
+                    @Override
+                    public double[] value(double[][] points) {
+                        ++batchCount[0];
+                        final double[] values = new double[points.length];
+                        for (int i = 0; i < points.length; i++) {
+                            values[i] = points[i][0] * points[i][0] + points[i][1] * points[i][1];
+                        }
+                        return values;
+                    }
+                };
+
+        final SimplexOptimizer optimizer = new SimplexOptimizer(1e-10, 1e-30);
+        final InitialGuess start = new InitialGuess(new double[] { 3, 4 });
+
+        // batch objective, then plain objective on the same instance
+        PointValuePair optimum
+            = optimizer.optimize(new MaxEval(1000), batch, GoalType.MINIMIZE,
+                                 start, new MultiDirectionalSimplex(2));
+        Assert.assertEquals(0, optimum.getPoint()[0], 1e-4);
+        Assert.assertEquals(0, optimum.getPoint()[1], 1e-4);
+        Assert.assertTrue(batchCount[0] > 0);
+        Assert.assertEquals(0, singleCount[0]);
+
+        final int batchCalls = batchCount[0];
+        optimum = optimizer.optimize(new MaxEval(1000), new ObjectiveFunction(shifted));
+        Assert.assertEquals(1, optimum.getPoint()[0], 1e-4);
+        Assert.assertEquals(-2, optimum.getPoint()[1], 1e-4);
+        Assert.assertEquals(batchCalls, batchCount[0]);
+        Assert.assertEquals(optimizer.getEvaluations(), singleCount[0]);
+
+        // back to the batch objective
+        singleCount[0] = 0;
+        optimum = optimizer.optimize(new MaxEval(1000), batch);
+        Assert.assertEquals(0, optimum.getPoint()[0], 1e-4);
+        Assert.assertEquals(0, optimum.getPoint()[1], 1e-4);
+        Assert.assertTrue(batchCount[0] > batchCalls);
+        Assert.assertEquals(0, singleCount[0]);
+
+        // both kinds in the same call: the batch objective is used everywhere
+        optimum = optimizer.optimize(new MaxEval(1000), new ObjectiveFunction(shifted), batch);
+        Assert.assertEquals(0, optimum.getPoint()[0], 1e-4);
+        Assert.assertEquals(0, optimum.getPoint()[1], 1e-4);
+        Assert.assertEquals(0, singleCount[0]);
+    }
+
     @Test
     public void testMath283() {
         // fails because MultiDirectional.iterateSimplex is looping forever
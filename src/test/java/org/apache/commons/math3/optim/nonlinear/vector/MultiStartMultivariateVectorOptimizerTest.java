@@ -16,6 +16,9 @@
  */
 package org.apache.commons.math3.optim.nonlinear.vector;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
 import org.apache.commons.math3.linear.BlockRealMatrix;
@@ -23,6 +26,7 @@ import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.optim.InitialGuess;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.OptimizerFactory;
 import org.apache.commons.math3.optim.PointVectorValuePair;
 import org.apache.commons.math3.optim.SimpleBounds;
 import org.apache.commons.math3.optim.SimpleVectorValueChecker;
@@ -146,6 +150,42 @@ public class MultiStartMultivariateVectorOptimizerTest {
         Assert.assertEquals(100, optimizer.getMaxEvaluations());
     }
 
+    @Test
+    public void testTrivialParallel() {
+        LinearProblem problem
+            = new LinearProblem(new double[][] { { 2 } }, new double[] { 3 });
+        JDKRandomGenerator g = new JDKRandomGenerator();
+        g.setSeed(16069223052l);
+        RandomVectorGenerator generator
+            = new UncorrelatedRandomVectorGenerator(1, new GaussianRandomGenerator(g));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            MultiStartMultivariateVectorOptimizer optimizer
+                = new MultiStartMultivariateVectorOptimizer(new GaussNewtonFactory(), executor, 10, generator);
+
+            PointVectorValuePair optimum
+                = optimizer.optimize(new MaxEval(100),
+                                     problem.getModelFunction(),
+                                     problem.getModelFunctionJacobian(),
+                                     problem.getTarget(),
+                                     new Weight(new double[] { 1 }),
+                                     new InitialGuess(new double[] { 0 }));
+            Assert.assertEquals(1.5, optimum.getPoint()[0], 1e-10);
+            Assert.assertEquals(3.0, optimum.getValue()[0], 1e-10);
+            PointVectorValuePair[] optima = optimizer.getOptima();
+            Assert.assertEquals(10, optima.length);
+            for (int i = 0; i < optima.length; i++) {
+                Assert.assertEquals(1.5, optima[i].getPoint()[0], 1e-10);
+                Assert.assertEquals(3.0, optima[i].getValue()[0], 1e-10);
+            }
+            Assert.assertTrue(optimizer.getEvaluations() > 20);
+            Assert.assertTrue(optimizer.getEvaluations() < 50);
+            Assert.assertEquals(100, optimizer.getMaxEvaluations());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testIssue914() {
         LinearProblem problem = new LinearProblem(new double[][] { { 2 } }, new double[] { 3 });
@@ -209,6 +249,37 @@ public class MultiStartMultivariateVectorOptimizerTest {
                                }));
     }
 
+    @Test(expected=TestException.class)
+    public void testNoOptimumParallel() {
+        JDKRandomGenerator g = new JDKRandomGenerator();
+        g.setSeed(12373523445l);
+        RandomVectorGenerator generator
+            = new UncorrelatedRandomVectorGenerator(1, new GaussianRandomGenerator(g));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            MultiStartMultivariateVectorOptimizer optimizer
+                = new MultiStartMultivariateVectorOptimizer(new GaussNewtonFactory(), executor, 10, generator);
+            optimizer.optimize(new MaxEval(100),
+                               new Target(new double[] { 0 }),
+                               new Weight(new double[] { 1 }),
+                               new InitialGuess(new double[] { 0 }),
+                               new ModelFunction(new MultivariateVectorFunction() {
+                                       public double[] value(double[] point) {
+                                           throw new TestException();
+                                       }
+                                   }));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static class GaussNewtonFactory
+        implements OptimizerFactory<JacobianMultivariateVectorOptimizer> {
+        public JacobianMultivariateVectorOptimizer create() {
+            return new GaussNewtonOptimizer(true, new SimpleVectorValueChecker(1e-6, 1e-6));
+        }
+    }
+
     private static class TestException extends RuntimeException {
 
     private static final long serialVersionUID = 1L;}
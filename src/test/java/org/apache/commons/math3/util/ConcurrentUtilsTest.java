@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law
+ * or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.apache.commons.math3.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.math3.ExecutorAbstractTest;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link ConcurrentUtils}.
+ */
+public class ConcurrentUtilsTest extends ExecutorAbstractTest {
+    public ConcurrentUtilsTest() {
+        super(3);
+    }
+
+    @Test
+    public void testResultsInTaskOrder() {
+        final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            final int index = i;
+            tasks.add(new Callable<Integer>() {
+                    public Integer call() throws InterruptedException {
+                        // complete in reverse order
+                        Thread.sleep(20 - index);
+                        return index * index;
+                    }
+                });
+        }
+        final List<Integer> results = ConcurrentUtils.invokeAll(executor, tasks);
+        Assert.assertEquals(tasks.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(i * i, results.get(i).intValue());
+        }
+        Assert.assertFalse(executor.isShutdown());
+    }
+
+    @Test(expected=NotPositiveException.class)
+    public void testUncheckedExceptionRethrown() {
+        ConcurrentUtils.invokeAll(executor, failingTasks(new NotPositiveException(-1)));
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testErrorRethrown() {
+        ConcurrentUtils.invokeAll(executor, failingTasks(new AssertionError()));
+    }
+
+    @Test
+    public void testCheckedExceptionWrapped() {
+        final IOException failure = new IOException();
+        try {
+            ConcurrentUtils.invokeAll(executor, failingTasks(failure));
+            Assert.fail("an exception should have been thrown");
+        } catch (MathIllegalStateException e) {
+            Assert.assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void testInterrupted() {
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        tasks.add(new Callable<Void>() {
+                public Void call() throws InterruptedException {
+                    Thread.sleep(10000);
+                    return null;
+                }
+            });
+        Thread.currentThread().interrupt();
+        try {
+            ConcurrentUtils.invokeAll(executor, tasks);
+            Assert.fail("an exception should have been thrown");
+        } catch (MathIllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof InterruptedException);
+            // the interruption status is restored
+            Assert.assertTrue(Thread.interrupted());
+        }
+    }
+
+    /**
+     * @param failure Exception thrown by the second task.
+     * @return three tasks, the second of which fails.
+     */
+    private static List<Callable<Void>> failingTasks(final Throwable failure) {
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 3; i++) {
+            final boolean fail = i == 1;
+            tasks.add(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        if (fail) {
+                            if (failure instanceof Error) {
+                                throw (Error) failure;
+                            }
+                            throw (Exception) failure;
+                        }
+                        return null;
+                    }
+                });
+        }
+        return tasks;
+    }
+}